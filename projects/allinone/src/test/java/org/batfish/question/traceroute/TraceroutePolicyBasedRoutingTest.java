@@ -13,11 +13,13 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Maps;
 import java.io.IOException;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
+import org.batfish.common.NetworkSnapshot;
 import org.batfish.datamodel.ConcreteInterfaceAddress;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.ConfigurationFormat;
@@ -144,6 +146,13 @@ public class TraceroutePolicyBasedRoutingTest {
     return configs.build();
   }
 
+  /** Returns the pruned traces of each flow. */
+  private static Map<Flow, List<Trace>> getTraces(
+      TracerouteAnswerer answerer, NetworkSnapshot snapshot, TracerouteQuestion question) {
+    return Maps.transformValues(
+        answerer.getPrunedTraces(snapshot, question), prunedTraces -> prunedTraces._traces);
+  }
+
   @Test
   public void testWithNoPolicy() throws IOException {
     /*
@@ -162,7 +171,7 @@ public class TraceroutePolicyBasedRoutingTest {
     TracerouteQuestion question =
         new TracerouteQuestion(SOURCE_LOCATION_STR, header, false, DEFAULT_MAX_TRACES);
     TracerouteAnswerer answerer = new TracerouteAnswerer(question, batfish);
-    Map<Flow, List<Trace>> traces = answerer.getTraces(batfish.getSnapshot(), question);
+    Map<Flow, List<Trace>> traces = getTraces(answerer, batfish.getSnapshot(), question);
 
     assertThat(traces.entrySet(), hasSize(1));
     assertThat(
@@ -189,7 +198,7 @@ public class TraceroutePolicyBasedRoutingTest {
     TracerouteQuestion question =
         new TracerouteQuestion(SOURCE_LOCATION_STR, header, false, DEFAULT_MAX_TRACES);
     TracerouteAnswerer answerer = new TracerouteAnswerer(question, batfish);
-    Map<Flow, List<Trace>> traces = answerer.getTraces(batfish.getSnapshot(), question);
+    Map<Flow, List<Trace>> traces = getTraces(answerer, batfish.getSnapshot(), question);
 
     assertThat(traces.entrySet(), hasSize(1));
     assertThat(
@@ -215,7 +224,7 @@ public class TraceroutePolicyBasedRoutingTest {
     TracerouteQuestion question =
         new TracerouteQuestion(SOURCE_LOCATION_STR, header, false, DEFAULT_MAX_TRACES);
     TracerouteAnswerer answerer = new TracerouteAnswerer(question, batfish);
-    Map<Flow, List<Trace>> traces = answerer.getTraces(batfish.getSnapshot(), question);
+    Map<Flow, List<Trace>> traces = getTraces(answerer, batfish.getSnapshot(), question);
 
     assertThat(traces.entrySet(), hasSize(1));
     assertThat(
@@ -241,7 +250,7 @@ public class TraceroutePolicyBasedRoutingTest {
     TracerouteQuestion question =
         new TracerouteQuestion(SOURCE_LOCATION_STR, header, false, DEFAULT_MAX_TRACES);
     TracerouteAnswerer answerer = new TracerouteAnswerer(question, batfish);
-    Map<Flow, List<Trace>> traces = answerer.getTraces(batfish.getSnapshot(), question);
+    Map<Flow, List<Trace>> traces = getTraces(answerer, batfish.getSnapshot(), question);
 
     assertThat(traces.entrySet(), hasSize(1));
     assertThat(
@@ -268,7 +277,7 @@ public class TraceroutePolicyBasedRoutingTest {
     TracerouteQuestion question =
         new TracerouteQuestion(SOURCE_LOCATION_STR, header, false, DEFAULT_MAX_TRACES);
     TracerouteAnswerer answerer = new TracerouteAnswerer(question, batfish);
-    Map<Flow, List<Trace>> traces = answerer.getTraces(batfish.getSnapshot(), question);
+    Map<Flow, List<Trace>> traces = getTraces(answerer, batfish.getSnapshot(), question);
 
     assertThat(traces.entrySet(), hasSize(1));
     assertThat(
@@ -294,7 +303,7 @@ public class TraceroutePolicyBasedRoutingTest {
     TracerouteQuestion question =
         new TracerouteQuestion(SOURCE_LOCATION_STR, header, false, DEFAULT_MAX_TRACES);
     TracerouteAnswerer answerer = new TracerouteAnswerer(question, batfish);
-    Map<Flow, List<Trace>> traces = answerer.getTraces(batfish.getSnapshot(), question);
+    Map<Flow, List<Trace>> traces = getTraces(answerer, batfish.getSnapshot(), question);
 
     assertThat(traces.entrySet(), hasSize(1));
     assertThat(
@@ -320,7 +329,7 @@ public class TraceroutePolicyBasedRoutingTest {
     TracerouteQuestion question =
         new TracerouteQuestion(SOURCE_LOCATION_STR, header, false, DEFAULT_MAX_TRACES);
     TracerouteAnswerer answerer = new TracerouteAnswerer(question, batfish);
-    Map<Flow, List<Trace>> traces = answerer.getTraces(batfish.getSnapshot(), question);
+    Map<Flow, List<Trace>> traces = getTraces(answerer, batfish.getSnapshot(), question);
 
     assertThat(traces.entrySet(), hasSize(1));
     assertThat(
@@ -348,7 +357,7 @@ public class TraceroutePolicyBasedRoutingTest {
     TracerouteQuestion question =
         new TracerouteQuestion(SOURCE_LOCATION_STR, header, false, DEFAULT_MAX_TRACES);
     TracerouteAnswerer answerer = new TracerouteAnswerer(question, batfish);
-    Map<Flow, List<Trace>> traces = answerer.getTraces(batfish.getSnapshot(), question);
+    Map<Flow, List<Trace>> traces = getTraces(answerer, batfish.getSnapshot(), question);
 
     assertThat(traces.entrySet(), hasSize(1));
     assertThat(
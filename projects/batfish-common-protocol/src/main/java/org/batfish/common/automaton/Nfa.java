@@ -0,0 +1,194 @@
+package org.batfish.common.automaton;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * A Thompson NFA over ASCII characters, with zero-width assertions for the beginning and end of the
+ * input.
+ *
+ * <p>States are numbered consecutively. Each state is of one of the kinds below and has up to two
+ * successors.
+ */
+@ParametersAreNonnullByDefault
+final class Nfa {
+
+  /** Consumes one character in {@link #getChars(int)}, then moves to {@link #getNext(int)}. */
+  static final byte CHARS = 0;
+
+  /** Moves to {@link #getNext(int)} or {@link #getNext2(int)} without consuming input. */
+  static final byte SPLIT = 1;
+
+  /** Moves to {@link #getNext(int)} without consuming input, at the beginning of the input. */
+  static final byte BEGIN = 2;
+
+  /** Moves to {@link #getNext(int)} without consuming input, at the end of the input. */
+  static final byte END = 3;
+
+  /** Accepts. */
+  static final byte MATCH = 4;
+
+  /** Incrementally builds an {@link Nfa} whose successors are known before their predecessors. */
+  static final class Builder {
+    private byte[] _kinds = new byte[16];
+    private BitSet[] _chars = new BitSet[16];
+    private int[] _next = new int[16];
+    private int[] _next2 = new int[16];
+    private int _size;
+    private final int _maxSize;
+
+    Builder(int maxSize) {
+      _maxSize = maxSize;
+    }
+
+    private int add(byte kind, @Nullable BitSet chars, int next, int next2) {
+      if (_size == _maxSize) {
+        throw new UnsupportedRegexException("NFA too large");
+      }
+      if (_size == _kinds.length) {
+        int capacity = 2 * _size;
+        _kinds = Arrays.copyOf(_kinds, capacity);
+        _chars = Arrays.copyOf(_chars, capacity);
+        _next = Arrays.copyOf(_next, capacity);
+        _next2 = Arrays.copyOf(_next2, capacity);
+      }
+      _kinds[_size] = kind;
+      _chars[_size] = chars;
+      _next[_size] = next;
+      _next2[_size] = next2;
+      return _size++;
+    }
+
+    int chars(BitSet chars, int next) {
+      return add(CHARS, chars, next, -1);
+    }
+
+    int split(int next, int next2) {
+      return add(SPLIT, null, next, next2);
+    }
+
+    /** Sets the successors of a {@link #split(int, int)} state created before them. */
+    void setSplit(int state, int next, int next2) {
+      assert _kinds[state] == SPLIT;
+      _next[state] = next;
+      _next2[state] = next2;
+    }
+
+    int begin(int next) {
+      return add(BEGIN, null, next, -1);
+    }
+
+    int end(int next) {
+      return add(END, null, next, -1);
+    }
+
+    int match() {
+      return add(MATCH, null, -1, -1);
+    }
+
+    @Nonnull
+    Nfa build(int start, int match) {
+      assert _kinds[match] == MATCH;
+      return new Nfa(
+          Arrays.copyOf(_kinds, _size),
+          Arrays.copyOf(_chars, _size),
+          Arrays.copyOf(_next, _size),
+          Arrays.copyOf(_next2, _size),
+          start,
+          match);
+    }
+  }
+
+  private final @Nonnull byte[] _kinds;
+  private final @Nonnull BitSet[] _chars;
+  private final @Nonnull int[] _next;
+  private final @Nonnull int[] _next2;
+  private final int _start;
+  private final int _match;
+
+  private Nfa(byte[] kinds, BitSet[] chars, int[] next, int[] next2, int start, int match) {
+    _kinds = kinds;
+    _chars = chars;
+    _next = next;
+    _next2 = next2;
+    _start = start;
+    _match = match;
+  }
+
+  int size() {
+    return _kinds.length;
+  }
+
+  int getStart() {
+    return _start;
+  }
+
+  /** The single accepting state. */
+  int getMatch() {
+    return _match;
+  }
+
+  byte getKind(int state) {
+    return _kinds[state];
+  }
+
+  @Nonnull
+  BitSet getChars(int state) {
+    assert _kinds[state] == CHARS;
+    return _chars[state];
+  }
+
+  int getNext(int state) {
+    return _next[state];
+  }
+
+  int getNext2(int state) {
+    assert _kinds[state] == SPLIT;
+    return _next2[state];
+  }
+
+  /**
+   * Adds to {@code states} every state reachable from them without consuming input, given whether
+   * the current position is at the beginning and at the end of the input.
+   */
+  void close(BitSet states, boolean atBeginning, boolean atEnd) {
+    int[] stack = new int[size()];
+    int top = 0;
+    for (int s = states.nextSetBit(0); s >= 0; s = states.nextSetBit(s + 1)) {
+      stack[top++] = s;
+    }
+    while (top > 0) {
+      int s = stack[--top];
+      switch (_kinds[s]) {
+        case SPLIT:
+          top = push(states, stack, top, _next[s]);
+          top = push(states, stack, top, _next2[s]);
+          break;
+        case BEGIN:
+          if (atBeginning) {
+            top = push(states, stack, top, _next[s]);
+          }
+          break;
+        case END:
+          if (atEnd) {
+            top = push(states, stack, top, _next[s]);
+          }
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  private static int push(BitSet states, int[] stack, int top, int state) {
+    if (states.get(state)) {
+      return top;
+    }
+    states.set(state);
+    stack[top] = state;
+    return top + 1;
+  }
+}
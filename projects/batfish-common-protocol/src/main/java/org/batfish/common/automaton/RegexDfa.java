@@ -0,0 +1,196 @@
+package org.batfish.common.automaton;
+
+import static org.batfish.common.automaton.RegexParser.ALPHABET_SIZE;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * A deterministic automaton that decides whether {@link java.util.regex.Matcher#find()} succeeds on
+ * an input, without backtracking and without materializing the input as a string.
+ *
+ * <p>Callers feed the input one character at a time from {@link #initialState()}, and may stop as
+ * soon as {@link State#isMatch()} holds. At the end of the input, {@link State#isMatchAtEnd()}
+ * holds iff {@code find()} would have succeeded.
+ *
+ * <p>The automaton is determinized lazily: only states reachable on the inputs seen so far are
+ * built. Input characters are limited to ASCII, excluding line terminators. Stepping on any other
+ * character, or beyond {@link #MAX_STATES} states, returns {@code null}, in which case the caller
+ * must fall back to {@link java.util.regex.Pattern}.
+ *
+ * <p>This class is thread-safe.
+ */
+@ParametersAreNonnullByDefault
+public final class RegexDfa {
+
+  /** Upper bound on the number of states of the underlying NFA. */
+  @VisibleForTesting static final int MAX_NFA_STATES = 1 << 12;
+
+  /** Upper bound on the number of states built lazily for a single regex. */
+  @VisibleForTesting static final int MAX_STATES = 1 << 11;
+
+  /** A state of a {@link RegexDfa}. */
+  public static final class State {
+    private final @Nonnull BitSet _nfaStates;
+    private final boolean _match;
+    private final boolean _matchAtEnd;
+    /** Successors by input character, filled in lazily. */
+    private final @Nonnull State[] _next;
+
+    private State(BitSet nfaStates, boolean match, boolean matchAtEnd) {
+      _nfaStates = nfaStates;
+      _match = match;
+      _matchAtEnd = matchAtEnd;
+      _next = new State[ALPHABET_SIZE];
+    }
+
+    /** Whether the input consumed so far contains a match, no matter the rest of the input. */
+    public boolean isMatch() {
+      return _match;
+    }
+
+    /** Whether {@code find()} succeeds on an input that ends after the input consumed so far. */
+    public boolean isMatchAtEnd() {
+      return _matchAtEnd;
+    }
+  }
+
+  /**
+   * Returns a {@link RegexDfa} for the given {@link java.util.regex.Pattern} regex, or {@link
+   * Optional#empty()} if the regex is invalid or uses constructs that are not regular, such as
+   * back-references or lookaround.
+   */
+  public static @Nonnull Optional<RegexDfa> compile(String regex) {
+    try {
+      Pattern.compile(regex);
+    } catch (PatternSyntaxException e) {
+      return Optional.empty();
+    }
+    try {
+      return Optional.of(new RegexDfa(RegexParser.parse(regex, MAX_NFA_STATES)));
+    } catch (UnsupportedRegexException e) {
+      return Optional.empty();
+    }
+  }
+
+  private final @Nonnull Nfa _nfa;
+  private final @Nonnull State _initialState;
+  /** Interned non-initial states, by their NFA states. */
+  private final @Nonnull Map<BitSet, State> _states;
+
+  private RegexDfa(Nfa nfa) {
+    _nfa = nfa;
+    _states = new HashMap<>();
+    BitSet initial = new BitSet(nfa.size());
+    initial.set(nfa.getStart());
+    // the initial state is the only one at the beginning of the input
+    _initialState = newState(initial, true);
+  }
+
+  private @Nonnull State newState(BitSet kernel, boolean atBeginning) {
+    _nfa.close(kernel, atBeginning, false);
+    int match = _nfa.getMatch();
+    boolean isMatch = kernel.get(match);
+    BitSet atEnd = (BitSet) kernel.clone();
+    _nfa.close(atEnd, atBeginning, true);
+    return new State(kernel, isMatch, atEnd.get(match));
+  }
+
+  /** The state before any input. */
+  public @Nonnull State initialState() {
+    return _initialState;
+  }
+
+  /**
+   * Returns the state after consuming {@code c} in {@code state}, or {@code null} if {@code c} is
+   * not supported or too many states were built.
+   */
+  public @Nullable State step(State state, char c) {
+    if (state._match) {
+      return state;
+    }
+    if (c >= ALPHABET_SIZE || c == '\n' || c == '\r') {
+      return null;
+    }
+    State next = state._next[c];
+    if (next != null) {
+      return next;
+    }
+    return computeStep(state, c);
+  }
+
+  /** Like {@link #step(State, char)}, for each character of {@code chars}. */
+  public @Nullable State step(State state, CharSequence chars) {
+    State current = state;
+    for (int i = 0; i < chars.length() && current != null && !current._match; i++) {
+      current = step(current, chars.charAt(i));
+    }
+    return current;
+  }
+
+  /**
+   * Like {@link #step(State, CharSequence)} on the decimal representation of {@code value}, as
+   * rendered by {@link Long#toString(long)}.
+   */
+  public @Nullable State stepDecimal(State state, long value) {
+    State current = state;
+    if (value < 0) {
+      current = step(current, '-');
+      if (current == null) {
+        return null;
+      }
+      if (value == Long.MIN_VALUE) {
+        return step(current, Long.toString(value).substring(1));
+      }
+      value = -value;
+    }
+    long divisor = 1;
+    while (divisor <= value / 10) {
+      divisor *= 10;
+    }
+    for (; divisor > 0 && current != null; divisor /= 10) {
+      current = step(current, (char) ('0' + (value / divisor) % 10));
+    }
+    return current;
+  }
+
+  private synchronized @Nullable State computeStep(State state, char c) {
+    State next = state._next[c];
+    if (next != null) {
+      return next;
+    }
+    BitSet kernel = new BitSet(_nfa.size());
+    BitSet nfaStates = state._nfaStates;
+    for (int s = nfaStates.nextSetBit(0); s >= 0; s = nfaStates.nextSetBit(s + 1)) {
+      if (_nfa.getKind(s) == Nfa.CHARS && _nfa.getChars(s).get(c)) {
+        kernel.set(_nfa.getNext(s));
+      }
+    }
+    // find() may start a match at every position
+    kernel.set(_nfa.getStart());
+    BitSet key = (BitSet) kernel.clone();
+    next = _states.get(key);
+    if (next == null) {
+      if (_states.size() >= MAX_STATES) {
+        return null;
+      }
+      next = newState(kernel, false);
+      _states.put(key, next);
+    }
+    state._next[c] = next;
+    return next;
+  }
+
+  @VisibleForTesting
+  synchronized int getNumStates() {
+    return _states.size() + 1;
+  }
+}
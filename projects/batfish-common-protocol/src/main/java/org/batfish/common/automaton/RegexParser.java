@@ -0,0 +1,423 @@
+package org.batfish.common.automaton;
+
+import com.google.common.collect.ImmutableList;
+import java.util.BitSet;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Parses the regular subset of {@link java.util.regex.Pattern} syntax into an {@link Nfa}.
+ *
+ * <p>Supported: literals, {@code .}, character classes with ranges and negation, the {@code \d},
+ * {@code \s} and {@code \w} shorthands and their negations, groups, alternation, greedy and lazy
+ * quantifiers, and the {@code ^} and {@code $} anchors. Anything else, e.g. back-references,
+ * lookaround, possessive quantifiers or flags, throws {@link UnsupportedRegexException}.
+ *
+ * <p>Only regexes that {@link java.util.regex.Pattern} accepts should be parsed: some invalid
+ * regexes are not rejected.
+ */
+@ParametersAreNonnullByDefault
+final class RegexParser {
+
+  /** Characters are limited to ASCII; other input is not handled by the automata. */
+  static final int ALPHABET_SIZE = 128;
+
+  /** Upper bound on the value of a counted repetition. */
+  private static final int MAX_REPETITION = 1000;
+
+  /** Parses {@code regex} into an {@link Nfa} with at most {@code maxStates} states. */
+  static @Nonnull Nfa parse(String regex, int maxStates) {
+    RegexParser parser = new RegexParser(regex);
+    Node root = parser.parseAlternation();
+    if (parser._pos != regex.length()) {
+      throw new UnsupportedRegexException("Unexpected character at index " + parser._pos);
+    }
+    Nfa.Builder builder = new Nfa.Builder(maxStates);
+    int match = builder.match();
+    return builder.build(root.compile(builder, match), match);
+  }
+
+  /** A node of the syntax tree, compiled backwards: its successor is compiled first. */
+  private abstract static class Node {
+    /** Returns the start state of the fragment for this node, which continues with {@code next}. */
+    abstract int compile(Nfa.Builder builder, int next);
+  }
+
+  private static final class CharsNode extends Node {
+    private final @Nonnull BitSet _chars;
+
+    private CharsNode(BitSet chars) {
+      _chars = chars;
+    }
+
+    @Override
+    int compile(Nfa.Builder builder, int next) {
+      return builder.chars(_chars, next);
+    }
+  }
+
+  private static final class BeginNode extends Node {
+    @Override
+    int compile(Nfa.Builder builder, int next) {
+      return builder.begin(next);
+    }
+  }
+
+  private static final class EndNode extends Node {
+    @Override
+    int compile(Nfa.Builder builder, int next) {
+      return builder.end(next);
+    }
+  }
+
+  private static final class ConcatNode extends Node {
+    private final @Nonnull List<Node> _nodes;
+
+    private ConcatNode(List<Node> nodes) {
+      _nodes = nodes;
+    }
+
+    @Override
+    int compile(Nfa.Builder builder, int next) {
+      int start = next;
+      for (int i = _nodes.size() - 1; i >= 0; i--) {
+        start = _nodes.get(i).compile(builder, start);
+      }
+      return start;
+    }
+  }
+
+  private static final class AltNode extends Node {
+    private final @Nonnull List<Node> _alternatives;
+
+    private AltNode(List<Node> alternatives) {
+      _alternatives = alternatives;
+    }
+
+    @Override
+    int compile(Nfa.Builder builder, int next) {
+      int last = _alternatives.size() - 1;
+      int start = _alternatives.get(last).compile(builder, next);
+      for (int i = last - 1; i >= 0; i--) {
+        start = builder.split(_alternatives.get(i).compile(builder, next), start);
+      }
+      return start;
+    }
+  }
+
+  private static final class RepeatNode extends Node {
+    private final @Nonnull Node _node;
+    private final int _min;
+    /** Negative if unbounded. */
+    private final int _max;
+
+    private RepeatNode(Node node, int min, int max) {
+      _node = node;
+      _min = min;
+      _max = max;
+    }
+
+    @Override
+    int compile(Nfa.Builder builder, int next) {
+      int start;
+      if (_max < 0) {
+        int loop = builder.split(-1, -1);
+        builder.setSplit(loop, _node.compile(builder, loop), next);
+        start = loop;
+      } else {
+        start = next;
+        for (int i = _min; i < _max; i++) {
+          start = builder.split(_node.compile(builder, start), next);
+        }
+      }
+      for (int i = 0; i < _min; i++) {
+        start = _node.compile(builder, start);
+      }
+      return start;
+    }
+  }
+
+  private final @Nonnull String _regex;
+  private int _pos;
+
+  private RegexParser(String regex) {
+    _regex = regex;
+  }
+
+  private boolean atEnd() {
+    return _pos == _regex.length();
+  }
+
+  private char peek() {
+    return _regex.charAt(_pos);
+  }
+
+  private boolean peekIs(char c) {
+    return !atEnd() && peek() == c;
+  }
+
+  private char next() {
+    if (atEnd()) {
+      throw new UnsupportedRegexException("Unexpected end of regex");
+    }
+    return _regex.charAt(_pos++);
+  }
+
+  private void expect(char c) {
+    if (next() != c) {
+      throw new UnsupportedRegexException("Expected '" + c + "' at index " + (_pos - 1));
+    }
+  }
+
+  private @Nonnull Node parseAlternation() {
+    ImmutableList.Builder<Node> alternatives = ImmutableList.builder();
+    alternatives.add(parseConcatenation());
+    while (peekIs('|')) {
+      _pos++;
+      alternatives.add(parseConcatenation());
+    }
+    List<Node> nodes = alternatives.build();
+    return nodes.size() == 1 ? nodes.get(0) : new AltNode(nodes);
+  }
+
+  private @Nonnull Node parseConcatenation() {
+    ImmutableList.Builder<Node> nodes = ImmutableList.builder();
+    while (!atEnd() && peek() != '|' && peek() != ')') {
+      nodes.add(parseRepetition());
+    }
+    return new ConcatNode(nodes.build());
+  }
+
+  private @Nonnull Node parseRepetition() {
+    Node atom = parseAtom();
+    if (atEnd()) {
+      return atom;
+    }
+    int min;
+    int max;
+    switch (peek()) {
+      case '*':
+        _pos++;
+        min = 0;
+        max = -1;
+        break;
+      case '+':
+        _pos++;
+        min = 1;
+        max = -1;
+        break;
+      case '?':
+        _pos++;
+        min = 0;
+        max = 1;
+        break;
+      case '{':
+        _pos++;
+        min = parseCount();
+        if (peekIs(',')) {
+          _pos++;
+          max = peekIs('}') ? -1 : parseCount();
+        } else {
+          max = min;
+        }
+        expect('}');
+        if (max >= 0 && max < min) {
+          throw new UnsupportedRegexException("Invalid repetition range");
+        }
+        break;
+      default:
+        return atom;
+    }
+    if (peekIs('?')) {
+      // lazy quantifiers match the same language
+      _pos++;
+    }
+    if (!atEnd() && "*+?{".indexOf(peek()) >= 0) {
+      // possessive quantifiers and stacked quantifiers
+      throw new UnsupportedRegexException("Unsupported quantifier at index " + _pos);
+    }
+    return new RepeatNode(atom, min, max);
+  }
+
+  private int parseCount() {
+    int start = _pos;
+    while (!atEnd() && Character.isDigit(peek()) && _pos - start < 4) {
+      _pos++;
+    }
+    if (start == _pos || (!atEnd() && Character.isDigit(peek()))) {
+      throw new UnsupportedRegexException("Unsupported repetition count at index " + start);
+    }
+    int count = Integer.parseInt(_regex.substring(start, _pos));
+    if (count > MAX_REPETITION) {
+      throw new UnsupportedRegexException("Repetition count too large: " + count);
+    }
+    return count;
+  }
+
+  private @Nonnull Node parseAtom() {
+    char c = next();
+    switch (c) {
+      case '(':
+        if (peekIs('?')) {
+          // only non-capturing groups; no flags, lookaround or named groups
+          _pos++;
+          expect(':');
+        }
+        Node group = parseAlternation();
+        expect(')');
+        return group;
+      case '[':
+        return new CharsNode(parseCharClass());
+      case '.':
+        BitSet dot = new BitSet(ALPHABET_SIZE);
+        dot.set(0, ALPHABET_SIZE);
+        dot.clear('\n');
+        dot.clear('\r');
+        return new CharsNode(dot);
+      case '^':
+        return new BeginNode();
+      case '$':
+        return new EndNode();
+      case '\\':
+        BitSet shorthand = parseShorthand();
+        return new CharsNode(shorthand != null ? shorthand : singleton(parseEscapedChar()));
+      case '{':
+      case '*':
+      case '+':
+      case '?':
+        throw new UnsupportedRegexException("Dangling meta character '" + c + "'");
+      default:
+        return new CharsNode(singleton(c));
+    }
+  }
+
+  /**
+   * Parses the character after a backslash if it is a shorthand character class such as {@code \d},
+   * and returns its characters. Otherwise, returns {@code null} without consuming it.
+   */
+  private @Nullable BitSet parseShorthand() {
+    if (atEnd()) {
+      throw new UnsupportedRegexException("Unexpected end of regex");
+    }
+    BitSet chars = new BitSet(ALPHABET_SIZE);
+    char c = peek();
+    switch (Character.toLowerCase(c)) {
+      case 'd':
+        chars.set('0', '9' + 1);
+        break;
+      case 's':
+        chars.set(' ');
+        chars.set('\t');
+        chars.set('\n');
+        chars.set(0x0B);
+        chars.set('\f');
+        chars.set('\r');
+        break;
+      case 'w':
+        chars.set('a', 'z' + 1);
+        chars.set('A', 'Z' + 1);
+        chars.set('0', '9' + 1);
+        chars.set('_');
+        break;
+      default:
+        return null;
+    }
+    _pos++;
+    if (Character.isUpperCase(c)) {
+      chars.flip(0, ALPHABET_SIZE);
+    }
+    return chars;
+  }
+
+  /** Parses the character after a backslash, which must stand for a single literal character. */
+  private char parseEscapedChar() {
+    char c = next();
+    switch (c) {
+      case 't':
+        return '\t';
+      case 'n':
+        return '\n';
+      case 'r':
+        return '\r';
+      case 'f':
+        return '\f';
+      case 'a':
+        return '\u0007';
+      case 'e':
+        return '\u001B';
+      default:
+        if (Character.isLetterOrDigit(c)) {
+          // back-references, boundaries, quoting, code points, properties, etc.
+          throw new UnsupportedRegexException("Unsupported escape \\" + c);
+        }
+        return c;
+    }
+  }
+
+  private @Nonnull BitSet parseCharClass() {
+    boolean negated = false;
+    if (peekIs('^')) {
+      _pos++;
+      negated = true;
+    }
+    if (peekIs(']')) {
+      throw new UnsupportedRegexException("Unsupported empty or ']'-leading character class");
+    }
+    BitSet chars = new BitSet(ALPHABET_SIZE);
+    while (true) {
+      char c = next();
+      if (c == ']') {
+        break;
+      }
+      if (c == '[' || (c == '&' && peekIs('&'))) {
+        throw new UnsupportedRegexException("Unsupported nested character class");
+      }
+      char low;
+      if (c == '\\') {
+        BitSet shorthand = parseShorthand();
+        if (shorthand != null) {
+          chars.or(shorthand);
+          continue;
+        }
+        low = parseEscapedChar();
+      } else {
+        low = c;
+      }
+      if (peekIs('-') && _pos + 1 < _regex.length() && _regex.charAt(_pos + 1) != ']') {
+        _pos++;
+        char high = next();
+        if (high == '[') {
+          throw new UnsupportedRegexException("Unsupported nested character class");
+        }
+        if (high == '\\') {
+          if (parseShorthand() != null) {
+            throw new UnsupportedRegexException("Unsupported range ending in a shorthand");
+          }
+          high = parseEscapedChar();
+        }
+        if (high < low) {
+          throw new UnsupportedRegexException("Illegal character range");
+        }
+        if (low < ALPHABET_SIZE) {
+          chars.set(low, Math.min(high, ALPHABET_SIZE - 1) + 1);
+        }
+      } else if (low < ALPHABET_SIZE) {
+        chars.set(low);
+      }
+    }
+    if (negated) {
+      chars.flip(0, ALPHABET_SIZE);
+    }
+    return chars;
+  }
+
+  private static @Nonnull BitSet singleton(char c) {
+    BitSet chars = new BitSet(ALPHABET_SIZE);
+    if (c < ALPHABET_SIZE) {
+      chars.set(c);
+    }
+    return chars;
+  }
+}
@@ -0,0 +1,10 @@
+package org.batfish.common.automaton;
+
+/** Thrown when a regex uses a construct that cannot be compiled to a {@link RegexDfa}. */
+final class UnsupportedRegexException extends RuntimeException {
+  private static final long serialVersionUID = 1L;
+
+  UnsupportedRegexException(String message) {
+    super(message, null, false, false);
+  }
+}
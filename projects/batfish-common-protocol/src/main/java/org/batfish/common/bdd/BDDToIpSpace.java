@@ -0,0 +1,66 @@
+package org.batfish.common.bdd;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableSortedSet;
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import net.sf.javabdd.BDD;
+import org.batfish.datamodel.EmptyIpSpace;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpSpace;
+import org.batfish.datamodel.IpWildcard;
+import org.batfish.datamodel.IpWildcardSetIpSpace;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.UniverseIpSpace;
+
+/**
+ * Converts a {@link BDD} over the bits of an IP address {@link BDDInteger} back to an {@link
+ * IpSpace}. Each path of the {@link BDD} to {@code one} is a disjoint {@link IpWildcard}, with the
+ * bits not on the path masked.
+ */
+@ParametersAreNonnullByDefault
+public final class BDDToIpSpace {
+
+  /** BDD variable index -&gt; index of that bit in the IP address, or -1 if not a bit of it. */
+  private final int[] _varToBit;
+
+  public BDDToIpSpace(BDDInteger ipVar) {
+    BDD[] bitvec = ipVar.getBitvec();
+    checkArgument(bitvec.length == Prefix.MAX_PREFIX_LENGTH, "Not an IP address variable");
+    _varToBit = new int[ipVar.getFactory().varNum()];
+    Arrays.fill(_varToBit, -1);
+    for (int i = 0; i < bitvec.length; i++) {
+      // the first BDD is the most significant bit
+      _varToBit[bitvec[i].var()] = bitvec.length - i - 1;
+    }
+  }
+
+  /** Returns the {@link IpSpace} of IPs satisfying {@code bdd}. */
+  public @Nonnull IpSpace toIpSpace(BDD bdd) {
+    if (bdd.isZero()) {
+      return EmptyIpSpace.INSTANCE;
+    } else if (bdd.isOne()) {
+      return UniverseIpSpace.INSTANCE;
+    }
+    ImmutableSortedSet.Builder<IpWildcard> wildcards = ImmutableSortedSet.naturalOrder();
+    addWildcards(bdd, 0L, 0L, wildcards);
+    return IpWildcardSetIpSpace.builder().including(wildcards.build()).build();
+  }
+
+  private void addWildcards(
+      BDD bdd, long ip, long fixedBits, ImmutableSortedSet.Builder<IpWildcard> wildcards) {
+    if (bdd.isZero()) {
+      return;
+    } else if (bdd.isOne()) {
+      wildcards.add(IpWildcard.ipWithWildcardMask(Ip.create(ip), ~fixedBits & 0xFFFFFFFFL));
+      return;
+    }
+    int bit = _varToBit[bdd.var()];
+    checkArgument(bit >= 0, "BDD constrains variables other than the IP address");
+    long mask = 1L << bit;
+    addWildcards(bdd.low(), ip, fixedBits | mask, wildcards);
+    addWildcards(bdd.high(), ip | mask, fixedBits | mask, wildcards);
+  }
+}
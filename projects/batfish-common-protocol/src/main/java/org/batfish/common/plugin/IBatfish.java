@@ -96,6 +96,9 @@ public interface IBatfish extends IPluginConsumer {
   @Nonnull
   TopologyProvider getTopologyProvider();
 
+  /** Returns the number of threads that may be used for parallel computation. */
+  int getAvailableThreads();
+
   Map<String, String> getQuestionTemplates(boolean verbose);
 
   /**
@@ -26,11 +26,14 @@ import java.util.zip.GZIPInputStream;
 import net.jpountz.lz4.LZ4FrameInputStream;
 import net.jpountz.lz4.LZ4FrameOutputStream;
 import org.batfish.common.BatfishException;
+import org.batfish.common.util.serialization.BinarySerialization;
 
 public abstract class PluginConsumer implements IPluginConsumer {
 
   /** Supported formats we can deserialize from */
   public enum Format {
+    /** Versioned, LZ4-compressed Java serialization with interned values. */
+    BATFISH_BINARY,
     JAVA_SERIALIZED,
     LZ4,
     GZIP,
@@ -100,6 +103,8 @@ public abstract class PluginConsumer implements IPluginConsumer {
           PushbackInputStream pbUncompressed =
               new PushbackInputStream(lis, DEFAULT_HEADER_LENGTH_BYTES);
           return deserializeObject(pbUncompressed, outputClass);
+        } else if (f == Format.BATFISH_BINARY) {
+          return outputClass.cast(BinarySerialization.deserialize(pbCompressed));
         } else {
           return deserializeObject(pbCompressed, outputClass);
         }
@@ -127,6 +132,10 @@ public abstract class PluginConsumer implements IPluginConsumer {
       format = Format.JAVA_SERIALIZED;
     } else if (Arrays.equals(header, LZ4_MAGIC_BYTES)) {
       format = Format.LZ4;
+    } else if (Arrays.equals(
+        Arrays.copyOf(header, BinarySerialization.MAGIC_BYTES.length),
+        BinarySerialization.MAGIC_BYTES)) {
+      format = Format.BATFISH_BINARY;
     } else if (Arrays.equals(Arrays.copyOf(header, GZIP_HEADER_LENGTH_BYTES), GZIP_MAGIC_BYTES)) {
       format = Format.GZIP;
     } else {
@@ -7,6 +7,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.function.BiConsumer;
 import org.batfish.common.traceroute.TraceDag;
 import org.batfish.common.util.CollectionUtil;
 import org.batfish.datamodel.Flow;
@@ -64,4 +65,18 @@ public interface TracerouteEngine {
   /** Computes {@link TraceDag} for a {@link Set} of forward {@link Flow Flows}. */
   Map<Flow, TraceDag> computeTraceDags(
       Set<Flow> flows, Set<FirewallSessionTraceInfo> sessions, boolean ignoreFilters);
+
+  /**
+   * Computes the {@link TraceDag} for each of a {@link Set} of forward {@link Flow Flows}, and
+   * passes it to {@code consumer} as soon as it is computed. Unlike {@link #computeTraceDags}, the
+   * traces of all flows need not be in memory at once. Flows may be traced concurrently, so {@code
+   * consumer} must be thread-safe.
+   */
+  default void forEachTraceDag(
+      Set<Flow> flows,
+      Set<FirewallSessionTraceInfo> sessions,
+      boolean ignoreFilters,
+      BiConsumer<Flow, TraceDag> consumer) {
+    computeTraceDags(flows, sessions, ignoreFilters).forEach(consumer);
+  }
 }
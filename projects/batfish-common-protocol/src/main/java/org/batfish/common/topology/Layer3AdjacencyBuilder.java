@@ -0,0 +1,150 @@
+package org.batfish.common.topology;
+
+import static com.google.common.collect.ImmutableSortedSet.toImmutableSortedSet;
+import static org.batfish.datamodel.Interface.TUNNEL_INTERFACE_TYPES;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.ConcreteInterfaceAddress;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.Edge;
+import org.batfish.datamodel.Interface;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.PrefixTrieMultiMap;
+import org.batfish.datamodel.Topology;
+import org.batfish.datamodel.collections.NodeInterfacePair;
+
+/**
+ * Infers layer-3 adjacencies from interface addresses, for {@link
+ * TopologyUtil#synthesizeL3Topology(Map)}.
+ *
+ * <p>There is an edge from {@code i1} to {@code i2} when {@code i1} has an address in some subnet
+ * {@code p}, {@code i2} has an address in a subnet {@code q} that contains the start IP of {@code
+ * p}, and {@code i2} has some IP in {@code p}. That is either when {@code q} contains {@code p} and
+ * an IP of {@code i2} is in {@code p}, or when {@code p} contains {@code q} and both start at the
+ * same IP. The subnets of all interfaces are stored in a {@link PrefixTrieMultiMap}, and in both
+ * cases every such {@code p} lies on a single trie path, so the edges into {@code i2} are emitted
+ * directly from those paths rather than by comparing interfaces pairwise.
+ */
+@ParametersAreNonnullByDefault
+final class Layer3AdjacencyBuilder {
+
+  /** The number of candidate interfaces above which edges are computed in parallel. */
+  private static final int PARALLEL_THRESHOLD = 1 << 12;
+
+  /** Returns the inferred layer-3 topology, computed in parallel for large networks. */
+  static @Nonnull Topology synthesize(Map<String, Configuration> configurations) {
+    Layer3AdjacencyBuilder builder = new Layer3AdjacencyBuilder(configurations);
+    return builder.build(builder._interfaces.size() >= PARALLEL_THRESHOLD);
+  }
+
+  /** Returns the inferred layer-3 topology, computed in parallel iff {@code parallel}. */
+  @VisibleForTesting
+  static @Nonnull Topology synthesize(Map<String, Configuration> configurations, boolean parallel) {
+    return new Layer3AdjacencyBuilder(configurations).build(parallel);
+  }
+
+  /** Interfaces that can be an endpoint of an edge, i.e. that have a subnet. */
+  private final @Nonnull List<Interface> _interfaces;
+
+  private final @Nonnull Map<NodeInterfacePair, Interface> _interfacesById;
+
+  /** Maps each subnet to the interfaces with an address in it. */
+  private final @Nonnull PrefixTrieMultiMap<NodeInterfacePair> _subnets;
+
+  private Layer3AdjacencyBuilder(Map<String, Configuration> configurations) {
+    _interfaces = new ArrayList<>();
+    _interfacesById = new HashMap<>();
+    Map<Prefix, List<NodeInterfacePair>> subnets = new HashMap<>();
+    for (Configuration node : configurations.values()) {
+      for (Interface iface : node.getAllInterfaces().values()) {
+        if (!isCandidate(iface)) {
+          continue;
+        }
+        NodeInterfacePair id = NodeInterfacePair.of(iface);
+        _interfaces.add(iface);
+        _interfacesById.put(id, iface);
+        for (Prefix subnet : subnets(iface)) {
+          subnets.computeIfAbsent(subnet, p -> new ArrayList<>()).add(id);
+        }
+      }
+    }
+    // add each subnet once, since every put copies the set of elements
+    _subnets = new PrefixTrieMultiMap<>();
+    subnets.forEach(_subnets::putAll);
+  }
+
+  /**
+   * Loopback, inactive, tunnel and VPN interfaces are never adjacent to anything, and neither are
+   * interfaces with only /32 addresses.
+   */
+  private static boolean isCandidate(Interface iface) {
+    return !iface.isLoopback()
+        && iface.getActive()
+        && !TUNNEL_INTERFACE_TYPES.contains(iface.getInterfaceType())
+        && !subnets(iface).isEmpty();
+  }
+
+  private static @Nonnull Set<Prefix> subnets(Interface iface) {
+    Set<Prefix> subnets = new HashSet<>();
+    for (ConcreteInterfaceAddress address : iface.getAllConcreteAddresses()) {
+      Prefix prefix = address.getPrefix();
+      if (prefix.getPrefixLength() < Prefix.MAX_PREFIX_LENGTH) {
+        subnets.add(prefix);
+      }
+    }
+    return subnets;
+  }
+
+  private @Nonnull Topology build(boolean parallel) {
+    Stream<Interface> interfaces = parallel ? _interfaces.parallelStream() : _interfaces.stream();
+    return new Topology(
+        interfaces
+            .flatMap(iface -> edgesTo(iface).stream())
+            .collect(toImmutableSortedSet(Comparator.naturalOrder())));
+  }
+
+  /** Returns the edges with head {@code i2}, without duplicates. */
+  private @Nonnull Set<Edge> edgesTo(Interface i2) {
+    Set<Edge> edges = new HashSet<>();
+    BiConsumer<Prefix, Set<NodeInterfacePair>> addEdges =
+        (p, ids) -> {
+          for (NodeInterfacePair id : ids) {
+            Interface i1 = _interfacesById.get(id);
+            if (TopologyUtil.isValidLayer3Adjacency(i1, i2)) {
+              edges.add(new Edge(i1, i2));
+            }
+          }
+        };
+    for (Prefix q : subnets(i2)) {
+      // subnets p inside q that contain an IP of i2
+      for (ConcreteInterfaceAddress address : i2.getAllConcreteAddresses()) {
+        if (q.containsIp(address.getIp())) {
+          _subnets.traverseMatchingEntries(address.getIp(), q.getPrefixLength(), addEdges);
+        }
+      }
+      // subnets p strictly containing q with the same start IP
+      Ip start = q.getStartIp();
+      _subnets.traverseMatchingEntries(
+          start,
+          0,
+          (p, ids) -> {
+            if (p.getPrefixLength() < q.getPrefixLength() && p.getStartIp().equals(start)) {
+              addEdges.accept(p, ids);
+            }
+          });
+    }
+    return edges;
+  }
+}
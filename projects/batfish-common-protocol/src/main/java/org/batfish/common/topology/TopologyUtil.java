@@ -3,7 +3,6 @@ package org.batfish.common.topology;
 import static org.batfish.common.util.CollectionUtil.toImmutableMap;
 import static org.batfish.common.util.IpsecUtil.initIpsecTopology;
 import static org.batfish.common.util.IpsecUtil.retainCompatibleTunnelEdges;
-import static org.batfish.datamodel.Interface.TUNNEL_INTERFACE_TYPES;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
@@ -678,33 +677,11 @@ public final class TopologyUtil {
   /**
    * Returns a {@link Topology} inferred from the L3 configuration of interfaces on the devices.
    *
-   * <p>Ignores {@code Loopback} interfaces and inactive interfaces.
+   * <p>Ignores {@code Loopback} interfaces, inactive interfaces, and tunnel and VPN interfaces. See
+   * {@link Layer3AdjacencyBuilder} for how edges are computed.
    */
   public static Topology synthesizeL3Topology(Map<String, Configuration> configurations) {
-    Map<Prefix, List<Interface>> prefixInterfaces = computeInterfacesBucketByPrefix(configurations);
-
-    ImmutableSortedSet.Builder<Edge> edges = ImmutableSortedSet.naturalOrder();
-    for (Entry<Prefix, List<Interface>> bucketEntry : prefixInterfaces.entrySet()) {
-      Prefix p = bucketEntry.getKey();
-      Set<Interface> candidateInterfaces = candidateInterfacesForPrefix(prefixInterfaces, p);
-
-      for (Interface iface1 : bucketEntry.getValue()) {
-        for (Interface iface2 : candidateInterfaces) {
-          // No device self-adjacencies in the same VRF.
-          if (!isValidLayer3Adjacency(iface1, iface2)) {
-            continue;
-          }
-          // Additionally, don't connect if any of the two endpoint interfaces have Tunnel or VPN
-          // interfaceTypes
-          if (TUNNEL_INTERFACE_TYPES.contains(iface1.getInterfaceType())
-              || TUNNEL_INTERFACE_TYPES.contains(iface2.getInterfaceType())) {
-            continue;
-          }
-          edges.add(new Edge(iface1, iface2));
-        }
-      }
-    }
-    return new Topology(edges.build());
+    return Layer3AdjacencyBuilder.synthesize(configurations);
   }
 
   /**
@@ -774,7 +751,7 @@ public final class TopologyUtil {
    * Check if the link between two given interfaces is a valid layer 3 edge (e.g., not a self loop,
    * doesn't have overlapping IPs)
    */
-  private static boolean isValidLayer3Adjacency(Interface iface1, Interface iface2) {
+  static boolean isValidLayer3Adjacency(Interface iface1, Interface iface2) {
     // No device self-adjacencies in the same VRF.
     if (iface1.getOwner() == iface2.getOwner() && iface1.getVrfName().equals(iface2.getVrfName())) {
       return false;
@@ -1,6 +1,10 @@
 package org.batfish.common.traceroute;
 
+import com.google.common.collect.ImmutableList;
+import java.util.List;
 import java.util.stream.Stream;
+import org.batfish.common.util.TracePruner;
+import org.batfish.datamodel.flow.Trace;
 import org.batfish.datamodel.flow.TraceAndReverseFlow;
 
 /**
@@ -21,4 +25,14 @@ public interface TraceDag {
 
   /** Returns a stream of the {@link TraceAndReverseFlow} corresponding to the traces in this DAG */
   Stream<TraceAndReverseFlow> getTraces();
+
+  /**
+   * Returns the traces that {@link TracePruner#prune(List, int)} would choose from the traces of
+   * {@link #getTraces()}. Implementations may choose them without enumerating every trace.
+   */
+  default List<Trace> getPrunedTraces(int maxTraces) {
+    return TracePruner.prune(
+        getTraces().map(TraceAndReverseFlow::getTrace).collect(ImmutableList.toImmutableList()),
+        maxTraces);
+  }
 }
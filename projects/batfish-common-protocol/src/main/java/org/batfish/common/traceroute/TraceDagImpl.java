@@ -4,10 +4,16 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.collect.ImmutableList;
+import java.util.ArrayDeque;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.Stack;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
+import org.batfish.common.util.TracePruner;
 import org.batfish.datamodel.Flow;
 import org.batfish.datamodel.FlowDisposition;
 import org.batfish.datamodel.flow.FirewallSessionTraceInfo;
@@ -138,4 +144,150 @@ public final class TraceDagImpl implements TraceDag {
   public Stream<TraceAndReverseFlow> getTraces() {
     return _rootIds.stream().flatMap(this::getTraces);
   }
+
+  @Override
+  public List<Trace> getPrunedTraces(int maxTraces) {
+    if (size() <= maxTraces) {
+      return getTraces()
+          .map(TraceAndReverseFlow::getTrace)
+          .collect(ImmutableList.toImmutableList());
+    }
+    return TracePruner.prune(new PrunerTraces(), maxTraces);
+  }
+
+  /**
+   * The traces of the DAG for {@link TracePruner}, keyed by their path of node ids. The first trace
+   * with a given disposition, or through a given node, is found by a search of the DAG that only
+   * follows successors from which a matching path exists, so the pruner does not enumerate every
+   * path.
+   */
+  private final class PrunerTraces implements TracePruner.Traces<List<Integer>> {
+    private final Set<FlowDisposition> _dispositions;
+    private final Set<String> _nodeNames;
+
+    PrunerTraces() {
+      _dispositions = EnumSet.noneOf(FlowDisposition.class);
+      _nodeNames = new HashSet<>();
+      for (Node node : reachableNodes()) {
+        if (node._successors.isEmpty()) {
+          _dispositions.add(node._flowDisposition);
+        }
+        _nodeNames.add(nodeName(node));
+      }
+    }
+
+    @Override
+    public Set<FlowDisposition> getDispositions() {
+      return _dispositions;
+    }
+
+    @Override
+    public Set<String> getNodes() {
+      return _nodeNames;
+    }
+
+    @Override
+    public List<Integer> firstWithDisposition(FlowDisposition disposition) {
+      return firstPath(node -> node._successors.isEmpty() && node._flowDisposition == disposition);
+    }
+
+    @Override
+    public List<Integer> firstThroughNode(String name) {
+      return firstPath(node -> nodeName(node).equals(name));
+    }
+
+    @Override
+    public Stream<List<Integer>> keys() {
+      return _rootIds.stream().flatMap(rootId -> paths(ImmutableList.of(), rootId));
+    }
+
+    @Override
+    public Trace getTrace(List<Integer> path) {
+      ImmutableList.Builder<Hop> hops = ImmutableList.builderWithExpectedSize(path.size());
+      for (int nodeId : path) {
+        hops.add(_nodes.get(nodeId)._hop);
+      }
+      FlowDisposition disposition =
+          checkNotNull(
+              _nodes.get(path.get(path.size() - 1))._flowDisposition,
+              "failed to determine disposition from hop");
+      return new Trace(disposition, hops.build());
+    }
+
+    /**
+     * Returns the paths from {@code nodeId} to a leaf, each prefixed by {@code prefix}, in order.
+     */
+    private Stream<List<Integer>> paths(List<Integer> prefix, int nodeId) {
+      List<Integer> path =
+          ImmutableList.<Integer>builderWithExpectedSize(prefix.size() + 1)
+              .addAll(prefix)
+              .add(nodeId)
+              .build();
+      List<Integer> successors = _nodes.get(nodeId)._successors;
+      return successors.isEmpty()
+          ? Stream.of(path)
+          : successors.stream().flatMap(successorId -> paths(path, successorId));
+    }
+
+    /** Returns the nodes on some path from a root, i.e. those of the traces. */
+    private List<Node> reachableNodes() {
+      boolean[] visited = new boolean[_nodes.size()];
+      ArrayDeque<Integer> toVisit = new ArrayDeque<>(_rootIds);
+      ImmutableList.Builder<Node> reachable = ImmutableList.builder();
+      while (!toVisit.isEmpty()) {
+        int nodeId = toVisit.pop();
+        if (!visited[nodeId]) {
+          visited[nodeId] = true;
+          Node node = _nodes.get(nodeId);
+          reachable.add(node);
+          toVisit.addAll(node._successors);
+        }
+      }
+      return reachable.build();
+    }
+
+    /**
+     * Returns the first path (in the order of {@link #getTraces()}) that contains a node matching
+     * {@code matches}. There must be one.
+     */
+    private List<Integer> firstPath(Predicate<Node> matches) {
+      Boolean[] reaches = new Boolean[_nodes.size()];
+      ImmutableList.Builder<Integer> path = ImmutableList.builder();
+      int nodeId = _rootIds.stream().filter(id -> reaches(id, matches, reaches)).findFirst().get();
+      boolean matched = false;
+      while (true) {
+        path.add(nodeId);
+        Node node = _nodes.get(nodeId);
+        matched |= matches.test(node);
+        if (node._successors.isEmpty()) {
+          return path.build();
+        }
+        nodeId =
+            matched
+                ? node._successors.get(0)
+                : node._successors.stream()
+                    .filter(id -> reaches(id, matches, reaches))
+                    .findFirst()
+                    .get();
+      }
+    }
+
+    /** Returns whether some path from {@code nodeId} to a leaf contains a matching node. */
+    private boolean reaches(int nodeId, Predicate<Node> matches, Boolean[] cache) {
+      Boolean cached = cache[nodeId];
+      if (cached != null) {
+        return cached;
+      }
+      Node node = _nodes.get(nodeId);
+      boolean reaches =
+          matches.test(node)
+              || node._successors.stream().anyMatch(id -> reaches(id, matches, cache));
+      cache[nodeId] = reaches;
+      return reaches;
+    }
+  }
+
+  private static String nodeName(Node node) {
+    return node._hop.getNode().getName();
+  }
 }
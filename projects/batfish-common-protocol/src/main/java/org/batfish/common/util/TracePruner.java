@@ -1,15 +1,16 @@
 package org.batfish.common.util;
 
+import com.google.common.collect.ImmutableList;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
-import org.batfish.common.BatfishException;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import org.batfish.datamodel.FlowDisposition;
 import org.batfish.datamodel.flow.Hop;
 import org.batfish.datamodel.flow.Trace;
@@ -25,85 +26,117 @@ public final class TracePruner {
 
   public static final int DEFAULT_MAX_TRACES = 32;
 
-  // Invariant: the traces in these maps are in input order
-  private final Map<FlowDisposition, List<Trace>> _dispositionTraces;
-  private final Map<String, List<Trace>> _nodeTraces;
-  private final List<Trace> _traces;
-  private final Set<Trace> _pickedTraces;
-  private final SortedSet<FlowDisposition> _unpickedDispositions;
-  private final SortedSet<String> _unpickedNodes;
-
-  private TracePruner(List<Trace> traces) {
-    _traces = traces;
-    _dispositionTraces = new HashMap<>();
-    _nodeTraces = new HashMap<>();
-    _pickedTraces = Collections.newSetFromMap(new IdentityHashMap<>());
-
-    for (Trace trace : traces) {
-      _dispositionTraces
-          .computeIfAbsent(trace.getDisposition(), key -> new ArrayList<>())
-          .add(trace);
-      for (Hop hop : trace.getHops()) {
-        _nodeTraces.computeIfAbsent(hop.getNode().getName(), key -> new ArrayList<>()).add(trace);
-      }
-    }
+  /**
+   * An ordered collection of traces to prune, each identified by a key of type {@code K}. The
+   * collection only needs to be searched for the first trace with a given disposition or through a
+   * given node, so it need not enumerate every trace.
+   */
+  public interface Traces<K> {
+    /** Returns the dispositions of the traces. */
+    Set<FlowDisposition> getDispositions();
+
+    /** Returns the names of the nodes that the traces transit. */
+    Set<String> getNodes();
+
+    /** Returns the key of the first trace with the given disposition, which must exist. */
+    K firstWithDisposition(FlowDisposition disposition);
+
+    /** Returns the key of the first trace through the given node, which must exist. */
+    K firstThroughNode(String node);
+
+    /** Returns the keys of all traces, in order. */
+    Stream<K> keys();
 
-    _unpickedDispositions = new TreeSet<>(_dispositionTraces.keySet());
-    _unpickedNodes = new TreeSet<>(_nodeTraces.keySet());
+    /** Returns the trace with the given key. */
+    Trace getTrace(K key);
   }
 
+  private TracePruner() {}
+
   public static List<Trace> prune(List<Trace> traces, int maxSize) {
     if (traces.size() <= maxSize) {
       return traces;
     }
-    return new TracePruner(traces).prune(maxSize);
+    return prune(new ListTraces(traces), maxSize);
   }
 
-  private List<Trace> prune(int maxSize) {
-    List<Trace> usedTraces = new ArrayList<>();
-
-    while (usedTraces.size() < maxSize) {
-      if (!_unpickedDispositions.isEmpty()) {
-        usedTraces.add(chooseTraceByDisposition());
-      } else if (!_unpickedNodes.isEmpty()) {
-        usedTraces.add(chooseTraceByNode());
+  /** Prunes {@code traces} to at most {@code maxSize} traces. */
+  public static <K> List<Trace> prune(Traces<K> traces, int maxSize) {
+    // Invariant: each picked trace covers its disposition and nodes, so the first trace with an
+    // unpicked disposition or through an unpicked node has not been picked yet.
+    Map<K, Trace> picked = new LinkedHashMap<>();
+    SortedSet<FlowDisposition> unpickedDispositions = new TreeSet<>(traces.getDispositions());
+    SortedSet<String> unpickedNodes = new TreeSet<>(traces.getNodes());
+    while (picked.size() < maxSize) {
+      K key;
+      if (!unpickedDispositions.isEmpty()) {
+        key = traces.firstWithDisposition(unpickedDispositions.first());
+      } else if (!unpickedNodes.isEmpty()) {
+        key = traces.firstThroughNode(unpickedNodes.first());
       } else {
-        _traces.stream()
-            .filter(trace -> !_pickedTraces.contains(trace))
-            .limit(maxSize - usedTraces.size())
-            .forEach(usedTraces::add);
+        traces
+            .keys()
+            .filter(k -> !picked.containsKey(k))
+            .limit(maxSize - picked.size())
+            .forEach(k -> picked.put(k, traces.getTrace(k)));
         break;
       }
+      Trace trace = traces.getTrace(key);
+      picked.put(key, trace);
+      unpickedDispositions.remove(trace.getDisposition());
+      trace.getHops().stream().map(hop -> hop.getNode().getName()).forEach(unpickedNodes::remove);
     }
-
-    return usedTraces;
+    return ImmutableList.copyOf(picked.values());
   }
 
-  private Trace chooseTraceByDisposition() {
-    Trace t =
-        _unpickedDispositions.stream()
-            .flatMap(disposition -> _dispositionTraces.get(disposition).stream())
-            .filter(trace -> !_pickedTraces.contains(trace))
-            .findFirst()
-            .orElseThrow(() -> new BatfishException("No trace with unused disposition"));
-    updateUnpickedMaps(t);
-    return t;
-  }
+  /** {@link Traces} in a list, keyed by their index. */
+  private static final class ListTraces implements Traces<Integer> {
+    // Invariant: the trace indices in these maps are in input order
+    private final Map<FlowDisposition, List<Integer>> _dispositionTraces;
+    private final Map<String, List<Integer>> _nodeTraces;
+    private final List<Trace> _traces;
 
-  private Trace chooseTraceByNode() {
-    Trace t =
-        _unpickedNodes.stream()
-            .flatMap(node -> _nodeTraces.get(node).stream())
-            .filter(trace -> !_pickedTraces.contains(trace))
-            .findFirst()
-            .orElseThrow(() -> new BatfishException("No trace with unused node"));
-    updateUnpickedMaps(t);
-    return t;
-  }
+    ListTraces(List<Trace> traces) {
+      _traces = traces;
+      _dispositionTraces = new HashMap<>();
+      _nodeTraces = new HashMap<>();
+      for (int i = 0; i < traces.size(); i++) {
+        Trace trace = traces.get(i);
+        _dispositionTraces.computeIfAbsent(trace.getDisposition(), key -> new ArrayList<>()).add(i);
+        for (Hop hop : trace.getHops()) {
+          _nodeTraces.computeIfAbsent(hop.getNode().getName(), key -> new ArrayList<>()).add(i);
+        }
+      }
+    }
+
+    @Override
+    public Set<FlowDisposition> getDispositions() {
+      return _dispositionTraces.keySet();
+    }
+
+    @Override
+    public Set<String> getNodes() {
+      return _nodeTraces.keySet();
+    }
+
+    @Override
+    public Integer firstWithDisposition(FlowDisposition disposition) {
+      return _dispositionTraces.get(disposition).get(0);
+    }
+
+    @Override
+    public Integer firstThroughNode(String node) {
+      return _nodeTraces.get(node).get(0);
+    }
 
-  private void updateUnpickedMaps(Trace t) {
-    _pickedTraces.add(t);
-    _unpickedDispositions.remove(t.getDisposition());
-    t.getHops().stream().map(hop -> hop.getNode().getName()).forEach(_unpickedNodes::remove);
+    @Override
+    public Stream<Integer> keys() {
+      return IntStream.range(0, _traces.size()).boxed();
+    }
+
+    @Override
+    public Trace getTrace(Integer key) {
+      return _traces.get(key);
+    }
   }
 }
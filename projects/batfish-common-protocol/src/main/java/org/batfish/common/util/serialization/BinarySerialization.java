@@ -0,0 +1,227 @@
+package org.batfish.common.util.serialization;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamField;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.batfish.common.BatfishException;
+import org.batfish.common.plugin.PluginConsumer.Format;
+import org.batfish.datamodel.AsPath;
+import org.batfish.datamodel.AsSet;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.Ip6;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.Prefix6;
+import org.batfish.datamodel.bgp.community.ExtendedCommunity;
+import org.batfish.datamodel.bgp.community.LargeCommunity;
+import org.batfish.datamodel.bgp.community.StandardCommunity;
+import org.batfish.datamodel.routing_policy.communities.CommunitySet;
+
+/**
+ * Reads and writes objects in the {@link Format#BATFISH_BINARY} format.
+ *
+ * <p>The format consists of a 4-byte header ({@link #MAGIC_BYTES} followed by the {@link
+ * #FORMAT_VERSION}) and an LZ4 frame containing a variant of the Java serialization of the object
+ * that differs in two ways:
+ *
+ * <ul>
+ *   <li>Class descriptors are written as the class name, its serialVersionUID and a fingerprint of
+ *       its serializable fields, rather than the full field list. The reader uses the local class
+ *       descriptor, after checking that the serialVersionUID and fingerprint match so that data
+ *       written by incompatible code is rejected rather than misread.
+ *   <li>Equal instances of immutable value classes such as {@link String}, {@link Ip}, {@link
+ *       Prefix}, {@link AsPath} and {@link CommunitySet} are replaced by the first such instance,
+ *       so that each distinct value is written once and all later occurrences are written as
+ *       back-references. The objects read share these values.
+ * </ul>
+ *
+ * <p>Classes are resolved through the thread context class loader, so that classes provided by
+ * plugins can be read, and then through the class loader of this class.
+ *
+ * <p>Files written with a different {@link #FORMAT_VERSION} are rejected rather than misread.
+ */
+@ParametersAreNonnullByDefault
+public final class BinarySerialization {
+
+  /** The first bytes of the header of every {@link Format#BATFISH_BINARY} file: "BFB". */
+  public static final byte[] MAGIC_BYTES = {(byte) 0x42, (byte) 0x46, (byte) 0x42};
+
+  /**
+   * The version of the format, written after the {@link #MAGIC_BYTES}. Must be incremented whenever
+   * the layout after the header changes.
+   */
+  @VisibleForTesting static final byte FORMAT_VERSION = 2;
+
+  /** Immutable classes whose equal instances may be replaced by one another. */
+  private static final Set<Class<?>> INTERNED_CLASSES =
+      ImmutableSet.of(
+          AsPath.class,
+          AsSet.class,
+          CommunitySet.class,
+          ExtendedCommunity.class,
+          Ip.class,
+          Ip6.class,
+          LargeCommunity.class,
+          Prefix.class,
+          Prefix6.class,
+          StandardCommunity.class,
+          String.class);
+
+  /** Writes {@code object} to {@code out}. Does not close {@code out}. */
+  public static void serialize(Serializable object, OutputStream out) throws IOException {
+    out.write(MAGIC_BYTES);
+    out.write(FORMAT_VERSION);
+    LZ4FrameOutputStream lz4 = new LZ4FrameOutputStream(new CloseShieldOutputStream(out));
+    try (ObjectOutputStream oos = new InterningObjectOutputStream(lz4)) {
+      oos.writeObject(object);
+    }
+  }
+
+  /**
+   * Reads an object from {@code in}, which must be positioned at the start of the header. Does not
+   * close {@code in}.
+   *
+   * @throws BatfishException if the header is missing or has an unsupported version
+   */
+  public static @Nonnull Object deserialize(InputStream in)
+      throws IOException, ClassNotFoundException {
+    byte[] header = new byte[MAGIC_BYTES.length + 1];
+    ByteStreams.readFully(in, header);
+    if (!Arrays.equals(Arrays.copyOf(header, MAGIC_BYTES.length), MAGIC_BYTES)) {
+      throw new BatfishException("Data is not in the Batfish binary serialization format");
+    }
+    byte version = header[MAGIC_BYTES.length];
+    if (version != FORMAT_VERSION) {
+      throw new BatfishException(
+          String.format(
+              "Unsupported Batfish binary serialization format version %d (expected %d)",
+              version, FORMAT_VERSION));
+    }
+    try (ObjectInputStream ois =
+        new CompactObjectInputStream(new LZ4FrameInputStream(new CloseShieldInputStream(in)))) {
+      return ois.readObject();
+    }
+  }
+
+  /** Fingerprints of the serializable fields of each class, as written in class descriptors. */
+  private static final ClassValue<Long> FIELD_FINGERPRINTS =
+      new ClassValue<Long>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+          Hasher hasher = Hashing.murmur3_128().newHasher();
+          ObjectStreamClass desc = ObjectStreamClass.lookupAny(type);
+          for (ObjectStreamField field : desc.getFields()) {
+            hasher.putString(field.getName(), UTF_8).putChar(field.getTypeCode());
+            if (!field.isPrimitive()) {
+              hasher.putString(field.getTypeString(), UTF_8);
+            }
+          }
+          return hasher.hash().asLong();
+        }
+      };
+
+  /**
+   * Loads the class with the given name through the thread context class loader, or if it is not
+   * found there, through the class loader of this class.
+   */
+  private static @Nonnull Class<?> loadClass(String name) throws ClassNotFoundException {
+    ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+    if (contextClassLoader != null) {
+      try {
+        return Class.forName(name, false, contextClassLoader);
+      } catch (ClassNotFoundException e) {
+        // fall back to the class loader of this class
+      }
+    }
+    return Class.forName(name, false, BinarySerialization.class.getClassLoader());
+  }
+
+  /** An {@link ObjectInputStream} that reads the compact class descriptors. */
+  private static final class CompactObjectInputStream extends ObjectInputStream {
+    private CompactObjectInputStream(InputStream in) throws IOException {
+      super(in);
+    }
+
+    @Override
+    protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+      String name = readUTF();
+      long serialVersionUid = readLong();
+      long fingerprint = readLong();
+      ObjectStreamClass desc = ObjectStreamClass.lookupAny(loadClass(name));
+      if (desc.getSerialVersionUID() != serialVersionUid) {
+        throw new InvalidClassException(
+            name,
+            String.format(
+                "local class incompatible: stream classdesc serialVersionUID = %d, local class"
+                    + " serialVersionUID = %d",
+                serialVersionUid, desc.getSerialVersionUID()));
+      }
+      if (FIELD_FINGERPRINTS.get(desc.forClass()) != fingerprint) {
+        throw new InvalidClassException(
+            name, "serializable fields differ from those of the class that was written");
+      }
+      return desc;
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass desc)
+        throws IOException, ClassNotFoundException {
+      // desc is a local class descriptor returned by readClassDescriptor
+      Class<?> type = desc.forClass();
+      return type != null ? type : super.resolveClass(desc);
+    }
+  }
+
+  /**
+   * An {@link ObjectOutputStream} that writes compact class descriptors and replaces instances of
+   * {@link #INTERNED_CLASSES} by the first equal instance written to the stream.
+   */
+  private static final class InterningObjectOutputStream extends ObjectOutputStream {
+    private final Map<Object, Object> _interned = new HashMap<>();
+
+    private InterningObjectOutputStream(OutputStream out) throws IOException {
+      super(out);
+      enableReplaceObject(true);
+    }
+
+    @Override
+    protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException {
+      writeUTF(desc.getName());
+      writeLong(desc.getSerialVersionUID());
+      writeLong(FIELD_FINGERPRINTS.get(desc.forClass()));
+    }
+
+    @Override
+    protected Object replaceObject(Object obj) {
+      if (!INTERNED_CLASSES.contains(obj.getClass())) {
+        return obj;
+      }
+      Object interned = _interned.putIfAbsent(obj, obj);
+      return interned == null ? obj : interned;
+    }
+  }
+
+  private BinarySerialization() {}
+}
@@ -62,6 +62,11 @@ public abstract class AbstractRouteBuilder<
     return getThis();
   }
 
+  @Nullable
+  public final NextHop getNextHop() {
+    return _nextHop;
+  }
+
   @Nonnull
   public final Ip getNextHopIp() {
     if (_nextHop == null) {
@@ -13,10 +13,9 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import org.batfish.datamodel.bgp.BgpRegexMatcher;
 
 /** An AsPathAccessList is used to filter e/iBGP routes according to their AS-path attribute. */
 public final class AsPathAccessList implements Serializable {
@@ -71,12 +70,7 @@ public final class AsPathAccessList implements Serializable {
   private boolean newPermits(AsPath asPath) {
     boolean accept = false;
     for (AsPathAccessListLine line : _lines) {
-      String regex = line.getRegex();
-      Pattern p = Pattern.compile(regex);
-      String asPathString = asPath.getAsPathString();
-      Matcher matcher = p.matcher(asPathString);
-      boolean match = matcher.find();
-      if (match) {
+      if (BgpRegexMatcher.matchesAsPath(line.getRegex(), asPath)) {
         accept = line.getAction() == LineAction.PERMIT;
         break;
       }
@@ -139,6 +139,11 @@ public class AsSet implements Serializable, Comparable<AsSet> {
         .collect(ImmutableSortedSet.toImmutableSortedSet(Ordering.natural()));
   }
 
+  /** Returns the {@code index}th smallest AS number in this set. */
+  public long getAsn(int index) {
+    return _value[index];
+  }
+
   @Override
   public int hashCode() {
     return Arrays.hashCode(_value) * 31 + Boolean.hashCode(_confederation);
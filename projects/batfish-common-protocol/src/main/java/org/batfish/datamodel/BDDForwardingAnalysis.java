@@ -0,0 +1,68 @@
+package org.batfish.datamodel;
+
+import java.util.Map;
+import javax.annotation.Nonnull;
+import net.sf.javabdd.BDD;
+import org.batfish.common.bdd.BDDPacket;
+
+/**
+ * The results of a {@link ForwardingAnalysis} as {@link BDD BDDs} over the destination IP of a
+ * {@link BDDPacket}. The maps have the same keys as the corresponding {@link ForwardingAnalysis}
+ * maps.
+ */
+public interface BDDForwardingAnalysis {
+
+  /**
+   * Returns a {@link BDDForwardingAnalysis} over {@code packet} for {@code forwardingAnalysis}.
+   * Returns it as is if it already is one over {@code packet}, and otherwise converts each of its
+   * IP spaces.
+   */
+  static @Nonnull BDDForwardingAnalysis of(
+      BDDPacket packet, ForwardingAnalysis forwardingAnalysis) {
+    if (forwardingAnalysis instanceof BDDForwardingAnalysis
+        && ((BDDForwardingAnalysis) forwardingAnalysis).getBDDPacket() == packet) {
+      return (BDDForwardingAnalysis) forwardingAnalysis;
+    }
+    return new IpSpaceBDDForwardingAnalysis(packet, forwardingAnalysis);
+  }
+
+  /** The {@link BDDPacket} whose destination IP the {@link BDD BDDs} constrain. */
+  @Nonnull
+  BDDPacket getBDDPacket();
+
+  /** See {@link ForwardingAnalysis#getAcceptsIps()}. */
+  @Nonnull
+  Map<String, Map<String, Map<String, BDD>>> getAcceptsIpBdds();
+
+  /** See {@link ForwardingAnalysis#getArpTrueEdge()}. */
+  @Nonnull
+  Map<String, Map<String, Map<Edge, BDD>>> getArpTrueEdgeBdds();
+
+  /** See {@link ForwardingAnalysis#getDeliveredToSubnet()}. */
+  @Nonnull
+  Map<String, Map<String, Map<String, BDD>>> getDeliveredToSubnetBdds();
+
+  /** See {@link ForwardingAnalysis#getExitsNetwork()}. */
+  @Nonnull
+  Map<String, Map<String, Map<String, BDD>>> getExitsNetworkBdds();
+
+  /** See {@link ForwardingAnalysis#getInsufficientInfo()}. */
+  @Nonnull
+  Map<String, Map<String, Map<String, BDD>>> getInsufficientInfoBdds();
+
+  /** See {@link ForwardingAnalysis#getNeighborUnreachable()}. */
+  @Nonnull
+  Map<String, Map<String, Map<String, BDD>>> getNeighborUnreachableBdds();
+
+  /** See {@link ForwardingAnalysis#getNextVrfIps()}. */
+  @Nonnull
+  Map<String, Map<String, Map<String, BDD>>> getNextVrfIpBdds();
+
+  /** See {@link ForwardingAnalysis#getNullRoutedIps()}. */
+  @Nonnull
+  Map<String, Map<String, BDD>> getNullRoutedIpBdds();
+
+  /** See {@link ForwardingAnalysis#getRoutableIps()}. */
+  @Nonnull
+  Map<String, Map<String, BDD>> getRoutableIpBdds();
+}
@@ -0,0 +1,798 @@
+package org.batfish.datamodel;
+
+import static org.batfish.common.util.CollectionUtil.toImmutableMap;
+
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.util.GlobalTracer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import net.sf.javabdd.BDD;
+import net.sf.javabdd.BDDFactory;
+import org.batfish.common.bdd.BDDPacket;
+import org.batfish.common.bdd.BDDToIpSpace;
+import org.batfish.common.bdd.IpSpaceToBDD;
+import org.batfish.common.topology.IpOwners;
+import org.batfish.datamodel.collections.NodeInterfacePair;
+import org.batfish.specifier.InterfaceLinkLocation;
+import org.batfish.specifier.Location;
+import org.batfish.specifier.LocationInfo;
+
+/**
+ * A {@link ForwardingAnalysis} computed directly as {@link BDD BDDs} over the destination IP of a
+ * {@link BDDPacket}, following the same steps as {@link ForwardingAnalysisImpl}. Only the inputs
+ * are converted: the matching IPs of each FIB prefix from {@link Fib#getMatchingIps()}, and the
+ * owned, ARP and subnet IPs of interfaces. Everything else is computed with BDD operations.
+ *
+ * <p>The {@link IpSpace IP spaces} of {@link ForwardingAnalysis} are materialized from the {@link
+ * BDD BDDs} the first time they are requested. Since {@link BDD BDDs} belong to the {@link
+ * BDDPacket} they were created with, this should be computed with the {@link BDDPacket} of the
+ * analysis that consumes it, and is not serializable.
+ */
+@ParametersAreNonnullByDefault
+public final class BDDForwardingAnalysisImpl implements BDDForwardingAnalysis, ForwardingAnalysis {
+
+  private final @Nonnull BDDPacket _packet;
+
+  private final @Nonnull Map<String, Map<String, Map<String, BDD>>> _acceptsIps;
+  private final @Nonnull Map<String, Map<String, BDD>> _arpReplies;
+  private final @Nonnull Map<String, Map<String, Map<Edge, BDD>>> _arpTrueEdge;
+  private final @Nonnull Map<String, Map<String, Map<String, BDD>>> _deliveredToSubnet;
+  private final @Nonnull Map<String, Map<String, Map<String, BDD>>> _exitsNetwork;
+  private final @Nonnull Map<String, Map<String, Map<String, BDD>>> _insufficientInfo;
+  private final @Nonnull Map<String, Map<String, Map<String, BDD>>> _neighborUnreachable;
+  private final @Nonnull Map<String, Map<String, Map<String, BDD>>> _nextVrfIps;
+  private final @Nonnull Map<String, Map<String, BDD>> _nullRoutedIps;
+  private final @Nonnull Map<String, Map<String, BDD>> _routableIps;
+
+  private final @Nonnull Supplier<Map<String, Map<String, Map<String, IpSpace>>>> _acceptsIpSpaces;
+  private final @Nonnull Supplier<Map<String, Map<String, IpSpace>>> _arpReplyIpSpaces;
+  private final @Nonnull Supplier<Map<String, Map<String, Map<Edge, IpSpace>>>>
+      _arpTrueEdgeIpSpaces;
+  private final @Nonnull Supplier<Map<String, Map<String, Map<String, IpSpace>>>>
+      _deliveredToSubnetIpSpaces;
+  private final @Nonnull Supplier<Map<String, Map<String, Map<String, IpSpace>>>>
+      _exitsNetworkIpSpaces;
+  private final @Nonnull Supplier<Map<String, Map<String, Map<String, IpSpace>>>>
+      _insufficientInfoIpSpaces;
+  private final @Nonnull Supplier<Map<String, Map<String, Map<String, IpSpace>>>>
+      _neighborUnreachableIpSpaces;
+  private final @Nonnull Supplier<Map<String, Map<String, Map<String, IpSpace>>>> _nextVrfIpSpaces;
+  private final @Nonnull Supplier<Map<String, Map<String, IpSpace>>> _nullRoutedIpSpaces;
+  private final @Nonnull Supplier<Map<String, Map<String, IpSpace>>> _routableIpSpaces;
+
+  public BDDForwardingAnalysisImpl(
+      BDDPacket packet,
+      Map<String, Configuration> configurations,
+      Map<String, Map<String, Fib>> fibs,
+      Topology topology,
+      Map<Location, LocationInfo> locationInfo) {
+    Span span = GlobalTracer.get().buildSpan("Construct BDDForwardingAnalysis").start();
+    try (Scope scope = GlobalTracer.get().scopeManager().activate(span)) {
+      assert scope != null; // avoid unused warning
+      _packet = packet;
+      BDDFactory factory = packet.getFactory();
+      IpSpaceToBDD toBdd = packet.getDstIpSpaceToBDD();
+
+      IpOwners ipOwners = new IpOwners(configurations);
+
+      // node -> interface -> IPs owned by that interface, even inactive interfaces
+      Map<String, Map<String, Set<Ip>>> interfaceOwnedIps =
+          IpOwners.computeInterfaceOwnedIps(configurations, /*excludeInactive=*/ false);
+      BDD ownedIps =
+          factory.orAll(
+              interfaceOwnedIps.values().stream()
+                  .flatMap(ifaceMap -> ifaceMap.values().stream())
+                  .flatMap(Set::stream)
+                  .distinct()
+                  .map(toBdd::toBDD)
+                  .collect(Collectors.toList()));
+      BDD unownedIps = ownedIps.not();
+
+      _acceptsIps = toBdds(ipOwners.getVrfIfaceOwnedIpSpaces(), toBdd);
+
+      // node -> vrf -> prefix -> dst IPs whose longest prefix match is that prefix
+      Map<String, Map<String, Map<Prefix, BDD>>> matchingIps =
+          toImmutableMap(
+              fibs,
+              Entry::getKey, // node
+              nodeEntry ->
+                  toImmutableMap(
+                      nodeEntry.getValue(),
+                      Entry::getKey, // vrf
+                      vrfEntry ->
+                          toImmutableMap(
+                              vrfEntry.getValue().getMatchingIps(),
+                              Entry::getKey, // prefix
+                              prefixEntry -> toBdd.visit(prefixEntry.getValue()))));
+      // node -> vrf -> interface -> routes that forward out that interface
+      Map<String, Map<String, Map<String, Set<AbstractRoute>>>> routesWithNextHop =
+          ForwardingAnalysisUtils.computeRoutesWithNextHop(fibs);
+      _nullRoutedIps = computeNullRoutedIps(factory, matchingIps, fibs);
+      _nextVrfIps = computeNextVrfIps(factory, matchingIps, fibs);
+      _routableIps =
+          toImmutableMap(
+              fibs,
+              Entry::getKey, // node
+              nodeEntry ->
+                  toImmutableMap(
+                      nodeEntry.getValue(),
+                      Entry::getKey, // vrf
+                      vrfEntry ->
+                          factory.orAll(
+                              vrfEntry.getValue().allEntries().stream()
+                                  .map(fibEntry -> fibEntry.getTopLevelRoute().getNetwork())
+                                  .distinct()
+                                  .map(toBdd::toBDD)
+                                  .collect(Collectors.toList()))));
+
+      // node -> vrf -> interface -> dst IPs routed out that interface
+      Map<String, Map<String, Map<String, BDD>>> ipsRoutedOutInterfaces =
+          computeRouteMatchConditions(
+              factory, matchingIps, withoutNullInterface(routesWithNextHop), route -> true);
+      _arpReplies =
+          computeArpReplies(
+              factory,
+              configurations,
+              ipsRoutedOutInterfaces,
+              interfaceOwnedIps,
+              _routableIps,
+              toBdd);
+      // node -> interface -> IPs for which some neighbor replies to ARP
+      Map<String, Map<String, BDD>> someoneReplies =
+          computeSomeoneReplies(factory, topology, _arpReplies);
+
+      // node -> vrf -> route -> next-hop interface -> resolved next-hop IP -> interface routes
+      Map<String, Map<String, Map<AbstractRoute, Map<String, Map<Ip, Set<AbstractRoute>>>>>>
+          nextHopInterfacesByNodeVrf =
+              ForwardingAnalysisUtils.computeNextHopInterfacesByNodeVrf(fibs);
+
+      // node -> vrf -> interface -> routes ARPing for a next-hop IP that gets no reply
+      Map<String, Map<String, Map<String, Set<AbstractRoute>>>> routesWithNextHopIpArpFalse =
+          computeRoutesWithNextHopIpArpFalse(
+              factory, nextHopInterfacesByNodeVrf, routesWithNextHop, someoneReplies, toBdd);
+      Map<String, Map<String, Map<String, BDD>>> dstIpsWithUnownedNextHopIpArpFalse =
+          computeRouteMatchConditions(
+              factory,
+              matchingIps,
+              routesWithNextHopIpArpFalse,
+              route -> toBdd.toBDD(route.getNextHopIp()).andSat(unownedIps));
+      Map<String, Map<String, Map<String, BDD>>> dstIpsWithOwnedNextHopIpArpFalse =
+          computeRouteMatchConditions(
+              factory,
+              matchingIps,
+              routesWithNextHopIpArpFalse,
+              route -> !toBdd.toBDD(route.getNextHopIp()).andSat(unownedIps));
+      Map<String, Map<String, Map<String, BDD>>> arpFalseNextHopIp =
+          computeRouteMatchConditions(
+              factory,
+              matchingIps,
+              withoutNullInterface(routesWithNextHopIpArpFalse),
+              route -> true);
+
+      // node -> vrf -> interface -> routes ARPing for the dst IP
+      Map<String, Map<String, Map<String, Set<AbstractRoute>>>> routesWhereDstIpCanBeArpIp =
+          ForwardingAnalysisUtils.computeRoutesWhereDstIpCanBeArpIp(
+              nextHopInterfacesByNodeVrf, routesWithNextHop);
+      Map<String, Map<String, Map<String, BDD>>> arpFalseDestIp =
+          mapValues(
+              computeRouteMatchConditions(
+                  factory,
+                  matchingIps,
+                  withoutNullInterface(routesWhereDstIpCanBeArpIp),
+                  route -> true),
+              (node, vrf, iface, routedOut) ->
+                  routedOut.diff(
+                      someoneReplies
+                          .getOrDefault(node, ImmutableMap.of())
+                          .getOrDefault(iface, factory.zero())));
+      Map<String, Map<String, Map<String, BDD>>> arpFalse =
+          union(arpFalseDestIp, arpFalseNextHopIp);
+
+      Map<String, Map<String, Map<Edge, BDD>>> arpTrueEdgeDestIp =
+          mapValues(
+              computeRouteMatchConditions(
+                  factory,
+                  matchingIps,
+                  ForwardingAnalysisUtils.computeRoutesWithDestIpEdge(
+                      topology, routesWhereDstIpCanBeArpIp),
+                  route -> true),
+              (node, vrf, edge, routedOut) ->
+                  routedOut.and(_arpReplies.get(edge.getNode2()).get(edge.getInt2())));
+      Map<String, Map<String, Map<Edge, BDD>>> arpTrueEdgeNextHopIp =
+          computeRouteMatchConditions(
+              factory,
+              matchingIps,
+              computeRoutesWithNextHopIpArpTrue(
+                  nextHopInterfacesByNodeVrf, topology, _arpReplies, routesWithNextHop, toBdd),
+              route -> true);
+      _arpTrueEdge = union(arpTrueEdgeDestIp, arpTrueEdgeNextHopIp);
+
+      // node -> interface -> IPs on which some device not modeled in batfish may reply to ARP
+      Map<String, Map<String, BDD>> interfaceExternalArpIps =
+          locationInfo.entrySet().stream()
+              .filter(entry -> entry.getKey() instanceof InterfaceLinkLocation)
+              .collect(
+                  Collectors.groupingBy(
+                      entry -> entry.getKey().getNodeName(),
+                      Collectors.toMap(
+                          entry -> ((InterfaceLinkLocation) entry.getKey()).getInterfaceName(),
+                          entry -> toBdd.visit(entry.getValue().getArpIps()))));
+      // node -> interfaces that are not full, i.e. could have neighbors not in the snapshot
+      Map<String, Set<String>> interfacesWithMissingDevices =
+          toImmutableMap(
+              interfaceExternalArpIps,
+              Entry::getKey,
+              nodeEntry ->
+                  nodeEntry.getValue().entrySet().stream()
+                      .filter(ifaceEntry -> ifaceEntry.getValue().andSat(unownedIps))
+                      .map(Entry::getKey)
+                      .collect(ImmutableSet.toImmutableSet()));
+
+      // IPs belonging to any subnet in the network, including inactive interfaces
+      BDD internalIps =
+          factory.orAll(
+              ipOwners.getAllInterfaceHostIps().values().stream()
+                  .flatMap(ifaceIps -> ifaceIps.values().stream())
+                  .map(toBdd::visit)
+                  .collect(Collectors.toList()));
+      BDD externalIps = internalIps.not();
+
+      // ARPing for a dst IP that is not owned but is in a connected subnet
+      _deliveredToSubnet =
+          mapValues(
+              arpFalseDestIp,
+              (node, vrf, iface, bdd) ->
+                  bdd.and(interfaceExternalArpIps.get(node).get(iface)).diff(ownedIps));
+
+      // No ARP reply, and either the interface is full, or ARPing for a dst IP that is owned and
+      // in a connected subnet
+      _neighborUnreachable =
+          mapValues(
+              arpFalse,
+              (node, vrf, iface, bdd) ->
+                  interfacesWithMissingDevices.get(node).contains(iface)
+                      ? arpFalseDestIp
+                          .get(node)
+                          .get(vrf)
+                          .get(iface)
+                          .and(interfaceExternalArpIps.get(node).get(iface))
+                          .and(ownedIps)
+                      : bdd);
+
+      // The interface is not full, and either:
+      // 1. ARPing for a dst IP that is internal but not in a subnet of the interface, or
+      // 2. ARPing for a next-hop IP that is not owned, and the dst IP is internal, or
+      // 3. ARPing for a next-hop IP that is owned.
+      _insufficientInfo =
+          mapValues(
+              arpFalseDestIp,
+              (node, vrf, iface, bdd) -> {
+                if (!interfacesWithMissingDevices.get(node).contains(iface)) {
+                  return factory.zero();
+                }
+                BDD elsewhere = internalIps.diff(interfaceExternalArpIps.get(node).get(iface));
+                return bdd.and(elsewhere)
+                    .or(
+                        dstIpsWithUnownedNextHopIpArpFalse
+                            .get(node)
+                            .get(vrf)
+                            .get(iface)
+                            .and(internalIps))
+                    .or(dstIpsWithOwnedNextHopIpArpFalse.get(node).get(vrf).get(iface));
+              });
+
+      // The interface is not full, and the dst IP is external, and so is the IP ARPed for
+      _exitsNetwork =
+          mapValues(
+              dstIpsWithUnownedNextHopIpArpFalse,
+              (node, vrf, iface, bdd) ->
+                  interfacesWithMissingDevices.get(node).contains(iface)
+                      ? externalIps.and(
+                          arpFalseDestIp
+                              .get(node)
+                              .get(vrf)
+                              .getOrDefault(iface, factory.zero())
+                              .or(bdd))
+                      : factory.zero());
+
+      assert sanityCheck(arpFalse);
+    } finally {
+      span.finish();
+    }
+
+    BDDToIpSpace toIpSpace = new BDDToIpSpace(packet.getDstIp());
+    _acceptsIpSpaces = Suppliers.memoize(() -> toIpSpaces(_acceptsIps, toIpSpace));
+    _arpReplyIpSpaces =
+        Suppliers.memoize(
+            () ->
+                toImmutableMap(
+                    _arpReplies, Entry::getKey, e -> toIpSpaceMap(e.getValue(), toIpSpace)));
+    _arpTrueEdgeIpSpaces = Suppliers.memoize(() -> toIpSpaces(_arpTrueEdge, toIpSpace));
+    _deliveredToSubnetIpSpaces = Suppliers.memoize(() -> toIpSpaces(_deliveredToSubnet, toIpSpace));
+    _exitsNetworkIpSpaces = Suppliers.memoize(() -> toIpSpaces(_exitsNetwork, toIpSpace));
+    _insufficientInfoIpSpaces = Suppliers.memoize(() -> toIpSpaces(_insufficientInfo, toIpSpace));
+    _neighborUnreachableIpSpaces =
+        Suppliers.memoize(() -> toIpSpaces(_neighborUnreachable, toIpSpace));
+    _nextVrfIpSpaces = Suppliers.memoize(() -> toIpSpaces(_nextVrfIps, toIpSpace));
+    _nullRoutedIpSpaces =
+        Suppliers.memoize(
+            () ->
+                toImmutableMap(
+                    _nullRoutedIps, Entry::getKey, e -> toIpSpaceMap(e.getValue(), toIpSpace)));
+    _routableIpSpaces =
+        Suppliers.memoize(
+            () ->
+                toImmutableMap(
+                    _routableIps, Entry::getKey, e -> toIpSpaceMap(e.getValue(), toIpSpace)));
+  }
+
+  /** A function of the value for a key of a node and VRF. */
+  @FunctionalInterface
+  private interface NodeVrfFunction<K, V1, V2> {
+    V2 apply(String node, String vrf, K key, V1 value);
+  }
+
+  /** Applies {@code function} to each value of a node -&gt; vrf -&gt; key map. */
+  private static <K, V1, V2> Map<String, Map<String, Map<K, V2>>> mapValues(
+      Map<String, Map<String, Map<K, V1>>> map, NodeVrfFunction<K, V1, V2> function) {
+    return toImmutableMap(
+        map,
+        Entry::getKey, // node
+        nodeEntry ->
+            toImmutableMap(
+                nodeEntry.getValue(),
+                Entry::getKey, // vrf
+                vrfEntry ->
+                    toImmutableMap(
+                        vrfEntry.getValue(),
+                        Entry::getKey,
+                        entry ->
+                            function.apply(
+                                nodeEntry.getKey(),
+                                vrfEntry.getKey(),
+                                entry.getKey(),
+                                entry.getValue()))));
+  }
+
+  private static Map<String, Map<String, Map<String, BDD>>> toBdds(
+      Map<String, Map<String, Map<String, IpSpace>>> ipSpaces, IpSpaceToBDD toBdd) {
+    return mapValues(ipSpaces, (node, vrf, iface, ipSpace) -> toBdd.visit(ipSpace));
+  }
+
+  private static <K> Map<String, Map<String, Map<K, IpSpace>>> toIpSpaces(
+      Map<String, Map<String, Map<K, BDD>>> bdds, BDDToIpSpace toIpSpace) {
+    return mapValues(bdds, (node, vrf, key, bdd) -> toIpSpace.toIpSpace(bdd));
+  }
+
+  private static Map<String, IpSpace> toIpSpaceMap(Map<String, BDD> bdds, BDDToIpSpace toIpSpace) {
+    return toImmutableMap(bdds, Entry::getKey, entry -> toIpSpace.toIpSpace(entry.getValue()));
+  }
+
+  /** Removes the routes out the null interface, which are handled by the null-routed IPs. */
+  private static Map<String, Map<String, Map<String, Set<AbstractRoute>>>> withoutNullInterface(
+      Map<String, Map<String, Map<String, Set<AbstractRoute>>>> routes) {
+    return toImmutableMap(
+        routes,
+        Entry::getKey, // node
+        nodeEntry ->
+            toImmutableMap(
+                nodeEntry.getValue(),
+                Entry::getKey, // vrf
+                vrfEntry ->
+                    ImmutableMap.copyOf(
+                        Maps.filterKeys(
+                            vrfEntry.getValue(),
+                            iface -> !iface.equals(Interface.NULL_INTERFACE_NAME)))));
+  }
+
+  /**
+   * For each node, VRF and key, the dst IPs that match (i.e. whose longest prefix match is) the
+   * network of some route satisfying {@code routeFilter}.
+   */
+  private static <K> Map<String, Map<String, Map<K, BDD>>> computeRouteMatchConditions(
+      BDDFactory factory,
+      Map<String, Map<String, Map<Prefix, BDD>>> matchingIps,
+      Map<String, Map<String, Map<K, Set<AbstractRoute>>>> routes,
+      Predicate<AbstractRoute> routeFilter) {
+    return mapValues(
+        routes,
+        (node, vrf, key, keyRoutes) -> {
+          Map<Prefix, BDD> vrfMatchingIps = matchingIps.get(node).get(vrf);
+          return factory.orAll(
+              keyRoutes.stream()
+                  .filter(routeFilter)
+                  .map(AbstractRoute::getNetwork)
+                  .distinct()
+                  .map(vrfMatchingIps::get)
+                  .collect(Collectors.toList()));
+        });
+  }
+
+  private static Map<String, Map<String, BDD>> computeNullRoutedIps(
+      BDDFactory factory,
+      Map<String, Map<String, Map<Prefix, BDD>>> matchingIps,
+      Map<String, Map<String, Fib>> fibs) {
+    return toImmutableMap(
+        fibs,
+        Entry::getKey, // node
+        nodeEntry ->
+            toImmutableMap(
+                nodeEntry.getValue(),
+                Entry::getKey, // vrf
+                vrfEntry -> {
+                  Map<Prefix, BDD> vrfMatchingIps =
+                      matchingIps.get(nodeEntry.getKey()).get(vrfEntry.getKey());
+                  return factory.orAll(
+                      vrfEntry.getValue().allEntries().stream()
+                          .filter(fibEntry -> fibEntry.getAction() instanceof FibNullRoute)
+                          .map(fibEntry -> fibEntry.getTopLevelRoute().getNetwork())
+                          .distinct()
+                          .map(vrfMatchingIps::get)
+                          .collect(Collectors.toList()));
+                }));
+  }
+
+  private static Map<String, Map<String, Map<String, BDD>>> computeNextVrfIps(
+      BDDFactory factory,
+      Map<String, Map<String, Map<Prefix, BDD>>> matchingIps,
+      Map<String, Map<String, Fib>> fibs) {
+    return toImmutableMap(
+        fibs,
+        Entry::getKey, // node
+        nodeEntry ->
+            toImmutableMap(
+                nodeEntry.getValue(),
+                Entry::getKey, // vrf
+                vrfEntry -> {
+                  Map<Prefix, BDD> vrfMatchingIps =
+                      matchingIps.get(nodeEntry.getKey()).get(vrfEntry.getKey());
+                  Map<String, Set<Prefix>> networksByNextVrf =
+                      vrfEntry.getValue().allEntries().stream()
+                          .filter(fibEntry -> fibEntry.getAction() instanceof FibNextVrf)
+                          .collect(
+                              Collectors.groupingBy(
+                                  fibEntry -> ((FibNextVrf) fibEntry.getAction()).getNextVrf(),
+                                  Collectors.mapping(
+                                      fibEntry -> fibEntry.getTopLevelRoute().getNetwork(),
+                                      Collectors.toSet())));
+                  return toImmutableMap(
+                      networksByNextVrf,
+                      Entry::getKey, // next vrf
+                      nextVrfEntry ->
+                          factory.orAll(
+                              nextVrfEntry.getValue().stream()
+                                  .map(vrfMatchingIps::get)
+                                  .collect(Collectors.toList())));
+                }));
+  }
+
+  /**
+   * See {@link ForwardingAnalysisImpl#computeArpReplies}. An interface replies to ARP for its own
+   * IPs and its additional ARP IPs, and with proxy-ARP for the IPs routable in its VRF that are not
+   * routed out the interface.
+   */
+  private static Map<String, Map<String, BDD>> computeArpReplies(
+      BDDFactory factory,
+      Map<String, Configuration> configurations,
+      Map<String, Map<String, Map<String, BDD>>> ipsRoutedOutInterfaces,
+      Map<String, Map<String, Set<Ip>>> interfaceOwnedIps,
+      Map<String, Map<String, BDD>> routableIps,
+      IpSpaceToBDD toBdd) {
+    return toImmutableMap(
+        configurations,
+        Entry::getKey, // node
+        nodeEntry -> {
+          String hostname = nodeEntry.getKey();
+          Map<String, BDD> routableIpsByVrf = routableIps.get(hostname);
+          Map<String, Map<String, BDD>> ipsRoutedOutByVrf = ipsRoutedOutInterfaces.get(hostname);
+          return toImmutableMap(
+              nodeEntry.getValue().getActiveInterfaces(),
+              Entry::getKey, // interface
+              ifaceEntry -> {
+                Interface iface = ifaceEntry.getValue();
+                IpSpace assignedIps =
+                    ForwardingAnalysisUtils.computeIpsAssignedToThisInterfaceForArpReplies(
+                        iface, interfaceOwnedIps);
+                if (assignedIps == EmptyIpSpace.INSTANCE) {
+                  return factory.zero();
+                }
+                BDD replies = toBdd.visit(assignedIps).or(toBdd.visit(iface.getAdditionalArpIps()));
+                if (iface.getProxyArp()) {
+                  // only the routes of its own VRF affect the replies of an interface
+                  String vrf = iface.getVrfName();
+                  BDD routedOut =
+                      ipsRoutedOutByVrf.get(vrf).getOrDefault(ifaceEntry.getKey(), factory.zero());
+                  replies = replies.or(routableIpsByVrf.get(vrf).diff(routedOut));
+                }
+                return replies;
+              });
+        });
+  }
+
+  /** node -&gt; interface -&gt; IPs for which some neighbor of that interface replies to ARP. */
+  private static Map<String, Map<String, BDD>> computeSomeoneReplies(
+      BDDFactory factory, Topology topology, Map<String, Map<String, BDD>> arpReplies) {
+    Map<String, Map<String, BDD>> someoneReplies = new HashMap<>();
+    for (Edge edge : topology.getEdges()) {
+      BDD replies =
+          arpReplies
+              .getOrDefault(edge.getNode2(), ImmutableMap.of())
+              .getOrDefault(edge.getInt2(), factory.zero());
+      someoneReplies
+          .computeIfAbsent(edge.getNode1(), n -> new HashMap<>())
+          .merge(edge.getInt1(), replies, BDD::or);
+    }
+    return toImmutableMap(
+        someoneReplies, Entry::getKey, nodeEntry -> ImmutableMap.copyOf(nodeEntry.getValue()));
+  }
+
+  /** Whether any next-hop IP of {@code route} out {@code outInterface} is in {@code ips}. */
+  private static boolean someNextHopIpIn(
+      Map<AbstractRoute, Map<String, Map<Ip, Set<AbstractRoute>>>> nextHopInterfaces,
+      AbstractRoute route,
+      String outInterface,
+      BDD ips,
+      IpSpaceToBDD toBdd) {
+    return nextHopInterfaces.get(route).get(outInterface).keySet().stream()
+        .filter(ip -> !ip.equals(Route.UNSET_ROUTE_NEXT_HOP_IP))
+        .anyMatch(ip -> toBdd.toBDD(ip).andSat(ips));
+  }
+
+  /** See {@link ForwardingAnalysisImpl#computeRoutesWithNextHopIpArpFalse}. */
+  private static Map<String, Map<String, Map<String, Set<AbstractRoute>>>>
+      computeRoutesWithNextHopIpArpFalse(
+          BDDFactory factory,
+          Map<String, Map<String, Map<AbstractRoute, Map<String, Map<Ip, Set<AbstractRoute>>>>>>
+              nextHopInterfacesByNodeVrf,
+          Map<String, Map<String, Map<String, Set<AbstractRoute>>>> routesWithNextHop,
+          Map<String, Map<String, BDD>> someoneReplies,
+          IpSpaceToBDD toBdd) {
+    return mapValues(
+        routesWithNextHop,
+        (node, vrf, outInterface, candidateRoutes) -> {
+          Map<AbstractRoute, Map<String, Map<Ip, Set<AbstractRoute>>>> nextHopInterfaces =
+              nextHopInterfacesByNodeVrf.get(node).get(vrf);
+          BDD noReplies =
+              someoneReplies
+                  .getOrDefault(node, ImmutableMap.of())
+                  .getOrDefault(outInterface, factory.zero())
+                  .not();
+          return candidateRoutes.stream()
+              .filter(
+                  route ->
+                      someNextHopIpIn(nextHopInterfaces, route, outInterface, noReplies, toBdd))
+              .collect(ImmutableSet.toImmutableSet());
+        });
+  }
+
+  /** See {@link ForwardingAnalysisImpl#computeRoutesWithNextHopIpArpTrue}. */
+  private static Map<String, Map<String, Map<Edge, Set<AbstractRoute>>>>
+      computeRoutesWithNextHopIpArpTrue(
+          Map<String, Map<String, Map<AbstractRoute, Map<String, Map<Ip, Set<AbstractRoute>>>>>>
+              nextHopInterfacesByNodeVrf,
+          Topology topology,
+          Map<String, Map<String, BDD>> arpReplies,
+          Map<String, Map<String, Map<String, Set<AbstractRoute>>>> routesWithNextHop,
+          IpSpaceToBDD toBdd) {
+    return toImmutableMap(
+        routesWithNextHop,
+        Entry::getKey, // node
+        nodeEntry ->
+            toImmutableMap(
+                nodeEntry.getValue(),
+                Entry::getKey, // vrf
+                vrfEntry -> {
+                  String hostname = nodeEntry.getKey();
+                  Map<AbstractRoute, Map<String, Map<Ip, Set<AbstractRoute>>>> nextHopInterfaces =
+                      nextHopInterfacesByNodeVrf.get(hostname).get(vrfEntry.getKey());
+                  return vrfEntry.getValue().entrySet().stream()
+                      .flatMap(
+                          ifaceEntry -> {
+                            String outInterface = ifaceEntry.getKey();
+                            NodeInterfacePair out = NodeInterfacePair.of(hostname, outInterface);
+                            return topology.getNeighbors(out).stream()
+                                .map(
+                                    receiver -> {
+                                      BDD recvReplies =
+                                          arpReplies
+                                              .get(receiver.getHostname())
+                                              .get(receiver.getInterface());
+                                      Set<AbstractRoute> routes =
+                                          ifaceEntry.getValue().stream()
+                                              .filter(
+                                                  route ->
+                                                      someNextHopIpIn(
+                                                          nextHopInterfaces,
+                                                          route,
+                                                          outInterface,
+                                                          recvReplies,
+                                                          toBdd))
+                                              .collect(ImmutableSet.toImmutableSet());
+                                      return routes.isEmpty()
+                                          ? null
+                                          : Maps.immutableEntry(new Edge(out, receiver), routes);
+                                    })
+                                .filter(Objects::nonNull);
+                          })
+                      .collect(ImmutableMap.toImmutableMap(Entry::getKey, Entry::getValue));
+                }));
+  }
+
+  /**
+   * The union of two node -&gt; vrf -&gt; key maps with the same nodes and VRFs. A key missing from
+   * one of the maps is treated as mapped to {@code zero}.
+   */
+  private static <K> Map<String, Map<String, Map<K, BDD>>> union(
+      Map<String, Map<String, Map<K, BDD>>> bdds1, Map<String, Map<String, Map<K, BDD>>> bdds2) {
+    return toImmutableMap(
+        bdds1,
+        Entry::getKey, // node
+        nodeEntry ->
+            toImmutableMap(
+                nodeEntry.getValue(),
+                Entry::getKey, // vrf
+                vrfEntry -> {
+                  Map<K, BDD> vrfBdds1 = vrfEntry.getValue();
+                  Map<K, BDD> vrfBdds2 = bdds2.get(nodeEntry.getKey()).get(vrfEntry.getKey());
+                  return Sets.union(vrfBdds1.keySet(), vrfBdds2.keySet()).stream()
+                      .collect(
+                          ImmutableMap.toImmutableMap(
+                              Function.identity(),
+                              key -> {
+                                BDD bdd1 = vrfBdds1.get(key);
+                                BDD bdd2 = vrfBdds2.get(key);
+                                return bdd1 == null ? bdd2 : bdd2 == null ? bdd1 : bdd1.or(bdd2);
+                              }));
+                }));
+  }
+
+  /** Checks that the dispositions of dst IPs with no ARP reply partition them. */
+  private boolean sanityCheck(Map<String, Map<String, Map<String, BDD>>> arpFalse) {
+    Map<String, Map<String, Map<String, BDD>>> dispositions =
+        union(
+            _neighborUnreachable,
+            union(_insufficientInfo, union(_deliveredToSubnet, _exitsNetwork)));
+    arpFalse.forEach(
+        (node, vrfs) ->
+            vrfs.forEach(
+                (vrf, ifaces) ->
+                    ifaces.forEach(
+                        (iface, bdd) -> {
+                          assert bdd.equals(dispositions.get(node).get(vrf).get(iface))
+                              : "Dispositions of node "
+                                  + node
+                                  + " VRF "
+                                  + vrf
+                                  + " interface "
+                                  + iface
+                                  + " do not match its ARP failures";
+                        })));
+    return true;
+  }
+
+  @Nonnull
+  @Override
+  public BDDPacket getBDDPacket() {
+    return _packet;
+  }
+
+  @Nonnull
+  @Override
+  public Map<String, Map<String, Map<String, BDD>>> getAcceptsIpBdds() {
+    return _acceptsIps;
+  }
+
+  @Nonnull
+  @Override
+  public Map<String, Map<String, Map<Edge, BDD>>> getArpTrueEdgeBdds() {
+    return _arpTrueEdge;
+  }
+
+  @Nonnull
+  @Override
+  public Map<String, Map<String, Map<String, BDD>>> getDeliveredToSubnetBdds() {
+    return _deliveredToSubnet;
+  }
+
+  @Nonnull
+  @Override
+  public Map<String, Map<String, Map<String, BDD>>> getExitsNetworkBdds() {
+    return _exitsNetwork;
+  }
+
+  @Nonnull
+  @Override
+  public Map<String, Map<String, Map<String, BDD>>> getInsufficientInfoBdds() {
+    return _insufficientInfo;
+  }
+
+  @Nonnull
+  @Override
+  public Map<String, Map<String, Map<String, BDD>>> getNeighborUnreachableBdds() {
+    return _neighborUnreachable;
+  }
+
+  @Nonnull
+  @Override
+  public Map<String, Map<String, Map<String, BDD>>> getNextVrfIpBdds() {
+    return _nextVrfIps;
+  }
+
+  @Nonnull
+  @Override
+  public Map<String, Map<String, BDD>> getNullRoutedIpBdds() {
+    return _nullRoutedIps;
+  }
+
+  @Nonnull
+  @Override
+  public Map<String, Map<String, BDD>> getRoutableIpBdds() {
+    return _routableIps;
+  }
+
+  @Nonnull
+  @Override
+  public Map<String, Map<String, Map<String, IpSpace>>> getAcceptsIps() {
+    return _acceptsIpSpaces.get();
+  }
+
+  @Override
+  public Map<String, Map<String, IpSpace>> getArpReplies() {
+    return _arpReplyIpSpaces.get();
+  }
+
+  @Override
+  public Map<String, Map<String, Map<Edge, IpSpace>>> getArpTrueEdge() {
+    return _arpTrueEdgeIpSpaces.get();
+  }
+
+  @Override
+  public Map<String, Map<String, Map<String, IpSpace>>> getNextVrfIps() {
+    return _nextVrfIpSpaces.get();
+  }
+
+  @Override
+  public Map<String, Map<String, IpSpace>> getNullRoutedIps() {
+    return _nullRoutedIpSpaces.get();
+  }
+
+  @Override
+  public Map<String, Map<String, IpSpace>> getRoutableIps() {
+    return _routableIpSpaces.get();
+  }
+
+  @Override
+  public Map<String, Map<String, Map<String, IpSpace>>> getDeliveredToSubnet() {
+    return _deliveredToSubnetIpSpaces.get();
+  }
+
+  @Override
+  public Map<String, Map<String, Map<String, IpSpace>>> getExitsNetwork() {
+    return _exitsNetworkIpSpaces.get();
+  }
+
+  @Override
+  public Map<String, Map<String, Map<String, IpSpace>>> getNeighborUnreachable() {
+    return _neighborUnreachableIpSpaces.get();
+  }
+
+  @Override
+  public Map<String, Map<String, Map<String, IpSpace>>> getInsufficientInfo() {
+    return _insufficientInfoIpSpaces.get();
+  }
+}
@@ -84,6 +84,12 @@ public final class FibImpl implements Fib {
   /** This trie is the source of truth for all resolved FIB routes */
   @Nonnull private final PrefixTrieMultiMap<FibEntry> _root;
 
+  /**
+   * Frozen copy of {@link #_root} used for lookups. Built on the first lookup, since many FIBs are
+   * never queried.
+   */
+  private transient Supplier<MultibitPrefixTrie<FibEntry>> _lookupTrie;
+
   private transient Supplier<Set<FibEntry>> _entries;
 
   public FibImpl(@Nonnull GenericRib<? extends AbstractRouteDecorator> rib) {
@@ -94,10 +100,11 @@ public final class FibImpl implements Fib {
               Set<FibEntry> s = resolveRoute(rib, r.getAbstractRoute());
               _root.putAll(r.getNetwork(), s);
             });
-    initSuppliers();
+    initTransientFields();
   }
 
-  private void initSuppliers() {
+  private void initTransientFields() {
+    _lookupTrie = Suppliers.memoize(() -> MultibitPrefixTrie.create(_root));
     _entries = Suppliers.memoize(this::computeEntries);
   }
 
@@ -292,7 +299,7 @@ public final class FibImpl implements Fib {
   @Nonnull
   @Override
   public Set<FibEntry> get(Ip ip) {
-    return _root.longestPrefixMatch(ip);
+    return _lookupTrie.get().longestPrefixMatch(ip);
   }
 
   @Nonnull
@@ -358,6 +365,6 @@ public final class FibImpl implements Fib {
   private void readObject(java.io.ObjectInputStream stream)
       throws IOException, ClassNotFoundException {
     stream.defaultReadObject();
-    initSuppliers();
+    initTransientFields();
   }
 }
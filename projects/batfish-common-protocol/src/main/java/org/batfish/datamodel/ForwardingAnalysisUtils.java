@@ -0,0 +1,203 @@
+package org.batfish.datamodel;
+
+import static org.batfish.common.util.CollectionUtil.toImmutableMap;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.util.GlobalTracer;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.batfish.datamodel.collections.NodeInterfacePair;
+
+/**
+ * Helpers shared by {@link ForwardingAnalysisImpl} and {@link BDDForwardingAnalysisImpl}, which
+ * compute the same route and interface facts from the FIBs before representing IP spaces
+ * differently.
+ */
+final class ForwardingAnalysisUtils {
+
+  /**
+   * Compute IP addresses "assigned" to this interface for the purposes for ARP replies. This is a
+   * space of IPs that an interface will send an ARP reply for. Includes IPs that an interface owns
+   * (explicitly assigned or virtual) as well as any defined link-local addresses.
+   */
+  static IpSpace computeIpsAssignedToThisInterfaceForArpReplies(
+      Interface iface, Map<String, Map<String, Set<Ip>>> interfaceOwnedIps) {
+    /*
+     * If a device has no interfaces with concrete IPs, it will not appear in interfaceOwnedIps.
+     * When we get the owned IP space for such interfaces, there could be an NPE, work around that
+     */
+    Set<Ip> concreteIps =
+        interfaceOwnedIps
+            .getOrDefault(iface.getOwner().getHostname(), ImmutableMap.of())
+            .getOrDefault(iface.getName(), ImmutableSet.of());
+    Set<LinkLocalAddress> linkLocalIps = iface.getAllLinkLocalAddresses();
+    if (concreteIps.isEmpty() && linkLocalIps.isEmpty()) {
+      return EmptyIpSpace.INSTANCE;
+    }
+    IpWildcardSetIpSpace.Builder ipsAssignedToThisInterfaceBuilder = IpWildcardSetIpSpace.builder();
+    concreteIps.forEach(ip -> ipsAssignedToThisInterfaceBuilder.including(IpWildcard.create(ip)));
+    linkLocalIps.forEach(
+        addr -> ipsAssignedToThisInterfaceBuilder.including(IpWildcard.create(addr.getIp())));
+    return ipsAssignedToThisInterfaceBuilder.build();
+  }
+
+  /**
+   * Mapping: hostname -&gt; vrfname -&gt; interfacename -&gt; a set of routes where each route has
+   * at least one unset final next hop ip
+   */
+  static Map<String, Map<String, Map<String, Set<AbstractRoute>>>>
+      computeRoutesWhereDstIpCanBeArpIp(
+          Map<String, Map<String, Map<AbstractRoute, Map<String, Map<Ip, Set<AbstractRoute>>>>>>
+              nextHopInterfacesByNodeVrf,
+          Map<String, Map<String, Map<String, Set<AbstractRoute>>>> routesWithNextHop) {
+    Span span = GlobalTracer.get().buildSpan("construct BDDFlowConstraintGenerator").start();
+    try (Scope scope = GlobalTracer.get().scopeManager().activate(span)) {
+      assert scope != null; // avoid unused warning
+      return toImmutableMap(
+          routesWithNextHop,
+          Entry::getKey /* hostname */,
+          nodeEntry -> {
+            String hostname = nodeEntry.getKey();
+            return toImmutableMap(
+                nodeEntry.getValue(),
+                Entry::getKey /* vrf */,
+                vrfEntry -> {
+                  String vrf = vrfEntry.getKey();
+                  Map<AbstractRoute, Map<String, Map<Ip, Set<AbstractRoute>>>> nextHopInterfaces =
+                      nextHopInterfacesByNodeVrf.get(hostname).get(vrf);
+                  return toImmutableMap(
+                      vrfEntry.getValue(),
+                      Entry::getKey /* interface */,
+                      ifaceEntry -> {
+                        String iface = ifaceEntry.getKey();
+                        // return a set of routes where each route has
+                        // some final next hop ip unset
+                        return ifaceEntry
+                            .getValue() // routes with this interface as
+                            // outgoing interfaces
+                            .stream()
+                            .filter(
+                                route ->
+                                    nextHopInterfaces
+                                        .get(route)
+                                        .get(iface) // final next hop ips
+                                        .containsKey(Route.UNSET_ROUTE_NEXT_HOP_IP))
+                            .collect(ImmutableSet.toImmutableSet());
+                      });
+                });
+          });
+    } finally {
+      span.finish();
+    }
+  }
+
+  static Map<String, Map<String, Map<Edge, Set<AbstractRoute>>>> computeRoutesWithDestIpEdge(
+      Topology topology,
+      Map<String, Map<String, Map<String, Set<AbstractRoute>>>> routesWhereDstIpCanBeArpIp) {
+    Span span =
+        GlobalTracer.get().buildSpan("ForwardingAnalysisImpl.computeRoutesWithDestIpEdge").start();
+    try (Scope scope = GlobalTracer.get().scopeManager().activate(span)) {
+      assert scope != null; // avoid unused warning
+
+      return toImmutableMap(
+          routesWhereDstIpCanBeArpIp,
+          Entry::getKey, // node
+          nodeEntry ->
+              toImmutableMap(
+                  nodeEntry.getValue(),
+                  Entry::getKey, // vrf
+                  vrfEntry ->
+                      vrfEntry.getValue().entrySet().stream()
+                          .flatMap(
+                              ifaceEntry -> {
+                                NodeInterfacePair out =
+                                    NodeInterfacePair.of(nodeEntry.getKey(), ifaceEntry.getKey());
+                                Set<AbstractRoute> routes = ifaceEntry.getValue();
+                                return topology.getNeighbors(out).stream()
+                                    .map(
+                                        receiver ->
+                                            Maps.immutableEntry(new Edge(out, receiver), routes));
+                              })
+                          .collect(ImmutableMap.toImmutableMap(Entry::getKey, Entry::getValue))));
+    } finally {
+      span.finish();
+    }
+  }
+
+  /* Mapping: hostname -&gt; vrfname -&gt; interfacename -&gt; set of associated routes (i.e.,
+   * routes that use the interface as outgoing interface */
+  static Map<String, Map<String, Map<String, Set<AbstractRoute>>>> computeRoutesWithNextHop(
+      Map<String, Map<String, Fib>> fibs) {
+    Span span =
+        GlobalTracer.get().buildSpan("ForwardingAnalysisImpl.computeRoutesWithNextHop").start();
+    try (Scope scope = GlobalTracer.get().scopeManager().activate(span)) {
+      assert scope != null; // avoid unused warning
+      return toImmutableMap(
+          fibs,
+          Entry::getKey,
+          nodeEntry ->
+              toImmutableMap(
+                  nodeEntry.getValue(),
+                  Entry::getKey,
+                  vrfEntry ->
+                      vrfEntry.getValue().allEntries().stream()
+                          .filter(fibEntry -> fibEntry.getAction() instanceof FibForward)
+                          .collect(
+                              Collectors.groupingBy(
+                                  fibEntry ->
+                                      ((FibForward) fibEntry.getAction()).getInterfaceName(),
+                                  Collectors.mapping(
+                                      FibEntry::getTopLevelRoute, Collectors.toSet())))));
+    } finally {
+      span.finish();
+    }
+  }
+
+  /**
+   * Mapping: node -&gt; vrf -&gt; route -&gt; nexthopinterface -&gt; resolved nextHopIp -&gt;
+   * interfaceRoutes
+   */
+  static Map<String, Map<String, Map<AbstractRoute, Map<String, Map<Ip, Set<AbstractRoute>>>>>>
+      computeNextHopInterfacesByNodeVrf(Map<String, Map<String, Fib>> fibsByNode) {
+    Span span =
+        GlobalTracer.get()
+            .buildSpan("ForwardingAnalysisImpl.computeNextHopInterfacesByNodeVrf")
+            .start();
+    try (Scope scope = GlobalTracer.get().scopeManager().activate(span)) {
+      assert scope != null; // avoid unused warning
+      return toImmutableMap(
+          fibsByNode,
+          Entry::getKey,
+          fibsByNodeEntry ->
+              toImmutableMap(
+                  fibsByNodeEntry.getValue(),
+                  Entry::getKey,
+                  fibsByVrfEntry -> computeNextHopInterfaces(fibsByVrfEntry.getValue())));
+    } finally {
+      span.finish();
+    }
+  }
+
+  /** Mapping: route -&gt; nexthopinterface -&gt; resolved nextHopIp -&gt; interfaceRoutes */
+  private static Map<AbstractRoute, Map<String, Map<Ip, Set<AbstractRoute>>>>
+      computeNextHopInterfaces(Fib fib) {
+    return fib.allEntries().stream()
+        .filter(fibEntry -> fibEntry.getAction() instanceof FibForward)
+        .collect(
+            Collectors.groupingBy(
+                FibEntry::getTopLevelRoute,
+                Collectors.groupingBy(
+                    fibEntry -> ((FibForward) fibEntry.getAction()).getInterfaceName(),
+                    Collectors.groupingBy(
+                        fibEntry -> ((FibForward) fibEntry.getAction()).getArpIp(),
+                        Collectors.mapping(FibEntry::getResolvedToRoute, Collectors.toSet())))));
+  }
+
+  private ForwardingAnalysisUtils() {}
+}
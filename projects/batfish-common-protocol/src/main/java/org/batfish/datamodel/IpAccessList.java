@@ -15,6 +15,7 @@ import java.util.function.Supplier;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.batfish.datamodel.acl.AclLineEvaluator;
+import org.batfish.datamodel.acl.CompiledIpAccessList;
 
 /** An access-list used to filter IPV4 packets */
 public class IpAccessList implements Serializable {
@@ -79,6 +80,12 @@ public class IpAccessList implements Serializable {
   private static final String PROP_SOURCE_NAME = "sourceName";
   private static final String PROP_SOURCE_TYPE = "sourceType";
 
+  /**
+   * ACLs with at least this many lines are {@link #filter filtered} by their {@link
+   * CompiledIpAccessList compiled form}. Shorter ones are evaluated line by line.
+   */
+  private static final int MIN_LINES_TO_COMPILE = 32;
+
   static boolean bothNullOrSameName(IpAccessList a, IpAccessList b) {
     if (a == null && b == null) {
       return true;
@@ -102,6 +109,13 @@ public class IpAccessList implements Serializable {
   private final String _sourceName;
   private final String _sourceType;
 
+  /**
+   * Compiled by the first {@link #filter} call, and again if called with named IP spaces that
+   * define a referenced name differently. Not serialized, so each deserialized {@link
+   * Configuration} compiles its own.
+   */
+  @Nullable private transient CompiledIpAccessList _compiled;
+
   @JsonCreator
   private static IpAccessList jsonCreator(
       @Nullable @JsonProperty(PROP_NAME) String name,
@@ -144,6 +158,14 @@ public class IpAccessList implements Serializable {
       String srcInterface,
       Map<String, IpAccessList> availableAcls,
       Map<String, IpSpace> namedIpSpaces) {
+    if (_lines.size() >= MIN_LINES_TO_COMPILE) {
+      CompiledIpAccessList compiled = _compiled;
+      if (compiled == null || !compiled.isCompiledWith(namedIpSpaces)) {
+        compiled = CompiledIpAccessList.compile(this, namedIpSpaces);
+        _compiled = compiled;
+      }
+      return compiled.filter(flow, srcInterface, availableAcls, namedIpSpaces);
+    }
     AclLineEvaluator lineEvaluator =
         new AclLineEvaluator(flow, srcInterface, availableAcls, namedIpSpaces);
     for (int i = 0; i < _lines.size(); i++) {
@@ -0,0 +1,141 @@
+package org.batfish.datamodel;
+
+import static org.batfish.common.util.CollectionUtil.toImmutableMap;
+
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.util.GlobalTracer;
+import java.util.Map;
+import java.util.Map.Entry;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import net.sf.javabdd.BDD;
+import org.batfish.common.bdd.BDDPacket;
+import org.batfish.common.bdd.IpSpaceToBDD;
+
+/**
+ * A {@link BDDForwardingAnalysis} converted from the {@link IpSpace IP spaces} of a {@link
+ * ForwardingAnalysis}, e.g. one computed with the data plane.
+ */
+@ParametersAreNonnullByDefault
+final class IpSpaceBDDForwardingAnalysis implements BDDForwardingAnalysis {
+
+  private final @Nonnull BDDPacket _packet;
+  private final @Nonnull Map<String, Map<String, Map<String, BDD>>> _acceptsIps;
+  private final @Nonnull Map<String, Map<String, Map<Edge, BDD>>> _arpTrueEdge;
+  private final @Nonnull Map<String, Map<String, Map<String, BDD>>> _deliveredToSubnet;
+  private final @Nonnull Map<String, Map<String, Map<String, BDD>>> _exitsNetwork;
+  private final @Nonnull Map<String, Map<String, Map<String, BDD>>> _insufficientInfo;
+  private final @Nonnull Map<String, Map<String, Map<String, BDD>>> _neighborUnreachable;
+  private final @Nonnull Map<String, Map<String, Map<String, BDD>>> _nextVrfIps;
+  private final @Nonnull Map<String, Map<String, BDD>> _nullRoutedIps;
+  private final @Nonnull Map<String, Map<String, BDD>> _routableIps;
+
+  IpSpaceBDDForwardingAnalysis(BDDPacket packet, ForwardingAnalysis forwardingAnalysis) {
+    Span span = GlobalTracer.get().buildSpan("Convert ForwardingAnalysis to BDDs").start();
+    try (Scope scope = GlobalTracer.get().scopeManager().activate(span)) {
+      assert scope != null; // avoid unused warning
+      _packet = packet;
+      IpSpaceToBDD toBdd = packet.getDstIpSpaceToBDD();
+      _acceptsIps = toBdds(forwardingAnalysis.getAcceptsIps(), toBdd);
+      _arpTrueEdge = toBdds(forwardingAnalysis.getArpTrueEdge(), toBdd);
+      _deliveredToSubnet = toBdds(forwardingAnalysis.getDeliveredToSubnet(), toBdd);
+      _exitsNetwork = toBdds(forwardingAnalysis.getExitsNetwork(), toBdd);
+      _insufficientInfo = toBdds(forwardingAnalysis.getInsufficientInfo(), toBdd);
+      _neighborUnreachable = toBdds(forwardingAnalysis.getNeighborUnreachable(), toBdd);
+      _nextVrfIps = toBdds(forwardingAnalysis.getNextVrfIps(), toBdd);
+      _nullRoutedIps = toVrfBdds(forwardingAnalysis.getNullRoutedIps(), toBdd);
+      _routableIps = toVrfBdds(forwardingAnalysis.getRoutableIps(), toBdd);
+    } finally {
+      span.finish();
+    }
+  }
+
+  private static <K> Map<String, Map<String, Map<K, BDD>>> toBdds(
+      Map<String, Map<String, Map<K, IpSpace>>> ipSpaces, IpSpaceToBDD toBdd) {
+    return toImmutableMap(
+        ipSpaces,
+        Entry::getKey, // node
+        nodeEntry ->
+            toImmutableMap(
+                nodeEntry.getValue(),
+                Entry::getKey, // vrf
+                vrfEntry ->
+                    toImmutableMap(
+                        vrfEntry.getValue(),
+                        Entry::getKey,
+                        entry -> entry.getValue().accept(toBdd))));
+  }
+
+  private static Map<String, Map<String, BDD>> toVrfBdds(
+      Map<String, Map<String, IpSpace>> ipSpaces, IpSpaceToBDD toBdd) {
+    return toImmutableMap(
+        ipSpaces,
+        Entry::getKey, // node
+        nodeEntry ->
+            toImmutableMap(
+                nodeEntry.getValue(),
+                Entry::getKey, // vrf
+                vrfEntry -> vrfEntry.getValue().accept(toBdd)));
+  }
+
+  @Nonnull
+  @Override
+  public BDDPacket getBDDPacket() {
+    return _packet;
+  }
+
+  @Nonnull
+  @Override
+  public Map<String, Map<String, Map<String, BDD>>> getAcceptsIpBdds() {
+    return _acceptsIps;
+  }
+
+  @Nonnull
+  @Override
+  public Map<String, Map<String, Map<Edge, BDD>>> getArpTrueEdgeBdds() {
+    return _arpTrueEdge;
+  }
+
+  @Nonnull
+  @Override
+  public Map<String, Map<String, Map<String, BDD>>> getDeliveredToSubnetBdds() {
+    return _deliveredToSubnet;
+  }
+
+  @Nonnull
+  @Override
+  public Map<String, Map<String, Map<String, BDD>>> getExitsNetworkBdds() {
+    return _exitsNetwork;
+  }
+
+  @Nonnull
+  @Override
+  public Map<String, Map<String, Map<String, BDD>>> getInsufficientInfoBdds() {
+    return _insufficientInfo;
+  }
+
+  @Nonnull
+  @Override
+  public Map<String, Map<String, Map<String, BDD>>> getNeighborUnreachableBdds() {
+    return _neighborUnreachable;
+  }
+
+  @Nonnull
+  @Override
+  public Map<String, Map<String, Map<String, BDD>>> getNextVrfIpBdds() {
+    return _nextVrfIps;
+  }
+
+  @Nonnull
+  @Override
+  public Map<String, Map<String, BDD>> getNullRoutedIpBdds() {
+    return _nullRoutedIps;
+  }
+
+  @Nonnull
+  @Override
+  public Map<String, Map<String, BDD>> getRoutableIpBdds() {
+    return _routableIps;
+  }
+}
@@ -0,0 +1,314 @@
+package org.batfish.datamodel;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * An immutable, array-backed multibit trie supporting fast longest-prefix-match lookups of IP
+ * addresses.
+ *
+ * <p>The trie consumes {@link #STRIDE} bits of the address per level, so each node logically has
+ * {@link #FANOUT} slots. Each slot may have a child node, and may be covered by a longest prefix
+ * ending at that level (controlled prefix expansion). To keep nodes small, slots are not stored
+ * individually: as in a poptrie, each node has two {@link #FANOUT}-bit bitmaps.
+ *
+ * <ul>
+ *   <li>The child bitmap marks the slots that have a child. A node's children are stored
+ *       contiguously, so the child of a slot is found by counting the set bits before it.
+ *   <li>The result bitmap marks the slots where the covering prefix differs from that of the
+ *       previous slot. Only those runs of results are stored, so the result of a slot is found by
+ *       counting the set bits up to it.
+ * </ul>
+ *
+ * <p>A node with few children and few distinct covering prefixes therefore takes a few dozen bytes
+ * rather than two {@link #FANOUT}-element arrays. A lookup is still a single descent of at most
+ * {@link #LEVELS} levels, with no allocation.
+ *
+ * <p>Instances are built from a {@link PrefixTrieMultiMap} and cannot be modified.
+ */
+@ParametersAreNonnullByDefault
+final class MultibitPrefixTrie<T> {
+
+  /** Number of address bits consumed per level. */
+  static final int STRIDE = 8;
+
+  private static final int FANOUT = 1 << STRIDE;
+  private static final int LEVELS = Prefix.MAX_PREFIX_LENGTH / STRIDE;
+  private static final int WORDS_PER_BITMAP = FANOUT / Long.SIZE;
+  private static final int INITIAL_CAPACITY = 16;
+
+  /**
+   * Creates a trie answering the same longest-prefix-match queries as {@link
+   * PrefixTrieMultiMap#longestPrefixMatch(Ip)} on {@code map}.
+   */
+  static @Nonnull <T> MultibitPrefixTrie<T> create(PrefixTrieMultiMap<T> map) {
+    List<Entry<Prefix, Set<T>>> entries = new ArrayList<>();
+    map.traverseEntries(
+        (prefix, elements) -> {
+          if (!elements.isEmpty()) {
+            entries.add(Maps.immutableEntry(prefix, elements));
+          }
+        });
+    // Longer prefixes must be expanded after shorter ones, so that they overwrite them.
+    entries.sort(Comparator.comparing(e -> e.getKey().getPrefixLength()));
+    return new Builder<>(entries).build();
+  }
+
+  /** Index into {@link #_values} plus one, or 0 if no prefix matches at the root. */
+  private final int _defaultResult;
+
+  /** The child bitmap of each node, {@link #WORDS_PER_BITMAP} words per node. */
+  private final long[] _childBitmaps;
+
+  /** The index of the first child of each node. The root is node 0. */
+  private final int[] _childBases;
+
+  /** The result bitmap of each node, {@link #WORDS_PER_BITMAP} words per node. */
+  private final long[] _resultBitmaps;
+
+  /** The index into {@link #_results} of the first result run of each node. */
+  private final int[] _resultBases;
+
+  /** The index into {@link #_values} plus one of each result run, or 0 if none. */
+  private final int[] _results;
+
+  private final List<Set<T>> _values;
+
+  private MultibitPrefixTrie(
+      int defaultResult,
+      long[] childBitmaps,
+      int[] childBases,
+      long[] resultBitmaps,
+      int[] resultBases,
+      int[] results,
+      List<Set<T>> values) {
+    _defaultResult = defaultResult;
+    _childBitmaps = childBitmaps;
+    _childBases = childBases;
+    _resultBitmaps = resultBitmaps;
+    _resultBases = resultBases;
+    _results = results;
+    _values = values;
+  }
+
+  /** Returns the elements associated with the longest prefix matching {@code ip}. */
+  @Nonnull
+  Set<T> longestPrefixMatch(Ip ip) {
+    return longestPrefixMatch(ip.asLong());
+  }
+
+  /**
+   * Returns the elements associated with the longest prefix matching the IP address {@code ip},
+   * given as a long.
+   */
+  @Nonnull
+  Set<T> longestPrefixMatch(long ip) {
+    int best = _defaultResult;
+    int node = 0;
+    for (int level = 0; level < LEVELS; level++) {
+      int slot = chunk(ip, level);
+      // the run containing slot is the last one starting at or before it
+      int result = _results[_resultBases[node] + rank(_resultBitmaps, node, slot + 1) - 1];
+      if (result != 0) {
+        best = result;
+      }
+      if (!isSet(_childBitmaps, node, slot)) {
+        break;
+      }
+      node = _childBases[node] + rank(_childBitmaps, node, slot);
+    }
+    return best == 0 ? ImmutableSet.of() : _values.get(best - 1);
+  }
+
+  /** Returns the number of nodes in the trie. */
+  int getNumNodes() {
+    return _childBases.length;
+  }
+
+  /**
+   * Returns the number of bytes taken by the arrays of the trie, excluding the elements. Useful for
+   * estimating memory usage.
+   */
+  long getArrayBytes() {
+    return Long.BYTES * ((long) _childBitmaps.length + _resultBitmaps.length)
+        + Integer.BYTES * ((long) _childBases.length + _resultBases.length + _results.length);
+  }
+
+  private static int chunk(long ip, int level) {
+    return (int) (ip >>> (Prefix.MAX_PREFIX_LENGTH - STRIDE * (level + 1))) & (FANOUT - 1);
+  }
+
+  private static boolean isSet(long[] bitmaps, int node, int slot) {
+    return (bitmaps[node * WORDS_PER_BITMAP + slot / Long.SIZE] & (1L << slot)) != 0;
+  }
+
+  /** Returns the number of bits set in the given node's bitmap before {@code slot}. */
+  private static int rank(long[] bitmaps, int node, int slot) {
+    int first = node * WORDS_PER_BITMAP;
+    int word = slot / Long.SIZE;
+    int count = 0;
+    for (int i = 0; i < word; i++) {
+      count += Long.bitCount(bitmaps[first + i]);
+    }
+    // slot may be FANOUT, in which case this reads no bits of the next node
+    return word == WORDS_PER_BITMAP
+        ? count
+        : count + Long.bitCount(bitmaps[first + word] & ((1L << slot) - 1));
+  }
+
+  /**
+   * Builds a trie from prefixes sorted by nondecreasing length. Nodes are built depth-first, one at
+   * a time, so only one uncompressed node per level is needed at any time.
+   */
+  private static final class Builder<T> {
+    private final List<Entry<Prefix, Set<T>>> _entries;
+    private final ImmutableList.Builder<Set<T>> _values;
+    private final int[][] _scratch;
+
+    private long[] _childBitmaps;
+    private int[] _childBases;
+    private long[] _resultBitmaps;
+    private int[] _resultBases;
+    private int[] _results;
+    private int _numNodes;
+    private int _numResults;
+
+    private Builder(List<Entry<Prefix, Set<T>>> entries) {
+      _entries = entries;
+      _values = ImmutableList.builderWithExpectedSize(entries.size());
+      _scratch = new int[LEVELS][FANOUT];
+      _childBitmaps = new long[INITIAL_CAPACITY * WORDS_PER_BITMAP];
+      _childBases = new int[INITIAL_CAPACITY];
+      _resultBitmaps = new long[INITIAL_CAPACITY * WORDS_PER_BITMAP];
+      _resultBases = new int[INITIAL_CAPACITY];
+      _results = new int[INITIAL_CAPACITY];
+    }
+
+    private MultibitPrefixTrie<T> build() {
+      int defaultResult = 0;
+      // indices (into _entries and _values) of the prefixes below the root
+      int[] indices = new int[_entries.size()];
+      int count = 0;
+      for (int i = 0; i < _entries.size(); i++) {
+        Entry<Prefix, Set<T>> entry = _entries.get(i);
+        _values.add(ImmutableSet.copyOf(entry.getValue()));
+        if (entry.getKey().getPrefixLength() == 0) {
+          defaultResult = i + 1;
+        } else {
+          indices[count++] = i;
+        }
+      }
+      allocateNodes(1);
+      buildNode(0, 0, indices, 0, count);
+      return new MultibitPrefixTrie<>(
+          defaultResult,
+          Arrays.copyOf(_childBitmaps, _numNodes * WORDS_PER_BITMAP),
+          Arrays.copyOf(_childBases, _numNodes),
+          Arrays.copyOf(_resultBitmaps, _numNodes * WORDS_PER_BITMAP),
+          Arrays.copyOf(_resultBases, _numNodes),
+          Arrays.copyOf(_results, _numResults),
+          _values.build());
+    }
+
+    /**
+     * Fills in {@code node} at {@code level} from the prefixes {@code indices[from, to)}, which all
+     * lie within the node and are longer than the prefixes of its parent level. Sorts that range by
+     * slot, preserving the order of prefix lengths within a slot.
+     */
+    private void buildNode(int node, int level, int[] indices, int from, int to) {
+      int maxLength = STRIDE * (level + 1);
+
+      // expand the prefixes ending at this level, shorter ones first, into the node's slots
+      int[] slots = _scratch[level];
+      Arrays.fill(slots, 0);
+      for (int i = from; i < to; i++) {
+        Prefix prefix = _entries.get(indices[i]).getKey();
+        if (prefix.getPrefixLength() <= maxLength) {
+          int first = chunk(prefix.getStartIp().asLong(), level);
+          Arrays.fill(
+              slots, first, first + (1 << (maxLength - prefix.getPrefixLength())), indices[i] + 1);
+        }
+      }
+
+      // store the runs of equal results
+      int bitmap = node * WORDS_PER_BITMAP;
+      _resultBases[node] = _numResults;
+      for (int slot = 0; slot < FANOUT; slot++) {
+        if (slot == 0 || slots[slot] != slots[slot - 1]) {
+          _resultBitmaps[bitmap + slot / Long.SIZE] |= 1L << slot;
+          addResult(slots[slot]);
+        }
+      }
+
+      // group the longer prefixes by slot: a stable counting sort of indices[from, childrenFrom)
+      int childrenFrom = from;
+      for (int i = from; i < to; i++) {
+        if (_entries.get(indices[i]).getKey().getPrefixLength() > maxLength) {
+          indices[childrenFrom++] = indices[i];
+        }
+      }
+      int[] counts = new int[FANOUT + 1];
+      for (int i = from; i < childrenFrom; i++) {
+        counts[slotOf(indices[i], level) + 1]++;
+      }
+      for (int slot = 0; slot < FANOUT; slot++) {
+        counts[slot + 1] += counts[slot];
+      }
+      int[] sortedIndices = new int[childrenFrom - from];
+      int[] next = Arrays.copyOf(counts, FANOUT);
+      for (int i = from; i < childrenFrom; i++) {
+        sortedIndices[next[slotOf(indices[i], level)]++] = indices[i];
+      }
+      System.arraycopy(sortedIndices, 0, indices, from, sortedIndices.length);
+
+      // allocate the children contiguously, then build each of them
+      int numChildren = 0;
+      for (int slot = 0; slot < FANOUT; slot++) {
+        if (counts[slot + 1] > counts[slot]) {
+          _childBitmaps[bitmap + slot / Long.SIZE] |= 1L << slot;
+          numChildren++;
+        }
+      }
+      int firstChild = _numNodes;
+      _childBases[node] = firstChild;
+      allocateNodes(numChildren);
+      int child = firstChild;
+      for (int slot = 0; slot < FANOUT; slot++) {
+        if (counts[slot + 1] > counts[slot]) {
+          buildNode(child++, level + 1, indices, from + counts[slot], from + counts[slot + 1]);
+        }
+      }
+    }
+
+    private int slotOf(int index, int level) {
+      return chunk(_entries.get(index).getKey().getStartIp().asLong(), level);
+    }
+
+    private void allocateNodes(int numNodes) {
+      _numNodes += numNodes;
+      if (_numNodes > _childBases.length) {
+        int capacity = Math.max(_numNodes, _childBases.length * 2);
+        _childBitmaps = Arrays.copyOf(_childBitmaps, capacity * WORDS_PER_BITMAP);
+        _childBases = Arrays.copyOf(_childBases, capacity);
+        _resultBitmaps = Arrays.copyOf(_resultBitmaps, capacity * WORDS_PER_BITMAP);
+        _resultBases = Arrays.copyOf(_resultBases, capacity);
+      }
+    }
+
+    private void addResult(int result) {
+      if (_numResults == _results.length) {
+        _results = Arrays.copyOf(_results, _results.length * 2);
+      }
+      _results[_numResults++] = result;
+    }
+  }
+}
@@ -15,6 +15,7 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
@@ -217,6 +218,28 @@ public final class PrefixTrieMultiMap<T> implements Serializable {
       return longestNonEmpty;
     }
 
+    /**
+     * Returns the node with the longest prefix match for a given prefix that has at least one
+     * element satisfying the predicate.
+     */
+    @Nullable
+    Node<T> findLongestPrefixMatchNode(Prefix prefix, Predicate<? super T> predicate) {
+      assert _prefix.containsPrefix(prefix);
+
+      Node<T> longestMatching = null;
+      Node<T> node = this;
+      while (node != null) {
+        if (node._elements.stream().anyMatch(predicate)) {
+          longestMatching = node;
+        }
+
+        // Choose which child might have a longer match
+        node = node.matchingChild(prefix);
+      }
+
+      return longestMatching;
+    }
+
     @Nullable
     Node<T> matchingChild(Prefix prefix) {
       if (_prefix.getPrefixLength() == Prefix.MAX_PREFIX_LENGTH) {
@@ -353,6 +376,45 @@ public final class PrefixTrieMultiMap<T> implements Serializable {
     return node == null ? ImmutableSet.of() : ImmutableSet.copyOf(node._elements);
   }
 
+  /**
+   * Find the elements satisfying {@code predicate} associated with the longest matching prefix of a
+   * given IP address (up to the given maximum length) that has at least one such element. Unlike
+   * retrying {@link #longestPrefixMatch(Ip, int)} with shorter lengths, this descends the trie only
+   * once.
+   */
+  @Nonnull
+  public Set<T> longestPrefixMatch(
+      Ip address, int maxPrefixLength, Predicate<? super T> predicate) {
+    Prefix prefix = Prefix.create(address, maxPrefixLength);
+    Node<T> node =
+        _root == null || !_root._prefix.containsPrefix(prefix)
+            ? null
+            : _root.findLongestPrefixMatchNode(prefix, predicate);
+    if (node == null) {
+      return ImmutableSet.of();
+    }
+    return node._elements.stream().allMatch(predicate)
+        ? ImmutableSet.copyOf(node._elements)
+        : node._elements.stream().filter(predicate).collect(ImmutableSet.toImmutableSet());
+  }
+
+  /**
+   * Applies {@code consumer} to each non-empty entry whose prefix contains {@code address} and is
+   * at least {@code minPrefixLength} long, from the shortest prefix to the longest. This descends
+   * the trie only once. The consumer may not mutate the entries (the values are immutable sets).
+   */
+  public void traverseMatchingEntries(
+      Ip address, int minPrefixLength, BiConsumer<Prefix, Set<T>> consumer) {
+    Prefix prefix = Prefix.create(address, Prefix.MAX_PREFIX_LENGTH);
+    Node<T> node = _root == null || !_root._prefix.containsPrefix(prefix) ? null : _root;
+    while (node != null) {
+      if (node._prefix.getPrefixLength() >= minPrefixLength && !node._elements.isEmpty()) {
+        consumer.accept(node._prefix, node._elements);
+      }
+      node = node.matchingChild(prefix);
+    }
+  }
+
   /**
    * Stores a key-value pair in the multimap.
    *
@@ -4,12 +4,9 @@ import static java.util.Objects.requireNonNull;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.google.common.base.Supplier;
-import com.google.common.base.Suppliers;
-import java.io.Serializable;
 import java.util.Set;
-import java.util.regex.Pattern;
 import javax.annotation.Nonnull;
+import org.batfish.datamodel.bgp.BgpRegexMatcher;
 import org.batfish.datamodel.bgp.community.Community;
 import org.batfish.datamodel.routing_policy.Environment;
 import org.batfish.datamodel.routing_policy.expr.CommunitySetExpr;
@@ -23,14 +20,6 @@ import org.batfish.datamodel.visitors.VoidCommunitySetExprVisitor;
  */
 public final class RegexCommunitySet extends CommunitySetExpr {
 
-  private final class PatternSupplier implements Supplier<Pattern>, Serializable {
-
-    @Override
-    public Pattern get() {
-      return Pattern.compile(_regex);
-    }
-  }
-
   private static final String PROP_REGEX = "regex";
 
   @JsonCreator
@@ -38,13 +27,10 @@ public final class RegexCommunitySet extends CommunitySetExpr {
     return new RegexCommunitySet(requireNonNull(regex));
   }
 
-  private final Supplier<Pattern> _pattern;
-
   private final String _regex;
 
   public RegexCommunitySet(@Nonnull String regex) {
     _regex = regex;
-    _pattern = Suppliers.memoize(new PatternSupplier());
   }
 
   @Override
@@ -98,7 +84,7 @@ public final class RegexCommunitySet extends CommunitySetExpr {
 
   @Override
   public boolean matchCommunity(Environment environment, Community community) {
-    return _pattern.get().matcher(community.matchString()).find();
+    return BgpRegexMatcher.matches(_regex, community.matchString());
   }
 
   @Override
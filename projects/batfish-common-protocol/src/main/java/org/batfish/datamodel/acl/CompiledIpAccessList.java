@@ -0,0 +1,726 @@
+package org.batfish.datamodel.acl;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableRangeSet;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeSet;
+import com.google.common.collect.TreeRangeSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedSet;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.AclAclLine;
+import org.batfish.datamodel.AclIpSpace;
+import org.batfish.datamodel.AclIpSpaceLine;
+import org.batfish.datamodel.AclLine;
+import org.batfish.datamodel.EmptyIpSpace;
+import org.batfish.datamodel.ExprAclLine;
+import org.batfish.datamodel.FilterResult;
+import org.batfish.datamodel.Flow;
+import org.batfish.datamodel.HeaderSpace;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpAccessList;
+import org.batfish.datamodel.IpIpSpace;
+import org.batfish.datamodel.IpProtocol;
+import org.batfish.datamodel.IpSpace;
+import org.batfish.datamodel.IpSpaceReference;
+import org.batfish.datamodel.IpWildcard;
+import org.batfish.datamodel.IpWildcardIpSpace;
+import org.batfish.datamodel.IpWildcardSetIpSpace;
+import org.batfish.datamodel.LineAction;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.PrefixIpSpace;
+import org.batfish.datamodel.SubRange;
+import org.batfish.datamodel.UniverseIpSpace;
+import org.batfish.datamodel.visitors.GenericIpSpaceVisitor;
+
+/**
+ * A compiled form of an {@link IpAccessList} that evaluates it on concrete {@link Flow flows}
+ * without visiting every line.
+ *
+ * <p>Each line is summarized by the destination IPs, source IPs, IP protocols, destination ports
+ * and source ports of the flows it may match. The summaries are arranged in a decision tree that
+ * recursively cuts the space of those five fields, so that {@link #filter} only considers, in line
+ * order, the few lines whose summaries may contain the flow. A line whose match condition is
+ * exactly its summary matches without being evaluated. Other lines, such as those that match source
+ * interfaces or reference other ACLs, are evaluated by {@link AclLineEvaluator} when their summary
+ * contains the flow.
+ *
+ * <p>Named IP spaces are resolved at compile time, so a compiled ACL only evaluates flows against
+ * maps of named IP spaces that define the names it resolved the same way (see {@link
+ * #isCompiledWith(Map)}).
+ */
+@ParametersAreNonnullByDefault
+public final class CompiledIpAccessList {
+
+  /**
+   * Compiles {@code acl}, resolving references to {@code namedIpSpaces}. The result records the
+   * definitions it resolved, so it can be checked against later maps with {@link
+   * #isCompiledWith(Map)}.
+   */
+  public static @Nonnull CompiledIpAccessList compile(
+      IpAccessList acl, Map<String, IpSpace> namedIpSpaces) {
+    IpSpaceToRanges toRanges = new IpSpaceToRanges(namedIpSpaces);
+    List<AclLine> lines = acl.getLines();
+    ImmutableList.Builder<LineSummary> summaries = ImmutableList.builder();
+    for (int i = 0; i < lines.size(); i++) {
+      LineSummary summary = summarize(i, lines.get(i), toRanges);
+      if (summary != null) {
+        summaries.add(summary);
+      }
+    }
+    LineSummary[] reachable = summaries.build().toArray(new LineSummary[0]);
+    long[] lo = new long[NUM_FIELDS];
+    long[] hi = new long[NUM_FIELDS];
+    for (int f = 0; f < NUM_FIELDS; f++) {
+      lo[f] = DOMAINS[f].lowerEndpoint();
+      hi[f] = DOMAINS[f].upperEndpoint();
+    }
+    int[] budget = {MAX_REPLICATION * reachable.length};
+    return new CompiledIpAccessList(
+        lines,
+        toRanges._resolved.isEmpty() ? ImmutableMap.of() : new HashMap<>(toRanges._resolved),
+        build(reachable, lo, hi, 0, budget));
+  }
+
+  private final @Nonnull List<AclLine> _lines;
+
+  /**
+   * The definition of each name resolved at compile time, including {@code null} for undefined
+   * names.
+   */
+  private final @Nonnull Map<String, IpSpace> _resolvedIpSpaces;
+
+  private final @Nonnull Node _root;
+
+  private CompiledIpAccessList(
+      List<AclLine> lines, Map<String, IpSpace> resolvedIpSpaces, Node root) {
+    _lines = lines;
+    _resolvedIpSpaces = resolvedIpSpaces;
+    _root = root;
+  }
+
+  /**
+   * Returns whether this compiled ACL evaluates flows against {@code namedIpSpaces}, i.e. whether
+   * {@code namedIpSpaces} defines every name resolved at compile time as an equal IP space. This
+   * holds for any map if the ACL does not reference named IP spaces.
+   */
+  public boolean isCompiledWith(Map<String, IpSpace> namedIpSpaces) {
+    for (Entry<String, IpSpace> resolved : _resolvedIpSpaces.entrySet()) {
+      if (!Objects.equals(namedIpSpaces.get(resolved.getKey()), resolved.getValue())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Equivalent to {@link IpAccessList#filter(Flow, String, Map, Map)} on the compiled ACL. */
+  public @Nonnull FilterResult filter(
+      Flow flow,
+      @Nullable String srcInterface,
+      Map<String, IpAccessList> availableAcls,
+      Map<String, IpSpace> namedIpSpaces) {
+    long[] key = {
+      flow.getDstIp().asLong(),
+      flow.getSrcIp().asLong(),
+      flow.getIpProtocol().number(),
+      portKey(flow.getDstPort()),
+      portKey(flow.getSrcPort())
+    };
+    Node node = _root;
+    while (node instanceof Split) {
+      Split split = (Split) node;
+      node = key[split._field] <= split._cut ? split._low : split._high;
+    }
+    AclLineEvaluator evaluator = null;
+    for (LineSummary line : ((Leaf) node)._lines) {
+      if (!line.contains(key)) {
+        continue;
+      }
+      LineAction action = line._exactAction;
+      if (action == null) {
+        if (evaluator == null) {
+          evaluator = new AclLineEvaluator(flow, srcInterface, availableAcls, namedIpSpaces);
+        }
+        action = evaluator.visit(_lines.get(line._index));
+      }
+      if (action != null) {
+        return new FilterResult(line._index, action);
+      }
+    }
+    return new FilterResult(null, LineAction.DENY);
+  }
+
+  /** The number of line summaries in the leaves of the decision tree. */
+  @VisibleForTesting
+  int getNumLeafEntries() {
+    return countLeafEntries(_root);
+  }
+
+  private static int countLeafEntries(Node node) {
+    if (node instanceof Split) {
+      return countLeafEntries(((Split) node)._low) + countLeafEntries(((Split) node)._high);
+    }
+    return ((Leaf) node)._lines.length;
+  }
+
+  /////////////////////////////////////////////////////////////////////////////////////////////////
+  // Fields
+
+  private static final int DST_IP = 0;
+  private static final int SRC_IP = 1;
+  private static final int IP_PROTOCOL = 2;
+  private static final int DST_PORT = 3;
+  private static final int SRC_PORT = 4;
+  private static final int NUM_FIELDS = 5;
+
+  /** The key of a flow without the port, i.e. neither TCP nor UDP. */
+  private static final long NO_PORT = -1;
+
+  private static final Range<Long> ALL_IPS = Range.closed(0L, Ip.MAX.asLong());
+
+  private static final Range<Long>[] DOMAINS = domains();
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static Range<Long>[] domains() {
+    Range<Long>[] domains = new Range[NUM_FIELDS];
+    domains[DST_IP] = ALL_IPS;
+    domains[SRC_IP] = ALL_IPS;
+    domains[IP_PROTOCOL] = Range.closed(0L, 255L);
+    domains[DST_PORT] = Range.closed(NO_PORT, 65535L);
+    domains[SRC_PORT] = Range.closed(NO_PORT, 65535L);
+    return domains;
+  }
+
+  private static long portKey(@Nullable Integer port) {
+    return port == null ? NO_PORT : port;
+  }
+
+  /////////////////////////////////////////////////////////////////////////////////////////////////
+  // Line summaries
+
+  private static final class LineSummary {
+    private final int _index;
+
+    /**
+     * For each field, sorted disjoint closed intervals of the values the line may match, as
+     * consecutive lower and upper bounds; or {@code null} if the line may match any value.
+     */
+    private final @Nonnull long[][] _ranges;
+
+    /** The action of the line if it matches exactly the flows in its summary, else null. */
+    private final @Nullable LineAction _exactAction;
+
+    private LineSummary(int index, long[][] ranges, @Nullable LineAction exactAction) {
+      _index = index;
+      _ranges = ranges;
+      _exactAction = exactAction;
+    }
+
+    private boolean contains(long[] key) {
+      for (int f = 0; f < NUM_FIELDS; f++) {
+        long[] ranges = _ranges[f];
+        if (ranges != null && !rangesIntersect(ranges, key[f], key[f])) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean intersects(int field, long lo, long hi) {
+      long[] ranges = _ranges[field];
+      return ranges == null || rangesIntersect(ranges, lo, hi);
+    }
+
+    /** Whether the line matches every flow in the given region. */
+    private boolean covers(long[] lo, long[] hi) {
+      if (_exactAction == null) {
+        return false;
+      }
+      for (int f = 0; f < NUM_FIELDS; f++) {
+        long[] ranges = _ranges[f];
+        if (ranges == null) {
+          continue;
+        }
+        int i = firstEndingAtOrAfter(ranges, lo[f]);
+        if (i == ranges.length || ranges[i] > lo[f] || ranges[i + 1] < hi[f]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Returns the index of the lower bound of the first interval ending at or after {@code value}.
+   */
+  private static int firstEndingAtOrAfter(long[] ranges, long value) {
+    int low = 0;
+    int high = ranges.length / 2;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (ranges[2 * mid + 1] < value) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return 2 * low;
+  }
+
+  private static boolean rangesIntersect(long[] ranges, long lo, long hi) {
+    int i = firstEndingAtOrAfter(ranges, lo);
+    return i < ranges.length && ranges[i] <= hi;
+  }
+
+  /**
+   * An over-approximation of the flows matched by a match condition, as one set of values per
+   * field, and whether it is exact.
+   */
+  private static final class Constraint {
+    private final @Nonnull List<RangeSet<Long>> _fields;
+    private final boolean _exact;
+
+    private Constraint(List<RangeSet<Long>> fields, boolean exact) {
+      _fields = fields;
+      _exact = exact;
+    }
+  }
+
+  private static final Constraint ANY_EXACT = any(true);
+  private static final Constraint ANY_INEXACT = any(false);
+
+  private static @Nonnull Constraint any(boolean exact) {
+    ImmutableList.Builder<RangeSet<Long>> fields = ImmutableList.builder();
+    for (Range<Long> domain : DOMAINS) {
+      fields.add(ImmutableRangeSet.of(domain));
+    }
+    return new Constraint(fields.build(), exact);
+  }
+
+  /** Returns the summary of {@code line}, or {@code null} if the line can never match. */
+  private static @Nullable LineSummary summarize(
+      int index, AclLine line, IpSpaceToRanges toRanges) {
+    LineAction exactAction = null;
+    Constraint constraint;
+    if (line instanceof ExprAclLine) {
+      ExprAclLine exprLine = (ExprAclLine) line;
+      constraint = constrain(exprLine.getMatchCondition(), toRanges);
+      if (constraint._exact) {
+        exactAction = exprLine.getAction();
+      }
+    } else {
+      assert line instanceof AclAclLine;
+      constraint = ANY_INEXACT;
+    }
+    long[][] ranges = new long[NUM_FIELDS][];
+    for (int f = 0; f < NUM_FIELDS; f++) {
+      RangeSet<Long> values = constraint._fields.get(f);
+      if (values.isEmpty()) {
+        return null;
+      }
+      if (!values.encloses(DOMAINS[f])) {
+        ranges[f] = toIntervals(values);
+      }
+    }
+    return new LineSummary(index, ranges, exactAction);
+  }
+
+  /** Converts a set of values to sorted disjoint closed intervals, merging adjacent intervals. */
+  private static @Nonnull long[] toIntervals(RangeSet<Long> values) {
+    long[] intervals = new long[2 * values.asRanges().size()];
+    int size = 0;
+    for (Range<Long> range : values.asRanges()) {
+      Range<Long> canonical = range.canonical(DiscreteDomain.longs());
+      long lo = canonical.lowerEndpoint();
+      long hi = canonical.upperEndpoint() - 1;
+      if (size > 0 && intervals[size - 1] + 1 == lo) {
+        intervals[size - 1] = hi;
+      } else {
+        intervals[size++] = lo;
+        intervals[size++] = hi;
+      }
+    }
+    return Arrays.copyOf(intervals, size);
+  }
+
+  private static @Nonnull Constraint constrain(AclLineMatchExpr expr, IpSpaceToRanges toRanges) {
+    if (expr instanceof TrueExpr) {
+      return ANY_EXACT;
+    } else if (expr instanceof FalseExpr) {
+      return new Constraint(
+          ImmutableList.of(
+              ImmutableRangeSet.of(),
+              ImmutableRangeSet.of(),
+              ImmutableRangeSet.of(),
+              ImmutableRangeSet.of(),
+              ImmutableRangeSet.of()),
+          true);
+    } else if (expr instanceof MatchHeaderSpace) {
+      return constrain(((MatchHeaderSpace) expr).getHeaderspace(), toRanges);
+    } else if (expr instanceof AndMatchExpr) {
+      Constraint result = ANY_EXACT;
+      for (AclLineMatchExpr conjunct : ((AndMatchExpr) expr).getConjuncts()) {
+        Constraint constraint = constrain(conjunct, toRanges);
+        ImmutableList.Builder<RangeSet<Long>> fields = ImmutableList.builder();
+        for (int f = 0; f < NUM_FIELDS; f++) {
+          TreeRangeSet<Long> intersection = TreeRangeSet.create(result._fields.get(f));
+          intersection.removeAll(constraint._fields.get(f).complement());
+          fields.add(intersection);
+        }
+        result = new Constraint(fields.build(), result._exact && constraint._exact);
+      }
+      return result;
+    } else if (expr instanceof OrMatchExpr) {
+      List<AclLineMatchExpr> disjuncts = ((OrMatchExpr) expr).getDisjuncts();
+      if (disjuncts.size() == 1) {
+        return constrain(disjuncts.get(0), toRanges);
+      }
+      // The union of the disjuncts' fields over-approximates the union of the disjuncts
+      List<TreeRangeSet<Long>> unions = new ArrayList<>(NUM_FIELDS);
+      for (int f = 0; f < NUM_FIELDS; f++) {
+        unions.add(TreeRangeSet.create());
+      }
+      for (AclLineMatchExpr disjunct : disjuncts) {
+        Constraint constraint = constrain(disjunct, toRanges);
+        for (int f = 0; f < NUM_FIELDS; f++) {
+          unions.get(f).addAll(constraint._fields.get(f));
+        }
+      }
+      return new Constraint(ImmutableList.copyOf(unions), false);
+    }
+    // source interfaces, other ACLs, negation
+    return ANY_INEXACT;
+  }
+
+  private static @Nonnull Constraint constrain(HeaderSpace headerSpace, IpSpaceToRanges toRanges) {
+    HeaderSpace summarized =
+        HeaderSpace.builder()
+            .setDstIps(headerSpace.getDstIps())
+            .setSrcIps(headerSpace.getSrcIps())
+            .setIpProtocols(headerSpace.getIpProtocols())
+            .setDstPorts(headerSpace.getDstPorts())
+            .setSrcPorts(headerSpace.getSrcPorts())
+            .build();
+    boolean exact = summarized.equals(headerSpace);
+    RangeSet<Long> dstIps = ImmutableRangeSet.of(ALL_IPS);
+    if (headerSpace.getDstIps() != null) {
+      dstIps = toRanges.visit(headerSpace.getDstIps());
+      if (dstIps == null) {
+        dstIps = ImmutableRangeSet.of(ALL_IPS);
+        exact = false;
+      }
+    }
+    RangeSet<Long> srcIps = ImmutableRangeSet.of(ALL_IPS);
+    if (headerSpace.getSrcIps() != null) {
+      srcIps = toRanges.visit(headerSpace.getSrcIps());
+      if (srcIps == null) {
+        srcIps = ImmutableRangeSet.of(ALL_IPS);
+        exact = false;
+      }
+    }
+    return new Constraint(
+        ImmutableList.of(
+            dstIps,
+            srcIps,
+            protocols(headerSpace.getIpProtocols()),
+            ports(headerSpace.getDstPorts()),
+            ports(headerSpace.getSrcPorts())),
+        exact);
+  }
+
+  private static @Nonnull RangeSet<Long> protocols(SortedSet<IpProtocol> ipProtocols) {
+    if (ipProtocols.isEmpty()) {
+      return ImmutableRangeSet.of(DOMAINS[IP_PROTOCOL]);
+    }
+    TreeRangeSet<Long> values = TreeRangeSet.create();
+    for (IpProtocol ipProtocol : ipProtocols) {
+      values.add(Range.singleton((long) ipProtocol.number()));
+    }
+    return values;
+  }
+
+  private static @Nonnull RangeSet<Long> ports(SortedSet<SubRange> ports) {
+    if (ports.isEmpty()) {
+      return ImmutableRangeSet.of(DOMAINS[DST_PORT]);
+    }
+    TreeRangeSet<Long> values = TreeRangeSet.create();
+    for (SubRange port : ports) {
+      if (port.getStart() <= port.getEnd()) {
+        values.add(Range.closed((long) port.getStart(), (long) port.getEnd()));
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Converts an {@link IpSpace} to the set of IPs it contains, or {@code null} if it contains IP
+   * wildcards that are not prefixes or has circular references.
+   */
+  private static final class IpSpaceToRanges implements GenericIpSpaceVisitor<RangeSet<Long>> {
+    private final @Nonnull Map<String, IpSpace> _namedIpSpaces;
+    private final @Nonnull Set<String> _visiting;
+    /** The definition of each resolved name, {@code null} if undefined. */
+    private final @Nonnull Map<String, IpSpace> _resolved;
+
+    private IpSpaceToRanges(Map<String, IpSpace> namedIpSpaces) {
+      _namedIpSpaces = namedIpSpaces;
+      _visiting = new HashSet<>();
+      _resolved = new HashMap<>();
+    }
+
+    @Override
+    public RangeSet<Long> castToGenericIpSpaceVisitorReturnType(Object o) {
+      @SuppressWarnings("unchecked")
+      RangeSet<Long> ranges = (RangeSet<Long>) o;
+      return ranges;
+    }
+
+    @Override
+    public @Nullable RangeSet<Long> visitAclIpSpace(AclIpSpace aclIpSpace) {
+      TreeRangeSet<Long> permitted = TreeRangeSet.create();
+      TreeRangeSet<Long> remaining = TreeRangeSet.create(ImmutableRangeSet.of(ALL_IPS));
+      for (AclIpSpaceLine line : aclIpSpace.getLines()) {
+        RangeSet<Long> space = line.getIpSpace().accept(this);
+        if (space == null) {
+          return null;
+        }
+        if (line.getAction() == LineAction.PERMIT) {
+          TreeRangeSet<Long> matched = TreeRangeSet.create(remaining);
+          matched.removeAll(space.complement());
+          permitted.addAll(matched);
+        }
+        remaining.removeAll(space);
+      }
+      return permitted;
+    }
+
+    @Override
+    public RangeSet<Long> visitEmptyIpSpace(EmptyIpSpace emptyIpSpace) {
+      return ImmutableRangeSet.of();
+    }
+
+    @Override
+    public RangeSet<Long> visitIpIpSpace(IpIpSpace ipIpSpace) {
+      return ImmutableRangeSet.of(Range.singleton(ipIpSpace.getIp().asLong()));
+    }
+
+    @Override
+    public @Nullable RangeSet<Long> visitIpSpaceReference(IpSpaceReference ipSpaceReference) {
+      String name = ipSpaceReference.getName();
+      IpSpace ipSpace = _namedIpSpaces.get(name);
+      _resolved.put(name, ipSpace);
+      if (ipSpace == null) {
+        // undefined references contain no IPs
+        return ImmutableRangeSet.of();
+      }
+      if (!_visiting.add(name)) {
+        return null;
+      }
+      RangeSet<Long> ranges = ipSpace.accept(this);
+      _visiting.remove(name);
+      return ranges;
+    }
+
+    @Override
+    public @Nullable RangeSet<Long> visitIpWildcardIpSpace(IpWildcardIpSpace ipWildcardIpSpace) {
+      IpWildcard wildcard = ipWildcardIpSpace.getIpWildcard();
+      return wildcard.isPrefix() ? ImmutableRangeSet.of(range(wildcard.toPrefix())) : null;
+    }
+
+    @Override
+    public @Nullable RangeSet<Long> visitIpWildcardSetIpSpace(
+        IpWildcardSetIpSpace ipWildcardSetIpSpace) {
+      TreeRangeSet<Long> ranges = TreeRangeSet.create();
+      for (IpWildcard wildcard : ipWildcardSetIpSpace.getWhitelist()) {
+        if (!wildcard.isPrefix()) {
+          return null;
+        }
+        ranges.add(range(wildcard.toPrefix()));
+      }
+      for (IpWildcard wildcard : ipWildcardSetIpSpace.getBlacklist()) {
+        if (!wildcard.isPrefix()) {
+          return null;
+        }
+        ranges.remove(range(wildcard.toPrefix()));
+      }
+      return ranges;
+    }
+
+    @Override
+    public RangeSet<Long> visitPrefixIpSpace(PrefixIpSpace prefixIpSpace) {
+      return ImmutableRangeSet.of(range(prefixIpSpace.getPrefix()));
+    }
+
+    @Override
+    public RangeSet<Long> visitUniverseIpSpace(UniverseIpSpace universeIpSpace) {
+      return ImmutableRangeSet.of(ALL_IPS);
+    }
+
+    private static @Nonnull Range<Long> range(Prefix prefix) {
+      return Range.closed(prefix.getStartIp().asLong(), prefix.getEndIp().asLong());
+    }
+  }
+
+  /////////////////////////////////////////////////////////////////////////////////////////////////
+  // Decision tree
+
+  /** Leaves with at most this many lines are not split further. */
+  private static final int LEAF_SIZE = 8;
+
+  private static final int MAX_DEPTH = 64;
+
+  /** The number of cut points tried per field, at evenly spaced quantiles including extremes. */
+  private static final int NUM_CUT_CANDIDATES = 5;
+
+  /** Upper bound on the average number of leaves a line is copied to. */
+  private static final int MAX_REPLICATION = 8;
+
+  private abstract static class Node {}
+
+  /** Splits flows on whether the value of a field is at most a cut point. */
+  private static final class Split extends Node {
+    private final int _field;
+    private final long _cut;
+    private final @Nonnull Node _low;
+    private final @Nonnull Node _high;
+
+    private Split(int field, long cut, Node low, Node high) {
+      _field = field;
+      _cut = cut;
+      _low = low;
+      _high = high;
+    }
+  }
+
+  /** The lines that may match the flows reaching the leaf, in line order. */
+  private static final class Leaf extends Node {
+    private final @Nonnull LineSummary[] _lines;
+
+    private Leaf(LineSummary[] lines) {
+      _lines = lines;
+    }
+  }
+
+  /**
+   * Builds a decision tree for {@code lines} over the region of flows whose field {@code f} is in
+   * {@code [lo[f], hi[f]]}. {@code budget} holds the number of line copies still allowed.
+   */
+  private static @Nonnull Node build(
+      LineSummary[] lines, long[] lo, long[] hi, int depth, int[] budget) {
+    // lines after one that matches the whole region are unreachable within it
+    for (int i = 0; i < lines.length; i++) {
+      if (lines[i].covers(lo, hi)) {
+        lines = Arrays.copyOf(lines, i + 1);
+        break;
+      }
+    }
+    if (lines.length <= LEAF_SIZE || depth >= MAX_DEPTH || budget[0] <= 0) {
+      return new Leaf(lines);
+    }
+    int bestField = -1;
+    long bestCut = 0;
+    int bestMax = Integer.MAX_VALUE;
+    int bestTotal = Integer.MAX_VALUE;
+    for (int f = 0; f < NUM_FIELDS; f++) {
+      long[] cuts = cutPoints(lines, f, lo[f], hi[f]);
+      if (cuts.length == 0) {
+        continue;
+      }
+      for (int q = 0; q < NUM_CUT_CANDIDATES; q++) {
+        long cut = cuts[(cuts.length - 1) * q / (NUM_CUT_CANDIDATES - 1)];
+        long[] lowHi = hi.clone();
+        lowHi[f] = cut;
+        long[] highLo = lo.clone();
+        highLo[f] = cut + 1;
+        int numLow = countReachable(lines, f, lo, lowHi);
+        int numHigh = countReachable(lines, f, highLo, hi);
+        int max = Math.max(numLow, numHigh);
+        int total = numLow + numHigh;
+        if (max < bestMax || (max == bestMax && total < bestTotal)) {
+          bestField = f;
+          bestCut = cut;
+          bestMax = max;
+          bestTotal = total;
+        }
+      }
+    }
+    if (bestField < 0 || bestTotal == 2 * lines.length) {
+      return new Leaf(lines);
+    }
+    budget[0] -= Math.max(0, bestTotal - lines.length);
+    int f = bestField;
+    long[] lowHi = hi.clone();
+    lowHi[f] = bestCut;
+    long[] highLo = lo.clone();
+    highLo[f] = bestCut + 1;
+    Node low = build(partition(lines, f, lo[f], bestCut), lo, lowHi, depth + 1, budget);
+    Node high = build(partition(lines, f, bestCut + 1, hi[f]), highLo, hi, depth + 1, budget);
+    return new Split(f, bestCut, low, high);
+  }
+
+  /**
+   * Returns the number of {@code lines}, all of which intersect a region differing from the given
+   * one only in {@code field}, that are reachable in the given region.
+   */
+  private static int countReachable(LineSummary[] lines, int field, long[] lo, long[] hi) {
+    int count = 0;
+    for (LineSummary line : lines) {
+      if (line.intersects(field, lo[field], hi[field])) {
+        count++;
+        if (line.covers(lo, hi)) {
+          break;
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the sorted points {@code c} in {@code [lo, hi)} at which an interval of some line
+   * starts at {@code c + 1} or ends at {@code c}.
+   */
+  private static @Nonnull long[] cutPoints(LineSummary[] lines, int field, long lo, long hi) {
+    long[] cuts = new long[16];
+    int size = 0;
+    for (LineSummary line : lines) {
+      long[] ranges = line._ranges[field];
+      if (ranges == null) {
+        continue;
+      }
+      for (int i = firstEndingAtOrAfter(ranges, lo); i < ranges.length && ranges[i] <= hi; i += 2) {
+        if (size + 2 > cuts.length) {
+          cuts = Arrays.copyOf(cuts, 2 * cuts.length);
+        }
+        if (ranges[i] > lo) {
+          cuts[size++] = ranges[i] - 1;
+        }
+        if (ranges[i + 1] < hi) {
+          cuts[size++] = ranges[i + 1];
+        }
+      }
+    }
+    long[] result = Arrays.copyOf(cuts, size);
+    Arrays.sort(result);
+    return result;
+  }
+
+  private static @Nonnull LineSummary[] partition(
+      LineSummary[] lines, int field, long lo, long hi) {
+    return Arrays.stream(lines)
+        .filter(line -> line.intersects(field, lo, hi))
+        .toArray(LineSummary[]::new);
+  }
+}
@@ -0,0 +1,197 @@
+package org.batfish.datamodel.answers;
+
+import static com.google.common.base.MoreObjects.firstNonNull;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableSortedMap;
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.SortedMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Parser prediction and DFA cache statistics for one grammar, accumulated over the files parsed
+ * with it.
+ *
+ * <p>Batfish parses in SLL prediction mode only, so there are no SLL to LL fallbacks to count; the
+ * DFA misses are the predictions that run the full ATN simulation.
+ */
+@ParametersAreNonnullByDefault
+public final class GrammarStatistics implements Serializable {
+
+  /** The number of decisions kept in {@link #getSlowestDecisions()}. */
+  public static final int MAX_SLOWEST_DECISIONS = 10;
+
+  private static final String PROP_DFA_MISS_NANOS = "dfaMissNanos";
+  private static final String PROP_DFA_MISSES = "dfaMisses";
+  private static final String PROP_DFA_RESETS = "dfaResets";
+  private static final String PROP_DFA_STATES = "dfaStates";
+  private static final String PROP_FILES = "files";
+  private static final String PROP_PREDICTIONS = "predictions";
+  private static final String PROP_SLOWEST_DECISIONS = "slowestDecisions";
+
+  private final long _dfaMissNanos;
+  private final long _dfaMisses;
+  private final int _dfaResets;
+  private final int _dfaStates;
+  private final int _files;
+  private final long _predictions;
+  private final @Nonnull SortedMap<String, Long> _slowestDecisions;
+
+  @JsonCreator
+  private static @Nonnull GrammarStatistics create(
+      @JsonProperty(PROP_DFA_MISS_NANOS) long dfaMissNanos,
+      @JsonProperty(PROP_DFA_MISSES) long dfaMisses,
+      @JsonProperty(PROP_DFA_RESETS) int dfaResets,
+      @JsonProperty(PROP_DFA_STATES) int dfaStates,
+      @JsonProperty(PROP_FILES) int files,
+      @JsonProperty(PROP_PREDICTIONS) long predictions,
+      @JsonProperty(PROP_SLOWEST_DECISIONS) @Nullable Map<String, Long> slowestDecisions) {
+    return new GrammarStatistics(
+        dfaMissNanos,
+        dfaMisses,
+        dfaResets,
+        dfaStates,
+        files,
+        predictions,
+        firstNonNull(slowestDecisions, ImmutableSortedMap.of()));
+  }
+
+  /**
+   * @param dfaMissNanos total time spent in DFA cache misses, in nanoseconds
+   * @param dfaMisses number of predictions that missed the DFA cache
+   * @param dfaResets number of times the DFA cache was reset because it was over its size limit
+   * @param dfaStates the largest DFA cache size seen, in states
+   * @param files number of files parsed
+   * @param predictions number of adaptive predictions
+   * @param decisionMissNanos time spent in DFA cache misses per decision, of which only the {@link
+   *     #MAX_SLOWEST_DECISIONS} slowest are kept
+   */
+  public GrammarStatistics(
+      long dfaMissNanos,
+      long dfaMisses,
+      int dfaResets,
+      int dfaStates,
+      int files,
+      long predictions,
+      Map<String, Long> decisionMissNanos) {
+    _dfaMissNanos = dfaMissNanos;
+    _dfaMisses = dfaMisses;
+    _dfaResets = dfaResets;
+    _dfaStates = dfaStates;
+    _files = files;
+    _predictions = predictions;
+    _slowestDecisions = slowest(decisionMissNanos);
+  }
+
+  private static @Nonnull SortedMap<String, Long> slowest(Map<String, Long> decisionMissNanos) {
+    ImmutableSortedMap.Builder<String, Long> slowest = ImmutableSortedMap.naturalOrder();
+    decisionMissNanos.entrySet().stream()
+        .sorted(
+            Comparator.<Entry<String, Long>>comparingLong(Entry::getValue)
+                .reversed()
+                .thenComparing(Entry::getKey))
+        .limit(MAX_SLOWEST_DECISIONS)
+        .forEach(e -> slowest.put(e.getKey(), e.getValue()));
+    return slowest.build();
+  }
+
+  /**
+   * Returns the sum of these statistics and {@code other}. The slowest decisions are only
+   * approximate, since decisions that were not among the slowest of either are not considered.
+   */
+  public @Nonnull GrammarStatistics add(GrammarStatistics other) {
+    Map<String, Long> decisionMissNanos = new HashMap<>(_slowestDecisions);
+    other._slowestDecisions.forEach(
+        (decision, nanos) -> decisionMissNanos.merge(decision, nanos, Long::sum));
+    return new GrammarStatistics(
+        _dfaMissNanos + other._dfaMissNanos,
+        _dfaMisses + other._dfaMisses,
+        _dfaResets + other._dfaResets,
+        Math.max(_dfaStates, other._dfaStates),
+        _files + other._files,
+        _predictions + other._predictions,
+        decisionMissNanos);
+  }
+
+  @JsonProperty(PROP_DFA_MISS_NANOS)
+  public long getDfaMissNanos() {
+    return _dfaMissNanos;
+  }
+
+  @JsonProperty(PROP_DFA_MISSES)
+  public long getDfaMisses() {
+    return _dfaMisses;
+  }
+
+  @JsonProperty(PROP_DFA_RESETS)
+  public int getDfaResets() {
+    return _dfaResets;
+  }
+
+  @JsonProperty(PROP_DFA_STATES)
+  public int getDfaStates() {
+    return _dfaStates;
+  }
+
+  @JsonProperty(PROP_FILES)
+  public int getFiles() {
+    return _files;
+  }
+
+  @JsonProperty(PROP_PREDICTIONS)
+  public long getPredictions() {
+    return _predictions;
+  }
+
+  /** Decisions with the most time spent in DFA cache misses, in nanoseconds. */
+  @JsonProperty(PROP_SLOWEST_DECISIONS)
+  public @Nonnull SortedMap<String, Long> getSlowestDecisions() {
+    return _slowestDecisions;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof GrammarStatistics)) {
+      return false;
+    }
+    GrammarStatistics that = (GrammarStatistics) o;
+    return _dfaMissNanos == that._dfaMissNanos
+        && _dfaMisses == that._dfaMisses
+        && _dfaResets == that._dfaResets
+        && _dfaStates == that._dfaStates
+        && _files == that._files
+        && _predictions == that._predictions
+        && _slowestDecisions.equals(that._slowestDecisions);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(
+        _dfaMissNanos, _dfaMisses, _dfaResets, _dfaStates, _files, _predictions, _slowestDecisions);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add(PROP_DFA_MISS_NANOS, _dfaMissNanos)
+        .add(PROP_DFA_MISSES, _dfaMisses)
+        .add(PROP_DFA_RESETS, _dfaResets)
+        .add(PROP_DFA_STATES, _dfaStates)
+        .add(PROP_FILES, _files)
+        .add(PROP_PREDICTIONS, _predictions)
+        .add(PROP_SLOWEST_DECISIONS, _slowestDecisions)
+        .toString();
+  }
+}
@@ -15,6 +15,8 @@ public class IncrementalBdpAnswerElement extends DataPlaneAnswerElement {
       "bgpMultipathRibRoutesByIteration";
   private static final String PROP_DEPENDENT_ROUTES_ITERATIONS = "dependentRoutesIterations";
   private static final String PROP_OSPF_INTERNAL_ITERATIONS = "ospfInternalIterations";
+  private static final String PROP_POLICY_OUTCOME_CACHE_HITS = "policyOutcomeCacheHits";
+  private static final String PROP_POLICY_OUTCOME_CACHE_MISSES = "policyOutcomeCacheMisses";
   private static final String PROP_WARNINGS = "warnings";
 
   private SortedMap<Integer, Integer> _bgpBestPathRibRoutesByIteration;
@@ -22,6 +24,8 @@ public class IncrementalBdpAnswerElement extends DataPlaneAnswerElement {
   private int _dependentRoutesIterations;
   private SortedMap<Integer, Integer> _mainRibRoutesByIteration;
   private int _ospfInternalIterations;
+  private long _policyOutcomeCacheHits;
+  private long _policyOutcomeCacheMisses;
   private String _version;
   private Warnings _warnings;
 
@@ -57,6 +61,18 @@ public class IncrementalBdpAnswerElement extends DataPlaneAnswerElement {
     return _ospfInternalIterations;
   }
 
+  /** Number of BGP routing policy evaluations answered from memoized outcomes */
+  @JsonProperty(PROP_POLICY_OUTCOME_CACHE_HITS)
+  public long getPolicyOutcomeCacheHits() {
+    return _policyOutcomeCacheHits;
+  }
+
+  /** Number of memoizable BGP routing policy evaluations that had to be computed */
+  @JsonProperty(PROP_POLICY_OUTCOME_CACHE_MISSES)
+  public long getPolicyOutcomeCacheMisses() {
+    return _policyOutcomeCacheMisses;
+  }
+
   @Override
   @JsonProperty(PROP_VERSION)
   public String getVersion() {
@@ -95,6 +111,16 @@ public class IncrementalBdpAnswerElement extends DataPlaneAnswerElement {
     _ospfInternalIterations = ospfInternalIterations;
   }
 
+  @JsonProperty(PROP_POLICY_OUTCOME_CACHE_HITS)
+  public void setPolicyOutcomeCacheHits(long policyOutcomeCacheHits) {
+    _policyOutcomeCacheHits = policyOutcomeCacheHits;
+  }
+
+  @JsonProperty(PROP_POLICY_OUTCOME_CACHE_MISSES)
+  public void setPolicyOutcomeCacheMisses(long policyOutcomeCacheMisses) {
+    _policyOutcomeCacheMisses = policyOutcomeCacheMisses;
+  }
+
   @JsonProperty(PROP_VERSION)
   public void setVersion(String version) {
     _version = version;
@@ -1,5 +1,7 @@
 package org.batfish.datamodel.answers;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.TreeMultimap;
@@ -16,6 +18,7 @@ public class ParseVendorConfigurationAnswerElement extends ParseAnswerElement
     implements Serializable {
 
   private static final String PROP_FILE_MAP = "fileMap";
+  private static final String PROP_GRAMMAR_STATISTICS = "grammarStatistics";
   private static final String PROP_VERSION = "version";
 
   private SortedMap<String, BatfishException.BatfishStackTrace> _errors;
@@ -25,6 +28,9 @@ public class ParseVendorConfigurationAnswerElement extends ParseAnswerElement
 
   private SortedMap<String, ErrorDetails> _errorDetails;
 
+  /* Map of grammar name to parser statistics */
+  private SortedMap<String, GrammarStatistics> _grammarStatistics;
+
   private SortedMap<String, ParseStatus> _parseStatus;
 
   private SortedMap<String, ParseTreeSentences> _parseTrees;
@@ -41,6 +47,12 @@ public class ParseVendorConfigurationAnswerElement extends ParseAnswerElement
     _warnings = new TreeMap<>();
     _errors = new TreeMap<>();
     _errorDetails = new TreeMap<>();
+    _grammarStatistics = new TreeMap<>();
+  }
+
+  /** Adds {@code statistics} for one file parsed with grammar {@code grammar}. */
+  public void addGrammarStatistics(String grammar, GrammarStatistics statistics) {
+    _grammarStatistics.merge(grammar, statistics, GrammarStatistics::add);
   }
 
   public void addRedFlagWarning(String name, Warning warning) {
@@ -66,6 +78,12 @@ public class ParseVendorConfigurationAnswerElement extends ParseAnswerElement
     return _fileMap;
   }
 
+  @JsonProperty(PROP_GRAMMAR_STATISTICS)
+  @JsonInclude(Include.NON_EMPTY)
+  public SortedMap<String, GrammarStatistics> getGrammarStatistics() {
+    return _grammarStatistics;
+  }
+
   @Override
   public SortedMap<String, ParseStatus> getParseStatus() {
     return _parseStatus;
@@ -96,6 +114,11 @@ public class ParseVendorConfigurationAnswerElement extends ParseAnswerElement
     _fileMap = fileMap;
   }
 
+  @JsonProperty(PROP_GRAMMAR_STATISTICS)
+  public void setGrammarStatistics(SortedMap<String, GrammarStatistics> grammarStatistics) {
+    _grammarStatistics = grammarStatistics;
+  }
+
   @Override
   public void setParseStatus(SortedMap<String, ParseStatus> parseStatus) {
     _parseStatus = parseStatus;
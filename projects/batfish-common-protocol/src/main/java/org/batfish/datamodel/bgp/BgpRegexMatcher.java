@@ -0,0 +1,210 @@
+package org.batfish.datamodel.bgp;
+
+import static org.batfish.datamodel.routing_policy.communities.CommunitySetToRegexInputString.TYPES_FIRST_ASCENDING_COMPARATOR;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import java.util.Arrays;
+import java.util.Optional;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.common.automaton.RegexDfa;
+import org.batfish.common.automaton.RegexDfa.State;
+import org.batfish.common.util.PatternProvider;
+import org.batfish.datamodel.AsPath;
+import org.batfish.datamodel.AsSet;
+import org.batfish.datamodel.bgp.community.Community;
+import org.batfish.datamodel.bgp.community.ExtendedCommunity;
+import org.batfish.datamodel.bgp.community.LargeCommunity;
+import org.batfish.datamodel.bgp.community.StandardCommunity;
+import org.batfish.datamodel.routing_policy.communities.ColonSeparatedRendering;
+import org.batfish.datamodel.routing_policy.communities.CommunityRendering;
+import org.batfish.datamodel.routing_policy.communities.CommunitySet;
+import org.batfish.datamodel.routing_policy.communities.CommunitySetRendering;
+import org.batfish.datamodel.routing_policy.communities.CommunitySetToRegexInputString;
+import org.batfish.datamodel.routing_policy.communities.CommunityToRegexInputString;
+import org.batfish.datamodel.routing_policy.communities.IntegerValueRendering;
+import org.batfish.datamodel.routing_policy.communities.TypesFirstAscendingSpaceSeparated;
+
+/**
+ * Matches AS paths and communities against {@link java.util.regex.Pattern} regexes.
+ *
+ * <p>Each method is equivalent to {@link java.util.regex.Matcher#find()} on the string rendering of
+ * its input. Regexes are compiled to {@link RegexDfa automata}, which are fed the rendering one AS
+ * number or community at a time rather than as a string, and which never backtrack. Regexes with
+ * constructs the automata do not support are matched with {@link PatternProvider} instead.
+ */
+@ParametersAreNonnullByDefault
+public final class BgpRegexMatcher {
+
+  /** Returns whether {@code regex} matches {@link AsPath#getAsPathString()}. */
+  public static boolean matchesAsPath(String regex, AsPath asPath) {
+    Optional<RegexDfa> dfa = fromString(regex);
+    if (dfa.isPresent()) {
+      State state = stepAsPath(dfa.get(), dfa.get().initialState(), asPath);
+      if (state != null) {
+        return state.isMatchAtEnd();
+      }
+    }
+    return PatternProvider.fromString(regex).matcher(asPath.getAsPathString()).find();
+  }
+
+  /**
+   * Returns whether {@code regex} matches {@link AsPath#getAsPathString()} preceded by a space, or
+   * the empty string if {@code asPath} is empty.
+   */
+  public static boolean matchesSpacePrefixedAsPath(String regex, AsPath asPath) {
+    if (asPath.size() == 0) {
+      return matchesAsPath(regex, asPath);
+    }
+    Optional<RegexDfa> dfa = fromString(regex);
+    if (dfa.isPresent()) {
+      State state = dfa.get().step(dfa.get().initialState(), ' ');
+      state = state == null ? null : stepAsPath(dfa.get(), state, asPath);
+      if (state != null) {
+        return state.isMatchAtEnd();
+      }
+    }
+    return PatternProvider.fromString(regex).matcher(" " + asPath.getAsPathString()).find();
+  }
+
+  /**
+   * Returns whether {@code regex} matches the rendering of {@code community} by {@link
+   * CommunityToRegexInputString}.
+   */
+  public static boolean matchesCommunity(
+      String regex, CommunityRendering rendering, Community community) {
+    Optional<RegexDfa> dfa = fromString(regex);
+    if (dfa.isPresent()) {
+      State state = stepCommunity(dfa.get(), dfa.get().initialState(), rendering, community);
+      if (state != null) {
+        return state.isMatchAtEnd();
+      }
+    }
+    return PatternProvider.fromString(regex)
+        .matcher(rendering.accept(CommunityToRegexInputString.instance(), community))
+        .find();
+  }
+
+  /**
+   * Returns whether {@code regex} matches the rendering of {@code communitySet} by {@link
+   * CommunitySetToRegexInputString}.
+   */
+  public static boolean matchesCommunitySet(
+      String regex, CommunitySetRendering rendering, CommunitySet communitySet) {
+    Optional<RegexDfa> dfa = fromString(regex);
+    if (dfa.isPresent() && rendering instanceof TypesFirstAscendingSpaceSeparated) {
+      State state =
+          stepTypesFirstAscendingSpaceSeparated(
+              dfa.get(), rendering.getCommunityRendering(), communitySet);
+      if (state != null) {
+        return state.isMatchAtEnd();
+      }
+    }
+    return PatternProvider.fromString(regex)
+        .matcher(rendering.accept(CommunitySetToRegexInputString.instance(), communitySet))
+        .find();
+  }
+
+  /** Returns whether {@code regex} matches {@code input}. */
+  public static boolean matches(String regex, String input) {
+    Optional<RegexDfa> dfa = fromString(regex);
+    if (dfa.isPresent()) {
+      State state = dfa.get().step(dfa.get().initialState(), input);
+      if (state != null) {
+        return state.isMatchAtEnd();
+      }
+    }
+    return PatternProvider.fromString(regex).matcher(input).find();
+  }
+
+  /** Steps {@code dfa} on {@link AsPath#getAsPathString()}, without rendering it. */
+  private static @Nullable State stepAsPath(RegexDfa dfa, State initial, AsPath asPath) {
+    State state = initial;
+    boolean first = true;
+    for (AsSet asSet : asPath.getAsSets()) {
+      if (!first) {
+        state = dfa.step(state, ' ');
+      }
+      first = false;
+      if (state == null || state.isMatch()) {
+        return state;
+      }
+      // rendered as by AsSet#toString
+      int size = asSet.size();
+      if (size == 1) {
+        state = dfa.stepDecimal(state, asSet.getAsn(0));
+        continue;
+      }
+      state = dfa.step(state, '{');
+      for (int i = 0; i < size && state != null; i++) {
+        if (i > 0) {
+          state = dfa.step(state, ',');
+        }
+        state = state == null ? null : dfa.stepDecimal(state, asSet.getAsn(i));
+      }
+      state = state == null ? null : dfa.step(state, '}');
+    }
+    return state;
+  }
+
+  /** Steps {@code dfa} on the rendering of {@code community}, without rendering it if possible. */
+  private static @Nullable State stepCommunity(
+      RegexDfa dfa, State state, CommunityRendering rendering, Community community) {
+    if (rendering instanceof ColonSeparatedRendering) {
+      if (community instanceof StandardCommunity) {
+        long value = ((StandardCommunity) community).asLong();
+        State next = dfa.stepDecimal(state, value >> 16);
+        next = next == null ? null : dfa.step(next, ':');
+        return next == null ? null : dfa.stepDecimal(next, value & 0xFFFF);
+      } else if (community instanceof LargeCommunity) {
+        LargeCommunity large = (LargeCommunity) community;
+        State next = dfa.stepDecimal(state, large.getGlobalAdministrator());
+        next = next == null ? null : dfa.step(next, ':');
+        next = next == null ? null : dfa.stepDecimal(next, large.getLocalData1());
+        next = next == null ? null : dfa.step(next, ':');
+        return next == null ? null : dfa.stepDecimal(next, large.getLocalData2());
+      } else if (community instanceof ExtendedCommunity) {
+        // rendered as the empty string
+        return state;
+      }
+    } else if (rendering instanceof IntegerValueRendering
+        && community instanceof StandardCommunity) {
+      return dfa.stepDecimal(state, ((StandardCommunity) community).asLong());
+    }
+    return dfa.step(state, rendering.accept(CommunityToRegexInputString.instance(), community));
+  }
+
+  /**
+   * Steps on the rendering of {@link CommunitySetToRegexInputString}, without rendering the set.
+   */
+  private static @Nullable State stepTypesFirstAscendingSpaceSeparated(
+      RegexDfa dfa, CommunityRendering rendering, CommunitySet communitySet) {
+    Community[] communities = communitySet.getCommunities().toArray(new Community[0]);
+    Arrays.sort(communities, TYPES_FIRST_ASCENDING_COMPARATOR);
+    State state = dfa.initialState();
+    for (int i = 0; i < communities.length && state != null && !state.isMatch(); i++) {
+      if (i > 0) {
+        state = dfa.step(state, ' ');
+      }
+      state = state == null ? null : stepCommunity(dfa, state, rendering, communities[i]);
+    }
+    return state;
+  }
+
+  private static @Nonnull Optional<RegexDfa> fromString(String regex) {
+    return CACHE.getUnchecked(regex);
+  }
+
+  private BgpRegexMatcher() {}
+
+  // Soft values: let it be garbage collected in times of pressure.
+  // Maximum size 2^16: Just some upper bound on cache size, as for PatternProvider.
+  private static final LoadingCache<String, Optional<RegexDfa>> CACHE =
+      CacheBuilder.newBuilder()
+          .softValues()
+          .maximumSize(1 << 16)
+          .build(CacheLoader.from(RegexDfa::compile));
+}
@@ -1,14 +1,19 @@
 package org.batfish.datamodel.bgp;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableTable;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Table;
 import com.google.common.graph.MutableValueGraph;
 import com.google.common.graph.Network;
 import com.google.common.graph.ValueGraphBuilder;
@@ -16,11 +21,13 @@ import io.opentracing.Scope;
 import io.opentracing.Span;
 import io.opentracing.util.GlobalTracer;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.SortedMap;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.batfish.common.plugin.TracerouteEngine;
@@ -46,6 +53,7 @@ import org.batfish.datamodel.NetworkConfigurations;
 import org.batfish.datamodel.Prefix;
 import org.batfish.datamodel.Vrf;
 import org.batfish.datamodel.collections.NodeInterfacePair;
+import org.batfish.datamodel.flow.FirewallSessionTraceInfo;
 import org.batfish.datamodel.flow.Hop;
 import org.batfish.datamodel.flow.Trace;
 import org.batfish.datamodel.flow.TraceAndReverseFlow;
@@ -207,6 +215,20 @@ public final class BgpTopologyUtils {
             receivers.computeIfAbsent(peer.getHostname(), name -> LinkedListMultimap.create());
         vrf.put(peer.getVrfName(), peer);
       }
+      // Candidate listeners of each active peer that pass the sanity checks
+      Map<BgpPeerConfigId, List<BgpPeerConfigId>> candidates = new HashMap<>();
+      for (BgpPeerConfigId neighborId : graph.nodes()) {
+        if (neighborId.getType() == BgpPeerConfigType.ACTIVE) {
+          candidates.put(
+              neighborId,
+              getActivePeerCandidates(neighborId, networkConfigurations, ipVrfOwners, receivers));
+        }
+      }
+      Table<BgpPeerConfigId, BgpPeerConfigId, BgpSessionInitiationResult> sessionInitiations =
+          checkReachability
+              ? initiateBgpSessions(
+                  candidates, networkConfigurations, checkNotNull(tracerouteEngine))
+              : ImmutableTable.of();
       for (BgpPeerConfigId neighborId : graph.nodes()) {
         switch (neighborId.getType()) {
           case DYNAMIC:
@@ -215,12 +237,11 @@ public final class BgpTopologyUtils {
           case ACTIVE:
             addActivePeerEdges(
                 neighborId,
+                candidates.get(neighborId),
                 graph,
                 networkConfigurations,
-                ipVrfOwners,
-                receivers,
                 checkReachability,
-                tracerouteEngine);
+                sessionInitiations);
             break;
           case UNNUMBERED:
             // Can't infer BGP unnumbered connectivity without layer 2 topology
@@ -239,29 +260,31 @@ public final class BgpTopologyUtils {
     }
   }
 
-  private static void addActivePeerEdges(
+  /**
+   * Returns the peers that the given active peer could initiate a session with, i.e. those owning
+   * its peer address that pass {@link #bgpCandidatePassesSanityChecks(BgpActivePeerConfig,
+   * BgpPeerConfigId, NetworkConfigurations) sanity checks}.
+   */
+  private static List<BgpPeerConfigId> getActivePeerCandidates(
       BgpPeerConfigId neighborId,
-      MutableValueGraph<BgpPeerConfigId, BgpSessionProperties> graph,
       NetworkConfigurations nc,
       Map<Ip, Map<String, Set<String>>> ipOwners,
-      Map<String, Multimap<String, BgpPeerConfigId>> receivers,
-      boolean checkReachability,
-      TracerouteEngine tracerouteEngine) {
+      Map<String, Multimap<String, BgpPeerConfigId>> receivers) {
     BgpActivePeerConfig neighbor = nc.getBgpPointToPointPeerConfig(neighborId);
     if (neighbor == null
         || neighbor.getLocalIp() == null
         || neighbor.getLocalAs() == null
         || neighbor.getPeerAddress() == null
         || neighbor.getRemoteAsns().isEmpty()) {
-      return;
+      return ImmutableList.of();
     }
     // Find nodes that own the neighbor's peer address
     Map<String, Set<String>> possibleVrfs = ipOwners.get(neighbor.getPeerAddress());
     if (possibleVrfs == null) {
-      return;
+      return ImmutableList.of();
     }
 
-    Set<BgpPeerConfigId> alreadyEstablished = graph.adjacentNodes(neighborId);
+    ImmutableList.Builder<BgpPeerConfigId> candidates = ImmutableList.builder();
     for (Entry<String, Set<String>> entry : possibleVrfs.entrySet()) {
       String node = entry.getKey();
       Set<String> vrfs = entry.getValue();
@@ -271,23 +294,41 @@ public final class BgpTopologyUtils {
       }
       for (String vrf : vrfs) {
         receiversByVrf.get(vrf).stream()
-            .filter(
-                candidateId ->
-                    // If edge is already established (i.e., we already found that candidate can
-                    // initiate the session), don't bother checking in this direction
-                    !alreadyEstablished.contains(candidateId)
-                        // Ensure candidate has compatible local/remote IP, AS, & hostname
-                        && bgpCandidatePassesSanityChecks(neighbor, candidateId, nc)
-                        // If checking reachability, ensure candidate is reachable
-                        && (!checkReachability
-                            // We initiate the session from the initiator to the listener since the
-                            // other direction will be checked once we pick up the listener as the
-                            // source. This is consistent with the directional nature of BGP graph.
-                            || initiateBgpSession(
-                                    neighborId, candidateId, neighbor, tracerouteEngine)
-                                .isSuccessful()))
-            .forEach(remoteId -> addEdges(neighbor, neighborId, remoteId, graph, nc));
+            // Ensure candidate has compatible local/remote IP, AS, & hostname
+            .filter(candidateId -> bgpCandidatePassesSanityChecks(neighbor, candidateId, nc))
+            .forEach(candidates::add);
+      }
+    }
+    return candidates.build();
+  }
+
+  private static void addActivePeerEdges(
+      BgpPeerConfigId neighborId,
+      List<BgpPeerConfigId> candidates,
+      MutableValueGraph<BgpPeerConfigId, BgpSessionProperties> graph,
+      NetworkConfigurations nc,
+      boolean checkReachability,
+      Table<BgpPeerConfigId, BgpPeerConfigId, BgpSessionInitiationResult> sessionInitiations) {
+    if (candidates.isEmpty()) {
+      return;
+    }
+    BgpActivePeerConfig neighbor = nc.getBgpPointToPointPeerConfig(neighborId);
+    assert neighbor != null;
+    Set<BgpPeerConfigId> alreadyEstablished = graph.adjacentNodes(neighborId);
+    for (BgpPeerConfigId candidateId : candidates) {
+      // If edge is already established (i.e., we already found that candidate can initiate the
+      // session), don't bother checking in this direction
+      if (alreadyEstablished.contains(candidateId)) {
+        continue;
+      }
+      // If checking reachability, ensure candidate is reachable. We initiate the session from
+      // the initiator to the listener since the other direction will be checked once we pick up
+      // the listener as the source. This is consistent with the directional nature of BGP graph.
+      if (checkReachability
+          && !checkNotNull(sessionInitiations.get(neighborId, candidateId)).isSuccessful()) {
+        continue;
       }
+      addEdges(neighbor, neighborId, candidateId, graph, nc);
     }
   }
 
@@ -467,80 +508,169 @@ public final class BgpTopologyUtils {
       @Nonnull BgpPeerConfigId listenerId,
       @Nonnull BgpActivePeerConfig initiator,
       @Nonnull TracerouteEngine tracerouteEngine) {
+    return checkNotNull(
+        initiateBgpSessions(
+                ImmutableMap.of(initiatorId, initiator),
+                ImmutableMap.of(initiatorId, ImmutableList.of(listenerId)),
+                tracerouteEngine)
+            .get(initiatorId, listenerId));
+  }
+
+  /**
+   * Initiates TCP connections from each active peer in {@code listenersByInitiator} to each of its
+   * listeners, as in {@link #initiateBgpSession(BgpPeerConfigId, BgpPeerConfigId,
+   * BgpActivePeerConfig, TracerouteEngine)}. Peer configurations are looked up in {@code nc}.
+   *
+   * @return the {@link BgpSessionInitiationResult} of each initiator (row) and listener (column).
+   */
+  private static Table<BgpPeerConfigId, BgpPeerConfigId, BgpSessionInitiationResult>
+      initiateBgpSessions(
+          Map<BgpPeerConfigId, List<BgpPeerConfigId>> listenersByInitiator,
+          NetworkConfigurations nc,
+          TracerouteEngine tracerouteEngine) {
+    Map<BgpPeerConfigId, BgpActivePeerConfig> initiators = new HashMap<>();
+    listenersByInitiator.forEach(
+        (initiatorId, listeners) -> {
+          if (!listeners.isEmpty()) {
+            initiators.put(initiatorId, checkNotNull(nc.getBgpPointToPointPeerConfig(initiatorId)));
+          }
+        });
+    return initiateBgpSessions(initiators, listenersByInitiator, tracerouteEngine);
+  }
+
+  /**
+   * Initiates TCP connections from each given active peer to each of its listeners. All forward
+   * flows are traced in one batch, and then all reverse flows that share the same firewall sessions
+   * are traced in one batch, so the {@link TracerouteEngine} can trace them in parallel. Forward
+   * traces of an initiator and reverse traces of identical reverse flows are computed once and
+   * shared by all its listeners.
+   *
+   * <p>Assumes each initiator's local IP and peer address have already been confirmed nonnull.
+   *
+   * @return the {@link BgpSessionInitiationResult} of each initiator (row) and listener (column).
+   */
+  private static Table<BgpPeerConfigId, BgpPeerConfigId, BgpSessionInitiationResult>
+      initiateBgpSessions(
+          Map<BgpPeerConfigId, BgpActivePeerConfig> initiators,
+          Map<BgpPeerConfigId, List<BgpPeerConfigId>> listenersByInitiator,
+          TracerouteEngine tracerouteEngine) {
+    Span span = GlobalTracer.get().buildSpan("BgpTopologyUtils.initiateBgpSessions").start();
+    try (Scope scope = GlobalTracer.get().scopeManager().activate(span)) {
+      assert scope != null; // avoid unused warning
+
+      Map<BgpPeerConfigId, Flow> flows = new HashMap<>();
+      initiators.forEach(
+          (initiatorId, initiator) -> flows.put(initiatorId, bgpSynFlow(initiatorId, initiator)));
+      SortedMap<Flow, List<TraceAndReverseFlow>> forwardResults =
+          tracerouteEngine.computeTracesAndReverseFlows(ImmutableSet.copyOf(flows.values()), false);
+
+      // Forward traces that can lead to a session with each listener
+      Table<BgpPeerConfigId, BgpPeerConfigId, List<TraceAndReverseFlow>> acceptedByListener =
+          HashBasedTable.create();
+      // Reverse flows to trace, grouped by the firewall sessions set up by the forward trace
+      Map<Set<FirewallSessionTraceInfo>, Set<Flow>> reverseFlowsBySessions = new HashMap<>();
+      initiators.forEach(
+          (initiatorId, initiator) -> {
+            boolean bgpSingleHop =
+                BgpSessionProperties.getSessionType(initiator) == SessionType.EBGP_SINGLEHOP;
+            List<TraceAndReverseFlow> accepted =
+                forwardResults.get(flows.get(initiatorId)).stream()
+                    .filter(
+                        traceAndReverseFlow -> {
+                          Trace forwardTrace = traceAndReverseFlow.getTrace();
+                          return forwardTrace.getDisposition() == FlowDisposition.ACCEPTED
+                              && (!bgpSingleHop || forwardTrace.getHops().size() <= 2)
+                              && traceAndReverseFlow.getReverseFlow() != null;
+                        })
+                    .collect(ImmutableList.toImmutableList());
+            for (BgpPeerConfigId listenerId : listenersByInitiator.get(initiatorId)) {
+              List<TraceAndReverseFlow> toListener =
+                  accepted.stream()
+                      .filter(
+                          traceAndReverseFlow -> {
+                            Flow reverseFlow = traceAndReverseFlow.getReverseFlow();
+                            return reverseFlow.getIngressNode().equals(listenerId.getHostname())
+                                && reverseFlow.getIngressVrf().equals(listenerId.getVrfName());
+                          })
+                      .collect(ImmutableList.toImmutableList());
+              acceptedByListener.put(initiatorId, listenerId, toListener);
+              toListener.forEach(
+                  traceAndReverseFlow ->
+                      reverseFlowsBySessions
+                          .computeIfAbsent(
+                              traceAndReverseFlow.getNewFirewallSessions(), k -> new HashSet<>())
+                          .add(traceAndReverseFlow.getReverseFlow()));
+            }
+          });
+
+      Map<Set<FirewallSessionTraceInfo>, SortedMap<Flow, List<TraceAndReverseFlow>>>
+          reverseResults = new HashMap<>();
+      reverseFlowsBySessions.forEach(
+          (sessions, reverseFlows) ->
+              reverseResults.put(
+                  sessions,
+                  tracerouteEngine.computeTracesAndReverseFlows(reverseFlows, sessions, false)));
+
+      Table<BgpPeerConfigId, BgpPeerConfigId, BgpSessionInitiationResult> results =
+          HashBasedTable.create();
+      acceptedByListener
+          .cellSet()
+          .forEach(
+              cell -> {
+                BgpPeerConfigId initiatorId = cell.getRowKey();
+                Flow flow = flows.get(initiatorId);
+                List<Trace> reverseTraces =
+                    cell.getValue().stream()
+                        .flatMap(
+                            traceAndReverseFlow ->
+                                reverseResults
+                                    .get(traceAndReverseFlow.getNewFirewallSessions())
+                                    .get(traceAndReverseFlow.getReverseFlow())
+                                    .stream())
+                        .map(TraceAndReverseFlow::getTrace)
+                        .collect(ImmutableList.toImmutableList());
+                boolean successful =
+                    reverseTraces.stream()
+                        .anyMatch(
+                            reverseTrace -> {
+                              List<Hop> hops = reverseTrace.getHops();
+                              return !hops.isEmpty()
+                                  && hops.get(hops.size() - 1)
+                                      .getNode()
+                                      .getName()
+                                      .equals(initiatorId.getHostname())
+                                  && reverseTrace.getDisposition() == FlowDisposition.ACCEPTED;
+                            });
+                results.put(
+                    initiatorId,
+                    cell.getColumnKey(),
+                    new BgpSessionInitiationResult(
+                        flow,
+                        forwardResults.get(flow).stream()
+                            .map(TraceAndReverseFlow::getTrace)
+                            .collect(ImmutableList.toImmutableList()),
+                        reverseTraces,
+                        successful));
+              });
+      return results;
+    } finally {
+      span.finish();
+    }
+  }
+
+  /** Returns the TCP SYN flow that the given active peer sends to initiate its BGP session. */
+  private static Flow bgpSynFlow(BgpPeerConfigId initiatorId, BgpActivePeerConfig initiator) {
     assert initiatorId.getType() == BgpPeerConfigType.ACTIVE;
-    Flow flowFromSrc =
-        Flow.builder()
-            .setIpProtocol(IpProtocol.TCP)
-            .setTcpFlagsSyn(1)
-            .setIngressNode(initiatorId.getHostname())
-            .setIngressVrf(initiatorId.getVrfName())
-            .setSrcIp(initiator.getLocalIp())
-            .setDstIp(initiator.getPeerAddress())
-            .setSrcPort(NamedPort.EPHEMERAL_LOWEST.number())
-            .setDstPort(NamedPort.BGP.number())
-            .build();
-
-    List<TraceAndReverseFlow> forwardTracesAndReverseFlows =
-        tracerouteEngine
-            .computeTracesAndReverseFlows(ImmutableSet.of(flowFromSrc), false)
-            .get(flowFromSrc);
-
-    boolean bgpSingleHop =
-        BgpSessionProperties.getSessionType(initiator) == SessionType.EBGP_SINGLEHOP;
-
-    List<TraceAndReverseFlow> reverseTraces =
-        forwardTracesAndReverseFlows.stream()
-            .filter(
-                traceAndReverseFlow -> {
-                  Trace forwardTrace = traceAndReverseFlow.getTrace();
-                  return forwardTrace.getDisposition() == FlowDisposition.ACCEPTED
-                      && (!bgpSingleHop || forwardTrace.getHops().size() <= 2);
-                })
-            .filter(
-                traceAndReverseFlow ->
-                    traceAndReverseFlow.getReverseFlow() != null
-                        && traceAndReverseFlow
-                            .getReverseFlow()
-                            .getIngressNode()
-                            .equals(listenerId.getHostname())
-                        && traceAndReverseFlow
-                            .getReverseFlow()
-                            .getIngressVrf()
-                            .equals(listenerId.getVrfName()))
-            .flatMap(
-                traceAndReverseFlow ->
-                    tracerouteEngine
-                        .computeTracesAndReverseFlows(
-                            ImmutableSet.of(traceAndReverseFlow.getReverseFlow()),
-                            traceAndReverseFlow.getNewFirewallSessions(),
-                            false)
-                        .get(traceAndReverseFlow.getReverseFlow())
-                        .stream())
-            .collect(ImmutableList.toImmutableList());
-
-    boolean successful =
-        reverseTraces.stream()
-            .anyMatch(
-                traceAndReverseFlow -> {
-                  Trace reverseTrace = traceAndReverseFlow.getTrace();
-                  List<Hop> hops = reverseTrace.getHops();
-                  return !hops.isEmpty()
-                      && hops.get(hops.size() - 1)
-                          .getNode()
-                          .getName()
-                          .equals(initiatorId.getHostname())
-                      && reverseTrace.getDisposition() == FlowDisposition.ACCEPTED;
-                });
-
-    return new BgpSessionInitiationResult(
-        flowFromSrc,
-        forwardTracesAndReverseFlows.stream()
-            .map(TraceAndReverseFlow::getTrace)
-            .collect(ImmutableList.toImmutableList()),
-        reverseTraces.stream()
-            .map(TraceAndReverseFlow::getTrace)
-            .collect(ImmutableList.toImmutableList()),
-        successful);
+    return Flow.builder()
+        .setIpProtocol(IpProtocol.TCP)
+        .setTcpFlagsSyn(1)
+        .setIngressNode(initiatorId.getHostname())
+        .setIngressVrf(initiatorId.getVrfName())
+        .setSrcIp(initiator.getLocalIp())
+        .setDstIp(initiator.getPeerAddress())
+        .setSrcPort(NamedPort.EPHEMERAL_LOWEST.number())
+        .setDstPort(NamedPort.BGP.number())
+        .build();
   }
 
   @Nullable
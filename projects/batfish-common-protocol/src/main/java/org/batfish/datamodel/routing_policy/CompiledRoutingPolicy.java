@@ -0,0 +1,455 @@
+package org.batfish.datamodel.routing_policy;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.AsPathAccessList;
+import org.batfish.datamodel.CommunityList;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.RouteFilterList;
+import org.batfish.datamodel.routing_policy.communities.CommunitySetExpr;
+import org.batfish.datamodel.routing_policy.communities.CommunitySetExprReference;
+import org.batfish.datamodel.routing_policy.communities.CommunitySetMatchExpr;
+import org.batfish.datamodel.routing_policy.communities.CommunitySetMatchExprReference;
+import org.batfish.datamodel.routing_policy.communities.MatchCommunities;
+import org.batfish.datamodel.routing_policy.communities.SetCommunities;
+import org.batfish.datamodel.routing_policy.expr.BooleanExpr;
+import org.batfish.datamodel.routing_policy.expr.BooleanExprs.StaticBooleanExpr;
+import org.batfish.datamodel.routing_policy.expr.CallExpr;
+import org.batfish.datamodel.routing_policy.expr.Conjunction;
+import org.batfish.datamodel.routing_policy.expr.Disjunction;
+import org.batfish.datamodel.routing_policy.expr.MatchAsPath;
+import org.batfish.datamodel.routing_policy.expr.MatchCommunitySet;
+import org.batfish.datamodel.routing_policy.expr.MatchPrefixSet;
+import org.batfish.datamodel.routing_policy.expr.NamedAsPathSet;
+import org.batfish.datamodel.routing_policy.expr.NamedCommunitySet;
+import org.batfish.datamodel.routing_policy.expr.NamedPrefixSet;
+import org.batfish.datamodel.routing_policy.expr.Not;
+import org.batfish.datamodel.routing_policy.expr.PrefixExpr;
+import org.batfish.datamodel.routing_policy.statement.CallStatement;
+import org.batfish.datamodel.routing_policy.statement.If;
+import org.batfish.datamodel.routing_policy.statement.Statement;
+import org.batfish.datamodel.routing_policy.statement.Statements.StaticStatement;
+
+/**
+ * A copy of a {@link RoutingPolicy} compiled into a tree of evaluators that behaves exactly like
+ * {@link RoutingPolicy#call(Environment) interpreting} the policy's statements.
+ *
+ * <p>Compilation folds constant guards, conjuncts, disjuncts and terminal statements, drops
+ * unreachable statements, and replaces the interpreter's per-node dispatch with a tree of
+ * evaluators. Statements and expressions without a compiled form are evaluated by the interpreter.
+ *
+ * <p>Compilation also binds named references to the definitions of the owner {@link Configuration}:
+ * calls to other policies (bound to their compiled copies), and named route filter lists, AS-path
+ * access lists, community lists, community set expressions and community set match expressions.
+ * References that cannot be resolved are left to the interpreter, which reports them.
+ *
+ * <p>A compiled policy is a snapshot of its owner's definitions and of its policy's statements. It
+ * is only valid while neither changes, and only for environments built from its owner, so compiled
+ * policies must be created by {@link RoutingPolicy#compileAll(Configuration)} for a single
+ * computation that does not change configurations, and must not escape it. The policies of the
+ * owner are not modified.
+ */
+@ParametersAreNonnullByDefault
+final class CompiledRoutingPolicy extends RoutingPolicy {
+
+  /** A compiled {@link Statement}. */
+  @FunctionalInterface
+  interface CompiledStatement {
+    @Nonnull
+    Result execute(Environment environment);
+  }
+
+  /** A compiled {@link BooleanExpr}. */
+  @FunctionalInterface
+  interface CompiledExpr {
+    @Nonnull
+    Result evaluate(Environment environment);
+  }
+
+  private static final Result FALL_THROUGH = Result.builder().setFallThrough(true).build();
+  private static final Result FALSE = new Result(false);
+  private static final Result TRUE = new Result(true);
+
+  /**
+   * Returns compiled copies of the routing policies of {@code c}, keyed by name, with references
+   * bound to the current definitions of {@code c}.
+   */
+  static @Nonnull Map<String, RoutingPolicy> compile(Configuration c) {
+    ImmutableMap.Builder<String, CompiledRoutingPolicy> copies = ImmutableMap.builder();
+    c.getRoutingPolicies()
+        .forEach((name, policy) -> copies.put(name, new CompiledRoutingPolicy(policy, c)));
+    Map<String, CompiledRoutingPolicy> compiled = copies.build();
+    // compile once all copies exist, so that calls are bound to compiled copies
+    Compiler compiler = new Compiler(c, compiled);
+    compiled
+        .values()
+        .forEach(policy -> policy._compiled = compiler.compileStatements(policy.getStatements()));
+    return ImmutableMap.copyOf(compiled);
+  }
+
+  private transient @Nonnull CompiledStatement[] _compiled;
+
+  private CompiledRoutingPolicy(RoutingPolicy policy, Configuration owner) {
+    super(policy.getName(), owner);
+    super.setStatements(policy.getStatements());
+    _compiled = new CompiledStatement[0];
+  }
+
+  @Override
+  public @Nonnull Result call(Environment environment) {
+    for (CompiledStatement statement : _compiled) {
+      Result result = statement.execute(environment);
+      if (result.getExit()) {
+        return result;
+      }
+      if (result.getReturn()) {
+        return result.toBuilder().setReturn(false).build();
+      }
+    }
+    return Result.builder()
+        .setFallThrough(true)
+        .setBooleanValue(environment.getDefaultAction())
+        .build();
+  }
+
+  /** Compiled policies are immutable: their statements are folded into the compiled form. */
+  @Override
+  public void setStatements(@Nullable List<Statement> statements) {
+    throw new UnsupportedOperationException("Cannot change the statements of a compiled policy");
+  }
+
+  /** Compiles statements and expressions, binding references to the definitions of an owner. */
+  private static final class Compiler {
+
+    private final @Nonnull Configuration _owner;
+    private final @Nonnull Map<String, ? extends RoutingPolicy> _policies;
+
+    private Compiler(Configuration owner, Map<String, ? extends RoutingPolicy> policies) {
+      _owner = owner;
+      _policies = policies;
+    }
+
+    private @Nonnull CompiledStatement[] compileStatements(List<Statement> statements) {
+      ImmutableList.Builder<CompiledStatement> compiled = ImmutableList.builder();
+      for (Statement statement : statements) {
+        CompiledStatement compiledStatement = compileStatement(statement);
+        compiled.add(compiledStatement);
+        if (compiledStatement instanceof ConstantStatement) {
+          Result result = ((ConstantStatement) compiledStatement)._result;
+          if (result.getExit() || result.getReturn()) {
+            // any remaining statements are unreachable
+            break;
+          }
+        }
+      }
+      return compiled.build().toArray(new CompiledStatement[0]);
+    }
+
+    private @Nonnull CompiledStatement compileStatement(Statement statement) {
+      if (statement instanceof If) {
+        return compileIf((If) statement);
+      } else if (statement instanceof StaticStatement) {
+        Result result = constantResult((StaticStatement) statement);
+        if (result != null) {
+          return new ConstantStatement(result);
+        }
+      } else if (statement instanceof CallStatement) {
+        return compileCallStatement((CallStatement) statement);
+      } else if (statement instanceof SetCommunities) {
+        return compileSetCommunities((SetCommunities) statement);
+      }
+      return statement::execute;
+    }
+
+    /** Equivalent to {@link CallStatement#execute(Environment)} with the called policy bound. */
+    private @Nonnull CompiledStatement compileCallStatement(CallStatement callStatement) {
+      RoutingPolicy policy = _policies.get(callStatement.getCalledPolicyName());
+      if (policy == null) {
+        return callStatement::execute;
+      }
+      return environment -> {
+        boolean oldCallStatementContext = environment.getCallStatementContext();
+        environment.setCallStatementContext(true);
+        Result policyResult = policy.call(environment);
+        environment.setCallStatementContext(oldCallStatementContext);
+        return policyResult.toBuilder().setReturn(false).build();
+      };
+    }
+
+    private @Nonnull CompiledStatement compileSetCommunities(SetCommunities setCommunities) {
+      CommunitySetExpr communitySetExpr = bind(setCommunities.getCommunitySetExpr());
+      return communitySetExpr == setCommunities.getCommunitySetExpr()
+          ? setCommunities::execute
+          : new SetCommunities(communitySetExpr)::execute;
+    }
+
+    /**
+     * Returns the result of executing {@code statement} if it is the same in every environment and
+     * executing it has no side effects, or {@code null} otherwise.
+     */
+    private static @Nullable Result constantResult(StaticStatement statement) {
+      switch (statement.getType()) {
+        case ExitAccept:
+          return Result.builder().setExit(true).setBooleanValue(true).build();
+        case ExitReject:
+          return Result.builder().setExit(true).setBooleanValue(false).build();
+        case FallThrough:
+          return Result.builder().setReturn(true).setFallThrough(true).build();
+        case Return:
+          return Result.builder().setReturn(true).build();
+        case ReturnFalse:
+          return Result.builder().setReturn(true).setBooleanValue(false).build();
+        case ReturnTrue:
+          return Result.builder().setReturn(true).setBooleanValue(true).build();
+        default:
+          return null;
+      }
+    }
+
+    private @Nonnull CompiledStatement compileIf(If ifStatement) {
+      CompiledExpr guard = compileExpr(ifStatement.getGuard());
+      CompiledStatement[] trueStatements = compileStatements(ifStatement.getTrueStatements());
+      CompiledStatement[] falseStatements = compileStatements(ifStatement.getFalseStatements());
+      if (guard instanceof ConstantExpr) {
+        // a constant guard never exits, so only one branch is ever executed
+        return ((ConstantExpr) guard)._result.getBooleanValue()
+            ? block(trueStatements)
+            : block(falseStatements);
+      }
+      return environment -> {
+        Result guardResult = guard.evaluate(environment);
+        if (guardResult.getExit()) {
+          return guardResult;
+        }
+        return executeBlock(
+            guardResult.getBooleanValue() ? trueStatements : falseStatements, environment);
+      };
+    }
+
+    /** Returns a statement that executes {@code statements} like the branch of an {@link If}. */
+    private @Nonnull CompiledStatement block(CompiledStatement[] statements) {
+      if (statements.length == 0) {
+        return new ConstantStatement(FALL_THROUGH);
+      } else if (statements.length == 1 && statements[0] instanceof ConstantStatement) {
+        Result result = ((ConstantStatement) statements[0])._result;
+        return result.getExit() || result.getReturn()
+            ? statements[0]
+            : new ConstantStatement(FALL_THROUGH);
+      }
+      return environment -> executeBlock(statements, environment);
+    }
+
+    private static @Nonnull Result executeBlock(
+        CompiledStatement[] statements, Environment environment) {
+      for (CompiledStatement statement : statements) {
+        Result result = statement.execute(environment);
+        if (result.getExit() || result.getReturn()) {
+          return result;
+        }
+      }
+      return FALL_THROUGH;
+    }
+
+    private @Nonnull CompiledExpr compileExpr(BooleanExpr expr) {
+      if (expr instanceof StaticBooleanExpr) {
+        switch (((StaticBooleanExpr) expr).getType()) {
+          case True:
+            return new ConstantExpr(TRUE);
+          case False:
+            return new ConstantExpr(FALSE);
+          default:
+            return expr::evaluate;
+        }
+      } else if (expr instanceof Conjunction) {
+        return compileJunction(((Conjunction) expr).getConjuncts(), true);
+      } else if (expr instanceof Disjunction) {
+        return compileJunction(((Disjunction) expr).getDisjuncts(), false);
+      } else if (expr instanceof Not) {
+        return compileNot((Not) expr);
+      } else if (expr instanceof CallExpr) {
+        return compileCallExpr((CallExpr) expr);
+      } else if (expr instanceof MatchPrefixSet) {
+        return compileMatchPrefixSet((MatchPrefixSet) expr);
+      } else if (expr instanceof MatchAsPath) {
+        return compileMatchAsPath((MatchAsPath) expr);
+      } else if (expr instanceof MatchCommunitySet) {
+        return compileMatchCommunitySet((MatchCommunitySet) expr);
+      } else if (expr instanceof MatchCommunities) {
+        return compileMatchCommunities((MatchCommunities) expr);
+      }
+      return expr::evaluate;
+    }
+
+    /** Equivalent to {@link CallExpr#evaluate(Environment)} with the called policy bound. */
+    private @Nonnull CompiledExpr compileCallExpr(CallExpr callExpr) {
+      RoutingPolicy policy = _policies.get(callExpr.getCalledPolicyName());
+      if (policy == null) {
+        return callExpr::evaluate;
+      }
+      return environment -> {
+        boolean oldCallExprContext = environment.getCallExprContext();
+        boolean oldLocalDefaultAction = environment.getLocalDefaultAction();
+        environment.setCallExprContext(true);
+        Result policyResult = policy.call(environment);
+        environment.setCallExprContext(oldCallExprContext);
+        environment.setLocalDefaultAction(oldLocalDefaultAction);
+        return policyResult.toBuilder().setReturn(false).build();
+      };
+    }
+
+    private @Nonnull CompiledExpr compileMatchPrefixSet(MatchPrefixSet matchPrefixSet) {
+      if (!(matchPrefixSet.getPrefixSet() instanceof NamedPrefixSet)) {
+        return matchPrefixSet::evaluate;
+      }
+      RouteFilterList list =
+          _owner
+              .getRouteFilterLists()
+              .get(((NamedPrefixSet) matchPrefixSet.getPrefixSet()).getName());
+      if (list == null) {
+        return matchPrefixSet::evaluate;
+      }
+      PrefixExpr prefix = matchPrefixSet.getPrefix();
+      return environment -> new Result(list.permits(prefix.evaluate(environment)));
+    }
+
+    private @Nonnull CompiledExpr compileMatchAsPath(MatchAsPath matchAsPath) {
+      if (!(matchAsPath.getExpr() instanceof NamedAsPathSet)) {
+        return matchAsPath::evaluate;
+      }
+      AsPathAccessList list =
+          _owner.getAsPathAccessLists().get(((NamedAsPathSet) matchAsPath.getExpr()).getName());
+      if (list == null) {
+        return matchAsPath::evaluate;
+      }
+      return environment -> new Result(NamedAsPathSet.matches(list, environment));
+    }
+
+    private @Nonnull CompiledExpr compileMatchCommunitySet(MatchCommunitySet matchCommunitySet) {
+      if (!(matchCommunitySet.getExpr() instanceof NamedCommunitySet)) {
+        return matchCommunitySet::evaluate;
+      }
+      CommunityList list =
+          _owner
+              .getCommunityLists()
+              .get(((NamedCommunitySet) matchCommunitySet.getExpr()).getName());
+      if (list == null) {
+        return matchCommunitySet::evaluate;
+      }
+      return new MatchCommunitySet(list)::evaluate;
+    }
+
+    private @Nonnull CompiledExpr compileMatchCommunities(MatchCommunities matchCommunities) {
+      CommunitySetExpr communitySetExpr = bind(matchCommunities.getCommunitySetExpr());
+      CommunitySetMatchExpr communitySetMatchExpr =
+          bind(matchCommunities.getCommunitySetMatchExpr());
+      return communitySetExpr == matchCommunities.getCommunitySetExpr()
+              && communitySetMatchExpr == matchCommunities.getCommunitySetMatchExpr()
+          ? matchCommunities::evaluate
+          : new MatchCommunities(communitySetExpr, communitySetMatchExpr)::evaluate;
+    }
+
+    /** Returns the definition {@code expr} refers to, or {@code expr} if it is not a reference. */
+    private @Nonnull CommunitySetExpr bind(CommunitySetExpr expr) {
+      if (!(expr instanceof CommunitySetExprReference)) {
+        return expr;
+      }
+      CommunitySetExpr definition =
+          _owner.getCommunitySetExprs().get(((CommunitySetExprReference) expr).getName());
+      return definition != null ? definition : expr;
+    }
+
+    /** Returns the definition {@code expr} refers to, or {@code expr} if it is not a reference. */
+    private @Nonnull CommunitySetMatchExpr bind(CommunitySetMatchExpr expr) {
+      if (!(expr instanceof CommunitySetMatchExprReference)) {
+        return expr;
+      }
+      CommunitySetMatchExpr definition =
+          _owner.getCommunitySetMatchExprs().get(((CommunitySetMatchExprReference) expr).getName());
+      return definition != null ? definition : expr;
+    }
+
+    /**
+     * Compiles a {@link Conjunction} (if {@code conjunction}) or {@link Disjunction} of {@code
+     * exprs}. Evaluation stops at the first operand whose value is not the identity of the
+     * operation, and returns that operand's result.
+     */
+    private @Nonnull CompiledExpr compileJunction(List<BooleanExpr> exprs, boolean conjunction) {
+      ImmutableList.Builder<CompiledExpr> operandsBuilder = ImmutableList.builder();
+      Result shortCircuit = null;
+      for (BooleanExpr expr : exprs) {
+        CompiledExpr operand = compileExpr(expr);
+        if (operand instanceof ConstantExpr) {
+          if (((ConstantExpr) operand)._result.getBooleanValue() == conjunction) {
+            // the identity of the operation has no effect
+            continue;
+          }
+          // remaining operands are unreachable
+          shortCircuit = conjunction ? FALSE : TRUE;
+          break;
+        }
+        operandsBuilder.add(operand);
+      }
+      CompiledExpr[] operands = operandsBuilder.build().toArray(new CompiledExpr[0]);
+      Result identity = conjunction ? TRUE : FALSE;
+      Result end = shortCircuit != null ? shortCircuit : identity;
+      if (operands.length == 0) {
+        return new ConstantExpr(end);
+      }
+      return environment -> {
+        for (CompiledExpr operand : operands) {
+          Result result = operand.evaluate(environment);
+          if (result.getExit()) {
+            return result;
+          } else if (result.getBooleanValue() != conjunction) {
+            return result.toBuilder().setReturn(false).build();
+          }
+        }
+        return end;
+      };
+    }
+
+    private @Nonnull CompiledExpr compileNot(Not not) {
+      CompiledExpr expr = compileExpr(not.getExpr());
+      if (expr instanceof ConstantExpr) {
+        return new ConstantExpr(((ConstantExpr) expr)._result.getBooleanValue() ? FALSE : TRUE);
+      }
+      return environment -> {
+        Result result = expr.evaluate(environment);
+        return result.getExit() ? result : new Result(!result.getBooleanValue());
+      };
+    }
+  }
+
+  /** A statement whose execution has no side effects and always returns the same result. */
+  private static final class ConstantStatement implements CompiledStatement {
+    private final @Nonnull Result _result;
+
+    private ConstantStatement(Result result) {
+      _result = result;
+    }
+
+    @Override
+    public @Nonnull Result execute(Environment environment) {
+      return _result;
+    }
+  }
+
+  /** An expression whose evaluation has no side effects and always returns the same result. */
+  private static final class ConstantExpr implements CompiledExpr {
+    private final @Nonnull Result _result;
+
+    private ConstantExpr(Result result) {
+      _result = result;
+    }
+
+    @Override
+    public @Nonnull Result evaluate(Environment environment) {
+      return _result;
+    }
+  }
+}
@@ -0,0 +1,17 @@
+package org.batfish.datamodel.routing_policy;
+
+/** An attribute of a route that a {@link RoutingPolicy} may read or write. */
+public enum RouteAttribute {
+  ADMIN,
+  AS_PATH,
+  COMMUNITIES,
+  LOCAL_PREFERENCE,
+  METRIC,
+  NETWORK,
+  NEXT_HOP,
+  ORIGIN_TYPE,
+  PROTOCOL,
+  SOURCE_VRF,
+  TAG,
+  WEIGHT
+}
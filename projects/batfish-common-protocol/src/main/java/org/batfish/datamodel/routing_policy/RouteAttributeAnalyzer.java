@@ -0,0 +1,305 @@
+package org.batfish.datamodel.routing_policy;
+
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.routing_policy.communities.MatchCommunities;
+import org.batfish.datamodel.routing_policy.communities.SetCommunities;
+import org.batfish.datamodel.routing_policy.expr.AsExpr;
+import org.batfish.datamodel.routing_policy.expr.AsPathListExpr;
+import org.batfish.datamodel.routing_policy.expr.AutoAs;
+import org.batfish.datamodel.routing_policy.expr.BgpPeerAddressNextHop;
+import org.batfish.datamodel.routing_policy.expr.BooleanExpr;
+import org.batfish.datamodel.routing_policy.expr.BooleanExprs.StaticBooleanExpr;
+import org.batfish.datamodel.routing_policy.expr.CallExpr;
+import org.batfish.datamodel.routing_policy.expr.Conjunction;
+import org.batfish.datamodel.routing_policy.expr.ConjunctionChain;
+import org.batfish.datamodel.routing_policy.expr.DecrementLocalPreference;
+import org.batfish.datamodel.routing_policy.expr.DecrementMetric;
+import org.batfish.datamodel.routing_policy.expr.DestinationNetwork;
+import org.batfish.datamodel.routing_policy.expr.DiscardNextHop;
+import org.batfish.datamodel.routing_policy.expr.Disjunction;
+import org.batfish.datamodel.routing_policy.expr.ExplicitAs;
+import org.batfish.datamodel.routing_policy.expr.FirstMatchChain;
+import org.batfish.datamodel.routing_policy.expr.IncrementLocalPreference;
+import org.batfish.datamodel.routing_policy.expr.IncrementMetric;
+import org.batfish.datamodel.routing_policy.expr.IntExpr;
+import org.batfish.datamodel.routing_policy.expr.IpNextHop;
+import org.batfish.datamodel.routing_policy.expr.LiteralAsList;
+import org.batfish.datamodel.routing_policy.expr.LiteralInt;
+import org.batfish.datamodel.routing_policy.expr.LiteralLong;
+import org.batfish.datamodel.routing_policy.expr.LiteralOrigin;
+import org.batfish.datamodel.routing_policy.expr.LocalAs;
+import org.batfish.datamodel.routing_policy.expr.LongExpr;
+import org.batfish.datamodel.routing_policy.expr.MatchAsPath;
+import org.batfish.datamodel.routing_policy.expr.MatchCommunitySet;
+import org.batfish.datamodel.routing_policy.expr.MatchIpv4;
+import org.batfish.datamodel.routing_policy.expr.MatchIpv6;
+import org.batfish.datamodel.routing_policy.expr.MatchMetric;
+import org.batfish.datamodel.routing_policy.expr.MatchPrefixSet;
+import org.batfish.datamodel.routing_policy.expr.MatchProtocol;
+import org.batfish.datamodel.routing_policy.expr.MatchSourceVrf;
+import org.batfish.datamodel.routing_policy.expr.MatchTag;
+import org.batfish.datamodel.routing_policy.expr.NextHopExpr;
+import org.batfish.datamodel.routing_policy.expr.Not;
+import org.batfish.datamodel.routing_policy.expr.RemoteAs;
+import org.batfish.datamodel.routing_policy.expr.RouteIsClassful;
+import org.batfish.datamodel.routing_policy.expr.SelfNextHop;
+import org.batfish.datamodel.routing_policy.expr.UnchangedNextHop;
+import org.batfish.datamodel.routing_policy.statement.AddCommunity;
+import org.batfish.datamodel.routing_policy.statement.CallStatement;
+import org.batfish.datamodel.routing_policy.statement.Comment;
+import org.batfish.datamodel.routing_policy.statement.DeleteCommunity;
+import org.batfish.datamodel.routing_policy.statement.If;
+import org.batfish.datamodel.routing_policy.statement.PrependAsPath;
+import org.batfish.datamodel.routing_policy.statement.SetAdministrativeCost;
+import org.batfish.datamodel.routing_policy.statement.SetCommunity;
+import org.batfish.datamodel.routing_policy.statement.SetDefaultPolicy;
+import org.batfish.datamodel.routing_policy.statement.SetLocalPreference;
+import org.batfish.datamodel.routing_policy.statement.SetMetric;
+import org.batfish.datamodel.routing_policy.statement.SetNextHop;
+import org.batfish.datamodel.routing_policy.statement.SetOrigin;
+import org.batfish.datamodel.routing_policy.statement.SetTag;
+import org.batfish.datamodel.routing_policy.statement.SetWeight;
+import org.batfish.datamodel.routing_policy.statement.Statement;
+import org.batfish.datamodel.routing_policy.statement.Statements.StaticStatement;
+
+/**
+ * Statically determines the {@link RouteAttribute route attributes} that a {@link RoutingPolicy}
+ * may read or write when processing a BGP route.
+ *
+ * <p>The analysis is conservative: a policy that contains any statement or expression whose
+ * accesses are not modeled here, or that may read state other than the route and the BGP session,
+ * is not analyzable.
+ */
+@ParametersAreNonnullByDefault
+public final class RouteAttributeAnalyzer {
+
+  /**
+   * Returns every {@link RouteAttribute} that {@code policy} or any policy it may call may read or
+   * write when processing a BGP route, or {@link Optional#empty()} if the policy cannot be
+   * analyzed.
+   *
+   * <p>Apart from these attributes, the outcome of processing a route with an analyzable policy
+   * depends only on the BGP session properties, the direction, and the definitions of the owner of
+   * the policy.
+   */
+  public static @Nonnull Optional<Set<RouteAttribute>> accessedBgpRouteAttributes(
+      RoutingPolicy policy) {
+    Configuration owner = policy.getOwner();
+    if (owner == null) {
+      return Optional.empty();
+    }
+    RouteAttributeAnalyzer analyzer = new RouteAttributeAnalyzer(owner.getRoutingPolicies());
+    try {
+      analyzer.visitPolicy(policy.getName());
+    } catch (UnsupportedException e) {
+      return Optional.empty();
+    }
+    return Optional.of(analyzer._attributes);
+  }
+
+  /** Thrown when the analysis encounters a construct whose route accesses are not modeled. */
+  private static final class UnsupportedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private UnsupportedException() {
+      super(null, null, false, false);
+    }
+  }
+
+  private final @Nonnull Set<RouteAttribute> _attributes;
+  private final @Nonnull Map<String, RoutingPolicy> _routingPolicies;
+  private final @Nonnull Set<String> _visitedPolicies;
+
+  private RouteAttributeAnalyzer(Map<String, RoutingPolicy> routingPolicies) {
+    _attributes = EnumSet.noneOf(RouteAttribute.class);
+    _routingPolicies = routingPolicies;
+    _visitedPolicies = new HashSet<>();
+  }
+
+  private static UnsupportedException unsupported() {
+    return new UnsupportedException();
+  }
+
+  private void visitPolicy(String name) {
+    if (!_visitedPolicies.add(name)) {
+      return;
+    }
+    RoutingPolicy policy = _routingPolicies.get(name);
+    if (policy == null) {
+      // evaluation of an undefined policy has no route accesses
+      return;
+    }
+    visitStatements(policy.getStatements());
+  }
+
+  private void visitStatements(List<Statement> statements) {
+    statements.forEach(this::visitStatement);
+  }
+
+  private void visitExprs(List<BooleanExpr> exprs) {
+    exprs.forEach(this::visitExpr);
+  }
+
+  private void visitStatement(Statement statement) {
+    if (statement instanceof If) {
+      If ifStatement = (If) statement;
+      visitExpr(ifStatement.getGuard());
+      visitStatements(ifStatement.getTrueStatements());
+      visitStatements(ifStatement.getFalseStatements());
+    } else if (statement instanceof CallStatement) {
+      visitPolicy(((CallStatement) statement).getCalledPolicyName());
+    } else if (statement instanceof SetDefaultPolicy) {
+      // the default policy may be called by a chain
+      visitPolicy(((SetDefaultPolicy) statement).getDefaultPolicy());
+    } else if (statement instanceof Comment) {
+      // no effect
+    } else if (statement instanceof StaticStatement) {
+      visitStaticStatement((StaticStatement) statement);
+    } else if (statement instanceof AddCommunity
+        || statement instanceof DeleteCommunity
+        || statement instanceof SetCommunity
+        || statement instanceof SetCommunities) {
+      _attributes.add(RouteAttribute.COMMUNITIES);
+    } else if (statement instanceof PrependAsPath) {
+      visitAsPathList(((PrependAsPath) statement).getExpr());
+      _attributes.add(RouteAttribute.AS_PATH);
+    } else if (statement instanceof SetAdministrativeCost) {
+      visitIntExpr(((SetAdministrativeCost) statement).getAdmin());
+      _attributes.add(RouteAttribute.ADMIN);
+    } else if (statement instanceof SetLocalPreference) {
+      visitLongExpr(((SetLocalPreference) statement).getLocalPreference());
+      _attributes.add(RouteAttribute.LOCAL_PREFERENCE);
+    } else if (statement instanceof SetMetric) {
+      visitLongExpr(((SetMetric) statement).getMetric());
+      _attributes.add(RouteAttribute.METRIC);
+    } else if (statement instanceof SetNextHop) {
+      visitNextHop(((SetNextHop) statement).getExpr());
+      _attributes.add(RouteAttribute.NEXT_HOP);
+    } else if (statement instanceof SetOrigin) {
+      if (!(((SetOrigin) statement).getOriginType() instanceof LiteralOrigin)) {
+        throw unsupported();
+      }
+      _attributes.add(RouteAttribute.ORIGIN_TYPE);
+    } else if (statement instanceof SetTag) {
+      visitLongExpr(((SetTag) statement).getTag());
+      _attributes.add(RouteAttribute.TAG);
+    } else if (statement instanceof SetWeight) {
+      visitIntExpr(((SetWeight) statement).getWeight());
+      _attributes.add(RouteAttribute.WEIGHT);
+    } else {
+      throw unsupported();
+    }
+  }
+
+  private void visitStaticStatement(StaticStatement statement) {
+    switch (statement.getType()) {
+      case RemovePrivateAs:
+        _attributes.add(RouteAttribute.AS_PATH);
+        return;
+      case SetReadIntermediateBgpAttributes:
+      case SetWriteIntermediateBgpAttributes:
+      case UnsetWriteIntermediateBgpAttributes:
+        // intermediate attributes are read from and written to state outside the route
+        throw unsupported();
+      default:
+        // remaining statements only manipulate the control flow of the policy
+        return;
+    }
+  }
+
+  private void visitExpr(BooleanExpr expr) {
+    if (expr instanceof StaticBooleanExpr
+        || expr instanceof MatchIpv4
+        || expr instanceof MatchIpv6) {
+      // no route accesses beyond the type of the route
+    } else if (expr instanceof CallExpr) {
+      visitPolicy(((CallExpr) expr).getCalledPolicyName());
+    } else if (expr instanceof Conjunction) {
+      visitExprs(((Conjunction) expr).getConjuncts());
+    } else if (expr instanceof ConjunctionChain) {
+      visitExprs(((ConjunctionChain) expr).getSubroutines());
+    } else if (expr instanceof Disjunction) {
+      visitExprs(((Disjunction) expr).getDisjuncts());
+    } else if (expr instanceof FirstMatchChain) {
+      visitExprs(((FirstMatchChain) expr).getSubroutines());
+    } else if (expr instanceof Not) {
+      visitExpr(((Not) expr).getExpr());
+    } else if (expr instanceof MatchAsPath) {
+      _attributes.add(RouteAttribute.AS_PATH);
+    } else if (expr instanceof MatchCommunities || expr instanceof MatchCommunitySet) {
+      _attributes.add(RouteAttribute.COMMUNITIES);
+    } else if (expr instanceof MatchMetric) {
+      visitLongExpr(((MatchMetric) expr).getMetric());
+      _attributes.add(RouteAttribute.METRIC);
+    } else if (expr instanceof MatchPrefixSet) {
+      if (!(((MatchPrefixSet) expr).getPrefix() instanceof DestinationNetwork)) {
+        throw unsupported();
+      }
+      _attributes.add(RouteAttribute.NETWORK);
+    } else if (expr instanceof MatchProtocol) {
+      _attributes.add(RouteAttribute.PROTOCOL);
+    } else if (expr instanceof MatchSourceVrf) {
+      _attributes.add(RouteAttribute.SOURCE_VRF);
+    } else if (expr instanceof MatchTag) {
+      visitLongExpr(((MatchTag) expr).getTag());
+      _attributes.add(RouteAttribute.TAG);
+    } else if (expr instanceof RouteIsClassful) {
+      _attributes.add(RouteAttribute.NETWORK);
+    } else {
+      throw unsupported();
+    }
+  }
+
+  private void visitAsPathList(AsPathListExpr expr) {
+    if (!(expr instanceof LiteralAsList)) {
+      throw unsupported();
+    }
+    for (AsExpr as : ((LiteralAsList) expr).getList()) {
+      if (as instanceof AutoAs) {
+        // reads the first AS of the path for incoming routes
+        _attributes.add(RouteAttribute.AS_PATH);
+      } else if (!(as instanceof ExplicitAs || as instanceof LocalAs || as instanceof RemoteAs)) {
+        throw unsupported();
+      }
+    }
+  }
+
+  private void visitIntExpr(IntExpr expr) {
+    if (!(expr instanceof LiteralInt)) {
+      throw unsupported();
+    }
+  }
+
+  private void visitLongExpr(LongExpr expr) {
+    if (expr instanceof LiteralLong) {
+      // constant
+    } else if (expr instanceof DecrementLocalPreference
+        || expr instanceof IncrementLocalPreference) {
+      _attributes.add(RouteAttribute.LOCAL_PREFERENCE);
+    } else if (expr instanceof DecrementMetric || expr instanceof IncrementMetric) {
+      _attributes.add(RouteAttribute.METRIC);
+    } else {
+      throw unsupported();
+    }
+  }
+
+  private void visitNextHop(NextHopExpr expr) {
+    // UnchangedNextHop reads the next hop of the original route, which is also the written
+    // attribute
+    if (!(expr instanceof BgpPeerAddressNextHop
+        || expr instanceof DiscardNextHop
+        || expr instanceof IpNextHop
+        || expr instanceof SelfNextHop
+        || expr instanceof UnchangedNextHop)) {
+      throw unsupported();
+    }
+  }
+}
@@ -112,6 +112,19 @@ public class RoutingPolicy implements Serializable {
     return s.startsWith("~");
   }
 
+  /**
+   * Returns compiled copies of all routing policies of {@code c}, keyed by name. Compiled policies
+   * do not re-evaluate constant expressions, dispatch on the type of each statement and expression,
+   * or look up the policies and lists they refer to.
+   *
+   * <p>The copies are bound to the definitions of {@code c} at the time of this call, and {@code c}
+   * is not modified. They must only be used while {@code c} does not change, e.g. during a single
+   * dataplane computation.
+   */
+  public static @Nonnull Map<String, RoutingPolicy> compileAll(Configuration c) {
+    return CompiledRoutingPolicy.compile(c);
+  }
+
   public Result call(Environment environment) {
     for (Statement statement : _statements) {
       Result result = statement.execute(environment);
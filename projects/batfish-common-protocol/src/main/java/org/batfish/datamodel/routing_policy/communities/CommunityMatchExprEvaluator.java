@@ -1,8 +1,8 @@
 package org.batfish.datamodel.routing_policy.communities;
 
 import javax.annotation.Nonnull;
-import org.batfish.common.util.PatternProvider;
 import org.batfish.datamodel.LineAction;
+import org.batfish.datamodel.bgp.BgpRegexMatcher;
 import org.batfish.datamodel.bgp.community.Community;
 import org.batfish.datamodel.bgp.community.ExtendedCommunity;
 import org.batfish.datamodel.bgp.community.LargeCommunity;
@@ -97,12 +97,8 @@ public final class CommunityMatchExprEvaluator
   @Override
   public @Nonnull Boolean visitCommunityMatchRegex(
       CommunityMatchRegex communityMatchRegex, Community arg) {
-    return PatternProvider.fromString(communityMatchRegex.getRegex())
-        .matcher(
-            communityMatchRegex
-                .getCommunityRendering()
-                .accept(CommunityToRegexInputString.instance(), arg))
-        .find();
+    return BgpRegexMatcher.matchesCommunity(
+        communityMatchRegex.getRegex(), communityMatchRegex.getCommunityRendering(), arg);
   }
 
   @Override
@@ -1,8 +1,8 @@
 package org.batfish.datamodel.routing_policy.communities;
 
 import javax.annotation.Nonnull;
-import org.batfish.common.util.PatternProvider;
 import org.batfish.datamodel.LineAction;
+import org.batfish.datamodel.bgp.BgpRegexMatcher;
 import org.batfish.datamodel.bgp.community.Community;
 
 /** A visitor for evaluating a {@link CommunitySetMatchExpr} under a {@link CommunityContext}. */
@@ -58,12 +58,8 @@ public final class CommunitySetMatchExprEvaluator
   @Override
   public @Nonnull Boolean visitCommunitySetMatchRegex(
       CommunitySetMatchRegex communitySetMatchRegex, CommunitySet arg) {
-    return PatternProvider.fromString(communitySetMatchRegex.getRegex())
-        .matcher(
-            communitySetMatchRegex
-                .getCommunitySetRendering()
-                .accept(CommunitySetToRegexInputString.instance(), arg))
-        .find();
+    return BgpRegexMatcher.matchesCommunitySet(
+        communitySetMatchRegex.getRegex(), communitySetMatchRegex.getCommunitySetRendering(), arg);
   }
 
   @Override
@@ -48,9 +48,21 @@ public final class CommunitySetToRegexInputString
   }
 
   private static final CommunityPriority COMMUNITY_PRIORITY = new CommunityPriority();
-  private static final Comparator<Community> TYPES_FIRST_ASCENDING_COMPARATOR =
+
+  /**
+   * The order in which {@link TypesFirstAscendingSpaceSeparated} renders communities: standard,
+   * then extended, then large communities, each in ascending numeric order.
+   */
+  public static final Comparator<Community> TYPES_FIRST_ASCENDING_COMPARATOR =
       Comparator.<Community, Integer>comparing(c -> c.accept(COMMUNITY_PRIORITY))
-          .thenComparing(Community::asBigInt);
+          .thenComparing(
+              (c1, c2) ->
+                  // Standard communities fit in a long; avoid allocating BigIntegers for them.
+                  c1 instanceof StandardCommunity && c2 instanceof StandardCommunity
+                      ? Long.compare(
+                          ((StandardCommunity) c1).asLong(), ((StandardCommunity) c2).asLong())
+                      : c1.asBigInt().compareTo(c2.asBigInt()));
+
   private static final CommunitySetToRegexInputString INSTANCE =
       new CommunitySetToRegexInputString();
 
@@ -48,29 +48,30 @@ public final class NamedAsPathSet extends AsPathSetExpr {
   public boolean matches(Environment environment) {
     AsPathAccessList list = environment.getAsPathAccessLists().get(_name);
     if (list != null) {
-      boolean match = false;
-      AsPath inputAsPath = null;
-      if (environment.getUseOutputAttributes()
-          && environment.getOutputRoute() instanceof BgpRoute.Builder<?, ?>) {
-        BgpRoute.Builder<?, ?> bgpRouteBuilder =
-            (BgpRoute.Builder<?, ?>) environment.getOutputRoute();
-        inputAsPath = bgpRouteBuilder.getAsPath();
-      } else if (environment.getReadFromIntermediateBgpAttributes()) {
-        inputAsPath = environment.getIntermediateBgpAttributes().getAsPath();
-      } else if (environment.getOriginalRoute() instanceof BgpRoute) {
-        BgpRoute<?, ?> bgpRoute = (BgpRoute<?, ?>) environment.getOriginalRoute();
-        inputAsPath = bgpRoute.getAsPath();
-      }
-      if (inputAsPath != null) {
-        match = list.permits(inputAsPath);
-      }
-      return match;
+      return matches(list, environment);
     } else {
       environment.setError(true);
       return false;
     }
   }
 
+  /** Returns whether {@code list} permits the AS path of the route being processed. */
+  public static boolean matches(AsPathAccessList list, Environment environment) {
+    AsPath inputAsPath = null;
+    if (environment.getUseOutputAttributes()
+        && environment.getOutputRoute() instanceof BgpRoute.Builder<?, ?>) {
+      BgpRoute.Builder<?, ?> bgpRouteBuilder =
+          (BgpRoute.Builder<?, ?>) environment.getOutputRoute();
+      inputAsPath = bgpRouteBuilder.getAsPath();
+    } else if (environment.getReadFromIntermediateBgpAttributes()) {
+      inputAsPath = environment.getIntermediateBgpAttributes().getAsPath();
+    } else if (environment.getOriginalRoute() instanceof BgpRoute) {
+      BgpRoute<?, ?> bgpRoute = (BgpRoute<?, ?>) environment.getOriginalRoute();
+      inputAsPath = bgpRoute.getAsPath();
+    }
+    return inputAsPath != null && list.permits(inputAsPath);
+  }
+
   @JsonProperty(PROP_NAME)
   public void setName(String name) {
     _name = name;
@@ -0,0 +1,499 @@
+package org.batfish.datamodel.table;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.batfish.common.AnswerRowsOptions;
+import org.batfish.common.ColumnFilter;
+import org.batfish.common.ColumnSortOption;
+import org.batfish.common.util.BatfishObjectMapper;
+import org.batfish.datamodel.answers.AnswerSummary;
+
+/**
+ * A compact, column-oriented copy of the rows of a {@link TableAnswerElement}, used to serve pages
+ * of large answers without materializing all of their rows.
+ *
+ * <p>Each cell is kept as serialized JSON, and is only parsed when it is needed: to evaluate a
+ * filter or a sort on its column, or to build a row of the requested page. The rows matching each
+ * {@link ColumnFilter} and the order of the rows in each filtered and sorted view are cached, so
+ * paging through a view only parses the cells of the rows on each page.
+ *
+ * <p>Pages are identical to those computed from the full table by the coordinator: filters are
+ * applied first, then the sort order, then the projection to the requested columns, then removal of
+ * duplicate rows, and finally the offset and maximum number of rows.
+ *
+ * <p>Instances are thread-safe, and can be {@link #serialize serialized} to a compressed binary
+ * format.
+ */
+@ParametersAreNonnullByDefault
+public final class ColumnarTable {
+
+  private static final int FORMAT_VERSION = 1;
+
+  /** Maximum number of cached filter results and cached views. */
+  private static final int MAX_CACHED_INDICES = 32;
+
+  /** Creates a columnar copy of the rows of {@code table}. */
+  public static @Nonnull ColumnarTable create(TableAnswerElement table) {
+    List<Row> rows = table.getRowsList();
+    int numRows = rows.size();
+    Map<String, Integer> columnIndices = new LinkedHashMap<>();
+    List<ByteArrayOutputStream> data = new ArrayList<>();
+    List<int[]> offsets = new ArrayList<>();
+    Map<List<Integer>, Integer> layoutIndices = new HashMap<>();
+    int[] rowLayouts = new int[numRows];
+    try {
+      for (int i = 0; i < numRows; i++) {
+        ImmutableList.Builder<Integer> layout = ImmutableList.builder();
+        Iterator<Entry<String, JsonNode>> fields = rows.get(i).fields();
+        while (fields.hasNext()) {
+          Entry<String, JsonNode> field = fields.next();
+          int column =
+              columnIndices.computeIfAbsent(
+                  field.getKey(),
+                  k -> {
+                    data.add(new ByteArrayOutputStream());
+                    offsets.add(new int[numRows + 1]);
+                    return data.size() - 1;
+                  });
+          layout.add(column);
+          data.get(column).write(BatfishObjectMapper.mapper().writeValueAsBytes(field.getValue()));
+        }
+        rowLayouts[i] = layoutIndices.computeIfAbsent(layout.build(), k -> layoutIndices.size());
+        for (int column = 0; column < data.size(); column++) {
+          offsets.get(column)[i + 1] = data.get(column).size();
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    int[][] layouts = new int[layoutIndices.size()][];
+    layoutIndices.forEach(
+        (layout, index) -> layouts[index] = layout.stream().mapToInt(Integer::intValue).toArray());
+    return new ColumnarTable(
+        table.getMetadata(),
+        table.getSummary(),
+        columnIndices.keySet().toArray(new String[0]),
+        layouts,
+        rowLayouts,
+        offsets.toArray(new int[0][]),
+        data.stream().map(ByteArrayOutputStream::toByteArray).toArray(byte[][]::new));
+  }
+
+  private final @Nonnull TableMetadata _metadata;
+  private final @Nullable AnswerSummary _summary;
+  private final @Nonnull String[] _columns;
+  private final @Nonnull Map<String, Integer> _columnIndices;
+
+  /** The distinct orders of the columns of the rows, as indices into {@link #_columns}. */
+  private final @Nonnull int[][] _layouts;
+
+  /** The index into {@link #_layouts} of each row. */
+  private final @Nonnull int[] _rowLayouts;
+
+  /**
+   * For each column, the offset in {@link #_data} of the cell of each row, followed by the length
+   * of the column's data. A row does not have a column iff its cell is empty.
+   */
+  private final @Nonnull int[][] _offsets;
+
+  /** For each column, the concatenated JSON serializations of its cells. */
+  private final @Nonnull byte[][] _data;
+
+  private final @Nonnull Cache<ColumnFilter, BitSet> _filterMatches;
+  private final @Nonnull Cache<Entry<List<ColumnFilter>, List<ColumnSortOption>>, int[]> _views;
+
+  private ColumnarTable(
+      TableMetadata metadata,
+      @Nullable AnswerSummary summary,
+      String[] columns,
+      int[][] layouts,
+      int[] rowLayouts,
+      int[][] offsets,
+      byte[][] data) {
+    _metadata = metadata;
+    _summary = summary;
+    _columns = columns;
+    ImmutableMap.Builder<String, Integer> columnIndices = ImmutableMap.builder();
+    for (int i = 0; i < columns.length; i++) {
+      columnIndices.put(columns[i], i);
+    }
+    _columnIndices = columnIndices.build();
+    _layouts = layouts;
+    _rowLayouts = rowLayouts;
+    _offsets = offsets;
+    _data = data;
+    _filterMatches = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_INDICES).build();
+    _views = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_INDICES).build();
+  }
+
+  public @Nonnull TableMetadata getMetadata() {
+    return _metadata;
+  }
+
+  public int getNumRows() {
+    return _rowLayouts.length;
+  }
+
+  /** Returns the approximate number of bytes used by the cells and indices of this table. */
+  public long getSizeInBytes() {
+    long size = 4L * _rowLayouts.length;
+    for (int column = 0; column < _columns.length; column++) {
+      size += _data[column].length + 4L * _offsets[column].length;
+    }
+    return size;
+  }
+
+  /**
+   * Returns the page of this table specified by {@code options}.
+   *
+   * @param comparators creates the comparator for a sort order
+   * @throws NoSuchElementException if a row does not have a column to filter or project on
+   */
+  public @Nonnull TableAnswerElement getAnswerTable(
+      AnswerRowsOptions options, Function<List<ColumnSortOption>, Comparator<Row>> comparators) {
+    TableAnswerElement table = new TableAnswerElement(getPageMetadata(options));
+    int[] view = getView(options, comparators);
+    getPage(view, options).values().forEach(table::addRow);
+    table.setSummary(getPageSummary(view));
+    return table;
+  }
+
+  /**
+   * Returns the page of this table specified by {@code options} as a {@link TableView}, whose row
+   * IDs are the indices of the rows in the original table.
+   *
+   * @param comparators creates the comparator for a sort order
+   * @throws NoSuchElementException if a row does not have a column to filter or project on
+   */
+  public @Nonnull TableView getTableView(
+      AnswerRowsOptions options, Function<List<ColumnSortOption>, Comparator<Row>> comparators) {
+    int[] view = getView(options, comparators);
+    ImmutableList.Builder<TableViewRow> rows = ImmutableList.builder();
+    getPage(view, options).forEach((rowId, row) -> rows.add(new TableViewRow(rowId, row)));
+    TableView tableView = new TableView(options, rows.build(), getPageMetadata(options));
+    tableView.setSummary(getPageSummary(view));
+    return tableView;
+  }
+
+  private @Nonnull TableMetadata getPageMetadata(AnswerRowsOptions options) {
+    if (options.getColumns().isEmpty()) {
+      return _metadata;
+    }
+    Map<String, ColumnMetadata> columnMap = new LinkedHashMap<>(_metadata.toColumnMap());
+    columnMap.keySet().retainAll(options.getColumns());
+    return new TableMetadata(ImmutableList.copyOf(columnMap.values()), _metadata.getTextDesc());
+  }
+
+  private @Nonnull AnswerSummary getPageSummary(int[] view) {
+    return _summary == null
+        ? new AnswerSummary("", 0, 0, view.length)
+        : new AnswerSummary(
+            _summary.getNotes(), _summary.getNumFailed(), _summary.getNumPassed(), view.length);
+  }
+
+  /** Returns the IDs and projected rows of the page of {@code view}, in order. */
+  private @Nonnull Map<Integer, Row> getPage(int[] view, AnswerRowsOptions options) {
+    checkArgument(options.getRowOffset() >= 0, "Row offset must be nonnegative");
+    checkArgument(options.getMaxRows() >= 0, "Max rows must be nonnegative");
+    Map<Integer, Row> page = new LinkedHashMap<>();
+    if (!options.getUniqueRows()) {
+      long end = Math.min(view.length, (long) options.getRowOffset() + options.getMaxRows());
+      for (int i = options.getRowOffset(); i < end; i++) {
+        page.put(view[i], getRow(view[i], options.getColumns()));
+      }
+      return page;
+    }
+    Set<Row> seen = new HashSet<>();
+    int skipped = 0;
+    for (int i = 0; i < view.length && page.size() < options.getMaxRows(); i++) {
+      Row row = getRow(view[i], options.getColumns());
+      if (!seen.add(row)) {
+        continue;
+      }
+      if (skipped < options.getRowOffset()) {
+        skipped++;
+        continue;
+      }
+      page.put(view[i], row);
+    }
+    return page;
+  }
+
+  /** Returns the indices of the rows matching the filters of {@code options}, in sorted order. */
+  private @Nonnull int[] getView(
+      AnswerRowsOptions options, Function<List<ColumnSortOption>, Comparator<Row>> comparators) {
+    return getCached(
+        _views,
+        Maps.immutableEntry(options.getFilters(), options.getSortOrder()),
+        () -> {
+          int[] filtered = filter(options.getFilters());
+          return options.getSortOrder().isEmpty()
+              ? filtered
+              : sort(filtered, options.getSortOrder(), comparators.apply(options.getSortOrder()));
+        });
+  }
+
+  private @Nonnull int[] filter(List<ColumnFilter> filters) {
+    List<BitSet> matches = new ArrayList<>(filters.size());
+    List<Integer> columns = new ArrayList<>(filters.size());
+    for (ColumnFilter filter : filters) {
+      matches.add(getCached(_filterMatches, filter, () -> computeMatches(filter)));
+      columns.add(_columnIndices.get(filter.getColumn()));
+    }
+    int[] filtered = new int[getNumRows()];
+    int numFiltered = 0;
+    rows:
+    for (int row = 0; row < getNumRows(); row++) {
+      for (int i = 0; i < filters.size(); i++) {
+        Integer column = columns.get(i);
+        if (column == null || !hasCell(column, row)) {
+          throw missingColumn(filters.get(i).getColumn(), row);
+        }
+        if (!matches.get(i).get(row)) {
+          continue rows;
+        }
+      }
+      filtered[numFiltered++] = row;
+    }
+    return Arrays.copyOf(filtered, numFiltered);
+  }
+
+  private @Nonnull BitSet computeMatches(ColumnFilter filter) {
+    BitSet matches = new BitSet(getNumRows());
+    Integer column = _columnIndices.get(filter.getColumn());
+    if (column == null) {
+      return matches;
+    }
+    for (int row = 0; row < getNumRows(); row++) {
+      if (hasCell(column, row) && filter.matches(getCell(column, row))) {
+        matches.set(row);
+      }
+    }
+    return matches;
+  }
+
+  private @Nonnull int[] sort(
+      int[] rows, List<ColumnSortOption> sortOrder, Comparator<Row> comparator) {
+    List<String> sortColumns =
+        sortOrder.stream()
+            .map(ColumnSortOption::getColumn)
+            .distinct()
+            .collect(ImmutableList.toImmutableList());
+    Map<Integer, Row> keys = new HashMap<>();
+    for (int row : rows) {
+      boolean hasSortColumns =
+          sortColumns.stream()
+              .allMatch(c -> _columnIndices.containsKey(c) && hasCell(_columnIndices.get(c), row));
+      // let the comparator report any missing column
+      keys.put(row, hasSortColumns ? getRow(row, sortColumns) : getRow(row, ImmutableList.of()));
+    }
+    // Arrays.sort is stable for objects, as is sorting a stream of rows
+    Integer[] sorted = Arrays.stream(rows).boxed().toArray(Integer[]::new);
+    Arrays.sort(sorted, Comparator.comparing(keys::get, comparator));
+    return Arrays.stream(sorted).mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * Returns {@code row} projected to {@code columns} in the given order, or the whole row if {@code
+   * columns} is empty.
+   *
+   * @throws NoSuchElementException if the row does not have one of {@code columns}
+   */
+  private @Nonnull Row getRow(int row, Collection<String> columns) {
+    ObjectNode data = BatfishObjectMapper.mapper().createObjectNode();
+    if (columns.isEmpty()) {
+      for (int column : _layouts[_rowLayouts[row]]) {
+        data.set(_columns[column], getCell(column, row));
+      }
+    } else {
+      for (String columnName : columns) {
+        Integer column = _columnIndices.get(columnName);
+        if (column == null || !hasCell(column, row)) {
+          throw missingColumn(columnName, row);
+        }
+        data.set(columnName, getCell(column, row));
+      }
+    }
+    return Row.wrap(data);
+  }
+
+  private @Nonnull NoSuchElementException missingColumn(String columnName, int row) {
+    Set<String> rowColumns = new HashSet<>();
+    for (int column : _layouts[_rowLayouts[row]]) {
+      rowColumns.add(_columns[column]);
+    }
+    return new NoSuchElementException(Row.missingColumnErrorMessage(columnName, rowColumns));
+  }
+
+  private boolean hasCell(int column, int row) {
+    return _offsets[column][row + 1] > _offsets[column][row];
+  }
+
+  private @Nonnull JsonNode getCell(int column, int row) {
+    int start = _offsets[column][row];
+    try {
+      return BatfishObjectMapper.mapper()
+          .readTree(_data[column], start, _offsets[column][row + 1] - start);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static <K, V> V getCached(Cache<K, V> cache, K key, Callable<V> loader) {
+    try {
+      return cache.get(key, loader);
+    } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      } else if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /** Writes this table to {@code out} in a compressed binary format, and closes the stream. */
+  public void serialize(OutputStream out) throws IOException {
+    try (DataOutputStream dataOut =
+        new DataOutputStream(new BufferedOutputStream(new LZ4FrameOutputStream(out)))) {
+      dataOut.writeInt(FORMAT_VERSION);
+      writeBytes(dataOut, BatfishObjectMapper.mapper().writeValueAsBytes(_metadata));
+      writeBytes(
+          dataOut,
+          _summary == null ? null : BatfishObjectMapper.mapper().writeValueAsBytes(_summary));
+      dataOut.writeInt(_columns.length);
+      for (String column : _columns) {
+        writeBytes(dataOut, column.getBytes(StandardCharsets.UTF_8));
+      }
+      dataOut.writeInt(_layouts.length);
+      for (int[] layout : _layouts) {
+        writeInts(dataOut, layout);
+      }
+      writeInts(dataOut, _rowLayouts);
+      for (int column = 0; column < _columns.length; column++) {
+        writeInts(dataOut, _offsets[column]);
+        writeBytes(dataOut, _data[column]);
+      }
+    }
+  }
+
+  /**
+   * Reads a table written by {@link #serialize}, and closes the stream.
+   *
+   * @throws IOException if the stream does not contain a table in the current format
+   */
+  public static @Nonnull ColumnarTable deserialize(InputStream in) throws IOException {
+    try (DataInputStream dataIn =
+        new DataInputStream(new BufferedInputStream(new LZ4FrameInputStream(in)))) {
+      int version = dataIn.readInt();
+      if (version != FORMAT_VERSION) {
+        throw new IOException(String.format("Unsupported columnar table version: %d", version));
+      }
+      TableMetadata metadata =
+          BatfishObjectMapper.mapper().readValue(readBytes(dataIn), TableMetadata.class);
+      byte[] summaryBytes = readBytes(dataIn);
+      AnswerSummary summary =
+          summaryBytes == null
+              ? null
+              : BatfishObjectMapper.mapper().readValue(summaryBytes, AnswerSummary.class);
+      String[] columns = new String[dataIn.readInt()];
+      for (int i = 0; i < columns.length; i++) {
+        columns[i] = new String(readBytes(dataIn), StandardCharsets.UTF_8);
+      }
+      int[][] layouts = new int[dataIn.readInt()][];
+      for (int i = 0; i < layouts.length; i++) {
+        layouts[i] = readInts(dataIn);
+      }
+      int[] rowLayouts = readInts(dataIn);
+      int[][] offsets = new int[columns.length][];
+      byte[][] data = new byte[columns.length][];
+      for (int column = 0; column < columns.length; column++) {
+        offsets[column] = readInts(dataIn);
+        data[column] = readBytes(dataIn);
+      }
+      return new ColumnarTable(metadata, summary, columns, layouts, rowLayouts, offsets, data);
+    }
+  }
+
+  private static void writeBytes(DataOutputStream out, @Nullable byte[] bytes) throws IOException {
+    if (bytes == null) {
+      out.writeInt(-1);
+      return;
+    }
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static @Nullable byte[] readBytes(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return bytes;
+  }
+
+  private static void writeInts(DataOutputStream out, int[] ints) throws IOException {
+    out.writeInt(ints.length);
+    for (int i : ints) {
+      out.writeInt(i);
+    }
+  }
+
+  private static @Nonnull int[] readInts(DataInputStream in) throws IOException {
+    int[] ints = new int[in.readInt()];
+    for (int i = 0; i < ints.length; i++) {
+      ints[i] = in.readInt();
+    }
+    return ints;
+  }
+
+  @VisibleForTesting
+  int getNumLayouts() {
+    return _layouts.length;
+  }
+}
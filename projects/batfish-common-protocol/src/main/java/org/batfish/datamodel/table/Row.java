@@ -19,9 +19,11 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
@@ -177,6 +179,11 @@ public class Row implements Comparable<Row>, Serializable {
     _data = firstNonNull(data, BatfishObjectMapper.mapper().createObjectNode());
   }
 
+  /** Returns a row backed by {@code data}, which must not be modified afterwards. */
+  static @Nonnull Row wrap(ObjectNode data) {
+    return new Row(data);
+  }
+
   /** Returns an {@link UntypedRowBuilder} object for Row */
   public static UntypedRowBuilder builder() {
     return new UntypedRowBuilder();
@@ -393,6 +400,12 @@ public class Row implements Comparable<Row>, Serializable {
     return _data.toString();
   }
 
+  /** Returns the columns of this row and their values, in the order they were added. */
+  @Nonnull
+  Iterator<Entry<String, JsonNode>> fields() {
+    return _data.fields();
+  }
+
   public boolean hasNonNull(String column) {
     return _data.hasNonNull(column);
   }
@@ -12,6 +12,7 @@ import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.TokenStream;
 import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.dfa.DFA;
 import org.batfish.common.BatfishException;
 import org.batfish.grammar.flattener.FlattenerLineMap;
 
@@ -79,6 +80,7 @@ public abstract class BatfishCombinedParser<P extends BatfishParser, L extends B
     }
     _parser.initErrorListener(this);
     _parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+    _parser.setInterpreter(new InstrumentedParserATNSimulator(_parser.getInterpreter()));
   }
 
   public BatfishCombinedParser(
@@ -167,6 +169,47 @@ public abstract class BatfishCombinedParser<P extends BatfishParser, L extends B
     return _recovery;
   }
 
+  /** Returns the prediction statistics of this parser so far. */
+  public PredictionStatistics getPredictionStatistics() {
+    return ((InstrumentedParserATNSimulator) _parser.getInterpreter()).getStatistics();
+  }
+
+  /**
+   * Returns the number of states in the DFA caches of this grammar's parser and lexer. These caches
+   * are shared by all parsers for the grammar in this JVM, and grow as new inputs are parsed.
+   */
+  public int getDfaStateCount() {
+    return countStates(_parser.getInterpreter().decisionToDFA)
+        + countStates(_lexer.getInterpreter().decisionToDFA);
+  }
+
+  /**
+   * Returns the number of entries in the prediction context cache of this grammar's parser. Like
+   * the DFA caches, it is shared by all parsers for the grammar, and emptied by {@link
+   * #clearDfaCache()}.
+   */
+  public int getPredictionContextCount() {
+    return _parser.getInterpreter().getSharedContextCache().size();
+  }
+
+  private static int countStates(DFA[] dfas) {
+    int states = 0;
+    for (DFA dfa : dfas) {
+      states += dfa.states.size();
+    }
+    return states;
+  }
+
+  /**
+   * Empties the DFA caches of this grammar's parser and lexer, and the parser's prediction context
+   * cache. Parsers for the grammar that are running concurrently are not affected, other than
+   * having to rebuild the caches.
+   */
+  public void clearDfaCache() {
+    _parser.getInterpreter().clearDFA();
+    _lexer.getInterpreter().clearDFA();
+  }
+
   public GrammarSettings getSettings() {
     return _settings;
   }
@@ -194,6 +237,18 @@ public abstract class BatfishCombinedParser<P extends BatfishParser, L extends B
 
   public abstract ParserRuleContext parse();
 
+  /**
+   * Restricts this parser to the characters of its input in {@code [start, stop)}, which must begin
+   * at the start of line {@code line}. Tokens get the same character indices and lines as when
+   * parsing the whole input. Must be called before {@link #parse()}.
+   */
+  void setRegion(int start, int stop, int line) {
+    _lexer.setInputStream(new RegionCharStream(_input, start, stop));
+    _lexer.setLine(line);
+    _tokens.setTokenSource(_lexer);
+    _parser.setTokenStream(_tokens);
+  }
+
   public void setLexerErrorListener(BatfishLexerErrorListener lexerErrorListener) {
     _lexerErrorListener = lexerErrorListener;
   }
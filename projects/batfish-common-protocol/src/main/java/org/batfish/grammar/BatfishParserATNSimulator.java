@@ -15,7 +15,7 @@ import org.batfish.grammar.BatfishANTLRErrorStrategy.BatfishRecognitionException
  * {@link #adaptivePredict} function with a recovery mechanism. Intended for use with a {@link
  * BatfishParser} employing a {@link BatfishANTLRErrorStrategy} as its error recovery strategy.
  */
-public class BatfishParserATNSimulator extends ParserATNSimulator {
+public class BatfishParserATNSimulator extends InstrumentedParserATNSimulator {
 
   private NoViableAltException _exception;
   private BatfishParser _parser;
@@ -26,8 +26,7 @@ public class BatfishParserATNSimulator extends ParserATNSimulator {
    * @param parent The {@link ParserATNSimulator} to emulate modulo {@link #adaptivePredict}.
    */
   public BatfishParserATNSimulator(ParserATNSimulator parent) {
-    super(parent.getParser(), parent.atn, parent.decisionToDFA, parent.getSharedContextCache());
-    setPredictionMode(parent.getPredictionMode());
+    super(parent);
     _parser = (BatfishParser) parser;
   }
 
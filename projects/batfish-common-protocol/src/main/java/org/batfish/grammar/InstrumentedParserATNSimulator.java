@@ -0,0 +1,100 @@
+package org.batfish.grammar;
+
+import com.google.common.collect.MapMaker;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.RuleContext;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.atn.ATNConfigSet;
+import org.antlr.v4.runtime.atn.ATNState;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionContextCache;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.dfa.DFAState;
+
+/**
+ * Clones an existing {@link ParserATNSimulator}, sharing its DFA cache, and records {@link
+ * PredictionStatistics}. Only DFA cache misses are timed, so the overhead on warm predictions is
+ * just a counter increment.
+ *
+ * <p>Instead of the generated parser's static {@link PredictionContextCache}, which cannot be
+ * emptied, the simulators of a grammar share a {@link ClearablePredictionContextCache} so that it
+ * can be reset along with the DFA cache.
+ */
+public class InstrumentedParserATNSimulator extends ParserATNSimulator {
+
+  /** A {@link PredictionContextCache} that can be emptied. */
+  static final class ClearablePredictionContextCache extends PredictionContextCache {
+    /**
+     * Empties this cache. {@link ParserATNSimulator} synchronizes on the cache while using it, so
+     * this is safe to call while other parsers are running.
+     */
+    synchronized void clear() {
+      cache.clear();
+    }
+  }
+
+  /** The shared prediction context cache of each grammar, keyed by the grammar's DFA cache. */
+  private static final Map<DFA[], ClearablePredictionContextCache> CONTEXT_CACHES =
+      new MapMaker().weakKeys().makeMap();
+
+  private int _decision;
+  private final @Nonnull PredictionStatistics _statistics;
+
+  /**
+   * Construct a {@link InstrumentedParserATNSimulator} from a {@link ParserATNSimulator}
+   *
+   * @param parent The {@link ParserATNSimulator} to emulate
+   */
+  public InstrumentedParserATNSimulator(ParserATNSimulator parent) {
+    super(
+        parent.getParser(),
+        parent.atn,
+        parent.decisionToDFA,
+        CONTEXT_CACHES.computeIfAbsent(
+            parent.decisionToDFA, d -> new ClearablePredictionContextCache()));
+    setPredictionMode(parent.getPredictionMode());
+    _statistics = new PredictionStatistics(parent.decisionToDFA.length);
+  }
+
+  /**
+   * Empties the DFA cache and the prediction context cache shared by all parsers for this grammar.
+   */
+  @Override
+  public void clearDFA() {
+    super.clearDFA();
+    ((ClearablePredictionContextCache) sharedContextCache).clear();
+  }
+
+  public @Nonnull PredictionStatistics getStatistics() {
+    return _statistics;
+  }
+
+  @Override
+  public int adaptivePredict(TokenStream input, int decision, ParserRuleContext outerContext) {
+    _decision = decision;
+    _statistics.recordPrediction();
+    return super.adaptivePredict(input, decision, outerContext);
+  }
+
+  @Override
+  protected ATNConfigSet computeStartState(ATNState p, RuleContext ctx, boolean fullCtx) {
+    long start = System.nanoTime();
+    try {
+      return super.computeStartState(p, ctx, fullCtx);
+    } finally {
+      _statistics.recordDfaMiss(_decision, System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  protected DFAState computeTargetState(DFA dfa, DFAState previousD, int t) {
+    long start = System.nanoTime();
+    try {
+      return super.computeTargetState(dfa, previousD, t);
+    } finally {
+      _statistics.recordDfaMiss(dfa.decision, System.nanoTime() - start);
+    }
+  }
+}
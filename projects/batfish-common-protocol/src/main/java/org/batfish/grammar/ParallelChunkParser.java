@@ -0,0 +1,191 @@
+package org.batfish.grammar;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import org.batfish.common.BatfishException;
+
+/**
+ * Parses large line-oriented configurations, such as flattened Juniper and Palo Alto
+ * configurations, on several threads.
+ *
+ * <p>The input is split into chunks of whole top-level statements, the chunks are parsed
+ * concurrently by separate parsers, and their parse trees are spliced together in input order.
+ * Tokens have the same character indices and lines as in a serial parse, and the spliced tree is
+ * extracted serially as usual, so warnings and line numbers are the same as for a serial parse.
+ *
+ * <p>This requires a grammar whose start rule is a sequence of statements followed by {@code EOF},
+ * and whose lexer is in the same state at the start of every top-level statement as at the start of
+ * the input.
+ */
+@ParametersAreNonnullByDefault
+public final class ParallelChunkParser {
+
+  /** The minimum number of characters per chunk: smaller inputs are split in fewer chunks. */
+  private static final int MIN_CHUNK_LENGTH = 1 << 19;
+
+  @VisibleForTesting
+  static final class Chunk {
+    private final int _start;
+    private final int _stop;
+    private final int _line;
+    private @Nullable BatfishCombinedParser<?, ?> _parser;
+    private @Nullable ParserRuleContext _tree;
+
+    Chunk(int start, int stop, int line) {
+      _start = start;
+      _stop = stop;
+      _line = line;
+    }
+
+    int getStart() {
+      return _start;
+    }
+
+    int getStop() {
+      return _stop;
+    }
+
+    int getLine() {
+      return _line;
+    }
+  }
+
+  /**
+   * Parses the input of {@code parser} in up to {@code maxChunks} chunks in parallel.
+   *
+   * <p>Chunks only start at lines matching {@code statementStart}, outside of double-quoted
+   * strings. Each chunk is parsed by a new parser from {@code newParser}, which must have the same
+   * input, settings and line map as {@code parser}. The warnings and prediction statistics of the
+   * chunk parsers are added to those of {@code parser}, in input order.
+   *
+   * <p>A chunk boundary that falls inside a multi-line token, e.g. a quoted string whose quoting
+   * rules differ from the simple ones used for splitting, leaves an unterminated token at the end
+   * of a chunk. So if any chunk has errors, the chunk results are discarded: the caller should then
+   * parse serially, which also reports the errors exactly as usual.
+   *
+   * @return the parse tree, or {@code null} if the input is too small to be split or a chunk had
+   *     errors, in which case {@code parser} is unchanged
+   */
+  public static @Nullable ParserRuleContext parse(
+      BatfishCombinedParser<?, ?> parser,
+      Supplier<? extends BatfishCombinedParser<?, ?>> newParser,
+      Pattern statementStart,
+      int maxChunks) {
+    return parse(parser, newParser, statementStart, maxChunks, MIN_CHUNK_LENGTH);
+  }
+
+  @VisibleForTesting
+  static @Nullable ParserRuleContext parse(
+      BatfishCombinedParser<?, ?> parser,
+      Supplier<? extends BatfishCombinedParser<?, ?>> newParser,
+      Pattern statementStart,
+      int maxChunks,
+      int minChunkLength) {
+    String text = parser.getInput();
+    int numChunks = Math.min(maxChunks, text.length() / minChunkLength);
+    if (numChunks < 2 || text.chars().anyMatch(c -> Character.isSurrogate((char) c))) {
+      return null;
+    }
+    List<Chunk> chunks = split(text, statementStart, numChunks);
+    if (chunks.size() < 2) {
+      return null;
+    }
+    boolean clean =
+        chunks.parallelStream()
+            .allMatch(
+                chunk -> {
+                  BatfishCombinedParser<?, ?> chunkParser = newParser.get();
+                  chunkParser.setRegion(chunk._start, chunk._stop, chunk._line);
+                  try {
+                    chunk._tree = chunkParser.parse();
+                  } catch (BatfishException e) {
+                    return false;
+                  }
+                  chunk._parser = chunkParser;
+                  return chunkParser.getErrors().isEmpty();
+                });
+    if (!clean) {
+      return null;
+    }
+    ParserRuleContext root = chunks.get(0)._tree;
+    assert root != null;
+    for (Chunk chunk : chunks) {
+      assert chunk._parser != null && chunk._tree != null;
+      parser.getWarnings().addAll(chunk._parser.getWarnings());
+      parser.getPredictionStatistics().add(chunk._parser.getPredictionStatistics());
+      if (chunk._tree != root) {
+        splice(root, chunk._tree);
+      }
+    }
+    return root;
+  }
+
+  /**
+   * Splits {@code text} into at most {@code numChunks} chunks of roughly equal length, each but the
+   * first starting at a line matching {@code statementStart} outside of double-quoted strings.
+   */
+  @VisibleForTesting
+  static @Nonnull List<Chunk> split(String text, Pattern statementStart, int numChunks) {
+    ImmutableList.Builder<Chunk> chunks = ImmutableList.builder();
+    Matcher matcher = statementStart.matcher(text);
+    int start = 0;
+    int startLine = 1;
+    int pos = 0;
+    int line = 1;
+    boolean inQuotes = false;
+    for (int c = 1; c < numChunks && pos < text.length(); c++) {
+      int target = (int) ((long) text.length() * c / numChunks);
+      int split = -1;
+      while (pos < text.length() && split < 0) {
+        char ch = text.charAt(pos);
+        if (ch == '"' && (pos == 0 || text.charAt(pos - 1) != '\\')) {
+          inQuotes = !inQuotes;
+        }
+        pos++;
+        if (ch == '\n') {
+          line++;
+          if (pos >= target
+              && !inQuotes
+              && pos < text.length()
+              && matcher.region(pos, text.length()).lookingAt()) {
+            split = pos;
+          }
+        }
+      }
+      if (split < 0) {
+        break;
+      }
+      chunks.add(new Chunk(start, split, startLine));
+      start = split;
+      startLine = line;
+    }
+    chunks.add(new Chunk(start, text.length(), startLine));
+    return chunks.build();
+  }
+
+  /** Appends the statements of {@code tree} to those of {@code root}, moving {@code EOF}. */
+  private static void splice(ParserRuleContext root, ParserRuleContext tree) {
+    ParseTree last = root.getChild(root.getChildCount() - 1);
+    if (last instanceof TerminalNode && ((TerminalNode) last).getSymbol().getType() == Token.EOF) {
+      root.children.remove(root.children.size() - 1);
+    }
+    for (ParseTree child : tree.children) {
+      child.setParent(root);
+      root.addAnyChild(child);
+    }
+    root.stop = tree.stop;
+  }
+
+  private ParallelChunkParser() {}
+}
@@ -0,0 +1,55 @@
+package org.batfish.grammar;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * Counters for the adaptive predictions made by one parser.
+ *
+ * <p>A prediction that cannot be answered from the grammar's shared DFA cache falls back to ATN
+ * simulation, which adds states to the cache. The time spent in those DFA misses is recorded per
+ * decision, since it is where a cold parser spends its time.
+ */
+@ParametersAreNonnullByDefault
+public final class PredictionStatistics {
+
+  private long _predictions;
+  private long _dfaMisses;
+  private final long[] _dfaMissNanos;
+
+  PredictionStatistics(int numDecisions) {
+    _dfaMissNanos = new long[numDecisions];
+  }
+
+  void recordPrediction() {
+    _predictions++;
+  }
+
+  void recordDfaMiss(int decision, long nanos) {
+    _dfaMisses++;
+    _dfaMissNanos[decision] += nanos;
+  }
+
+  /** Adds the counts of {@code other}, which must be for the same grammar, to these. */
+  public void add(PredictionStatistics other) {
+    _predictions += other._predictions;
+    _dfaMisses += other._dfaMisses;
+    for (int i = 0; i < _dfaMissNanos.length; i++) {
+      _dfaMissNanos[i] += other._dfaMissNanos[i];
+    }
+  }
+
+  /** The number of adaptive predictions made. */
+  public long getPredictions() {
+    return _predictions;
+  }
+
+  /** The number of DFA cache misses, each of which required ATN simulation. */
+  public long getDfaMisses() {
+    return _dfaMisses;
+  }
+
+  /** The time spent in DFA cache misses, in nanoseconds, indexed by decision number. */
+  public long[] getDfaMissNanos() {
+    return _dfaMissNanos;
+  }
+}
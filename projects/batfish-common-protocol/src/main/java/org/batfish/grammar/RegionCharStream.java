@@ -0,0 +1,84 @@
+package org.batfish.grammar;
+
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+/**
+ * A {@link CharStream} over the characters of a string in {@code [start, stop)}, indexed as in the
+ * whole string. Lexing it yields the tokens of that region of the string, with the same character
+ * indices as when lexing the whole string.
+ *
+ * <p>Supports only strings without supplementary characters, for which character indices coincide
+ * with the code point indices of {@link org.antlr.v4.runtime.CharStreams#fromString(String)}.
+ */
+@ParametersAreNonnullByDefault
+final class RegionCharStream implements CharStream {
+
+  private int _index;
+  private final int _stop;
+  private final @Nonnull String _text;
+
+  RegionCharStream(String text, int start, int stop) {
+    _text = text;
+    _index = start;
+    _stop = stop;
+  }
+
+  @Override
+  public void consume() {
+    if (_index >= _stop) {
+      throw new IllegalStateException("cannot consume EOF");
+    }
+    _index++;
+  }
+
+  @Override
+  public int LA(int i) {
+    if (i == 0) {
+      return 0;
+    }
+    int offset = i > 0 ? _index + i - 1 : _index + i;
+    if (offset < 0 || offset >= _stop) {
+      return IntStream.EOF;
+    }
+    return _text.charAt(offset);
+  }
+
+  @Override
+  public int mark() {
+    return -1;
+  }
+
+  @Override
+  public void release(int marker) {}
+
+  @Override
+  public int index() {
+    return _index;
+  }
+
+  @Override
+  public void seek(int index) {
+    _index = index;
+  }
+
+  @Override
+  public int size() {
+    return _stop;
+  }
+
+  @Override
+  public String getSourceName() {
+    return IntStream.UNKNOWN_SOURCE_NAME;
+  }
+
+  @Override
+  public String getText(Interval interval) {
+    int start = Math.min(interval.a, _stop);
+    int stop = Math.min(interval.b + 1, _stop);
+    return start >= stop ? "" : _text.substring(start, stop);
+  }
+}
@@ -13,9 +13,9 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.io.ByteStreams;
-import com.google.common.io.Closer;
 import com.google.common.io.MoreFiles;
 import com.google.errorprone.annotations.MustBeClosed;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -34,6 +34,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Base64;
@@ -46,11 +47,14 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
@@ -58,6 +62,8 @@ import net.jpountz.lz4.LZ4FrameInputStream;
 import net.jpountz.lz4.LZ4FrameOutputStream;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.commons.io.output.CloseShieldOutputStream;
 import org.batfish.common.BatfishException;
 import org.batfish.common.BatfishLogger;
 import org.batfish.common.BfConsts;
@@ -69,6 +75,7 @@ import org.batfish.common.topology.Layer1Topology;
 import org.batfish.common.topology.Layer2Topology;
 import org.batfish.common.util.BatfishObjectMapper;
 import org.batfish.common.util.ZipUtility;
+import org.batfish.common.util.serialization.BinarySerialization;
 import org.batfish.datamodel.AnalysisMetadata;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.DataPlane;
@@ -125,6 +132,7 @@ public class FileBasedStorage implements StorageProvider {
   private static final String RELPATH_ANSWERS_DIR = "answers";
   private static final String RELPATH_ANSWER_METADATA = "answer_metadata.json";
   private static final String RELPATH_ANSWER_JSON = "answer.json";
+  private static final String RELPATH_ANSWER_COLUMNS = "answer_columns.bin";
   private static final String RELPATH_ANALYSES_DIR = "analyses";
   private static final String RELPATH_BATFISH_CONFIGS_DIR = "batfish";
   private static final String RELPATH_ISP_CONFIG_FILE = "isp_config.json";
@@ -140,18 +148,34 @@ public class FileBasedStorage implements StorageProvider {
   private static final String RELPATH_SNAPSHOTS_DIR = "snapshots";
   private static final String RELPATH_OUTPUT = "output";
 
+  /**
+   * The {@link Format} in which serialized objects are written by default. Objects in {@link
+   * Format#BATFISH_BINARY} can be read, but are only written when explicitly requested.
+   */
+  public static final Format DEFAULT_SERIALIZATION_FORMAT = Format.LZ4;
+
   private final BatfishLogger _logger;
   private final BiFunction<String, Integer, AtomicInteger> _newBatch;
   private final Path _baseDir;
+  private final Format _serializationFormat;
 
   /**
    * Create a new {@link FileBasedStorage} instance that uses the given root path and job batch
-   * provider function.
+   * provider function, and writes serialized objects in the given {@link Format}. Objects in any
+   * supported format can be read regardless.
    */
   public FileBasedStorage(
-      Path baseDir, BatfishLogger logger, BiFunction<String, Integer, AtomicInteger> newBatch) {
+      Path baseDir,
+      BatfishLogger logger,
+      BiFunction<String, Integer, AtomicInteger> newBatch,
+      Format serializationFormat) {
+    checkArgument(
+        serializationFormat != Format.UNKNOWN,
+        "Cannot serialize objects in format %s",
+        serializationFormat);
     _logger = logger;
     _newBatch = newBatch;
+    _serializationFormat = serializationFormat;
     try {
       _baseDir = baseDir.toFile().getCanonicalFile().toPath();
     } catch (IOException e) {
@@ -160,6 +184,15 @@ public class FileBasedStorage implements StorageProvider {
     }
   }
 
+  /**
+   * Create a new {@link FileBasedStorage} instance that uses the given root path and job batch
+   * provider function.
+   */
+  public FileBasedStorage(
+      Path baseDir, BatfishLogger logger, BiFunction<String, Integer, AtomicInteger> newBatch) {
+    this(baseDir, logger, newBatch, DEFAULT_SERIALIZATION_FORMAT);
+  }
+
   /**
    * Create a new {@link FileBasedStorage} instance that uses the given root path job and whose job
    * batch provider function is a NOP.
@@ -170,12 +203,12 @@ public class FileBasedStorage implements StorageProvider {
 
   /**
    * Returns the configuration files for the given testrig. If a serialized copy of these
-   * configurations is not already present, then this function returns {@code null}.
+   * configurations is not already present, then this function returns {@code null}. Each
+   * configuration is deserialized on first access.
    */
   @Override
   @Nullable
-  public SortedMap<String, Configuration> loadConfigurations(
-      NetworkId network, SnapshotId snapshot) {
+  public LazyConfigurations loadConfigurations(NetworkId network, SnapshotId snapshot) {
     Path indepDir = getVendorIndependentConfigDir(network, snapshot);
     // If the directory that would contain these configs does not even exist, no cache exists.
     if (!Files.exists(indepDir)) {
@@ -191,22 +224,22 @@ public class FileBasedStorage implements StorageProvider {
       return null;
     }
 
-    _logger.info("\n*** DESERIALIZING VENDOR-INDEPENDENT CONFIGURATION STRUCTURES ***\n");
-    Map<Path, String> namesByPath = new TreeMap<>();
+    SortedSet<String> hostnames = new TreeSet<>();
     try (DirectoryStream<Path> stream = Files.newDirectoryStream(indepDir)) {
       for (Path serializedConfig : stream) {
-        String name = serializedConfig.getFileName().toString();
-        namesByPath.put(serializedConfig, name);
+        hostnames.add(serializedConfig.getFileName().toString());
       }
     } catch (IOException e) {
       throw new BatfishException(
           "Error reading vendor-independent configs directory: '" + indepDir + "'", e);
     }
-    try {
-      return deserializeObjects(namesByPath, Configuration.class);
-    } catch (BatfishException e) {
-      return null;
-    }
+    return new LazyConfigurations(
+        hostnames,
+        hostname -> {
+          Path inputPath = indepDir.resolve(hostname);
+          _logger.debugf("Reading configuration '%s' from '%s'\n", hostname, inputPath);
+          return deserializeObject(inputPath, Configuration.class);
+        });
   }
 
   @Override
@@ -464,9 +497,40 @@ public class FileBasedStorage implements StorageProvider {
   public void storeAnswer(String answerStr, AnswerId answerId) throws IOException {
     Path answerPath = getAnswerPath(answerId);
     mkdirs(answerPath.getParent());
+    // the columnar answer was derived from the answer being replaced
+    deleteIfExists(getAnswerColumnsPath(answerId));
     writeStringToFile(answerPath, answerStr, UTF_8);
   }
 
+  /**
+   * Answers are replaced by moving a new file into place, so the file key (e.g. inode),
+   * modification time, and size of the answer file identify its version.
+   */
+  @Override
+  public @Nonnull String getAnswerVersion(AnswerId answerId)
+      throws FileNotFoundException, IOException {
+    Path answerPath = getAnswerPath(answerId);
+    if (!exists(answerPath)) {
+      throw new FileNotFoundException(String.format("Could not find answer with ID: %s", answerId));
+    }
+    BasicFileAttributes attributes =
+        Files.readAttributes(validatePath(answerPath), BasicFileAttributes.class);
+    return String.format(
+        "%s:%d:%d",
+        attributes.fileKey(),
+        attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS),
+        attributes.size());
+  }
+
+  @Override
+  public void storeAnswerColumns(InputStream inputStream, AnswerId answerId) throws IOException {
+    try {
+      writeStreamToFile(inputStream, getAnswerColumnsPath(answerId));
+    } finally {
+      inputStream.close();
+    }
+  }
+
   @Override
   public void storeAnswerMetadata(AnswerMetadata answerMetadata, AnswerId answerId)
       throws IOException {
@@ -476,33 +540,14 @@ public class FileBasedStorage implements StorageProvider {
   }
 
   /**
-   * Returns a single object of the given class deserialized from the given file. Uses the {@link
-   * FileBasedStorage} default file encoding including serialization format and compression.
+   * Returns a single object of the given class deserialized from the given file. Detects the
+   * serialization format and compression of the file.
    */
-  @SuppressWarnings("PMD.CloseResource") // PMD does not understand Closer
   private <S extends Serializable> S deserializeObject(Path inputFile, Class<S> outputClass)
       throws BatfishException {
     Path sanitizedInputFile = validatePath(inputFile);
-    try (Closer closer = Closer.create()) {
-      FileInputStream fis = closer.register(new FileInputStream(sanitizedInputFile.toFile()));
-      PushbackInputStream pbstream = new PushbackInputStream(fis, DEFAULT_HEADER_LENGTH_BYTES);
-      Format f = detectFormat(pbstream);
-      ObjectInputStream ois;
-      if (f == Format.GZIP) {
-        GZIPInputStream gis =
-            closer.register(new GZIPInputStream(pbstream, 8192 /* enlarge buffer */));
-        ois = new ObjectInputStream(gis);
-      } else if (f == Format.LZ4) {
-        LZ4FrameInputStream lis = closer.register(new LZ4FrameInputStream(pbstream));
-        ois = new ObjectInputStream(lis);
-      } else if (f == Format.JAVA_SERIALIZED) {
-        ois = new ObjectInputStream(pbstream);
-      } else {
-        throw new BatfishException(
-            String.format("Could not detect format of the file %s", sanitizedInputFile));
-      }
-      closer.register(ois);
-      return outputClass.cast(ois.readObject());
+    try (InputStream in = Files.newInputStream(sanitizedInputFile)) {
+      return deserializeObject(in, outputClass);
     } catch (Exception e) {
       throw new BatfishException(
           String.format(
@@ -512,6 +557,33 @@ public class FileBasedStorage implements StorageProvider {
     }
   }
 
+  /**
+   * Returns a single object of the given class deserialized from the given stream, in any supported
+   * {@link Format}. Does not close {@code in}.
+   */
+  public static <S extends Serializable> S deserializeObject(InputStream in, Class<S> outputClass)
+      throws IOException, ClassNotFoundException {
+    PushbackInputStream pbstream =
+        new PushbackInputStream(new CloseShieldInputStream(in), DEFAULT_HEADER_LENGTH_BYTES);
+    Format f = detectFormat(pbstream);
+    if (f == Format.BATFISH_BINARY) {
+      return outputClass.cast(BinarySerialization.deserialize(pbstream));
+    }
+    InputStream uncompressed;
+    if (f == Format.GZIP) {
+      uncompressed = new GZIPInputStream(pbstream, 8192 /* enlarge buffer */);
+    } else if (f == Format.LZ4) {
+      uncompressed = new LZ4FrameInputStream(pbstream);
+    } else if (f == Format.JAVA_SERIALIZED) {
+      uncompressed = pbstream;
+    } else {
+      throw new BatfishException("Could not detect serialization format");
+    }
+    try (ObjectInputStream ois = new ObjectInputStream(uncompressed)) {
+      return outputClass.cast(ois.readObject());
+    }
+  }
+
   private <S extends Serializable> SortedMap<String, S> deserializeObjects(
       Map<Path, String> namesByPath, Class<S> outputClass) {
     String outputClassName = outputClass.getName();
@@ -537,17 +609,15 @@ public class FileBasedStorage implements StorageProvider {
 
   /**
    * Writes a single object of the given class to the given file. Uses the {@link FileBasedStorage}
-   * default file encoding including serialization format and compression.
+   * serialization format and compression.
    */
   private void serializeObject(Serializable object, Path outputFile) {
     Path sanitizedOutputFile = validatePath(outputFile);
     try {
       Path tmpFile = Files.createTempFile(null, null);
       try {
-        try (OutputStream out = Files.newOutputStream(tmpFile);
-            LZ4FrameOutputStream gos = new LZ4FrameOutputStream(out);
-            ObjectOutputStream oos = new ObjectOutputStream(gos)) {
-          oos.writeObject(object);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmpFile))) {
+          serializeObject(object, out, _serializationFormat);
         } catch (Throwable e) {
           throw new BatfishException(
               "Failed to serialize object to output file: " + sanitizedOutputFile, e);
@@ -562,6 +632,38 @@ public class FileBasedStorage implements StorageProvider {
     }
   }
 
+  /**
+   * Writes {@code object} to {@code out} in the given {@link Format}. Does not close {@code out}.
+   */
+  public static void serializeObject(Serializable object, OutputStream out, Format format)
+      throws IOException {
+    OutputStream nonClosing = new CloseShieldOutputStream(out);
+    switch (format) {
+      case BATFISH_BINARY:
+        BinarySerialization.serialize(object, out);
+        return;
+      case GZIP:
+        try (ObjectOutputStream oos = new ObjectOutputStream(new GZIPOutputStream(nonClosing))) {
+          oos.writeObject(object);
+        }
+        return;
+      case JAVA_SERIALIZED:
+        try (ObjectOutputStream oos = new ObjectOutputStream(nonClosing)) {
+          oos.writeObject(object);
+        }
+        return;
+      case LZ4:
+        try (ObjectOutputStream oos =
+            new ObjectOutputStream(new LZ4FrameOutputStream(nonClosing))) {
+          oos.writeObject(object);
+        }
+        return;
+      default:
+        throw new IllegalArgumentException(
+            String.format("Cannot serialize objects in format %s", format));
+    }
+  }
+
   private <S extends Serializable> void serializeObjects(Map<Path, S> objectsByPath) {
     if (objectsByPath.isEmpty()) {
       return;
@@ -631,12 +733,33 @@ public class FileBasedStorage implements StorageProvider {
         .readValue(answerMetadataPath.toFile(), new TypeReference<AnswerMetadata>() {});
   }
 
+  @MustBeClosed
+  @Override
+  public @Nonnull InputStream loadAnswerColumns(AnswerId answerId)
+      throws FileNotFoundException, IOException {
+    Path answerColumnsPath = getAnswerColumnsPath(answerId);
+    if (!exists(answerColumnsPath)) {
+      throw new FileNotFoundException(
+          String.format("Could not find columnar answer for ID: %s", answerId));
+    }
+    return Files.newInputStream(validatePath(answerColumnsPath));
+  }
+
+  @Override
+  public boolean hasAnswerColumns(AnswerId answerId) {
+    return exists(getAnswerColumnsPath(answerId));
+  }
+
   @VisibleForTesting
   @Nonnull
   Path getAnswerPath(AnswerId answerId) {
     return getAnswerDir(answerId).resolve(RELPATH_ANSWER_JSON);
   }
 
+  private @Nonnull Path getAnswerColumnsPath(AnswerId answerId) {
+    return getAnswerDir(answerId).resolve(RELPATH_ANSWER_COLUMNS);
+  }
+
   private @Nonnull Path getAnswerMetadataPath(AnswerId answerId) {
     return getAnswerDir(answerId).resolve(RELPATH_ANSWER_METADATA);
   }
@@ -884,6 +1007,11 @@ public class FileBasedStorage implements StorageProvider {
         getSnapshotInputObjectPath(snapshot.getNetwork(), snapshot.getSnapshot(), key));
   }
 
+  @Override
+  public void deleteSnapshot(NetworkSnapshot snapshot) throws IOException {
+    deleteDirectory(getSnapshotDir(snapshot.getNetwork(), snapshot.getSnapshot()));
+  }
+
   @Override
   public @Nonnull List<StoredObjectMetadata> getSnapshotInputObjectsMetadata(
       NetworkId networkId, SnapshotId snapshotId) throws IOException {
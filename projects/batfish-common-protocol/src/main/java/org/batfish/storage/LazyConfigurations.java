@@ -0,0 +1,160 @@
+package org.batfish.storage;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ForwardingSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.Collection;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.common.BatfishException;
+import org.batfish.datamodel.Configuration;
+
+/**
+ * An unmodifiable map from hostname to {@link Configuration} that loads each configuration on first
+ * access.
+ *
+ * <p>Accessing a few nodes by hostname therefore only loads those nodes. Iterating over the {@link
+ * #values()} or {@link #entrySet()} first loads all nodes in parallel, since every node will be
+ * accessed anyway.
+ *
+ * <p>Loaded configurations are strongly referenced for the lifetime of the map, so each hostname
+ * always maps to the same instance and changes made to it are kept. Memory is reclaimed by dropping
+ * the whole map, e.g., when its snapshot is evicted from the cache of loaded snapshots.
+ */
+@ParametersAreNonnullByDefault
+public final class LazyConfigurations extends ForwardingSortedMap<String, Configuration> {
+
+  /**
+   * Creates a map with the given keys whose values are computed by {@code loader} on first access.
+   * The {@code loader} must return a new {@link Configuration} on each invocation.
+   */
+  public LazyConfigurations(SortedSet<String> hostnames, Function<String, Configuration> loader) {
+    _hostnames = ImmutableSortedSet.copyOfSorted(hostnames);
+    _loader = loader;
+    _cache = CacheBuilder.newBuilder().build(CacheLoader.from(loader::apply));
+    _delegate = Maps.asMap(_hostnames, this::load);
+  }
+
+  /**
+   * Returns a new {@link LazyConfigurations} with the same hostnames, in which {@code
+   * postProcessor} is applied to each configuration when it is loaded. Configurations already
+   * loaded in this map are not shared with the new map.
+   */
+  public @Nonnull LazyConfigurations postProcessed(Consumer<Configuration> postProcessor) {
+    return new LazyConfigurations(
+        _hostnames,
+        hostname -> {
+          Configuration c = _loader.apply(hostname);
+          postProcessor.accept(c);
+          return c;
+        });
+  }
+
+  /**
+   * Returns a new {@link LazyConfigurations} with the same hostnames, which loads a configuration
+   * from the map supplied by {@code repair} when it cannot be loaded from this one, e.g., because
+   * its serialized copy is corrupt or incompatible. {@code repair} is invoked at most once.
+   */
+  public @Nonnull LazyConfigurations withFallback(Supplier<LazyConfigurations> repair) {
+    Supplier<LazyConfigurations> repaired = Suppliers.memoize(repair::get);
+    return new LazyConfigurations(
+        _hostnames,
+        hostname -> {
+          try {
+            return _loader.apply(hostname);
+          } catch (BatfishException e) {
+            LazyConfigurations fallback = repaired.get();
+            if (!fallback._hostnames.contains(hostname)) {
+              throw e;
+            }
+            return fallback._loader.apply(hostname);
+          }
+        });
+  }
+
+  /** Loads all configurations that are not currently loaded, in parallel. */
+  public void loadAll() {
+    if (!_allLoaded) {
+      _hostnames.parallelStream().forEach(this::load);
+      _allLoaded = true;
+    }
+  }
+
+  /** Returns whether the configuration for {@code hostname} is currently loaded. */
+  @VisibleForTesting
+  boolean isLoaded(String hostname) {
+    return _cache.getIfPresent(hostname) != null;
+  }
+
+  @Override
+  public boolean containsKey(@Nullable Object key) {
+    return _hostnames.contains(key);
+  }
+
+  @Override
+  public @Nullable Configuration get(@Nullable Object key) {
+    return _hostnames.contains(key) ? load((String) key) : null;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return _hostnames.isEmpty();
+  }
+
+  @Override
+  public @Nonnull SortedSet<String> keySet() {
+    return _hostnames;
+  }
+
+  @Override
+  public int size() {
+    return _hostnames.size();
+  }
+
+  @Override
+  public @Nonnull Set<Entry<String, Configuration>> entrySet() {
+    loadAll();
+    return super.entrySet();
+  }
+
+  @Override
+  public @Nonnull Collection<Configuration> values() {
+    loadAll();
+    return super.values();
+  }
+
+  @Override
+  protected @Nonnull SortedMap<String, Configuration> delegate() {
+    return _delegate;
+  }
+
+  private @Nonnull Configuration load(String hostname) {
+    try {
+      return _cache.getUnchecked(hostname);
+    } catch (UncheckedExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw e;
+    }
+  }
+
+  private final @Nonnull ImmutableSortedSet<String> _hostnames;
+  private final @Nonnull Function<String, Configuration> _loader;
+  private final @Nonnull LoadingCache<String, Configuration> _cache;
+  private final @Nonnull SortedMap<String, Configuration> _delegate;
+  private volatile boolean _allLoaded;
+}
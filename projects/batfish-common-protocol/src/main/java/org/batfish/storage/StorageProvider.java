@@ -9,7 +9,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
@@ -53,10 +52,11 @@ public interface StorageProvider {
 
   /**
    * Returns the configuration files for the given snapshot. If a serialized copy of these
-   * configurations is not already present, then this function returns {@code null}.
+   * configurations is not already present, then this function returns {@code null}. Each
+   * configuration is loaded on first access.
    */
   @Nullable
-  SortedMap<String, Configuration> loadConfigurations(NetworkId network, SnapshotId snapshot);
+  LazyConfigurations loadConfigurations(NetworkId network, SnapshotId snapshot);
 
   /**
    * Returns the {@link ConvertConfigurationAnswerElement} that is the result of the phase that
@@ -214,6 +214,48 @@ public interface StorageProvider {
   @Nonnull
   boolean hasAnswerMetadata(AnswerId answerId);
 
+  /**
+   * Returns a token identifying the version of the answer currently stored for the specified ID.
+   * The token changes whenever {@link #storeAnswer} replaces the answer, so data derived from an
+   * answer can record the token and later check that it was derived from the current answer.
+   *
+   * @param answerId The ID of the answer
+   * @throws FileNotFoundException if the answer does not exist; {@link IOException} if there is an
+   *     error reading its version.
+   */
+  @Nonnull
+  String getAnswerVersion(AnswerId answerId) throws FileNotFoundException, IOException;
+
+  /**
+   * Store the columnar form of the answer to an ad-hoc or analysis question, used to serve pages of
+   * the answer's rows. {@link #storeAnswer} deletes any columnar answer previously stored for the
+   * same ID.
+   *
+   * @param inputStream The stream from which the columnar answer is read
+   * @param answerId The ID of the answer
+   * @throws IOException if there is an error
+   */
+  void storeAnswerColumns(InputStream inputStream, AnswerId answerId) throws IOException;
+
+  /**
+   * Provide a stream from which the columnar form of the answer to an ad-hoc or analysis question
+   * may be read.
+   *
+   * @param answerId The ID of the answer
+   * @throws FileNotFoundException if the columnar answer does not exist; {@link IOException} if
+   *     there is an error reading it.
+   */
+  @Nonnull
+  @MustBeClosed
+  InputStream loadAnswerColumns(AnswerId answerId) throws FileNotFoundException, IOException;
+
+  /**
+   * Returns {@code true} iff the columnar form of the answer for the specified ID exists.
+   *
+   * @param answerId The ID of the answer
+   */
+  boolean hasAnswerColumns(AnswerId answerId);
+
   /**
    * Stores a question with the specified name and text.
    *
@@ -703,6 +745,14 @@ public interface StorageProvider {
   void storeSnapshotInputObject(InputStream inputStream, String key, NetworkSnapshot snapshot)
       throws IOException;
 
+  /**
+   * Deletes all data stored for the given snapshot, including its input objects and metadata, if
+   * any. Used to discard a snapshot whose initialization failed before it was assigned a name.
+   *
+   * @throws IOException if there is an error
+   */
+  void deleteSnapshot(NetworkSnapshot snapshot) throws IOException;
+
   /**
    * Returns a stream of the keys of all input objects for the given snapshot.
    *
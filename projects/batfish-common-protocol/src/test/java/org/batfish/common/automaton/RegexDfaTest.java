@@ -0,0 +1,158 @@
+package org.batfish.common.automaton;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import org.batfish.common.automaton.RegexDfa.State;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Differential tests of {@link RegexDfa} against {@link Pattern}. */
+@RunWith(JUnit4.class)
+public class RegexDfaTest {
+
+  private static final List<String> REGEXES =
+      ImmutableList.of(
+          "",
+          "^$",
+          "$^",
+          "^",
+          "1",
+          "^1",
+          "1$",
+          "^1$",
+          "^12 3$",
+          ".*",
+          "^.+$",
+          "1|2",
+          "^(1|23)+$",
+          "(?:1 )*2",
+          "[0-9]+ [^0-9]",
+          "[^ 1-3]",
+          "[-1]",
+          "[1-]",
+          "\\d+",
+          "^\\d+$",
+          "\\D",
+          "\\s\\d{2}$",
+          "\\S+",
+          "\\w{1,3}\\W",
+          "1{2}",
+          "1{2,}",
+          "^1{1,3}$",
+          "(1|2){2,3}?",
+          "2*?3",
+          "(,|\\{|\\}|^|\\$| )1(,|\\{|\\}|^|\\$| )",
+          "_1_",
+          "(^| )\\d+( \\d+)*$",
+          "^( \\d+)*( 12)( \\d+)*$",
+          "^ 1( \\d+)?$",
+          "(a*)*b",
+          "(|1)2",
+          "1|",
+          "\\{1,2\\}",
+          "[\\d ]+:[\\d]+",
+          "^1:.*:2$",
+          "\\.",
+          "\\t");
+
+  private static final String ALPHABET = "0123 {},:12_a.$";
+
+  private static List<String> inputs() {
+    Random random = new Random(0);
+    ImmutableList.Builder<String> inputs = ImmutableList.builder();
+    inputs.add("");
+    for (int i = 0; i < 500; i++) {
+      int length = random.nextInt(12);
+      StringBuilder sb = new StringBuilder(length);
+      for (int j = 0; j < length; j++) {
+        sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+      }
+      inputs.add(sb.toString());
+    }
+    return inputs.build();
+  }
+
+  @Test
+  public void testMatchesLikeFind() {
+    List<String> inputs = inputs();
+    for (String regex : REGEXES) {
+      RegexDfa dfa = RegexDfa.compile(regex).orElse(null);
+      assertThat(regex, dfa, notNullValue());
+      Pattern pattern = Pattern.compile(regex);
+      for (String input : inputs) {
+        State state = dfa.step(dfa.initialState(), input);
+        assertThat(regex, state, notNullValue());
+        assertThat(
+            String.format("'%s' on '%s'", regex, input),
+            state.isMatchAtEnd(),
+            equalTo(pattern.matcher(input).find()));
+      }
+    }
+  }
+
+  @Test
+  public void testStepDecimal() {
+    RegexDfa dfa = RegexDfa.compile("^-?\\d+$").get();
+    for (long value : new long[] {0, 7, 10, 65535, 4294967295L, -12, Long.MAX_VALUE}) {
+      assertTrue(dfa.stepDecimal(dfa.initialState(), value).isMatchAtEnd());
+      assertThat(
+          dfa.stepDecimal(dfa.initialState(), value),
+          equalTo(dfa.step(dfa.initialState(), Long.toString(value))));
+    }
+    assertTrue(dfa.stepDecimal(dfa.initialState(), Long.MIN_VALUE).isMatchAtEnd());
+  }
+
+  @Test
+  public void testUnsupported() {
+    for (String regex :
+        ImmutableList.of(
+            "(a)\\1",
+            "(?=a)",
+            "(?i)a",
+            "a*+",
+            "\\bfoo",
+            "[a[b]]",
+            "[a&&b]",
+            "\\Qa\\E",
+            "\\x41",
+            "a{1001}",
+            // invalid
+            "(",
+            "a{2,1}")) {
+      assertFalse(regex, RegexDfa.compile(regex).isPresent());
+    }
+  }
+
+  @Test
+  public void testUnsupportedInput() {
+    RegexDfa dfa = RegexDfa.compile("a").get();
+    assertThat(dfa.step(dfa.initialState(), "é"), nullValue());
+    assertThat(dfa.step(dfa.initialState(), "\n"), nullValue());
+    // once a match is found, the rest of the input is irrelevant
+    assertThat(dfa.step(dfa.initialState(), "aé"), notNullValue());
+  }
+
+  @Test
+  public void testNoBacktracking() {
+    // exponential for a backtracking matcher
+    RegexDfa dfa = RegexDfa.compile("^(\\d+ ?)*$").get();
+    StringBuilder input = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      input.append(i).append(' ');
+    }
+    input.append('x');
+    assertFalse(dfa.step(dfa.initialState(), input).isMatchAtEnd());
+    assertThat(dfa.getNumStates(), lessThanOrEqualTo(RegexDfa.MAX_STATES));
+  }
+}
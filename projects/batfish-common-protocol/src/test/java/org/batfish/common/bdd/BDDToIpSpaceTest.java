@@ -0,0 +1,56 @@
+package org.batfish.common.bdd;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import net.sf.javabdd.BDD;
+import org.batfish.datamodel.EmptyIpSpace;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpWildcard;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.UniverseIpSpace;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests of {@link BDDToIpSpace}. */
+public final class BDDToIpSpaceTest {
+  private BDDPacket _pkt;
+  private IpSpaceToBDD _toBdd;
+  private BDDToIpSpace _toIpSpace;
+
+  @Before
+  public void setup() {
+    _pkt = new BDDPacket();
+    _toBdd = _pkt.getDstIpSpaceToBDD();
+    _toIpSpace = new BDDToIpSpace(_pkt.getDstIp());
+  }
+
+  private void assertRoundTrip(BDD bdd) {
+    assertThat(_toBdd.visit(_toIpSpace.toIpSpace(bdd)), equalTo(bdd));
+  }
+
+  @Test
+  public void testConstants() {
+    assertThat(_toIpSpace.toIpSpace(_pkt.getFactory().zero()), equalTo(EmptyIpSpace.INSTANCE));
+    assertThat(_toIpSpace.toIpSpace(_pkt.getFactory().one()), equalTo(UniverseIpSpace.INSTANCE));
+  }
+
+  @Test
+  public void testRoundTrip() {
+    BDD ip = _toBdd.toBDD(Ip.parse("1.2.3.4"));
+    BDD prefix = _toBdd.toBDD(Prefix.parse("10.0.0.0/8"));
+    BDD otherPrefix = _toBdd.toBDD(Prefix.parse("10.1.0.0/16"));
+    BDD wildcard = _toBdd.toBDD(IpWildcard.parse("1.0.0.1:0.255.255.0"));
+    assertRoundTrip(ip);
+    assertRoundTrip(prefix);
+    assertRoundTrip(wildcard);
+    assertRoundTrip(prefix.diff(otherPrefix).or(ip));
+    assertRoundTrip(prefix.not());
+    assertRoundTrip(wildcard.diff(_toBdd.toBDD(Ip.parse("1.2.3.1"))));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testOtherVariables() {
+    _toIpSpace.toIpSpace(_pkt.getSrcIpSpaceToBDD().toBDD(Ip.parse("1.2.3.4")));
+  }
+}
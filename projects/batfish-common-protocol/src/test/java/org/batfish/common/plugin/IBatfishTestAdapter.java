@@ -240,6 +240,11 @@ public class IBatfishTestAdapter implements IBatfish {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public int getAvailableThreads() {
+    return 1;
+  }
+
   @Override
   public Map<String, String> getQuestionTemplates(boolean verbose) {
     throw new UnsupportedOperationException();
@@ -0,0 +1,212 @@
+package org.batfish.common.topology;
+
+import static org.batfish.datamodel.Interface.TUNNEL_INTERFACE_TYPES;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Sets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.batfish.datamodel.ConcreteInterfaceAddress;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.Edge;
+import org.batfish.datamodel.Interface;
+import org.batfish.datamodel.InterfaceAddress;
+import org.batfish.datamodel.InterfaceType;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.NetworkFactory;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.Topology;
+import org.batfish.datamodel.Vrf;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests of {@link Layer3AdjacencyBuilder}. */
+public final class Layer3AdjacencyBuilderTest {
+
+  private static final int[] PREFIX_LENGTHS = {16, 24, 28, 30, 31, 32};
+
+  private static final InterfaceType[] INTERFACE_TYPES = {
+    InterfaceType.PHYSICAL,
+    InterfaceType.PHYSICAL,
+    InterfaceType.LOGICAL,
+    InterfaceType.VLAN,
+    InterfaceType.LOOPBACK,
+    InterfaceType.TUNNEL,
+    InterfaceType.VPN
+  };
+
+  private NetworkFactory _nf;
+  private Configuration.Builder _cb;
+  private Interface.Builder _ib;
+
+  @Before
+  public void setup() {
+    _nf = new NetworkFactory();
+    _cb = _nf.configurationBuilder().setConfigurationFormat(ConfigurationFormat.CISCO_IOS);
+    _ib = _nf.interfaceBuilder().setActive(true);
+  }
+
+  @Test
+  public void testNestedSubnets() {
+    Configuration c1 = _cb.setHostname("c1").build();
+    Configuration c2 = _cb.setHostname("c2").build();
+    Configuration c3 = _cb.setHostname("c3").build();
+    Vrf v1 = _nf.vrfBuilder().setOwner(c1).build();
+    Vrf v2 = _nf.vrfBuilder().setOwner(c2).build();
+    Vrf v3 = _nf.vrfBuilder().setOwner(c3).build();
+    Interface i1 =
+        _ib.setOwner(c1)
+            .setVrf(v1)
+            .setName("i1")
+            .setAddress(ConcreteInterfaceAddress.parse("10.0.0.1/30"))
+            .build();
+    Interface i2 =
+        _ib.setOwner(c2)
+            .setVrf(v2)
+            .setName("i2")
+            .setAddress(ConcreteInterfaceAddress.parse("10.0.0.2/24"))
+            .build();
+    // in the /24 of i2, but not in the /30 of i1
+    Interface i3 =
+        _ib.setOwner(c3)
+            .setVrf(v3)
+            .setName("i3")
+            .setAddress(ConcreteInterfaceAddress.parse("10.0.0.5/24"))
+            .build();
+    Map<String, Configuration> configs = ImmutableMap.of("c1", c1, "c2", c2, "c3", c3);
+
+    // i2 has an IP in the /30 of i1, so there is an edge from i1 to i2. i3 does not, so there is
+    // no edge from i1 to i3. The /24 of i2 and i3 starts at the start of the /30 of i1, so there
+    // are edges from both to i1.
+    assertThat(
+        Layer3AdjacencyBuilder.synthesize(configs).getEdges(),
+        containsInAnyOrder(
+            new Edge(i1, i2),
+            new Edge(i2, i1),
+            new Edge(i2, i3),
+            new Edge(i3, i1),
+            new Edge(i3, i2)));
+  }
+
+  @Test
+  public void testIgnoredInterfaces() {
+    Configuration c1 = _cb.setHostname("c1").build();
+    Configuration c2 = _cb.setHostname("c2").build();
+    Vrf v1 = _nf.vrfBuilder().setOwner(c1).build();
+    Vrf v2 = _nf.vrfBuilder().setOwner(c2).build();
+    _ib.setOwner(c1).setVrf(v1).setName("tunnel").setType(InterfaceType.TUNNEL);
+    _ib.setAddress(ConcreteInterfaceAddress.parse("10.0.0.1/24")).build();
+    _ib.setOwner(c2).setVrf(v2).setName("inactive").setType(InterfaceType.PHYSICAL);
+    _ib.setActive(false).setAddress(ConcreteInterfaceAddress.parse("10.0.0.2/24")).build();
+    _ib.setName("host").setActive(true);
+    _ib.setAddress(ConcreteInterfaceAddress.parse("10.0.0.3/32")).build();
+    Map<String, Configuration> configs = ImmutableMap.of("c1", c1, "c2", c2);
+
+    assertThat(Layer3AdjacencyBuilder.synthesize(configs).getEdges(), empty());
+  }
+
+  /** Checks that the builder agrees with the pairwise algorithm on random networks. */
+  @Test
+  public void testMatchesPairwise() {
+    Random random = new Random(17);
+    for (int n = 0; n < 50; n++) {
+      Map<String, Configuration> configs = randomNetwork(random);
+      Topology expected = pairwiseL3Topology(configs);
+      assertThat(Layer3AdjacencyBuilder.synthesize(configs, false), equalTo(expected));
+      assertThat(Layer3AdjacencyBuilder.synthesize(configs, true), equalTo(expected));
+    }
+  }
+
+  private Map<String, Configuration> randomNetwork(Random random) {
+    Map<String, Configuration> configs = new HashMap<>();
+    int nodes = 2 + random.nextInt(10);
+    for (int n = 0; n < nodes; n++) {
+      Configuration c = _cb.setHostname("c" + n).build();
+      List<Vrf> vrfs =
+          ImmutableList.of(
+              _nf.vrfBuilder().setOwner(c).setName(Configuration.DEFAULT_VRF_NAME).build(),
+              _nf.vrfBuilder().setOwner(c).setName("vrf").build());
+      int interfaces = 1 + random.nextInt(6);
+      for (int i = 0; i < interfaces; i++) {
+        List<InterfaceAddress> addresses = new ArrayList<>();
+        int numAddresses = 1 + random.nextInt(3);
+        for (int a = 0; a < numAddresses; a++) {
+          // a small address space, so that subnets nest and IPs are reused
+          Ip ip =
+              Ip.create(
+                  Ip.parse("10.0.0.0").asLong() + random.nextInt(2) * 256 + random.nextInt(16));
+          addresses.add(
+              ConcreteInterfaceAddress.create(
+                  ip, PREFIX_LENGTHS[random.nextInt(PREFIX_LENGTHS.length)]));
+        }
+        _ib.setOwner(c)
+            .setVrf(vrfs.get(random.nextInt(vrfs.size())))
+            .setName("i" + i)
+            .setActive(random.nextInt(8) != 0)
+            .setType(INTERFACE_TYPES[random.nextInt(INTERFACE_TYPES.length)])
+            .setAddresses(addresses.get(0), addresses.subList(1, addresses.size()))
+            .build();
+      }
+      configs.put(c.getHostname(), c);
+    }
+    return configs;
+  }
+
+  /**
+   * The original algorithm: for each subnet {@code p}, connect every interface with an address in
+   * {@code p} to every interface with an address in a subnet containing {@code p} and an IP in
+   * {@code p}.
+   */
+  private static Topology pairwiseL3Topology(Map<String, Configuration> configurations) {
+    Map<Prefix, List<Interface>> prefixInterfaces = new HashMap<>();
+    for (Configuration node : configurations.values()) {
+      for (Interface iface : node.getAllInterfaces().values()) {
+        if (iface.isLoopback() || !iface.getActive()) {
+          continue;
+        }
+        for (ConcreteInterfaceAddress address : iface.getAllConcreteAddresses()) {
+          Prefix prefix = address.getPrefix();
+          if (prefix.getPrefixLength() < Prefix.MAX_PREFIX_LENGTH) {
+            prefixInterfaces.computeIfAbsent(prefix, k -> new ArrayList<>()).add(iface);
+          }
+        }
+      }
+    }
+    ImmutableSortedSet.Builder<Edge> edges = ImmutableSortedSet.naturalOrder();
+    prefixInterfaces.forEach(
+        (p, bucket) -> {
+          Set<Interface> candidateInterfaces = Sets.newIdentityHashSet();
+          for (int i = 0; i < Prefix.MAX_PREFIX_LENGTH; i++) {
+            for (Interface iface :
+                prefixInterfaces.getOrDefault(
+                    Prefix.create(p.getStartIp(), i), ImmutableList.of())) {
+              if (iface.getAllConcreteAddresses().stream()
+                  .anyMatch(ia -> p.containsIp(ia.getIp()))) {
+                candidateInterfaces.add(iface);
+              }
+            }
+          }
+          for (Interface iface1 : bucket) {
+            for (Interface iface2 : candidateInterfaces) {
+              if (TopologyUtil.isValidLayer3Adjacency(iface1, iface2)
+                  && !TUNNEL_INTERFACE_TYPES.contains(iface1.getInterfaceType())
+                  && !TUNNEL_INTERFACE_TYPES.contains(iface2.getInterfaceType())) {
+                edges.add(new Edge(iface1, iface2));
+              }
+            }
+          }
+        });
+    return new Topology(edges.build());
+  }
+}
@@ -5,12 +5,16 @@ import static org.batfish.datamodel.flow.HopTestUtils.forwardedHop;
 import static org.batfish.datamodel.flow.HopTestUtils.noRouteHop;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertEquals;
 
 import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import java.util.stream.Collectors;
 import org.batfish.common.traceroute.TraceDagImpl.Node;
+import org.batfish.common.util.TracePruner;
 import org.batfish.datamodel.Flow;
 import org.batfish.datamodel.FlowDisposition;
 import org.batfish.datamodel.Ip;
@@ -92,4 +96,60 @@ public class TraceDagImplTest {
     assertEquals(6, dag.countNodes());
     assertEquals(8, dag.countEdges());
   }
+
+  /**
+   * Returns a random layered DAG whose hops are at a few nodes, so that traces share nodes and
+   * dispositions.
+   */
+  private static TraceDagImpl randomDag(Random random) {
+    List<FlowDisposition> dispositions =
+        ImmutableList.of(
+            FlowDisposition.ACCEPTED, FlowDisposition.DENIED_IN, FlowDisposition.NO_ROUTE);
+    int numLayers = 2 + random.nextInt(3);
+    List<List<Integer>> layers = new ArrayList<>();
+    int numNodes = 0;
+    for (int i = 0; i < numLayers; i++) {
+      List<Integer> layer = new ArrayList<>();
+      int width = 1 + random.nextInt(3);
+      for (int j = 0; j < width; j++) {
+        layer.add(numNodes++);
+      }
+      layers.add(layer);
+    }
+    List<Node> nodes = new ArrayList<>();
+    for (int i = 0; i < numLayers; i++) {
+      for (int j = 0; j < layers.get(i).size(); j++) {
+        Hop hop = forwardedHop("n" + random.nextInt(5));
+        List<Integer> successors = new ArrayList<>();
+        if (i + 1 < numLayers && random.nextInt(4) != 0) {
+          for (int successor : layers.get(i + 1)) {
+            if (successors.isEmpty() || random.nextBoolean()) {
+              successors.add(successor);
+            }
+          }
+        }
+        if (successors.isEmpty()) {
+          FlowDisposition disposition = dispositions.get(random.nextInt(dispositions.size()));
+          Flow returnFlow = disposition.isSuccessful() ? TEST_FLOW : null;
+          nodes.add(new Node(hop, null, disposition, returnFlow, ImmutableList.of()));
+        } else {
+          nodes.add(new Node(hop, null, null, null, successors));
+        }
+      }
+    }
+    return new TraceDagImpl(nodes, layers.get(0));
+  }
+
+  @Test
+  public void testGetPrunedTraces() {
+    Random random = new Random(0);
+    for (int i = 0; i < 500; i++) {
+      TraceDagImpl dag = randomDag(random);
+      List<Trace> traces =
+          dag.getTraces().map(TraceAndReverseFlow::getTrace).collect(Collectors.toList());
+      for (int maxTraces = 0; maxTraces <= traces.size(); maxTraces++) {
+        assertThat(dag.getPrunedTraces(maxTraces), equalTo(TracePruner.prune(traces, maxTraces)));
+      }
+    }
+  }
 }
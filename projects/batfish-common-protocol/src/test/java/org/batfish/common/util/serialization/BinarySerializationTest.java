@@ -0,0 +1,140 @@
+package org.batfish.common.util.serialization;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.google.common.primitives.Bytes;
+import com.google.common.primitives.Longs;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import org.batfish.common.BatfishException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/** Tests of {@link BinarySerialization}. */
+public final class BinarySerializationTest {
+  @Rule public ExpectedException _thrown = ExpectedException.none();
+
+  private static final class Versioned implements Serializable {
+    private static final long serialVersionUID = 1L;
+  }
+
+  /** A class loader that records the classes it is asked for, and finds none of them. */
+  private static final class RecordingClassLoader extends ClassLoader {
+    private final List<String> _requested = new ArrayList<>();
+
+    private RecordingClassLoader() {
+      super(null);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      _requested.add(name);
+      throw new ClassNotFoundException(name);
+    }
+  }
+
+  private static byte[] serialize(Serializable object) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    BinarySerialization.serialize(object, out);
+    return out.toByteArray();
+  }
+
+  @Test
+  public void testRoundTripSharesEqualValues() throws Exception {
+    // distinct but equal instances
+    ArrayList<String> strings = new ArrayList<>(ImmutableList.of("value", "other"));
+    strings.add(new String("value"));
+
+    @SuppressWarnings("unchecked")
+    List<String> deserialized =
+        (List<String>)
+            BinarySerialization.deserialize(new ByteArrayInputStream(serialize(strings)));
+    assertThat(deserialized, equalTo(strings));
+    assertThat(deserialized.get(2), sameInstance(deserialized.get(0)));
+  }
+
+  private static Object deserializeWithContextClassLoader(byte[] bytes, ClassLoader classLoader)
+      throws Exception {
+    Thread thread = Thread.currentThread();
+    ClassLoader original = thread.getContextClassLoader();
+    thread.setContextClassLoader(classLoader);
+    try {
+      return BinarySerialization.deserialize(new ByteArrayInputStream(bytes));
+    } finally {
+      thread.setContextClassLoader(original);
+    }
+  }
+
+  @Test
+  public void testClassesResolvedThroughContextClassLoader() throws Exception {
+    RecordingClassLoader classLoader = new RecordingClassLoader();
+
+    // classes the context class loader does not find are loaded by the default class loader
+    Object deserialized =
+        deserializeWithContextClassLoader(serialize(new Versioned()), classLoader);
+    assertThat(deserialized, instanceOf(Versioned.class));
+    assertThat(classLoader._requested, hasItem(Versioned.class.getName()));
+  }
+
+  @Test
+  public void testSerialVersionUidMismatch() throws Exception {
+    byte[] bytes = serialize(new Versioned());
+    // rewrite the serialVersionUID that follows the class name in the compressed payload
+    int headerLength = BinarySerialization.MAGIC_BYTES.length + 1;
+    byte[] payload;
+    try (InputStream in =
+        new LZ4FrameInputStream(
+            new ByteArrayInputStream(bytes, headerLength, bytes.length - headerLength))) {
+      payload = ByteStreams.toByteArray(in);
+    }
+    byte[] name = Versioned.class.getName().getBytes(UTF_8);
+    int uidIndex = Bytes.indexOf(payload, name) + name.length;
+    System.arraycopy(Longs.toByteArray(2L), 0, payload, uidIndex, Long.BYTES);
+    ByteArrayOutputStream tampered = new ByteArrayOutputStream();
+    tampered.write(bytes, 0, headerLength);
+    try (OutputStream out = new LZ4FrameOutputStream(tampered)) {
+      out.write(payload);
+    }
+
+    _thrown.expect(InvalidClassException.class);
+    _thrown.expectMessage("stream classdesc serialVersionUID = 2");
+    BinarySerialization.deserialize(new ByteArrayInputStream(tampered.toByteArray()));
+  }
+
+  @Test
+  public void testUnsupportedVersion() throws Exception {
+    byte[] bytes = serialize("value");
+    bytes[BinarySerialization.MAGIC_BYTES.length] = BinarySerialization.FORMAT_VERSION + 1;
+
+    _thrown.expect(BatfishException.class);
+    _thrown.expectMessage("Unsupported Batfish binary serialization format version");
+    BinarySerialization.deserialize(new ByteArrayInputStream(bytes));
+  }
+
+  @Test
+  public void testMissingHeader() throws Exception {
+    byte[] bytes = serialize("value");
+    bytes[0] = 0;
+
+    _thrown.expect(BatfishException.class);
+    _thrown.expectMessage("not in the Batfish binary serialization format");
+    BinarySerialization.deserialize(new ByteArrayInputStream(bytes));
+  }
+}
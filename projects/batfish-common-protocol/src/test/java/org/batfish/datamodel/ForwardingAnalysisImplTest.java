@@ -10,19 +10,19 @@ import static org.batfish.datamodel.ForwardingAnalysisImpl.computeDeliveredToSub
 import static org.batfish.datamodel.ForwardingAnalysisImpl.computeExitsNetwork;
 import static org.batfish.datamodel.ForwardingAnalysisImpl.computeInsufficientInfo;
 import static org.batfish.datamodel.ForwardingAnalysisImpl.computeInterfaceArpReplies;
-import static org.batfish.datamodel.ForwardingAnalysisImpl.computeIpsAssignedToThisInterfaceForArpReplies;
 import static org.batfish.datamodel.ForwardingAnalysisImpl.computeIpsRoutedOutInterfaces;
 import static org.batfish.datamodel.ForwardingAnalysisImpl.computeMatchingIps;
 import static org.batfish.datamodel.ForwardingAnalysisImpl.computeNeighborUnreachable;
 import static org.batfish.datamodel.ForwardingAnalysisImpl.computeNextVrfIpsByNodeVrf;
 import static org.batfish.datamodel.ForwardingAnalysisImpl.computeNullRoutedIps;
-import static org.batfish.datamodel.ForwardingAnalysisImpl.computeRoutesWhereDstIpCanBeArpIp;
-import static org.batfish.datamodel.ForwardingAnalysisImpl.computeRoutesWithDestIpEdge;
 import static org.batfish.datamodel.ForwardingAnalysisImpl.computeRoutesWithNextHopIpArpFalse;
 import static org.batfish.datamodel.ForwardingAnalysisImpl.computeRoutesWithNextHopIpArpFalseForInterface;
 import static org.batfish.datamodel.ForwardingAnalysisImpl.computeRoutesWithNextHopIpArpTrue;
 import static org.batfish.datamodel.ForwardingAnalysisImpl.computeSomeoneReplies;
 import static org.batfish.datamodel.ForwardingAnalysisImpl.union;
+import static org.batfish.datamodel.ForwardingAnalysisUtils.computeIpsAssignedToThisInterfaceForArpReplies;
+import static org.batfish.datamodel.ForwardingAnalysisUtils.computeRoutesWhereDstIpCanBeArpIp;
+import static org.batfish.datamodel.ForwardingAnalysisUtils.computeRoutesWithDestIpEdge;
 import static org.batfish.datamodel.matchers.AclIpSpaceMatchers.hasLines;
 import static org.batfish.datamodel.matchers.AclIpSpaceMatchers.isAclIpSpaceThat;
 import static org.batfish.datamodel.matchers.IpSpaceMatchers.containsIp;
@@ -989,7 +989,7 @@ public class ForwardingAnalysisImplTest {
     _vb.setName(v2).setOwner(config).build();
     _ib.setName(i1).setVrf(vrf1).setOwner(config).build();
     Map<String, Map<String, Map<String, Set<AbstractRoute>>>> result =
-        ForwardingAnalysisImpl.computeRoutesWithNextHop(fibs);
+        ForwardingAnalysisUtils.computeRoutesWithNextHop(fibs);
 
     assertThat(
         result,
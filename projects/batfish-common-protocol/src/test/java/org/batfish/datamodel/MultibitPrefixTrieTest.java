@@ -0,0 +1,110 @@
+package org.batfish.datamodel;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.Random;
+import org.junit.Test;
+
+/** Tests of {@link MultibitPrefixTrie} */
+public class MultibitPrefixTrieTest {
+
+  @Test
+  public void testEmpty() {
+    MultibitPrefixTrie<Integer> trie =
+        MultibitPrefixTrie.create(new PrefixTrieMultiMap<>(Prefix.ZERO));
+    assertThat(trie.longestPrefixMatch(Ip.parse("1.1.1.1")), empty());
+    assertThat(trie.getNumNodes(), equalTo(1));
+  }
+
+  @Test
+  public void testLongestPrefixMatch() {
+    PrefixTrieMultiMap<Integer> map = new PrefixTrieMultiMap<>(Prefix.ZERO);
+    map.put(Prefix.ZERO, 0);
+    map.put(Prefix.parse("1.0.0.0/7"), 7);
+    map.put(Prefix.parse("1.0.0.0/8"), 8);
+    map.put(Prefix.parse("1.1.0.0/16"), 16);
+    map.put(Prefix.parse("1.1.1.0/24"), 24);
+    map.put(Prefix.parse("1.1.1.0/24"), 240);
+    map.put(Prefix.parse("1.1.1.128/25"), 25);
+    map.put(Prefix.parse("1.1.1.129/32"), 32);
+    MultibitPrefixTrie<Integer> trie = MultibitPrefixTrie.create(map);
+
+    assertThat(trie.longestPrefixMatch(Ip.parse("2.0.0.0")), equalTo(ImmutableSet.of(0)));
+    assertThat(trie.longestPrefixMatch(Ip.parse("0.0.0.0")), equalTo(ImmutableSet.of(7)));
+    assertThat(trie.longestPrefixMatch(Ip.parse("1.2.0.0")), equalTo(ImmutableSet.of(8)));
+    assertThat(trie.longestPrefixMatch(Ip.parse("1.1.2.0")), equalTo(ImmutableSet.of(16)));
+    assertThat(trie.longestPrefixMatch(Ip.parse("1.1.1.1")), equalTo(ImmutableSet.of(24, 240)));
+    assertThat(trie.longestPrefixMatch(Ip.parse("1.1.1.128")), equalTo(ImmutableSet.of(25)));
+    assertThat(trie.longestPrefixMatch(Ip.parse("1.1.1.129")), equalTo(ImmutableSet.of(32)));
+    assertThat(trie.longestPrefixMatch(Ip.parse("1.1.1.130")), equalTo(ImmutableSet.of(25)));
+  }
+
+  @Test
+  public void testNoDefaultRoute() {
+    PrefixTrieMultiMap<Integer> map = new PrefixTrieMultiMap<>(Prefix.ZERO);
+    map.put(Prefix.parse("255.255.255.255/32"), 1);
+    MultibitPrefixTrie<Integer> trie = MultibitPrefixTrie.create(map);
+
+    assertThat(trie.longestPrefixMatch(Ip.MAX), equalTo(ImmutableSet.of(1)));
+    assertThat(trie.longestPrefixMatch(Ip.parse("255.255.255.254")), empty());
+    assertThat(trie.longestPrefixMatch(Ip.ZERO), empty());
+  }
+
+  /**
+   * The trie must agree with {@link PrefixTrieMultiMap#longestPrefixMatch(Ip)} on every address.
+   */
+  @Test
+  public void testMatchesPrefixTrieMultiMap() {
+    Random random = new Random(0);
+    PrefixTrieMultiMap<Integer> map = new PrefixTrieMultiMap<>(Prefix.ZERO);
+    // cluster prefixes in 10.0.0.0/16 so that they overlap
+    for (int i = 0; i < 500; i++) {
+      Ip ip = Ip.create((10L << 24) + random.nextInt(1 << 16));
+      map.put(Prefix.create(ip, 8 + random.nextInt(25)), i);
+    }
+    MultibitPrefixTrie<Integer> trie = MultibitPrefixTrie.create(map);
+
+    for (int i = 0; i < 10000; i++) {
+      Ip ip = Ip.create((10L << 24) + random.nextInt(1 << 16));
+      assertThat(trie.longestPrefixMatch(ip), equalTo(map.longestPrefixMatch(ip)));
+    }
+  }
+
+  /** The trie must agree with the map on prefixes and addresses anywhere in the address space. */
+  @Test
+  public void testMatchesPrefixTrieMultiMapFullRange() {
+    Random random = new Random(0);
+    PrefixTrieMultiMap<Integer> map = new PrefixTrieMultiMap<>(Prefix.ZERO);
+    for (int i = 0; i < 2000; i++) {
+      map.put(Prefix.create(Ip.create(random.nextInt() & 0xFFFFFFFFL), random.nextInt(33)), i);
+    }
+    MultibitPrefixTrie<Integer> trie = MultibitPrefixTrie.create(map);
+
+    for (int i = 0; i < 10000; i++) {
+      Ip ip = Ip.create(random.nextInt() & 0xFFFFFFFFL);
+      assertThat(trie.longestPrefixMatch(ip), equalTo(map.longestPrefixMatch(ip)));
+    }
+  }
+
+  /** Nodes with few children and covering prefixes must not take a full array per slot. */
+  @Test
+  public void testCompressedNodes() {
+    PrefixTrieMultiMap<Integer> map = new PrefixTrieMultiMap<>(Prefix.ZERO);
+    // an Internet-table-like layout: a /24 in each of 1000 distinct /16s
+    for (int i = 0; i < 1000; i++) {
+      map.put(Prefix.create(Ip.create(((long) i << 16) + (1 << 8)), 24), i);
+    }
+    MultibitPrefixTrie<Integer> trie = MultibitPrefixTrie.create(map);
+
+    assertThat(trie.longestPrefixMatch(Ip.parse("0.0.1.1")), equalTo(ImmutableSet.of(0)));
+    assertThat(trie.longestPrefixMatch(Ip.parse("3.231.1.255")), equalTo(ImmutableSet.of(999)));
+    assertThat(trie.longestPrefixMatch(Ip.parse("3.231.2.0")), empty());
+    // root, 4 first-octet nodes, 1000 second-octet nodes
+    assertThat(trie.getNumNodes(), equalTo(1005));
+    assertThat(trie.getArrayBytes(), lessThan(100L * trie.getNumNodes()));
+  }
+}
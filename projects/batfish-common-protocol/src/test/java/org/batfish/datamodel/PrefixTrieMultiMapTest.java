@@ -76,6 +76,25 @@ public class PrefixTrieMultiMapTest {
     assertThat(ptm1.get(Prefix.ZERO), empty());
   }
 
+  @Test
+  public void testTraverseMatchingEntries() {
+    PrefixTrieMultiMap<Integer> ptm = new PrefixTrieMultiMap<>();
+    ptm.put(Prefix.ZERO, 0);
+    ptm.put(Prefix.parse("10.0.0.0/8"), 8);
+    ptm.put(Prefix.parse("10.0.0.0/24"), 24);
+    ptm.put(Prefix.parse("10.0.0.0/30"), 30);
+    ptm.put(Prefix.parse("10.0.1.0/24"), 124);
+
+    List<Entry<Prefix, Set<Integer>>> entries = new ArrayList<>();
+    ptm.traverseMatchingEntries(
+        Ip.parse("10.0.0.5"), 8, (prefix, elems) -> entries.add(immutableEntry(prefix, elems)));
+    assertThat(
+        entries,
+        contains(
+            immutableEntry(Prefix.parse("10.0.0.0/8"), ImmutableSet.of(8)),
+            immutableEntry(Prefix.parse("10.0.0.0/24"), ImmutableSet.of(24))));
+  }
+
   @Test
   public void testAddAll() {
     PrefixTrieMultiMap<Integer> ptm1 = new PrefixTrieMultiMap<>(Prefix.ZERO);
@@ -122,6 +141,28 @@ public class PrefixTrieMultiMapTest {
     assertThat(ptm1.longestPrefixMatch(Ip.parse("1.1.1.130")), equalTo(ImmutableSet.of(2)));
   }
 
+  @Test
+  public void testLongestPrefixMatchWithPredicate() {
+    PrefixTrieMultiMap<Integer> ptm1 = new PrefixTrieMultiMap<>(Prefix.ZERO);
+    Prefix p1 = Prefix.parse("1.1.1.0/24");
+    Prefix p2 = Prefix.parse("1.1.1.128/25");
+    Prefix p3 = Prefix.parse("1.1.1.129/32");
+    ptm1.put(p1, 2);
+    ptm1.put(p1, 4);
+    ptm1.put(p2, 1);
+    ptm1.put(p3, 3);
+    ptm1.put(p3, 6);
+    Ip ip = Ip.parse("1.1.1.129");
+    assertThat(ptm1.longestPrefixMatch(ip, 32, i -> true), equalTo(ImmutableSet.of(3, 6)));
+    // skips p3 when it has only some elements matching
+    assertThat(ptm1.longestPrefixMatch(ip, 32, i -> i % 2 == 0), equalTo(ImmutableSet.of(6)));
+    // skips p2 when none of its elements match
+    assertThat(ptm1.longestPrefixMatch(ip, 31, i -> i % 2 == 0), equalTo(ImmutableSet.of(2, 4)));
+    assertThat(ptm1.longestPrefixMatch(ip, 32, i -> i == 4), equalTo(ImmutableSet.of(4)));
+    assertThat(ptm1.longestPrefixMatch(ip, 23, i -> true), empty());
+    assertThat(ptm1.longestPrefixMatch(ip, 32, i -> i > 10), empty());
+  }
+
   @Test
   public void testPutAtRoot() {
     Prefix prefix = Prefix.parse("128.0.0.0/1");
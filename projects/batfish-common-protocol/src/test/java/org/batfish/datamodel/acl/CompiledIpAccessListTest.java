@@ -0,0 +1,295 @@
+package org.batfish.datamodel.acl;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import javax.annotation.Nullable;
+import org.batfish.datamodel.AclAclLine;
+import org.batfish.datamodel.AclIpSpace;
+import org.batfish.datamodel.AclLine;
+import org.batfish.datamodel.ExprAclLine;
+import org.batfish.datamodel.FilterResult;
+import org.batfish.datamodel.Flow;
+import org.batfish.datamodel.HeaderSpace;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpAccessList;
+import org.batfish.datamodel.IpProtocol;
+import org.batfish.datamodel.IpSpace;
+import org.batfish.datamodel.IpSpaceReference;
+import org.batfish.datamodel.IpWildcard;
+import org.batfish.datamodel.IpWildcardSetIpSpace;
+import org.batfish.datamodel.LineAction;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.SubRange;
+import org.batfish.datamodel.UniverseIpSpace;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests of {@link CompiledIpAccessList}. */
+@RunWith(JUnit4.class)
+public class CompiledIpAccessListTest {
+
+  private static final List<Prefix> PREFIXES =
+      ImmutableList.of(
+          Prefix.parse("0.0.0.0/0"),
+          Prefix.parse("10.0.0.0/8"),
+          Prefix.parse("10.1.0.0/16"),
+          Prefix.parse("10.1.2.0/24"),
+          Prefix.parse("10.1.2.3/32"),
+          Prefix.parse("10.1.3.0/24"),
+          Prefix.parse("10.2.0.0/15"),
+          Prefix.parse("192.168.0.0/16"),
+          Prefix.parse("192.168.1.0/25"),
+          Prefix.parse("192.168.1.128/25"));
+
+  private static final List<IpProtocol> PROTOCOLS =
+      ImmutableList.of(IpProtocol.TCP, IpProtocol.UDP, IpProtocol.ICMP, IpProtocol.OSPF);
+
+  private static final Map<String, IpSpace> NAMED_IP_SPACES =
+      ImmutableMap.of(
+          "net",
+          Prefix.parse("10.1.0.0/16").toIpSpace(),
+          "hosts",
+          AclIpSpace.permitting(Ip.parse("10.1.2.3").toIpSpace(), new IpSpaceReference("net"))
+              .build());
+
+  private static final IpAccessList REFERENCED =
+      IpAccessList.builder()
+          .setName("referenced")
+          .setLines(
+              ExprAclLine.rejectingHeaderSpace(
+                  HeaderSpace.builder().setSrcIps(Prefix.parse("10.1.2.0/24").toIpSpace()).build()),
+              ExprAclLine.acceptingHeaderSpace(
+                  HeaderSpace.builder().setIpProtocols(IpProtocol.UDP).build()))
+          .build();
+
+  private static final Map<String, IpAccessList> ACLS =
+      ImmutableMap.of(REFERENCED.getName(), REFERENCED);
+
+  private static IpSpace randomIpSpace(Random random) {
+    switch (random.nextInt(8)) {
+      case 0:
+        return new IpSpaceReference(random.nextBoolean() ? "net" : "hosts");
+      case 1:
+        // not a prefix
+        return IpWildcard.ipWithWildcardMask(Ip.parse("10.1.0.3"), Ip.parse("0.0.255.0").asLong())
+            .toIpSpace();
+      case 2:
+        return IpWildcardSetIpSpace.builder()
+            .including(IpWildcard.create(randomPrefix(random)))
+            .excluding(IpWildcard.create(randomPrefix(random)))
+            .build();
+      case 3:
+        return AclIpSpace.rejecting(randomPrefix(random).toIpSpace())
+            .thenPermitting(randomPrefix(random).toIpSpace())
+            .build();
+      case 4:
+        return UniverseIpSpace.INSTANCE;
+      default:
+        return randomPrefix(random).toIpSpace();
+    }
+  }
+
+  private static Prefix randomPrefix(Random random) {
+    return PREFIXES.get(random.nextInt(PREFIXES.size()));
+  }
+
+  private static SubRange randomPorts(Random random) {
+    int start = random.nextInt(40);
+    return new SubRange(start, start + random.nextInt(20));
+  }
+
+  private static HeaderSpace randomHeaderSpace(Random random) {
+    HeaderSpace.Builder headerSpace = HeaderSpace.builder();
+    if (random.nextBoolean()) {
+      headerSpace.setDstIps(randomIpSpace(random));
+    }
+    if (random.nextInt(3) == 0) {
+      headerSpace.setSrcIps(randomIpSpace(random));
+    }
+    if (random.nextBoolean()) {
+      headerSpace.setIpProtocols(PROTOCOLS.get(random.nextInt(PROTOCOLS.size())));
+    }
+    if (random.nextBoolean()) {
+      headerSpace.setDstPorts(randomPorts(random), randomPorts(random));
+    }
+    if (random.nextInt(4) == 0) {
+      headerSpace.setSrcPorts(randomPorts(random));
+    }
+    if (random.nextInt(10) == 0) {
+      headerSpace.setNotDstIps(randomPrefix(random).toIpSpace());
+    }
+    if (random.nextInt(10) == 0) {
+      headerSpace.setIcmpTypes(new SubRange(0, 3));
+    }
+    return headerSpace.build();
+  }
+
+  private static AclLineMatchExpr randomMatchExpr(Random random) {
+    switch (random.nextInt(12)) {
+      case 0:
+        return new AndMatchExpr(
+            ImmutableList.of(
+                new MatchHeaderSpace(randomHeaderSpace(random)),
+                new MatchSrcInterface(ImmutableList.of("eth0"))));
+      case 1:
+        return new AndMatchExpr(
+            ImmutableList.of(
+                new MatchHeaderSpace(randomHeaderSpace(random)),
+                new MatchHeaderSpace(randomHeaderSpace(random))));
+      case 2:
+        return new OrMatchExpr(
+            ImmutableList.of(
+                new MatchHeaderSpace(randomHeaderSpace(random)),
+                new MatchHeaderSpace(randomHeaderSpace(random))));
+      case 3:
+        return new NotMatchExpr(new MatchHeaderSpace(randomHeaderSpace(random)));
+      case 4:
+        return random.nextBoolean()
+            ? new PermittedByAcl(REFERENCED.getName())
+            : new DeniedByAcl(REFERENCED.getName());
+      case 5:
+        return random.nextInt(10) == 0 ? TrueExpr.INSTANCE : FalseExpr.INSTANCE;
+      default:
+        return new MatchHeaderSpace(randomHeaderSpace(random));
+    }
+  }
+
+  private static IpAccessList randomAcl(Random random, int numLines) {
+    ImmutableList.Builder<AclLine> lines = ImmutableList.builder();
+    for (int i = 0; i < numLines; i++) {
+      if (random.nextInt(20) == 0) {
+        lines.add(new AclAclLine("line" + i, REFERENCED.getName()));
+      } else {
+        lines.add(
+            ExprAclLine.builder()
+                .setAction(random.nextBoolean() ? LineAction.PERMIT : LineAction.DENY)
+                .setMatchCondition(randomMatchExpr(random))
+                .build());
+      }
+    }
+    return IpAccessList.builder().setName("acl").setLines(lines.build()).build();
+  }
+
+  private static Ip randomIp(Random random) {
+    Prefix prefix = randomPrefix(random);
+    long offset = random.nextInt(4) == 0 ? random.nextInt(1 << 10) : random.nextInt(4);
+    return Ip.create(Math.min(prefix.getStartIp().asLong() + offset, prefix.getEndIp().asLong()));
+  }
+
+  private static Flow randomFlow(Random random) {
+    return Flow.builder()
+        .setIngressNode("node")
+        .setDstIp(randomIp(random))
+        .setSrcIp(randomIp(random))
+        .setIpProtocol(PROTOCOLS.get(random.nextInt(PROTOCOLS.size())))
+        .setDstPort(random.nextInt(70))
+        .setSrcPort(random.nextInt(70))
+        .setIcmpType(random.nextInt(5))
+        .setIcmpCode(0)
+        .build();
+  }
+
+  /** The reference semantics: evaluates each line in order. */
+  private static FilterResult linearFilter(
+      IpAccessList acl, Flow flow, @Nullable String srcInterface) {
+    AclLineEvaluator evaluator = new AclLineEvaluator(flow, srcInterface, ACLS, NAMED_IP_SPACES);
+    List<AclLine> lines = acl.getLines();
+    for (int i = 0; i < lines.size(); i++) {
+      LineAction action = evaluator.visit(lines.get(i));
+      if (action != null) {
+        return new FilterResult(i, action);
+      }
+    }
+    return new FilterResult(null, LineAction.DENY);
+  }
+
+  @Test
+  public void testFilterLikeLinear() {
+    Random random = new Random(0);
+    for (int a = 0; a < 20; a++) {
+      IpAccessList acl = randomAcl(random, 10 + random.nextInt(300));
+      CompiledIpAccessList compiled = CompiledIpAccessList.compile(acl, NAMED_IP_SPACES);
+      for (int i = 0; i < 500; i++) {
+        Flow flow = randomFlow(random);
+        String srcInterface = random.nextBoolean() ? "eth0" : null;
+        FilterResult expected = linearFilter(acl, flow, srcInterface);
+        FilterResult actual = compiled.filter(flow, srcInterface, ACLS, NAMED_IP_SPACES);
+        String message = flow.toString();
+        assertThat(message, actual.getMatchLine(), equalTo(expected.getMatchLine()));
+        assertThat(message, actual.getAction(), equalTo(expected.getAction()));
+      }
+    }
+  }
+
+  @Test
+  public void testShadowedLines() {
+    ImmutableList.Builder<AclLine> lines = ImmutableList.builder();
+    lines.add(
+        ExprAclLine.rejectingHeaderSpace(
+            HeaderSpace.builder().setDstIps(Prefix.parse("10.0.0.0/8").toIpSpace()).build()));
+    for (int i = 0; i < 100; i++) {
+      lines.add(
+          ExprAclLine.acceptingHeaderSpace(
+              HeaderSpace.builder()
+                  .setDstIps(Ip.create(Ip.parse("10.0.0.0").asLong() + i).toIpSpace())
+                  .build()));
+    }
+    lines.add(ExprAclLine.ACCEPT_ALL);
+    IpAccessList acl = IpAccessList.builder().setName("acl").setLines(lines.build()).build();
+    CompiledIpAccessList compiled = CompiledIpAccessList.compile(acl, ImmutableMap.of());
+
+    // the lines inside 10.0.0.0/8 can never match, so they need not be in any leaf
+    assertThat(compiled.getNumLeafEntries(), lessThanOrEqualTo(4));
+    Flow flow = Flow.builder().setIngressNode("node").setDstIp(Ip.parse("10.0.0.1")).build();
+    FilterResult result = compiled.filter(flow, null, ImmutableMap.of(), ImmutableMap.of());
+    assertThat(result.getMatchLine(), equalTo(0));
+    assertThat(result.getAction(), equalTo(LineAction.DENY));
+  }
+
+  @Test
+  public void testIsCompiledWith() {
+    IpAccessList noReferences =
+        IpAccessList.builder()
+            .setName("acl")
+            .setLines(
+                ExprAclLine.acceptingHeaderSpace(
+                    HeaderSpace.builder()
+                        .setDstIps(Prefix.parse("10.0.0.0/8").toIpSpace())
+                        .build()))
+            .build();
+    assertTrue(
+        CompiledIpAccessList.compile(noReferences, NAMED_IP_SPACES)
+            .isCompiledWith(ImmutableMap.of()));
+
+    IpAccessList references =
+        IpAccessList.builder()
+            .setName("acl")
+            .setLines(
+                ExprAclLine.acceptingHeaderSpace(
+                    HeaderSpace.builder().setDstIps(new IpSpaceReference("net")).build()))
+            .build();
+    CompiledIpAccessList compiled = CompiledIpAccessList.compile(references, NAMED_IP_SPACES);
+    assertTrue(compiled.isCompiledWith(NAMED_IP_SPACES));
+    // an equal copy of the definitions, or a map with other names added, still matches
+    Map<String, IpSpace> copy = new HashMap<>(NAMED_IP_SPACES);
+    assertTrue(compiled.isCompiledWith(copy));
+    copy.put("unreferenced", UniverseIpSpace.INSTANCE);
+    assertTrue(compiled.isCompiledWith(copy));
+    // a changed definition of a referenced name, even in the same map, does not
+    copy.put("net", Prefix.parse("192.168.0.0/16").toIpSpace());
+    assertFalse(compiled.isCompiledWith(copy));
+    copy.remove("net");
+    assertFalse(compiled.isCompiledWith(copy));
+  }
+}
@@ -0,0 +1,68 @@
+package org.batfish.datamodel.answers;
+
+import static org.batfish.datamodel.answers.GrammarStatistics.MAX_SLOWEST_DECISIONS;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.testing.EqualsTester;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.commons.lang3.SerializationUtils;
+import org.batfish.common.util.BatfishObjectMapper;
+import org.junit.Test;
+
+public class GrammarStatisticsTest {
+
+  @Test
+  public void testAdd() {
+    GrammarStatistics a = new GrammarStatistics(10, 2, 0, 100, 1, 50, ImmutableMap.of("r:1", 10L));
+    GrammarStatistics b =
+        new GrammarStatistics(5, 1, 1, 80, 1, 40, ImmutableMap.of("r:1", 3L, "s:2", 2L));
+
+    assertThat(
+        a.add(b),
+        equalTo(
+            new GrammarStatistics(15, 3, 1, 100, 2, 90, ImmutableMap.of("r:1", 13L, "s:2", 2L))));
+  }
+
+  @Test
+  public void testEquals() {
+    Map<String, Long> decisions = ImmutableMap.of("r:1", 1L);
+    GrammarStatistics stats = new GrammarStatistics(1, 1, 1, 1, 1, 1, decisions);
+    new EqualsTester()
+        .addEqualityGroup(new Object())
+        .addEqualityGroup(stats, new GrammarStatistics(1, 1, 1, 1, 1, 1, decisions))
+        .addEqualityGroup(new GrammarStatistics(2, 1, 1, 1, 1, 1, decisions))
+        .addEqualityGroup(new GrammarStatistics(1, 2, 1, 1, 1, 1, decisions))
+        .addEqualityGroup(new GrammarStatistics(1, 1, 2, 1, 1, 1, decisions))
+        .addEqualityGroup(new GrammarStatistics(1, 1, 1, 2, 1, 1, decisions))
+        .addEqualityGroup(new GrammarStatistics(1, 1, 1, 1, 2, 1, decisions))
+        .addEqualityGroup(new GrammarStatistics(1, 1, 1, 1, 1, 2, decisions))
+        .addEqualityGroup(new GrammarStatistics(1, 1, 1, 1, 1, 1, ImmutableMap.of()))
+        .testEquals();
+  }
+
+  @Test
+  public void testSerialization() {
+    GrammarStatistics stats =
+        new GrammarStatistics(15, 3, 1, 100, 2, 90, ImmutableMap.of("r:1", 13L, "s:2", 2L));
+
+    assertThat(BatfishObjectMapper.clone(stats, GrammarStatistics.class), equalTo(stats));
+    assertThat(SerializationUtils.clone(stats), equalTo(stats));
+  }
+
+  @Test
+  public void testSlowestDecisions() {
+    Map<String, Long> decisions = new HashMap<>();
+    for (int i = 0; i <= MAX_SLOWEST_DECISIONS; i++) {
+      decisions.put("r:" + i, (long) i);
+    }
+    GrammarStatistics stats = new GrammarStatistics(0, 0, 0, 0, 1, 0, decisions);
+
+    assertThat(stats.getSlowestDecisions().size(), equalTo(MAX_SLOWEST_DECISIONS));
+    assertThat(stats.getSlowestDecisions(), not(hasKey("r:0")));
+  }
+}
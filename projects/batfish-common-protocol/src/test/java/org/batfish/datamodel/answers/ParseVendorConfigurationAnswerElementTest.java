@@ -3,6 +3,7 @@ package org.batfish.datamodel.answers;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
 
+import com.google.common.collect.ImmutableMap;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import org.batfish.common.BatfishException;
@@ -32,6 +33,14 @@ public class ParseVendorConfigurationAnswerElementTest {
     _element = new ParseVendorConfigurationAnswerElement();
   }
 
+  @Test
+  public void testAddGrammarStatistics() {
+    GrammarStatistics stats = new GrammarStatistics(1, 1, 0, 10, 1, 5, ImmutableMap.of());
+    _element.addGrammarStatistics("grammar", stats);
+    _element.addGrammarStatistics("grammar", stats);
+    assertThat(_element.getGrammarStatistics().get("grammar"), is(stats.add(stats)));
+  }
+
   @Test
   public void testGetErrors() {
     BatfishException exception = new BatfishException("sample exception");
@@ -0,0 +1,130 @@
+package org.batfish.datamodel.bgp;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.batfish.datamodel.AsPath;
+import org.batfish.datamodel.AsSet;
+import org.batfish.datamodel.bgp.community.Community;
+import org.batfish.datamodel.bgp.community.ExtendedCommunity;
+import org.batfish.datamodel.bgp.community.LargeCommunity;
+import org.batfish.datamodel.bgp.community.StandardCommunity;
+import org.batfish.datamodel.routing_policy.communities.ColonSeparatedRendering;
+import org.batfish.datamodel.routing_policy.communities.CommunityRendering;
+import org.batfish.datamodel.routing_policy.communities.CommunitySet;
+import org.batfish.datamodel.routing_policy.communities.CommunitySetRendering;
+import org.batfish.datamodel.routing_policy.communities.CommunitySetToRegexInputString;
+import org.batfish.datamodel.routing_policy.communities.CommunityToRegexInputString;
+import org.batfish.datamodel.routing_policy.communities.IntegerValueRendering;
+import org.batfish.datamodel.routing_policy.communities.TypesFirstAscendingSpaceSeparated;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests of {@link BgpRegexMatcher}: every method must agree with {@link Pattern} on the string
+ * rendering of its input.
+ */
+@RunWith(JUnit4.class)
+public class BgpRegexMatcherTest {
+
+  private static final List<String> AS_PATH_REGEXES =
+      ImmutableList.of(
+          "^$",
+          "^65000$",
+          "(,|\\{|\\}|^|\\$| )65000(,|\\{|\\}|^|\\$| )",
+          "^( \\d+)*( 3)( \\d+)*$",
+          "^ 1( \\d+)?$",
+          "\\{2,3\\}",
+          "^[0-9]+ [0-9]+$",
+          "(?=1)",
+          "(1) \\1");
+
+  private static final List<AsPath> AS_PATHS =
+      ImmutableList.of(
+          AsPath.empty(),
+          AsPath.ofSingletonAsSets(65000L),
+          AsPath.ofSingletonAsSets(1L, 2L, 3L),
+          AsPath.ofSingletonAsSets(1L, 650001L),
+          AsPath.of(ImmutableList.of(AsSet.of(1L), AsSet.of(3L, 2L), AsSet.of(65000L))),
+          AsPath.of(ImmutableList.of(AsSet.empty(), AsSet.of(4294967295L))));
+
+  private static final List<String> COMMUNITY_REGEXES =
+      ImmutableList.of(
+          "^$", "^1:2$", "^65535:", ":3$", "^\\d+$", "^1:2 ", "1:2:3", " 3:4$", "(?<=1):2");
+
+  private static final List<Community> COMMUNITIES =
+      ImmutableList.of(
+          StandardCommunity.of(1, 2),
+          StandardCommunity.of(65535, 0),
+          StandardCommunity.of(3, 4),
+          LargeCommunity.of(1, 2, 3),
+          ExtendedCommunity.target(1, 2));
+
+  private static final List<CommunityRendering> RENDERINGS =
+      ImmutableList.of(ColonSeparatedRendering.instance(), IntegerValueRendering.instance());
+
+  @Test
+  public void testMatchesAsPath() {
+    for (String regex : AS_PATH_REGEXES) {
+      Pattern pattern = Pattern.compile(regex);
+      for (AsPath asPath : AS_PATHS) {
+        String asPathString = asPath.getAsPathString();
+        assertThat(
+            regex + " on " + asPathString,
+            BgpRegexMatcher.matchesAsPath(regex, asPath),
+            equalTo(pattern.matcher(asPathString).find()));
+        String spacePrefixed = asPath.size() == 0 ? "" : " " + asPathString;
+        assertThat(
+            regex + " on " + spacePrefixed,
+            BgpRegexMatcher.matchesSpacePrefixedAsPath(regex, asPath),
+            equalTo(pattern.matcher(spacePrefixed).find()));
+      }
+    }
+  }
+
+  @Test
+  public void testMatchesCommunity() {
+    for (String regex : COMMUNITY_REGEXES) {
+      Pattern pattern = Pattern.compile(regex);
+      for (CommunityRendering rendering : RENDERINGS) {
+        for (Community community : COMMUNITIES) {
+          String input = rendering.accept(CommunityToRegexInputString.instance(), community);
+          assertThat(
+              regex + " on " + input,
+              BgpRegexMatcher.matchesCommunity(regex, rendering, community),
+              equalTo(pattern.matcher(input).find()));
+          assertThat(
+              BgpRegexMatcher.matches(regex, community.matchString()),
+              equalTo(pattern.matcher(community.matchString()).find()));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testMatchesCommunitySet() {
+    List<CommunitySet> communitySets =
+        ImmutableList.of(
+            CommunitySet.empty(),
+            CommunitySet.of(COMMUNITIES),
+            CommunitySet.of(StandardCommunity.of(3, 4), StandardCommunity.of(1, 2)));
+    for (String regex : COMMUNITY_REGEXES) {
+      Pattern pattern = Pattern.compile(regex);
+      for (CommunityRendering rendering : RENDERINGS) {
+        CommunitySetRendering setRendering = new TypesFirstAscendingSpaceSeparated(rendering);
+        for (CommunitySet communitySet : communitySets) {
+          String input =
+              setRendering.accept(CommunitySetToRegexInputString.instance(), communitySet);
+          assertThat(
+              regex + " on " + input,
+              BgpRegexMatcher.matchesCommunitySet(regex, setRendering, communitySet),
+              equalTo(pattern.matcher(input).find()));
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,458 @@
+package org.batfish.datamodel.routing_policy;
+
+import static org.batfish.datamodel.routing_policy.expr.BooleanExprs.CALL_EXPR_CONTEXT;
+import static org.batfish.datamodel.routing_policy.expr.BooleanExprs.CALL_STATEMENT_CONTEXT;
+import static org.batfish.datamodel.routing_policy.expr.BooleanExprs.FALSE;
+import static org.batfish.datamodel.routing_policy.expr.BooleanExprs.TRUE;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.apache.commons.lang3.SerializationUtils;
+import org.batfish.datamodel.AsPath;
+import org.batfish.datamodel.AsPathAccessList;
+import org.batfish.datamodel.AsPathAccessListLine;
+import org.batfish.datamodel.Bgpv4Route;
+import org.batfish.datamodel.CommunityList;
+import org.batfish.datamodel.CommunityListLine;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.LineAction;
+import org.batfish.datamodel.NetworkFactory;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.RouteFilterLine;
+import org.batfish.datamodel.RouteFilterList;
+import org.batfish.datamodel.SubRange;
+import org.batfish.datamodel.bgp.community.StandardCommunity;
+import org.batfish.datamodel.routing_policy.Environment.Direction;
+import org.batfish.datamodel.routing_policy.communities.CommunityIs;
+import org.batfish.datamodel.routing_policy.communities.CommunitySet;
+import org.batfish.datamodel.routing_policy.communities.CommunitySetExprReference;
+import org.batfish.datamodel.routing_policy.communities.CommunitySetMatchExprReference;
+import org.batfish.datamodel.routing_policy.communities.CommunitySetUnion;
+import org.batfish.datamodel.routing_policy.communities.HasCommunity;
+import org.batfish.datamodel.routing_policy.communities.InputCommunities;
+import org.batfish.datamodel.routing_policy.communities.LiteralCommunitySet;
+import org.batfish.datamodel.routing_policy.communities.MatchCommunities;
+import org.batfish.datamodel.routing_policy.communities.SetCommunities;
+import org.batfish.datamodel.routing_policy.expr.BooleanExpr;
+import org.batfish.datamodel.routing_policy.expr.CallExpr;
+import org.batfish.datamodel.routing_policy.expr.Conjunction;
+import org.batfish.datamodel.routing_policy.expr.DestinationNetwork;
+import org.batfish.datamodel.routing_policy.expr.Disjunction;
+import org.batfish.datamodel.routing_policy.expr.LiteralCommunity;
+import org.batfish.datamodel.routing_policy.expr.LiteralLong;
+import org.batfish.datamodel.routing_policy.expr.MatchAsPath;
+import org.batfish.datamodel.routing_policy.expr.MatchCommunitySet;
+import org.batfish.datamodel.routing_policy.expr.MatchPrefixSet;
+import org.batfish.datamodel.routing_policy.expr.NamedAsPathSet;
+import org.batfish.datamodel.routing_policy.expr.NamedCommunitySet;
+import org.batfish.datamodel.routing_policy.expr.NamedPrefixSet;
+import org.batfish.datamodel.routing_policy.expr.Not;
+import org.batfish.datamodel.routing_policy.statement.CallStatement;
+import org.batfish.datamodel.routing_policy.statement.If;
+import org.batfish.datamodel.routing_policy.statement.SetLocalPreference;
+import org.batfish.datamodel.routing_policy.statement.SetMetric;
+import org.batfish.datamodel.routing_policy.statement.Statement;
+import org.batfish.datamodel.routing_policy.statement.Statements;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Differential tests of {@link CompiledRoutingPolicy}: every policy must produce the same results
+ * and output routes whether it is compiled or interpreted.
+ */
+@RunWith(JUnit4.class)
+public class CompiledRoutingPolicyTest {
+
+  private static final String MAIN = "main";
+  private static final int NUM_ROUTES = 2000;
+  private static final int NUM_RANDOM_CONFIGURATIONS = 200;
+  private static final int NUM_RANDOM_POLICIES = 4;
+
+  /** Static statements that can be executed without intermediate BGP attributes. */
+  private static final List<Statements> RANDOM_STATIC_STATEMENTS =
+      ImmutableList.of(
+          Statements.DefaultAction,
+          Statements.ExitAccept,
+          Statements.ExitReject,
+          Statements.FallThrough,
+          Statements.Return,
+          Statements.ReturnFalse,
+          Statements.ReturnLocalDefaultAction,
+          Statements.ReturnTrue,
+          Statements.SetDefaultActionAccept,
+          Statements.SetDefaultActionReject,
+          Statements.SetLocalDefaultActionAccept,
+          Statements.SetLocalDefaultActionReject,
+          Statements.Suppress,
+          Statements.Unsuppress);
+
+  private static final StandardCommunity COMMUNITY = StandardCommunity.of(1, 1);
+  private static final StandardCommunity TAG = StandardCommunity.of(2, 2);
+
+  private Configuration _c;
+  private Map<String, RoutingPolicy> _compiled;
+
+  private static BooleanExpr matchPrefixList(String name) {
+    return new MatchPrefixSet(DestinationNetwork.instance(), new NamedPrefixSet(name));
+  }
+
+  private static Statement ifThen(BooleanExpr guard, Statement... trueStatements) {
+    return new If(guard, ImmutableList.copyOf(trueStatements));
+  }
+
+  /**
+   * Populates {@code c} with policies that exercise every compiled construct, along with constant
+   * folding and unresolvable references.
+   */
+  private static Configuration createConfiguration() {
+    NetworkFactory nf = new NetworkFactory();
+    Configuration c =
+        nf.configurationBuilder().setConfigurationFormat(ConfigurationFormat.CISCO_IOS).build();
+    c.getRouteFilterLists()
+        .put(
+            "ten",
+            new RouteFilterList(
+                "ten",
+                ImmutableList.of(
+                    new RouteFilterLine(
+                        LineAction.DENY, Prefix.parse("10.128.0.0/9"), new SubRange(9, 24)),
+                    new RouteFilterLine(
+                        LineAction.PERMIT, Prefix.parse("10.0.0.0/8"), new SubRange(8, 24)))));
+    c.getRouteFilterLists()
+        .put(
+            "host",
+            new RouteFilterList(
+                "host",
+                ImmutableList.of(
+                    new RouteFilterLine(
+                        LineAction.PERMIT, Prefix.parse("0.0.0.0/0"), new SubRange(25, 32)))));
+    // AS-path access lists only initialize their caches when deserialized
+    c.getAsPathAccessLists()
+        .put(
+            "from65001",
+            SerializationUtils.clone(
+                new AsPathAccessList(
+                    "from65001",
+                    ImmutableList.of(new AsPathAccessListLine(LineAction.PERMIT, "^65001")))));
+    c.getCommunityLists()
+        .put(
+            "community",
+            new CommunityList(
+                "community",
+                ImmutableList.of(
+                    new CommunityListLine(LineAction.PERMIT, new LiteralCommunity(COMMUNITY))),
+                false));
+    c.getCommunitySetMatchExprs().put("hasCommunity", new HasCommunity(new CommunityIs(COMMUNITY)));
+    c.getCommunitySetExprs()
+        .put(
+            "addTag",
+            CommunitySetUnion.of(
+                InputCommunities.instance(), new LiteralCommunitySet(CommunitySet.of(TAG))));
+    RoutingPolicy.Builder rpb = nf.routingPolicyBuilder().setOwner(c);
+    rpb.setName("bgpAttributes")
+        .setStatements(
+            ImmutableList.of(
+                ifThen(
+                    new MatchCommunities(
+                        InputCommunities.instance(),
+                        new CommunitySetMatchExprReference("hasCommunity")),
+                    new SetCommunities(new CommunitySetExprReference("addTag")),
+                    new SetLocalPreference(new LiteralLong(300))),
+                ifThen(
+                    new MatchCommunitySet(new NamedCommunitySet("community")),
+                    new SetMetric(new LiteralLong(9))),
+                new If(
+                    new MatchAsPath(new NamedAsPathSet("from65001")),
+                    ImmutableList.of(Statements.ReturnTrue.toStaticStatement()),
+                    ImmutableList.of(Statements.ReturnFalse.toStaticStatement()))))
+        .build();
+    rpb.setName("sub")
+        .setStatements(
+            ImmutableList.of(
+                new If(
+                    matchPrefixList("ten"),
+                    ImmutableList.of(
+                        new SetLocalPreference(new LiteralLong(200)),
+                        Statements.ReturnTrue.toStaticStatement()),
+                    ImmutableList.of(
+                        ifThen(
+                            CALL_EXPR_CONTEXT,
+                            Statements.ReturnLocalDefaultAction.toStaticStatement()),
+                        Statements.ReturnFalse.toStaticStatement(),
+                        // unreachable
+                        Statements.ExitAccept.toStaticStatement()))))
+        .build();
+    rpb.setName("setMetric")
+        .setStatements(
+            ImmutableList.of(
+                ifThen(TRUE, new SetMetric(new LiteralLong(7))),
+                Statements.SetLocalDefaultActionAccept.toStaticStatement(),
+                Statements.FallThrough.toStaticStatement()))
+        .build();
+    rpb.setName(MAIN)
+        .setStatements(
+            ImmutableList.of(
+                Statements.SetDefaultActionReject.toStaticStatement(),
+                ifThen(
+                    new Conjunction(
+                        ImmutableList.of(
+                            TRUE, new CallExpr("sub"), new Not(matchPrefixList("host")))),
+                    new SetMetric(new LiteralLong(5)),
+                    Statements.ExitAccept.toStaticStatement()),
+                ifThen(
+                    new Disjunction(
+                        ImmutableList.of(
+                            FALSE,
+                            matchPrefixList("undefined"),
+                            new CallExpr("undefined"),
+                            new Conjunction(ImmutableList.of(TRUE, FALSE, new CallExpr("sub"))))),
+                    Statements.ExitAccept.toStaticStatement()),
+                new CallStatement("setMetric"),
+                new CallStatement("undefined"),
+                new If(
+                    new Not(FALSE),
+                    ImmutableList.of(
+                        ifThen(matchPrefixList("host"), Statements.ExitReject.toStaticStatement()),
+                        new SetLocalPreference(new LiteralLong(50))),
+                    ImmutableList.of(Statements.ExitReject.toStaticStatement())),
+                ifThen(
+                    new Disjunction(ImmutableList.of(new CallExpr("sub"), TRUE)),
+                    Statements.SetDefaultActionAccept.toStaticStatement()),
+                ifThen(new Conjunction(), Statements.Return.toStaticStatement()),
+                // unreachable
+                Statements.ExitReject.toStaticStatement()))
+        .build();
+    return c;
+  }
+
+  private static List<Bgpv4Route> routes() {
+    Random random = new Random(0);
+    ImmutableList.Builder<Bgpv4Route> routes = ImmutableList.builder();
+    for (int i = 0; i < NUM_ROUTES; i++) {
+      // bias towards 10/8 so that both branches of every prefix-list match are taken
+      long ip = random.nextBoolean() ? (10L << 24) | random.nextInt(1 << 24) : random.nextInt();
+      routes.add(
+          Bgpv4Route.testBuilder()
+              .setNetwork(Prefix.create(Ip.create(ip & 0xFFFFFFFFL), random.nextInt(33)))
+              .setLocalPreference(100)
+              .setMetric(random.nextInt(10))
+              .setAsPath(AsPath.ofSingletonAsSets(random.nextBoolean() ? 65001L : 65002L, 1L))
+              .setCommunities(random.nextBoolean() ? ImmutableSet.of(COMMUNITY) : ImmutableSet.of())
+              .build());
+    }
+    return routes.build();
+  }
+
+  /**
+   * Returns a random statement calling only the policies in {@code callees}, nested at most {@code
+   * depth} levels deep.
+   */
+  private static Statement randomStatement(Random random, List<String> callees, int depth) {
+    switch (random.nextInt(depth > 0 ? 5 : 4)) {
+      case 0:
+        return new SetMetric(new LiteralLong(random.nextInt(10)));
+      case 1:
+        return new SetLocalPreference(new LiteralLong(random.nextInt(300)));
+      case 2:
+        return new CallStatement(callees.get(random.nextInt(callees.size())));
+      case 3:
+        return RANDOM_STATIC_STATEMENTS
+            .get(random.nextInt(RANDOM_STATIC_STATEMENTS.size()))
+            .toStaticStatement();
+      default:
+        return new If(
+            randomExpr(random, callees, depth - 1),
+            randomStatements(random, callees, depth - 1),
+            randomStatements(random, callees, depth - 1));
+    }
+  }
+
+  private static List<Statement> randomStatements(Random random, List<String> callees, int depth) {
+    ImmutableList.Builder<Statement> statements = ImmutableList.builder();
+    int numStatements = random.nextInt(4);
+    for (int i = 0; i < numStatements; i++) {
+      statements.add(randomStatement(random, callees, depth));
+    }
+    return statements.build();
+  }
+
+  /** Returns a random expression calling only the policies in {@code callees}. */
+  private static BooleanExpr randomExpr(Random random, List<String> callees, int depth) {
+    switch (random.nextInt(depth > 0 ? 10 : 7)) {
+      case 0:
+        return TRUE;
+      case 1:
+        return FALSE;
+      case 2:
+        return CALL_EXPR_CONTEXT;
+      case 3:
+        return CALL_STATEMENT_CONTEXT;
+      case 4:
+        return new CallExpr(callees.get(random.nextInt(callees.size())));
+      case 5:
+        return matchPrefixList(ImmutableList.of("ten", "host", "undefined").get(random.nextInt(3)));
+      case 6:
+        return new MatchAsPath(
+            new NamedAsPathSet(ImmutableList.of("from65001", "undefined").get(random.nextInt(2))));
+      case 7:
+        return new Not(randomExpr(random, callees, depth - 1));
+      default:
+        ImmutableList.Builder<BooleanExpr> operands = ImmutableList.builder();
+        int numOperands = random.nextInt(4);
+        for (int i = 0; i < numOperands; i++) {
+          operands.add(randomExpr(random, callees, depth - 1));
+        }
+        return random.nextBoolean()
+            ? new Conjunction(operands.build())
+            : new Disjunction(operands.build());
+    }
+  }
+
+  /**
+   * Replaces the policies of {@code c} with random policies. Each policy only calls policies
+   * defined after it, so evaluation terminates.
+   */
+  private static void randomizePolicies(Configuration c, long seed) {
+    Random random = new Random(seed);
+    c.getRoutingPolicies().clear();
+    RoutingPolicy.Builder rpb = RoutingPolicy.builder().setOwner(c);
+    for (int i = NUM_RANDOM_POLICIES - 1; i >= 0; i--) {
+      ImmutableList.Builder<String> callees = ImmutableList.<String>builder().add("undefined");
+      for (int j = i + 1; j < NUM_RANDOM_POLICIES; j++) {
+        callees.add("p" + j);
+      }
+      rpb.setName(i == 0 ? MAIN : "p" + i)
+          .setStatements(randomStatements(random, callees.build(), 3))
+          .build();
+    }
+  }
+
+  @Before
+  public void setup() {
+    _c = createConfiguration();
+    _compiled = RoutingPolicy.compileAll(_c);
+  }
+
+  /**
+   * Asserts that every compiled policy of {@link #_compiled} behaves like the interpreted policy of
+   * {@link #_c} on every test route.
+   */
+  private void assertEquivalent(List<Bgpv4Route> routes) {
+    assertThat(_compiled.keySet(), equalTo(_c.getRoutingPolicies().keySet()));
+    for (String name : _c.getRoutingPolicies().keySet()) {
+      RoutingPolicy interpreted = _c.getRoutingPolicies().get(name);
+      RoutingPolicy compiled = _compiled.get(name);
+      for (Bgpv4Route route : routes) {
+        for (Direction direction : Direction.values()) {
+          Bgpv4Route.Builder interpretedOutput = route.toBuilder();
+          Bgpv4Route.Builder compiledOutput = route.toBuilder();
+          boolean interpretedAccepted =
+              interpreted.processBgpRoute(route, interpretedOutput, null, direction);
+          boolean compiledAccepted =
+              compiled.processBgpRoute(route, compiledOutput, null, direction);
+          assertThat(route.toString(), compiledAccepted, equalTo(interpretedAccepted));
+          assertThat(route.toString(), compiledOutput.build(), equalTo(interpretedOutput.build()));
+        }
+        Environment interpretedEnvironment =
+            Environment.builder(_c)
+                .setOriginalRoute(route)
+                .setOutputRoute(route.toBuilder())
+                .setDirection(Direction.IN)
+                .build();
+        Environment compiledEnvironment =
+            Environment.builder(_c)
+                .setOriginalRoute(route)
+                .setOutputRoute(route.toBuilder())
+                .setDirection(Direction.IN)
+                .build();
+        assertThat(
+            route.toString(),
+            compiled.call(compiledEnvironment),
+            equalTo(interpreted.call(interpretedEnvironment)));
+        assertThat(compiledEnvironment.getError(), equalTo(interpretedEnvironment.getError()));
+        assertThat(
+            compiledEnvironment.getDefaultAction(),
+            equalTo(interpretedEnvironment.getDefaultAction()));
+        assertThat(
+            compiledEnvironment.getLocalDefaultAction(),
+            equalTo(interpretedEnvironment.getLocalDefaultAction()));
+        assertThat(
+            compiledEnvironment.getSuppressed(), equalTo(interpretedEnvironment.getSuppressed()));
+      }
+    }
+  }
+
+  @Test
+  public void testEquivalent() {
+    assertEquivalent(routes());
+  }
+
+  @Test
+  public void testRandomPolicies() {
+    List<Bgpv4Route> routes = routes().subList(0, NUM_ROUTES / 10);
+    for (long seed = 0; seed < NUM_RANDOM_CONFIGURATIONS; seed++) {
+      randomizePolicies(_c, seed);
+      _compiled = RoutingPolicy.compileAll(_c);
+      assertEquivalent(routes);
+    }
+  }
+
+  @Test
+  public void testCompileAllDoesNotModifyConfiguration() {
+    Configuration c = createConfiguration();
+    Map<String, RoutingPolicy> policies = ImmutableMap.copyOf(c.getRoutingPolicies());
+    Map<String, RoutingPolicy> compiled = RoutingPolicy.compileAll(c);
+    assertThat(c.getRoutingPolicies(), equalTo(policies));
+    policies.forEach(
+        (name, policy) -> {
+          assertThat(c.getRoutingPolicies().get(name), sameInstance(policy));
+          assertThat(policy, not(instanceOf(CompiledRoutingPolicy.class)));
+          assertThat(compiled.get(name), not(sameInstance(policy)));
+          assertThat(compiled.get(name).getStatements(), equalTo(policy.getStatements()));
+        });
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testCompiledPolicyStatementsCannotChange() {
+    _compiled.get(MAIN).setStatements(ImmutableList.of());
+  }
+
+  @Test
+  public void testReferencesBoundAtCompileTime() {
+    Bgpv4Route route =
+        Bgpv4Route.testBuilder()
+            .setNetwork(Prefix.parse("10.0.0.0/8"))
+            .setLocalPreference(100)
+            .build();
+    RoutingPolicy sub = _compiled.get("sub");
+    _c.getRouteFilterLists().put("ten", new RouteFilterList("ten"));
+
+    // the compiled policy keeps the definitions it was compiled with
+    assertThat(sub.processBgpRoute(route, route.toBuilder(), null, Direction.IN), is(true));
+    // the configuration's own policy and freshly compiled policies see the new definitions
+    assertThat(
+        _c.getRoutingPolicies()
+            .get("sub")
+            .processBgpRoute(route, route.toBuilder(), null, Direction.IN),
+        is(false));
+    _compiled = RoutingPolicy.compileAll(_c);
+    assertThat(
+        _compiled.get("sub").processBgpRoute(route, route.toBuilder(), null, Direction.IN),
+        is(false));
+    assertEquivalent(routes());
+  }
+}
@@ -0,0 +1,108 @@
+package org.batfish.datamodel.routing_policy;
+
+import static org.batfish.datamodel.routing_policy.RouteAttributeAnalyzer.accessedBgpRouteAttributes;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.Optional;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.NetworkFactory;
+import org.batfish.datamodel.RoutingProtocol;
+import org.batfish.datamodel.routing_policy.expr.CallExpr;
+import org.batfish.datamodel.routing_policy.expr.DestinationNetwork;
+import org.batfish.datamodel.routing_policy.expr.IntComparator;
+import org.batfish.datamodel.routing_policy.expr.LiteralInt;
+import org.batfish.datamodel.routing_policy.expr.LiteralLong;
+import org.batfish.datamodel.routing_policy.expr.MatchLocalPreference;
+import org.batfish.datamodel.routing_policy.expr.MatchPrefixSet;
+import org.batfish.datamodel.routing_policy.expr.MatchProtocol;
+import org.batfish.datamodel.routing_policy.expr.NamedPrefixSet;
+import org.batfish.datamodel.routing_policy.statement.CallStatement;
+import org.batfish.datamodel.routing_policy.statement.If;
+import org.batfish.datamodel.routing_policy.statement.SetMetric;
+import org.batfish.datamodel.routing_policy.statement.SetTag;
+import org.batfish.datamodel.routing_policy.statement.Statement;
+import org.batfish.datamodel.routing_policy.statement.Statements;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests of {@link RouteAttributeAnalyzer}. */
+@RunWith(JUnit4.class)
+public class RouteAttributeAnalyzerTest {
+
+  private Configuration _c;
+  private RoutingPolicy.Builder _rpb;
+
+  @Before
+  public void setup() {
+    NetworkFactory nf = new NetworkFactory();
+    _c = nf.configurationBuilder().setConfigurationFormat(ConfigurationFormat.CISCO_IOS).build();
+    _rpb = nf.routingPolicyBuilder().setOwner(_c);
+  }
+
+  private RoutingPolicy policy(String name, Statement... statements) {
+    return _rpb.setName(name).setStatements(ImmutableList.copyOf(statements)).build();
+  }
+
+  @Test
+  public void testStatementsAndExpressions() {
+    RoutingPolicy policy =
+        policy(
+            "p",
+            new If(
+                new MatchProtocol(RoutingProtocol.BGP),
+                ImmutableList.of(new SetMetric(new LiteralLong(5))),
+                ImmutableList.of(Statements.ExitReject.toStaticStatement())),
+            Statements.ExitAccept.toStaticStatement());
+    assertThat(
+        accessedBgpRouteAttributes(policy),
+        equalTo(Optional.of(ImmutableSet.of(RouteAttribute.PROTOCOL, RouteAttribute.METRIC))));
+  }
+
+  @Test
+  public void testCalledPolicies() {
+    policy(
+        "sub",
+        new If(
+            new MatchPrefixSet(DestinationNetwork.instance(), new NamedPrefixSet("pl")),
+            ImmutableList.of(Statements.ReturnTrue.toStaticStatement())),
+        new CallStatement("main"));
+    RoutingPolicy main =
+        policy(
+            "main",
+            new If(
+                new CallExpr("sub"),
+                ImmutableList.of(new SetTag(new LiteralLong(7))),
+                ImmutableList.of(new CallStatement("undefined"))));
+    assertThat(
+        accessedBgpRouteAttributes(main),
+        equalTo(Optional.of(ImmutableSet.of(RouteAttribute.NETWORK, RouteAttribute.TAG))));
+  }
+
+  @Test
+  public void testUnsupported() {
+    policy(
+        "sub",
+        new If(
+            new MatchLocalPreference(IntComparator.EQ, new LiteralInt(100)),
+            ImmutableList.of(Statements.ReturnTrue.toStaticStatement())));
+    RoutingPolicy main =
+        policy(
+            "main",
+            new If(
+                new CallExpr("sub"), ImmutableList.of(Statements.ExitAccept.toStaticStatement())));
+    assertThat(accessedBgpRouteAttributes(main), equalTo(Optional.empty()));
+  }
+
+  @Test
+  public void testNoOwner() {
+    RoutingPolicy policy = new RoutingPolicy("p", null);
+    policy.setStatements(ImmutableList.of(Statements.ExitAccept.toStaticStatement()));
+    assertThat(accessedBgpRouteAttributes(policy), equalTo(Optional.empty()));
+  }
+}
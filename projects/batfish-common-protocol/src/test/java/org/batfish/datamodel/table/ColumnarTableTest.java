@@ -0,0 +1,187 @@
+package org.batfish.datamodel.table;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import org.batfish.common.AnswerRowsOptions;
+import org.batfish.common.ColumnFilter;
+import org.batfish.common.ColumnSortOption;
+import org.batfish.common.util.BatfishObjectMapper;
+import org.batfish.datamodel.answers.AnswerSummary;
+import org.batfish.datamodel.answers.Schema;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+/** Tests of {@link ColumnarTable}. */
+public final class ColumnarTableTest {
+  @Rule public ExpectedException _thrown = ExpectedException.none();
+
+  private static final TableMetadata METADATA =
+      new TableMetadata(
+          ImmutableList.of(
+              new ColumnMetadata("a", Schema.STRING, "a"),
+              new ColumnMetadata("b", Schema.INTEGER, "b")),
+          "desc");
+
+  /** Sorts on the string value of the first sort column. */
+  private static final Function<List<ColumnSortOption>, Comparator<Row>> COMPARATORS =
+      sortOrder -> {
+        Comparator<Row> comparator =
+            Comparator.comparing(row -> row.get(sortOrder.get(0).getColumn()).toString());
+        return sortOrder.get(0).getReversed() ? comparator.reversed() : comparator;
+      };
+
+  /**
+   * Creates a table with the given rows, which may be missing columns as in a deserialized table.
+   */
+  private static TableAnswerElement table(Row... rows) {
+    ObjectMapper mapper = BatfishObjectMapper.mapper();
+    ObjectNode json = mapper.valueToTree(new TableAnswerElement(METADATA));
+    json.set("rows", mapper.valueToTree(Arrays.asList(rows)));
+    try {
+      TableAnswerElement table = mapper.treeToValue(json, TableAnswerElement.class);
+      table.setSummary(new AnswerSummary("notes", 1, 2, rows.length));
+      return table;
+    } catch (JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static AnswerRowsOptions options(
+      List<ColumnFilter> filters,
+      List<ColumnSortOption> sortOrder,
+      ImmutableSet<String> columns,
+      int maxRows,
+      int rowOffset,
+      boolean uniqueRows) {
+    return new AnswerRowsOptions(columns, filters, maxRows, rowOffset, sortOrder, uniqueRows);
+  }
+
+  private static ColumnarTable roundTrip(ColumnarTable table) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    table.serialize(out);
+    return ColumnarTable.deserialize(new ByteArrayInputStream(out.toByteArray()));
+  }
+
+  @Test
+  public void testSerializationPreservesRows() throws IOException {
+    // rows with different column orders, a missing column, and a null value
+    ColumnarTable table =
+        roundTrip(
+            ColumnarTable.create(
+                table(Row.of("a", "x", "b", 1), Row.of("b", 2, "a", "y"), Row.of("a", null))));
+
+    assertThat(table.getNumRows(), equalTo(3));
+    assertThat(table.getNumLayouts(), equalTo(3));
+    TableView view = table.getTableView(AnswerRowsOptions.NO_FILTER, COMPARATORS);
+    assertThat(
+        BatfishObjectMapper.writeString(view.getInnerRows()),
+        equalTo("[{\"a\":\"x\",\"b\":1},{\"b\":2,\"a\":\"y\"},{\"a\":null}]"));
+    assertThat(view.getTableMetadata(), equalTo(METADATA));
+    assertThat(view.getSummary().getNotes(), equalTo("notes"));
+    assertThat(view.getSummary().getNumPassed(), equalTo(2));
+    assertThat(view.getSummary().getNumResults(), equalTo(3));
+  }
+
+  @Test
+  public void testGetTableView() {
+    ColumnarTable table =
+        ColumnarTable.create(
+            table(
+                Row.of("a", "x", "b", 3),
+                Row.of("a", "y", "b", 2),
+                Row.of("a", "x", "b", 1),
+                Row.of("a", "z", "b", 1)));
+
+    // keep the rows containing "x", sort descending on b, and skip the first row
+    TableView view =
+        table.getTableView(
+            options(
+                ImmutableList.of(new ColumnFilter("a", "X")),
+                ImmutableList.of(new ColumnSortOption("b", true)),
+                ImmutableSet.of(),
+                2,
+                1,
+                false),
+            COMPARATORS);
+    assertThat(view.getRows(), contains(new TableViewRow(2, Row.of("a", "x", "b", 1))));
+    assertThat(view.getSummary().getNumResults(), equalTo(2));
+  }
+
+  @Test
+  public void testUniqueRowsAfterProjection() {
+    ColumnarTable table =
+        ColumnarTable.create(
+            table(
+                Row.of("a", "x", "b", 1),
+                Row.of("a", "x", "b", 2),
+                Row.of("a", "y", "b", 3),
+                Row.of("a", "x", "b", 4)));
+
+    TableView view =
+        table.getTableView(
+            options(
+                ImmutableList.of(),
+                ImmutableList.of(),
+                ImmutableSet.of("a"),
+                Integer.MAX_VALUE,
+                0,
+                true),
+            COMPARATORS);
+    assertThat(
+        view.getRows(),
+        contains(new TableViewRow(0, Row.of("a", "x")), new TableViewRow(2, Row.of("a", "y"))));
+    // the number of results counts duplicates
+    assertThat(view.getSummary().getNumResults(), equalTo(4));
+    assertThat(
+        view.getTableMetadata().getColumnMetadata(), contains(METADATA.getColumnMetadata().get(0)));
+  }
+
+  @Test
+  public void testFilterMissingColumn() {
+    ColumnarTable table = ColumnarTable.create(table(Row.of("a", "x"), Row.of("a", "y")));
+
+    // the second filter is never evaluated on a row that fails the first
+    assertThat(
+        table
+            .getAnswerTable(
+                options(
+                    ImmutableList.of(new ColumnFilter("a", "z"), new ColumnFilter("b", "")),
+                    ImmutableList.of(),
+                    ImmutableSet.of(),
+                    10,
+                    0,
+                    false),
+                COMPARATORS)
+            .getRowsList(),
+        equalTo(ImmutableList.of()));
+
+    _thrown.expect(NoSuchElementException.class);
+    _thrown.expectMessage(Row.missingColumnErrorMessage("b", ImmutableSet.of("a")));
+    table.getAnswerTable(
+        options(
+            ImmutableList.of(new ColumnFilter("b", "")),
+            ImmutableList.of(),
+            ImmutableSet.of(),
+            10,
+            0,
+            false),
+        COMPARATORS);
+  }
+}
@@ -0,0 +1,67 @@
+package org.batfish.grammar;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertThat;
+
+import org.batfish.grammar.recovery_inline_alts.RecoveryInlineAltsCombinedParser;
+import org.junit.Test;
+
+/** Tests of the DFA and prediction context cache management and prediction statistics of {@link BatfishCombinedParser}. */
+public final class BatfishCombinedParserTest {
+
+  private static final GrammarSettings SETTINGS = MockGrammarSettings.builder().build();
+
+  private static final String TEXT =
+      "ip routing\n"
+          + "interface eth0\n"
+          + "  ip address 1.2.3.4\n"
+          + "  ip ospf cost 1\n"
+          + "  mtu 1500\n"
+          + "ip routing\n"
+          + "permit ssh dns\n";
+
+  @Test
+  public void testDfaCache() {
+    RecoveryInlineAltsCombinedParser cold = new RecoveryInlineAltsCombinedParser(TEXT, SETTINGS);
+    cold.clearDfaCache();
+    assertThat(cold.getDfaStateCount(), equalTo(0));
+    cold.parse();
+    PredictionStatistics coldStatistics = cold.getPredictionStatistics();
+    assertThat(coldStatistics.getPredictions(), greaterThan(0L));
+    assertThat(coldStatistics.getDfaMisses(), greaterThan(0L));
+    int dfaStates = cold.getDfaStateCount();
+    assertThat(dfaStates, greaterThan(0));
+    int predictionContexts = cold.getPredictionContextCount();
+    assertThat(predictionContexts, greaterThan(0));
+
+    // the DFA cache is shared, so a second parse of the same text never misses
+    RecoveryInlineAltsCombinedParser warm = new RecoveryInlineAltsCombinedParser(TEXT, SETTINGS);
+    warm.parse();
+    PredictionStatistics warmStatistics = warm.getPredictionStatistics();
+    assertThat(warmStatistics.getPredictions(), equalTo(coldStatistics.getPredictions()));
+    assertThat(warmStatistics.getDfaMisses(), equalTo(0L));
+    assertThat(warm.getDfaStateCount(), equalTo(dfaStates));
+    assertThat(warm.getPredictionContextCount(), equalTo(predictionContexts));
+
+    warm.clearDfaCache();
+    assertThat(cold.getDfaStateCount(), equalTo(0));
+    assertThat(cold.getPredictionContextCount(), equalTo(0));
+  }
+
+  @Test
+  public void testAddPredictionStatistics() {
+    RecoveryInlineAltsCombinedParser parser = new RecoveryInlineAltsCombinedParser(TEXT, SETTINGS);
+    parser.clearDfaCache();
+    parser.parse();
+    PredictionStatistics statistics = parser.getPredictionStatistics();
+    long predictions = statistics.getPredictions();
+    long dfaMisses = statistics.getDfaMisses();
+    long dfaMissNanos = statistics.getDfaMissNanos()[3];
+
+    statistics.add(statistics);
+    assertThat(statistics.getPredictions(), equalTo(2 * predictions));
+    assertThat(statistics.getDfaMisses(), equalTo(2 * dfaMisses));
+    assertThat(statistics.getDfaMissNanos()[3], equalTo(2 * dfaMissNanos));
+  }
+}
@@ -24,6 +24,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import com.google.common.io.ByteStreams;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -55,6 +56,7 @@ import org.batfish.common.NetworkSnapshot;
 import org.batfish.common.autocomplete.IpCompletionMetadata;
 import org.batfish.common.autocomplete.LocationCompletionMetadata;
 import org.batfish.common.autocomplete.NodeCompletionMetadata;
+import org.batfish.common.plugin.PluginConsumer.Format;
 import org.batfish.common.topology.Layer1Topology;
 import org.batfish.common.topology.Layer2Topology;
 import org.batfish.common.util.BatfishObjectMapper;
@@ -117,6 +119,45 @@ public final class FileBasedStorageTest {
     assertThat(deserialized.keySet(), equalTo(Sets.newHashSet("node1")));
   }
 
+  @Test
+  public void testSerializeObjectAllFormats() throws Exception {
+    Configuration config = new Configuration("node1", ConfigurationFormat.CISCO_IOS);
+    for (Format format : Format.values()) {
+      if (format == Format.UNKNOWN) {
+        continue;
+      }
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      FileBasedStorage.serializeObject(config, out, format);
+      Configuration deserialized =
+          FileBasedStorage.deserializeObject(
+              new ByteArrayInputStream(out.toByteArray()), Configuration.class);
+      assertThat(deserialized.getHostname(), equalTo("node1"));
+    }
+  }
+
+  @Test
+  public void testRoundTripConfigurationsInEachFormat() throws IOException {
+    NetworkId network = new NetworkId("network");
+    SnapshotId snapshot = new SnapshotId("snapshot");
+    Map<String, Configuration> configs =
+        ImmutableMap.of("node1", new Configuration("node1", ConfigurationFormat.CISCO_IOS));
+
+    for (Format format : ImmutableList.of(Format.BATFISH_BINARY, Format.LZ4)) {
+      FileBasedStorage storage =
+          new FileBasedStorage(
+              _containerDir.getParent(), _logger, (m, n) -> new AtomicInteger(), format);
+      storage.storeConfigurations(
+          configs,
+          new ConvertConfigurationAnswerElement(),
+          Layer1Topology.EMPTY,
+          network,
+          snapshot);
+      // any storage can read objects in any format
+      assertThat(
+          _storage.loadConfigurations(network, snapshot).keySet(), equalTo(configs.keySet()));
+    }
+  }
+
   @Test
   public void loadMissingConfigurationsReturnsNull() {
     assertThat(
@@ -193,6 +234,24 @@ public final class FileBasedStorageTest {
     assertThat(_storage.loadWorkLog(network, snapshot, workId), equalTo("testoutput"));
   }
 
+  @Test
+  public void testGetAnswerVersion() throws IOException {
+    AnswerId answerId = new AnswerId("answer-id");
+    _storage.storeAnswer("answer", answerId);
+    String version = _storage.getAnswerVersion(answerId);
+    assertThat(_storage.getAnswerVersion(answerId), equalTo(version));
+
+    // replacing the answer, even with the same content, changes its version
+    _storage.storeAnswer("answer", answerId);
+    assertThat(_storage.getAnswerVersion(answerId), not(equalTo(version)));
+  }
+
+  @Test
+  public void testGetAnswerVersionMissing() throws IOException {
+    _thrown.expect(FileNotFoundException.class);
+    _storage.getAnswerVersion(new AnswerId("answer-id"));
+  }
+
   @Test
   public void testLoadWorkLogMissing() throws IOException {
     // setup: pretend a worker logger has written a file
@@ -0,0 +1,113 @@
+package org.batfish.storage;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableSortedSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.batfish.common.BatfishException;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.junit.Test;
+
+/** Tests of {@link LazyConfigurations}. */
+public final class LazyConfigurationsTest {
+
+  private final List<String> _loaded = Collections.synchronizedList(new ArrayList<>());
+
+  private LazyConfigurations configurations() {
+    return new LazyConfigurations(
+        ImmutableSortedSet.of("a", "b", "c"),
+        hostname -> {
+          _loaded.add(hostname);
+          return new Configuration(hostname, ConfigurationFormat.CISCO_IOS);
+        });
+  }
+
+  @Test
+  public void testGetLoadsOnlyRequestedNode() {
+    LazyConfigurations configurations = configurations();
+    assertThat(configurations.keySet(), contains("a", "b", "c"));
+    assertTrue(configurations.containsKey("b"));
+    assertThat(_loaded, equalTo(Collections.emptyList()));
+
+    Configuration b = configurations.get("b");
+    assertThat(b.getHostname(), equalTo("b"));
+    assertThat(configurations.get("b"), sameInstance(b));
+    assertThat(configurations.get("missing"), nullValue());
+    assertThat(_loaded, contains("b"));
+    assertFalse(configurations.isLoaded("a"));
+  }
+
+  @Test
+  public void testValuesLoadsAllNodes() {
+    LazyConfigurations configurations = configurations();
+    configurations.get("a");
+    assertThat(configurations.values().size(), equalTo(3));
+    assertTrue(configurations.isLoaded("b"));
+    assertTrue(configurations.isLoaded("c"));
+    // each node is loaded once
+    assertThat(_loaded.size(), equalTo(3));
+  }
+
+  @Test
+  public void testLoadedNodesAreRetained() {
+    LazyConfigurations configurations = configurations();
+    Configuration a = configurations.get("a");
+    a.setDomainName("example.com");
+    configurations.values();
+    configurations.entrySet();
+    assertThat(configurations.get("a"), sameInstance(a));
+    assertThat(configurations.get("a").getDomainName(), equalTo("example.com"));
+    assertThat(_loaded.size(), equalTo(3));
+  }
+
+  @Test
+  public void testPostProcessed() {
+    LazyConfigurations configurations =
+        configurations().postProcessed(c -> c.setDomainName("example.com"));
+    assertThat(configurations.get("a").getDomainName(), equalTo("example.com"));
+    assertThat(_loaded, contains("a"));
+  }
+
+  @Test
+  public void testWithFallback() {
+    AtomicInteger repairs = new AtomicInteger();
+    LazyConfigurations configurations =
+        new LazyConfigurations(
+                ImmutableSortedSet.of("a", "b", "c"),
+                hostname -> {
+                  if (!hostname.equals("a")) {
+                    throw new BatfishException("corrupt");
+                  }
+                  return new Configuration(hostname, ConfigurationFormat.CISCO_IOS);
+                })
+            .withFallback(
+                () -> {
+                  repairs.incrementAndGet();
+                  return configurations();
+                });
+    assertThat(configurations.get("a").getHostname(), equalTo("a"));
+    assertThat(repairs.get(), equalTo(0));
+
+    // nodes that cannot be loaded are loaded from the repaired map, which is only created once
+    assertThat(configurations.values().size(), equalTo(3));
+    assertThat(configurations.get("b").getHostname(), equalTo("b"));
+    assertThat(repairs.get(), equalTo(1));
+    assertThat(_loaded, containsInAnyOrder("b", "c"));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testUnmodifiable() {
+    configurations().remove("a");
+  }
+}
@@ -7,7 +7,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
@@ -47,8 +46,7 @@ import org.batfish.vendor.VendorConfiguration;
 public class TestStorageProvider implements StorageProvider {
 
   @Override
-  public SortedMap<String, Configuration> loadConfigurations(
-      NetworkId network, SnapshotId snapshot) {
+  public LazyConfigurations loadConfigurations(NetworkId network, SnapshotId snapshot) {
     throw new UnsupportedOperationException("no implementation for generated method");
   }
 
@@ -156,6 +154,26 @@ public class TestStorageProvider implements StorageProvider {
     throw new UnsupportedOperationException("no implementation for generated method");
   }
 
+  @Override
+  public String getAnswerVersion(AnswerId answerId) {
+    throw new UnsupportedOperationException("no implementation for generated method");
+  }
+
+  @Override
+  public void storeAnswerColumns(InputStream inputStream, AnswerId answerId) {
+    throw new UnsupportedOperationException("no implementation for generated method");
+  }
+
+  @Override
+  public InputStream loadAnswerColumns(AnswerId answerId) {
+    throw new UnsupportedOperationException("no implementation for generated method");
+  }
+
+  @Override
+  public boolean hasAnswerColumns(AnswerId answerId) {
+    throw new UnsupportedOperationException("no implementation for generated method");
+  }
+
   @Override
   public String loadQuestionClassId(
       NetworkId networkId, QuestionId questionId, AnalysisId analysisId) {
@@ -452,6 +470,11 @@ public class TestStorageProvider implements StorageProvider {
     throw new UnsupportedOperationException();
   }
 
+  @Override
+  public void deleteSnapshot(NetworkSnapshot snapshot) throws IOException {
+    throw new UnsupportedOperationException();
+  }
+
   @Nonnull
   @Override
   public Stream<String> listSnapshotInputObjectKeys(NetworkSnapshot snapshot) throws IOException {
@@ -60,8 +60,8 @@ import org.batfish.common.bdd.IpAccessListToBdd;
 import org.batfish.common.bdd.IpAccessListToBddImpl;
 import org.batfish.common.bdd.IpSpaceToBDD;
 import org.batfish.common.bdd.MemoizedIpAccessListToBdd;
+import org.batfish.datamodel.BDDForwardingAnalysis;
 import org.batfish.datamodel.Configuration;
-import org.batfish.datamodel.EmptyIpSpace;
 import org.batfish.datamodel.FlowDisposition;
 import org.batfish.datamodel.ForwardingAnalysis;
 import org.batfish.datamodel.Interface;
@@ -252,8 +252,10 @@ public final class BDDReachabilityAnalysisFactory {
       _one = packet.getFactory().one();
       _zero = packet.getFactory().zero();
       _ignoreFilters = ignoreFilters;
+      BDDForwardingAnalysis bddForwardingAnalysis =
+          BDDForwardingAnalysis.of(packet, forwardingAnalysis);
       _topologyEdges =
-          forwardingAnalysis.getArpTrueEdge().values().stream()
+          bddForwardingAnalysis.getArpTrueEdgeBdds().values().stream()
               .flatMap(m -> m.values().stream())
               .flatMap(m -> m.keySet().stream())
               .collect(ImmutableSet.toImmutableSet());
@@ -285,21 +287,16 @@ public final class BDDReachabilityAnalysisFactory {
       _bddIncomingTransformations = computeBDDIncomingTransformations();
       _bddOutgoingTransformations = computeBDDOutgoingTransformations();
 
-      _arpTrueEdgeBDDs = computeArpTrueEdgeBDDs(forwardingAnalysis, _dstIpSpaceToBDD);
-      _neighborUnreachableBDDs =
-          computeDispositionBDDs(forwardingAnalysis.getNeighborUnreachable(), _dstIpSpaceToBDD);
-      _deliveredToSubnetBDDs =
-          computeDispositionBDDs(forwardingAnalysis.getDeliveredToSubnet(), _dstIpSpaceToBDD);
-      _exitsNetworkBDDs =
-          computeDispositionBDDs(forwardingAnalysis.getExitsNetwork(), _dstIpSpaceToBDD);
-      _insufficientInfoBDDs =
-          computeDispositionBDDs(forwardingAnalysis.getInsufficientInfo(), _dstIpSpaceToBDD);
-      _nullRoutedBDDs = computeNullRoutedBDDs(forwardingAnalysis, _dstIpSpaceToBDD);
-      _routableBDDs = computeRoutableBDDs(forwardingAnalysis, _dstIpSpaceToBDD);
-      _ifaceAcceptBDDs =
-          computeIfaceAcceptBDDs(configs, forwardingAnalysis.getAcceptsIps(), _dstIpSpaceToBDD);
+      _arpTrueEdgeBDDs = bddForwardingAnalysis.getArpTrueEdgeBdds();
+      _neighborUnreachableBDDs = bddForwardingAnalysis.getNeighborUnreachableBdds();
+      _deliveredToSubnetBDDs = bddForwardingAnalysis.getDeliveredToSubnetBdds();
+      _exitsNetworkBDDs = bddForwardingAnalysis.getExitsNetworkBdds();
+      _insufficientInfoBDDs = bddForwardingAnalysis.getInsufficientInfoBdds();
+      _nullRoutedBDDs = bddForwardingAnalysis.getNullRoutedIpBdds();
+      _routableBDDs = bddForwardingAnalysis.getRoutableIpBdds();
+      _ifaceAcceptBDDs = computeIfaceAcceptBDDs(configs, bddForwardingAnalysis.getAcceptsIpBdds());
       _vrfAcceptBDDs = computeVrfAcceptBDDs(); // must do this after populating _ifaceAcceptBDDs
-      _nextVrfBDDs = computeNextVrfBDDs(forwardingAnalysis.getNextVrfIps(), _dstIpSpaceToBDD);
+      _nextVrfBDDs = bddForwardingAnalysis.getNextVrfIpBdds();
       _interfacesToVrfsMap = computeInterfacesToVrfsMap(configs);
 
       _convertedPacketPolicies = convertPacketPolicies(configs, ipsRoutedOutInterfacesFactory);
@@ -469,47 +466,6 @@ public final class BDDReachabilityAnalysisFactory {
     }
   }
 
-  private static @Nonnull Map<String, Map<String, BDD>> computeNullRoutedBDDs(
-      ForwardingAnalysis forwardingAnalysis, IpSpaceToBDD ipSpaceToBDD) {
-    Span span =
-        GlobalTracer.get()
-            .buildSpan("BDDReachabilityAnalysisFactory.computeNullRoutedBDDs")
-            .start();
-    try (Scope scope = GlobalTracer.get().scopeManager().activate(span)) {
-      assert scope != null; // avoid unused warning
-      return toImmutableMap(
-          forwardingAnalysis.getNullRoutedIps(),
-          Entry::getKey /* hostname */,
-          nullRoutedIpsByNodeVrfEntry ->
-              toImmutableMap(
-                  nullRoutedIpsByNodeVrfEntry.getValue(),
-                  Entry::getKey /* vrf */,
-                  nullRoutedIpsByVrfEntry ->
-                      nullRoutedIpsByVrfEntry.getValue().accept(ipSpaceToBDD)));
-    } finally {
-      span.finish();
-    }
-  }
-
-  private static Map<String, Map<String, BDD>> computeRoutableBDDs(
-      ForwardingAnalysis forwardingAnalysis, IpSpaceToBDD ipSpaceToBDD) {
-    Span span =
-        GlobalTracer.get().buildSpan("BDDReachabilityAnalysisFactory.computeRoutableBDDs").start();
-    try (Scope scope = GlobalTracer.get().scopeManager().activate(span)) {
-      assert scope != null; // avoid unused warning
-      return toImmutableMap(
-          forwardingAnalysis.getRoutableIps(),
-          Entry::getKey,
-          nodeEntry ->
-              toImmutableMap(
-                  nodeEntry.getValue(),
-                  Entry::getKey,
-                  vrfEntry -> vrfEntry.getValue().accept(ipSpaceToBDD)));
-    } finally {
-      span.finish();
-    }
-  }
-
   /** For all configs/interfaces that have PBR policy defined, convert the packet policy to BDDs */
   private Map<String, Map<String, PacketPolicyToBdd>> convertPacketPolicies(
       Map<String, Configuration> configs,
@@ -566,56 +522,6 @@ public final class BDDReachabilityAnalysisFactory {
     return _requiredTransitNodeBDD;
   }
 
-  private static Map<String, Map<String, Map<org.batfish.datamodel.Edge, BDD>>>
-      computeArpTrueEdgeBDDs(ForwardingAnalysis forwardingAnalysis, IpSpaceToBDD ipSpaceToBDD) {
-    Span span =
-        GlobalTracer.get()
-            .buildSpan("BDDReachabilityAnalysisFactory.computeArpTrueEdgeBDDs")
-            .start();
-    try (Scope scope = GlobalTracer.get().scopeManager().activate(span)) {
-      assert scope != null; // avoid unused warning
-      return toImmutableMap(
-          forwardingAnalysis.getArpTrueEdge(),
-          Entry::getKey, // node
-          nodeEntry ->
-              toImmutableMap(
-                  nodeEntry.getValue(),
-                  Entry::getKey, // vrf
-                  vrfEntry ->
-                      toImmutableMap(
-                          vrfEntry.getValue(),
-                          Entry::getKey,
-                          edgeEntry -> edgeEntry.getValue().accept(ipSpaceToBDD))));
-    } finally {
-      span.finish();
-    }
-  }
-
-  private static Map<String, Map<String, Map<String, BDD>>> computeDispositionBDDs(
-      Map<String, Map<String, Map<String, IpSpace>>> ipSpaceMap, IpSpaceToBDD ipSpaceToBDD) {
-    Span span =
-        GlobalTracer.get()
-            .buildSpan("BDDReachabilityAnalysisFactory.computeDispositionBDDs")
-            .start();
-    try (Scope scope = GlobalTracer.get().scopeManager().activate(span)) {
-      assert scope != null; // avoid unused warning
-      return toImmutableMap(
-          ipSpaceMap,
-          Entry::getKey,
-          nodeEntry ->
-              toImmutableMap(
-                  nodeEntry.getValue(),
-                  Entry::getKey,
-                  vrfEntry ->
-                      toImmutableMap(
-                          vrfEntry.getValue(),
-                          Entry::getKey,
-                          ifaceEntry -> ifaceEntry.getValue().accept(ipSpaceToBDD))));
-    } finally {
-      span.finish();
-    }
-  }
-
   private Stream<Edge> generateRootEdges(Map<StateExpr, BDD> rootBdds) {
     return Streams.concat(
         generateRootEdges_OriginateInterfaceLink_PreInInterface(rootBdds),
@@ -1886,10 +1792,9 @@ public final class BDDReachabilityAnalysisFactory {
                 Interface::getVrfName));
   }
 
-  private static Map<String, Map<String, Map<String, BDD>>> computeIfaceAcceptBDDs(
+  private Map<String, Map<String, Map<String, BDD>>> computeIfaceAcceptBDDs(
       Map<String, Configuration> configs,
-      Map<String, Map<String, Map<String, IpSpace>>> acceptIps, // hostname -> vrf -> iface -> ips
-      IpSpaceToBDD ipSpaceToBDD) {
+      Map<String, Map<String, Map<String, BDD>>> acceptIps) { // hostname -> vrf -> iface -> ips
     Span span =
         GlobalTracer.get()
             .buildSpan("BDDReachabilityAnalysisFactory.computeIfaceAcceptBDDs")
@@ -1903,13 +1808,13 @@ public final class BDDReachabilityAnalysisFactory {
           nodeEntry -> {
             String hostname = nodeEntry.getKey();
             Configuration c = nodeEntry.getValue();
-            Map<String, Map<String, IpSpace>> nodeAcceptIps =
+            Map<String, Map<String, BDD>> nodeAcceptIps =
                 acceptIps.getOrDefault(hostname, ImmutableMap.of());
             return toImmutableMap(
                 c.getVrfs().keySet(),
                 Function.identity(), /* vrf */
                 vrf -> {
-                  Map<String, IpSpace> vrfAcceptIps =
+                  Map<String, BDD> vrfAcceptIps =
                       nodeAcceptIps.getOrDefault(vrf, ImmutableMap.of());
                   // Create entry for every interface in the current VRF
                   return c.getAllInterfaces().values().stream()
@@ -1918,10 +1823,7 @@ public final class BDDReachabilityAnalysisFactory {
                       .collect(
                           ImmutableMap.toImmutableMap(
                               Function.identity(), /* interface */
-                              ifaceName ->
-                                  vrfAcceptIps
-                                      .getOrDefault(ifaceName, EmptyIpSpace.INSTANCE)
-                                      .accept(ipSpaceToBDD)));
+                              ifaceName -> vrfAcceptIps.getOrDefault(ifaceName, _zero)));
                 });
           });
     } finally {
@@ -1929,31 +1831,6 @@ public final class BDDReachabilityAnalysisFactory {
     }
   }
 
-  private Map<String, Map<String, Map<String, BDD>>> computeNextVrfBDDs(
-      Map<String, Map<String, Map<String, IpSpace>>> nextVrfIpsByNodeVrf,
-      IpSpaceToBDD ipSpaceToBDD) {
-    Span span =
-        GlobalTracer.get().buildSpan("BDDReachabilityAnalysisFactory.computeNextVrfBDDs").start();
-    try (Scope scope = GlobalTracer.get().scopeManager().activate(span)) {
-      assert scope != null; // avoid unused warning
-      return toImmutableMap(
-          nextVrfIpsByNodeVrf,
-          Entry::getKey /* node */,
-          nextVrfIpsByNodeVrfEntry ->
-              toImmutableMap(
-                  nextVrfIpsByNodeVrfEntry.getValue() /* nextVrfIpsByVrf */,
-                  Entry::getKey /* vrf */,
-                  nextVrfIpsByVrfEntry ->
-                      toImmutableMap(
-                          nextVrfIpsByVrfEntry.getValue() /* nextVrfIpsByNextVrf */,
-                          Entry::getKey,
-                          nextVrfIpsByNextVrfEntry ->
-                              nextVrfIpsByNextVrfEntry.getValue().accept(ipSpaceToBDD))));
-    } finally {
-      span.finish();
-    }
-  }
-
   /**
    * Adapt an edge to set the bit indicating that one of the nodes required to be transited has now
    * been transited.
@@ -51,12 +51,69 @@ public final class BDDReachabilityUtils {
             (t1, t2) -> Transitions.or(t1, t2)));
   }
 
+  /** Algorithms for computing reachability fixpoints. */
+  public enum FixpointAlgorithm {
+    /** Push the full reachable set of every dirty state across its edges in synchronous rounds. */
+    ROUNDS,
+    /** Propagate only new parts of reachable sets, visiting states in SCC topological order. */
+    SCC_DELTA
+  }
+
+  /**
+   * System property that selects the {@link FixpointAlgorithm} used by {@link
+   * #forwardFixpoint(Table, Map)} and {@link #backwardFixpointTransposed(Table, Map)}.
+   */
+  public static final String FIXPOINT_ALGORITHM_PROPERTY = "batfish.bddreachability.fixpoint";
+
+  private static volatile FixpointAlgorithm _fixpointAlgorithm =
+      FixpointAlgorithm.valueOf(
+          System.getProperty(FIXPOINT_ALGORITHM_PROPERTY, FixpointAlgorithm.ROUNDS.name()));
+
+  public static FixpointAlgorithm getFixpointAlgorithm() {
+    return _fixpointAlgorithm;
+  }
+
+  /** Set the {@link FixpointAlgorithm} used by all subsequent fixpoint computations. */
+  public static void setFixpointAlgorithm(FixpointAlgorithm fixpointAlgorithm) {
+    _fixpointAlgorithm = fixpointAlgorithm;
+  }
+
   /** Apply edges to the reachableSets until a fixed point is reached. */
   @VisibleForTesting
   static void fixpoint(
       Map<StateExpr, BDD> reachableSets,
       Table<StateExpr, StateExpr, Transition> edges,
       BiFunction<Transition, BDD, BDD> traverse) {
+    fixpoint(reachableSets, edges, traverse, _fixpointAlgorithm);
+  }
+
+  @VisibleForTesting
+  static void fixpoint(
+      Map<StateExpr, BDD> reachableSets,
+      Table<StateExpr, StateExpr, Transition> edges,
+      BiFunction<Transition, BDD, BDD> traverse,
+      FixpointAlgorithm algorithm) {
+    switch (algorithm) {
+      case ROUNDS:
+        roundsFixpoint(reachableSets, edges, traverse);
+        return;
+      case SCC_DELTA:
+        SccDeltaFixpoint.fixpoint(reachableSets, edges, traverse);
+        return;
+      default:
+        throw new BatfishException("Unexpected FixpointAlgorithm: " + algorithm);
+    }
+  }
+
+  /**
+   * Apply edges to the reachableSets until a fixed point is reached, pushing the whole reachable
+   * set of each dirty state in every round.
+   */
+  @VisibleForTesting
+  static void roundsFixpoint(
+      Map<StateExpr, BDD> reachableSets,
+      Table<StateExpr, StateExpr, Transition> edges,
+      BiFunction<Transition, BDD, BDD> traverse) {
     Span span = GlobalTracer.get().buildSpan("BDDReachabilityAnalysis.fixpoint").start();
     try (Scope scope = GlobalTracer.get().scopeManager().activate(span)) {
       assert scope != null; // avoid unused warning
@@ -0,0 +1,262 @@
+package org.batfish.bddreachability;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Table;
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.util.GlobalTracer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import net.sf.javabdd.BDD;
+import org.batfish.bddreachability.transition.Transition;
+import org.batfish.symbolic.state.StateExpr;
+
+/**
+ * A fixpoint engine for BDD reachability that processes the strongly connected components (SCCs) of
+ * the edge graph in topological order, and propagates only the newly-added part (delta) of each
+ * state's reachable set.
+ *
+ * <p>Every {@link Transition} distributes over disjunction, so propagating the delta of a state is
+ * equivalent to propagating its whole set, and the resulting fixpoint is identical to the one
+ * computed by {@link BDDReachabilityUtils#roundsFixpoint}. Since SCCs are visited in topological
+ * order, each SCC is visited exactly once: its members are iterated until they converge among
+ * themselves, and then the reachable set of each member is pushed across the edges leaving the SCC
+ * exactly once. Acyclic parts of the graph are therefore traversed exactly once.
+ */
+final class SccDeltaFixpoint {
+
+  /** Apply edges to the reachableSets until a fixed point is reached. */
+  static void fixpoint(
+      Map<StateExpr, BDD> reachableSets,
+      Table<StateExpr, StateExpr, Transition> edges,
+      BiFunction<Transition, BDD, BDD> traverse) {
+    Span span = GlobalTracer.get().buildSpan("SccDeltaFixpoint.fixpoint").start();
+    try (Scope scope = GlobalTracer.get().scopeManager().activate(span)) {
+      assert scope != null; // avoid unused warning
+      List<List<StateExpr>> sccs = computeSccs(reachableSets.keySet(), edges);
+      Map<StateExpr, Integer> sccIndex = new HashMap<>();
+      Map<StateExpr, Integer> sccPosition = new HashMap<>();
+      for (int i = 0; i < sccs.size(); i++) {
+        List<StateExpr> members = sccs.get(i);
+        for (int j = 0; j < members.size(); j++) {
+          sccIndex.put(members.get(j), i);
+          sccPosition.put(members.get(j), j);
+        }
+      }
+
+      // Tarjan's algorithm emits SCCs in reverse topological order.
+      for (int i = sccs.size() - 1; i >= 0; i--) {
+        int scc = i;
+        List<StateExpr> members = sccs.get(scc);
+
+        /* Nothing has been propagated out of this SCC yet, so the whole reachable set of each
+         * member is new. It was contributed by the initial sets and by earlier SCCs, which have
+         * all converged.
+         */
+        BitSet reachedMembers = new BitSet(members.size());
+        for (int pos = 0; pos < members.size(); pos++) {
+          BDD reach = reachableSets.get(members.get(pos));
+          if (reach != null && !reach.isZero()) {
+            reachedMembers.set(pos);
+          }
+        }
+        if (reachedMembers.isEmpty()) {
+          continue;
+        }
+
+        if (members.size() > 1 || edges.contains(members.get(0), members.get(0))) {
+          iterateScc(
+              reachableSets, edges, traverse, members, reachedMembers, sccIndex, sccPosition);
+        }
+
+        // the SCC has converged: push each member's reachable set to later SCCs
+        for (int pos = reachedMembers.nextSetBit(0);
+            pos >= 0;
+            pos = reachedMembers.nextSetBit(pos + 1)) {
+          StateExpr state = members.get(pos);
+          BDD reach = reachableSets.get(state);
+          edges
+              .row(state)
+              .forEach(
+                  (neighbor, edge) -> {
+                    if (sccIndex.get(neighbor) != scc) {
+                      propagate(reachableSets, neighbor, traverse.apply(edge, reach));
+                    }
+                  });
+        }
+      }
+    } finally {
+      span.finish();
+    }
+  }
+
+  /**
+   * Iterates the edges inside an SCC until its members' reachable sets converge, starting from the
+   * given members whose whole reachable sets are new. On return, {@code reachedMembers} contains
+   * the positions of all members with nonempty reachable sets.
+   *
+   * <p>Dirty members are swept over in order. A member that becomes dirty is visited later in the
+   * current sweep if it comes after the current member, or in the next sweep otherwise. This way
+   * each member batches everything it receives during a sweep, and propagates only the part of its
+   * reachable set that it has not propagated before.
+   */
+  private static void iterateScc(
+      Map<StateExpr, BDD> reachableSets,
+      Table<StateExpr, StateExpr, Transition> edges,
+      BiFunction<Transition, BDD, BDD> traverse,
+      List<StateExpr> members,
+      BitSet reachedMembers,
+      Map<StateExpr, Integer> sccIndex,
+      Map<StateExpr, Integer> sccPosition) {
+    int scc = sccIndex.get(members.get(0));
+
+    // the part of each member's reachable set that has already been propagated inside the SCC
+    Map<StateExpr, BDD> propagated = new HashMap<>();
+
+    BitSet currentSweep = (BitSet) reachedMembers.clone();
+    BitSet nextSweep = new BitSet(members.size());
+    while (!currentSweep.isEmpty()) {
+      for (int pos = currentSweep.nextSetBit(0); pos >= 0; pos = currentSweep.nextSetBit(pos + 1)) {
+        int currentPos = pos;
+        StateExpr state = members.get(pos);
+        BDD reach = reachableSets.get(state);
+        BDD oldPropagated = propagated.put(state, reach);
+        BDD delta = oldPropagated == null ? reach : reach.diff(oldPropagated);
+        edges
+            .row(state)
+            .forEach(
+                (neighbor, edge) -> {
+                  if (sccIndex.get(neighbor) != scc
+                      || !propagate(reachableSets, neighbor, traverse.apply(edge, delta))) {
+                    return;
+                  }
+                  int neighborPos = sccPosition.get(neighbor);
+                  reachedMembers.set(neighborPos);
+                  if (neighborPos > currentPos) {
+                    currentSweep.set(neighborPos);
+                  } else {
+                    nextSweep.set(neighborPos);
+                  }
+                });
+      }
+      currentSweep.clear();
+      currentSweep.or(nextSweep);
+      nextSweep.clear();
+    }
+  }
+
+  /** Adds {@code result} to the reachable set of {@code state}. Returns whether the set changed. */
+  private static boolean propagate(Map<StateExpr, BDD> reachableSets, StateExpr state, BDD result) {
+    if (result.isZero()) {
+      return false;
+    }
+    BDD oldReach = reachableSets.get(state);
+    if (oldReach == null) {
+      reachableSets.put(state, result);
+      return true;
+    }
+    BDD newReach = oldReach.or(result);
+    if (newReach.equals(oldReach)) {
+      return false;
+    }
+    reachableSets.put(state, newReach);
+    return true;
+  }
+
+  /**
+   * Computes the strongly connected components of the subgraph reachable from {@code roots}, in
+   * reverse topological order, using an iterative version of Tarjan's algorithm. The members of
+   * each component are listed in reverse postorder of the depth-first search.
+   */
+  @VisibleForTesting
+  static List<List<StateExpr>> computeSccs(
+      Iterable<StateExpr> roots, Table<StateExpr, StateExpr, Transition> edges) {
+    Map<StateExpr, Integer> index = new HashMap<>();
+    Map<StateExpr, Integer> lowLink = new HashMap<>();
+    Map<StateExpr, Integer> postOrder = new HashMap<>();
+    Deque<StateExpr> sccStack = new ArrayDeque<>();
+    Set<StateExpr> onStack = new HashSet<>();
+    List<List<StateExpr>> sccs = new ArrayList<>();
+
+    Deque<Frame> callStack = new ArrayDeque<>();
+    int nextIndex = 0;
+
+    for (StateExpr root : roots) {
+      if (index.containsKey(root)) {
+        continue;
+      }
+      index.put(root, nextIndex);
+      lowLink.put(root, nextIndex);
+      nextIndex++;
+      sccStack.push(root);
+      onStack.add(root);
+      callStack.push(new Frame(root, edges.row(root).keySet().iterator()));
+
+      while (!callStack.isEmpty()) {
+        Frame frame = callStack.peek();
+        StateExpr state = frame._state;
+        Iterator<StateExpr> successors = frame._successors;
+        if (successors.hasNext()) {
+          StateExpr succ = successors.next();
+          Integer succIndex = index.get(succ);
+          if (succIndex == null) {
+            index.put(succ, nextIndex);
+            lowLink.put(succ, nextIndex);
+            nextIndex++;
+            sccStack.push(succ);
+            onStack.add(succ);
+            callStack.push(new Frame(succ, edges.row(succ).keySet().iterator()));
+          } else if (onStack.contains(succ)) {
+            lowLink.put(state, Math.min(lowLink.get(state), succIndex));
+          }
+          continue;
+        }
+
+        // all successors visited
+        callStack.pop();
+        postOrder.put(state, postOrder.size());
+        int stateLowLink = lowLink.get(state);
+        if (!callStack.isEmpty()) {
+          StateExpr parent = callStack.peek()._state;
+          lowLink.put(parent, Math.min(lowLink.get(parent), stateLowLink));
+        }
+        if (stateLowLink == index.get(state)) {
+          List<StateExpr> scc = new ArrayList<>();
+          StateExpr member;
+          do {
+            member = sccStack.pop();
+            onStack.remove(member);
+            scc.add(member);
+          } while (!member.equals(state));
+          scc.sort(Comparator.comparing(postOrder::get, Comparator.reverseOrder()));
+          sccs.add(ImmutableList.copyOf(scc));
+        }
+      }
+    }
+    return sccs;
+  }
+
+  /** A frame of the DFS call stack: a state and the iterator over its remaining successors. */
+  private static final class Frame {
+    private final StateExpr _state;
+    private final Iterator<StateExpr> _successors;
+
+    private Frame(StateExpr state, Iterator<StateExpr> successors) {
+      _state = state;
+      _successors = successors;
+    }
+  }
+
+  private SccDeltaFixpoint() {}
+}
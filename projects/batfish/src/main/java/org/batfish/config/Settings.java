@@ -24,6 +24,8 @@ import org.batfish.version.Versioned;
 
 public final class Settings extends BaseSettings implements GrammarSettings {
 
+  private static final String ARG_BDD_FORWARDING_ANALYSIS = "bddforwardinganalysis";
+
   public static final String ARG_CHECK_BGP_REACHABILITY = "checkbgpsessionreachability";
 
   public static final String ARG_COORDINATOR_HOST = "coordinatorhost";
@@ -34,10 +36,14 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   private static final String ARG_DATAPLANE_ENGINE_NAME = "dataplaneengine";
 
+  private static final String ARG_CONVERSION_REUSE = "conversionreuse";
+
   private static final String ARG_DEBUG_FLAGS = "debugflags";
 
   private static final String ARG_PARSE_REUSE = "parsereuse";
 
+  private static final String ARG_PARSE_STATISTICS = "parsestatistics";
+
   private static final String ARG_EXIT_ON_FIRST_ERROR = "ee";
 
   private static final String ARG_FLATTEN = "flatten";
@@ -54,6 +60,8 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
   private static final String ARG_JOBS = "jobs";
 
+  private static final String ARG_MAX_DFA_STATES = "maxdfastates";
+
   private static final String ARG_MAX_PARSER_CONTEXT_LINES = "maxparsercontextlines";
 
   private static final String ARG_MAX_PARSER_CONTEXT_TOKENS = "maxparsercontexttokens";
@@ -282,10 +290,38 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     return _config.getString(BfConsts.ARG_LOG_LEVEL);
   }
 
+  /**
+   * Whether BDD reachability analyses compute the forwarding analysis directly as BDDs, rather than
+   * converting the IP spaces of the one computed with the data plane.
+   */
+  public boolean getBddForwardingAnalysis() {
+    return _config.getBoolean(ARG_BDD_FORWARDING_ANALYSIS);
+  }
+
+  public boolean getConversionReuse() {
+    return _config.getBoolean(ARG_CONVERSION_REUSE);
+  }
+
   public boolean getParseReuse() {
     return _config.getBoolean(ARG_PARSE_REUSE);
   }
 
+  /**
+   * Whether to record per-grammar parser statistics in the parse answer. Off by default since they
+   * include timings, which would make the answer nondeterministic.
+   */
+  public boolean getParseStatistics() {
+    return _config.getBoolean(ARG_PARSE_STATISTICS);
+  }
+
+  /**
+   * The number of states above which the shared ANTLR DFA cache of a grammar is reset after a
+   * parse, to bound its memory use in long-lived workers.
+   */
+  public int getMaxDfaStates() {
+    return _config.getInt(ARG_MAX_DFA_STATES);
+  }
+
   @Override
   public int getMaxParserContextLines() {
     return _config.getInt(ARG_MAX_PARSER_CONTEXT_LINES);
@@ -465,13 +501,17 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     setDefaultProperty(ARG_IGNORE_UNKNOWN, true);
     setDefaultProperty(ARG_JOBS, Integer.MAX_VALUE);
     setDefaultProperty(BfConsts.ARG_LOG_LEVEL, "debug");
+    setDefaultProperty(ARG_MAX_DFA_STATES, 250_000);
     setDefaultProperty(ARG_MAX_PARSER_CONTEXT_LINES, 10);
     setDefaultProperty(ARG_MAX_PARSER_CONTEXT_TOKENS, 10);
     setDefaultProperty(ARG_MAX_PARSE_TREE_PRINT_LENGTH, 0);
     setDefaultProperty(ARG_MAX_RUNTIME_MS, 0);
+    setDefaultProperty(ARG_BDD_FORWARDING_ANALYSIS, false);
     setDefaultProperty(ARG_CHECK_BGP_REACHABILITY, true);
+    setDefaultProperty(ARG_CONVERSION_REUSE, true);
     setDefaultProperty(ARG_NO_SHUFFLE, false);
     setDefaultProperty(ARG_PARSE_REUSE, true);
+    setDefaultProperty(ARG_PARSE_STATISTICS, false);
     setDefaultProperty(ARG_PRINT_PARSE_TREES, false);
     setDefaultProperty(ARG_PRINT_PARSE_TREE_LINE_NUMS, false);
     setDefaultProperty(BfConsts.ARG_QUESTION_NAME, null);
@@ -541,6 +581,10 @@ public final class Settings extends BaseSettings implements GrammarSettings {
         "Set to true to record all iterations, including during oscillation. Ignores max recorded "
             + "iterations value.");
 
+    addBooleanOption(
+        ARG_BDD_FORWARDING_ANALYSIS,
+        "compute the forwarding analysis of BDD reachability questions directly as BDDs");
+
     addBooleanOption(
         ARG_CHECK_BGP_REACHABILITY,
         "whether to check BGP session reachability during data plane computation");
@@ -614,6 +658,11 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
     addBooleanOption(ARG_HISTOGRAM, "build histogram of unimplemented features");
 
+    addOption(
+        ARG_MAX_DFA_STATES,
+        "number of parser and lexer DFA states above which a grammar's DFA cache is reset",
+        ARGNAME_NUMBER);
+
     addOption(
         ARG_MAX_PARSER_CONTEXT_LINES,
         "max number of surrounding lines to print on parser error",
@@ -634,8 +683,13 @@ public final class Settings extends BaseSettings implements GrammarSettings {
 
     addBooleanOption(ARG_NO_SHUFFLE, "do not shuffle parallel jobs");
 
+    addBooleanOption(ARG_CONVERSION_REUSE, "reuse conversion results when appropriate");
+
     addBooleanOption(ARG_PARSE_REUSE, "reuse parse results when appropriate");
 
+    addBooleanOption(
+        ARG_PARSE_STATISTICS, "record parser prediction and DFA cache statistics per grammar");
+
     addBooleanOption(ARG_PRINT_PARSE_TREES, "print parse trees");
 
     addBooleanOption(
@@ -772,6 +826,7 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     getIntOptionValue(BfConsts.ARG_BDP_MAX_RECORDED_ITERATIONS);
     getBooleanOptionValue(BfConsts.ARG_BDP_PRINT_ALL_ITERATIONS);
     getBooleanOptionValue(BfConsts.ARG_BDP_PRINT_OSCILLATING_ITERATIONS);
+    getBooleanOptionValue(ARG_BDD_FORWARDING_ANALYSIS);
     getBooleanOptionValue(ARG_CHECK_BGP_REACHABILITY);
     getStringOptionValue(BfConsts.ARG_CONTAINER);
     getStringOptionValue(ARG_COORDINATOR_HOST);
@@ -794,6 +849,7 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     getBooleanOptionValue(ARG_IGNORE_UNSUPPORTED);
     getBooleanOptionValue(BfConsts.COMMAND_INIT_INFO);
     getIntOptionValue(ARG_JOBS);
+    getIntOptionValue(ARG_MAX_DFA_STATES);
     getIntOptionValue(ARG_MAX_PARSER_CONTEXT_LINES);
     getIntOptionValue(ARG_MAX_PARSER_CONTEXT_TOKENS);
     getIntOptionValue(ARG_MAX_PARSE_TREE_PRINT_LENGTH);
@@ -810,7 +866,9 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     getStringOptionValue(ARG_SERVICE_NAME);
     getIntOptionValue(ARG_SERVICE_PORT);
     getBooleanOptionValue(ARG_NO_SHUFFLE);
+    getBooleanOptionValue(ARG_CONVERSION_REUSE);
     getBooleanOptionValue(ARG_PARSE_REUSE);
+    getBooleanOptionValue(ARG_PARSE_STATISTICS);
     getStringOptionValue(BfConsts.ARG_SNAPSHOT_NAME);
     getPathOptionValue(BfConsts.ARG_STORAGE_BASE);
     getStringOptionValue(BfConsts.ARG_TASK_PLUGIN);
@@ -870,6 +928,10 @@ public final class Settings extends BaseSettings implements GrammarSettings {
     _logger = logger;
   }
 
+  public void setMaxDfaStates(int maxDfaStates) {
+    _config.setProperty(ARG_MAX_DFA_STATES, maxDfaStates);
+  }
+
   public void setMaxParserContextLines(int maxParserContextLines) {
     _config.setProperty(ARG_MAX_PARSER_CONTEXT_LINES, maxParserContextLines);
   }
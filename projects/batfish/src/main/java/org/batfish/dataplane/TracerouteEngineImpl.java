@@ -9,6 +9,8 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.function.BiConsumer;
+import javax.annotation.Nonnull;
 import org.batfish.common.plugin.TracerouteEngine;
 import org.batfish.common.traceroute.TraceDag;
 import org.batfish.datamodel.Configuration;
@@ -35,12 +37,17 @@ public final class TracerouteEngineImpl implements TracerouteEngine {
   @Override
   public SortedMap<Flow, List<TraceAndReverseFlow>> computeTracesAndReverseFlows(
       Set<Flow> flows, Set<FirewallSessionTraceInfo> sessions, boolean ignoreFilters) {
-    return computeTraceDags(flows, sessions, ignoreFilters).entrySet().parallelStream()
+    TracerouteEngineImplContext context = context(flows, sessions, ignoreFilters);
+    // Expand each DAG as soon as it is built, so the DAGs of all flows are never held at once.
+    return flows.parallelStream()
         .map(
-            entry ->
+            flow ->
                 new SimpleEntry<>(
-                    entry.getKey(),
-                    entry.getValue().getTraces().collect(ImmutableList.toImmutableList())))
+                    flow,
+                    context
+                        .buildTraceDag(flow)
+                        .getTraces()
+                        .collect(ImmutableList.toImmutableList())))
         .collect(
             ImmutableSortedMap.toImmutableSortedMap(
                 Ordering.natural(), Entry::getKey, Entry::getValue));
@@ -49,14 +56,27 @@ public final class TracerouteEngineImpl implements TracerouteEngine {
   @Override
   public Map<Flow, TraceDag> computeTraceDags(
       Set<Flow> flows, Set<FirewallSessionTraceInfo> sessions, boolean ignoreFilters) {
+    return context(flows, sessions, ignoreFilters).buildTraceDags();
+  }
+
+  @Override
+  public void forEachTraceDag(
+      Set<Flow> flows,
+      Set<FirewallSessionTraceInfo> sessions,
+      boolean ignoreFilters,
+      BiConsumer<Flow, TraceDag> consumer) {
+    context(flows, sessions, ignoreFilters).forEachTraceDag(consumer);
+  }
+
+  private @Nonnull TracerouteEngineImplContext context(
+      Set<Flow> flows, Set<FirewallSessionTraceInfo> sessions, boolean ignoreFilters) {
     return new TracerouteEngineImplContext(
-            _dataPlane,
-            _topology,
-            sessions,
-            flows,
-            _dataPlane.getFibs(),
-            ignoreFilters,
-            _configurations)
-        .buildTraceDags();
+        _dataPlane,
+        _topology,
+        sessions,
+        flows,
+        _dataPlane.getFibs(),
+        ignoreFilters,
+        _configurations);
   }
 }
@@ -0,0 +1,277 @@
+package org.batfish.dataplane.ibdp;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.AbstractRoute;
+import org.batfish.datamodel.AbstractRouteDecorator;
+import org.batfish.datamodel.AnnotatedRoute;
+import org.batfish.datamodel.AsPath;
+import org.batfish.datamodel.BgpRoute;
+import org.batfish.datamodel.BgpSessionProperties;
+import org.batfish.datamodel.OriginType;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.RoutingProtocol;
+import org.batfish.datamodel.bgp.community.Community;
+import org.batfish.datamodel.route.nh.NextHop;
+import org.batfish.datamodel.routing_policy.Environment.Direction;
+import org.batfish.datamodel.routing_policy.RouteAttribute;
+import org.batfish.datamodel.routing_policy.RouteAttributeAnalyzer;
+import org.batfish.datamodel.routing_policy.RoutingPolicy;
+
+/**
+ * Internal iBDP implementation. Memoizes the outcomes of applying the routing policies of a single
+ * BGP process to BGP routes.
+ *
+ * <p>Routes that differ only in attributes a policy never accesses, e.g. in their prefix when the
+ * policy only matches communities, have the same outcome: the same decision, and the same changes
+ * to the output route. Outcomes are keyed on the values of the attributes found by {@link
+ * RouteAttributeAnalyzer} in both the input and the output route, along with the session properties
+ * and the direction. Since every attribute a policy may write is part of the key, the changes
+ * recorded for one route are exactly those the policy would make for any route with the same key.
+ * Policies that cannot be analyzed are always evaluated.
+ */
+@ParametersAreNonnullByDefault
+final class BgpPolicyOutcomeCache {
+
+  /** Upper bound on the number of outcomes memoized per BGP process. */
+  @VisibleForTesting static final int MAX_OUTCOMES = 1 << 16;
+
+  /** The effect of a policy on an output route. */
+  private static final class Outcome {
+    private final boolean _accepted;
+    private final @Nonnull RouteAttribute[] _changedAttributes;
+    private final @Nonnull Object[] _changedValues;
+
+    private Outcome(boolean accepted, RouteAttribute[] changedAttributes, Object[] changedValues) {
+      _accepted = accepted;
+      _changedAttributes = changedAttributes;
+      _changedValues = changedValues;
+    }
+
+    private boolean applyTo(BgpRoute.Builder<?, ?> outputRoute) {
+      for (int i = 0; i < _changedAttributes.length; i++) {
+        set(_changedAttributes[i], outputRoute, _changedValues[i]);
+      }
+      return _accepted;
+    }
+  }
+
+  /** Accessed attributes of each analyzable policy, by policy name. */
+  private final @Nonnull Map<String, Optional<List<RouteAttribute>>> _accessedAttributes;
+
+  private final @Nonnull Cache<List<Object>, Outcome> _outcomes;
+
+  /** Whether policies are always evaluated, bypassing the memoized outcomes. */
+  private boolean _disabled;
+
+  BgpPolicyOutcomeCache() {
+    _accessedAttributes = new ConcurrentHashMap<>();
+    _outcomes =
+        CacheBuilder.newBuilder().softValues().maximumSize(MAX_OUTCOMES).recordStats().build();
+  }
+
+  /**
+   * Equivalent to {@link RoutingPolicy#processBgpRoute(AbstractRouteDecorator, BgpRoute.Builder,
+   * BgpSessionProperties, Direction)}, using a memoized outcome if possible.
+   *
+   * <p>All policies processed by this cache must belong to the same {@link
+   * org.batfish.datamodel.Configuration}, whose definitions must not change.
+   */
+  boolean processBgpRoute(
+      RoutingPolicy policy,
+      AbstractRouteDecorator inputRoute,
+      BgpRoute.Builder<?, ?> outputRoute,
+      @Nullable BgpSessionProperties sessionProperties,
+      Direction direction) {
+    if (_disabled) {
+      return policy.processBgpRoute(inputRoute, outputRoute, sessionProperties, direction);
+    }
+    AbstractRoute route = inputRoute.getAbstractRoute();
+    List<RouteAttribute> attributes =
+        _accessedAttributes.computeIfAbsent(policy.getName(), name -> analyze(policy)).orElse(null);
+    if (attributes == null || !(route instanceof BgpRoute<?, ?>)) {
+      return policy.processBgpRoute(inputRoute, outputRoute, sessionProperties, direction);
+    }
+    int numAttributes = attributes.size();
+    Object[] key = new Object[4 + 2 * numAttributes];
+    key[0] = policy.getName();
+    key[1] = direction;
+    key[2] = sessionProperties;
+    key[3] = route.getClass();
+    for (int i = 0; i < numAttributes; i++) {
+      RouteAttribute attribute = attributes.get(i);
+      key[4 + i] = get(attribute, inputRoute, (BgpRoute<?, ?>) route);
+      key[4 + numAttributes + i] = get(attribute, outputRoute);
+    }
+    List<Object> keyList = Arrays.asList(key);
+    Outcome outcome = _outcomes.getIfPresent(keyList);
+    if (outcome != null) {
+      return outcome.applyTo(outputRoute);
+    }
+    boolean accepted =
+        policy.processBgpRoute(inputRoute, outputRoute, sessionProperties, direction);
+    ImmutableList.Builder<RouteAttribute> changedAttributes = ImmutableList.builder();
+    ImmutableList.Builder<Object> changedValues = ImmutableList.builder();
+    for (int i = 0; i < numAttributes; i++) {
+      RouteAttribute attribute = attributes.get(i);
+      Object value = get(attribute, outputRoute);
+      if (Objects.equals(value, key[4 + numAttributes + i])) {
+        continue;
+      }
+      if (value == null) {
+        // cannot be replayed, since attributes cannot be unset
+        return accepted;
+      }
+      changedAttributes.add(attribute);
+      changedValues.add(value);
+    }
+    _outcomes.put(
+        keyList,
+        new Outcome(
+            accepted,
+            changedAttributes.build().toArray(new RouteAttribute[0]),
+            changedValues.build().toArray()));
+    return accepted;
+  }
+
+  /**
+   * Makes this cache evaluate every policy, without memoizing outcomes. Must be called before any
+   * route is processed.
+   */
+  void disable() {
+    _disabled = true;
+  }
+
+  /** Number of evaluations whose outcome was memoized. */
+  long getHits() {
+    return _outcomes.stats().hitCount();
+  }
+
+  /** Number of evaluations of analyzable policies whose outcome was not memoized. */
+  long getMisses() {
+    return _outcomes.stats().missCount();
+  }
+
+  private static @Nonnull Optional<List<RouteAttribute>> analyze(RoutingPolicy policy) {
+    return RouteAttributeAnalyzer.accessedBgpRouteAttributes(policy).map(ImmutableList::copyOf);
+  }
+
+  private static @Nullable Object get(
+      RouteAttribute attribute, AbstractRouteDecorator inputRoute, BgpRoute<?, ?> route) {
+    switch (attribute) {
+      case ADMIN:
+        return route.getAdministrativeCost();
+      case AS_PATH:
+        return route.getAsPath();
+      case COMMUNITIES:
+        return route.getCommunities();
+      case LOCAL_PREFERENCE:
+        return route.getLocalPreference();
+      case METRIC:
+        return route.getMetric();
+      case NETWORK:
+        return route.getNetwork();
+      case NEXT_HOP:
+        return route.getNextHop();
+      case ORIGIN_TYPE:
+        return route.getOriginType();
+      case PROTOCOL:
+        return route.getProtocol();
+      case SOURCE_VRF:
+        return inputRoute instanceof AnnotatedRoute<?>
+            ? ((AnnotatedRoute<?>) inputRoute).getSourceVrf()
+            : null;
+      case TAG:
+        return route.getTag();
+      case WEIGHT:
+        return route.getWeight();
+      default:
+        throw new IllegalArgumentException("Unsupported route attribute: " + attribute);
+    }
+  }
+
+  private static @Nullable Object get(RouteAttribute attribute, BgpRoute.Builder<?, ?> route) {
+    switch (attribute) {
+      case ADMIN:
+        return route.getAdmin();
+      case AS_PATH:
+        return route.getAsPath();
+      case COMMUNITIES:
+        return ImmutableSet.copyOf(route.getCommunities());
+      case LOCAL_PREFERENCE:
+        return route.getLocalPreference();
+      case METRIC:
+        return route.getMetric();
+      case NETWORK:
+        return route.getNetwork();
+      case NEXT_HOP:
+        return route.getNextHop();
+      case ORIGIN_TYPE:
+        return route.getOriginType();
+      case PROTOCOL:
+        return route.getProtocol();
+      case SOURCE_VRF:
+        // only an attribute of the input route
+        return null;
+      case TAG:
+        return route.getTag();
+      case WEIGHT:
+        return route.getWeight();
+      default:
+        throw new IllegalArgumentException("Unsupported route attribute: " + attribute);
+    }
+  }
+
+  @SuppressWarnings("unchecked") // values are those returned by get for the same attribute
+  private static void set(RouteAttribute attribute, BgpRoute.Builder<?, ?> route, Object value) {
+    switch (attribute) {
+      case ADMIN:
+        route.setAdmin((Integer) value);
+        return;
+      case AS_PATH:
+        route.setAsPath((AsPath) value);
+        return;
+      case COMMUNITIES:
+        route.setCommunities((ImmutableSet<Community>) value);
+        return;
+      case LOCAL_PREFERENCE:
+        route.setLocalPreference((Long) value);
+        return;
+      case METRIC:
+        route.setMetric((Long) value);
+        return;
+      case NETWORK:
+        route.setNetwork((Prefix) value);
+        return;
+      case NEXT_HOP:
+        route.setNextHop((NextHop) value);
+        return;
+      case ORIGIN_TYPE:
+        route.setOriginType((OriginType) value);
+        return;
+      case PROTOCOL:
+        route.setProtocol((RoutingProtocol) value);
+        return;
+      case TAG:
+        route.setTag((Long) value);
+        return;
+      case WEIGHT:
+        route.setWeight((Integer) value);
+        return;
+      default:
+        throw new IllegalArgumentException("Cannot set route attribute: " + attribute);
+    }
+  }
+}
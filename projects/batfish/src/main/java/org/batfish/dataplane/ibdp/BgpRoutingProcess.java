@@ -104,6 +104,9 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
   @Deprecated @Nonnull private final Configuration _c;
 
   @Nonnull private final RoutingPolicies _policies;
+  /** Memoized outcomes of {@link #_policies} on BGP routes */
+  @Nonnull private final BgpPolicyOutcomeCache _policyOutcomes;
+
   @Nonnull private final String _hostname;
   /** Name of our VRF */
   @Nonnull private final String _vrfName;
@@ -236,10 +239,38 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
       Rib mainRib,
       BgpTopology topology,
       PrefixTracer prefixTracer) {
+    this(
+        process,
+        configuration,
+        RoutingPolicies.from(configuration),
+        vrfName,
+        mainRib,
+        topology,
+        prefixTracer);
+  }
+
+  /**
+   * Create a new BGP process
+   *
+   * @param process the {@link BgpProcess} -- configuration for this routing process
+   * @param configuration the parent {@link Configuration}
+   * @param policies the routing policies of {@code configuration} to evaluate
+   * @param vrfName name of the VRF this process is in
+   * @param mainRib take in a reference to MainRib for read-only use (e.g., getting IGP cost to
+   */
+  BgpRoutingProcess(
+      BgpProcess process,
+      Configuration configuration,
+      RoutingPolicies policies,
+      String vrfName,
+      Rib mainRib,
+      BgpTopology topology,
+      PrefixTracer prefixTracer) {
     _process = process;
     _c = configuration;
     _hostname = configuration.getHostname();
-    _policies = RoutingPolicies.from(configuration);
+    _policies = policies;
+    _policyOutcomes = new BgpPolicyOutcomeCache();
     _vrfName = vrfName;
     _mainRib = mainRib;
     _topology = topology;
@@ -743,6 +774,12 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
     _toMainRib.from(bgpv4RibDelta);
   }
 
+  /** Returns the memoized outcomes of the routing policies of this process. */
+  @Nonnull
+  BgpPolicyOutcomeCache getPolicyOutcomes() {
+    return _policyOutcomes;
+  }
+
   /** Pull v4Unicast routes from our neighbors' deltas, merge them into our own RIBs */
   private void pullV4UnicastMessages(
       BgpTopology bgpTopology,
@@ -812,8 +849,12 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
         RoutingPolicy importPolicy = _policies.get(importPolicyName).orElse(null);
         if (importPolicy != null) {
           acceptIncoming =
-              importPolicy.processBgpRoute(
-                  remoteRoute, transformedIncomingRouteBuilder, sessionProperties, IN);
+              _policyOutcomes.processBgpRoute(
+                  importPolicy,
+                  remoteRoute,
+                  transformedIncomingRouteBuilder,
+                  sessionProperties,
+                  IN);
         }
       }
       if (!acceptIncoming) {
@@ -1164,7 +1205,8 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
         RoutingPolicy importPolicy = _policies.get(importPolicyName).orElse(null);
         if (importPolicy != null) {
           acceptIncoming =
-              importPolicy.processBgpRoute(route, transformedBuilder, sessionProperties, IN);
+              _policyOutcomes.processBgpRoute(
+                  importPolicy, route, transformedBuilder, sessionProperties, IN);
         }
       }
       if (!acceptIncoming) {
@@ -1333,8 +1375,12 @@ final class BgpRoutingProcess implements RoutingProcess<BgpTopology, BgpRoute<?,
 
     // Process transformed outgoing route by the export policy
     boolean shouldExport =
-        exportPolicy.processBgpRoute(
-            exportCandidate, transformedOutgoingRouteBuilder, sessionProperties, Direction.OUT);
+        _policyOutcomes.processBgpRoute(
+            exportPolicy,
+            exportCandidate,
+            transformedOutgoingRouteBuilder,
+            sessionProperties,
+            Direction.OUT);
 
     // sessionProperties represents the incoming edge, so its tailIp is the remote peer's IP
     Ip remoteIp = sessionProperties.getTailIp();
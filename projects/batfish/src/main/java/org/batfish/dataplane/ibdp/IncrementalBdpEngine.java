@@ -13,14 +13,17 @@ import static org.batfish.datamodel.vxlan.VxlanTopologyUtils.prunedVxlanTopology
 import static org.batfish.dataplane.rib.AbstractRib.importRib;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import io.opentracing.Scope;
 import io.opentracing.Span;
 import io.opentracing.util.GlobalTracer;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.SortedMap;
@@ -190,6 +193,9 @@ final class IncrementalBdpEngine {
       // Generate our nodes, keyed by name, sorted for determinism
       SortedMap<String, Node> nodes =
           toImmutableSortedMap(configurations.values(), Configuration::getHostname, Node::new);
+      if (!_settings.getBgpPolicyOutcomeCache()) {
+        disablePolicyOutcomeCaches(nodes);
+      }
       NetworkConfigurations networkConfigurations = NetworkConfigurations.of(configurations);
 
       /*
@@ -272,6 +278,7 @@ final class IncrementalBdpEngine {
       // TODO: Properly finalize topologies, IpOwners, etc.
       LOGGER.info("Finalizing dataplane");
       answerElement.setVersion(BatfishVersion.getVersionStatic());
+      computePolicyOutcomeCacheStatistics(nodes, answerElement);
       IncrementalDataPlane finalDataplane =
           IncrementalDataPlane.builder()
               .setNodes(nodes)
@@ -309,63 +316,20 @@ final class IncrementalBdpEngine {
     try (Scope scope = GlobalTracer.get().scopeManager().activate(overallSpan)) {
       assert scope != null; // avoid unused warning
 
-      // Static nextHopIp routes
-      Span nhIpSpan =
+      // Phases that only depend on the virtual router's own state
+      Span localSpan =
           GlobalTracer.get()
-              .buildSpan(iterationLabel + ": Recompute static routes with next-hop IP")
+              .buildSpan(iterationLabel + ": Recompute node-local dependent routes")
               .start();
-      LOGGER.info("{}: Recompute static routes with next-hop IP", iterationLabel);
-      try (Scope innerScope = GlobalTracer.get().scopeManager().activate(nhIpSpan)) {
-        assert innerScope != null; // avoid unused warning
-        nodes.values().parallelStream()
-            .flatMap(n -> n.getVirtualRouters().stream())
-            .forEach(VirtualRouter::activateStaticRoutes);
-      } finally {
-        nhIpSpan.finish();
-      }
-
-      // Generated/aggregate routes
-      Span genRoutesSpan =
-          GlobalTracer.get()
-              .buildSpan(iterationLabel + ": Recompute aggregate/generated routes")
-              .start();
-      LOGGER.info("{}: Recompute aggregate/generated routes", iterationLabel);
-      try (Scope innerScope = GlobalTracer.get().scopeManager().activate(genRoutesSpan)) {
-        assert innerScope != null; // avoid unused warning
-        nodes.values().parallelStream()
-            .flatMap(n -> n.getVirtualRouters().stream())
-            .forEach(VirtualRouter::recomputeGeneratedRoutes);
-      } finally {
-        genRoutesSpan.finish();
-      }
-
-      // EIGRP
-      Span eigrpSpan =
-          GlobalTracer.get().buildSpan(iterationLabel + ": propagate EIGRP routes").start();
-      LOGGER.info("{}: Propagate EIGRP routes", iterationLabel);
-      try (Scope innerScope = GlobalTracer.get().scopeManager().activate(eigrpSpan)) {
+      LOGGER.info("{}: Recompute node-local dependent routes", iterationLabel);
+      try (Scope innerScope = GlobalTracer.get().scopeManager().activate(localSpan)) {
         assert innerScope != null; // avoid unused warning
         nodes.values().parallelStream()
             .flatMap(n -> n.getVirtualRouters().stream())
-            .forEach(vr -> vr.eigrpIteration(allNodes));
-        nodes.values().parallelStream()
-            .flatMap(n -> n.getVirtualRouters().stream())
-            .forEach(VirtualRouter::mergeEigrpRoutesToMainRib);
-      } finally {
-        eigrpSpan.finish();
-      }
-
-      // Re-initialize IS-IS exports.
-      Span isisSpan =
-          GlobalTracer.get().buildSpan(iterationLabel + ": Recompute IS-IS exports").start();
-      LOGGER.info("{}: Recompute IS-IS routes", iterationLabel);
-      try (Scope innerScope = GlobalTracer.get().scopeManager().activate(isisSpan)) {
-        assert innerScope != null; // avoid unused warning
-        nodes.values().parallelStream()
-            .flatMap(n -> n.getVirtualRouters().stream())
-            .forEach(vr -> vr.initIsisExports(iteration, allNodes, networkConfigurations));
+            .forEach(
+                vr -> computeLocalDependentRoutes(vr, iteration, allNodes, networkConfigurations));
       } finally {
-        isisSpan.finish();
+        localSpan.finish();
       }
 
       // IS-IS route propagation
@@ -405,12 +369,7 @@ final class IncrementalBdpEngine {
       LOGGER.info("{}: Propagate OSPF external", iterationLabel);
       try (Scope innerScope = GlobalTracer.get().scopeManager().activate(span)) {
         assert innerScope != null; // avoid unused warning
-        nodes.values().parallelStream()
-            .flatMap(n -> n.getVirtualRouters().stream())
-            .forEach(vr -> vr.ospfIteration(allNodes));
-        nodes.values().parallelStream()
-            .flatMap(n -> n.getVirtualRouters().stream())
-            .forEach(VirtualRouter::mergeOspfRoutesToMainRib);
+        propagateOspfRoutes(nodes, allNodes);
       } finally {
         span.finish();
       }
@@ -423,6 +382,25 @@ final class IncrementalBdpEngine {
     }
   }
 
+  /**
+   * Run, in order, the phases of a dependent-routes iteration whose inputs are local to the given
+   * virtual router: static routes with next-hop IP, generated/aggregate routes, EIGRP, and IS-IS
+   * exports. Each phase reads only this router's main RIB and protocol state, and only writes to
+   * neighbors by pushing into their concurrent incoming message queues, so different virtual
+   * routers can run this chain concurrently without a barrier between the phases.
+   */
+  private static void computeLocalDependentRoutes(
+      VirtualRouter vr,
+      int iteration,
+      Map<String, Node> allNodes,
+      NetworkConfigurations networkConfigurations) {
+    vr.activateStaticRoutes();
+    vr.recomputeGeneratedRoutes();
+    vr.eigrpIteration(allNodes);
+    vr.mergeEigrpRoutesToMainRib();
+    vr.initIsisExports(iteration, allNodes, networkConfigurations);
+  }
+
   private static void computeIterationOfBgpRoutes(
       String iterationLabel, Map<String, Node> allNodes, Map<String, Node> nodes) {
     Span span =
@@ -776,6 +754,30 @@ final class IncrementalBdpEngine {
     }
   }
 
+  /** Makes the BGP processes of {@code nodes} evaluate every policy without memoization. */
+  private static void disablePolicyOutcomeCaches(Map<String, Node> nodes) {
+    nodes.values().stream()
+        .flatMap(n -> n.getVirtualRouters().stream())
+        .map(VirtualRouter::getBgpRoutingProcess)
+        .filter(Objects::nonNull)
+        .forEach(process -> process.getPolicyOutcomes().disable());
+  }
+
+  /** Records how many BGP policy evaluations on {@code nodes} used memoized outcomes. */
+  private static void computePolicyOutcomeCacheStatistics(
+      Map<String, Node> nodes, IncrementalBdpAnswerElement ae) {
+    List<BgpPolicyOutcomeCache> caches =
+        nodes.values().stream()
+            .flatMap(n -> n.getVirtualRouters().stream())
+            .map(VirtualRouter::getBgpRoutingProcess)
+            .filter(Objects::nonNull)
+            .map(BgpRoutingProcess::getPolicyOutcomes)
+            .collect(ImmutableList.toImmutableList());
+    ae.setPolicyOutcomeCacheHits(caches.stream().mapToLong(BgpPolicyOutcomeCache::getHits).sum());
+    ae.setPolicyOutcomeCacheMisses(
+        caches.stream().mapToLong(BgpPolicyOutcomeCache::getMisses).sum());
+  }
+
   private static void computeIterationStatistics(
       Map<String, Node> nodes, IncrementalBdpAnswerElement ae, int dependentRoutesIterations) {
     Span span = GlobalTracer.get().buildSpan("Compute iteration statistics").start();
@@ -836,6 +838,17 @@ final class IncrementalBdpEngine {
     int ospfInternalIterations = 0;
     boolean dirty = true;
 
+    if (_settings.getOspfSpf()) {
+      Span span = GlobalTracer.get().buildSpan("OSPF internal: SPF").start();
+      LOGGER.info("OSPF internal: SPF");
+      try (Scope scope = GlobalTracer.get().scopeManager().activate(span)) {
+        assert scope != null; // avoid unused warning
+        OspfIntraAreaSpf.computeIntraAreaRoutes(allNodes, ospfTopology);
+      } finally {
+        span.finish();
+      }
+    }
+
     while (dirty) {
       ospfInternalIterations++;
       Span span =
@@ -854,20 +867,12 @@ final class IncrementalBdpEngine {
                 TopologyContext.builder().setOspfTopology(ospfTopology).build());
 
         while (schedule.hasNext()) {
-          Map<String, Node> scheduleNodes = schedule.next();
-          scheduleNodes.values().parallelStream()
-              .flatMap(n -> n.getVirtualRouters().stream())
-              .forEach(virtualRouter -> virtualRouter.ospfIteration(allNodes));
-
-          scheduleNodes.values().parallelStream()
-              .flatMap(n -> n.getVirtualRouters().stream())
-              .forEach(VirtualRouter::mergeOspfRoutesToMainRib);
+          propagateOspfRoutes(schedule.next(), allNodes);
         }
         dirty =
             allNodes.values().parallelStream()
                 .flatMap(n -> n.getVirtualRouters().stream())
-                .flatMap(vr -> vr.getOspfProcesses().values().stream())
-                .anyMatch(OspfRoutingProcess::isDirty);
+                .anyMatch(VirtualRouter::hasOspfWork);
       } finally {
         span.finish();
       }
@@ -875,6 +880,28 @@ final class IncrementalBdpEngine {
     return ospfInternalIterations;
   }
 
+  /**
+   * Execute one round of OSPF route propagation on the given nodes and merge the resulting OSPF
+   * updates into their main RIBs.
+   *
+   * <p>Only virtual routers with pending OSPF work are scheduled. The others would neither send nor
+   * receive anything this round, so in large networks where most areas have converged the work of a
+   * round is proportional to the number of routers still changing.
+   *
+   * @param nodes nodes to run the round on, keyed by name
+   * @param allNodes all nodes in the network, keyed by name
+   */
+  private static void propagateOspfRoutes(Map<String, Node> nodes, Map<String, Node> allNodes) {
+    List<VirtualRouter> activeRouters =
+        nodes.values().parallelStream()
+            .flatMap(n -> n.getVirtualRouters().stream())
+            .filter(VirtualRouter::hasOspfWork)
+            .collect(ImmutableList.toImmutableList());
+    LOGGER.debug("OSPF: {} virtual routers with pending work", activeRouters.size());
+    activeRouters.parallelStream().forEach(vr -> vr.ospfIteration(allNodes));
+    activeRouters.parallelStream().forEach(VirtualRouter::mergeOspfRoutesToMainRib);
+  }
+
   /**
    * Run the IGP RIP computation until convergence
    *
@@ -16,7 +16,9 @@ public final class IncrementalDataPlaneSettings {
 
   private Configuration _config;
 
+  public static final String PROP_BGP_POLICY_OUTCOME_CACHE = "bgppolicyoutcomecache";
   public static final String PROP_COLORING = "coloring";
+  public static final String PROP_OSPF_SPF = "ospfspf";
   public static final String PROP_SCHEDULE = "schedule";
 
   /**
@@ -47,7 +49,9 @@ public final class IncrementalDataPlaneSettings {
 
   /** Initialize defaults for all properties */
   private void initDefaults() {
+    _config.setProperty(PROP_BGP_POLICY_OUTCOME_CACHE, true);
     _config.setProperty(PROP_COLORING, SATURATION.toString());
+    _config.setProperty(PROP_OSPF_SPF, false);
     _config.setProperty(PROP_SCHEDULE, NODE_COLORED.toString());
   }
 
@@ -63,4 +67,27 @@ public final class IncrementalDataPlaneSettings {
   public Coloring getColoringType() {
     return Coloring.valueOf(_config.getString(PROP_COLORING));
   }
+
+  /**
+   * Whether to compute OSPF intra-area routes with a shortest-path-first computation over each
+   * area, instead of exchanging intra-area advertisements until convergence
+   */
+  public boolean getOspfSpf() {
+    return _config.getBoolean(PROP_OSPF_SPF);
+  }
+
+  /** Set whether to compute OSPF intra-area routes with a shortest-path-first computation */
+  public void setOspfSpf(boolean ospfSpf) {
+    _config.setProperty(PROP_OSPF_SPF, ospfSpf);
+  }
+
+  /** Whether to memoize the outcomes of BGP routing policies, see {@link BgpPolicyOutcomeCache} */
+  public boolean getBgpPolicyOutcomeCache() {
+    return _config.getBoolean(PROP_BGP_POLICY_OUTCOME_CACHE);
+  }
+
+  /** Set whether to memoize the outcomes of BGP routing policies */
+  public void setBgpPolicyOutcomeCache(boolean bgpPolicyOutcomeCache) {
+    _config.setProperty(PROP_BGP_POLICY_OUTCOME_CACHE, bgpPolicyOutcomeCache);
+  }
 }
@@ -26,13 +26,15 @@ public final class Node {
    */
   public Node(Configuration configuration) {
     _c = configuration;
+    // Configurations are final during dataplane computation, so compile policies once up front.
+    // Virtual routers evaluate these compiled copies rather than the policies of the configuration.
+    _routingPolicies = RoutingPolicies.compile(configuration);
     ImmutableSortedMap.Builder<String, VirtualRouter> b = ImmutableSortedMap.naturalOrder();
     for (String vrfName : _c.getVrfs().keySet()) {
       VirtualRouter vr = new VirtualRouter(vrfName, this);
       b.put(vrfName, vr);
     }
     _virtualRouters = b.build();
-    _routingPolicies = RoutingPolicies.from(configuration);
   }
 
   /** @return The {@link Configuration} backing this Node */
@@ -0,0 +1,316 @@
+package org.batfish.dataplane.ibdp;
+
+import static org.batfish.dataplane.ibdp.OspfRoutingProcess.getNeighborProcess;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.IntStream;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.OspfIntraAreaRoute;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.ospf.OspfSessionProperties;
+import org.batfish.datamodel.ospf.OspfTopology;
+import org.batfish.datamodel.ospf.OspfTopology.EdgeId;
+
+/**
+ * Computes converged OSPF intra-area routes with a shortest-path-first computation over the
+ * link-state graph of each area, instead of exchanging intra-area advertisements with neighbors
+ * until convergence.
+ *
+ * <p>The result is the fixed point of the message-passing computation in {@link
+ * OspfRoutingProcess}: a router's intra-area routes to a prefix are its best paths from any router
+ * originating the prefix, where every hop adds the cost of the receiving interface, with one route
+ * per neighbor link that lies on such a path. That equivalence does not hold, so message passing is
+ * still used, in areas where some interface has an inbound distribute list (which may rewrite
+ * routes or make them non-routing), and in areas that originate a prefix also originated in another
+ * area (since routes of both areas compete in the same intra-area RIB).
+ */
+@ParametersAreNonnullByDefault
+final class OspfIntraAreaSpf {
+
+  private static final Logger LOGGER = LogManager.getLogger(OspfIntraAreaSpf.class);
+
+  private static final long UNREACHABLE = Long.MAX_VALUE;
+
+  /** A directed adjacency in an area's link-state graph */
+  private static final class Link {
+    /** Index of the advertising router */
+    private final int _tail;
+    /** Index of the receiving router */
+    private final int _head;
+    /** Cost of the receiving interface */
+    private final long _cost;
+    /** Next hop IP of routes learned over this link, i.e., the advertising router's address */
+    @Nonnull private final Ip _nextHopIp;
+
+    private Link(int tail, int head, long cost, Ip nextHopIp) {
+      _tail = tail;
+      _head = head;
+      _cost = cost;
+      _nextHopIp = nextHopIp;
+    }
+  }
+
+  /** The link-state graph of a single area */
+  private static final class Area {
+    private final long _areaNumber;
+    @Nonnull private final List<OspfRoutingProcess> _routers = new ArrayList<>();
+    @Nonnull private final Map<OspfRoutingProcess, Integer> _indices = new IdentityHashMap<>();
+    @Nonnull private final List<Link> _links = new ArrayList<>();
+    private boolean _hasInboundDistributeList;
+
+    private Area(long areaNumber) {
+      _areaNumber = areaNumber;
+    }
+
+    private int indexOf(OspfRoutingProcess router) {
+      return _indices.computeIfAbsent(
+          router,
+          r -> {
+            _routers.add(r);
+            return _routers.size() - 1;
+          });
+    }
+  }
+
+  /**
+   * Compute the intra-area routes of all OSPF processes in {@code allNodes} and install them in the
+   * processes. Must be called after the processes are initialized and before the first iteration.
+   *
+   * @param allNodes all nodes participating in the computation, keyed by name
+   * @param topology the OSPF topology
+   * @return the areas whose intra-area routes were computed
+   */
+  @Nonnull
+  static Set<Long> computeIntraAreaRoutes(Map<String, Node> allNodes, OspfTopology topology) {
+    List<OspfRoutingProcess> processes =
+        allNodes.values().stream()
+            .flatMap(n -> n.getVirtualRouters().stream())
+            .flatMap(vr -> vr.getOspfProcesses().values().stream())
+            .collect(ImmutableList.toImmutableList());
+    Map<OspfRoutingProcess, Map<Long, Map<Prefix, Long>>> originated = new IdentityHashMap<>();
+    processes.forEach(p -> originated.put(p, p.getOriginatedIntraAreaMetrics()));
+
+    Map<Long, Area> areas = buildAreas(allNodes, topology);
+    Set<Long> spfAreas =
+        ImmutableSet.copyOf(Sets.difference(areas.keySet(), ineligibleAreas(areas, originated)));
+
+    // Areas are computed one at a time, each in parallel
+    Map<OspfRoutingProcess, List<OspfIntraAreaRoute>> routes = new IdentityHashMap<>();
+    for (long areaNumber : spfAreas) {
+      computeAreaRoutes(areas.get(areaNumber), originated)
+          .forEach(
+              (router, areaRoutes) ->
+                  routes.computeIfAbsent(router, r -> new ArrayList<>()).addAll(areaRoutes));
+    }
+    processes.parallelStream()
+        .forEach(
+            p -> p.installSpfIntraAreaRoutes(spfAreas, routes.getOrDefault(p, ImmutableList.of())));
+    LOGGER.info(
+        "OSPF SPF: computed intra-area routes for {} of {} areas", spfAreas.size(), areas.size());
+    return spfAreas;
+  }
+
+  /** Build the link-state graph of each area, from the OSPF topology. */
+  @Nonnull
+  private static Map<Long, Area> buildAreas(Map<String, Node> allNodes, OspfTopology topology) {
+    Map<Long, Area> areas = new HashMap<>();
+    for (EdgeId edge : topology.edges()) {
+      // Advertisements from tail to head are sent by the tail over its incoming edge from head
+      Optional<OspfSessionProperties> session = topology.getSession(edge);
+      Optional<OspfSessionProperties> reverseSession = topology.getSession(edge.reverse());
+      if (!session.isPresent() || !reverseSession.isPresent()) {
+        continue;
+      }
+      OspfRoutingProcess tail = getNeighborProcess(edge.getTail(), allNodes);
+      OspfRoutingProcess head = getNeighborProcess(edge.getHead(), allNodes);
+      if (tail == null || head == null) {
+        continue;
+      }
+      Area area =
+          areas.computeIfAbsent(session.get().getArea(), areaNumber -> new Area(areaNumber));
+      String ifaceName = edge.getHead().getInterfaceName();
+      area._hasInboundDistributeList |= head.hasInboundDistributeList(ifaceName);
+      area._links.add(
+          new Link(
+              area.indexOf(tail),
+              area.indexOf(head),
+              head.getIncrementalCost(ifaceName, false),
+              reverseSession.get().getIpLink().getIp2()));
+    }
+    return areas;
+  }
+
+  /** Return the areas in which SPF would not produce the same routes as message passing. */
+  @Nonnull
+  private static Set<Long> ineligibleAreas(
+      Map<Long, Area> areas, Map<OspfRoutingProcess, Map<Long, Map<Prefix, Long>>> originated) {
+    Set<Long> ineligible = new HashSet<>();
+    // Areas with inbound distribute lists
+    areas.values().stream()
+        .filter(area -> area._hasInboundDistributeList)
+        .forEach(area -> ineligible.add(area._areaNumber));
+    // Areas sharing an originated prefix with another area
+    Map<Prefix, Set<Long>> areasByPrefix = new HashMap<>();
+    originated
+        .values()
+        .forEach(
+            byArea ->
+                byArea.forEach(
+                    (areaNumber, metrics) ->
+                        metrics
+                            .keySet()
+                            .forEach(
+                                prefix ->
+                                    areasByPrefix
+                                        .computeIfAbsent(prefix, p -> new HashSet<>())
+                                        .add(areaNumber))));
+    areasByPrefix.values().stream().filter(s -> s.size() > 1).forEach(ineligible::addAll);
+    return ineligible;
+  }
+
+  /**
+   * Compute the intra-area routes learned by each router of an area.
+   *
+   * @return the learned routes, keyed by router
+   */
+  @Nonnull
+  private static Map<OspfRoutingProcess, List<OspfIntraAreaRoute>> computeAreaRoutes(
+      Area area, Map<OspfRoutingProcess, Map<Long, Map<Prefix, Long>>> originated) {
+    int numRouters = area._routers.size();
+    List<List<Link>> outLinks = new ArrayList<>(numRouters);
+    List<List<Link>> inLinks = new ArrayList<>(numRouters);
+    for (int i = 0; i < numRouters; i++) {
+      outLinks.add(new ArrayList<>());
+      inLinks.add(new ArrayList<>());
+    }
+    for (Link link : area._links) {
+      outLinks.get(link._tail).add(link);
+      inLinks.get(link._head).add(link);
+    }
+
+    // Originators of each prefix in this area, with their originated metric
+    Map<Prefix, Map<Integer, Long>> originators = new HashMap<>();
+    for (int i = 0; i < numRouters; i++) {
+      Map<Prefix, Long> metrics =
+          originated.get(area._routers.get(i)).getOrDefault(area._areaNumber, ImmutableMap.of());
+      for (Entry<Prefix, Long> e : metrics.entrySet()) {
+        originators.computeIfAbsent(e.getKey(), p -> new HashMap<>()).put(i, e.getValue());
+      }
+    }
+
+    // One SPF per originating router, shared by all the prefixes it originates
+    long[][] distances = new long[numRouters][];
+    originators.values().stream()
+        .flatMap(byRouter -> byRouter.keySet().stream())
+        .distinct()
+        .parallel()
+        .forEach(root -> distances[root] = shortestPaths(root, outLinks, numRouters));
+
+    List<List<OspfIntraAreaRoute>> routes = new ArrayList<>(numRouters);
+    IntStream.range(0, numRouters).forEach(i -> routes.add(new ArrayList<>()));
+    originators.entrySet().parallelStream()
+        .forEach(
+            e -> {
+              long[] metrics = prefixMetrics(e.getValue(), distances, numRouters);
+              for (int router = 0; router < numRouters; router++) {
+                if (metrics[router] == UNREACHABLE) {
+                  continue;
+                }
+                for (Link link : inLinks.get(router)) {
+                  long viaLink = metrics[link._tail];
+                  if (viaLink == UNREACHABLE || viaLink + link._cost != metrics[router]) {
+                    continue;
+                  }
+                  OspfIntraAreaRoute route =
+                      OspfIntraAreaRoute.builder()
+                          .setNetwork(e.getKey())
+                          .setNextHopIp(link._nextHopIp)
+                          .setMetric(metrics[router])
+                          .setArea(area._areaNumber)
+                          .build();
+                  List<OspfIntraAreaRoute> routerRoutes = routes.get(router);
+                  synchronized (routerRoutes) {
+                    routerRoutes.add(route);
+                  }
+                }
+              }
+            });
+
+    Map<OspfRoutingProcess, List<OspfIntraAreaRoute>> routesByRouter = new IdentityHashMap<>();
+    for (int i = 0; i < numRouters; i++) {
+      routesByRouter.put(area._routers.get(i), routes.get(i));
+    }
+    return routesByRouter;
+  }
+
+  /**
+   * Compute the best metric of a prefix at each router: the minimum over the prefix's originators
+   * of the originated metric plus the cost of the shortest path from the originator.
+   */
+  @Nonnull
+  private static long[] prefixMetrics(
+      Map<Integer, Long> originatorMetrics, long[][] distances, int numRouters) {
+    long[] metrics = new long[numRouters];
+    Arrays.fill(metrics, UNREACHABLE);
+    originatorMetrics.forEach(
+        (originator, originatedMetric) -> {
+          long[] fromOriginator = distances[originator];
+          for (int router = 0; router < numRouters; router++) {
+            if (fromOriginator[router] != UNREACHABLE) {
+              metrics[router] =
+                  Math.min(metrics[router], originatedMetric + fromOriginator[router]);
+            }
+          }
+        });
+    return metrics;
+  }
+
+  /**
+   * Dijkstra's algorithm: compute the cost of the shortest path from {@code root} to every router
+   * of the area, or {@link #UNREACHABLE}.
+   */
+  @Nonnull
+  private static long[] shortestPaths(int root, List<List<Link>> outLinks, int numRouters) {
+    long[] distances = new long[numRouters];
+    Arrays.fill(distances, UNREACHABLE);
+    distances[root] = 0L;
+    PriorityQueue<long[]> queue = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+    queue.add(new long[] {0L, root});
+    while (!queue.isEmpty()) {
+      long[] next = queue.remove();
+      int router = (int) next[1];
+      if (next[0] > distances[router]) {
+        // stale entry
+        continue;
+      }
+      for (Link link : outLinks.get(router)) {
+        long cost = next[0] + link._cost;
+        if (cost < distances[link._head]) {
+          distances[link._head] = cost;
+          queue.add(new long[] {cost, link._head});
+        }
+      }
+    }
+    return distances;
+  }
+
+  private OspfIntraAreaSpf() {}
+}
@@ -10,6 +10,7 @@ import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Streams;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
@@ -74,6 +75,8 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
   @Nonnull private final OspfProcess _process;
   /** The parent {@link Configuration} */
   @Nonnull private final Configuration _c;
+  /** Routing policies of {@link #_c} */
+  @Nonnull private final RoutingPolicies _policies;
   /** The name of the VRF we are in */
   @Nonnull private final String _vrfName;
   /** The current known topology */
@@ -112,6 +115,13 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
 
   /** Delta that captures process initialization (creating intra-area routes based on interfaces) */
   @Nonnull private InternalDelta _initializationDelta;
+  /**
+   * Areas whose intra-area routes are computed by {@link OspfIntraAreaSpf}, so intra-area routes
+   * are not advertised to neighbors in them
+   */
+  @Nonnull private Set<Long> _spfAreas;
+  /** Delta of intra-area routes installed by {@link OspfIntraAreaSpf} but not yet processed */
+  @Nonnull private InternalDelta _spfDelta;
   /** Delta to pass to the main RIB */
   @Nonnull private RibDelta.Builder<OspfRoute> _changeset;
   /** Delta of routes we have locally queued for re-distribution */
@@ -129,7 +139,17 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
 
   OspfRoutingProcess(
       OspfProcess process, String vrfName, Configuration configuration, OspfTopology topology) {
+    this(process, vrfName, configuration, RoutingPolicies.from(configuration), topology);
+  }
+
+  OspfRoutingProcess(
+      OspfProcess process,
+      String vrfName,
+      Configuration configuration,
+      RoutingPolicies policies,
+      OspfTopology topology) {
     _c = configuration;
+    _policies = policies;
     _vrfName = vrfName;
     _process = process;
     _topology = topology;
@@ -149,18 +169,20 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
 
     // Figure out what the export policy is. If undefined, fail closed -- export nothing.
     String exportPolicy = _process.getExportPolicy();
-    if (exportPolicy == null || !_c.getRoutingPolicies().containsKey(exportPolicy)) {
+    if (exportPolicy == null || !_policies.get(exportPolicy).isPresent()) {
       _exportPolicy =
           // Can't use the builder, because that attempts to modify configuration. grrr.
           new RoutingPolicy(
               String.format("~Drop_All_OSPF_External_%s~", _process.getProcessId()), _c);
       _exportPolicy.setStatements(ImmutableList.of(Statements.ExitReject.toStaticStatement()));
     } else {
-      _exportPolicy = _c.getRoutingPolicies().get(exportPolicy);
+      _exportPolicy = _policies.getOrThrow(exportPolicy);
     }
 
     _changeset = RibDelta.builder();
     _initializationDelta = new InternalDelta(RibDelta.empty(), RibDelta.empty());
+    _spfAreas = ImmutableSet.of();
+    _spfDelta = new InternalDelta(RibDelta.empty(), RibDelta.empty());
     _queuedForRedistribution = new ExternalDelta();
     _activatedGeneratedRoutes = RibDelta.empty();
     _neighborsWhereDefaultIARouteWasInjected = new HashSet<>(0);
@@ -273,14 +295,18 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
    */
   @VisibleForTesting
   static void applyDistributeList(
-      Configuration c, String vrfName, String ifaceName, AbstractRouteBuilder<?, ?> routeBuilder) {
+      Configuration c,
+      RoutingPolicies policies,
+      String vrfName,
+      String ifaceName,
+      AbstractRouteBuilder<?, ?> routeBuilder) {
     Interface iface = c.getAllInterfaces().get(ifaceName);
     assert iface != null;
     if (iface.getOspfInboundDistributeListPolicy() == null) {
       return;
     }
     RoutingPolicy routingPolicy =
-        c.getRoutingPolicies().get(iface.getOspfInboundDistributeListPolicy());
+        policies.get(iface.getOspfInboundDistributeListPolicy()).orElse(null);
     assert routingPolicy != null;
     // if routingPolicy denies the input route, set the route as non-routing to prevent it from
     // going in the main RIB
@@ -306,6 +332,8 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
   @Override
   public boolean isDirty() {
     return !_changeset.isEmpty()
+        || !_initializationDelta.isEmpty()
+        || !_spfDelta.isEmpty()
         || !_queuedForRedistribution.isEmpty()
         || !_activatedGeneratedRoutes.isEmpty()
         || !_interAreaIncomingRoutes.values().stream().allMatch(Queue::isEmpty)
@@ -314,6 +342,55 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
         || !_type2IncomingRoutes.values().stream().allMatch(Queue::isEmpty);
   }
 
+  /**
+   * Return the metric of the intra-area routes this process originates, keyed by area and prefix.
+   * Only meaningful after {@link #initialize(Node)} and before the first iteration, when the
+   * intra-area RIB contains exactly the routes originated from this process's interfaces.
+   */
+  @Nonnull
+  Map<Long, Map<Prefix, Long>> getOriginatedIntraAreaMetrics() {
+    Map<Long, Map<Prefix, Long>> metrics = new HashMap<>();
+    for (OspfIntraAreaRoute route : _intraAreaRib.getTypedRoutes()) {
+      metrics
+          .computeIfAbsent(route.getArea(), area -> new HashMap<>())
+          .merge(route.getNetwork(), route.getMetric(), Math::min);
+    }
+    return metrics;
+  }
+
+  /** Check whether the given interface has an inbound OSPF distribute list */
+  boolean hasInboundDistributeList(String ifaceName) {
+    Interface iface = _c.getAllInterfaces().get(ifaceName);
+    return iface != null && iface.getOspfInboundDistributeListPolicy() != null;
+  }
+
+  /**
+   * Install intra-area routes computed by {@link OspfIntraAreaSpf}. From now on intra-area routes
+   * are not advertised to neighbors in {@code spfAreas}. The installed routes are sent to the main
+   * RIB (and, if this is an ABR, converted to inter-area routes and advertised to other areas) in
+   * the next iteration, like routes learned from neighbors.
+   *
+   * @param spfAreas all areas whose intra-area routes are computed by SPF
+   * @param routes the intra-area routes computed for this process, as they would be advertised by
+   *     the neighbor on the path (i.e., admin cost and flags are not yet set for this process)
+   */
+  void installSpfIntraAreaRoutes(Set<Long> spfAreas, Collection<OspfIntraAreaRoute> routes) {
+    _spfAreas = ImmutableSet.copyOf(spfAreas);
+    RibDelta.Builder<OspfIntraAreaRoute> intraAreaDelta = RibDelta.builder();
+    RibDelta.Builder<OspfInterAreaRoute> interAreaDelta = RibDelta.builder();
+    for (OspfIntraAreaRoute route : routes) {
+      OspfIntraAreaRoute intraAreaRoute = transformIntraAreaRouteOnImport(route, 0L).build();
+      intraAreaDelta.from(_intraAreaRib.mergeRouteGetDelta(intraAreaRoute));
+      if (isABR()) {
+        // Same conversion as for intra-area routes learned from neighbors
+        interAreaDelta.from(
+            _interAreaRib.mergeRouteGetDelta(
+                OspfInterAreaRoute.builder(intraAreaRoute).setNonRouting(true).build()));
+      }
+    }
+    _spfDelta = new InternalDelta(intraAreaDelta.build(), interAreaDelta.build());
+  }
+
   /** Initialize intra-area routes based on available interfaces. */
   private void initializeIntraAreaRoutes() {
     RibDelta.Builder<OspfIntraAreaRoute> intraAreaBuilder = RibDelta.builder();
@@ -426,7 +503,7 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
    * OspfNeighborId}
    */
   @Nullable
-  private static OspfRoutingProcess getNeighborProcess(
+  static OspfRoutingProcess getNeighborProcess(
       OspfNeighborConfigId ospfNeighborId, Map<String, Node> allNodes) {
     return allNodes
         .get(ospfNeighborId.getHostname())
@@ -459,13 +536,22 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
   /** Process all OSPF internal messages from all the message queues */
   @Nonnull
   private InternalDelta processInternalRoutes() {
+    InternalDelta spfDelta = _spfDelta;
+    _spfDelta = new InternalDelta(RibDelta.empty(), RibDelta.empty());
     InternalDelta intraProcessingDelta = processIntraAreaRoutes();
     RibDelta.Builder<OspfInterAreaRoute> interAreaDelta = processInterAreaRoutes();
     RibDelta<OspfInterAreaRoute> deltaOfSummaries = computeInterAreaSummaries();
-    // Merge inter-area deltas
+    // Merge intra-area and inter-area deltas
     return new InternalDelta(
-        intraProcessingDelta._intraArea,
-        interAreaDelta.from(intraProcessingDelta._interArea).from(deltaOfSummaries).build());
+        RibDelta.<OspfIntraAreaRoute>builder()
+            .from(spfDelta._intraArea)
+            .from(intraProcessingDelta._intraArea)
+            .build(),
+        interAreaDelta
+            .from(spfDelta._interArea)
+            .from(intraProcessingDelta._interArea)
+            .from(deltaOfSummaries)
+            .build());
   }
 
   /**
@@ -475,7 +561,6 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
    *
    * @param interfaceName name of the interface
    */
-  @VisibleForTesting
   long getIncrementalCost(String interfaceName, boolean considerP2PasStub) {
     Interface iface = _c.getAllInterfaces().get(interfaceName);
     assert iface != null;
@@ -520,7 +605,7 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
             transformInterAreaRouteOnImport(routeAdvertisement.getRoute(), incrementalCost)
                 .ifPresent(
                     routeBuilder -> {
-                      applyDistributeList(_c, _vrfName, ifaceName, routeBuilder);
+                      applyDistributeList(_c, _policies, _vrfName, ifaceName, routeBuilder);
                       interAreaDelta.from(
                           processRouteAdvertisement(
                               routeAdvertisement.toBuilder().setRoute(routeBuilder.build()).build(),
@@ -597,7 +682,7 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
     OspfIntraAreaRoute.Builder ospfRouteBuilder =
         transformIntraAreaRouteOnImport(routeAdvertisement.getRoute(), incrementalCost);
 
-    applyDistributeList(_c, _vrfName, ifaceName, ospfRouteBuilder);
+    applyDistributeList(_c, _policies, _vrfName, ifaceName, ospfRouteBuilder);
 
     OspfIntraAreaRoute intraAreaRoute = ospfRouteBuilder.build();
     intraAreaDelta.from(
@@ -774,6 +859,10 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
       OspfRoutingProcess remoteProcess,
       OspfArea areaConfig,
       OspfSessionProperties session) {
+    if (_spfAreas.contains(session.getArea())) {
+      // Every router in the area already has its intra-area routes
+      return;
+    }
     remoteProcess.enqueueMessagesIntra(
         edgeId.reverse(),
         transformIntraAreaRoutesOnExport(delta, areaConfig, session.getIpLink().getIp2()));
@@ -1061,7 +1150,7 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
                 transformType1RouteOnImport(
                     // Neighbor IP is the IP of tail node which means Ip1
                     routeAdvertisement.getRoute(), session.getIpLink().getIp1(), incrementalCost);
-            applyDistributeList(_c, _vrfName, ifaceName, ospfRouteBuilder);
+            applyDistributeList(_c, _policies, _vrfName, ifaceName, ospfRouteBuilder);
             type1deltaBuilder.from(
                 processRouteAdvertisement(
                     routeAdvertisement.toBuilder()
@@ -1100,7 +1189,7 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
                 transformType2RouteOnImport(
                     // Neighbor IP is the IP of tail node which means Ip1
                     routeAdvertisement.getRoute(), session.getIpLink().getIp1(), incrementalCost);
-            applyDistributeList(_c, _vrfName, headIfaceName, ospfRouteBuilder);
+            applyDistributeList(_c, _policies, _vrfName, headIfaceName, ospfRouteBuilder);
             type2deltaBuilder.from(
                 processRouteAdvertisement(
                     routeAdvertisement.toBuilder()
@@ -1387,7 +1476,7 @@ final class OspfRoutingProcess implements RoutingProcess<OspfTopology, OspfRoute
       // This route should be generated unconditionally
       return r;
     }
-    RoutingPolicy generationPolicy = _c.getRoutingPolicies().get(generationPolicyName);
+    RoutingPolicy generationPolicy = _policies.get(generationPolicyName).orElse(null);
     if (generationPolicy == null) {
       // Ignore route; its generation is supposed to depend on some undefined policy
       return null;
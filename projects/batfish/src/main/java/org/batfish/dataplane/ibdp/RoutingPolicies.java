@@ -42,6 +42,15 @@ final class RoutingPolicies {
     return new RoutingPolicies(c.getRoutingPolicies(), c.getHostname());
   }
 
+  /**
+   * Returns {@link RoutingPolicy#compileAll(Configuration) compiled copies} of the routing policies
+   * of {@code c}, which must not change while they are in use.
+   */
+  @Nonnull
+  static RoutingPolicies compile(Configuration c) {
+    return new RoutingPolicies(RoutingPolicy.compileAll(c), c.getHostname());
+  }
+
   @Nonnull private final Map<String, RoutingPolicy> _policies;
   // For internal informational purposes only
   @Nonnull private final String _hostname;
@@ -218,7 +218,13 @@ public final class VirtualRouter {
     if (_vrf.getBgpProcess() != null) {
       _bgpRoutingProcess =
           new BgpRoutingProcess(
-              _vrf.getBgpProcess(), _c, _name, _mainRib, BgpTopology.EMPTY, _prefixTracer);
+              _vrf.getBgpProcess(),
+              _c,
+              _node.getRoutingPolicies(),
+              _name,
+              _mainRib,
+              BgpTopology.EMPTY,
+              _prefixTracer);
     }
   }
 
@@ -290,7 +296,11 @@ public final class VirtualRouter {
                     Entry::getKey,
                     e ->
                         new OspfRoutingProcess(
-                            e.getValue(), _name, _c, topologyContext.getOspfTopology())));
+                            e.getValue(),
+                            _name,
+                            _c,
+                            _node.getRoutingPolicies(),
+                            topologyContext.getOspfTopology())));
     _ospfProcesses.values().forEach(p -> p.initialize(_node));
 
     initEigrp();
@@ -299,7 +309,7 @@ public final class VirtualRouter {
 
   /** Apply a rib group to a given source rib (which belongs to this VRF) */
   private void applyRibGroup(@Nonnull RibGroup ribGroup, @Nonnull AnnotatedRib<?> sourceRib) {
-    RoutingPolicy policy = _c.getRoutingPolicies().get(ribGroup.getImportPolicy());
+    RoutingPolicy policy = _node.getRoutingPolicies().get(ribGroup.getImportPolicy()).orElse(null);
     checkState(policy != null, "RIB group %s is missing import policy", ribGroup.getName());
     sourceRib.getTypedRoutes().stream()
         .map(
@@ -322,7 +332,7 @@ public final class VirtualRouter {
         _vrf.getEigrpProcesses().values().stream()
             .map(
                 eigrpProcess ->
-                    new EigrpRoutingProcess(eigrpProcess, _name, RoutingPolicies.from(_c)))
+                    new EigrpRoutingProcess(eigrpProcess, _name, _node.getRoutingPolicies()))
             .collect(ImmutableMap.toImmutableMap(EigrpRoutingProcess::getAsn, Function.identity()));
     _eigrpProcesses.values().forEach(p -> p.initialize(_node));
   }
@@ -430,7 +440,7 @@ public final class VirtualRouter {
     for (GeneratedRoute gr : _vrf.getGeneratedRoutes()) {
       String policyName = gr.getGenerationPolicy();
       RoutingPolicy generationPolicy =
-          policyName != null ? _c.getRoutingPolicies().get(policyName) : null;
+          policyName != null ? _node.getRoutingPolicies().get(policyName).orElse(null) : null;
       GeneratedRoute.Builder grb =
           GeneratedRouteHelper.activateGeneratedRoute(
               gr, generationPolicy, _mainRib.getTypedRoutes());
@@ -730,12 +740,16 @@ public final class VirtualRouter {
       // Neither level enabled
       return;
     }
+    RoutingPolicy exportPolicy =
+        Optional.ofNullable(proc.getExportPolicy())
+            .flatMap(_node.getRoutingPolicies()::get)
+            .orElse(null);
     _routesForIsisRedistribution
         .build()
         .getActions()
         // Don't redistribute IS-IS routes into IS-IS...
         .filter(ra -> !(ra.getRoute().getRoute() instanceof IsisRoute))
-        .map(ra -> exportNonIsisRouteToIsis(ra.getRoute(), proc, isLevel1, _c))
+        .map(ra -> exportNonIsisRouteToIsis(ra.getRoute(), proc, exportPolicy, isLevel1, _c))
         .filter(Objects::nonNull)
         .forEach(
             isisRoute -> {
@@ -1243,7 +1257,7 @@ public final class VirtualRouter {
 
     Stream<RouteAdvertisement<AnnotatedRoute<AbstractRoute>>> filteredRoutes = routeAdverts;
     if (policyName != null) {
-      RoutingPolicy policy = _c.getRoutingPolicies().get(policyName);
+      RoutingPolicy policy = _node.getRoutingPolicies().get(policyName).orElse(null);
       filteredRoutes =
           routeAdverts
               .map(
@@ -1348,6 +1362,14 @@ public final class VirtualRouter {
     _eigrpProcesses.values().forEach(p -> p.executeIteration(allNodes));
   }
 
+  /**
+   * Check whether any OSPF process of this virtual router has pending work: queued incoming
+   * advertisements, routes to originate or redistribute, or updates not yet merged to the main RIB.
+   */
+  boolean hasOspfWork() {
+    return _ospfProcesses.values().stream().anyMatch(OspfRoutingProcess::isDirty);
+  }
+
   /** Execute one OSPF iteration, for all processes */
   void ospfIteration(Map<String, Node> allNodes) {
     _ospfProcesses.values().forEach(p -> p.executeIteration(allNodes));
@@ -63,6 +63,8 @@ public class IsisProtocolHelper {
    * Given an {@link AbstractRoute}, run it through IS-IS outbound transformations and export
    * routing policy.
    *
+   * @param exportPolicy The IS-IS export policy of {@code process}, or {@code null} if it is
+   *     undefined or not configured
    * @return Transformed {@link IsisRoute} if {@code exportCandidate} passes the IS-IS export
    *     policy; otherwise {@code null}.
    */
@@ -70,13 +72,9 @@ public class IsisProtocolHelper {
   public static IsisRoute exportNonIsisRouteToIsis(
       @Nonnull AnnotatedRoute<AbstractRoute> exportCandidate,
       @Nonnull IsisProcess process,
+      @Nullable RoutingPolicy exportPolicy,
       boolean isLevel1,
       Configuration c) {
-    // Get export policy if there is one
-    RoutingPolicy exportPolicy =
-        Optional.ofNullable(process.getExportPolicy())
-            .map(policyName -> c.getRoutingPolicies().get(policyName))
-            .orElse(null);
     if (exportPolicy == null) {
       // Export policy is undefined or not configured
       return null;
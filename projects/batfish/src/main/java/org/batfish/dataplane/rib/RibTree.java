@@ -3,7 +3,6 @@ package org.batfish.dataplane.rib;
 import static org.batfish.common.util.CollectionUtil.maxValues;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Streams;
 import java.io.Serializable;
 import java.util.Collection;
@@ -91,14 +90,6 @@ final class RibTree<R extends AbstractRouteDecorator> implements Serializable {
     return _root.get(route.getNetwork()).contains(route);
   }
 
-  private boolean hasForwardingRoute(Set<R> routes) {
-    return routes.stream().anyMatch(r -> !r.getAbstractRoute().getNonForwarding());
-  }
-
-  private boolean onlyForwardingRoutes(Set<R> routes) {
-    return routes.stream().noneMatch(r -> r.getAbstractRoute().getNonForwarding());
-  }
-
   /**
    * Returns a set of routes in this tree which 1) are forwarding routes, 2) match the given IP
    * address, and 3) have the longest prefix length within the specified maximum.
@@ -107,18 +98,8 @@ final class RibTree<R extends AbstractRouteDecorator> implements Serializable {
    */
   @Nonnull
   Set<R> getLongestPrefixMatch(Ip address, int maxPrefixLength) {
-    for (int pl = maxPrefixLength; pl >= 0; pl--) {
-      Set<R> routes = _root.longestPrefixMatch(address, pl);
-      if (hasForwardingRoute(routes)) {
-        if (onlyForwardingRoutes(routes)) {
-          return routes;
-        }
-        return routes.stream()
-            .filter(r -> !r.getAbstractRoute().getNonForwarding())
-            .collect(ImmutableSet.toImmutableSet());
-      }
-    }
-    return ImmutableSet.of();
+    return _root.longestPrefixMatch(
+        address, maxPrefixLength, r -> !r.getAbstractRoute().getNonForwarding());
   }
 
   /**
@@ -10,7 +10,9 @@ import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -84,15 +86,18 @@ public class DagTraceRecorder implements TraceRecorder {
   @VisibleForTesting
   final class NodeBuilder {
     private final @Nonnull NodeKey _key;
+    private final @Nonnull TracePath<HopInfo> _path;
     final List<Breadcrumb> _nextHopBreadcrumbs;
     final HopInfo _hopInfo;
     final boolean _isFinalHop;
     @Nullable NodeBuilder _currentNextHopBuilder;
     final @Nullable List<Node> _nextHops;
 
-    NodeBuilder(List<Breadcrumb> breadcrumbs, HopInfo hopInfo, NodeKey key) {
-      _hopInfo = hopInfo;
+    NodeBuilder(List<Breadcrumb> breadcrumbs, TracePath<HopInfo> path, NodeKey key) {
+      _hopInfo = path.getLast();
+      _path = path;
       _key = key;
+      _openBuilders.put(path, this);
 
       @Nullable Breadcrumb visitedBreadcrumb = _hopInfo.getVisitedBreadcrumb();
       _nextHopBreadcrumbs =
@@ -106,13 +111,18 @@ public class DagTraceRecorder implements TraceRecorder {
       _nextHops = _isFinalHop ? null : new ArrayList<>();
     }
 
-    boolean tryRecordPartialTrace(List<HopInfo> hops) {
+    /**
+     * Records the hops following this node's hop. {@code hops} contains the path to each of these
+     * hops, in order.
+     */
+    boolean tryRecordPartialTrace(List<TracePath<HopInfo>> hops) {
       assert !_isFinalHop || hops.isEmpty();
       assert _isFinalHop == (_nextHops == null);
       if (hops.isEmpty()) {
         return _isFinalHop;
       }
-      HopInfo nextHop = hops.get(0);
+      TracePath<HopInfo> nextHopPath = hops.get(0);
+      HopInfo nextHop = nextHopPath.getLast();
       if (_currentNextHopBuilder != null && _currentNextHopBuilder._hopInfo != nextHop) {
         _nextHops.add(_currentNextHopBuilder.build());
         _currentNextHopBuilder = null;
@@ -126,7 +136,7 @@ public class DagTraceRecorder implements TraceRecorder {
           }
           return true;
         }
-        _currentNextHopBuilder = new NodeBuilder(_nextHopBreadcrumbs, nextHop, key);
+        _currentNextHopBuilder = new NodeBuilder(_nextHopBreadcrumbs, nextHopPath, key);
       }
 
       assert _currentNextHopBuilder._hopInfo == nextHop;
@@ -134,6 +144,7 @@ public class DagTraceRecorder implements TraceRecorder {
     }
 
     Node build() {
+      _openBuilders.remove(_path);
       Breadcrumb visitedBreadcrumb = _hopInfo.getVisitedBreadcrumb();
       Breadcrumb loopDetectedBreadcrumb = _hopInfo.getLoopDetectedBreadcrumb();
 
@@ -243,6 +254,8 @@ public class DagTraceRecorder implements TraceRecorder {
   private final List<Node> _roots = new ArrayList<>();
   private final Multimap<NodeKey, Node> _nodeMap = HashMultimap.create();
   private NodeBuilder _rootBuilder = null;
+  // Builders that have not been built yet, by the path to their hop
+  private final Map<TracePath<HopInfo>, NodeBuilder> _openBuilders = new IdentityHashMap<>();
   private @Nullable TraceDag _builtTraceDag = null;
 
   private @Nullable Node findMatchingNode(NodeKey key, List<Breadcrumb> breadcrumbs) {
@@ -257,21 +270,36 @@ public class DagTraceRecorder implements TraceRecorder {
   }
 
   @Override
-  public boolean tryRecordPartialTrace(List<HopInfo> hops) {
+  public boolean tryRecordPartialTrace(TracePath<HopInfo> hops) {
     checkState(_builtTraceDag == null, "Cannot add traces after the Dag has been built");
-    HopInfo rootHop = hops.get(0);
+    // Traces are recorded in DFS order and share their prefixes, so a trace usually extends a
+    // prefix that is still being built. Only the hops after that prefix need to be walked.
+    List<TracePath<HopInfo>> newHops = new ArrayList<>();
+    TracePath<HopInfo> prefix = hops;
+    NodeBuilder builder = null;
+    while (!prefix.isEmpty() && (builder = _openBuilders.get(prefix)) == null) {
+      newHops.add(prefix);
+      prefix = prefix.getPrefix();
+    }
+    Collections.reverse(newHops);
+    if (builder != null) {
+      return builder.tryRecordPartialTrace(newHops);
+    }
+
+    TracePath<HopInfo> rootPath = newHops.get(0);
+    HopInfo rootHop = rootPath.getLast();
     if (_rootBuilder != null && _rootBuilder._hopInfo != rootHop) {
       buildRoot();
     }
     if (_rootBuilder == null) {
       _rootBuilder =
-          new NodeBuilder(ImmutableList.of(), rootHop, new NodeKey(_flow, rootHop.getHop()));
+          new NodeBuilder(ImmutableList.of(), rootPath, new NodeKey(_flow, rootHop.getHop()));
     }
-    return _rootBuilder.tryRecordPartialTrace(hops.subList(1, hops.size()));
+    return _rootBuilder.tryRecordPartialTrace(newHops.subList(1, newHops.size()));
   }
 
   @Override
-  public void recordTrace(List<HopInfo> hops) {
+  public void recordTrace(TracePath<HopInfo> hops) {
     checkState(tryRecordPartialTrace(hops), "Failed to record a complete trace.");
   }
 
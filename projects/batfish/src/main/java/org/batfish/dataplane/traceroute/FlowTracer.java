@@ -30,11 +30,9 @@ import static org.batfish.dataplane.traceroute.TracerouteUtils.returnFlow;
 import static org.batfish.dataplane.traceroute.TracerouteUtils.sessionTransformation;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedSet;
-import com.google.common.collect.Iterables;
 import com.google.common.collect.Ordering;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -216,11 +214,11 @@ class FlowTracer {
   private final Flow _originalFlow;
   private final @Nonnull String _vrfName;
 
-  // Mutable list of hops in the current trace
-  private final List<HopInfo> _hops;
+  // Hops in the current trace, shared with the tracer this one was forked from
+  private TracePath<HopInfo> _hops;
 
-  // Mutable list of steps in the current hop
-  private final List<Step<?>> _steps;
+  // Steps in the current hop, shared with the tracer this one was forked from
+  private TracePath<Step<?>> _steps;
 
   private final Stack<Breadcrumb> _breadcrumbs;
   private final int _origBreadcrumbsSize; // size of _breadcrumbs at construction
@@ -259,8 +257,8 @@ class FlowTracer {
         new ArrayList<>(),
         originalFlow,
         initVrfName(ingressInterface, currentConfig, originalFlow),
-        new ArrayList<>(),
-        new ArrayList<>(),
+        TracePath.empty(),
+        TracePath.empty(),
         new Stack<>(),
         originalFlow,
         0,
@@ -291,8 +289,8 @@ class FlowTracer {
         new ArrayList<>(_newSessions),
         _originalFlow,
         newVrfName,
-        new ArrayList<>(_hops),
-        new ArrayList<>(initialSteps),
+        _hops,
+        TracePath.of(initialSteps),
         _breadcrumbs,
         _currentFlow,
         _newSessions.size(),
@@ -332,8 +330,42 @@ class FlowTracer {
       Flow currentFlow,
       int origNewSessionsSize,
       int origBreadcrumbsSize) {
+    this(
+        tracerouteContext,
+        currentConfig,
+        ingressInterface,
+        currentNode,
+        traceRecorder,
+        lastHopNodeAndOutgoingInterface,
+        newSessions,
+        originalFlow,
+        vrfName,
+        TracePath.of(hops),
+        TracePath.of(steps),
+        breadcrumbs,
+        currentFlow,
+        origNewSessionsSize,
+        origBreadcrumbsSize);
+  }
+
+  private FlowTracer(
+      TracerouteEngineImplContext tracerouteContext,
+      Configuration currentConfig,
+      @Nullable String ingressInterface,
+      Node currentNode,
+      TraceRecorder traceRecorder,
+      @Nullable NodeInterfacePair lastHopNodeAndOutgoingInterface,
+      List<FirewallSessionTraceInfo> newSessions,
+      Flow originalFlow,
+      @Nonnull String vrfName,
+      TracePath<HopInfo> hops,
+      TracePath<Step<?>> steps,
+      Stack<Breadcrumb> breadcrumbs,
+      Flow currentFlow,
+      int origNewSessionsSize,
+      int origBreadcrumbsSize) {
     assert originalFlow.equals(currentFlow)
-            || steps.stream()
+            || steps.toList().stream()
                 .anyMatch(step -> step instanceof TransformationStep || step instanceof PolicyStep)
         : "Original flow and current flow must be equal unless there's a transformation step or a"
             + " policy step";
@@ -399,8 +431,8 @@ class FlowTracer {
         // the original flow of the next hop is the final (i.e. current) flow of this hop
         _currentFlow,
         initVrfName(newIngressInterface, newConfig, _currentFlow),
-        new ArrayList<>(_hops),
-        new ArrayList<>(ImmutableList.of()),
+        _hops,
+        TracePath.empty(),
         _breadcrumbs,
         _currentFlow,
         _newSessions.size(),
@@ -432,8 +464,8 @@ class FlowTracer {
         new ArrayList<>(_newSessions),
         _originalFlow,
         newVrfName,
-        new ArrayList<>(_hops),
-        new ArrayList<>(_steps),
+        _hops,
+        _steps,
         _breadcrumbs,
         _currentFlow,
         _origNewSessionsSize,
@@ -444,7 +476,7 @@ class FlowTracer {
       String outgoingInterface, Ip nextHopIp, SortedSet<NodeInterfacePair> neighborIfaces) {
     checkArgument(!neighborIfaces.isEmpty(), "No neighbor interfaces.");
     checkState(
-        _steps.get(_steps.size() - 1) instanceof ExitOutputIfaceStep,
+        _steps.getLast() instanceof ExitOutputIfaceStep,
         "ExitOutputIfaceStep needs to be added before calling this function");
     Ip arpIp =
         Route.UNSET_ROUTE_NEXT_HOP_IP.equals(nextHopIp) ? _currentFlow.getDstIp() : nextHopIp;
@@ -465,8 +497,9 @@ class FlowTracer {
       return;
     }
 
-    Hop hop = new Hop(_currentNode, _steps);
-    _hops.add(forwardedHop(hop, _originalFlow, getVisitedBreadcrumb(), getHopSessionInfo()));
+    Hop hop = new Hop(_currentNode, _steps.toList());
+    _hops =
+        _hops.append(forwardedHop(hop, _originalFlow, getVisitedBreadcrumb(), getHopSessionInfo()));
     if (_traceRecorder.tryRecordPartialTrace(_hops)) {
       return;
     }
@@ -521,7 +554,7 @@ class FlowTracer {
 
     // Trace was received on a source interface of this hop - this should always be first.
     if (_ingressInterface != null) {
-      _steps.add(buildEnterSrcIfaceStep(_currentConfig, _ingressInterface));
+      _steps = _steps.append(buildEnterSrcIfaceStep(_currentConfig, _ingressInterface));
     }
 
     if (processSessions()) {
@@ -554,7 +587,7 @@ class FlowTracer {
       }
     } else {
       // if inputIfaceName is not set for this hop, this is the originating step
-      _steps.add(buildOriginateStep());
+      _steps = _steps.append(buildOriginateStep());
     }
 
     Ip dstIp = _currentFlow.getDstIp();
@@ -605,7 +638,7 @@ class FlowTracer {
 
       @Override
       public Void visitDrop(@Nonnull Drop drop) {
-        _steps.add(new PolicyStep(new PolicyStepDetail(policy.getName()), DENIED));
+        _steps = _steps.append(new PolicyStep(new PolicyStepDetail(policy.getName()), DENIED));
         buildDeniedTrace(FlowDisposition.DENIED_IN);
         return null;
       }
@@ -679,7 +712,7 @@ class FlowTracer {
       }
 
       private void makePermittedStep() {
-        _steps.add(new PolicyStep(new PolicyStepDetail(policy.getName()), PERMITTED));
+        _steps = _steps.append(new PolicyStep(new PolicyStepDetail(policy.getName()), PERMITTED));
       }
     }.visit(result.getAction());
 
@@ -704,7 +737,7 @@ class FlowTracer {
   @VisibleForTesting
   void applyTransformation(Transformation transformation) {
     TransformationResult transformationResult = eval(transformation);
-    _steps.addAll(transformationResult.getTraceSteps());
+    _steps = _steps.appendAll(transformationResult.getTraceSteps());
     _currentFlow = transformationResult.getOutputFlow();
   }
 
@@ -886,7 +919,7 @@ class FlowTracer {
       matchDetail.setTransformation(flowDiffs(_currentFlow, transformationResult.getOutputFlow()));
     }
 
-    _steps.add(new MatchSessionStep(matchDetail.build()));
+    _steps = _steps.append(new MatchSessionStep(matchDetail.build()));
 
     // apply incoming ACL if any
     if (inputIfaceName != null) {
@@ -906,7 +939,7 @@ class FlowTracer {
     // apply transformation
     Flow originalFlow = _currentFlow;
     if (transformationResult != null) {
-      _steps.addAll(transformationResult.getTraceSteps());
+      _steps = _steps.appendAll(transformationResult.getTraceSteps());
       _currentFlow = transformationResult.getOutputFlow();
     }
 
@@ -932,7 +965,8 @@ class FlowTracer {
                       // TODO: handle ACLs
 
                       // add ExitOutputIfaceStep
-                      flowTracer._steps.add(buildExitOutputIfaceStep(outgoingIfaceName));
+                      flowTracer._steps =
+                          flowTracer._steps.append(buildExitOutputIfaceStep(outgoingIfaceName));
 
                       SortedSet<NodeInterfacePair> neighborIfaces =
                           _tracerouteContext.getInterfaceNeighbors(
@@ -981,7 +1015,7 @@ class FlowTracer {
                   }
 
                   // add ExitOutIfaceStep
-                  _steps.add(buildExitOutputIfaceStep(outgoingInterfaceName));
+                  _steps = _steps.append(buildExitOutputIfaceStep(outgoingInterfaceName));
 
                   if (nextHop == null) {
                     /* ARP error. Currently we can't use buildArpFailureTrace for sessions, because forwarding
@@ -1001,15 +1035,16 @@ class FlowTracer {
                     return null;
                   }
 
-                  Hop hop = new Hop(new Node(currentNodeName), _steps);
-                  _hops.add(
-                      forwardedHop(
-                          hop,
-                          _originalFlow,
-                          checkNotNull(
-                              getVisitedBreadcrumb(),
-                              "Must push a breadcrumb before forwarding to next hop"),
-                          getHopSessionInfo()));
+                  Hop hop = new Hop(new Node(currentNodeName), _steps.toList());
+                  _hops =
+                      _hops.append(
+                          forwardedHop(
+                              hop,
+                              _originalFlow,
+                              checkNotNull(
+                                  getVisitedBreadcrumb(),
+                                  "Must push a breadcrumb before forwarding to next hop"),
+                              getHopSessionInfo()));
                   if (_traceRecorder.tryRecordPartialTrace(_hops)) {
                     return null;
                   }
@@ -1029,18 +1064,19 @@ class FlowTracer {
 
   private void buildNullRoutedTrace() {
     checkState(
-        Iterables.getLast(_steps) instanceof RoutingStep,
+        _steps.getLast() instanceof RoutingStep,
         "RoutingStep should be the last step while creating a null routed trace");
     checkState(
-        Iterables.getLast(_steps).getAction() == NULL_ROUTED,
+        _steps.getLast().getAction() == NULL_ROUTED,
         "The last routing step should should have the action as NULL_ROUTED");
-    _hops.add(
-        failureHop(
-            new Hop(_currentNode, _steps),
-            _originalFlow,
-            FlowDisposition.NULL_ROUTED,
-            getHopSessionInfo(),
-            getVisitedBreadcrumb()));
+    _hops =
+        _hops.append(
+            failureHop(
+                new Hop(_currentNode, _steps.toList()),
+                _originalFlow,
+                FlowDisposition.NULL_ROUTED,
+                getHopSessionInfo(),
+                getVisitedBreadcrumb()));
     _traceRecorder.recordTrace(_hops);
   }
 
@@ -1050,14 +1086,15 @@ class FlowTracer {
     routingStepBuilder
         .setDetail(RoutingStepDetail.builder().build())
         .setAction(StepAction.NO_ROUTE);
-    _steps.add(routingStepBuilder.build());
-    _hops.add(
-        failureHop(
-            new Hop(_currentNode, _steps),
-            _originalFlow,
-            FlowDisposition.NO_ROUTE,
-            getHopSessionInfo(),
-            getVisitedBreadcrumb()));
+    _steps = _steps.append(routingStepBuilder.build());
+    _hops =
+        _hops.append(
+            failureHop(
+                new Hop(_currentNode, _steps.toList()),
+                _originalFlow,
+                FlowDisposition.NO_ROUTE,
+                getHopSessionInfo(),
+                getVisitedBreadcrumb()));
     _traceRecorder.recordTrace(_hops);
   }
 
@@ -1104,14 +1141,15 @@ class FlowTracer {
           buildFirewallSessionTraceInfo(firewallSessionInterfaceInfo);
       if (session != null) {
         _newSessions.add(session);
-        _steps.add(
-            new SetupSessionStep(
-                SetupSessionStepDetail.builder()
-                    .setSessionScope(session.getSessionScope())
-                    .setMatchCriteria(session.getMatchCriteria())
-                    .setSessionAction(session.getAction())
-                    .setTransformation(returnFlowDiffs(_originalFlow, _currentFlow))
-                    .build()));
+        _steps =
+            _steps.append(
+                new SetupSessionStep(
+                    SetupSessionStepDetail.builder()
+                        .setSessionScope(session.getSessionScope())
+                        .setMatchCriteria(session.getMatchCriteria())
+                        .setSessionAction(session.getAction())
+                        .setTransformation(returnFlowDiffs(_originalFlow, _currentFlow))
+                        .build()));
       }
     }
 
@@ -1119,7 +1157,7 @@ class FlowTracer {
     String outgoingIfaceName = outgoingInterface.getName();
 
     // add ExitOutputIfaceStep
-    _steps.add(buildExitOutputIfaceStep(outgoingIfaceName));
+    _steps = _steps.append(buildExitOutputIfaceStep(outgoingIfaceName));
 
     SortedSet<NodeInterfacePair> neighborIfaces =
         _tracerouteContext.getInterfaceNeighbors(currentNodeName, outgoingIfaceName);
@@ -1246,40 +1284,43 @@ class FlowTracer {
           buildFirewallSessionTraceInfo(action, new OriginatingSessionScope(_vrfName));
       if (session != null) {
         _newSessions.add(session);
-        _steps.add(
-            new SetupSessionStep(
-                SetupSessionStepDetail.builder()
-                    .setSessionScope(session.getSessionScope())
-                    .setMatchCriteria(session.getMatchCriteria())
-                    .setSessionAction(session.getAction())
-                    .setTransformation(returnFlowDiffs(_originalFlow, _currentFlow))
-                    .build()));
+        _steps =
+            _steps.append(
+                new SetupSessionStep(
+                    SetupSessionStepDetail.builder()
+                        .setSessionScope(session.getSessionScope())
+                        .setMatchCriteria(session.getMatchCriteria())
+                        .setSessionAction(session.getAction())
+                        .setTransformation(returnFlowDiffs(_originalFlow, _currentFlow))
+                        .build()));
       }
     }
 
     InboundStep inboundStep =
         InboundStep.builder().setDetail(new InboundStepDetail(acceptingInterface)).build();
-    _steps.add(inboundStep);
+    _steps = _steps.append(inboundStep);
     Flow returnFlow = returnFlow(_currentFlow, _currentNode.getName(), _vrfName, null);
-    _hops.add(
-        successHop(
-            new Hop(_currentNode, _steps),
-            _originalFlow,
-            FlowDisposition.ACCEPTED,
-            returnFlow,
-            getHopSessionInfo(),
-            getVisitedBreadcrumb()));
+    _hops =
+        _hops.append(
+            successHop(
+                new Hop(_currentNode, _steps.toList()),
+                _originalFlow,
+                FlowDisposition.ACCEPTED,
+                returnFlow,
+                getHopSessionInfo(),
+                getVisitedBreadcrumb()));
     _traceRecorder.recordTrace(_hops);
   }
 
   private void buildLoopTrace(Breadcrumb loopDetectedBreadcrumb) {
-    _steps.add(LoopStep.INSTANCE);
-    _hops.add(
-        loopHop(
-            new Hop(_currentNode, _steps),
-            _originalFlow,
-            loopDetectedBreadcrumb,
-            getHopSessionInfo()));
+    _steps = _steps.append(LoopStep.INSTANCE);
+    _hops =
+        _hops.append(
+            loopHop(
+                new Hop(_currentNode, _steps.toList()),
+                _originalFlow,
+                loopDetectedBreadcrumb,
+                getHopSessionInfo()));
     _traceRecorder.recordTrace(_hops);
   }
 
@@ -1316,7 +1357,7 @@ class FlowTracer {
             _currentConfig.getIpAccessLists(),
             _currentConfig.getIpSpaces(),
             _tracerouteContext.getIgnoreFilters());
-    _steps.add(filterStep);
+    _steps = _steps.append(filterStep);
     if (filterStep.getAction() == DENIED) {
       buildDeniedTrace(filterType.deniedDisposition());
     }
@@ -1325,13 +1366,14 @@ class FlowTracer {
 
   @VisibleForTesting
   void buildDeniedTrace(FlowDisposition disposition) {
-    _hops.add(
-        failureHop(
-            new Hop(_currentNode, _steps),
-            _originalFlow,
-            disposition,
-            getHopSessionInfo(),
-            getVisitedBreadcrumb()));
+    _hops =
+        _hops.append(
+            failureHop(
+                new Hop(_currentNode, _steps.toList()),
+                _originalFlow,
+                disposition,
+                getHopSessionInfo(),
+                getVisitedBreadcrumb()));
     _traceRecorder.recordTrace(_hops);
   }
 
@@ -1344,22 +1386,25 @@ class FlowTracer {
       String outInterface, Ip resolvedNhIp, FlowDisposition disposition) {
     String currentNodeName = _currentNode.getName();
 
-    _steps.add(buildArpFailureStep(outInterface, resolvedNhIp, disposition));
+    _steps = _steps.append(buildArpFailureStep(outInterface, resolvedNhIp, disposition));
 
-    Hop hop = new Hop(_currentNode, _steps);
+    Hop hop = new Hop(_currentNode, _steps.toList());
     if (disposition.isSuccessful()) {
       Flow returnFlow = returnFlow(_currentFlow, currentNodeName, null, outInterface);
-      _hops.add(
-          successHop(
-              hop,
-              _originalFlow,
-              disposition,
-              returnFlow,
-              getHopSessionInfo(),
-              getVisitedBreadcrumb()));
+      _hops =
+          _hops.append(
+              successHop(
+                  hop,
+                  _originalFlow,
+                  disposition,
+                  returnFlow,
+                  getHopSessionInfo(),
+                  getVisitedBreadcrumb()));
     } else {
-      _hops.add(
-          failureHop(hop, _originalFlow, disposition, getHopSessionInfo(), getVisitedBreadcrumb()));
+      _hops =
+          _hops.append(
+              failureHop(
+                  hop, _originalFlow, disposition, getHopSessionInfo(), getVisitedBreadcrumb()));
     }
     _traceRecorder.recordTrace(_hops);
   }
@@ -1403,7 +1448,7 @@ class FlowTracer {
       Stack<Breadcrumb> intraHopBreadcrumbs,
       Breadcrumb breadcrumb) {
     FlowTracer flowTracer = this;
-    _steps.add(buildRoutingStep(fibAction, fibEntries));
+    _steps = _steps.append(buildRoutingStep(fibAction, fibEntries));
     fibAction.accept(
         new FibActionVisitor<Void>() {
           @Override
@@ -26,7 +26,8 @@ public final class LegacyTraceRecorder implements TraceRecorder {
   }
 
   @Override
-  public void recordTrace(List<HopInfo> hopInfos) {
+  public void recordTrace(TracePath<HopInfo> path) {
+    List<HopInfo> hopInfos = path.toList();
     HopInfo lastHop = hopInfos.get(hopInfos.size() - 1);
     FlowDisposition disposition = lastHop.getDisposition();
     checkArgument(disposition != null, "Last hop of a complete trace must have a disposition");
@@ -43,7 +44,7 @@ public final class LegacyTraceRecorder implements TraceRecorder {
   }
 
   @Override
-  public boolean tryRecordPartialTrace(List<HopInfo> hops) {
+  public boolean tryRecordPartialTrace(TracePath<HopInfo> hops) {
     return false;
   }
 }
@@ -0,0 +1,92 @@
+package org.batfish.dataplane.traceroute;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+
+/**
+ * An immutable sequence of elements of a trace, i.e. of {@link HopInfo hops} in a trace or of steps
+ * in a hop. Appending an element shares the existing elements rather than copying them, so forking
+ * a {@link FlowTracer} at each branch of a trace takes constant time and memory regardless of the
+ * length of the trace.
+ */
+@ParametersAreNonnullByDefault
+final class TracePath<T> {
+
+  private static final TracePath<?> EMPTY = new TracePath<>(null, null, 0);
+
+  @SuppressWarnings("unchecked")
+  static @Nonnull <T> TracePath<T> empty() {
+    return (TracePath<T>) EMPTY;
+  }
+
+  static @Nonnull <T> TracePath<T> of(List<? extends T> elements) {
+    return TracePath.<T>empty().appendAll(elements);
+  }
+
+  /** Returns a new path consisting of the elements of this path followed by {@code element}. */
+  @Nonnull
+  TracePath<T> append(T element) {
+    return new TracePath<>(this, element, _size + 1);
+  }
+
+  /** Returns a new path consisting of the elements of this path followed by {@code elements}. */
+  @Nonnull
+  TracePath<T> appendAll(Iterable<? extends T> elements) {
+    TracePath<T> path = this;
+    for (T element : elements) {
+      path = path.append(element);
+    }
+    return path;
+  }
+
+  int size() {
+    return _size;
+  }
+
+  boolean isEmpty() {
+    return _size == 0;
+  }
+
+  /** Returns the last element of this path, which must not be empty. */
+  @Nonnull
+  T getLast() {
+    checkState(_lastElement != null, "Path is empty");
+    return _lastElement;
+  }
+
+  /** Returns this path without its last element. This path must not be empty. */
+  @Nonnull
+  TracePath<T> getPrefix() {
+    checkState(_prefix != null, "Path is empty");
+    return _prefix;
+  }
+
+  /** Returns the elements of this path, in order. */
+  @Nonnull
+  List<T> toList() {
+    @SuppressWarnings("unchecked")
+    T[] elements = (T[]) new Object[_size];
+    TracePath<T> path = this;
+    for (int i = _size - 1; i >= 0; i--) {
+      assert path._prefix != null;
+      elements[i] = path._lastElement;
+      path = path._prefix;
+    }
+    return Arrays.asList(elements);
+  }
+
+  private TracePath(@Nullable TracePath<T> prefix, @Nullable T lastElement, int size) {
+    _prefix = prefix;
+    _lastElement = lastElement;
+    _size = size;
+  }
+
+  private final @Nullable TracePath<T> _prefix;
+  private final @Nullable T _lastElement;
+  private final int _size;
+}
@@ -1,14 +1,16 @@
 package org.batfish.dataplane.traceroute;
 
-import java.util.List;
-
-/** Used by {@link FlowTracer} to record complete and partial traces. */
+/**
+ * Used by {@link FlowTracer} to record complete and partial traces. Traces are passed as {@link
+ * TracePath paths}, which share their common prefixes, so recorders can avoid copying the hops of a
+ * trace that they have already seen.
+ */
 public interface TraceRecorder {
   /**
    * Record a complete trace, i.e. one in which the final {@link HopInfo} has a nonnull {@link
    * HopInfo#getDisposition()} disposition}.
    */
-  void recordTrace(List<HopInfo> hops);
+  void recordTrace(TracePath<HopInfo> hops);
 
   /**
    * Try to record a partial trace (i.e. one in which the final {@link HopInfo} does not have a
@@ -17,5 +19,5 @@ public interface TraceRecorder {
    *
    * @return whether the trace was recorded successfully.
    */
-  boolean tryRecordPartialTrace(List<HopInfo> hops);
+  boolean tryRecordPartialTrace(TracePath<HopInfo> hops);
 }
@@ -1,5 +1,6 @@
 package org.batfish.grammar.flatjuniper;
 
+import java.util.regex.Pattern;
 import javax.annotation.Nullable;
 import org.batfish.grammar.BatfishANTLRErrorStrategy;
 import org.batfish.grammar.BatfishANTLRErrorStrategy.BatfishANTLRErrorStrategyFactory;
@@ -16,6 +17,9 @@ public class FlatJuniperCombinedParser
       new BatfishANTLRErrorStrategy.BatfishANTLRErrorStrategyFactory(
           FlatJuniperLexer.NEWLINE, "\n");
 
+  /** Matches the start of a top-level statement, where the input may be split for parsing. */
+  public static final Pattern STATEMENT_START = Pattern.compile("(deactivate|delete|protect|set) ");
+
   FlatJuniperCombinedParser(String input, GrammarSettings settings) {
     this(input, settings, null);
   }
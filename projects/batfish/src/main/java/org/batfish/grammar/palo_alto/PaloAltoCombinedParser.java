@@ -1,5 +1,6 @@
 package org.batfish.grammar.palo_alto;
 
+import java.util.regex.Pattern;
 import javax.annotation.Nullable;
 import org.batfish.grammar.BatfishANTLRErrorStrategy;
 import org.batfish.grammar.BatfishANTLRErrorStrategy.BatfishANTLRErrorStrategyFactory;
@@ -14,6 +15,9 @@ public class PaloAltoCombinedParser extends BatfishCombinedParser<PaloAltoParser
   private static final BatfishANTLRErrorStrategyFactory NEWLINE_BASED_RECOVERY =
       new BatfishANTLRErrorStrategy.BatfishANTLRErrorStrategyFactory(PaloAltoLexer.NEWLINE, "\n");
 
+  /** Matches the start of a top-level statement, where the input may be split for parsing. */
+  public static final Pattern STATEMENT_START = Pattern.compile("(delete|move|set) ");
+
   public PaloAltoCombinedParser(
       String input, GrammarSettings settings, @Nullable FlattenerLineMap lineMap) {
     super(
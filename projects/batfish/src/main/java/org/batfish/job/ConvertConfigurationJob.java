@@ -253,10 +253,12 @@ public class ConvertConfigurationJob extends BatfishJob<ConvertConfigurationResu
     }
   }
 
-  @Override
-  public ConvertConfigurationResult call() {
-    long startTime = System.currentTimeMillis();
-    long elapsedTime;
+  /**
+   * Converts the vendor configuration of this job to vendor-independent configurations.
+   *
+   * @throws Exception if conversion fails
+   */
+  public ConvertResult convert() throws Exception {
     _logger.infof("Processing: \"%s\"", _name);
     Map<String, Configuration> configurations = new HashMap<>();
     Map<String, Warnings> warningsByHost = new HashMap<>();
@@ -297,16 +299,43 @@ public class ConvertConfigurationJob extends BatfishJob<ConvertConfigurationResu
         fileMap.put(filename, hostname);
       }
       _logger.info(" ...OK\n");
-    } catch (Exception e) {
-      String error = "Conversion error for node with hostname '" + _name + "'";
-      elapsedTime = System.currentTimeMillis() - startTime;
-      return new ConvertConfigurationResult(
-          elapsedTime, _logger.getHistory(), _name, new BatfishException(error, e));
     } finally {
       warningsByHost.forEach((hostname, warnings) -> Batfish.logWarnings(_logger, warnings));
     }
-    elapsedTime = System.currentTimeMillis() - startTime;
+    return new ConvertResult(_name, configurations, warningsByHost, answerElement);
+  }
+
+  /** Creates the job result for a (possibly cached) successful conversion of this job's config. */
+  public ConvertConfigurationResult fromResult(ConvertResult result, long elapsed) {
+    return new ConvertConfigurationResult(
+        elapsed,
+        _logger.getHistory(),
+        result.getWarningsByHost(),
+        _name,
+        result.getConfigurations(),
+        result.getAnswerElement());
+  }
+
+  /** Creates the job result for a failed conversion of this job's config. */
+  public ConvertConfigurationResult fromFailure(Throwable failureCause, long elapsed) {
+    String error = "Conversion error for node with hostname '" + _name + "'";
     return new ConvertConfigurationResult(
-        elapsedTime, _logger.getHistory(), warningsByHost, _name, configurations, answerElement);
+        elapsed, _logger.getHistory(), _name, new BatfishException(error, failureCause));
+  }
+
+  public String getName() {
+    return _name;
+  }
+
+  @Override
+  public ConvertConfigurationResult call() {
+    long startTime = System.currentTimeMillis();
+    ConvertResult result;
+    try {
+      result = convert();
+    } catch (Exception e) {
+      return fromFailure(e, System.currentTimeMillis() - startTime);
+    }
+    return fromResult(result, System.currentTimeMillis() - startTime);
   }
 }
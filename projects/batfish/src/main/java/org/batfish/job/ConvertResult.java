@@ -0,0 +1,54 @@
+package org.batfish.job;
+
+import java.io.Serializable;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.common.Warnings;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.answers.ConvertConfigurationAnswerElement;
+
+/**
+ * An intermediate class that holds a cacheable result of successfully converting a single vendor
+ * configuration to vendor-independent configurations.
+ */
+@ParametersAreNonnullByDefault
+public class ConvertResult implements Serializable {
+
+  @Nonnull private final ConvertConfigurationAnswerElement _answerElement;
+  @Nonnull private final Map<String, Configuration> _configurations;
+  @Nonnull private final String _name;
+  @Nonnull private final Map<String, Warnings> _warningsByHost;
+
+  public ConvertResult(
+      String name,
+      Map<String, Configuration> configurations,
+      Map<String, Warnings> warningsByHost,
+      ConvertConfigurationAnswerElement answerElement) {
+    _answerElement = answerElement;
+    _configurations = configurations;
+    _name = name;
+    _warningsByHost = warningsByHost;
+  }
+
+  @Nonnull
+  public ConvertConfigurationAnswerElement getAnswerElement() {
+    return _answerElement;
+  }
+
+  @Nonnull
+  public Map<String, Configuration> getConfigurations() {
+    return _configurations;
+  }
+
+  /** The name of the vendor configuration that was converted. */
+  @Nonnull
+  public String getName() {
+    return _name;
+  }
+
+  @Nonnull
+  public Map<String, Warnings> getWarningsByHost() {
+    return _warningsByHost;
+  }
+}
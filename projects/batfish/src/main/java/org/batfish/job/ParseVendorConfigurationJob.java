@@ -10,11 +10,15 @@ import io.opentracing.Span;
 import io.opentracing.SpanContext;
 import io.opentracing.util.GlobalTracer;
 import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.atn.ATN;
 import org.batfish.common.BatfishException;
 import org.batfish.common.NetworkSnapshot;
 import org.batfish.common.ParseTreeSentences;
@@ -22,11 +26,13 @@ import org.batfish.common.Warnings;
 import org.batfish.common.WillNotCommitException;
 import org.batfish.config.Settings;
 import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.answers.GrammarStatistics;
 import org.batfish.datamodel.answers.ParseStatus;
 import org.batfish.grammar.BatfishCombinedParser;
 import org.batfish.grammar.BatfishParseException;
 import org.batfish.grammar.ControlPlaneExtractor;
 import org.batfish.grammar.ParseTreePrettyPrinter;
+import org.batfish.grammar.PredictionStatistics;
 import org.batfish.grammar.VendorConfigurationFormatDetector;
 import org.batfish.grammar.arista.AristaCombinedParser;
 import org.batfish.grammar.arista.AristaControlPlaneExtractor;
@@ -86,6 +92,11 @@ public class ParseVendorConfigurationJob extends BatfishJob<ParseVendorConfigura
    */
   private ConfigurationFormat _expectedFormat;
 
+  /** The name of the grammar the file was parsed with, if any. */
+  @Nullable private String _grammar;
+
+  @Nullable private GrammarStatistics _grammarStatistics;
+
   private ParseTreeSentences _ptSentences;
   final NetworkSnapshot _snapshot;
   @Nullable private SpanContext _spanContext;
@@ -156,6 +167,9 @@ public class ParseVendorConfigurationJob extends BatfishJob<ParseVendorConfigura
     BatfishCombinedParser<?, ?> combinedParser = null;
     ControlPlaneExtractor extractor = null;
     FlattenerLineMap lineMap = null;
+    // for formats whose large files may be parsed in chunks, new parsers for the chunks
+    Supplier<BatfishCombinedParser<?, ?>> chunkParsers = null;
+    Pattern statementStart = null;
     Span parseSpan = GlobalTracer.get().buildSpan("Creating parser").start();
     try (Scope scope = GlobalTracer.get().scopeManager().activate(parseSpan)) {
       assert scope != null; // avoid unused warning
@@ -288,11 +302,18 @@ public class ParseVendorConfigurationJob extends BatfishJob<ParseVendorConfigura
           }
           // fall through
         case FLAT_JUNIPER:
-          FlatJuniperCombinedParser flatJuniperParser =
-              new FlatJuniperCombinedParser(_fileText, _settings, lineMap);
-          combinedParser = flatJuniperParser;
-          extractor = new FlatJuniperControlPlaneExtractor(_fileText, flatJuniperParser, _warnings);
-          break;
+          {
+            FlatJuniperCombinedParser flatJuniperParser =
+                new FlatJuniperCombinedParser(_fileText, _settings, lineMap);
+            combinedParser = flatJuniperParser;
+            extractor =
+                new FlatJuniperControlPlaneExtractor(_fileText, flatJuniperParser, _warnings);
+            String text = _fileText;
+            FlattenerLineMap chunkLineMap = lineMap;
+            chunkParsers = () -> new FlatJuniperCombinedParser(text, _settings, chunkLineMap);
+            statementStart = FlatJuniperCombinedParser.STATEMENT_START;
+            break;
+          }
 
         case IPTABLES:
           IptablesCombinedParser iptablesParser = new IptablesCombinedParser(_fileText, _settings);
@@ -325,11 +346,17 @@ public class ParseVendorConfigurationJob extends BatfishJob<ParseVendorConfigura
           }
           // fall through
         case PALO_ALTO:
-          PaloAltoCombinedParser paParser =
-              new PaloAltoCombinedParser(_fileText, _settings, lineMap);
-          combinedParser = paParser;
-          extractor = new PaloAltoControlPlaneExtractor(_fileText, paParser, _warnings);
-          break;
+          {
+            PaloAltoCombinedParser paParser =
+                new PaloAltoCombinedParser(_fileText, _settings, lineMap);
+            combinedParser = paParser;
+            extractor = new PaloAltoControlPlaneExtractor(_fileText, paParser, _warnings);
+            String text = _fileText;
+            FlattenerLineMap chunkLineMap = lineMap;
+            chunkParsers = () -> new PaloAltoCombinedParser(text, _settings, chunkLineMap);
+            statementStart = PaloAltoCombinedParser.STATEMENT_START;
+            break;
+          }
 
         default:
           throw new BatfishException(
@@ -344,7 +371,10 @@ public class ParseVendorConfigurationJob extends BatfishJob<ParseVendorConfigura
     try (Scope scope = GlobalTracer.get().scopeManager().activate(parsingSpan)) {
       assert scope != null; // avoid unused warning
       _logger.info("\tParsing...");
-      tree = Batfish.parse(combinedParser, _logger, _settings);
+      tree =
+          chunkParsers == null
+              ? Batfish.parse(combinedParser, _logger, _settings)
+              : Batfish.parse(combinedParser, chunkParsers, statementStart, _logger, _settings);
 
       if (_settings.getPrintParseTree()) {
         _ptSentences =
@@ -358,6 +388,8 @@ public class ParseVendorConfigurationJob extends BatfishJob<ParseVendorConfigura
                 _filename, String.join("\n", combinedParser.getErrors())));
       }
     } finally {
+      _grammar = combinedParser.getParser().getClass().getSimpleName();
+      _grammarStatistics = finishParse(combinedParser, _settings.getMaxDfaStates());
       parsingSpan.finish();
     }
 
@@ -466,6 +498,41 @@ public class ParseVendorConfigurationJob extends BatfishJob<ParseVendorConfigura
     }
   }
 
+  /**
+   * Returns the statistics of the parse by {@code parser}, after resetting the DFA cache of its
+   * grammar if it has more than {@code maxDfaStates} states.
+   */
+  private static @Nonnull GrammarStatistics finishParse(
+      BatfishCombinedParser<?, ?> parser, int maxDfaStates) {
+    int dfaStates = parser.getDfaStateCount();
+    boolean reset = dfaStates > maxDfaStates;
+    if (reset) {
+      parser.clearDfaCache();
+    }
+    PredictionStatistics predictions = parser.getPredictionStatistics();
+    String[] ruleNames = parser.getParser().getRuleNames();
+    ATN atn = parser.getParser().getATN();
+    long[] dfaMissNanos = predictions.getDfaMissNanos();
+    long totalDfaMissNanos = 0;
+    Map<String, Long> decisionMissNanos = new HashMap<>();
+    for (int decision = 0; decision < dfaMissNanos.length; decision++) {
+      if (dfaMissNanos[decision] > 0) {
+        totalDfaMissNanos += dfaMissNanos[decision];
+        decisionMissNanos.put(
+            ruleNames[atn.getDecisionState(decision).ruleIndex] + ":" + decision,
+            dfaMissNanos[decision]);
+      }
+    }
+    return new GrammarStatistics(
+        totalDfaMissNanos,
+        predictions.getDfaMisses(),
+        reset ? 1 : 0,
+        dfaStates,
+        1,
+        predictions.getPredictions(),
+        decisionMissNanos);
+  }
+
   public ParseVendorConfigurationResult fromResult(ParseResult result, long elapsed) {
     if (result.getConfig() != null) {
       return new ParseVendorConfigurationResult(
@@ -504,7 +571,12 @@ public class ParseVendorConfigurationJob extends BatfishJob<ParseVendorConfigura
       _logger.infof("Processing: '%s'\n", _filename);
       long startTime = System.currentTimeMillis();
       ParseResult result = parse();
-      return fromResult(result, System.currentTimeMillis() - startTime);
+      ParseVendorConfigurationResult jobResult =
+          fromResult(result, System.currentTimeMillis() - startTime);
+      if (_grammarStatistics != null && _settings.getParseStatistics()) {
+        jobResult.setGrammarStatistics(_grammar, _grammarStatistics);
+      }
+      return jobResult;
     } finally {
       span.finish();
     }
@@ -7,12 +7,14 @@ import com.google.common.collect.Multimap;
 import java.io.File;
 import java.util.Map;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.batfish.common.BatfishException;
 import org.batfish.common.BatfishLogger;
 import org.batfish.common.BatfishLogger.BatfishLoggerHistory;
 import org.batfish.common.ErrorDetails;
 import org.batfish.common.ParseTreeSentences;
 import org.batfish.common.Warnings;
+import org.batfish.datamodel.answers.GrammarStatistics;
 import org.batfish.datamodel.answers.ParseStatus;
 import org.batfish.datamodel.answers.ParseVendorConfigurationAnswerElement;
 import org.batfish.vendor.VendorConfiguration;
@@ -26,6 +28,10 @@ public class ParseVendorConfigurationResult
 
   private final String _filename;
 
+  @Nullable private String _grammar;
+
+  @Nullable private GrammarStatistics _grammarStatistics;
+
   @Nonnull private ParseTreeSentences _parseTree;
 
   private final ParseStatus _status;
@@ -99,6 +105,9 @@ public class ParseVendorConfigurationResult
       ParseVendorConfigurationAnswerElement answerElement) {
     appendHistory(logger);
     answerElement.getParseStatus().put(_filename, _status);
+    if (_grammarStatistics != null) {
+      answerElement.addGrammarStatistics(_grammar, _grammarStatistics);
+    }
     if (_vc != null) {
       String hostname = _vc.getHostname();
       if (vendorConfigurations.containsKey(hostname)) {
@@ -175,6 +184,12 @@ public class ParseVendorConfigurationResult
     return baseName + "__" + filename.replaceAll(File.separator, "__");
   }
 
+  /** Records the statistics of parsing the file with grammar {@code grammar}. */
+  public void setGrammarStatistics(String grammar, GrammarStatistics grammarStatistics) {
+    _grammar = grammar;
+    _grammarStatistics = grammarStatistics;
+  }
+
   public VendorConfiguration getVendorConfiguration() {
     return _vc;
   }
@@ -32,6 +32,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
 import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -41,6 +42,7 @@ import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
+import com.google.common.hash.HashCode;
 import com.google.common.hash.Hashing;
 import com.google.errorprone.annotations.MustBeClosed;
 import io.opentracing.References;
@@ -73,8 +75,12 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -126,6 +132,7 @@ import org.batfish.common.util.isp.IspModelingUtils.ModeledNodes;
 import org.batfish.config.Settings;
 import org.batfish.datamodel.AbstractRoute;
 import org.batfish.datamodel.AnnotatedRoute;
+import org.batfish.datamodel.BDDForwardingAnalysisImpl;
 import org.batfish.datamodel.BgpAdvertisement;
 import org.batfish.datamodel.Bgpv4Route;
 import org.batfish.datamodel.Configuration;
@@ -183,6 +190,7 @@ import org.batfish.grammar.BatfishParseException;
 import org.batfish.grammar.BatfishParseTreeWalker;
 import org.batfish.grammar.BgpTableFormat;
 import org.batfish.grammar.GrammarSettings;
+import org.batfish.grammar.ParallelChunkParser;
 import org.batfish.grammar.ParseTreePrettyPrinter;
 import org.batfish.grammar.flattener.Flattener;
 import org.batfish.grammar.juniper.JuniperCombinedParser;
@@ -201,6 +209,8 @@ import org.batfish.identifiers.SnapshotId;
 import org.batfish.identifiers.StorageBasedIdResolver;
 import org.batfish.job.BatfishJobExecutor;
 import org.batfish.job.ConvertConfigurationJob;
+import org.batfish.job.ConvertConfigurationResult;
+import org.batfish.job.ConvertResult;
 import org.batfish.job.ParseEnvironmentBgpTableJob;
 import org.batfish.job.ParseResult;
 import org.batfish.job.ParseVendorConfigurationJob;
@@ -231,6 +241,7 @@ import org.batfish.specifier.SpecifierContext;
 import org.batfish.specifier.SpecifierContextImpl;
 import org.batfish.specifier.UnionLocationSpecifier;
 import org.batfish.storage.FileBasedStorage;
+import org.batfish.storage.LazyConfigurations;
 import org.batfish.storage.StorageProvider;
 import org.batfish.symbolic.IngressLocation;
 import org.batfish.topology.TopologyProviderImpl;
@@ -421,6 +432,30 @@ public class Batfish extends PluginConsumer implements IBatfish {
     return tree;
   }
 
+  /**
+   * Like {@link #parse(BatfishCombinedParser, BatfishLogger, GrammarSettings)}, but parses large
+   * inputs in chunks of whole statements on several threads, with parsers from {@code
+   * chunkParsers}. See {@link ParallelChunkParser}.
+   */
+  public static ParserRuleContext parse(
+      BatfishCombinedParser<?, ?> parser,
+      Supplier<? extends BatfishCombinedParser<?, ?>> chunkParsers,
+      Pattern statementStart,
+      BatfishLogger logger,
+      Settings settings) {
+    if (settings.getSequential() || settings.getPrintParseTree()) {
+      return parse(parser, logger, settings);
+    }
+    ParserRuleContext tree =
+        ParallelChunkParser.parse(
+            parser, chunkParsers, statementStart, settings.getAvailableThreads());
+    if (tree == null) {
+      return parse(parser, logger, settings);
+    }
+    logger.info("OK\n");
+    return tree;
+  }
+
   private final Map<String, AnswererCreator> _answererCreators;
 
   private SnapshotId _snapshot;
@@ -437,6 +472,14 @@ public class Batfish extends PluginConsumer implements IBatfish {
   private final Cache<NetworkSnapshot, Map<String, VendorConfiguration>>
       _cachedVendorConfigurations;
 
+  /**
+   * Forwarding analyses computed as BDDs, by the {@link BDDPacket} (compared by identity) whose
+   * factory they belong to and by snapshot. They cannot be shared across packets, so they live only
+   * as long as this instance, i.e. a single work item.
+   */
+  private final Cache<BDDPacket, Map<NetworkSnapshot, ForwardingAnalysis>>
+      _cachedBddForwardingAnalyses = CacheBuilder.newBuilder().weakKeys().build();
+
   private SnapshotId _referenceSnapshot;
 
   private Set<ExternalBgpAdvertisementPlugin> _externalBgpAdvertisementPlugins;
@@ -854,10 +897,21 @@ public class Batfish extends PluginConsumer implements IBatfish {
     _logger.resetTimer();
     Map<String, Configuration> configurations = new TreeMap<>();
     List<ConvertConfigurationJob> jobs = new ArrayList<>();
+    @Nullable HashCode runtimeDataHash = conversionRuntimeDataHash(runtimeData);
     for (Entry<String, VendorConfiguration> config : vendorConfigurations.entrySet()) {
       VendorConfiguration vc = config.getValue();
-      ConvertConfigurationJob job =
-          new ConvertConfigurationJob(_settings, runtimeData, vc, config.getKey());
+      ConvertConfigurationJob job;
+      if (runtimeDataHash == null) {
+        job = new ConvertConfigurationJob(_settings, runtimeData, vc, config.getKey());
+      } else {
+        job =
+            new ConvertConfigurationJob(_settings, runtimeData, vc, config.getKey()) {
+              @Override
+              public ConvertConfigurationResult call() {
+                return getOrConvert(this, vc, runtimeDataHash);
+              }
+            };
+      }
       jobs.add(job);
     }
     BatfishJobExecutor.runJobsInExecutor(
@@ -872,6 +926,99 @@ public class Batfish extends PluginConsumer implements IBatfish {
     return configurations;
   }
 
+  /**
+   * Returns the hash of the runtime data that is part of the cache key of every conversion result,
+   * or {@code null} if conversion results should not be reused.
+   */
+  private @Nullable HashCode conversionRuntimeDataHash(@Nullable SnapshotRuntimeData runtimeData) {
+    if (!_settings.getConversionReuse()) {
+      return null;
+    }
+    try {
+      String runtimeDataText =
+          BatfishObjectMapper.writeString(firstNonNull(runtimeData, EMPTY_SNAPSHOT_RUNTIME_DATA));
+      return Hashing.murmur3_128().hashString(runtimeDataText, UTF_8);
+    } catch (JsonProcessingException e) {
+      _logger.warnf(
+          "Error hashing runtime data, not reusing conversion results: %s",
+          Throwables.getStackTraceAsString(e));
+      return null;
+    }
+  }
+
+  /**
+   * Returns the result of the given conversion job, reusing a cached result if the same vendor
+   * configuration was converted before by this version of Batfish with the same runtime data and
+   * warning settings.
+   *
+   * <p>Cache entries are keyed by the content of the (parsed) vendor configuration rather than by
+   * snapshot, so unchanged devices in a new snapshot of the same network skip conversion. Failed
+   * conversions are never cached.
+   */
+  private ConvertConfigurationResult getOrConvert(
+      ConvertConfigurationJob job, VendorConfiguration vc, HashCode runtimeDataHash) {
+    long startTime = System.currentTimeMillis();
+    String name = job.getName();
+    @Nullable String id;
+    try {
+      BatfishLogger logger = _settings.getLogger();
+      id =
+          Hashing.murmur3_128()
+              .newHasher()
+              .putString("Cached Conversion Result", UTF_8)
+              .putString(BatfishVersion.getVersionStatic(), UTF_8)
+              .putString(name, UTF_8)
+              // must be serialized before conversion, which may modify the vendor configuration
+              .putBytes(SerializationUtils.serialize(vc))
+              .putBytes(runtimeDataHash.asBytes())
+              .putBoolean(logger.isActive(BatfishLogger.LEVEL_PEDANTIC))
+              .putBoolean(logger.isActive(BatfishLogger.LEVEL_REDFLAG))
+              .putBoolean(logger.isActive(BatfishLogger.LEVEL_UNIMPLEMENTED))
+              .hash()
+              .toString();
+    } catch (Exception e) {
+      _logger.warnf(
+          "Error computing conversion cache key for %s: %s",
+          name, Throwables.getStackTraceAsString(e));
+      id = null;
+    }
+
+    if (id != null) {
+      try (InputStream in = _storage.loadNetworkBlob(getContainerName(), id)) {
+        ConvertResult result = SerializationUtils.deserialize(in);
+        // sanity-check names. In the extremely unlikely event of a collision, we'll lose reuse
+        // for this input.
+        if (result.getName().equals(name)) {
+          return job.fromResult(result, System.currentTimeMillis() - startTime);
+        }
+      } catch (FileNotFoundException e) {
+        // not cached
+      } catch (Exception e) {
+        _logger.warnf(
+            "Error deserializing cached conversion result for %s: %s",
+            name, Throwables.getStackTraceAsString(e));
+      }
+    }
+
+    ConvertResult result;
+    try {
+      result = job.convert();
+    } catch (Exception e) {
+      return job.fromFailure(e, System.currentTimeMillis() - startTime);
+    }
+    if (id != null) {
+      try {
+        byte[] serialized = SerializationUtils.serialize(result);
+        _storage.storeNetworkBlob(new ByteArrayInputStream(serialized), getContainerName(), id);
+      } catch (Exception e) {
+        _logger.warnf(
+            "Error caching conversion result for %s: %s",
+            name, Throwables.getStackTraceAsString(e));
+      }
+    }
+    return job.fromResult(result, System.currentTimeMillis() - startTime);
+  }
+
   @Override
   public boolean debugFlagEnabled(String flag) {
     return _settings.debugFlagEnabled(flag);
@@ -1051,6 +1198,11 @@ public class Batfish extends PluginConsumer implements IBatfish {
     return nodeRolesData.nodeRoleDimensionFor(dimension);
   }
 
+  @Override
+  public int getAvailableThreads() {
+    return _settings.getAvailableThreads();
+  }
+
   @Override
   public Map<String, String> getQuestionTemplates(boolean verbose) {
     if (_settings.getCoordinatorHost() == null) {
@@ -1201,15 +1353,31 @@ public class Batfish extends PluginConsumer implements IBatfish {
       _logger.debugf("Loading configurations for %s, cache miss", snapshot);
 
       // Next, see if we have an up-to-date configurations on disk.
-      configurations = _storage.loadConfigurations(snapshot.getNetwork(), snapshot.getSnapshot());
-      if (configurations != null) {
-        _logger.debugf("Loaded configurations for %s off disk", snapshot);
+      LazyConfigurations stored =
+          _storage.loadConfigurations(snapshot.getNetwork(), snapshot.getSnapshot());
+      AtomicReference<SortedMap<String, Configuration>> loaded = new AtomicReference<>();
+      if (stored != null) {
+        _logger.debugf("Found configurations for %s on disk", snapshot);
+        // Re-parse if some stored configuration turns out to be corrupt or incompatible.
+        stored =
+            stored.withFallback(
+                () -> {
+                  _logger.warnf(
+                      "Could not load stored configurations for %s, re-parsing\n", snapshot);
+                  // Repairing loads configurations itself, so it must not see this partially
+                  // loaded map. Callers keep using this map, so restore it afterwards.
+                  _cachedConfigurations.invalidate(snapshot);
+                  LazyConfigurations repaired = actuallyParseConfigurations(snapshot);
+                  _cachedConfigurations.put(snapshot, loaded.get());
+                  return repaired;
+                });
       } else {
         // Otherwise, we have to parse the configurations. Fall back to old, hacky code.
-        configurations = actuallyParseConfigurations(snapshot);
+        stored = actuallyParseConfigurations(snapshot);
       }
-      // Apply things like blacklist and aggregations before installing in the cache.
-      postProcessSnapshot(snapshot, configurations);
+      // Apply things like blacklist and aggregations to each configuration as it is loaded.
+      configurations = stored.postProcessed(configurationPostProcessor(snapshot));
+      loaded.set(configurations);
 
       _cachedConfigurations.put(snapshot, configurations);
       return configurations;
@@ -1219,10 +1387,10 @@ public class Batfish extends PluginConsumer implements IBatfish {
   }
 
   @Nonnull
-  private SortedMap<String, Configuration> actuallyParseConfigurations(NetworkSnapshot snapshot) {
+  private LazyConfigurations actuallyParseConfigurations(NetworkSnapshot snapshot) {
     _logger.infof("Repairing configurations for testrig %s", snapshot.getSnapshot());
     repairConfigurations(snapshot);
-    SortedMap<String, Configuration> configurations =
+    LazyConfigurations configurations =
         _storage.loadConfigurations(snapshot.getNetwork(), snapshot.getSnapshot());
     verify(
         configurations != null,
@@ -2036,17 +2204,14 @@ public class Batfish extends PluginConsumer implements IBatfish {
    * </ul>
    */
   private void updateBlacklistedAndInactiveConfigs(
-      NetworkSnapshot snapshot, Map<String, Configuration> configurations) {
+      Map<String, Configuration> configurations,
+      @Nullable SortedSet<String> blacklistedNodes,
+      @Nullable SnapshotRuntimeData runtimeData) {
     NetworkConfigurations nc = NetworkConfigurations.of(configurations);
-    NetworkId networkId = snapshot.getNetwork();
-    SnapshotId snapshotId = snapshot.getSnapshot();
-
-    SortedSet<String> blacklistedNodes = _storage.loadNodeBlacklist(networkId, snapshotId);
     if (blacklistedNodes != null) {
       processInterfaceBlacklist(nodeToInterfaceBlacklist(blacklistedNodes, nc), nc);
     }
     // If interface blacklist was provided, it was converted to runtime data file by WorkMgr
-    SnapshotRuntimeData runtimeData = _storage.loadRuntimeData(networkId, snapshotId);
     if (runtimeData != null) {
       processInterfaceBlacklist(runtimeData.getBlacklistedInterfaces(), nc);
     }
@@ -2064,20 +2229,44 @@ public class Batfish extends PluginConsumer implements IBatfish {
   }
 
   /**
-   * Ensures that the current configurations for the current snapshot are correct by performing some
+   * Ensures that the given configurations of the snapshot are correct by performing some
    * post-processing on the vendor-independent datamodel. Among other things, this includes:
    *
    * <ul>
-   *   <li>Invalidating cached configs if the in-memory copy has been changed by question
-   *       processing.
-   *   <li>Re-loading configurations from disk, including re-parsing if the configs were parsed on a
-   *       previous version of Batfish.
    *   <li>Ensuring that blacklists are honored.
+   *   <li>Deactivating interfaces whose dependencies are inactive.
+   *   <li>Initializing aggregated and redundant interfaces, and routing process neighbors.
    * </ul>
+   *
+   * <p>Configurations loaded through {@link #loadConfigurations(NetworkSnapshot)} are
+   * post-processed as each one is loaded, and are never reloaded while their snapshot stays cached,
+   * so changes made to them by question processing are not undone.
    */
   private void postProcessSnapshot(
       NetworkSnapshot snapshot, Map<String, Configuration> configurations) {
-    updateBlacklistedAndInactiveConfigs(snapshot, configurations);
+    configurations.values().forEach(configurationPostProcessor(snapshot));
+  }
+
+  /**
+   * Returns a function that performs the post-processing of {@link #postProcessSnapshot} on a
+   * single configuration of the snapshot. Post-processing only depends on the configuration itself
+   * and on snapshot-wide inputs like blacklists, which are read once here.
+   */
+  private @Nonnull Consumer<Configuration> configurationPostProcessor(NetworkSnapshot snapshot) {
+    NetworkId networkId = snapshot.getNetwork();
+    SnapshotId snapshotId = snapshot.getSnapshot();
+    SortedSet<String> blacklistedNodes = _storage.loadNodeBlacklist(networkId, snapshotId);
+    SnapshotRuntimeData runtimeData = _storage.loadRuntimeData(networkId, snapshotId);
+    return c ->
+        postProcessConfigurations(
+            ImmutableMap.of(c.getHostname(), c), blacklistedNodes, runtimeData);
+  }
+
+  private void postProcessConfigurations(
+      Map<String, Configuration> configurations,
+      @Nullable SortedSet<String> blacklistedNodes,
+      @Nullable SnapshotRuntimeData runtimeData) {
+    updateBlacklistedAndInactiveConfigs(configurations, blacklistedNodes, runtimeData);
     postProcessAggregatedInterfaces(configurations);
     postProcessRedundantInterfaces(configurations);
     NetworkConfigurations nc = NetworkConfigurations.of(configurations);
@@ -2876,7 +3065,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
     return new BidirectionalReachabilityAnalysis(
             bddPacket,
             loadConfigurations(snapshot),
-            dataPlane.getForwardingAnalysis(),
+            getForwardingAnalysis(snapshot, dataPlane, bddPacket),
             new IpsRoutedOutInterfacesFactory(dataPlane.getFibs()),
             params.getSourceIpAssignment(),
             params.getHeaderSpace(),
@@ -3044,6 +3233,35 @@ public class Batfish extends PluginConsumer implements IBatfish {
     return InferFromLocationIpSpaceSpecifier.INSTANCE.resolve(locations, specifierContext);
   }
 
+  /**
+   * Returns the {@link ForwardingAnalysis} for a BDD reachability analysis over {@code pkt}. If
+   * {@link Settings#getBddForwardingAnalysis()}, it is computed directly as BDDs over {@code pkt},
+   * so the analysis need not convert it. Otherwise, it is the one computed with the data plane.
+   *
+   * <p>Computing the BDD analysis costs about as much as computing the forwarding analysis of the
+   * data plane, so it is computed once per snapshot and packet and reused by every reachability
+   * analysis of the work item over that packet.
+   */
+  @Nonnull
+  private ForwardingAnalysis getForwardingAnalysis(
+      NetworkSnapshot snapshot, DataPlane dataPlane, BDDPacket pkt) {
+    if (!_settings.getBddForwardingAnalysis()) {
+      return dataPlane.getForwardingAnalysis();
+    }
+    return _cachedBddForwardingAnalyses
+        .asMap()
+        .computeIfAbsent(pkt, p -> new ConcurrentHashMap<>())
+        .computeIfAbsent(
+            snapshot,
+            s ->
+                new BDDForwardingAnalysisImpl(
+                    pkt,
+                    loadConfigurations(s),
+                    dataPlane.getFibs(),
+                    _topologyProvider.getLayer3Topology(s),
+                    getLocationInfo(s)));
+  }
+
   @Nonnull
   private BDDReachabilityAnalysisFactory getBddReachabilityAnalysisFactory(
       NetworkSnapshot snapshot, BDDPacket pkt, boolean ignoreFilters) {
@@ -3054,7 +3272,7 @@ public class Batfish extends PluginConsumer implements IBatfish {
       return new BDDReachabilityAnalysisFactory(
           pkt,
           loadConfigurations(snapshot),
-          dataPlane.getForwardingAnalysis(),
+          getForwardingAnalysis(snapshot, dataPlane, pkt),
           new IpsRoutedOutInterfacesFactory(dataPlane.getFibs()),
           ignoreFilters,
           false);
@@ -0,0 +1,140 @@
+package org.batfish.bddreachability;
+
+import static org.batfish.bddreachability.BDDReachabilityUtils.computeForwardEdgeTable;
+import static org.batfish.bddreachability.BDDReachabilityUtils.roundsFixpoint;
+import static org.batfish.bddreachability.BDDReachabilityUtils.transposeAndMaterialize;
+import static org.batfish.bddreachability.transition.Transitions.IDENTITY;
+import static org.batfish.bddreachability.transition.Transitions.constraint;
+import static org.batfish.bddreachability.transition.Transitions.eraseAndSet;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Table;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BiFunction;
+import net.sf.javabdd.BDD;
+import org.batfish.bddreachability.transition.Transition;
+import org.batfish.common.bdd.BDDPacket;
+import org.batfish.symbolic.state.NodeAccept;
+import org.batfish.symbolic.state.StateExpr;
+import org.junit.Test;
+
+/** Tests of {@link SccDeltaFixpoint}. */
+public class SccDeltaFixpointTest {
+  private static final BDDPacket PKT = new BDDPacket();
+
+  private static final StateExpr A = new NodeAccept("A");
+  private static final StateExpr B = new NodeAccept("B");
+  private static final StateExpr C = new NodeAccept("C");
+  private static final StateExpr D = new NodeAccept("D");
+
+  @Test
+  public void testComputeSccs() {
+    // A -> B <-> C -> D
+    Table<StateExpr, StateExpr, Transition> edges =
+        computeForwardEdgeTable(
+            ImmutableList.of(
+                new Edge(A, B, IDENTITY),
+                new Edge(B, C, IDENTITY),
+                new Edge(C, B, IDENTITY),
+                new Edge(C, D, IDENTITY)));
+
+    List<List<StateExpr>> sccs = SccDeltaFixpoint.computeSccs(ImmutableList.of(A), edges);
+    assertThat(sccs.size(), equalTo(3));
+    assertThat(sccs.get(0), contains(D));
+    assertThat(sccs.get(1), containsInAnyOrder(B, C));
+    assertThat(sccs.get(2), contains(A));
+
+    // only states reachable from the roots are included
+    assertThat(SccDeltaFixpoint.computeSccs(ImmutableList.of(C), edges).size(), equalTo(2));
+  }
+
+  @Test
+  public void testFixpointWithCycle() {
+    BDD dstIp1 = PKT.getDstIp().value(1);
+    BDD dstIp2 = PKT.getDstIp().value(2);
+    BDD srcPort1 = PKT.getSrcPort().value(1);
+
+    // A -> B, B -> C rewrites the dst IP to 2, C -> B only allows srcPort 1, C -> D
+    Table<StateExpr, StateExpr, Transition> edges =
+        computeForwardEdgeTable(
+            ImmutableList.of(
+                new Edge(A, B, constraint(dstIp1)),
+                new Edge(B, C, eraseAndSet(PKT.getDstIp(), dstIp2)),
+                new Edge(C, B, constraint(srcPort1)),
+                new Edge(C, D, IDENTITY)));
+
+    BDD one = PKT.getFactory().one();
+    Map<StateExpr, BDD> reachable = new HashMap<>();
+    reachable.put(A, one);
+    SccDeltaFixpoint.fixpoint(reachable, edges, Transition::transitForward);
+
+    BDD bAfterLoop = dstIp2.and(srcPort1);
+    assertThat(
+        reachable,
+        equalTo(
+            ImmutableMap.of(
+                A, one, //
+                B, dstIp1.or(bAfterLoop),
+                C, dstIp2,
+                D, dstIp2)));
+  }
+
+  /** The delta fixpoint must compute exactly the same reachable sets as the rounds fixpoint. */
+  @Test
+  public void testMatchesRoundsFixpoint() {
+    Random random = new Random(0);
+    List<StateExpr> states = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      states.add(new NodeAccept("n" + i));
+    }
+    List<Edge> edges = new ArrayList<>();
+    for (int i = 0; i < 120; i++) {
+      StateExpr pre = states.get(random.nextInt(states.size()));
+      StateExpr post = states.get(random.nextInt(states.size()));
+      edges.add(new Edge(pre, post, randomTransition(random)));
+    }
+    Table<StateExpr, StateExpr, Transition> forwardEdges = computeForwardEdgeTable(edges);
+    Table<StateExpr, StateExpr, Transition> backwardEdges = transposeAndMaterialize(forwardEdges);
+
+    for (int trial = 0; trial < 10; trial++) {
+      Map<StateExpr, BDD> roots = new HashMap<>();
+      for (int i = 0; i < 3; i++) {
+        roots.put(
+            states.get(random.nextInt(states.size())), PKT.getSrcPort().value(random.nextInt(4)));
+      }
+      assertSameFixpoint(roots, forwardEdges, Transition::transitForward);
+      assertSameFixpoint(roots, backwardEdges, Transition::transitBackward);
+    }
+  }
+
+  private static Transition randomTransition(Random random) {
+    switch (random.nextInt(3)) {
+      case 0:
+        return IDENTITY;
+      case 1:
+        return constraint(PKT.getDstIp().value(random.nextInt(4)).not());
+      default:
+        return eraseAndSet(PKT.getSrcPort(), PKT.getSrcPort().value(random.nextInt(4)));
+    }
+  }
+
+  private static void assertSameFixpoint(
+      Map<StateExpr, BDD> roots,
+      Table<StateExpr, StateExpr, Transition> edges,
+      BiFunction<Transition, BDD, BDD> traverse) {
+    Map<StateExpr, BDD> expected = new HashMap<>(roots);
+    roundsFixpoint(expected, edges, traverse);
+    Map<StateExpr, BDD> actual = new HashMap<>(roots);
+    SccDeltaFixpoint.fixpoint(actual, edges, traverse);
+    assertThat(actual, equalTo(expected));
+  }
+}
@@ -0,0 +1,219 @@
+package org.batfish.datamodel;
+
+import static org.batfish.common.util.CollectionUtil.toImmutableMap;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Map.Entry;
+import net.sf.javabdd.BDD;
+import org.batfish.common.NetworkSnapshot;
+import org.batfish.common.bdd.BDDPacket;
+import org.batfish.datamodel.route.nh.NextHopVrf;
+import org.batfish.main.Batfish;
+import org.batfish.main.BatfishTestUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of {@link BDDForwardingAnalysisImpl}, comparing it to the {@link ForwardingAnalysisImpl}
+ * computed with the data plane.
+ */
+public final class BDDForwardingAnalysisImplTest {
+  @Rule public TemporaryFolder _temp = new TemporaryFolder();
+
+  private NetworkFactory _nf;
+  private Configuration.Builder _cb;
+  private Interface.Builder _ib;
+
+  @Before
+  public void setup() {
+    _nf = new NetworkFactory();
+    _cb = _nf.configurationBuilder().setConfigurationFormat(ConfigurationFormat.CISCO_IOS);
+    _ib = _nf.interfaceBuilder().setActive(true);
+  }
+
+  private void assertMatchesForwardingAnalysisImpl(Configuration... configs) throws IOException {
+    ImmutableSortedMap.Builder<String, Configuration> configurations =
+        ImmutableSortedMap.naturalOrder();
+    for (Configuration c : configs) {
+      configurations.put(c.getHostname(), c);
+    }
+    Batfish batfish = BatfishTestUtils.getBatfish(configurations.build(), _temp);
+    NetworkSnapshot snapshot = batfish.getSnapshot();
+    batfish.computeDataPlane(snapshot);
+    DataPlane dataPlane = batfish.loadDataPlane(snapshot);
+
+    BDDPacket pkt = new BDDPacket();
+    BDDForwardingAnalysisImpl actual =
+        new BDDForwardingAnalysisImpl(
+            pkt,
+            batfish.loadConfigurations(snapshot),
+            dataPlane.getFibs(),
+            batfish.getTopologyProvider().getLayer3Topology(snapshot),
+            batfish.getLocationInfo(snapshot));
+    BDDForwardingAnalysis expected =
+        BDDForwardingAnalysis.of(pkt, dataPlane.getForwardingAnalysis());
+    assertMatches(actual, expected);
+
+    // no conversion for the same packet
+    assertThat(BDDForwardingAnalysis.of(pkt, actual), sameInstance(actual));
+    // the materialized IP spaces are equivalent
+    assertMatches(new IpSpaceBDDForwardingAnalysis(pkt, actual), expected);
+    assertThat(
+        toBdds(pkt, actual.getArpReplies()),
+        equalTo(toBdds(pkt, dataPlane.getForwardingAnalysis().getArpReplies())));
+  }
+
+  private static void assertMatches(BDDForwardingAnalysis actual, BDDForwardingAnalysis expected) {
+    assertThat(actual.getAcceptsIpBdds(), equalTo(expected.getAcceptsIpBdds()));
+    assertThat(actual.getArpTrueEdgeBdds(), equalTo(expected.getArpTrueEdgeBdds()));
+    assertThat(actual.getDeliveredToSubnetBdds(), equalTo(expected.getDeliveredToSubnetBdds()));
+    assertThat(actual.getExitsNetworkBdds(), equalTo(expected.getExitsNetworkBdds()));
+    assertThat(actual.getInsufficientInfoBdds(), equalTo(expected.getInsufficientInfoBdds()));
+    assertThat(actual.getNeighborUnreachableBdds(), equalTo(expected.getNeighborUnreachableBdds()));
+    assertThat(actual.getNextVrfIpBdds(), equalTo(expected.getNextVrfIpBdds()));
+    assertThat(actual.getNullRoutedIpBdds(), equalTo(expected.getNullRoutedIpBdds()));
+    assertThat(actual.getRoutableIpBdds(), equalTo(expected.getRoutableIpBdds()));
+  }
+
+  private static Map<String, Map<String, BDD>> toBdds(
+      BDDPacket pkt, Map<String, Map<String, IpSpace>> ipSpaces) {
+    return toImmutableMap(
+        ipSpaces,
+        Entry::getKey,
+        nodeEntry ->
+            toImmutableMap(
+                nodeEntry.getValue(),
+                Entry::getKey,
+                ifaceEntry -> pkt.getDstIpSpaceToBDD().visit(ifaceEntry.getValue())));
+  }
+
+  private static StaticRoute staticRoute(String network, String nextHopInterface) {
+    return StaticRoute.testBuilder()
+        .setNetwork(Prefix.parse(network))
+        .setNextHopInterface(nextHopInterface)
+        .setAdministrativeCost(1)
+        .build();
+  }
+
+  private static StaticRoute staticRoute(String network, Ip nextHopIp) {
+    return StaticRoute.testBuilder()
+        .setNetwork(Prefix.parse(network))
+        .setNextHopIp(nextHopIp)
+        .setAdministrativeCost(1)
+        .build();
+  }
+
+  /** Routes out interfaces, to next-hop IPs, to the null interface and to another VRF. */
+  @Test
+  public void testRoutes() throws IOException {
+    Configuration c1 = _cb.setHostname("c1").build();
+    Vrf v1 = _nf.vrfBuilder().setOwner(c1).setName(Configuration.DEFAULT_VRF_NAME).build();
+    Vrf other = _nf.vrfBuilder().setOwner(c1).setName("other").build();
+    Interface i1 =
+        _ib.setOwner(c1)
+            .setVrf(v1)
+            .setName("i1")
+            .setAddress(ConcreteInterfaceAddress.parse("1.0.0.1/24"))
+            .build();
+    _ib.setOwner(c1)
+        .setVrf(other)
+        .setName("i3")
+        .setAddress(ConcreteInterfaceAddress.parse("3.0.0.1/24"))
+        .build();
+    _ib.setOwner(c1)
+        .setVrf(v1)
+        .setName("link")
+        .setAddress(ConcreteInterfaceAddress.parse("5.0.0.0/31"))
+        .build();
+    v1.setStaticRoutes(
+        ImmutableSortedSet.of(
+            // out an interface, ARPing for the dst IP
+            staticRoute("10.0.0.0/8", i1.getName()),
+            // to an owned next-hop IP
+            staticRoute("20.0.0.0/8", Ip.parse("1.0.0.2")),
+            // to an unowned next-hop IP
+            staticRoute("30.0.0.0/8", Ip.parse("1.0.0.3")),
+            // to a next-hop IP across a /31
+            staticRoute("40.0.0.0/8", Ip.parse("5.0.0.1")),
+            // to a next-hop IP that is the dst IP
+            staticRoute("8.8.8.8/32", Ip.parse("1.0.0.8")),
+            // null routed
+            staticRoute("10.1.0.0/16", Interface.NULL_INTERFACE_NAME),
+            StaticRoute.testBuilder()
+                .setNetwork(Prefix.parse("50.0.0.0/8"))
+                .setNextHop(NextHopVrf.of(other.getName()))
+                .setAdministrativeCost(1)
+                .build()));
+
+    Configuration c2 = _cb.setHostname("c2").build();
+    Vrf v2 = _nf.vrfBuilder().setOwner(c2).setName(Configuration.DEFAULT_VRF_NAME).build();
+    _ib.setOwner(c2)
+        .setVrf(v2)
+        .setName("i2")
+        .setAddress(ConcreteInterfaceAddress.parse("1.0.0.2/24"))
+        .build();
+    _ib.setOwner(c2)
+        .setVrf(v2)
+        .setName("link")
+        .setAddress(ConcreteInterfaceAddress.parse("5.0.0.1/31"))
+        .build();
+    _ib.setOwner(c2)
+        .setVrf(v2)
+        .setName("inactive")
+        .setActive(false)
+        .setAddress(ConcreteInterfaceAddress.parse("6.0.0.1/24"))
+        .build();
+    _ib.setActive(true);
+    v2.setStaticRoutes(ImmutableSortedSet.of(staticRoute("0.0.0.0/0", Ip.parse("1.0.0.1"))));
+
+    assertMatchesForwardingAnalysisImpl(c1, c2);
+  }
+
+  /** Proxy-ARP and additional ARP IPs change which ARPs get replies. */
+  @Test
+  public void testArpReplies() throws IOException {
+    Configuration c1 = _cb.setHostname("c1").build();
+    Vrf v1 = _nf.vrfBuilder().setOwner(c1).setName(Configuration.DEFAULT_VRF_NAME).build();
+    Interface i1 =
+        _ib.setOwner(c1)
+            .setVrf(v1)
+            .setName("i1")
+            .setAddress(ConcreteInterfaceAddress.parse("1.0.0.1/24"))
+            .build();
+    v1.setStaticRoutes(
+        ImmutableSortedSet.of(
+            staticRoute("10.0.0.0/16", i1.getName()),
+            staticRoute("20.0.0.0/16", i1.getName()),
+            staticRoute("30.0.0.0/16", Ip.parse("1.0.0.30"))));
+
+    Configuration c2 = _cb.setHostname("c2").build();
+    Vrf v2 = _nf.vrfBuilder().setOwner(c2).setName(Configuration.DEFAULT_VRF_NAME).build();
+    Interface i2 =
+        _ib.setOwner(c2)
+            .setVrf(v2)
+            .setName("i2")
+            .setAddress(ConcreteInterfaceAddress.parse("1.0.0.2/24"))
+            .setProxyArp(true)
+            .build();
+    i2.setAdditionalArpIps(
+        AclIpSpace.union(
+            Prefix.parse("10.0.0.0/24").toIpSpace(), Ip.parse("1.0.0.30").toIpSpace()));
+    _ib.setOwner(c2)
+        .setVrf(v2)
+        .setName("i3")
+        .setProxyArp(false)
+        .setAddress(ConcreteInterfaceAddress.parse("2.0.0.1/24"))
+        .build();
+    v2.setStaticRoutes(ImmutableSortedSet.of(staticRoute("20.0.0.0/24", "i3")));
+
+    assertMatchesForwardingAnalysisImpl(c1, c2);
+  }
+}
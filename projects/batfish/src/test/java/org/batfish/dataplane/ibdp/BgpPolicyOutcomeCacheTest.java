@@ -0,0 +1,345 @@
+package org.batfish.dataplane.ibdp;
+
+import static org.batfish.datamodel.matchers.AbstractRouteDecoratorMatchers.hasMetric;
+import static org.batfish.datamodel.matchers.BgpRouteMatchers.hasWeight;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.ImmutableSortedSet;
+import java.util.Set;
+import java.util.SortedMap;
+import org.batfish.common.plugin.DataPlanePlugin.ComputeDataPlaneResult;
+import org.batfish.common.topology.TopologyUtil;
+import org.batfish.datamodel.AsPath;
+import org.batfish.datamodel.BgpActivePeerConfig;
+import org.batfish.datamodel.BgpAdvertisement;
+import org.batfish.datamodel.BgpAdvertisement.BgpAdvertisementType;
+import org.batfish.datamodel.BgpProcess;
+import org.batfish.datamodel.Bgpv4Route;
+import org.batfish.datamodel.ConcreteInterfaceAddress;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.Interface;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.NetworkFactory;
+import org.batfish.datamodel.OriginType;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.RoutingProtocol;
+import org.batfish.datamodel.Topology;
+import org.batfish.datamodel.Vrf;
+import org.batfish.datamodel.answers.IncrementalBdpAnswerElement;
+import org.batfish.datamodel.bgp.Ipv4UnicastAddressFamily;
+import org.batfish.datamodel.bgp.community.StandardCommunity;
+import org.batfish.datamodel.routing_policy.Environment.Direction;
+import org.batfish.datamodel.routing_policy.RoutingPolicy;
+import org.batfish.datamodel.routing_policy.expr.ExplicitAs;
+import org.batfish.datamodel.routing_policy.expr.ExplicitAsPathSet;
+import org.batfish.datamodel.routing_policy.expr.IntComparator;
+import org.batfish.datamodel.routing_policy.expr.LiteralAsList;
+import org.batfish.datamodel.routing_policy.expr.LiteralCommunity;
+import org.batfish.datamodel.routing_policy.expr.LiteralInt;
+import org.batfish.datamodel.routing_policy.expr.LiteralLong;
+import org.batfish.datamodel.routing_policy.expr.MatchAsPath;
+import org.batfish.datamodel.routing_policy.expr.MatchCommunitySet;
+import org.batfish.datamodel.routing_policy.expr.MatchMetric;
+import org.batfish.datamodel.routing_policy.expr.MatchTag;
+import org.batfish.datamodel.routing_policy.expr.RegexAsPathSetElem;
+import org.batfish.datamodel.routing_policy.expr.UnchangedNextHop;
+import org.batfish.datamodel.routing_policy.statement.AddCommunity;
+import org.batfish.datamodel.routing_policy.statement.If;
+import org.batfish.datamodel.routing_policy.statement.PrependAsPath;
+import org.batfish.datamodel.routing_policy.statement.SetLocalPreference;
+import org.batfish.datamodel.routing_policy.statement.SetMetric;
+import org.batfish.datamodel.routing_policy.statement.SetNextHop;
+import org.batfish.datamodel.routing_policy.statement.SetTag;
+import org.batfish.datamodel.routing_policy.statement.SetWeight;
+import org.batfish.datamodel.routing_policy.statement.Statement;
+import org.batfish.datamodel.routing_policy.statement.Statements;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests of {@link BgpPolicyOutcomeCache}. */
+@RunWith(JUnit4.class)
+public class BgpPolicyOutcomeCacheTest {
+
+  private RoutingPolicy _analyzable;
+  private RoutingPolicy _unanalyzable;
+
+  @Before
+  public void setup() {
+    NetworkFactory nf = new NetworkFactory();
+    Configuration c =
+        nf.configurationBuilder().setConfigurationFormat(ConfigurationFormat.CISCO_IOS).build();
+    RoutingPolicy.Builder rpb = nf.routingPolicyBuilder().setOwner(c);
+    _analyzable =
+        rpb.setName("analyzable")
+            .setStatements(
+                ImmutableList.of(
+                    new If(
+                        new MatchMetric(IntComparator.EQ, new LiteralLong(1)),
+                        ImmutableList.of(
+                            new SetMetric(new LiteralLong(5)),
+                            new SetTag(new LiteralLong(7)),
+                            Statements.ExitAccept.toStaticStatement()),
+                        ImmutableList.of(Statements.ExitReject.toStaticStatement()))))
+            .build();
+    _unanalyzable =
+        rpb.setName("unanalyzable")
+            .setStatements(
+                ImmutableList.of(
+                    // reads intermediate attributes, which are not part of the route
+                    Statements.SetReadIntermediateBgpAttributes.toStaticStatement(),
+                    Statements.ExitAccept.toStaticStatement()))
+            .build();
+  }
+
+  private static Bgpv4Route route(int i, long metric) {
+    return Bgpv4Route.testBuilder()
+        .setNetwork(Prefix.create(Ip.create(i << 8), 24))
+        .setNextHopIp(Ip.parse("1.1.1.1"))
+        .setOriginatorIp(Ip.parse("1.1.1.1"))
+        .setOriginType(OriginType.IGP)
+        .setProtocol(RoutingProtocol.BGP)
+        .setLocalPreference(100)
+        .setMetric(metric)
+        .build();
+  }
+
+  @Test
+  public void testProcessBgpRoute() {
+    BgpPolicyOutcomeCache cache = new BgpPolicyOutcomeCache();
+    for (int i = 0; i < 10; i++) {
+      for (long metric = 0; metric < 3; metric++) {
+        Bgpv4Route route = route(i, metric);
+        Bgpv4Route.Builder expected = route.toBuilder();
+        Bgpv4Route.Builder actual = route.toBuilder();
+        boolean expectedAccepted = _analyzable.processBgpRoute(route, expected, null, Direction.IN);
+        boolean actualAccepted =
+            cache.processBgpRoute(_analyzable, route, actual, null, Direction.IN);
+        assertThat(actualAccepted, equalTo(expectedAccepted));
+        assertThat(actual.build(), equalTo(expected.build()));
+      }
+    }
+    // routes differing only in their network share an outcome
+    assertThat(cache.getMisses(), equalTo(3L));
+    assertThat(cache.getHits(), equalTo(27L));
+  }
+
+  @Test
+  public void testProcessBgpRouteUnanalyzable() {
+    BgpPolicyOutcomeCache cache = new BgpPolicyOutcomeCache();
+    for (int i = 0; i < 10; i++) {
+      Bgpv4Route route = route(i, 0);
+      Bgpv4Route.Builder output = route.toBuilder();
+      assertThat(
+          cache.processBgpRoute(_unanalyzable, route, output, null, Direction.IN), equalTo(true));
+    }
+    assertThat(cache.getMisses(), equalTo(0L));
+    assertThat(cache.getHits(), equalTo(0L));
+  }
+
+  private static final Ip EXTERNAL_IP = Ip.parse("10.0.0.2");
+  private static final Ip R1_EXTERNAL_IP = Ip.parse("10.0.0.1");
+  private static final Ip R1_R2_IP = Ip.parse("10.12.0.1");
+  private static final Ip R2_R1_IP = Ip.parse("10.12.0.2");
+  private static final StandardCommunity PREFERRED = StandardCommunity.of(100, 1);
+
+  /*
+   * external (AS 100) -> r1 (AS 1) -> r2 (AS 2)
+   *
+   * r1 tags the external routes by their communities and AS paths on import, and sets communities
+   * and prepends its AS by tag on export. r2 matches those communities and AS paths on import and
+   * keeps the next hop.
+   */
+  private static SortedMap<String, Configuration> policyNetwork() {
+    NetworkFactory nf = new NetworkFactory();
+    Configuration.Builder cb =
+        nf.configurationBuilder().setConfigurationFormat(ConfigurationFormat.CISCO_IOS);
+    Vrf.Builder vb = nf.vrfBuilder().setName(Configuration.DEFAULT_VRF_NAME);
+    Interface.Builder ib = nf.interfaceBuilder();
+    BgpProcess.Builder pb =
+        nf.bgpProcessBuilder().setAdminCostsToVendorDefaults(ConfigurationFormat.CISCO_IOS);
+    BgpActivePeerConfig.Builder nb = nf.bgpNeighborBuilder();
+    RoutingPolicy.Builder rpb = nf.routingPolicyBuilder();
+    Statement accept = Statements.ExitAccept.toStaticStatement();
+
+    Configuration r1 = cb.setHostname("r1").build();
+    Vrf v1 = vb.setOwner(r1).build();
+    ib.setOwner(r1).setVrf(v1);
+    ib.setAddress(ConcreteInterfaceAddress.create(R1_EXTERNAL_IP, 24)).build();
+    ib.setAddress(ConcreteInterfaceAddress.create(R1_R2_IP, 24)).build();
+    RoutingPolicy r1Import =
+        rpb.setOwner(r1)
+            .setName("r1-import")
+            .setStatements(
+                ImmutableList.of(
+                    new If(
+                        new MatchCommunitySet(new LiteralCommunity(PREFERRED)),
+                        ImmutableList.of(
+                            new SetLocalPreference(new LiteralLong(200)),
+                            new SetTag(new LiteralLong(10)),
+                            accept)),
+                    new If(
+                        new MatchAsPath(
+                            new ExplicitAsPathSet(new RegexAsPathSetElem("^ 100 200$"))),
+                        ImmutableList.of(new SetTag(new LiteralLong(20)), accept)),
+                    accept))
+            .build();
+    RoutingPolicy r1Export =
+        rpb.setName("r1-export")
+            .setStatements(
+                ImmutableList.of(
+                    new If(
+                        new MatchTag(IntComparator.EQ, new LiteralLong(10)),
+                        ImmutableList.of(
+                            new AddCommunity(new LiteralCommunity(StandardCommunity.of(1, 10))),
+                            accept)),
+                    new If(
+                        new MatchTag(IntComparator.EQ, new LiteralLong(20)),
+                        ImmutableList.of(
+                            new PrependAsPath(
+                                new LiteralAsList(ImmutableList.of(new ExplicitAs(1L)))),
+                            accept)),
+                    accept))
+            .build();
+    RoutingPolicy r1Reject =
+        rpb.setName("reject")
+            .setStatements(ImmutableList.of(Statements.ExitReject.toStaticStatement()))
+            .build();
+    BgpProcess p1 = pb.setRouterId(R1_R2_IP).setVrf(v1).build();
+    nb.setBgpProcess(p1)
+        .setLocalAs(1L)
+        .setLocalIp(R1_EXTERNAL_IP)
+        .setPeerAddress(EXTERNAL_IP)
+        .setRemoteAs(100L)
+        .setIpv4UnicastAddressFamily(
+            Ipv4UnicastAddressFamily.builder()
+                .setImportPolicy(r1Import.getName())
+                .setExportPolicy(r1Reject.getName())
+                .build())
+        .build();
+    nb.setLocalIp(R1_R2_IP)
+        .setPeerAddress(R2_R1_IP)
+        .setRemoteAs(2L)
+        .setIpv4UnicastAddressFamily(
+            Ipv4UnicastAddressFamily.builder().setExportPolicy(r1Export.getName()).build())
+        .build();
+
+    Configuration r2 = cb.setHostname("r2").build();
+    Vrf v2 = vb.setOwner(r2).build();
+    ib.setOwner(r2).setVrf(v2);
+    ib.setAddress(ConcreteInterfaceAddress.create(R2_R1_IP, 24)).build();
+    RoutingPolicy r2Import =
+        rpb.setOwner(r2)
+            .setName("r2-import")
+            .setStatements(
+                ImmutableList.of(
+                    new SetNextHop(UnchangedNextHop.getInstance()),
+                    new If(
+                        new MatchCommunitySet(new LiteralCommunity(StandardCommunity.of(1, 10))),
+                        ImmutableList.of(new SetMetric(new LiteralLong(10)), accept)),
+                    new If(
+                        new MatchAsPath(new ExplicitAsPathSet(new RegexAsPathSetElem("^ 1 1 "))),
+                        ImmutableList.of(new SetWeight(new LiteralInt(5)), accept)),
+                    accept))
+            .build();
+    RoutingPolicy r2Reject =
+        rpb.setName("reject")
+            .setStatements(ImmutableList.of(Statements.ExitReject.toStaticStatement()))
+            .build();
+    BgpProcess p2 = pb.setRouterId(R2_R1_IP).setVrf(v2).build();
+    nb.setBgpProcess(p2)
+        .setLocalAs(2L)
+        .setLocalIp(R2_R1_IP)
+        .setPeerAddress(R1_R2_IP)
+        .setRemoteAs(1L)
+        .setIpv4UnicastAddressFamily(
+            Ipv4UnicastAddressFamily.builder()
+                .setImportPolicy(r2Import.getName())
+                .setExportPolicy(r2Reject.getName())
+                .build())
+        .build();
+
+    return ImmutableSortedMap.of(r1.getHostname(), r1, r2.getHostname(), r2);
+  }
+
+  /** Routes advertised to r1 by its external peer, with a mix of communities and AS paths. */
+  private static Set<BgpAdvertisement> externalAdvertisements() {
+    BgpAdvertisement.Builder ab =
+        new BgpAdvertisement.Builder()
+            .setClusterList(ImmutableSortedSet.of())
+            .setDstIp(R1_EXTERNAL_IP)
+            .setDstNode("r1")
+            .setDstVrf(Configuration.DEFAULT_VRF_NAME)
+            .setNextHopIp(EXTERNAL_IP)
+            .setOriginatorIp(EXTERNAL_IP)
+            .setOriginType(OriginType.IGP)
+            .setSrcIp(EXTERNAL_IP)
+            .setSrcNode("external")
+            .setSrcProtocol(RoutingProtocol.BGP)
+            .setSrcVrf(Configuration.DEFAULT_VRF_NAME)
+            .setType(BgpAdvertisementType.EBGP_SENT);
+    ImmutableSet.Builder<BgpAdvertisement> advertisements = ImmutableSet.builder();
+    for (int i = 0; i < 30; i++) {
+      advertisements.add(
+          ab.setNetwork(Prefix.create(Ip.create((100 << 24) + (i << 8)), 24))
+              .setAsPath(
+                  i % 3 == 0
+                      ? AsPath.ofSingletonAsSets(100L, 200L)
+                      : AsPath.ofSingletonAsSets(100L))
+              .setCommunities(
+                  i % 2 == 0 ? ImmutableSortedSet.of(PREFERRED) : ImmutableSortedSet.of())
+              .build());
+    }
+    return advertisements.build();
+  }
+
+  private static ComputeDataPlaneResult computeDataPlane(boolean bgpPolicyOutcomeCache) {
+    SortedMap<String, Configuration> configurations = policyNetwork();
+    IncrementalDataPlaneSettings settings = new IncrementalDataPlaneSettings();
+    settings.setBgpPolicyOutcomeCache(bgpPolicyOutcomeCache);
+    Topology topology = TopologyUtil.synthesizeL3Topology(configurations);
+    return new IncrementalBdpEngine(settings)
+        .computeDataPlane(
+            configurations,
+            TopologyContext.builder().setLayer3Topology(topology).build(),
+            externalAdvertisements());
+  }
+
+  @Test
+  public void testDataPlaneMatchesUncached() {
+    ComputeDataPlaneResult cached = computeDataPlane(true);
+    ComputeDataPlaneResult uncached = computeDataPlane(false);
+
+    IncrementalDataPlane cachedDp = (IncrementalDataPlane) cached._dataPlane;
+    IncrementalDataPlane uncachedDp = (IncrementalDataPlane) uncached._dataPlane;
+    assertThat(
+        IncrementalBdpEngine.getRoutes(cachedDp),
+        equalTo(IncrementalBdpEngine.getRoutes(uncachedDp)));
+    assertThat(cachedDp.getBgpRoutes(), equalTo(uncachedDp.getBgpRoutes()));
+    // r2 receives all external routes, and the policies take each of their branches
+    Set<Bgpv4Route> r2Routes =
+        cachedDp.getBgpRoutes().get("r2", Configuration.DEFAULT_VRF_NAME).stream()
+            .filter(r -> r.getAsPath().getAsSets().size() > 1)
+            .collect(ImmutableSet.toImmutableSet());
+    assertThat(r2Routes, hasSize(30));
+    assertThat(r2Routes, hasItem(allOf(hasMetric(10L), hasWeight(0))));
+    assertThat(r2Routes, hasItem(allOf(hasMetric(0L), hasWeight(5))));
+    assertThat(r2Routes, hasItem(allOf(hasMetric(0L), hasWeight(0))));
+
+    IncrementalBdpAnswerElement cachedAe = (IncrementalBdpAnswerElement) cached._answerElement;
+    IncrementalBdpAnswerElement uncachedAe = (IncrementalBdpAnswerElement) uncached._answerElement;
+    assertThat(cachedAe.getPolicyOutcomeCacheHits(), greaterThan(0L));
+    assertThat(uncachedAe.getPolicyOutcomeCacheHits(), equalTo(0L));
+    assertThat(uncachedAe.getPolicyOutcomeCacheMisses(), equalTo(0L));
+  }
+}
@@ -27,6 +27,7 @@ import com.google.common.collect.Iterables;
 import com.google.common.graph.EndpointPair;
 import com.google.common.graph.ValueGraph;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -40,6 +41,9 @@ import org.apache.commons.lang3.SerializationUtils;
 import org.batfish.common.NetworkSnapshot;
 import org.batfish.common.plugin.DataPlanePlugin;
 import org.batfish.common.plugin.DataPlanePlugin.ComputeDataPlaneResult;
+import org.batfish.common.plugin.TracerouteEngine;
+import org.batfish.common.topology.IpOwners;
+import org.batfish.common.traceroute.TraceDag;
 import org.batfish.datamodel.AbstractRoute;
 import org.batfish.datamodel.AnnotatedRoute;
 import org.batfish.datamodel.BgpActivePeerConfig;
@@ -51,6 +55,7 @@ import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.ConfigurationFormat;
 import org.batfish.datamodel.DataPlane;
 import org.batfish.datamodel.ExprAclLine;
+import org.batfish.datamodel.Flow;
 import org.batfish.datamodel.FlowDisposition;
 import org.batfish.datamodel.GeneratedRoute;
 import org.batfish.datamodel.GeneratedRoute.Builder;
@@ -69,9 +74,12 @@ import org.batfish.datamodel.Topology;
 import org.batfish.datamodel.UniverseIpSpace;
 import org.batfish.datamodel.Vrf;
 import org.batfish.datamodel.acl.AclLineMatchExprs;
+import org.batfish.datamodel.bgp.BgpTopology;
 import org.batfish.datamodel.bgp.BgpTopologyUtils;
 import org.batfish.datamodel.bgp.BgpTopologyUtils.BgpSessionInitiationResult;
 import org.batfish.datamodel.bgp.Ipv4UnicastAddressFamily;
+import org.batfish.datamodel.flow.FirewallSessionTraceInfo;
+import org.batfish.datamodel.flow.TraceAndReverseFlow;
 import org.batfish.datamodel.isis.IsisInterfaceLevelSettings;
 import org.batfish.datamodel.isis.IsisInterfaceMode;
 import org.batfish.datamodel.isis.IsisInterfaceSettings;
@@ -701,6 +709,80 @@ public class IncrementalDataPlanePluginTest {
    * @return {@link SortedMap} of generated configuration names and corresponding {@link
    *     Configuration}s
    */
+  private static void addBgpNeighbor(
+      Configuration c, long localAs, long remoteAs, Ip localIp, Ip peerIp) {
+    Vrf vrf = Iterables.getOnlyElement(c.getVrfs().values());
+    BgpProcess proc = vrf.getBgpProcess();
+    if (proc == null) {
+      proc =
+          BgpProcess.builder()
+              .setRouterId(localIp)
+              .setAdminCostsToVendorDefaults(ConfigurationFormat.CISCO_IOS)
+              .build();
+      vrf.setBgpProcess(proc);
+    }
+    BgpActivePeerConfig.builder()
+        .setBgpProcess(proc)
+        .setLocalIp(localIp)
+        .setPeerAddress(peerIp)
+        .setEbgpMultihop(false)
+        .setLocalAs(localAs)
+        .setRemoteAs(remoteAs)
+        .setIpv4UnicastAddressFamily(Ipv4UnicastAddressFamily.builder().build())
+        .build();
+  }
+
+  @Test
+  public void testInitBgpTopologyBatchesReachabilityChecks() throws IOException {
+    SortedMap<String, Configuration> configs = generateNetworkWithThreeHops(false, false);
+
+    Batfish batfish = BatfishTestUtils.getBatfish(configs, _folder);
+    batfish.getSettings().setDataplaneEngineName(IncrementalDataPlanePlugin.PLUGIN_NAME);
+    DataPlanePlugin dataPlanePlugin = batfish.getDataPlanePlugin();
+    ComputeDataPlaneResult result = dataPlanePlugin.computeDataPlane(batfish.getSnapshot());
+    TracerouteEngine engine =
+        new TracerouteEngineImpl(
+            result._dataPlane, result._topologies.getLayer3Topology(), configs);
+
+    // node1 and node2 are one hop apart, node1 and node3 are two hops apart
+    Ip ip1 = Ip.parse("1.0.0.0");
+    Ip ip2 = Ip.parse("1.0.0.1");
+    Ip ip3 = Ip.parse("1.0.0.3");
+    addBgpNeighbor(configs.get("node1"), 1L, 2L, ip1, ip2);
+    addBgpNeighbor(configs.get("node1"), 1L, 3L, ip1, ip3);
+    addBgpNeighbor(configs.get("node2"), 2L, 1L, ip2, ip1);
+    addBgpNeighbor(configs.get("node3"), 3L, 1L, ip3, ip1);
+
+    List<Set<Flow>> tracedFlows = new ArrayList<>();
+    TracerouteEngine countingEngine =
+        new TracerouteEngine() {
+          @Override
+          public SortedMap<Flow, List<TraceAndReverseFlow>> computeTracesAndReverseFlows(
+              Set<Flow> flows, Set<FirewallSessionTraceInfo> sessions, boolean ignoreFilters) {
+            tracedFlows.add(flows);
+            return engine.computeTracesAndReverseFlows(flows, sessions, ignoreFilters);
+          }
+
+          @Override
+          public Map<Flow, TraceDag> computeTraceDags(
+              Set<Flow> flows, Set<FirewallSessionTraceInfo> sessions, boolean ignoreFilters) {
+            return engine.computeTraceDags(flows, sessions, ignoreFilters);
+          }
+        };
+    BgpTopology bgpTopology =
+        BgpTopologyUtils.initBgpTopology(
+            configs, new IpOwners(configs).getIpVrfOwners(), false, true, countingEngine, null);
+
+    // only the single-hop eBGP session between node1 and node2 comes up
+    assertThat(
+        bgpTopology.getGraph().edges().stream()
+            .map(edge -> edge.source().getHostname() + "->" + edge.target().getHostname())
+            .collect(ImmutableSet.toImmutableSet()),
+        equalTo(ImmutableSet.of("node1->node2", "node2->node1")));
+    // all forward flows are traced together, then all reverse flows are traced together
+    assertThat(tracedFlows, hasSize(2));
+    assertThat(tracedFlows.get(0), hasSize(4));
+  }
 
   /* +-----------+                       +-------------+                   +--------------+
      |           |1.0.0.0/31             |             |                   |              |
@@ -290,11 +290,13 @@ public class OspfRoutingProcessTest {
             .setNetwork(ACTIVE_ADDR_1.getPrefix())
             .setArea(1L);
 
-    applyDistributeList(c, vrf.getName(), i1.getName(), allowedRouteBuilder);
+    applyDistributeList(
+        c, RoutingPolicies.from(c), vrf.getName(), i1.getName(), allowedRouteBuilder);
 
     assertFalse(allowedRouteBuilder.getNonRouting());
 
-    applyDistributeList(c, vrf.getName(), i1.getName(), deniedRouteBuilder);
+    applyDistributeList(
+        c, RoutingPolicies.from(c), vrf.getName(), i1.getName(), deniedRouteBuilder);
 
     assertTrue(deniedRouteBuilder.getNonRouting());
   }
@@ -7,12 +7,17 @@ import static org.batfish.datamodel.RoutingProtocol.OSPF_IA;
 import static org.batfish.datamodel.ospf.OspfTopologyUtils.computeOspfTopology;
 import static org.batfish.dataplane.ibdp.TestUtils.assertNoRoute;
 import static org.batfish.dataplane.ibdp.TestUtils.assertRoute;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
 import org.batfish.common.topology.TopologyUtil;
@@ -149,6 +154,34 @@ public class OspfTest {
       Long maxMetricStubNetworks,
       Long maxMetricSummaryNetworks,
       Long maxMetricTransitLinks) {
+    return computeRoutes(
+        ospfNetwork(
+            areaA,
+            areaB,
+            areaC,
+            areaD,
+            areaE,
+            areaF,
+            areaG,
+            maxMetricExternalNetworks,
+            maxMetricStubNetworks,
+            maxMetricSummaryNetworks,
+            maxMetricTransitLinks),
+        new IncrementalDataPlaneSettings());
+  }
+
+  private static SortedMap<String, Configuration> ospfNetwork(
+      long areaA,
+      long areaB,
+      long areaC,
+      long areaD,
+      long areaE,
+      long areaF,
+      long areaG,
+      Long maxMetricExternalNetworks,
+      Long maxMetricStubNetworks,
+      Long maxMetricSummaryNetworks,
+      Long maxMetricTransitLinks) {
 
     String l0Name = "Loopback0";
     String l1Name = "Loopback1";
@@ -344,22 +377,7 @@ public class OspfTest {
             .put(c3.getHostname(), c3)
             .put(c4.getHostname(), c4)
             .build();
-    IncrementalBdpEngine engine = new IncrementalBdpEngine(new IncrementalDataPlaneSettings());
-    OspfTopologyUtils.initNeighborConfigs(NetworkConfigurations.of(configurations));
-    Topology topology = TopologyUtil.synthesizeL3Topology(configurations);
-    IncrementalDataPlane dp =
-        (IncrementalDataPlane)
-            engine.computeDataPlane(
-                    configurations,
-                    TopologyContext.builder()
-                        .setLayer3Topology(topology)
-                        .setOspfTopology(
-                            computeOspfTopology(NetworkConfigurations.of(configurations), topology))
-                        .build(),
-                    Collections.emptySet())
-                ._dataPlane;
-
-    return IncrementalBdpEngine.getRoutes(dp);
+    return configurations;
   }
 
   /**
@@ -377,6 +395,13 @@ public class OspfTest {
    */
   private static SortedMap<String, SortedMap<String, Set<AbstractRoute>>> getOspfStubBehavior(
       boolean noSummaryStub1, boolean noSummaryNssa2, OspfDefaultOriginateType nssaDefaultType) {
+    return computeRoutes(
+        ospfStubBehaviorNetwork(noSummaryStub1, noSummaryNssa2, nssaDefaultType),
+        new IncrementalDataPlaneSettings());
+  }
+
+  private static SortedMap<String, Configuration> ospfStubBehaviorNetwork(
+      boolean noSummaryStub1, boolean noSummaryNssa2, OspfDefaultOriginateType nssaDefaultType) {
     String r0Name = "r0";
     String r1Name = "r1";
     String r2Name = "r2";
@@ -581,7 +606,12 @@ public class OspfTest {
             .put(r5.getHostname(), r5)
             .put(r6.getHostname(), r6)
             .build();
-    IncrementalBdpEngine engine = new IncrementalBdpEngine(new IncrementalDataPlaneSettings());
+    return configurations;
+  }
+
+  private static SortedMap<String, SortedMap<String, Set<AbstractRoute>>> computeRoutes(
+      SortedMap<String, Configuration> configurations, IncrementalDataPlaneSettings settings) {
+    IncrementalBdpEngine engine = new IncrementalBdpEngine(settings);
     OspfTopologyUtils.initNeighborConfigs(NetworkConfigurations.of(configurations));
     Topology topology = TopologyUtil.synthesizeL3Topology(configurations);
     IncrementalDataPlane dp =
@@ -599,6 +629,265 @@ public class OspfTest {
     return IncrementalBdpEngine.getRoutes(dp);
   }
 
+  /** Computes routes with OSPF intra-area routes computed by SPF instead of message passing */
+  private static SortedMap<String, SortedMap<String, Set<AbstractRoute>>> computeRoutesWithSpf(
+      SortedMap<String, Configuration> configurations) {
+    IncrementalDataPlaneSettings settings = new IncrementalDataPlaneSettings();
+    settings.setOspfSpf(true);
+    return computeRoutes(configurations, settings);
+  }
+
+  /**
+   * Computes OSPF intra-area routes of the network with {@link OspfIntraAreaSpf} alone.
+   *
+   * @return the areas whose intra-area routes were computed by SPF
+   */
+  private static Set<Long> computeSpfAreas(SortedMap<String, Configuration> configurations) {
+    OspfTopologyUtils.initNeighborConfigs(NetworkConfigurations.of(configurations));
+    Topology topology = TopologyUtil.synthesizeL3Topology(configurations);
+    TopologyContext topologyContext =
+        TopologyContext.builder()
+            .setLayer3Topology(topology)
+            .setOspfTopology(
+                computeOspfTopology(NetworkConfigurations.of(configurations), topology))
+            .build();
+    Map<String, Node> nodes =
+        configurations.values().stream()
+            .collect(ImmutableMap.toImmutableMap(Configuration::getHostname, Node::new));
+    nodes.values().stream()
+        .flatMap(n -> n.getVirtualRouters().stream())
+        .forEach(vr -> vr.initForIgpComputation(topologyContext));
+    return OspfIntraAreaSpf.computeIntraAreaRoutes(nodes, topologyContext.getOspfTopology());
+  }
+
+  private static final Prefix DIAMOND_R1_LOOPBACK = Prefix.parse("1.1.1.1/32");
+  private static final Prefix DIAMOND_ANYCAST = Prefix.parse("9.9.9.9/32");
+
+  /*
+   *        r2
+   *      /    \
+   *    r1      r4
+   *      \    /
+   *        r3
+   *
+   * All links are in area 0 and have cost 1, so r1 and r4 have two equal-cost paths to each other.
+   * r1 originates its loopback, and r2 and r3 both originate the anycast prefix DIAMOND_ANYCAST,
+   * r2 in area 0 and r3 in area anycastAreaR3.
+   */
+  private static SortedMap<String, Configuration> ospfDiamondNetwork(long anycastAreaR3) {
+    NetworkFactory nf = new NetworkFactory();
+    Configuration.Builder cb =
+        nf.configurationBuilder().setConfigurationFormat(ConfigurationFormat.CISCO_IOS);
+    Vrf.Builder vb = nf.vrfBuilder().setName(Configuration.DEFAULT_VRF_NAME);
+    OspfProcess.Builder opb = nf.ospfProcessBuilder().setProcessId("1");
+    OspfArea.Builder oab = nf.ospfAreaBuilder();
+    Interface.Builder ib = nf.interfaceBuilder();
+
+    Configuration r1 = cb.setHostname("r1").build();
+    Vrf v1 = vb.setOwner(r1).build();
+    ib.setOwner(r1).setVrf(v1);
+    OspfArea r1Area0 =
+        oab.setNumber(0L)
+            .setOspfProcess(opb.setVrf(v1).setRouterId(Ip.parse("1.1.1.1")).build())
+            .build();
+    addOspfInterface(ib, r1Area0, "Loopback0", "1.1.1.1/32", true);
+    addOspfInterface(ib, r1Area0, "Ethernet1/2", "10.12.0.1/24", false);
+    addOspfInterface(ib, r1Area0, "Ethernet1/3", "10.13.0.1/24", false);
+
+    Configuration r2 = cb.setHostname("r2").build();
+    Vrf v2 = vb.setOwner(r2).build();
+    ib.setOwner(r2).setVrf(v2);
+    OspfArea r2Area0 =
+        oab.setNumber(0L)
+            .setOspfProcess(opb.setVrf(v2).setRouterId(Ip.parse("2.2.2.2")).build())
+            .build();
+    addOspfInterface(ib, r2Area0, "Anycast", "9.9.9.9/32", true);
+    addOspfInterface(ib, r2Area0, "Ethernet2/1", "10.12.0.2/24", false);
+    addOspfInterface(ib, r2Area0, "Ethernet2/4", "10.24.0.2/24", false);
+
+    Configuration r3 = cb.setHostname("r3").build();
+    Vrf v3 = vb.setOwner(r3).build();
+    ib.setOwner(r3).setVrf(v3);
+    OspfProcess r3Process = opb.setVrf(v3).setRouterId(Ip.parse("3.3.3.3")).build();
+    OspfArea r3Area0 = oab.setNumber(0L).setOspfProcess(r3Process).build();
+    OspfArea r3AnycastArea =
+        anycastAreaR3 == 0L
+            ? r3Area0
+            : oab.setNumber(anycastAreaR3).setOspfProcess(r3Process).build();
+    addOspfInterface(ib, r3AnycastArea, "Anycast", "9.9.9.9/32", true);
+    addOspfInterface(ib, r3Area0, "Ethernet3/1", "10.13.0.3/24", false);
+    addOspfInterface(ib, r3Area0, "Ethernet3/4", "10.34.0.3/24", false);
+
+    Configuration r4 = cb.setHostname("r4").build();
+    Vrf v4 = vb.setOwner(r4).build();
+    ib.setOwner(r4).setVrf(v4);
+    OspfArea r4Area0 =
+        oab.setNumber(0L)
+            .setOspfProcess(opb.setVrf(v4).setRouterId(Ip.parse("4.4.4.4")).build())
+            .build();
+    addOspfInterface(ib, r4Area0, "Ethernet4/2", "10.24.0.4/24", false);
+    addOspfInterface(ib, r4Area0, "Ethernet4/3", "10.34.0.4/24", false);
+
+    return ImmutableSortedMap.of("r1", r1, "r2", r2, "r3", r3, "r4", r4);
+  }
+
+  private static void addOspfInterface(
+      Interface.Builder ib, OspfArea area, String name, String address, boolean passive) {
+    ib.setName(name)
+        .setAddress(ConcreteInterfaceAddress.parse(address))
+        .setOspfSettings(
+            baseOspfSettings().setAreaName(area.getAreaNumber()).setPassive(passive).build())
+        .build();
+    area.addInterface(name);
+  }
+
+  /** Returns the next hops of the OSPF intra-area routes to {@code prefix} on {@code hostname} */
+  private static Set<Ip> ospfNextHops(
+      SortedMap<String, SortedMap<String, Set<AbstractRoute>>> routesByNode,
+      String hostname,
+      Prefix prefix) {
+    return routesByNode.get(hostname).get(Configuration.DEFAULT_VRF_NAME).stream()
+        .filter(r -> r.getProtocol() == OSPF && r.getNetwork().equals(prefix))
+        .map(AbstractRoute::getNextHopIp)
+        .collect(ImmutableSet.toImmutableSet());
+  }
+
+  @Test
+  public void testOspfSpfSingleArea() {
+    assertThat(
+        computeSpfAreas(
+            ospfNetwork(
+                0L,
+                0L,
+                0L,
+                0L,
+                0L,
+                0L,
+                0L,
+                MAX_METRIC_EXTERNAL_NETWORKS,
+                MAX_METRIC_STUB_NETWORKS,
+                null,
+                MAX_METRIC_TRANSIT_LINKS)),
+        equalTo(ImmutableSet.of(0L)));
+    assertThat(
+        computeRoutesWithSpf(
+            ospfNetwork(
+                0L,
+                0L,
+                0L,
+                0L,
+                0L,
+                0L,
+                0L,
+                MAX_METRIC_EXTERNAL_NETWORKS,
+                MAX_METRIC_STUB_NETWORKS,
+                null,
+                MAX_METRIC_TRANSIT_LINKS)),
+        equalTo(
+            getOspfRoutes(
+                0L,
+                0L,
+                0L,
+                0L,
+                0L,
+                0L,
+                0L,
+                MAX_METRIC_EXTERNAL_NETWORKS,
+                MAX_METRIC_STUB_NETWORKS,
+                null,
+                MAX_METRIC_TRANSIT_LINKS)));
+  }
+
+  @Test
+  public void testOspfSpfMultiArea() {
+    assertThat(
+        computeSpfAreas(
+            ospfNetwork(
+                1L,
+                1L,
+                0L,
+                0L,
+                0L,
+                2L,
+                2L,
+                MAX_METRIC_EXTERNAL_NETWORKS,
+                MAX_METRIC_STUB_NETWORKS,
+                MAX_METRIC_SUMMARY_NETWORKS,
+                MAX_METRIC_TRANSIT_LINKS)),
+        equalTo(ImmutableSet.of(0L, 1L, 2L)));
+    assertThat(
+        computeRoutesWithSpf(
+            ospfNetwork(
+                1L,
+                1L,
+                0L,
+                0L,
+                0L,
+                2L,
+                2L,
+                MAX_METRIC_EXTERNAL_NETWORKS,
+                MAX_METRIC_STUB_NETWORKS,
+                MAX_METRIC_SUMMARY_NETWORKS,
+                MAX_METRIC_TRANSIT_LINKS)),
+        equalTo(
+            getOspfRoutes(
+                1L,
+                1L,
+                0L,
+                0L,
+                0L,
+                2L,
+                2L,
+                MAX_METRIC_EXTERNAL_NETWORKS,
+                MAX_METRIC_STUB_NETWORKS,
+                MAX_METRIC_SUMMARY_NETWORKS,
+                MAX_METRIC_TRANSIT_LINKS)));
+    for (OspfDefaultOriginateType nssaDefaultType : OspfDefaultOriginateType.values()) {
+      assertThat(
+          computeSpfAreas(ospfStubBehaviorNetwork(true, false, nssaDefaultType)),
+          equalTo(ImmutableSet.of(0L, 1L, 2L, 3L)));
+      assertThat(
+          computeSpfAreas(ospfStubBehaviorNetwork(false, true, nssaDefaultType)),
+          equalTo(ImmutableSet.of(0L, 1L, 2L, 3L)));
+      assertThat(
+          computeRoutesWithSpf(ospfStubBehaviorNetwork(true, false, nssaDefaultType)),
+          equalTo(getOspfStubBehavior(true, false, nssaDefaultType)));
+      assertThat(
+          computeRoutesWithSpf(ospfStubBehaviorNetwork(false, true, nssaDefaultType)),
+          equalTo(getOspfStubBehavior(false, true, nssaDefaultType)));
+    }
+  }
+
+  @Test
+  public void testOspfSpfEcmpAndMultipleOriginators() {
+    assertThat(computeSpfAreas(ospfDiamondNetwork(0L)), equalTo(ImmutableSet.of(0L)));
+    SortedMap<String, SortedMap<String, Set<AbstractRoute>>> routes =
+        computeRoutesWithSpf(ospfDiamondNetwork(0L));
+    assertThat(
+        routes, equalTo(computeRoutes(ospfDiamondNetwork(0L), new IncrementalDataPlaneSettings())));
+
+    // r4 reaches r1 over both of its equal-cost paths
+    assertThat(
+        ospfNextHops(routes, "r4", DIAMOND_R1_LOOPBACK),
+        equalTo(ImmutableSet.of(Ip.parse("10.24.0.2"), Ip.parse("10.34.0.3"))));
+    // r1 and r4 reach the anycast prefix through both of its originators
+    assertThat(
+        ospfNextHops(routes, "r1", DIAMOND_ANYCAST),
+        equalTo(ImmutableSet.of(Ip.parse("10.12.0.2"), Ip.parse("10.13.0.3"))));
+    assertThat(
+        ospfNextHops(routes, "r4", DIAMOND_ANYCAST),
+        equalTo(ImmutableSet.of(Ip.parse("10.24.0.2"), Ip.parse("10.34.0.3"))));
+  }
+
+  @Test
+  public void testOspfSpfPrefixOriginatedInSeveralAreas() {
+    // the anycast prefix is originated in areas 0 and 1, so area 0 falls back to message passing
+    assertThat(computeSpfAreas(ospfDiamondNetwork(1L)), equalTo(ImmutableSet.of()));
+    assertThat(
+        computeRoutesWithSpf(ospfDiamondNetwork(1L)),
+        equalTo(computeRoutes(ospfDiamondNetwork(1L), new IncrementalDataPlaneSettings())));
+  }
+
   @Test
   public void testOspfArea0MaxMetricTransit() {
     SortedMap<String, SortedMap<String, Set<AbstractRoute>>> routesByNode =
@@ -13,6 +13,7 @@ import static org.junit.Assert.assertTrue;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.testing.EqualsTester;
+import java.util.Arrays;
 import org.batfish.common.traceroute.TraceDag;
 import org.batfish.datamodel.Flow;
 import org.batfish.datamodel.FlowDisposition;
@@ -57,6 +58,10 @@ public class DagTraceRecorderTest {
     return HopInfo.loopHop(HopTestUtils.loopHop(node), flow, breadcrumb(node, flow), null);
   }
 
+  private static TracePath<HopInfo> path(HopInfo... hops) {
+    return TracePath.of(Arrays.asList(hops));
+  }
+
   /**
    * Test that a node on a looping path are not reused for paths that do not include the breadcrumb
    * required for detecting the loop.
@@ -72,8 +77,8 @@ public class DagTraceRecorderTest {
     HopInfo hopALoop = loopHop("A");
     HopInfo hopC = forwardedHop("C");
     DagTraceRecorder recorder = new DagTraceRecorder(TEST_FLOW);
-    assertTrue(recorder.tryRecordPartialTrace(ImmutableList.of(hopA, hopB, hopALoop)));
-    assertFalse(recorder.tryRecordPartialTrace(ImmutableList.of(hopC, hopB)));
+    assertTrue(recorder.tryRecordPartialTrace(path(hopA, hopB, hopALoop)));
+    assertFalse(recorder.tryRecordPartialTrace(path(hopC, hopB)));
   }
 
   /**
@@ -92,8 +97,8 @@ public class DagTraceRecorderTest {
     HopInfo hopC = forwardedHop("C");
     HopInfo hopD = acceptedHop("D");
     DagTraceRecorder recorder = new DagTraceRecorder(flow);
-    assertTrue(recorder.tryRecordPartialTrace(ImmutableList.of(hopA, hopB, hopC, hopD)));
-    assertFalse(recorder.tryRecordPartialTrace(ImmutableList.of(hopC, hopB)));
+    assertTrue(recorder.tryRecordPartialTrace(path(hopA, hopB, hopC, hopD)));
+    assertFalse(recorder.tryRecordPartialTrace(path(hopC, hopB)));
   }
 
   /**
@@ -112,8 +117,8 @@ public class DagTraceRecorderTest {
     HopInfo hopD = forwardedHop("D");
     HopInfo hopBTransformed = forwardedHop("B", transformedFlow);
     DagTraceRecorder recorder = new DagTraceRecorder(TEST_FLOW);
-    assertTrue(recorder.tryRecordPartialTrace(ImmutableList.of(hopA, hopB, hopC)));
-    assertFalse(recorder.tryRecordPartialTrace(ImmutableList.of(hopD, hopBTransformed)));
+    assertTrue(recorder.tryRecordPartialTrace(path(hopA, hopB, hopC)));
+    assertFalse(recorder.tryRecordPartialTrace(path(hopD, hopBTransformed)));
   }
 
   @Test
@@ -123,8 +128,8 @@ public class DagTraceRecorderTest {
     HopInfo hopC = acceptedHop("C");
     HopInfo hopD = forwardedHop("D");
     DagTraceRecorder recorder = new DagTraceRecorder(TEST_FLOW);
-    assertTrue(recorder.tryRecordPartialTrace(ImmutableList.of(hopA, hopB, hopC)));
-    assertTrue(recorder.tryRecordPartialTrace(ImmutableList.of(hopD, hopB)));
+    assertTrue(recorder.tryRecordPartialTrace(path(hopA, hopB, hopC)));
+    assertTrue(recorder.tryRecordPartialTrace(path(hopD, hopB)));
   }
 
   /**
@@ -139,12 +144,12 @@ public class DagTraceRecorderTest {
     HopInfo hopC2 = acceptedHop("C2");
     DagTraceRecorder recorder = new DagTraceRecorder(TEST_FLOW);
     // simulating the sequence of calls FlowTracer will make
-    assertFalse(recorder.tryRecordPartialTrace(ImmutableList.of(hopA1)));
-    assertFalse(recorder.tryRecordPartialTrace(ImmutableList.of(hopA1, hopB)));
-    recorder.recordTrace(ImmutableList.of(hopA1, hopB, hopC1));
-    recorder.recordTrace(ImmutableList.of(hopA1, hopB, hopC2));
-    assertFalse(recorder.tryRecordPartialTrace(ImmutableList.of(hopA2)));
-    assertTrue(recorder.tryRecordPartialTrace(ImmutableList.of(hopA2, hopB)));
+    assertFalse(recorder.tryRecordPartialTrace(path(hopA1)));
+    assertFalse(recorder.tryRecordPartialTrace(path(hopA1, hopB)));
+    recorder.recordTrace(path(hopA1, hopB, hopC1));
+    recorder.recordTrace(path(hopA1, hopB, hopC2));
+    assertFalse(recorder.tryRecordPartialTrace(path(hopA2)));
+    assertTrue(recorder.tryRecordPartialTrace(path(hopA2, hopB)));
     TraceDag dag = recorder.build();
     assertEquals(5, dag.countNodes());
     assertEquals(4, dag.countEdges());
@@ -181,6 +186,35 @@ public class DagTraceRecorderTest {
                 hasReverseFlow(hopC2.getReturnFlow()))));
   }
 
+  /** Test recording traces that share their prefixes, as {@link FlowTracer} records them. */
+  @Test
+  public void testSharedPrefixes() {
+    HopInfo hopA = forwardedHop("A");
+    HopInfo hopB1 = forwardedHop("B1");
+    HopInfo hopB2 = forwardedHop("B2");
+    HopInfo hopC = acceptedHop("C");
+    HopInfo hopD = acceptedHop("D");
+    DagTraceRecorder recorder = new DagTraceRecorder(TEST_FLOW);
+    TracePath<HopInfo> a = TracePath.<HopInfo>empty().append(hopA);
+    TracePath<HopInfo> ab1 = a.append(hopB1);
+    TracePath<HopInfo> ab2 = a.append(hopB2);
+    assertFalse(recorder.tryRecordPartialTrace(a));
+    assertFalse(recorder.tryRecordPartialTrace(ab1));
+    recorder.recordTrace(ab1.append(hopC));
+    recorder.recordTrace(ab1.append(hopD));
+    assertFalse(recorder.tryRecordPartialTrace(ab2));
+    recorder.recordTrace(ab2.append(hopC));
+    TraceDag dag = recorder.build();
+    assertEquals(5, dag.countNodes());
+    assertEquals(5, dag.countEdges());
+    assertThat(
+        dag.getTraces().collect(ImmutableList.toImmutableList()),
+        contains(
+            hasTrace(hasHops(contains(hopA.getHop(), hopB1.getHop(), hopC.getHop()))),
+            hasTrace(hasHops(contains(hopA.getHop(), hopB1.getHop(), hopD.getHop()))),
+            hasTrace(hasHops(contains(hopA.getHop(), hopB2.getHop(), hopC.getHop())))));
+  }
+
   @Test
   public void testNodeKeyEquals() {
     Flow flow1 = TEST_FLOW;
@@ -0,0 +1,56 @@
+package org.batfish.dataplane.traceroute;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+import com.google.common.collect.ImmutableList;
+import org.batfish.datamodel.Flow;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.flow.HopTestUtils;
+import org.junit.Test;
+
+/** Tests of {@link TracePath}. */
+public class TracePathTest {
+  private static final Flow TEST_FLOW =
+      Flow.builder().setDstIp(Ip.parse("1.1.1.1")).setIngressNode("node").build();
+
+  private static HopInfo forwardedHop(String node) {
+    return HopInfo.forwardedHop(
+        HopTestUtils.forwardedHop(node),
+        TEST_FLOW,
+        new Breadcrumb(node, "vrf", null, TEST_FLOW),
+        null);
+  }
+
+  @Test
+  public void testAppendSharesPrefix() {
+    HopInfo hopA = forwardedHop("A");
+    HopInfo hopB = forwardedHop("B");
+    HopInfo hopC = forwardedHop("C");
+
+    TracePath<HopInfo> a = TracePath.<HopInfo>empty().append(hopA);
+    TracePath<HopInfo> ab = a.append(hopB);
+    TracePath<HopInfo> ac = a.append(hopC);
+
+    assertThat(TracePath.empty().toList(), empty());
+    assertThat(a.toList(), contains(hopA));
+    assertThat(ab.toList(), contains(hopA, hopB));
+    assertThat(ac.toList(), contains(hopA, hopC));
+    assertThat(ac.size(), equalTo(2));
+    assertThat(ac.getLast(), sameInstance(hopC));
+    assertThat(ac.getPrefix(), sameInstance(a));
+  }
+
+  @Test
+  public void testOf() {
+    HopInfo hopA = forwardedHop("A");
+    HopInfo hopB = forwardedHop("B");
+    assertThat(TracePath.of(ImmutableList.of(hopA, hopB)).toList(), contains(hopA, hopB));
+    assertThat(
+        TracePath.of(ImmutableList.of(hopA)).appendAll(ImmutableList.of(hopB)).toList(),
+        contains(hopA, hopB));
+  }
+}
@@ -72,8 +72,10 @@ import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Iterables;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
 import org.batfish.common.NetworkSnapshot;
 import org.batfish.common.plugin.IBatfish;
 import org.batfish.common.plugin.TracerouteEngine;
@@ -215,6 +217,53 @@ public class TracerouteEngineImplTest {
     assertThat(computeTraces(batfish, snapshot, flow2), contains(hasDisposition(ACCEPTED)));
   }
 
+  @Test
+  public void testForEachTraceDag() throws IOException {
+    NetworkFactory nf = new NetworkFactory();
+    Configuration config =
+        nf.configurationBuilder().setConfigurationFormat(ConfigurationFormat.CISCO_IOS).build();
+    Vrf vrf = nf.vrfBuilder().setOwner(config).build();
+    Interface i1 =
+        nf.interfaceBuilder()
+            .setOwner(config)
+            .setVrf(vrf)
+            .setAddress(ConcreteInterfaceAddress.parse("1.1.1.1/24"))
+            .build();
+
+    SortedMap<String, Configuration> configs = ImmutableSortedMap.of(config.getHostname(), config);
+    Batfish batfish = BatfishTestUtils.getBatfish(configs, _tempFolder);
+    NetworkSnapshot snapshot = batfish.getSnapshot();
+    batfish.computeDataPlane(snapshot);
+
+    Builder fb =
+        builder()
+            .setIngressNode(config.getHostname())
+            .setIngressInterface(i1.getName())
+            .setIngressVrf(vrf.getName());
+    Flow accepted = fb.setDstIp(parse("1.1.1.1")).build();
+    Flow noRoute = fb.setDstIp(parse("3.3.3.3")).build();
+    Set<Flow> flows = ImmutableSet.of(accepted, noRoute);
+
+    Map<Flow, List<Trace>> streamed = new ConcurrentHashMap<>();
+    batfish
+        .getTracerouteEngine(snapshot)
+        .forEachTraceDag(
+            flows,
+            ImmutableSet.of(),
+            false,
+            (flow, dag) ->
+                streamed.put(
+                    flow,
+                    dag.getTraces()
+                        .map(TraceAndReverseFlow::getTrace)
+                        .collect(ImmutableList.toImmutableList())));
+
+    assertThat(
+        streamed, equalTo(batfish.getTracerouteEngine(snapshot).computeTraces(flows, false)));
+    assertThat(streamed.get(accepted), contains(hasDisposition(ACCEPTED)));
+    assertThat(streamed.get(noRoute), contains(hasDisposition(NO_ROUTE)));
+  }
+
   @Test
   public void testNullRouted() throws IOException {
     // Construct network
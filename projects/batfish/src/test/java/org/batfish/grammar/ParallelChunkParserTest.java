@@ -0,0 +1,216 @@
+package org.batfish.grammar;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import org.batfish.config.Settings;
+import org.batfish.grammar.ParallelChunkParser.Chunk;
+import org.batfish.grammar.flatjuniper.FlatJuniperCombinedParser;
+import org.batfish.grammar.palo_alto.PaloAltoCombinedParser;
+import org.batfish.main.BatfishTestUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests of {@link ParallelChunkParser}. */
+@RunWith(JUnit4.class)
+public class ParallelChunkParserTest {
+
+  private static Settings settings() {
+    Settings settings = new Settings();
+    BatfishTestUtils.configureBatfishTestSettings(settings);
+    // exercise error recovery and unrecognized lines
+    settings.setDisableUnrecognized(false);
+    settings.setThrowOnParserError(false);
+    return settings;
+  }
+
+  private static void collectTokens(ParseTree tree, ImmutableList.Builder<String> tokens) {
+    if (tree instanceof TerminalNode) {
+      Token token = ((TerminalNode) tree).getSymbol();
+      tokens.add(
+          String.format(
+              "%d:%d:%d-%d:%d:%s",
+              token.getLine(),
+              token.getCharPositionInLine(),
+              token.getStartIndex(),
+              token.getStopIndex(),
+              token.getType(),
+              token.getText()));
+      return;
+    }
+    for (int i = 0; i < tree.getChildCount(); i++) {
+      collectTokens(tree.getChild(i), tokens);
+    }
+  }
+
+  private static List<String> tokens(ParseTree tree) {
+    ImmutableList.Builder<String> tokens = ImmutableList.builder();
+    collectTokens(tree, tokens);
+    return tokens.build();
+  }
+
+  private static void assertSameAsSerial(
+      BatfishCombinedParser<?, ?> serial,
+      BatfishCombinedParser<?, ?> parallel,
+      ParserRuleContext parallelTree) {
+    ParserRuleContext serialTree = serial.parse();
+    assertThat(parallelTree, notNullValue());
+    assertThat(
+        parallelTree.toStringTree(parallel.getParser()),
+        equalTo(serialTree.toStringTree(serial.getParser())));
+    assertThat(tokens(parallelTree), equalTo(tokens(serialTree)));
+    assertThat(
+        parallelTree.getStart().getStartIndex(), equalTo(serialTree.getStart().getStartIndex()));
+    assertThat(
+        parallelTree.getStop().getStartIndex(), equalTo(serialTree.getStop().getStartIndex()));
+    assertThat(parallel.getErrors(), equalTo(serial.getErrors()));
+    assertThat(parallel.getWarnings(), equalTo(serial.getWarnings()));
+  }
+
+  @Test
+  public void testSplit() {
+    String text =
+        "set a 1\n" // 0
+            + "set b \"x\n" // 8
+            + "set c\"\n" // 17
+            + "# set d\n" // 24
+            + "set e 2\n" // 32
+            + "set f 3\n"; // 40
+    List<Chunk> chunks =
+        ParallelChunkParser.split(text, FlatJuniperCombinedParser.STATEMENT_START, 4);
+
+    // no split before the target, inside the quoted string, or before the comment
+    assertThat(
+        chunks.stream().map(Chunk::getStart).collect(Collectors.toList()), contains(0, 32, 40));
+    assertThat(
+        chunks.stream().map(Chunk::getStop).collect(Collectors.toList()),
+        contains(32, 40, text.length()));
+    assertThat(chunks.stream().map(Chunk::getLine).collect(Collectors.toList()), contains(1, 5, 6));
+  }
+
+  @Test
+  public void testSplitNoStatementStart() {
+    String text = "set a \"1\n2\n3\n4\n5\n6\n\"\n";
+    assertThat(
+        ParallelChunkParser.split(text, FlatJuniperCombinedParser.STATEMENT_START, 4), hasSize(1));
+  }
+
+  @Test
+  public void testParseTooSmall() {
+    String text = "set system host-name r1\n";
+    Settings settings = settings();
+    FlatJuniperCombinedParser parser = new FlatJuniperCombinedParser(text, settings, null);
+    assertThat(
+        ParallelChunkParser.parse(
+            parser,
+            () -> new FlatJuniperCombinedParser(text, settings, null),
+            FlatJuniperCombinedParser.STATEMENT_START,
+            8),
+        nullValue());
+  }
+
+  @Test
+  public void testParseFlatJuniper() {
+    Random random = new Random(0);
+    StringBuilder sb = new StringBuilder("####BATFISH FLATTENED JUNIPER CONFIG####\n");
+    sb.append("set system host-name r1\n");
+    for (int i = 0; i < 1000; i++) {
+      switch (random.nextInt(6)) {
+        case 0:
+          sb.append(String.format("set interfaces ge-0/0/%d description \"quoted\"\n", i));
+          break;
+        case 1:
+          sb.append(String.format("deactivate interfaces ge-0/0/%d unit 0\n", i));
+          break;
+        case 2:
+          sb.append("# a comment\n");
+          break;
+        case 3:
+          sb.append(String.format("set bogus statement %d\n", i));
+          break;
+        default:
+          sb.append(
+              String.format(
+                  "set interfaces ge-0/0/%d unit 0 family inet address 10.%d.%d.1/24\n",
+                  i, i / 256, i % 256));
+      }
+    }
+    String text = sb.toString();
+    Settings settings = settings();
+    FlatJuniperCombinedParser serial = new FlatJuniperCombinedParser(text, settings, null);
+    FlatJuniperCombinedParser parallel = new FlatJuniperCombinedParser(text, settings, null);
+    ParserRuleContext tree =
+        ParallelChunkParser.parse(
+            parallel,
+            () -> new FlatJuniperCombinedParser(text, settings, null),
+            FlatJuniperCombinedParser.STATEMENT_START,
+            4,
+            text.length() / 8);
+
+    assertSameAsSerial(serial, parallel, tree);
+  }
+
+  @Test
+  public void testParseChunkErrors() {
+    // the lexer takes the rest of the input as a double-quoted string, so chunks end in errors
+    StringBuilder sb = new StringBuilder("set system host-name \"r1\n");
+    for (int i = 0; i < 100; i++) {
+      sb.append(String.format("set interfaces ge-0/0/%d unit 0\n", i));
+    }
+    String text = sb.toString();
+    Settings settings = settings();
+    FlatJuniperCombinedParser parser = new FlatJuniperCombinedParser(text, settings, null);
+
+    assertThat(
+        ParallelChunkParser.parse(
+            parser,
+            () -> new FlatJuniperCombinedParser(text, settings, null),
+            FlatJuniperCombinedParser.STATEMENT_START,
+            4,
+            text.length() / 8),
+        nullValue());
+    assertThat(parser.getErrors(), empty());
+    assertThat(parser.getWarnings(), empty());
+  }
+
+  @Test
+  public void testParsePaloAlto() {
+    StringBuilder sb = new StringBuilder("set deviceconfig system hostname r1\n");
+    for (int i = 0; i < 1000; i++) {
+      sb.append(
+          String.format(
+              "set network interface ethernet ethernet1/%d layer3 ip 10.%d.%d.1/24\n",
+              i % 64 + 1, i / 256, i % 256));
+      if (i % 7 == 0) {
+        sb.append(String.format("set address a%d description \"multi\nline\"\n", i));
+      }
+    }
+    String text = sb.toString();
+    Settings settings = settings();
+    PaloAltoCombinedParser serial = new PaloAltoCombinedParser(text, settings, null);
+    PaloAltoCombinedParser parallel = new PaloAltoCombinedParser(text, settings, null);
+    ParserRuleContext tree =
+        ParallelChunkParser.parse(
+            parallel,
+            () -> new PaloAltoCombinedParser(text, settings, null),
+            PaloAltoCombinedParser.STATEMENT_START,
+            4,
+            text.length() / 8);
+
+    assertSameAsSerial(serial, parallel, tree);
+  }
+}
@@ -5,6 +5,7 @@ import static org.hamcrest.collection.IsMapContaining.hasEntry;
 
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import org.batfish.common.BatfishLogger;
@@ -12,6 +13,7 @@ import org.batfish.common.BatfishLogger.BatfishLoggerHistory;
 import org.batfish.common.ParseTreeSentences;
 import org.batfish.common.Warnings;
 import org.batfish.common.Warnings.ParseWarning;
+import org.batfish.datamodel.answers.GrammarStatistics;
 import org.batfish.datamodel.answers.ParseStatus;
 import org.batfish.datamodel.answers.ParseVendorConfigurationAnswerElement;
 import org.batfish.representation.cisco.CiscoConfiguration;
@@ -42,6 +44,9 @@ public class ParseVendorConfigurationResultTest {
             parseTree,
             ParseStatus.PASSED,
             HashMultimap.create());
+    GrammarStatistics grammarStatistics =
+        new GrammarStatistics(1, 1, 0, 10, 1, 5, ImmutableMap.of("rule:1", 1L));
+    result.setGrammarStatistics("CiscoParser", grammarStatistics);
 
     SortedMap<String, VendorConfiguration> configs = new TreeMap<>();
     ParseVendorConfigurationAnswerElement answerElement =
@@ -57,5 +62,8 @@ public class ParseVendorConfigurationResultTest {
 
     // Confirm result warning was properly applied to answerElement
     assertThat(answerWarnings, hasEntry(filename, warnings));
+
+    // Confirm result grammar statistics were properly applied to answerElement
+    assertThat(answerElement.getGrammarStatistics(), hasEntry("CiscoParser", grammarStatistics));
   }
 }
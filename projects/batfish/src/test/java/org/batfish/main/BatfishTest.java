@@ -28,9 +28,12 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.ImmutableSortedSet;
+import java.io.ByteArrayInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -42,7 +45,10 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.SerializationUtils;
 import org.batfish.common.Answerer;
 import org.batfish.common.BatfishException;
 import org.batfish.common.NetworkSnapshot;
@@ -79,8 +85,11 @@ import org.batfish.datamodel.questions.TestQuestion;
 import org.batfish.identifiers.AnalysisId;
 import org.batfish.identifiers.NetworkId;
 import org.batfish.identifiers.QuestionId;
+import org.batfish.identifiers.SnapshotId;
 import org.batfish.identifiers.TestIdResolver;
+import org.batfish.job.ConvertResult;
 import org.batfish.job.ParseVendorConfigurationResult;
+import org.batfish.storage.FileBasedStorage;
 import org.batfish.storage.TestStorageProvider;
 import org.batfish.vendor.VendorConfiguration;
 import org.junit.Rule;
@@ -435,6 +444,89 @@ public class BatfishTest {
     IpOwners.computeIpNodeOwners(configs, false);
   }
 
+  @Test
+  public void testConvertConfigurationsReusesCachedResult() throws IOException {
+    String configurationText = String.join("\n", "hostname host1", "!", "interface Loopback0", "!");
+    Batfish batfish =
+        BatfishTestUtils.getBatfishFromTestrigText(
+            TestrigText.builder()
+                .setConfigurationText(ImmutableSortedMap.of("host1", configurationText))
+                .build(),
+            _folder);
+    assertThat(batfish.loadConfigurations(batfish.getSnapshot()), hasKey("host1"));
+
+    // Tamper with the cached conversion result so that reuse is observable.
+    Path storageBase = batfish.getSettings().getStorageBase();
+    List<Path> cached;
+    try (Stream<Path> files = Files.walk(storageBase)) {
+      cached =
+          files
+              .filter(Files::isRegularFile)
+              .filter(
+                  path -> {
+                    ConvertResult result = readConvertResult(path);
+                    return result != null && result.getName().equals("host1");
+                  })
+              .collect(ImmutableList.toImmutableList());
+    }
+    assertThat(cached, hasSize(1));
+    ConvertResult result = readConvertResult(cached.get(0));
+    result.getConfigurations().get("host1").setDomainName("cached.example");
+    Files.write(cached.get(0), SerializationUtils.serialize(result));
+
+    // A new snapshot with the same device reuses the cached result.
+    NetworkSnapshot snapshot2 =
+        new NetworkSnapshot(batfish.getSnapshot().getNetwork(), new SnapshotId("snapshot2"));
+    new FileBasedStorage(storageBase, batfish.getLogger())
+        .storeSnapshotInputObject(
+            new ByteArrayInputStream(configurationText.getBytes(UTF_8)),
+            "configs/host1",
+            snapshot2);
+    assertThat(
+        batfish.loadConfigurations(snapshot2).get("host1").getDomainName(),
+        equalTo("cached.example"));
+  }
+
+  @Test
+  public void testLoadConfigurationsReparsesCorruptCache() throws IOException {
+    String configurationText = String.join("\n", "hostname host1", "!", "interface Loopback0", "!");
+    Batfish batfish =
+        BatfishTestUtils.getBatfishFromTestrigText(
+            TestrigText.builder()
+                .setConfigurationText(ImmutableSortedMap.of("host1", configurationText))
+                .build(),
+            _folder);
+    assertThat(batfish.loadConfigurations(batfish.getSnapshot()), hasKey("host1"));
+
+    // Corrupt the stored vendor-independent configuration.
+    List<Path> stored;
+    try (Stream<Path> files = Files.walk(batfish.getSettings().getStorageBase())) {
+      stored =
+          files
+              .filter(Files::isRegularFile)
+              .filter(path -> path.getFileName().toString().equals("host1"))
+              .filter(path -> path.getParent().getFileName().toString().equals("indep"))
+              .collect(ImmutableList.toImmutableList());
+    }
+    assertThat(stored, hasSize(1));
+    Files.write(stored.get(0), "corrupt".getBytes(UTF_8));
+
+    // Loading the configurations again falls back to re-parsing the snapshot.
+    Batfish reloaded = BatfishTestUtils.withEmptyCaches(batfish);
+    assertThat(
+        reloaded.loadConfigurations(reloaded.getSnapshot()).get("host1").getAllInterfaces(),
+        hasKey("Loopback0"));
+  }
+
+  private static @Nullable ConvertResult readConvertResult(Path path) {
+    try (InputStream in = Files.newInputStream(path)) {
+      Object o = SerializationUtils.deserialize(in);
+      return o instanceof ConvertResult ? (ConvertResult) o : null;
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
   @Test
   public void testCreateAnswerer() {
     Batfish batfish = BatfishTestUtils.getBatfish(new TestStorageProvider(), new TestIdResolver());
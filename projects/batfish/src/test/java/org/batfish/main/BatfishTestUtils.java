@@ -216,6 +216,25 @@ public class BatfishTestUtils {
     return batfish;
   }
 
+  /**
+   * Returns a new Batfish instance for the same storage and snapshot as {@code batfish}, but with
+   * empty caches, so that everything is loaded from storage again.
+   */
+  static Batfish withEmptyCaches(Batfish batfish) {
+    Settings settings = batfish.getSettings();
+    Batfish ret =
+        new Batfish(
+            settings,
+            makeTestrigCache(),
+            makeDataPlaneCache(),
+            makeEnvBgpCache(),
+            makeVendorConfigurationCache(),
+            null,
+            new TestStorageBasedIdResolver(settings.getStorageBase()));
+    registerDataPlanePlugins(ret);
+    return ret;
+  }
+
   /**
    * Get a configuration object with the given interfaces
    *
@@ -0,0 +1,109 @@
+package org.batfish.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.batfish.datamodel.AsPath;
+import org.batfish.datamodel.AsSet;
+import org.batfish.datamodel.bgp.BgpRegexMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link BgpRegexMatcher} with {@link Pattern} on the rendered AS path, for AS-path
+ * regexes as produced by the Cisco and Juniper conversions, on AS paths shaped like those of an
+ * Internet routing table.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AsPathRegexBenchmark {
+
+  private static final int NUM_AS_PATHS = 10_000;
+
+  /** Cisco {@code _} as converted by the Cisco conversion. */
+  private static final String CISCO_UNDERSCORE = "(,|\\{|\\}|^|\\$| )";
+
+  @Param({
+    // ip as-path access-list 1 permit _3356_
+    CISCO_UNDERSCORE + "3356" + CISCO_UNDERSCORE,
+    // ip as-path access-list 1 permit ^(_[0-9]+)*_174$
+    "^(" + CISCO_UNDERSCORE + "[0-9]+)*" + CISCO_UNDERSCORE + "174$",
+    // Juniper as-path ".* 1299 .*", matched against the space-prefixed path
+    "^( \\d+)*( 1299)( \\d+)*$",
+  })
+  public String _regex;
+
+  private List<AsPath> _asPaths;
+
+  /**
+   * Generates AS paths with a typical Internet-table length distribution (mostly 3-6 hops), some
+   * prepending, a few AS sets from aggregation, and 32-bit AS numbers.
+   */
+  @Setup(Level.Trial)
+  public void setupAsPaths() {
+    Random random = new Random(0);
+    long[] transit = {174, 1299, 2914, 3257, 3356, 6453, 6461, 6762, 6939, 7018};
+    ImmutableList.Builder<AsPath> asPaths = ImmutableList.builder();
+    for (int i = 0; i < NUM_AS_PATHS; i++) {
+      int length = 2 + Math.min(random.nextInt(3) + random.nextInt(3) + random.nextInt(3), 8);
+      ImmutableList.Builder<AsSet> asSets = ImmutableList.builder();
+      asSets.add(AsSet.of(transit[random.nextInt(transit.length)]));
+      for (int hop = 1; hop < length; hop++) {
+        long asn =
+            random.nextInt(4) == 0
+                ? transit[random.nextInt(transit.length)]
+                : random.nextInt(10) == 0
+                    ? 4_200_000_000L + random.nextInt(1 << 20)
+                    : 1 + random.nextInt(64_000);
+        int prepends = random.nextInt(10) == 0 ? 1 + random.nextInt(8) : 1;
+        for (int p = 0; p < prepends; p++) {
+          asSets.add(AsSet.of(asn));
+        }
+      }
+      if (random.nextInt(50) == 0) {
+        asSets.add(AsSet.of(1 + random.nextInt(64_000), 1 + random.nextInt(64_000)));
+      }
+      asPaths.add(AsPath.of(asSets.build()));
+    }
+    _asPaths = asPaths.build();
+  }
+
+  @Benchmark
+  public int bgpRegexMatcher() {
+    int matches = 0;
+    for (AsPath asPath : _asPaths) {
+      if (BgpRegexMatcher.matchesSpacePrefixedAsPath(_regex, asPath)) {
+        matches++;
+      }
+    }
+    return matches;
+  }
+
+  @Benchmark
+  public int pattern() {
+    Pattern pattern = Pattern.compile(_regex);
+    int matches = 0;
+    for (AsPath asPath : _asPaths) {
+      if (pattern.matcher(" " + asPath.getAsPathString()).find()) {
+        matches++;
+      }
+    }
+    return matches;
+  }
+}
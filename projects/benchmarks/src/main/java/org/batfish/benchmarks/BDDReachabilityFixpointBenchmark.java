@@ -0,0 +1,204 @@
+package org.batfish.benchmarks;
+
+import static org.batfish.bddreachability.transition.Transitions.IDENTITY;
+import static org.batfish.bddreachability.transition.Transitions.compose;
+import static org.batfish.bddreachability.transition.Transitions.constraint;
+import static org.batfish.bddreachability.transition.Transitions.eraseAndSet;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Table;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import net.sf.javabdd.BDD;
+import org.batfish.bddreachability.BDDReachabilityUtils;
+import org.batfish.bddreachability.BDDReachabilityUtils.FixpointAlgorithm;
+import org.batfish.bddreachability.Edge;
+import org.batfish.bddreachability.transition.Transition;
+import org.batfish.common.bdd.BDDPacket;
+import org.batfish.common.bdd.IpSpaceToBDD;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.Prefix;
+import org.batfish.symbolic.state.NodeAccept;
+import org.batfish.symbolic.state.NodeDropNoRoute;
+import org.batfish.symbolic.state.PostInVrf;
+import org.batfish.symbolic.state.PreOutVrf;
+import org.batfish.symbolic.state.StateExpr;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the {@link FixpointAlgorithm fixpoint algorithms} of {@link BDDReachabilityUtils} on
+ * synthetic reachability graphs.
+ *
+ * <p>In every {@link Topology}, each router owns a /24 that it accepts, and sends everything else
+ * through a pipeline of filters, each blocking one destination port.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BDDReachabilityFixpointBenchmark {
+  private static final String VRF = "default";
+
+  /** The shape of the synthetic network. */
+  public enum Topology {
+    /**
+     * Leaves forward everything they do not own to every spine (rewriting the source port on the
+     * way, as a NAT would). Each spine forwards each leaf's /24 back down to that leaf and drops
+     * everything else. The forward fixpoint starts with all packets at each leaf.
+     */
+    LEAF_SPINE,
+    /**
+     * Routers form a unidirectional ring, and forward everything they do not own to the next
+     * router. The forward fixpoint starts with the packets sourced from each router's own /24 at
+     * that router, so reachable sets grow as packets from farther routers arrive.
+     */
+    RING
+  }
+
+  @Param({"ROUNDS", "SCC_DELTA"})
+  public FixpointAlgorithm _algorithm;
+
+  @Param({"LEAF_SPINE", "RING"})
+  public Topology _topology;
+
+  @Param({"16", "64"})
+  public int _numLeaves;
+
+  @Param({"4"})
+  public int _numSpines;
+
+  @Param({"8"})
+  public int _pipelineDepth;
+
+  private BDDPacket _pkt;
+  private Table<StateExpr, StateExpr, Transition> _forwardEdges;
+  private Table<StateExpr, StateExpr, Transition> _transposedEdges;
+  private Map<StateExpr, BDD> _sources;
+  private List<StateExpr> _sinks;
+
+  @Setup(Level.Trial)
+  public void setupAlgorithm() {
+    BDDReachabilityUtils.setFixpointAlgorithm(_algorithm);
+  }
+
+  /**
+   * Builds the graph with a fresh {@link BDDPacket} before every invocation, so that no invocation
+   * can reuse results cached in the BDD factory by a previous one.
+   */
+  @Setup(Level.Invocation)
+  public void setupGraph() {
+    _pkt = new BDDPacket();
+    IpSpaceToBDD dstIpSpaceToBdd = _pkt.getDstIpSpaceToBDD();
+    IpSpaceToBDD srcIpSpaceToBdd = _pkt.getSrcIpSpaceToBDD();
+    ImmutableList.Builder<Edge> edges = ImmutableList.builder();
+    ImmutableMap.Builder<StateExpr, BDD> sources = ImmutableMap.builder();
+    ImmutableList.Builder<StateExpr> sinks = ImmutableList.builder();
+
+    Prefix[] leafSubnets = new Prefix[_numLeaves];
+    BDD[] leafSubnetBdds = new BDD[_numLeaves];
+    for (int i = 0; i < _numLeaves; i++) {
+      leafSubnets[i] = Prefix.create(Ip.create((10L << 24) + ((long) i << 8)), 24);
+      leafSubnetBdds[i] = dstIpSpaceToBdd.toBDD(leafSubnets[i]);
+    }
+
+    StateExpr[] pipelineOuts = new StateExpr[_numLeaves];
+    for (int i = 0; i < _numLeaves; i++) {
+      StateExpr leaf = new PostInVrf(leafName(i), VRF);
+      StateExpr accept = new NodeAccept(leafName(i));
+      sources.put(
+          leaf,
+          _topology == Topology.RING
+              ? srcIpSpaceToBdd.toBDD(leafSubnets[i])
+              : _pkt.getFactory().one());
+      sinks.add(accept);
+      edges.add(new Edge(leaf, accept, constraint(leafSubnetBdds[i])));
+
+      StateExpr pipelineIn = new PreOutVrf(leafName(i), VRF);
+      edges.add(
+          new Edge(
+              leaf,
+              pipelineIn,
+              compose(
+                  constraint(leafSubnetBdds[i].not()),
+                  eraseAndSet(_pkt.getSrcPort(), _pkt.getSrcPort().value(i % 1024)))));
+      StateExpr pipelineOut = pipelineIn;
+      for (int k = 0; k < _pipelineDepth; k++) {
+        StateExpr next = new PreOutVrf(leafName(i), VRF + k);
+        edges.add(new Edge(pipelineOut, next, constraint(_pkt.getDstPort().value(k).not())));
+        pipelineOut = next;
+      }
+      pipelineOuts[i] = pipelineOut;
+    }
+
+    switch (_topology) {
+      case LEAF_SPINE:
+        BDD allSubnets = _pkt.getFactory().orAll(leafSubnetBdds);
+        for (int j = 0; j < _numSpines; j++) {
+          StateExpr spine = new PostInVrf(spineName(j), VRF);
+          StateExpr drop = new NodeDropNoRoute(spineName(j));
+          sinks.add(drop);
+          edges.add(new Edge(spine, drop, constraint(allSubnets.not())));
+          for (int i = 0; i < _numLeaves; i++) {
+            edges.add(new Edge(pipelineOuts[i], spine, IDENTITY));
+            edges.add(
+                new Edge(spine, new PostInVrf(leafName(i), VRF), constraint(leafSubnetBdds[i])));
+          }
+        }
+        break;
+      case RING:
+        for (int i = 0; i < _numLeaves; i++) {
+          edges.add(
+              new Edge(
+                  pipelineOuts[i], new PostInVrf(leafName((i + 1) % _numLeaves), VRF), IDENTITY));
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Unexpected topology: " + _topology);
+    }
+
+    _forwardEdges = BDDReachabilityUtils.computeForwardEdgeTable(edges.build());
+    _transposedEdges = BDDReachabilityUtils.transposeAndMaterialize(_forwardEdges);
+    _sources = sources.build();
+    _sinks = sinks.build();
+  }
+
+  @Benchmark
+  public Map<StateExpr, BDD> forwardFixpoint() {
+    Map<StateExpr, BDD> reachable = new HashMap<>(_sources);
+    BDDReachabilityUtils.forwardFixpoint(_forwardEdges, reachable);
+    return reachable;
+  }
+
+  @Benchmark
+  public Map<StateExpr, BDD> backwardFixpoint() {
+    Map<StateExpr, BDD> reachable = new HashMap<>();
+    BDD one = _pkt.getFactory().one();
+    _sinks.forEach(sink -> reachable.put(sink, one));
+    BDDReachabilityUtils.backwardFixpointTransposed(_transposedEdges, reachable);
+    return reachable;
+  }
+
+  private static String leafName(int i) {
+    return "leaf" + i;
+  }
+
+  private static String spineName(int j) {
+    return "spine" + j;
+  }
+}
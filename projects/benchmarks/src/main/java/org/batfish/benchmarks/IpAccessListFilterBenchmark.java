@@ -0,0 +1,105 @@
+package org.batfish.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.batfish.datamodel.AclLine;
+import org.batfish.datamodel.Flow;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpAccessList;
+import org.batfish.datamodel.IpProtocol;
+import org.batfish.datamodel.IpSpace;
+import org.batfish.datamodel.LineAction;
+import org.batfish.datamodel.acl.AclLineEvaluator;
+import org.batfish.datamodel.acl.CompiledIpAccessList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link IpAccessList#filter}, which uses a {@link CompiledIpAccessList}, with evaluating
+ * each line of a synthetic ACL in turn, on random TCP and UDP flows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IpAccessListFilterBenchmark {
+
+  private static final int NUM_FLOWS = 10_000;
+
+  @Param({"100", "1000", "10000"})
+  public int _numLines;
+
+  private IpAccessList _acl;
+  private Map<String, IpAccessList> _acls;
+  private Map<String, IpSpace> _namedIpSpaces;
+  private List<Flow> _flows;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    _acl = SyntheticNetworkGenerator.acl("acl", _numLines, 0);
+    _acls = ImmutableMap.of(_acl.getName(), _acl);
+    _namedIpSpaces = ImmutableMap.of();
+    Random random = new Random(0);
+    ImmutableList.Builder<Flow> flows = ImmutableList.builder();
+    for (int i = 0; i < NUM_FLOWS; i++) {
+      flows.add(
+          Flow.builder()
+              .setIngressNode("node")
+              .setSrcIp(Ip.create(random.nextInt() & 0xFFFFFFFFL))
+              .setDstIp(Ip.create(random.nextInt() & 0xFFFFFFFFL))
+              .setIpProtocol(random.nextBoolean() ? IpProtocol.TCP : IpProtocol.UDP)
+              .setSrcPort(1024 + random.nextInt(64512))
+              .setDstPort(random.nextInt(65536))
+              .build());
+    }
+    _flows = flows.build();
+    // compile outside of the measurement
+    _acl.filter(_flows.get(0), null, _acls, _namedIpSpaces);
+  }
+
+  @Benchmark
+  public int compiled() {
+    int permitted = 0;
+    for (Flow flow : _flows) {
+      if (_acl.filter(flow, null, _acls, _namedIpSpaces).getAction() == LineAction.PERMIT) {
+        permitted++;
+      }
+    }
+    return permitted;
+  }
+
+  @Benchmark
+  public int lineByLine() {
+    int permitted = 0;
+    List<AclLine> lines = _acl.getLines();
+    for (Flow flow : _flows) {
+      AclLineEvaluator evaluator = new AclLineEvaluator(flow, null, _acls, _namedIpSpaces);
+      for (AclLine line : lines) {
+        LineAction action = evaluator.visit(line);
+        if (action != null) {
+          if (action == LineAction.PERMIT) {
+            permitted++;
+          }
+          break;
+        }
+      }
+    }
+    return permitted;
+  }
+}
@@ -0,0 +1,62 @@
+package org.batfish.benchmarks;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.concurrent.TimeUnit;
+import net.sf.javabdd.BDD;
+import org.batfish.common.bdd.BDDPacket;
+import org.batfish.common.bdd.BDDSourceManager;
+import org.batfish.common.bdd.IpAccessListToBddImpl;
+import org.batfish.datamodel.IpAccessList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures the conversion of synthetic ACLs to BDDs by {@link IpAccessListToBddImpl}. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IpAccessListToBddBenchmark {
+
+  @Param({"100", "1000"})
+  public int _numLines;
+
+  private IpAccessList _acl;
+  private IpAccessListToBddImpl _toBdd;
+
+  @Setup(Level.Trial)
+  public void setupAcl() {
+    _acl = SyntheticNetworkGenerator.acl("acl", _numLines, 0);
+  }
+
+  /**
+   * Creates a fresh {@link BDDPacket} and converter before every invocation, so that no invocation
+   * can reuse BDDs cached by a previous one.
+   */
+  @Setup(Level.Invocation)
+  public void setupConverter() {
+    BDDPacket pkt = new BDDPacket();
+    _toBdd =
+        new IpAccessListToBddImpl(
+            pkt,
+            BDDSourceManager.empty(pkt),
+            ImmutableMap.of(_acl.getName(), _acl),
+            ImmutableMap.of());
+  }
+
+  @Benchmark
+  public BDD toBdd() {
+    return _toBdd.toBdd(_acl);
+  }
+}
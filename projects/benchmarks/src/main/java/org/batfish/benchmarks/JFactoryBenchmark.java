@@ -0,0 +1,108 @@
+package org.batfish.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import net.sf.javabdd.BDD;
+import net.sf.javabdd.JFactory;
+import org.batfish.common.bdd.BDDPacket;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.Prefix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the core {@link JFactory} operations: binary apply ({@link BDD#and}, {@link BDD#or}),
+ * {@link BDD#ite} and {@link BDD#exist}.
+ *
+ * <p>Operands are unions of random source and destination prefixes and destination ports, so that
+ * they have the shape of the header spaces built from ACLs and routes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JFactoryBenchmark {
+
+  @Param({"64"})
+  public int _numOperands;
+
+  @Param({"16"})
+  public int _termsPerOperand;
+
+  private BDD[] _operands;
+  private BDD _dstIpVars;
+
+  /**
+   * Builds the operands with a fresh {@link BDDPacket} before every invocation, so that no
+   * invocation can reuse results cached in the BDD factory by a previous one.
+   */
+  @Setup(Level.Invocation)
+  public void setup() {
+    BDDPacket pkt = new BDDPacket();
+    Random random = new Random(0);
+    List<Ip> ips = SyntheticNetworkGenerator.ips(2 * _numOperands * _termsPerOperand, 0);
+    _operands = new BDD[_numOperands];
+    int k = 0;
+    for (int o = 0; o < _numOperands; o++) {
+      BDD operand = pkt.getFactory().zero();
+      for (int t = 0; t < _termsPerOperand; t++) {
+        BDD term =
+            pkt.getDstIpSpaceToBDD()
+                .toBDD(Prefix.create(ips.get(k++), 8 + random.nextInt(25)))
+                .and(
+                    pkt.getSrcIpSpaceToBDD()
+                        .toBDD(Prefix.create(ips.get(k++), 8 + random.nextInt(25))))
+                .and(pkt.getDstPort().range(random.nextInt(1024), 1024 + random.nextInt(64512)));
+        operand.orWith(term);
+      }
+      _operands[o] = operand;
+    }
+    _dstIpVars = pkt.getDstIp().getVars();
+  }
+
+  @Benchmark
+  public void and(Blackhole bh) {
+    for (int i = 0; i < _numOperands; i++) {
+      for (int j = i + 1; j < _numOperands; j++) {
+        bh.consume(_operands[i].and(_operands[j]));
+      }
+    }
+  }
+
+  @Benchmark
+  public void or(Blackhole bh) {
+    for (int i = 0; i < _numOperands; i++) {
+      for (int j = i + 1; j < _numOperands; j++) {
+        bh.consume(_operands[i].or(_operands[j]));
+      }
+    }
+  }
+
+  @Benchmark
+  public void ite(Blackhole bh) {
+    for (int i = 0; i + 2 < _numOperands; i++) {
+      bh.consume(_operands[i].ite(_operands[i + 1], _operands[i + 2]));
+    }
+  }
+
+  @Benchmark
+  public void exist(Blackhole bh) {
+    for (BDD operand : _operands) {
+      bh.consume(operand.exist(_dstIpVars));
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package org.batfish.benchmarks;
+
+import static org.batfish.datamodel.Configuration.DEFAULT_VRF_NAME;
+
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.batfish.datamodel.AbstractRoute;
+import org.batfish.datamodel.AnnotatedRoute;
+import org.batfish.datamodel.Fib;
+import org.batfish.datamodel.FibImpl;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.StaticRoute;
+import org.batfish.dataplane.rib.Rib;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures merging routes into a {@link Rib}, longest-prefix-match lookups in the {@link Rib}, and
+ * lookups in a {@link FibImpl} built from it, using synthetic static routes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RibBenchmark {
+
+  @Param({"10000", "100000"})
+  public int _numRoutes;
+
+  @Param({"10000"})
+  public int _numLookups;
+
+  @Param({"48"})
+  public int _numInterfaces;
+
+  private List<AnnotatedRoute<AbstractRoute>> _routes;
+  private List<Ip> _lookups;
+  private Rib _rib;
+  private Fib _fib;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    List<StaticRoute> routes =
+        SyntheticNetworkGenerator.staticRoutes(_numRoutes, _numInterfaces, 0);
+    _routes =
+        routes.stream()
+            .map(r -> new AnnotatedRoute<AbstractRoute>(r, DEFAULT_VRF_NAME))
+            .collect(ImmutableList.toImmutableList());
+    _lookups = SyntheticNetworkGenerator.ips(_numLookups, 1);
+    _rib = mergeAll();
+    _fib = new FibImpl(_rib);
+  }
+
+  private Rib mergeAll() {
+    Rib rib = new Rib();
+    _routes.forEach(rib::mergeRoute);
+    return rib;
+  }
+
+  @Benchmark
+  public Rib mergeRoute() {
+    return mergeAll();
+  }
+
+  @Benchmark
+  public void longestPrefixMatch(Blackhole bh) {
+    for (Ip ip : _lookups) {
+      bh.consume(_rib.longestPrefixMatch(ip));
+    }
+  }
+
+  @Benchmark
+  public void fibGet(Blackhole bh) {
+    for (Ip ip : _lookups) {
+      bh.consume(_fib.get(ip));
+    }
+  }
+
+  @Benchmark
+  public Fib buildFib() {
+    return new FibImpl(_rib);
+  }
+}
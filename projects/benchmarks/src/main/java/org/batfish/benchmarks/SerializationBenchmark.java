@@ -0,0 +1,125 @@
+package org.batfish.benchmarks;
+
+import static org.batfish.datamodel.Configuration.DEFAULT_VRF_NAME;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.batfish.common.plugin.PluginConsumer.Format;
+import org.batfish.datamodel.ConcreteInterfaceAddress;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.Interface;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.NetworkFactory;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.StaticRoute;
+import org.batfish.datamodel.Vrf;
+import org.batfish.storage.FileBasedStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the time to write and read synthetic {@link Configuration}s in each serialization {@link
+ * Format} written by {@link FileBasedStorage}, one blob per configuration as stored on disk.
+ *
+ * <p>Each node has many interfaces on shared subnets and static routes to every other node's
+ * loopback, so that values such as interface names, {@link Ip}s and {@link Prefix}es repeat within
+ * each configuration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+  @Param({"LZ4", "BATFISH_BINARY"})
+  public Format _format;
+
+  @Param({"100"})
+  public int _numNodes;
+
+  @Param({"48"})
+  public int _numInterfaces;
+
+  private List<Configuration> _configurations;
+  private List<byte[]> _serialized;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    NetworkFactory nf = new NetworkFactory();
+    _configurations = new ArrayList<>();
+    for (int n = 0; n < _numNodes; n++) {
+      Configuration c =
+          nf.configurationBuilder()
+              .setHostname("node" + n)
+              .setConfigurationFormat(ConfigurationFormat.CISCO_IOS)
+              .build();
+      Vrf vrf = nf.vrfBuilder().setOwner(c).setName(DEFAULT_VRF_NAME).build();
+      for (int i = 0; i < _numInterfaces; i++) {
+        Interface iface =
+            nf.interfaceBuilder()
+                .setName("Ethernet" + i)
+                .setOwner(c)
+                .setVrf(vrf)
+                .setAddress(
+                    ConcreteInterfaceAddress.create(
+                        Ip.create((10L << 24) + ((long) i << 16) + n + 1), 16))
+                .build();
+        iface.setDescription("link to switch" + i);
+      }
+      for (int m = 0; m < _numNodes; m++) {
+        vrf.getStaticRoutes()
+            .add(
+                StaticRoute.testBuilder()
+                    .setNetwork(Prefix.create(Ip.create((192L << 24) + ((long) m << 8)), 24))
+                    .setNextHopIp(Ip.create((10L << 24) + ((long) (m % _numInterfaces) << 16) + m))
+                    .setNextHopInterface("Ethernet" + (m % _numInterfaces))
+                    .setAdministrativeCost(1)
+                    .build());
+      }
+      _configurations.add(c);
+    }
+    _serialized = serializeAll();
+  }
+
+  private List<byte[]> serializeAll() throws IOException {
+    List<byte[]> serialized = new ArrayList<>(_configurations.size());
+    for (Configuration c : _configurations) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      FileBasedStorage.serializeObject(c, out, _format);
+      serialized.add(out.toByteArray());
+    }
+    return serialized;
+  }
+
+  @Benchmark
+  public List<byte[]> serialize() throws IOException {
+    return serializeAll();
+  }
+
+  @Benchmark
+  public List<Configuration> deserialize() throws IOException, ClassNotFoundException {
+    List<Configuration> configurations = new ArrayList<>(_serialized.size());
+    for (byte[] bytes : _serialized) {
+      configurations.add(
+          FileBasedStorage.deserializeObject(new ByteArrayInputStream(bytes), Configuration.class));
+    }
+    return configurations;
+  }
+}
@@ -0,0 +1,248 @@
+package org.batfish.benchmarks;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.batfish.datamodel.Configuration.DEFAULT_VRF_NAME;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedMap;
+import javax.annotation.Nonnull;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.AclLine;
+import org.batfish.datamodel.BgpActivePeerConfig;
+import org.batfish.datamodel.BgpProcess;
+import org.batfish.datamodel.ConcreteInterfaceAddress;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.ExprAclLine;
+import org.batfish.datamodel.HeaderSpace;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpAccessList;
+import org.batfish.datamodel.IpProtocol;
+import org.batfish.datamodel.NetworkFactory;
+import org.batfish.datamodel.Prefix;
+import org.batfish.datamodel.RoutingProtocol;
+import org.batfish.datamodel.StaticRoute;
+import org.batfish.datamodel.SubRange;
+import org.batfish.datamodel.Vrf;
+import org.batfish.datamodel.bgp.Ipv4UnicastAddressFamily;
+import org.batfish.datamodel.routing_policy.RoutingPolicy;
+import org.batfish.datamodel.routing_policy.expr.MatchProtocol;
+import org.batfish.datamodel.routing_policy.statement.If;
+import org.batfish.datamodel.routing_policy.statement.Statements;
+
+/**
+ * Generates synthetic {@link Configuration configurations}, {@link IpAccessList ACLs} and routes
+ * for benchmarks, so that benchmarks can scale from a handful to tens of thousands of nodes without
+ * depending on real network data.
+ *
+ * <p>All randomized output is a deterministic function of the given seed.
+ */
+@ParametersAreNonnullByDefault
+public final class SyntheticNetworkGenerator {
+
+  /** The AS number shared by all spines. Leaf {@code i} is in AS {@code LEAF_AS_BASE + i}. */
+  private static final long SPINE_AS = 65000L;
+
+  private static final long LEAF_AS_BASE = 4_200_000_000L;
+
+  /** Point-to-point /31 links between leaves and spines are allocated from 10.0.0.0/8. */
+  private static final long LINK_BASE = 10L << 24;
+
+  /** Leaf {@code i} owns host subnet {@code 11.0.0.0 + (i << 8)} /24. */
+  private static final long HOST_SUBNET_BASE = 11L << 24;
+
+  /** Spine {@code j} uses loopback {@code 12.0.0.0 + j}. */
+  private static final long SPINE_LOOPBACK_BASE = 12L << 24;
+
+  private static final int MAX_LEAVES = 1 << 16;
+
+  private static final String EXPORT_POLICY_NAME = "export-connected-and-bgp";
+
+  /** Name of the ingress filter on each leaf's host-facing interface. */
+  public static final String HOST_FILTER_NAME = "host-in";
+
+  /** Name of each leaf's host-facing interface. */
+  public static final String HOST_INTERFACE_NAME = "hosts";
+
+  private SyntheticNetworkGenerator() {}
+
+  /**
+   * Generates a two-tier Clos fabric of {@code numLeaves} leaves and {@code numSpines} spines.
+   *
+   * <p>Every leaf is connected to every spine by a /31 link, and runs eBGP with each spine over
+   * that link. Each leaf owns a /24 host subnet, filtered on ingress by an {@link #acl ACL} of
+   * {@code numHostFilterLines} lines, which it advertises to the spines. Spines share a single AS,
+   * so leaves learn every other leaf's subnet with ECMP across all spines.
+   */
+  public static @Nonnull SortedMap<String, Configuration> clos(
+      int numLeaves, int numSpines, int numHostFilterLines) {
+    checkArgument(numLeaves > 0 && numLeaves <= MAX_LEAVES, "Invalid number of leaves");
+    checkArgument(numSpines > 0, "Invalid number of spines");
+    checkArgument(
+        (long) numLeaves * numSpines <= 1L << 23, "Too many links for the 10.0.0.0/8 pool");
+    NetworkFactory nf = new NetworkFactory();
+    ImmutableSortedMap.Builder<String, Configuration> configurations =
+        ImmutableSortedMap.naturalOrder();
+
+    Configuration[] spines = new Configuration[numSpines];
+    Vrf[] spineVrfs = new Vrf[numSpines];
+    BgpProcess[] spineProcs = new BgpProcess[numSpines];
+    for (int j = 0; j < numSpines; j++) {
+      spines[j] = newRouter(nf, spineName(j));
+      spineVrfs[j] = nf.vrfBuilder().setOwner(spines[j]).setName(DEFAULT_VRF_NAME).build();
+      spineProcs[j] = newBgpProcess(nf, spineVrfs[j], Ip.create(SPINE_LOOPBACK_BASE + j));
+      configurations.put(spines[j].getHostname(), spines[j]);
+    }
+
+    for (int i = 0; i < numLeaves; i++) {
+      Configuration leaf = newRouter(nf, leafName(i));
+      Vrf vrf = nf.vrfBuilder().setOwner(leaf).setName(DEFAULT_VRF_NAME).build();
+      Ip hostGateway = Ip.create(HOST_SUBNET_BASE + ((long) i << 8) + 1);
+      BgpProcess proc = newBgpProcess(nf, vrf, hostGateway);
+      leaf.getIpAccessLists().put(HOST_FILTER_NAME, acl(HOST_FILTER_NAME, numHostFilterLines, i));
+      nf.interfaceBuilder()
+          .setName(HOST_INTERFACE_NAME)
+          .setOwner(leaf)
+          .setVrf(vrf)
+          .setAddress(ConcreteInterfaceAddress.create(hostGateway, 24))
+          .setIncomingFilter(leaf.getIpAccessLists().get(HOST_FILTER_NAME))
+          .build();
+      for (int j = 0; j < numSpines; j++) {
+        long link = (long) i * numSpines + j;
+        Ip spineIp = Ip.create(LINK_BASE + 2 * link);
+        Ip leafIp = Ip.create(LINK_BASE + 2 * link + 1);
+        nf.interfaceBuilder()
+            .setName("uplink" + j)
+            .setOwner(leaf)
+            .setVrf(vrf)
+            .setAddress(ConcreteInterfaceAddress.create(leafIp, 31))
+            .build();
+        nf.interfaceBuilder()
+            .setName("downlink" + i)
+            .setOwner(spines[j])
+            .setVrf(spineVrfs[j])
+            .setAddress(ConcreteInterfaceAddress.create(spineIp, 31))
+            .build();
+        addEbgpPeer(proc, leafIp, LEAF_AS_BASE + i, spineIp, SPINE_AS);
+        addEbgpPeer(spineProcs[j], spineIp, SPINE_AS, leafIp, LEAF_AS_BASE + i);
+      }
+      configurations.put(leaf.getHostname(), leaf);
+    }
+    return configurations.build();
+  }
+
+  /**
+   * Generates an ACL of {@code numLines} lines, each permitting or denying TCP or UDP traffic to a
+   * random destination prefix and port range. The last line permits everything else.
+   */
+  public static @Nonnull IpAccessList acl(String name, int numLines, long seed) {
+    Random random = new Random(seed);
+    ImmutableList.Builder<AclLine> lines = ImmutableList.builder();
+    for (int l = 0; l < numLines - 1; l++) {
+      int startPort = random.nextInt(65536);
+      HeaderSpace headerSpace =
+          HeaderSpace.builder()
+              .setIpProtocols(random.nextBoolean() ? IpProtocol.TCP : IpProtocol.UDP)
+              .setDstIps(randomPrefix(random, 8, 32).toIpSpace())
+              .setDstPorts(
+                  new SubRange(startPort, Math.min(65535, startPort + random.nextInt(1024))))
+              .build();
+      lines.add(
+          random.nextInt(4) == 0
+              ? ExprAclLine.rejectingHeaderSpace(headerSpace)
+              : ExprAclLine.acceptingHeaderSpace(headerSpace));
+    }
+    if (numLines > 0) {
+      lines.add(ExprAclLine.ACCEPT_ALL);
+    }
+    return IpAccessList.builder().setName(name).setLines(lines.build()).build();
+  }
+
+  /**
+   * Generates {@code numRoutes} static routes to random prefixes of length 8 to 32, each out one of
+   * {@code numInterfaces} interfaces named {@code Ethernet<k>}.
+   */
+  public static @Nonnull List<StaticRoute> staticRoutes(
+      int numRoutes, int numInterfaces, long seed) {
+    Random random = new Random(seed);
+    ImmutableList.Builder<StaticRoute> routes = ImmutableList.builder();
+    for (int r = 0; r < numRoutes; r++) {
+      routes.add(
+          StaticRoute.testBuilder()
+              .setNetwork(randomPrefix(random, 8, 32))
+              .setNextHopInterface("Ethernet" + random.nextInt(numInterfaces))
+              .setAdministrativeCost(1)
+              .build());
+    }
+    return routes.build();
+  }
+
+  /** Returns {@code count} random IPs. */
+  public static @Nonnull List<Ip> ips(int count, long seed) {
+    Random random = new Random(seed);
+    ImmutableList.Builder<Ip> ips = ImmutableList.builder();
+    for (int k = 0; k < count; k++) {
+      ips.add(Ip.create(random.nextInt() & 0xFFFFFFFFL));
+    }
+    return ips.build();
+  }
+
+  public static @Nonnull String leafName(int i) {
+    return "leaf" + i;
+  }
+
+  public static @Nonnull String spineName(int j) {
+    return "spine" + j;
+  }
+
+  private static @Nonnull Prefix randomPrefix(Random random, int minLength, int maxLength) {
+    int length = minLength + random.nextInt(maxLength - minLength + 1);
+    return Prefix.create(Ip.create(random.nextInt() & 0xFFFFFFFFL), length);
+  }
+
+  private static @Nonnull Configuration newRouter(NetworkFactory nf, String hostname) {
+    Configuration c =
+        nf.configurationBuilder()
+            .setHostname(hostname)
+            .setConfigurationFormat(ConfigurationFormat.CISCO_IOS)
+            .build();
+    RoutingPolicy.builder()
+        .setOwner(c)
+        .setName(EXPORT_POLICY_NAME)
+        .setStatements(
+            ImmutableList.of(
+                new If(
+                    new MatchProtocol(RoutingProtocol.CONNECTED, RoutingProtocol.BGP),
+                    ImmutableList.of(Statements.ExitAccept.toStaticStatement()),
+                    ImmutableList.of(Statements.ExitReject.toStaticStatement()))))
+        .build();
+    return c;
+  }
+
+  private static @Nonnull BgpProcess newBgpProcess(NetworkFactory nf, Vrf vrf, Ip routerId) {
+    BgpProcess proc =
+        nf.bgpProcessBuilder()
+            .setRouterId(routerId)
+            .setVrf(vrf)
+            .setAdminCostsToVendorDefaults(ConfigurationFormat.CISCO_IOS)
+            .build();
+    proc.setMultipathEbgp(true);
+    return proc;
+  }
+
+  private static void addEbgpPeer(
+      BgpProcess proc, Ip localIp, long localAs, Ip peerIp, long remoteAs) {
+    BgpActivePeerConfig.builder()
+        .setBgpProcess(proc)
+        .setLocalIp(localIp)
+        .setLocalAs(localAs)
+        .setPeerAddress(peerIp)
+        .setRemoteAs(remoteAs)
+        .setIpv4UnicastAddressFamily(
+            Ipv4UnicastAddressFamily.builder().setExportPolicy(EXPORT_POLICY_NAME).build())
+        .build();
+  }
+}
@@ -0,0 +1,83 @@
+package org.batfish.datamodel;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.batfish.benchmarks.SyntheticNetworkGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures building a {@link MultibitPrefixTrie} from an Internet-table-shaped set of prefixes, its
+ * memory footprint, and lookups in it.
+ *
+ * <p>This benchmark lives in the trie's package because the trie is package-private. The memory
+ * footprint of the trie's arrays is printed at the end of each trial, next to that of a layout with
+ * a full array of child and result indices per node.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MultibitPrefixTrieBenchmark {
+
+  @Param({"100000", "900000"})
+  public int _numPrefixes;
+
+  @Param({"10000"})
+  public int _numLookups;
+
+  private PrefixTrieMultiMap<Integer> _map;
+  private MultibitPrefixTrie<Integer> _trie;
+  private List<Ip> _lookups;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    // Roughly the length distribution of an Internet table: mostly /24s, the rest /8 to /23.
+    Random random = new Random(0);
+    _map = new PrefixTrieMultiMap<>(Prefix.ZERO);
+    for (int i = 0; i < _numPrefixes; i++) {
+      int length = random.nextInt(10) < 6 ? 24 : 8 + random.nextInt(16);
+      _map.put(Prefix.create(Ip.create(random.nextInt() & 0xFFFFFFFFL), length), i);
+    }
+    _trie = MultibitPrefixTrie.create(_map);
+    _lookups = SyntheticNetworkGenerator.ips(_numLookups, 1);
+  }
+
+  @TearDown(Level.Trial)
+  public void printFootprint() {
+    int nodes = _trie.getNumNodes();
+    System.out.printf(
+        "%n%d prefixes: %d nodes, %d bytes (%d bytes with uncompressed nodes)%n",
+        _numPrefixes,
+        nodes,
+        _trie.getArrayBytes(),
+        2L * Integer.BYTES * (1 << MultibitPrefixTrie.STRIDE) * nodes);
+  }
+
+  @Benchmark
+  public MultibitPrefixTrie<Integer> create() {
+    return MultibitPrefixTrie.create(_map);
+  }
+
+  @Benchmark
+  public void longestPrefixMatch(Blackhole bh) {
+    for (Ip ip : _lookups) {
+      bh.consume(_trie.longestPrefixMatch(ip));
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package org.batfish.dataplane.ibdp;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+import org.batfish.benchmarks.SyntheticNetworkGenerator;
+import org.batfish.common.plugin.DataPlanePlugin.ComputeDataPlaneResult;
+import org.batfish.common.topology.TopologyUtil;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.Topology;
+import org.batfish.datamodel.isis.IsisTopology;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures dataplane computation by {@link IncrementalBdpEngine} on synthetic eBGP Clos fabrics
+ * generated by {@link SyntheticNetworkGenerator#clos}.
+ *
+ * <p>This benchmark lives in the engine's package because the engine is package-private. Larger
+ * fabrics can be measured by overriding the parameters, e.g. {@code -p _numLeaves=10000}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IncrementalBdpEngineBenchmark {
+
+  @Param({"8", "64"})
+  public int _numLeaves;
+
+  @Param({"4"})
+  public int _numSpines;
+
+  @Param({"10"})
+  public int _numHostFilterLines;
+
+  private SortedMap<String, Configuration> _configurations;
+  private TopologyContext _topologyContext;
+
+  /**
+   * Generates fresh configurations before every invocation, so that no invocation can reuse state
+   * cached in the configurations by a previous one.
+   */
+  @Setup(Level.Invocation)
+  public void setup() {
+    _configurations = SyntheticNetworkGenerator.clos(_numLeaves, _numSpines, _numHostFilterLines);
+    Topology layer3Topology = TopologyUtil.synthesizeL3Topology(_configurations);
+    _topologyContext =
+        TopologyContext.builder()
+            .setLayer3Topology(layer3Topology)
+            .setIsisTopology(IsisTopology.initIsisTopology(_configurations, layer3Topology))
+            .build();
+  }
+
+  @Benchmark
+  public ComputeDataPlaneResult computeDataPlane() {
+    return new IncrementalBdpEngine(new IncrementalDataPlaneSettings())
+        .computeDataPlane(_configurations, _topologyContext, ImmutableSet.of());
+  }
+}
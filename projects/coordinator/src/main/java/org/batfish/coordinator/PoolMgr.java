@@ -1,6 +1,9 @@
 package org.batfish.coordinator;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
+import com.google.common.collect.EvictingQueue;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -16,6 +19,7 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import org.batfish.common.BatfishLogger;
 import org.batfish.common.BfConsts;
+import org.batfish.common.NetworkSnapshot;
 import org.batfish.common.util.CommonUtil;
 import org.batfish.coordinator.config.Settings;
 import org.codehaus.jettison.json.JSONArray;
@@ -34,26 +38,43 @@ public class PoolMgr {
 
   private final Settings _settings;
 
+  /**
+   * Number of snapshots most recently assigned to each worker that are assumed to still be cached
+   * by that worker. Matches the number of dataplanes cached by a worker.
+   */
+  private static final int MAX_CACHED_SNAPSHOTS_PER_WORKER = 2;
+
   // the key should be of the form <ip or hostname>:<port>
-  private Map<String, WorkerStatus> _workerPool;
+  private final Map<String, WorkerStatus> _workerPool;
+
+  /** The snapshots most recently assigned to each worker, oldest first. */
+  private final Map<String, EvictingQueue<NetworkSnapshot>> _workerSnapshots;
 
   public PoolMgr(Settings settings, BatfishLogger logger) {
     _settings = settings;
     _logger = logger;
     _workerPool = new HashMap<>();
+    _workerSnapshots = new HashMap<>();
   }
 
-  public synchronized void addToPool(String worker) {
+  public void addToPool(String worker) {
     // start out as unknown and trigger refresh in the background
-    _workerPool.put(worker, new WorkerStatus(WorkerStatus.StatusCode.UNKNOWN));
+    addToPool(worker, WorkerStatus.StatusCode.UNKNOWN);
 
     Thread thread = new Thread(() -> refreshWorkerStatus(worker));
 
     thread.start();
   }
 
+  @VisibleForTesting
+  synchronized void addToPool(String worker, WorkerStatus.StatusCode statusCode) {
+    _workerPool.put(worker, new WorkerStatus(statusCode));
+    _workerSnapshots.put(worker, EvictingQueue.create(MAX_CACHED_SNAPSHOTS_PER_WORKER));
+  }
+
   public synchronized void deleteFromPool(String worker) {
     _workerPool.remove(worker);
+    _workerSnapshots.remove(worker);
   }
 
   private synchronized List<String> getAllWorkers() {
@@ -76,17 +97,42 @@ public class PoolMgr {
     return copy;
   }
 
+  /**
+   * Claims an idle worker to assign the work with the given {@code details} to, by marking it
+   * {@link WorkerStatus.StatusCode#TRYINGTOASSIGN}. Returns {@code null} if no worker is idle.
+   *
+   * <p>Prefers a worker that was recently assigned work on the same snapshot (or reference
+   * snapshot), since it likely still caches that snapshot's configurations and dataplane.
+   */
   @Nullable
-  public synchronized String getWorkerForAssignment() {
-
+  public synchronized String getWorkerForAssignment(WorkDetails details) {
+    String idleWorker = null;
     for (Entry<String, WorkerStatus> workerEntry : _workerPool.entrySet()) {
-      if (workerEntry.getValue().getStatus() == WorkerStatus.StatusCode.IDLE) {
-        updateWorkerStatus(workerEntry.getKey(), WorkerStatus.StatusCode.TRYINGTOASSIGN);
-        return workerEntry.getKey();
+      if (workerEntry.getValue().getStatus() != WorkerStatus.StatusCode.IDLE) {
+        continue;
+      }
+      String worker = workerEntry.getKey();
+      if (hasCachedSnapshots(worker, details)) {
+        idleWorker = worker;
+        break;
+      } else if (idleWorker == null) {
+        idleWorker = worker;
       }
     }
+    if (idleWorker != null) {
+      updateWorkerStatus(idleWorker, WorkerStatus.StatusCode.TRYINGTOASSIGN);
+    }
+    return idleWorker;
+  }
 
-    return null;
+  @VisibleForTesting
+  synchronized boolean hasCachedSnapshots(String worker, WorkDetails details) {
+    Collection<NetworkSnapshot> snapshots = _workerSnapshots.get(worker);
+    return snapshots != null
+        && snapshots.contains(new NetworkSnapshot(details.getNetworkId(), details.getSnapshotId()))
+        && (details.getReferenceSnapshotId() == null
+            || snapshots.contains(
+                new NetworkSnapshot(details.getNetworkId(), details.getReferenceSnapshotId())));
   }
 
   @Nullable
@@ -94,9 +140,30 @@ public class PoolMgr {
     return _workerPool.get(worker);
   }
 
-  public void markAssignmentResult(String worker, boolean assignmentSuccessful) {
+  /**
+   * Records the result of assigning the work with the given {@code details} to {@code worker},
+   * remembering the snapshots of successfully assigned work for {@link #getWorkerForAssignment}.
+   */
+  public synchronized void markAssignmentResult(
+      String worker, WorkDetails details, boolean assignmentSuccessful) {
     updateWorkerStatus(
         worker, assignmentSuccessful ? WorkerStatus.StatusCode.BUSY : WorkerStatus.StatusCode.IDLE);
+    EvictingQueue<NetworkSnapshot> snapshots = _workerSnapshots.get(worker);
+    if (!assignmentSuccessful || snapshots == null) {
+      return;
+    }
+    if (details.getReferenceSnapshotId() != null) {
+      recordSnapshot(
+          snapshots, new NetworkSnapshot(details.getNetworkId(), details.getReferenceSnapshotId()));
+    }
+    recordSnapshot(snapshots, new NetworkSnapshot(details.getNetworkId(), details.getSnapshotId()));
+  }
+
+  private static void recordSnapshot(
+      EvictingQueue<NetworkSnapshot> snapshots, NetworkSnapshot snapshot) {
+    // move to the back of the queue, so the least recently used snapshot is evicted first
+    snapshots.remove(snapshot);
+    snapshots.add(snapshot);
   }
 
   public void refreshWorkerStatus() {
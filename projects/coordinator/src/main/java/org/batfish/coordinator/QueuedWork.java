@@ -26,7 +26,7 @@ public class QueuedWork {
   WorkDetails _details;
 
   Task _lastTaskCheckResult;
-  WorkStatusCode _status;
+  volatile WorkStatusCode _status;
   WorkItem _workItem;
 
   /** For tracing */
@@ -112,6 +112,18 @@ public class QueuedWork {
     _status = status;
   }
 
+  /**
+   * Atomically sets the status of this work to {@code status} if it is currently {@code expected}.
+   * Returns whether the status was updated.
+   */
+  public synchronized boolean compareAndSetStatus(WorkStatusCode expected, WorkStatusCode status) {
+    if (_status != expected) {
+      return false;
+    }
+    setStatus(status);
+    return true;
+  }
+
   @Override
   public String toString() {
     return String.format(
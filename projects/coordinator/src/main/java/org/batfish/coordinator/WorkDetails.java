@@ -76,6 +76,12 @@ public final class WorkDetails {
     }
   }
 
+  /** Scheduling class of work. Interactive work is assigned to workers before batch work. */
+  public enum WorkPriority {
+    INTERACTIVE,
+    BATCH
+  }
+
   public enum WorkType {
     DATAPLANE_DEPENDENT_ANSWERING,
     DATAPLANING,
@@ -142,6 +148,25 @@ public final class WorkDetails {
     return _workType;
   }
 
+  /**
+   * Returns the scheduling class of this work. Answering questions is interactive, while parsing
+   * snapshots and computing dataplanes are long-running batch work.
+   */
+  public @Nonnull WorkPriority getPriority() {
+    switch (_workType) {
+      case DATAPLANE_DEPENDENT_ANSWERING:
+      case INDEPENDENT_ANSWERING:
+      case PARSING_DEPENDENT_ANSWERING:
+        return WorkPriority.INTERACTIVE;
+      case DATAPLANING:
+      case PARSING:
+      case UNKNOWN:
+        return WorkPriority.BATCH;
+      default:
+        throw new IllegalStateException("Unknown WorkType " + _workType);
+    }
+  }
+
   public boolean isOverlappingInput(WorkDetails o) {
     return _snapshotId.equals(o._snapshotId)
         || _snapshotId.equals(o._referenceSnapshotId)
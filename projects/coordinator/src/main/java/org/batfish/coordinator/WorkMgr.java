@@ -14,13 +14,17 @@ import static java.util.stream.Collectors.toCollection;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Splitter;
 import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Comparators;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.collect.Maps;
+import com.google.common.io.CountingInputStream;
 import com.google.errorprone.annotations.MustBeClosed;
 import io.opentracing.References;
 import io.opentracing.Scope;
@@ -28,6 +32,9 @@ import io.opentracing.Span;
 import io.opentracing.SpanContext;
 import io.opentracing.util.GlobalTracer;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -38,6 +45,7 @@ import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
@@ -52,7 +60,9 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.SortedMap;
 import java.util.SortedSet;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.UUID;
 import java.util.concurrent.ArrayBlockingQueue;
@@ -65,6 +75,8 @@ import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.ws.rs.ProcessingException;
@@ -73,6 +85,7 @@ import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.CloseShieldInputStream;
 import org.batfish.common.AnswerRowsOptions;
 import org.batfish.common.BatfishException;
 import org.batfish.common.BatfishLogger;
@@ -123,6 +136,7 @@ import org.batfish.datamodel.pojo.Topology;
 import org.batfish.datamodel.questions.Question;
 import org.batfish.datamodel.questions.Variable;
 import org.batfish.datamodel.table.ColumnMetadata;
+import org.batfish.datamodel.table.ColumnarTable;
 import org.batfish.datamodel.table.Row;
 import org.batfish.datamodel.table.TableAnswerElement;
 import org.batfish.datamodel.table.TableMetadata;
@@ -155,6 +169,9 @@ public class WorkMgr extends AbstractCoordinator {
 
   private static final Comparator<Node> COMPARATOR_NODE = Comparator.comparing(Node::getName);
 
+  /** Approximate memory budget for the columnar forms of answers kept for paging. */
+  private static final long MAX_COLUMNAR_ANSWERS_CACHE_BYTES = 512L * 1024 * 1024;
+
   private static final Comparator<Trace> COMPARATOR_TRACE =
       Comparator.comparing(Trace::getDisposition)
           .thenComparing(
@@ -245,6 +262,19 @@ public class WorkMgr extends AbstractCoordinator {
     }
   }
 
+  /**
+   * Top-level snapshot files that are read or rewritten before they are stored when streaming a
+   * snapshot zip.
+   */
+  private static final Set<String> BUFFERED_SNAPSHOT_FILENAMES =
+      ImmutableSet.of(
+          BfConsts.RELPATH_INTERFACE_BLACKLIST_FILE,
+          BfConsts.RELPATH_REFERENCE_LIBRARY_PATH,
+          BfConsts.RELPATH_RUNTIME_DATA_FILE);
+
+  /** Number of files after which progress of streaming a snapshot zip is logged. */
+  private static final int UPLOAD_PROGRESS_INTERVAL = 1000;
+
   private static final Set<String> WELL_KNOWN_NETWORK_FILENAMES =
       ImmutableSet.of(BfConsts.RELPATH_REFERENCE_LIBRARY_PATH, BfConsts.RELPATH_NODE_ROLES_PATH);
 
@@ -259,6 +289,23 @@ public class WorkMgr extends AbstractCoordinator {
   private final StorageProvider _storage;
   private final ExecutorService _gcExecutor;
 
+  /**
+   * The columnar form of an answer, along with the {@link StorageProvider#getAnswerVersion version}
+   * of the answer it was created from.
+   */
+  private static final class ColumnarAnswer {
+    private final @Nonnull String _answerVersion;
+    private final @Nonnull ColumnarTable _table;
+
+    private ColumnarAnswer(String answerVersion, ColumnarTable table) {
+      _answerVersion = answerVersion;
+      _table = table;
+    }
+  }
+
+  /** Columnar forms of recently paged answers. Validated against storage before each use. */
+  private final Cache<AnswerId, ColumnarAnswer> _columnarAnswers;
+
   public WorkMgr(
       Settings settings,
       BatfishLogger logger,
@@ -275,6 +322,13 @@ public class WorkMgr extends AbstractCoordinator {
     _gcExecutor =
         new ThreadPoolExecutor(
             0, 1, 0L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1), new DiscardOldestPolicy());
+    _columnarAnswers =
+        CacheBuilder.newBuilder()
+            .maximumWeight(MAX_COLUMNAR_ANSWERS_CACHE_BYTES)
+            .<AnswerId, ColumnarAnswer>weigher(
+                (answerId, answer) ->
+                    (int) Math.min(Integer.MAX_VALUE, answer._table.getSizeInBytes()))
+            .build();
   }
 
   @VisibleForTesting
@@ -282,34 +336,45 @@ public class WorkMgr extends AbstractCoordinator {
     return _storage;
   }
 
+  /**
+   * Assigns queued work to idle workers, one work per worker, until there is no more unassigned
+   * work or no more idle workers.
+   */
   private void assignWork() {
 
     try {
-      QueuedWork work = _workQueueMgr.getWorkForAssignment();
+      int numWorkers = Main.getPoolMgr().getNumWorkers();
+      for (int i = 0; i < numWorkers; i++) {
+        QueuedWork work = _workQueueMgr.getWorkForAssignment();
 
-      // get out if no work was found
-      if (work == null) {
-        // _logger.info("WM:AssignWork: No unassigned work\n");
-        return;
-      }
+        // get out if no work was found
+        if (work == null) {
+          // _logger.info("WM:AssignWork: No unassigned work\n");
+          return;
+        }
 
-      String idleWorker = Main.getPoolMgr().getWorkerForAssignment();
+        String idleWorker = Main.getPoolMgr().getWorkerForAssignment(work.getDetails());
 
-      // get out if no idle worker was found, but release the work first
-      if (idleWorker == null) {
-        _workQueueMgr.markAssignmentFailure(work);
+        // get out if no idle worker was found, but release the work first
+        if (idleWorker == null) {
+          _workQueueMgr.markAssignmentFailure(work);
 
-        _logger.info("WM:AssignWork: No idle worker\n");
-        return;
-      }
+          _logger.info("WM:AssignWork: No idle worker\n");
+          return;
+        }
 
-      assignWork(work, idleWorker);
+        if (!assignWork(work, idleWorker)) {
+          // do not retry right away; the work will be retried on the next scheduled assignment
+          return;
+        }
+      }
     } catch (Exception e) {
       _logger.errorf("Got exception in assignWork: %s\n", Throwables.getStackTraceAsString(e));
     }
   }
 
-  private void assignWork(QueuedWork work, String worker) {
+  /** Tries to assign {@code work} to {@code worker}. Returns whether the work was assigned. */
+  private boolean assignWork(QueuedWork work, String worker) {
 
     _logger.infof("WM:AssignWork: Trying to assign %s to %s\n", work, worker);
 
@@ -353,7 +418,7 @@ public class WorkMgr extends AbstractCoordinator {
       try (Response response = webTarget.request(MediaType.APPLICATION_JSON).get()) {
         if (response.getStatus() != Response.Status.OK.getStatusCode()) {
           _logger.errorf("WM:AssignWork: Got non-OK response %s\n", response.getStatus());
-          return;
+          return false;
         }
         String sobj = response.readEntity(String.class);
         array = new JSONArray(sobj);
@@ -394,7 +459,7 @@ public class WorkMgr extends AbstractCoordinator {
     }
 
     if (work.getStatus() == WorkStatusCode.TERMINATEDBYUSER) {
-      return;
+      return assigned;
     }
 
     // mark the assignment results for both work and worker
@@ -417,7 +482,8 @@ public class WorkMgr extends AbstractCoordinator {
       _workQueueMgr.markAssignmentFailure(work);
     }
 
-    Main.getPoolMgr().markAssignmentResult(worker, assigned);
+    Main.getPoolMgr().markAssignmentResult(worker, work.getDetails(), assigned);
+    return assigned;
   }
 
   private void checkTasks() {
@@ -879,6 +945,217 @@ public class WorkMgr extends AbstractCoordinator {
     }
   }
 
+  /**
+   * Get the rows of the answer for the specified question, processed according to {@code options}
+   * as by {@link #processAnswerRows}.
+   *
+   * @throws IllegalArgumentException if the network, question, analysis, or snapshots cannot be
+   *     found
+   */
+  public @Nonnull Answer getAnswerRows(
+      String network,
+      String snapshot,
+      String question,
+      @Nullable String referenceSnapshot,
+      @Nullable String analysis,
+      AnswerRowsOptions options)
+      throws JsonProcessingException {
+    return getAnswerPage(network, snapshot, question, referenceSnapshot, analysis, options, false);
+  }
+
+  /**
+   * Get the rows of the answer for the specified question, processed according to {@code options}
+   * as by {@link #processAnswerRows2}.
+   *
+   * @throws IllegalArgumentException if the network, question, analysis, or snapshots cannot be
+   *     found
+   */
+  public @Nonnull Answer getAnswerRows2(
+      String network,
+      String snapshot,
+      String question,
+      @Nullable String referenceSnapshot,
+      @Nullable String analysis,
+      AnswerRowsOptions options)
+      throws JsonProcessingException {
+    return getAnswerPage(network, snapshot, question, referenceSnapshot, analysis, options, true);
+  }
+
+  /**
+   * Serves a page of a table answer from its columnar form, which is created and stored alongside
+   * the answer the first time the answer is paged. Pages of any other answer are computed from the
+   * answer string.
+   */
+  private @Nonnull Answer getAnswerPage(
+      String network,
+      String snapshot,
+      String question,
+      @Nullable String referenceSnapshot,
+      @Nullable String analysis,
+      AnswerRowsOptions options,
+      boolean asTableView)
+      throws JsonProcessingException {
+    AnswerId answerId = getAnswerId(network, snapshot, question, referenceSnapshot, analysis);
+    // Read the version before the answer, so that a columnar form is never tagged with a newer
+    // version than the answer it was created from
+    String answerVersion = getAnswerVersionOrNull(answerId);
+    ColumnarTable table =
+        answerVersion == null ? null : loadColumnarAnswerOrNull(answerId, answerVersion);
+    if (table == null) {
+      String rawAnswer = getAnswerString(network, snapshot, question, referenceSnapshot, analysis);
+      table =
+          answerVersion == null ? null : createColumnarAnswer(answerId, answerVersion, rawAnswer);
+      if (table == null) {
+        return asTableView
+            ? processAnswerRows2(rawAnswer, options)
+            : processAnswerRows(rawAnswer, options);
+      }
+    }
+    try {
+      return processColumnarAnswer(table, options, asTableView);
+    } catch (Exception e) {
+      _logger.errorf("Failed to process answer rows: %s\n", Throwables.getStackTraceAsString(e));
+      return Answer.failureAnswer(e.getMessage(), null);
+    }
+  }
+
+  /**
+   * Get the answer for the specified question, filtered according to {@code options} as by {@link
+   * #filterAnswer}. Returns {@code null} if the question is not answered.
+   *
+   * @throws IllegalArgumentException if the network, question, analysis, or snapshots cannot be
+   *     found
+   * @throws IOException if there are any other errors
+   */
+  public @Nullable Answer getFilteredAnswer(
+      String network,
+      String snapshot,
+      String question,
+      @Nullable String referenceSnapshot,
+      @Nullable String analysis,
+      AnswerRowsOptions options)
+      throws IOException {
+    AnswerId answerId = getAnswerId(network, snapshot, question, referenceSnapshot, analysis);
+    // No metadata means the question has not been answered
+    if (!_storage.hasAnswerMetadata(answerId)) {
+      return null;
+    }
+    String answerVersion = _storage.getAnswerVersion(answerId);
+    ColumnarTable table = loadColumnarAnswerOrNull(answerId, answerVersion);
+    if (table == null) {
+      String rawAnswer = _storage.loadAnswer(answerId);
+      table = createColumnarAnswer(answerId, answerVersion, rawAnswer);
+      if (table == null) {
+        return filterAnswer(
+            BatfishObjectMapper.mapper().readValue(rawAnswer, Answer.class), options);
+      }
+    }
+    return processColumnarAnswer(table, options, true);
+  }
+
+  private @Nonnull Answer processColumnarAnswer(
+      ColumnarTable table, AnswerRowsOptions options, boolean asTableView) {
+    Map<String, ColumnMetadata> rawColumnMap = table.getMetadata().toColumnMap();
+    Function<List<ColumnSortOption>, Comparator<Row>> comparators =
+        sortOrder -> buildComparator(rawColumnMap, sortOrder);
+    Answer answer = new Answer();
+    answer.setStatus(AnswerStatus.SUCCESS);
+    answer.addAnswerElement(
+        asTableView
+            ? table.getTableView(options, comparators)
+            : table.getAnswerTable(options, comparators));
+    return answer;
+  }
+
+  /**
+   * Returns the version of the specified answer, or {@code null} if it does not exist or its
+   * version cannot be read.
+   */
+  private @Nullable String getAnswerVersionOrNull(AnswerId answerId) {
+    try {
+      return _storage.getAnswerVersion(answerId);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns the stored columnar form of the specified version of an answer, or {@code null} if
+   * there is none or it cannot be read.
+   */
+  private @Nullable ColumnarTable loadColumnarAnswerOrNull(
+      AnswerId answerId, String answerVersion) {
+    try {
+      return loadColumnarAnswer(answerId, answerVersion);
+    } catch (IOException e) {
+      _logger.warnf(
+          "Could not load columnar answer %s, falling back to answer string: %s\n",
+          answerId, Throwables.getStackTraceAsString(e));
+      return null;
+    }
+  }
+
+  /**
+   * Returns the stored columnar form of the specified version of an answer, or {@code null} if
+   * there is none. A columnar form created from another version of the answer is ignored: it may
+   * have been stored by a request that read the answer just before it was replaced.
+   */
+  private @Nullable ColumnarTable loadColumnarAnswer(AnswerId answerId, String answerVersion)
+      throws IOException {
+    ColumnarAnswer cached = _columnarAnswers.getIfPresent(answerId);
+    if (cached != null && cached._answerVersion.equals(answerVersion)) {
+      return cached._table;
+    }
+    _columnarAnswers.invalidate(answerId);
+    if (!_storage.hasAnswerColumns(answerId)) {
+      return null;
+    }
+    ColumnarAnswer stored;
+    try (DataInputStream in = new DataInputStream(_storage.loadAnswerColumns(answerId))) {
+      stored = new ColumnarAnswer(in.readUTF(), ColumnarTable.deserialize(in));
+    }
+    if (!stored._answerVersion.equals(answerVersion)) {
+      return null;
+    }
+    _columnarAnswers.put(answerId, stored);
+    return stored._table;
+  }
+
+  /**
+   * Creates, caches, and stores the columnar form of {@code rawAnswer}, which is the specified
+   * version of the answer. Returns {@code null} if it is not a successful answer with a table.
+   */
+  private @Nullable ColumnarTable createColumnarAnswer(
+      AnswerId answerId, String answerVersion, String rawAnswer) {
+    TableAnswerElement rawTable;
+    try {
+      Answer answer = BatfishObjectMapper.mapper().readValue(rawAnswer, Answer.class);
+      if (answer.getStatus() != AnswerStatus.SUCCESS
+          || answer.getAnswerElements().isEmpty()
+          || !(answer.getAnswerElements().get(0) instanceof TableAnswerElement)) {
+        return null;
+      }
+      rawTable = (TableAnswerElement) answer.getAnswerElements().get(0);
+    } catch (IOException e) {
+      // let the caller report the error
+      return null;
+    }
+    ColumnarTable table = ColumnarTable.create(rawTable);
+    _columnarAnswers.put(answerId, new ColumnarAnswer(answerVersion, table));
+    try {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      // the columnar form is prefixed with the version of the answer it was created from
+      new DataOutputStream(out).writeUTF(answerVersion);
+      table.serialize(out);
+      _storage.storeAnswerColumns(new ByteArrayInputStream(out.toByteArray()), answerId);
+    } catch (IOException e) {
+      _logger.warnf(
+          "Could not store columnar answer %s: %s\n",
+          answerId, Throwables.getStackTraceAsString(e));
+    }
+    return table;
+  }
+
   /**
    * Get the answer string for the specified question. Returns {@code null} if the question is not
    * answered.
@@ -890,6 +1167,26 @@ public class WorkMgr extends AbstractCoordinator {
       @Nullable String referenceSnapshot,
       @Nullable String analysis)
       throws IOException {
+    AnswerId answerId = getAnswerId(network, snapshot, question, referenceSnapshot, analysis);
+    // No metadata means the question has not been answered
+    if (!_storage.hasAnswerMetadata(answerId)) {
+      return null;
+    }
+    return _storage.loadAnswer(answerId);
+  }
+
+  /**
+   * Get the ID of the answer for the specified question.
+   *
+   * @throws IllegalArgumentException if the network, question, analysis, or snapshots cannot be
+   *     found
+   */
+  private @Nonnull AnswerId getAnswerId(
+      String network,
+      String snapshot,
+      String question,
+      @Nullable String referenceSnapshot,
+      @Nullable String analysis) {
     Optional<NetworkId> networkIdOpt = _idManager.getNetworkId(network);
     checkArgument(networkIdOpt.isPresent(), "Missing network: '%s'", network);
     NetworkId networkId = networkIdOpt.get();
@@ -924,14 +1221,8 @@ public class WorkMgr extends AbstractCoordinator {
       referenceSnapshotId = referenceSnapshotIdOpt.get();
     }
     NodeRolesId networkNodeRolesId = getOrDefaultNodeRolesId(networkId);
-    AnswerId answerId =
-        _idManager.getAnswerId(
-            networkId, snapshotId, questionId, networkNodeRolesId, referenceSnapshotId, analysisId);
-    // No metadata means the question has not been answered
-    if (!_storage.hasAnswerMetadata(answerId)) {
-      return null;
-    }
-    return _storage.loadAnswer(answerId);
+    return _idManager.getAnswerId(
+        networkId, snapshotId, questionId, networkNodeRolesId, referenceSnapshotId, analysisId);
   }
 
   /**
@@ -1364,19 +1655,7 @@ public class WorkMgr extends AbstractCoordinator {
       } else if (isWellKnownNetworkFile(subFile)) {
         if (name.equals(BfConsts.RELPATH_REFERENCE_LIBRARY_PATH)) {
           referenceLibraryData = true;
-          try {
-            ReferenceLibrary testrigData =
-                BatfishObjectMapper.mapper()
-                    .readValue(CommonUtil.readFile(subFile), ReferenceLibrary.class);
-            ReferenceLibrary mergedLibrary =
-                getReferenceLibrary(networkName)
-                    .mergeReferenceBooks(testrigData.getReferenceBooks());
-            _storage.storeReferenceLibrary(mergedLibrary, networkId);
-          } catch (IOException e) {
-            // lets not stop the upload because that file is busted.
-            // TODO: figure out a way to surface this error to the user
-            _logger.errorf("Could not process reference library data: %s", e);
-          }
+          mergeReferenceLibrary(networkName, networkId, subFile);
         }
       }
       // Copy everything over
@@ -1411,6 +1690,198 @@ public class WorkMgr extends AbstractCoordinator {
     _logger.infof(
         "Environment data for snapshot:%s; bgpTables:%s, nodeRoles:%s referenceBooks:%s\n",
         snapshotName, bgpTables, roleData, referenceLibraryData);
+    assignSnapshot(networkName, snapshotName, networkId, snapshotId, autoAnalyze);
+  }
+
+  /**
+   * Initializes a new snapshot by streaming the entries of the given snapshot zip directly into
+   * snapshot input objects, without first extracting the whole zip to disk.
+   *
+   * <p>The zip must have the same packaging as a directory passed to {@link #initSnapshot(String,
+   * String, Path, boolean, Instant)}: a single top-level folder containing a network configs, AWS
+   * configs, or hosts dir. Only the few top-level files that must be read or rewritten before they
+   * are stored (the interface blacklist, runtime data, and reference library) are buffered in a
+   * temporary directory.
+   *
+   * <p>Packaging errors that can only be detected once the whole zip has been read are reported
+   * after the other entries were stored. If initialization fails, all data stored for the new
+   * snapshot ID is deleted before the error is rethrown.
+   */
+  @VisibleForTesting
+  void initSnapshotFromZip(
+      String networkName,
+      String snapshotName,
+      InputStream zipStream,
+      boolean autoAnalyze,
+      Instant creationTime) {
+    Optional<NetworkId> networkIdOpt = _idManager.getNetworkId(networkName);
+    checkArgument(networkIdOpt.isPresent(), "Missing network '%s'", networkName);
+    NetworkId networkId = networkIdOpt.get();
+    SnapshotId snapshotId = _idManager.generateSnapshotId();
+    NetworkSnapshot snapshot = new NetworkSnapshot(networkId, snapshotId);
+    try {
+      storeSnapshotFromZip(networkName, snapshotName, snapshot, zipStream, creationTime);
+    } catch (RuntimeException e) {
+      try {
+        _storage.deleteSnapshot(snapshot);
+      } catch (IOException | RuntimeException deleteException) {
+        _logger.errorf(
+            "Failed to delete data of rejected snapshot %s: %s\n",
+            snapshotName, Throwables.getStackTraceAsString(deleteException));
+        e.addSuppressed(deleteException);
+      }
+      throw e;
+    }
+    assignSnapshot(networkName, snapshotName, networkId, snapshotId, autoAnalyze);
+  }
+
+  /**
+   * Stores the metadata and input objects of the new {@code snapshot} from the given snapshot zip.
+   * See {@link #initSnapshotFromZip(String, String, InputStream, boolean, Instant)}.
+   */
+  private void storeSnapshotFromZip(
+      String networkName,
+      String snapshotName,
+      NetworkSnapshot snapshot,
+      InputStream zipStream,
+      Instant creationTime) {
+    NetworkId networkId = snapshot.getNetwork();
+    try {
+      _snapshotMetadataManager.writeMetadata(
+          new SnapshotMetadata(creationTime, null), networkId, snapshot.getSnapshot());
+    } catch (Exception e) {
+      throw new BatfishException("Could not write testrigMetadata", e);
+    }
+
+    Path bufferDir = CommonUtil.createTempDirectory("tr");
+    try {
+      Set<String> topLevelEntries = new TreeSet<>();
+      boolean topLevelFile = false;
+      // top-level dir or file in the snapshot folder (e.g., configs) -> number of files
+      SortedMap<String, Integer> inputCounts = new TreeMap<>();
+      int files = 0;
+      CountingInputStream countingStream = new CountingInputStream(zipStream);
+      try (ZipInputStream zipIn = new ZipInputStream(countingStream)) {
+        for (ZipEntry entry = zipIn.getNextEntry(); entry != null; entry = zipIn.getNextEntry()) {
+          List<String> segments = getZipEntrySegments(entry);
+          if (segments.isEmpty() || IGNORED_PATHS.contains(segments.get(0))) {
+            continue;
+          }
+          topLevelEntries.add(segments.get(0));
+          if (segments.size() == 1) {
+            topLevelFile |= !entry.isDirectory();
+            continue;
+          }
+          String key = String.join("/", segments.subList(1, segments.size()));
+          inputCounts.putIfAbsent(segments.get(1), 0);
+          if (entry.isDirectory()) {
+            continue;
+          }
+          if (segments.size() == 2 && BUFFERED_SNAPSHOT_FILENAMES.contains(key)) {
+            Files.copy(zipIn, bufferDir.resolve(key), StandardCopyOption.REPLACE_EXISTING);
+          } else {
+            _storage.storeSnapshotInputObject(new CloseShieldInputStream(zipIn), key, snapshot);
+          }
+          inputCounts.merge(segments.get(1), 1, Integer::sum);
+          files++;
+          if (files % UPLOAD_PROGRESS_INTERVAL == 0) {
+            _logger.infof(
+                "Snapshot %s: unpacked %d files from %d uploaded bytes\n",
+                snapshotName, files, countingStream.getCount());
+          }
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to extract uploaded zip", e);
+      }
+      _logger.infof(
+          "Snapshot %s: unpacked %d files from %d uploaded bytes: %s\n",
+          snapshotName, files, countingStream.getCount(), inputCounts);
+
+      if (topLevelEntries.size() != 1 || topLevelFile) {
+        throw new BatfishException(
+            String.format(
+                "Unexpected packaging of snapshot. There should be just one top-level folder.  See"
+                    + " %s for more details on how to package your snapshot for analysis.",
+                SNAPSHOT_PACKAGING_INSTRUCTIONS_URL));
+      }
+      if (!inputCounts.containsKey(BfConsts.RELPATH_HOST_CONFIGS_DIR)
+          && !inputCounts.containsKey(BfConsts.RELPATH_CONFIGURATIONS_DIR)
+          && !inputCounts.containsKey(BfConsts.RELPATH_AWS_CONFIGS_DIR)) {
+        throw new BatfishException(
+            String.format(
+                "Unexpected packaging of snapshot. No networks configs dir '%s', AWS configs dir"
+                    + " '%s', or hosts dir '%s' found. See %s for more details on how to package"
+                    + " your snapshot for analysis.",
+                BfConsts.RELPATH_CONFIGURATIONS_DIR,
+                BfConsts.RELPATH_AWS_CONFIGS_DIR,
+                BfConsts.RELPATH_HOST_CONFIGS_DIR,
+                SNAPSHOT_PACKAGING_INSTRUCTIONS_URL));
+      }
+
+      // If interface blacklist was provided, delete it and copy contents into runtime data
+      List<NodeInterfacePair> ifaceBlacklist =
+          deserializeAndDeleteInterfaceBlacklist(
+              bufferDir.resolve(BfConsts.RELPATH_INTERFACE_BLACKLIST_FILE));
+      updateRuntimeData(
+          bufferDir.resolve(BfConsts.RELPATH_RUNTIME_DATA_FILE),
+          ifaceBlacklist,
+          ImmutableList.of());
+      Path referenceLibraryPath = bufferDir.resolve(BfConsts.RELPATH_REFERENCE_LIBRARY_PATH);
+      if (Files.exists(referenceLibraryPath)) {
+        mergeReferenceLibrary(networkName, networkId, referenceLibraryPath);
+      }
+      for (Path buffered : getEntries(bufferDir)) {
+        try (InputStream srcFileStream = Files.newInputStream(buffered)) {
+          _storage.storeSnapshotInputObject(
+              srcFileStream, buffered.getFileName().toString(), snapshot);
+        } catch (IOException e) {
+          throw new UncheckedIOException(String.format("Failed to copy: '%s'", buffered), e);
+        }
+      }
+    } finally {
+      CommonUtil.deleteDirectory(bufferDir);
+    }
+  }
+
+  /**
+   * Returns the non-empty path segments of the name of the given zip entry, which may start with
+   * '/'.
+   *
+   * @throws BatfishException if the entry would be extracted outside of the extraction directory
+   */
+  private static List<String> getZipEntrySegments(ZipEntry entry) {
+    List<String> segments = Splitter.on('/').omitEmptyStrings().splitToList(entry.getName());
+    if (segments.contains("..")) {
+      throw new BatfishException(
+          String.format("Zip entry %s is outside extraction target directory", entry.getName()));
+    }
+    return segments;
+  }
+
+  /** Merges the reference books in the given reference library file into the network's. */
+  private void mergeReferenceLibrary(
+      String networkName, NetworkId networkId, Path referenceLibraryPath) {
+    try {
+      ReferenceLibrary testrigData =
+          BatfishObjectMapper.mapper()
+              .readValue(CommonUtil.readFile(referenceLibraryPath), ReferenceLibrary.class);
+      ReferenceLibrary mergedLibrary =
+          getReferenceLibrary(networkName).mergeReferenceBooks(testrigData.getReferenceBooks());
+      _storage.storeReferenceLibrary(mergedLibrary, networkId);
+    } catch (IOException e) {
+      // lets not stop the upload because that file is busted.
+      // TODO: figure out a way to surface this error to the user
+      _logger.errorf("Could not process reference library data: %s", e);
+    }
+  }
+
+  /** Makes the new snapshot visible under the given name and queues its auto-analysis work. */
+  private void assignSnapshot(
+      String networkName,
+      String snapshotName,
+      NetworkId networkId,
+      SnapshotId snapshotId,
+      boolean autoAnalyze) {
     _idManager.assignSnapshot(snapshotName, networkId, snapshotId);
     if (autoAnalyze) {
       for (WorkItem workItem : getAutoWorkQueue(networkName, snapshotName)) {
@@ -2039,20 +2510,11 @@ public class WorkMgr extends AbstractCoordinator {
       throw new UncheckedIOException(e);
     }
 
-    Path unzipDir = CommonUtil.createTempDirectory("tr");
     try (InputStream zipStream = _storage.loadUploadSnapshotZip(uploadZipKey, networkId)) {
-      UnzipUtility.unzip(zipStream, unzipDir);
-    } catch (IOException e) {
-      throw new UncheckedIOException("Failed to extract uploaded zip", e);
-    }
-
-    try {
-      initSnapshot(networkName, snapshotName, unzipDir, autoAnalyze, creationTime);
+      initSnapshotFromZip(networkName, snapshotName, zipStream, autoAnalyze, creationTime);
     } catch (Exception e) {
       throw new BatfishException(
           String.format("Error initializing snapshot: %s", e.getMessage()), e);
-    } finally {
-      CommonUtil.deleteDirectory(unzipDir);
     }
     // Trigger GC since uploading initial snapshot can change expungeBeforeDate
     triggerGarbageCollection();
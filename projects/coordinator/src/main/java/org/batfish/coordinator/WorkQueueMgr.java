@@ -4,10 +4,18 @@ import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -19,6 +27,7 @@ import org.batfish.common.CoordConsts.WorkStatusCode;
 import org.batfish.common.Task;
 import org.batfish.common.WorkItem;
 import org.batfish.common.util.WorkItemBuilder;
+import org.batfish.coordinator.WorkDetails.WorkPriority;
 import org.batfish.coordinator.WorkDetails.WorkType;
 import org.batfish.coordinator.queues.MemoryQueue;
 import org.batfish.coordinator.queues.WorkQueue;
@@ -30,9 +39,17 @@ import org.batfish.identifiers.SnapshotId;
 import org.codehaus.jettison.json.JSONException;
 import org.codehaus.jettison.json.JSONObject;
 
-// the design of this WorkQueueMgr is such that all synchronization sits here
-// individual queues do not need to be synchronized
-
+/**
+ * Tracks queued work through assignment, status checks and completion.
+ *
+ * <p>The queues themselves may be read concurrently with updates, so lookups and listings do not
+ * lock the manager. Assignment and status checks claim individual works by atomically updating
+ * their status. Only operations that move work between queues or depend on the status of other work
+ * (blocking and unblocking) are synchronized on the manager.
+ *
+ * <p>Work available for assignment is indexed by priority and network, so that claiming work does
+ * not scan the queue. The index has its own lock, held only briefly.
+ */
 public class WorkQueueMgr {
 
   public enum QueueType {
@@ -46,11 +63,29 @@ public class WorkQueueMgr {
   private BatfishLogger _logger;
   private SnapshotMetadataMgr _snapshotMetadataManager;
 
-  @GuardedBy("this")
-  private WorkQueue _queueCompletedWork;
+  private final WorkQueue _queueCompletedWork;
 
-  @GuardedBy("this")
-  private WorkQueue _queueIncompleteWork;
+  private final WorkQueue _queueIncompleteWork;
+
+  private final Object _assignmentIndexLock = new Object();
+
+  /**
+   * Unassigned work by priority and network, each keyed by position in the incomplete queue. Work
+   * claimed or completed since it was indexed is dropped when encountered.
+   */
+  @GuardedBy("_assignmentIndexLock")
+  private final Map<WorkPriority, Map<NetworkId, NavigableMap<Long, QueuedWork>>> _unassignedWork;
+
+  /** IDs of the work being assigned, assigned or being checked, by network. */
+  @GuardedBy("_assignmentIndexLock")
+  private final Map<NetworkId, Set<UUID>> _inProgressWork;
+
+  /** Position in the incomplete queue of each incomplete work, by ID. */
+  @GuardedBy("_assignmentIndexLock")
+  private final Map<UUID, Long> _queuePositions;
+
+  @GuardedBy("_assignmentIndexLock")
+  private long _nextQueuePosition;
 
   WorkQueueMgr(BatfishLogger logger, SnapshotMetadataMgr snapshotMetadataManager) {
     this(Main.getSettings().getQueueType(), logger, snapshotMetadataManager);
@@ -58,6 +93,9 @@ public class WorkQueueMgr {
 
   WorkQueueMgr(Type wqType, BatfishLogger logger, SnapshotMetadataMgr snapshotMetadataManager) {
     _blockingWork = new HashSet<>();
+    _unassignedWork = new EnumMap<>(WorkPriority.class);
+    _inProgressWork = new HashMap<>();
+    _queuePositions = new HashMap<>();
     _logger = logger;
     _snapshotMetadataManager = snapshotMetadataManager;
     switch (wqType) {
@@ -245,8 +283,7 @@ public class WorkQueueMgr {
    * @param snapshotId {@link SnapshotId} to get completed work for.
    * @return {@link List} of completed {@link QueuedWork}.
    */
-  public synchronized List<QueuedWork> getCompletedWork(
-      NetworkId networkId, SnapshotId snapshotId) {
+  public List<QueuedWork> getCompletedWork(NetworkId networkId, SnapshotId snapshotId) {
     ImmutableList.Builder<QueuedWork> b = ImmutableList.builder();
     for (QueuedWork work : _queueCompletedWork) {
       if (work.getDetails().getNetworkId().equals(networkId)
@@ -257,8 +294,7 @@ public class WorkQueueMgr {
     return b.build();
   }
 
-  private synchronized QueuedWork getIncompleteWork(
-      NetworkId networkId, SnapshotId snapshotId, WorkType wType) {
+  private QueuedWork getIncompleteWork(NetworkId networkId, SnapshotId snapshotId, WorkType wType) {
     for (QueuedWork work : _queueIncompleteWork) {
       WorkDetails wDetails = work.getDetails();
       if (networkId.equals(work.getDetails().getNetworkId())
@@ -272,7 +308,7 @@ public class WorkQueueMgr {
     return null;
   }
 
-  public synchronized long getLength(QueueType qType) {
+  public long getLength(QueueType qType) {
     switch (qType) {
       case COMPLETED:
         return _queueCompletedWork.getLength();
@@ -283,7 +319,7 @@ public class WorkQueueMgr {
     }
   }
 
-  public synchronized JSONObject getStatusJson() throws JSONException {
+  public JSONObject getStatusJson() throws JSONException {
 
     JSONObject jObject = new JSONObject();
 
@@ -300,7 +336,7 @@ public class WorkQueueMgr {
     return jObject;
   }
 
-  public synchronized QueuedWork getMatchingWork(WorkItem workItem, QueueType qType) {
+  public QueuedWork getMatchingWork(WorkItem workItem, QueueType qType) {
     switch (qType) {
       case COMPLETED:
         return getMatchingWork(workItem, _queueCompletedWork);
@@ -311,7 +347,7 @@ public class WorkQueueMgr {
     }
   }
 
-  private synchronized QueuedWork getMatchingWork(WorkItem workItem, WorkQueue queue) {
+  private QueuedWork getMatchingWork(WorkItem workItem, WorkQueue queue) {
     for (QueuedWork work : queue) {
       if (work.getWorkItem().matches(workItem)) {
         return work;
@@ -320,7 +356,7 @@ public class WorkQueueMgr {
     return null;
   }
 
-  public synchronized QueuedWork getWork(UUID workId) {
+  public QueuedWork getWork(UUID workId) {
     QueuedWork work = getWork(workId, QueueType.INCOMPLETE);
     if (work == null) {
       work = getWork(workId, QueueType.COMPLETED);
@@ -329,7 +365,7 @@ public class WorkQueueMgr {
   }
 
   @Nullable
-  private synchronized QueuedWork getWork(UUID workId, QueueType qType) {
+  private QueuedWork getWork(UUID workId, QueueType qType) {
     switch (qType) {
       case COMPLETED:
         return _queueCompletedWork.getWork(workId);
@@ -340,32 +376,132 @@ public class WorkQueueMgr {
     }
   }
 
+  /**
+   * Claims the next unassigned work to be assigned to a worker, by marking it {@link
+   * WorkStatusCode#TRYINGTOASSIGN}. Returns {@code null} if there is no unassigned work.
+   *
+   * <p>{@link WorkPriority#INTERACTIVE Interactive} work is claimed before {@link
+   * WorkPriority#BATCH batch} work. Within a priority class, work of the network with the fewest
+   * works in progress is claimed first, so that a long queue of work for one network does not
+   * starve other networks. Remaining ties are broken in queue order.
+   */
   @Nullable
-  public synchronized QueuedWork getWorkForAssignment() {
+  public QueuedWork getWorkForAssignment() {
+    synchronized (_assignmentIndexLock) {
+      // priorities are iterated from the most to the least urgent
+      for (Map<NetworkId, NavigableMap<Long, QueuedWork>> workByNetwork :
+          _unassignedWork.values()) {
+        while (!workByNetwork.isEmpty()) {
+          Entry<NetworkId, NavigableMap<Long, QueuedWork>> next =
+              Collections.min(
+                  workByNetwork.entrySet(),
+                  Comparator.<Entry<NetworkId, NavigableMap<Long, QueuedWork>>>comparingInt(
+                          e -> getNumInProgress(e.getKey()))
+                      .thenComparing(e -> e.getValue().firstKey()));
+          QueuedWork work = next.getValue().pollFirstEntry().getValue();
+          if (next.getValue().isEmpty()) {
+            workByNetwork.remove(next.getKey());
+          }
+          if (work.compareAndSetStatus(WorkStatusCode.UNASSIGNED, WorkStatusCode.TRYINGTOASSIGN)) {
+            _inProgressWork
+                .computeIfAbsent(work.getDetails().getNetworkId(), n -> new HashSet<>())
+                .add(work.getId());
+            return work;
+          }
+          // The work was claimed or completed since it was indexed.
+        }
+      }
+      return null;
+    }
+  }
 
-    for (QueuedWork work : _queueIncompleteWork) {
-      if (work.getStatus() == WorkStatusCode.UNASSIGNED) {
-        work.setStatus(WorkStatusCode.TRYINGTOASSIGN);
-        return work;
+  @GuardedBy("_assignmentIndexLock")
+  private int getNumInProgress(NetworkId networkId) {
+    Set<UUID> inProgress = _inProgressWork.get(networkId);
+    return inProgress == null ? 0 : inProgress.size();
+  }
+
+  /**
+   * Adds {@code work} to the back of the incomplete queue, and makes it available for assignment if
+   * it is unassigned.
+   */
+  private boolean enqueIncompleteWork(QueuedWork work) {
+    boolean queued = _queueIncompleteWork.enque(work);
+    synchronized (_assignmentIndexLock) {
+      _queuePositions.put(work.getId(), _nextQueuePosition++);
+      indexIfUnassigned(work);
+    }
+    return queued;
+  }
+
+  /** Marks {@code work} unassigned, and makes it available for assignment again. */
+  private void setUnassigned(QueuedWork work) {
+    work.setStatus(WorkStatusCode.UNASSIGNED);
+    synchronized (_assignmentIndexLock) {
+      removeInProgress(work);
+      indexIfUnassigned(work);
+    }
+  }
+
+  @GuardedBy("_assignmentIndexLock")
+  private void indexIfUnassigned(QueuedWork work) {
+    Long position = _queuePositions.get(work.getId());
+    if (position == null || work.getStatus() != WorkStatusCode.UNASSIGNED) {
+      return;
+    }
+    _unassignedWork
+        .computeIfAbsent(work.getDetails().getPriority(), p -> new HashMap<>())
+        .computeIfAbsent(work.getDetails().getNetworkId(), n -> new TreeMap<>())
+        .put(position, work);
+  }
+
+  /** Removes {@code work}, which is leaving the incomplete queue, from the assignment index. */
+  private void unindex(QueuedWork work) {
+    synchronized (_assignmentIndexLock) {
+      removeInProgress(work);
+      Long position = _queuePositions.remove(work.getId());
+      if (position == null) {
+        return;
+      }
+      Map<NetworkId, NavigableMap<Long, QueuedWork>> workByNetwork =
+          _unassignedWork.get(work.getDetails().getPriority());
+      NetworkId networkId = work.getDetails().getNetworkId();
+      NavigableMap<Long, QueuedWork> networkWork =
+          workByNetwork == null ? null : workByNetwork.get(networkId);
+      if (networkWork != null) {
+        networkWork.remove(position);
+        if (networkWork.isEmpty()) {
+          workByNetwork.remove(networkId);
+        }
       }
     }
+  }
 
-    return null;
+  @GuardedBy("_assignmentIndexLock")
+  private void removeInProgress(QueuedWork work) {
+    NetworkId networkId = work.getDetails().getNetworkId();
+    Set<UUID> inProgress = _inProgressWork.get(networkId);
+    if (inProgress != null && inProgress.remove(work.getId()) && inProgress.isEmpty()) {
+      _inProgressWork.remove(networkId);
+    }
   }
 
+  /**
+   * Claims all assigned work for a status check, by marking it {@link
+   * WorkStatusCode#CHECKINGSTATUS}.
+   */
   @Nonnull
-  public synchronized List<QueuedWork> getWorkForChecking() {
+  public List<QueuedWork> getWorkForChecking() {
     List<QueuedWork> workToCheck = new ArrayList<>();
     for (QueuedWork work : _queueIncompleteWork) {
-      if (work.getStatus() == WorkStatusCode.ASSIGNED) {
-        work.setStatus(WorkStatusCode.CHECKINGSTATUS);
+      if (work.compareAndSetStatus(WorkStatusCode.ASSIGNED, WorkStatusCode.CHECKINGSTATUS)) {
         workToCheck.add(work);
       }
     }
     return workToCheck;
   }
 
-  public synchronized List<QueuedWork> listIncompleteWork(
+  public List<QueuedWork> listIncompleteWork(
       NetworkId networkId, @Nullable SnapshotId snapshotId, @Nullable WorkType workType) {
     List<QueuedWork> retList = new LinkedList<>();
     for (QueuedWork work : _queueIncompleteWork) {
@@ -379,19 +515,21 @@ public class WorkQueueMgr {
     return retList;
   }
 
-  public synchronized void makeWorkUnassigned(QueuedWork work) {
-    work.setStatus(WorkStatusCode.UNASSIGNED);
+  public void makeWorkUnassigned(QueuedWork work) {
+    setUnassigned(work);
   }
 
   // when assignment attempt ends in error, we do not try to reassign
   public synchronized void markAssignmentError(QueuedWork work) {
-    _queueIncompleteWork.delete(work);
+    // enque before deleting, so that concurrent lookups always find the work in some queue
     _queueCompletedWork.enque(work);
+    _queueIncompleteWork.delete(work);
+    unindex(work);
     work.setStatus(WorkStatusCode.ASSIGNMENTERROR);
   }
 
-  public synchronized void markAssignmentFailure(QueuedWork work) {
-    work.setStatus(WorkStatusCode.UNASSIGNED);
+  public void markAssignmentFailure(QueuedWork work) {
+    setUnassigned(work);
   }
 
   public synchronized void markAssignmentSuccess(QueuedWork work, String assignedWorker)
@@ -426,8 +564,9 @@ public class WorkQueueMgr {
       case RequeueFailure:
         {
           // move the work to completed queue
-          _queueIncompleteWork.delete(work);
           _queueCompletedWork.enque(work);
+          _queueIncompleteWork.delete(work);
+          unindex(work);
           work.setStatus(WorkStatusCode.fromTerminatedTaskStatus(task.getStatus()));
           work.recordTaskCheckResult(task);
 
@@ -475,6 +614,7 @@ public class WorkQueueMgr {
             }
             for (QueuedWork requeueWork : requeueWorks) {
               _queueIncompleteWork.delete(requeueWork);
+              unindex(requeueWork);
               requeueWork.setStatus(WorkStatusCode.UNASSIGNED);
             }
             for (QueuedWork requeueWork : requeueWorks) {
@@ -502,16 +642,16 @@ public class WorkQueueMgr {
         break;
       case Unknown:
         // we mark this unassigned, so we try to schedule it again
-        work.setStatus(WorkStatusCode.UNASSIGNED);
         work.clearAssignment();
+        setUnassigned(work);
         break;
       case UnreachableOrBadResponse:
         {
           if (work.getLastTaskCheckResult().getStatus() == TaskStatus.UnreachableOrBadResponse) {
             // if we saw the same thing last time around, free the task to be scheduled elsewhere
-            work.setStatus(WorkStatusCode.UNASSIGNED);
             work.clearAssignment();
             work.recordTaskCheckResult(task);
+            setUnassigned(work);
 
             // update snapshot metadata
             WorkDetails wDetails = work.getDetails();
@@ -586,13 +726,13 @@ public class WorkQueueMgr {
         return queueBlockedWork(work, deltaBlocker);
       }
     }
-    return _queueIncompleteWork.enque(work);
+    return enqueIncompleteWork(work);
   }
 
   private synchronized boolean queueBlockedWork(QueuedWork work, QueuedWork blocker) {
     _blockingWork.add(blocker.getId());
     work.setStatus(WorkStatusCode.BLOCKED);
-    return _queueIncompleteWork.enque(work);
+    return enqueIncompleteWork(work);
   }
 
   private synchronized boolean queueDataplaningWork(QueuedWork work) throws Exception {
@@ -615,7 +755,7 @@ public class WorkQueueMgr {
 
     QueuedWork blocker = getBlockerForDataplaningWork(work);
     if (blocker == null) {
-      return _queueIncompleteWork.enque(work);
+      return enqueIncompleteWork(work);
     } else {
       return queueBlockedWork(work, blocker);
     }
@@ -652,7 +792,7 @@ public class WorkQueueMgr {
       }
     }
 
-    return _queueIncompleteWork.enque(work);
+    return enqueIncompleteWork(work);
   }
 
   public synchronized boolean queueUnassignedWork(QueuedWork work) throws Exception {
@@ -673,13 +813,13 @@ public class WorkQueueMgr {
         return queueDataplaningWork(work);
       case INDEPENDENT_ANSWERING:
         // assume that this type of work shouldn't be blocked at all
-        return _queueIncompleteWork.enque(work);
+        return enqueIncompleteWork(work);
       case PARSING_DEPENDENT_ANSWERING:
         return queueDependentAnsweringWork(work, false);
       case DATAPLANE_DEPENDENT_ANSWERING:
         return queueDependentAnsweringWork(work, true);
       case UNKNOWN:
-        return _queueIncompleteWork.enque(work);
+        return enqueIncompleteWork(work);
       default:
         throw new BatfishException("Unknown WorkType " + work.getDetails().getWorkType());
     }
@@ -1,49 +1,78 @@
 package org.batfish.coordinator.queues;
 
-import java.util.LinkedList;
+import com.google.common.collect.Iterators;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nullable;
 import org.batfish.coordinator.QueuedWork;
 
-// we don't synchronize on this queue
-// all synchronization is in inside WorkQueueMgr
+/**
+ * An in-memory {@link WorkQueue} that may be read concurrently with updates.
+ *
+ * <p>Iteration is in queue order and weakly consistent: it never throws {@link
+ * java.util.ConcurrentModificationException}, and reflects some state of the queue at or since the
+ * creation of the iterator. Work is found and deleted by ID without scanning the queue. Compound
+ * operations spanning several queues must still be synchronized by the caller (see {@link
+ * org.batfish.coordinator.WorkQueueMgr}).
+ */
+public class MemoryQueue implements WorkQueue {
 
-public class MemoryQueue extends LinkedList<QueuedWork> implements WorkQueue {
+  private final AtomicLong _nextSequenceNumber = new AtomicLong();
+
+  /** Sequence number of each queued work, keyed by work ID. */
+  private final Map<UUID, Long> _sequenceNumbers = new ConcurrentHashMap<>();
+
+  /** Queued work, in queue order. */
+  private final ConcurrentSkipListMap<Long, QueuedWork> _works = new ConcurrentSkipListMap<>();
 
   @Override
   public boolean delete(QueuedWork qWork) {
-    return remove(qWork);
+    Long sequenceNumber = _sequenceNumbers.remove(qWork.getId());
+    return sequenceNumber != null && _works.remove(sequenceNumber) != null;
   }
 
   @Nullable
   @Override
   public QueuedWork deque() {
-    if (size() == 0) {
+    Entry<Long, QueuedWork> first = _works.pollFirstEntry();
+    if (first == null) {
       return null;
     }
-
-    return pop();
+    _sequenceNumbers.remove(first.getValue().getId());
+    return first.getValue();
   }
 
   @Override
   public boolean enque(QueuedWork work) {
-    return add(work);
+    long sequenceNumber = _nextSequenceNumber.getAndIncrement();
+    _works.put(sequenceNumber, work);
+    Long previousSequenceNumber = _sequenceNumbers.put(work.getId(), sequenceNumber);
+    if (previousSequenceNumber != null) {
+      // re-queued work moves to the back of the queue
+      _works.remove(previousSequenceNumber);
+    }
+    return true;
   }
 
   @Override
   public long getLength() {
-    return size();
+    return _sequenceNumbers.size();
   }
 
   @Nullable
   @Override
   public QueuedWork getWork(UUID workItemId) {
-    for (QueuedWork work : this) {
-      if (work.getWorkItem().getId().equals(workItemId)) {
-        return work;
-      }
-    }
+    Long sequenceNumber = _sequenceNumbers.get(workItemId);
+    return sequenceNumber == null ? null : _works.get(sequenceNumber);
+  }
 
-    return null;
+  @Override
+  public Iterator<QueuedWork> iterator() {
+    return Iterators.unmodifiableIterator(_works.values().iterator());
   }
 }
@@ -0,0 +1,74 @@
+package org.batfish.coordinator;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import org.batfish.common.BatfishLogger;
+import org.batfish.coordinator.WorkDetails.WorkType;
+import org.batfish.coordinator.WorkerStatus.StatusCode;
+import org.batfish.coordinator.config.Settings;
+import org.batfish.identifiers.NetworkId;
+import org.batfish.identifiers.SnapshotId;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for {@link PoolMgr}. */
+public final class PoolMgrTest {
+
+  private PoolMgr _poolMgr;
+
+  @Before
+  public void setup() {
+    _poolMgr = new PoolMgr(new Settings(new String[0]), new BatfishLogger("debug", false));
+  }
+
+  private static WorkDetails details(String snapshot) {
+    return WorkDetails.builder()
+        .setNetworkId(new NetworkId("network"))
+        .setSnapshotId(new SnapshotId(snapshot))
+        .setWorkType(WorkType.INDEPENDENT_ANSWERING)
+        .build();
+  }
+
+  @Test
+  public void testGetWorkerForAssignmentNoIdleWorker() {
+    _poolMgr.addToPool("w1", StatusCode.BUSY);
+    assertThat(_poolMgr.getWorkerForAssignment(details("s1")), nullValue());
+  }
+
+  @Test
+  public void testGetWorkerForAssignmentPrefersCachedSnapshot() {
+    _poolMgr.addToPool("w1", StatusCode.IDLE);
+    _poolMgr.addToPool("w2", StatusCode.IDLE);
+
+    // w2 was last assigned work on snapshot s1
+    _poolMgr.markAssignmentResult("w2", details("s1"), true);
+    _poolMgr.markAssignmentResult("w2", details("s1"), false);
+    assertThat(_poolMgr.getWorkerStatus("w2").getStatus(), equalTo(StatusCode.IDLE));
+
+    assertThat(_poolMgr.getWorkerForAssignment(details("s1")), equalTo("w2"));
+    assertThat(_poolMgr.getWorkerStatus("w2").getStatus(), equalTo(StatusCode.TRYINGTOASSIGN));
+    // w2 is no longer idle, so fall back to any idle worker
+    assertThat(_poolMgr.getWorkerForAssignment(details("s1")), equalTo("w1"));
+  }
+
+  @Test
+  public void testMarkAssignmentResultEvictsLeastRecentlyUsedSnapshot() {
+    _poolMgr.addToPool("w1", StatusCode.IDLE);
+    _poolMgr.markAssignmentResult("w1", details("s1"), true);
+    _poolMgr.markAssignmentResult("w1", details("s2"), true);
+    // failed assignments are not recorded
+    _poolMgr.markAssignmentResult("w1", details("s3"), false);
+    assertFalse(_poolMgr.hasCachedSnapshots("w1", details("s3")));
+
+    // s1 becomes most recently used, so s2 is evicted
+    _poolMgr.markAssignmentResult("w1", details("s1"), true);
+    _poolMgr.markAssignmentResult("w1", details("s3"), true);
+    assertTrue(_poolMgr.hasCachedSnapshots("w1", details("s1")));
+    assertFalse(_poolMgr.hasCachedSnapshots("w1", details("s2")));
+    assertTrue(_poolMgr.hasCachedSnapshots("w1", details("s3")));
+  }
+}
@@ -1,8 +1,11 @@
 package org.batfish.coordinator;
 
+import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
+import org.batfish.coordinator.WorkDetails.WorkPriority;
 import org.batfish.coordinator.WorkDetails.WorkType;
 import org.batfish.identifiers.NetworkId;
 import org.batfish.identifiers.SnapshotId;
@@ -118,4 +121,20 @@ public final class WorkDetailsTest {
 
     assertFalse(details1.isOverlappingInput(details2));
   }
+
+  @Test
+  public void testGetPriority() {
+    WorkDetails.Builder builder = _builder.setSnapshotId(new SnapshotId("t1"));
+    assertThat(
+        builder.setWorkType(WorkType.PARSING).build().getPriority(), equalTo(WorkPriority.BATCH));
+    assertThat(
+        builder.setWorkType(WorkType.DATAPLANING).build().getPriority(),
+        equalTo(WorkPriority.BATCH));
+    assertThat(
+        builder.setWorkType(WorkType.DATAPLANE_DEPENDENT_ANSWERING).build().getPriority(),
+        equalTo(WorkPriority.INTERACTIVE));
+    assertThat(
+        builder.setWorkType(WorkType.INDEPENDENT_ANSWERING).build().getPriority(),
+        equalTo(WorkPriority.INTERACTIVE));
+  }
 }
@@ -40,6 +40,7 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Streams;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -56,11 +57,16 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import javax.annotation.Nonnull;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.batfish.common.AnswerRowsOptions;
@@ -90,6 +96,7 @@ import org.batfish.datamodel.answers.Answer;
 import org.batfish.datamodel.answers.AnswerMetadata;
 import org.batfish.datamodel.answers.AnswerMetadataUtil;
 import org.batfish.datamodel.answers.AnswerStatus;
+import org.batfish.datamodel.answers.AnswerSummary;
 import org.batfish.datamodel.answers.Issue;
 import org.batfish.datamodel.answers.Schema;
 import org.batfish.datamodel.answers.SelfDescribingObject;
@@ -1852,6 +1859,129 @@ public final class WorkMgrTest {
         networkName, snapshotName, srcDir.resolve(snapshotName), false, Instant.now());
   }
 
+  /** Returns a zip of the given entries, where entries ending in '/' are directories. */
+  private static InputStream zip(Map<String, String> entries) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ZipOutputStream zipOut = new ZipOutputStream(bytes)) {
+      for (Entry<String, String> entry : entries.entrySet()) {
+        zipOut.putNextEntry(new ZipEntry(entry.getKey()));
+        zipOut.write(entry.getValue().getBytes(UTF_8));
+        zipOut.closeEntry();
+      }
+    }
+    return new ByteArrayInputStream(bytes.toByteArray());
+  }
+
+  @Test
+  public void testInitSnapshotFromZip() throws IOException {
+    String networkName = "network";
+    String snapshotName = "snapshotName";
+    NodeInterfacePair blacklisted = NodeInterfacePair.of("n1", "i1");
+    _manager.initNetwork(networkName, null);
+    _manager.initSnapshotFromZip(
+        networkName,
+        snapshotName,
+        zip(
+            ImmutableMap.of(
+                "__MACOSX/ignored",
+                "",
+                "snapshot/",
+                "",
+                "/snapshot/configs/file.type",
+                "! empty config",
+                "snapshot/" + BfConsts.RELPATH_INTERFACE_BLACKLIST_FILE,
+                BatfishObjectMapper.writeString(ImmutableList.of(blacklisted)))),
+        false,
+        Instant.now());
+
+    assertThat(_manager.getLatestSnapshot(networkName), equalTo(Optional.of(snapshotName)));
+    assertThat(
+        readSnapshotConfig(networkName, snapshotName, "file.type"), equalTo("! empty config"));
+    NetworkId networkId = _idManager.getNetworkId(networkName).get();
+    SnapshotId snapshotId = _idManager.getSnapshotId(snapshotName, networkId).get();
+    assertNull(_storage.loadInterfaceBlacklist(networkId, snapshotId));
+    assertThat(
+        _storage.loadRuntimeData(networkId, snapshotId),
+        equalTo(
+            SnapshotRuntimeData.builder()
+                .setInterfacesLineDown(ImmutableSet.of(blacklisted))
+                .build()));
+  }
+
+  @Test
+  public void testInitSnapshotFromZipBadPackaging() throws IOException {
+    String networkName = "network";
+    _manager.initNetwork(networkName, null);
+
+    _thrown.expect(BatfishException.class);
+    _thrown.expectMessage(containsString("There should be just one top-level folder"));
+    _manager.initSnapshotFromZip(
+        networkName,
+        "snapshotName",
+        zip(ImmutableMap.of("s1/configs/a", "a", "s2/configs/b", "b")),
+        false,
+        Instant.now());
+  }
+
+  @Test
+  public void testInitSnapshotFromZipMissingConfigs() throws IOException {
+    String networkName = "network";
+    _manager.initNetwork(networkName, null);
+
+    _thrown.expect(BatfishException.class);
+    _thrown.expectMessage(containsString("No networks configs dir"));
+    _manager.initSnapshotFromZip(
+        networkName,
+        "snapshotName",
+        zip(ImmutableMap.of("snapshot/other/a", "a")),
+        false,
+        Instant.now());
+  }
+
+  @Test
+  public void testInitSnapshotFromZipRejectedDeletesSnapshot() throws IOException {
+    String networkName = "network";
+    _manager.initNetwork(networkName, null);
+    Path root = _folder.getRoot().toPath();
+
+    try {
+      _manager.initSnapshotFromZip(
+          networkName,
+          "snapshotName",
+          zip(ImmutableMap.of("snapshot/other/a", "a")),
+          false,
+          Instant.now());
+      throw new AssertionError("Expected the snapshot to be rejected");
+    } catch (BatfishException e) {
+      assertThat(e.getMessage(), containsString("No networks configs dir"));
+    }
+    // neither the stored input objects nor the metadata of the rejected snapshot remain
+    try (Stream<Path> files = Files.walk(root)) {
+      assertThat(
+          files
+              .filter(Files::isRegularFile)
+              .map(path -> root.relativize(path).toString())
+              .filter(path -> path.contains("snapshots"))
+              .collect(ImmutableList.toImmutableList()),
+          empty());
+    }
+  }
+
+  @Test
+  public void testInitSnapshotFromZipOutsideTarget() throws IOException {
+    String networkName = "network";
+    _manager.initNetwork(networkName, null);
+
+    _thrown.expect(BatfishException.class);
+    _thrown.expectMessage(containsString("outside extraction target directory"));
+    _manager.initSnapshotFromZip(
+        networkName,
+        "snapshotName",
+        zip(ImmutableMap.of("snapshot/configs/../../../a", "a")),
+        false,
+        Instant.now());
+  }
+
   @Test
   public void testProcessAnalysisAnswers() throws IOException {
     String questionName = "q";
@@ -3084,4 +3214,216 @@ public final class WorkMgrTest {
     // the new snapshot.
     assertThat(_manager.computeExpungeBeforeDate(), equalTo(Optional.of(newTime)));
   }
+
+  private static @Nonnull Answer pagingTestAnswer(int numRows) {
+    TableAnswerElement table =
+        new TableAnswerElement(
+            new TableMetadata(
+                ImmutableList.of(
+                    new ColumnMetadata("node", Schema.STRING, "node"),
+                    new ColumnMetadata("val", Schema.INTEGER, "val"),
+                    new ColumnMetadata("list", Schema.list(Schema.STRING), "list")),
+                "desc"));
+    for (int i = 0; i < numRows; i++) {
+      table.addRow(
+          Row.of(
+              "node",
+              "n" + (i % 7),
+              "val",
+              i % 5 == 0 ? null : (i * 13) % 11,
+              "list",
+              ImmutableList.of("a" + (i % 3), "b")));
+    }
+    table.setSummary(new AnswerSummary("notes", 1, 2, numRows));
+    Answer answer = new Answer();
+    answer.addAnswerElement(table);
+    answer.setStatus(AnswerStatus.SUCCESS);
+    return answer;
+  }
+
+  private static @Nonnull List<AnswerRowsOptions> pagingTestOptions() {
+    ImmutableList.Builder<AnswerRowsOptions> options = ImmutableList.builder();
+    for (List<ColumnFilter> filters :
+        ImmutableList.<List<ColumnFilter>>of(
+            ImmutableList.of(),
+            ImmutableList.of(new ColumnFilter("node", "N1")),
+            ImmutableList.of(new ColumnFilter("list", "a2"), new ColumnFilter("val", "")))) {
+      for (List<ColumnSortOption> sortOrder :
+          ImmutableList.<List<ColumnSortOption>>of(
+              ImmutableList.of(),
+              ImmutableList.of(new ColumnSortOption("val", false)),
+              ImmutableList.of(
+                  new ColumnSortOption("node", true), new ColumnSortOption("val", false)))) {
+        for (Set<String> columns :
+            ImmutableList.<Set<String>>of(
+                ImmutableSet.of(), ImmutableSet.of("list", "node"), ImmutableSet.of("val"))) {
+          for (boolean uniqueRows : new boolean[] {false, true}) {
+            options.add(new AnswerRowsOptions(columns, filters, 5, 3, sortOrder, uniqueRows));
+            options.add(
+                new AnswerRowsOptions(
+                    columns, filters, Integer.MAX_VALUE, 0, sortOrder, uniqueRows));
+          }
+        }
+      }
+    }
+    return options.build();
+  }
+
+  @Test
+  public void testGetAnswerRowsMatchesProcessAnswerRows() throws IOException {
+    String network = "network";
+    String snapshot = "snapshot";
+    String questionName = "question";
+    _manager.initNetwork(network, null);
+    uploadTestSnapshot(network, snapshot);
+    setupQuestionAndAnswer(network, snapshot, questionName, null, pagingTestAnswer(40));
+    String answerStr = _manager.getAnswerString(network, snapshot, questionName, null, null);
+
+    // a second manager on the same storage reads the columnar answer stored by the first
+    WorkMgr otherManager =
+        new WorkMgr(Main.getSettings(), Main.getLogger(), _idManager, _manager.getStorage());
+    for (WorkMgr manager : ImmutableList.of(_manager, _manager, otherManager)) {
+      for (AnswerRowsOptions options : pagingTestOptions()) {
+        assertThat(
+            options.toString(),
+            BatfishObjectMapper.writeString(
+                manager.getAnswerRows(network, snapshot, questionName, null, null, options)),
+            equalTo(
+                BatfishObjectMapper.writeString(_manager.processAnswerRows(answerStr, options))));
+        assertThat(
+            options.toString(),
+            BatfishObjectMapper.writeString(
+                manager.getAnswerRows2(network, snapshot, questionName, null, null, options)),
+            equalTo(
+                BatfishObjectMapper.writeString(_manager.processAnswerRows2(answerStr, options))));
+      }
+    }
+  }
+
+  @Test
+  public void testGetAnswerRowsMissingColumn() throws IOException {
+    String network = "network";
+    String snapshot = "snapshot";
+    String questionName = "question";
+    _manager.initNetwork(network, null);
+    uploadTestSnapshot(network, snapshot);
+    setupQuestionAndAnswer(network, snapshot, questionName, null, pagingTestAnswer(3));
+    AnswerRowsOptions options =
+        new AnswerRowsOptions(
+            ImmutableSet.of("missing"), ImmutableList.of(), 5, 0, ImmutableList.of(), false);
+
+    Answer answer = _manager.getAnswerRows(network, snapshot, questionName, null, null, options);
+    assertThat(answer.getStatus(), equalTo(AnswerStatus.FAILURE));
+    assertThat(
+        BatfishObjectMapper.writeString(answer),
+        equalTo(
+            BatfishObjectMapper.writeString(
+                _manager.processAnswerRows(
+                    _manager.getAnswerString(network, snapshot, questionName, null, null),
+                    options))));
+  }
+
+  @Test
+  public void testGetAnswerRowsAnswerReplaced() throws IOException {
+    String network = "network";
+    String snapshot = "snapshot";
+    String questionName = "question";
+    _manager.initNetwork(network, null);
+    uploadTestSnapshot(network, snapshot);
+    setupQuestionAndAnswer(network, snapshot, questionName, null, pagingTestAnswer(3));
+    AnswerRowsOptions options = AnswerRowsOptions.NO_FILTER;
+    Answer answer = _manager.getAnswerRows2(network, snapshot, questionName, null, null, options);
+    assertThat(((TableView) answer.getAnswerElements().get(0)).getRows(), hasSize(3));
+
+    // replacing the answer invalidates its columnar form
+    NetworkId networkId = _idManager.getNetworkId(network).get();
+    AnswerId answerId =
+        _idManager.getAnswerId(
+            networkId,
+            _idManager.getSnapshotId(snapshot, networkId).get(),
+            _idManager.getQuestionId(questionName, networkId, null).get(),
+            DEFAULT_NETWORK_NODE_ROLES_ID,
+            null,
+            null);
+    _storage.storeAnswer(BatfishObjectMapper.writeString(pagingTestAnswer(4)), answerId);
+    answer = _manager.getAnswerRows2(network, snapshot, questionName, null, null, options);
+    assertThat(((TableView) answer.getAnswerElements().get(0)).getRows(), hasSize(4));
+  }
+
+  @Test
+  public void testGetAnswerRowsStaleColumnarAnswer() throws IOException {
+    String network = "network";
+    String snapshot = "snapshot";
+    String questionName = "question";
+    _manager.initNetwork(network, null);
+    uploadTestSnapshot(network, snapshot);
+    setupQuestionAndAnswer(network, snapshot, questionName, null, pagingTestAnswer(3));
+    AnswerRowsOptions options = AnswerRowsOptions.NO_FILTER;
+    Answer answer = _manager.getAnswerRows2(network, snapshot, questionName, null, null, options);
+    assertThat(((TableView) answer.getAnswerElements().get(0)).getRows(), hasSize(3));
+
+    NetworkId networkId = _idManager.getNetworkId(network).get();
+    AnswerId answerId =
+        _idManager.getAnswerId(
+            networkId,
+            _idManager.getSnapshotId(snapshot, networkId).get(),
+            _idManager.getQuestionId(questionName, networkId, null).get(),
+            DEFAULT_NETWORK_NODE_ROLES_ID,
+            null,
+            null);
+    byte[] staleColumns;
+    try (InputStream in = _storage.loadAnswerColumns(answerId)) {
+      staleColumns = IOUtils.toByteArray(in);
+    }
+
+    // a pager that read the old answer stores its columnar form after the answer is replaced
+    _storage.storeAnswer(BatfishObjectMapper.writeString(pagingTestAnswer(4)), answerId);
+    _storage.storeAnswerColumns(new ByteArrayInputStream(staleColumns), answerId);
+
+    WorkMgr otherManager =
+        new WorkMgr(Main.getSettings(), Main.getLogger(), _idManager, _manager.getStorage());
+    for (WorkMgr manager : ImmutableList.of(_manager, otherManager, _manager, otherManager)) {
+      answer = manager.getAnswerRows2(network, snapshot, questionName, null, null, options);
+      assertThat(((TableView) answer.getAnswerElements().get(0)).getRows(), hasSize(4));
+    }
+  }
+
+  @Test
+  public void testGetAnswerRowsNotTable() throws IOException {
+    String network = "network";
+    String snapshot = "snapshot";
+    String questionName = "question";
+    Answer expectedAnswer = new Answer();
+    expectedAnswer.addAnswerElement(new StringAnswerElement("foo1"));
+    _manager.initNetwork(network, null);
+    uploadTestSnapshot(network, snapshot);
+    setupQuestionAndAnswer(network, snapshot, questionName, null, expectedAnswer);
+
+    Answer answer =
+        _manager.getAnswerRows2(
+            network, snapshot, questionName, null, null, AnswerRowsOptions.NO_FILTER);
+    assertThat(
+        BatfishObjectMapper.writeString(answer),
+        equalTo(BatfishObjectMapper.writeString(expectedAnswer)));
+  }
+
+  @Test
+  public void testGetAnswerRowsNotAnswered() throws IOException {
+    String network = "network";
+    String snapshot = "snapshot";
+    String questionName = "question";
+    _manager.initNetwork(network, null);
+    uploadTestSnapshot(network, snapshot);
+    setupQuestionAndAnswer(network, snapshot, questionName, null, null);
+
+    assertThat(
+        _manager
+            .getAnswerRows(network, snapshot, questionName, null, null, AnswerRowsOptions.NO_FILTER)
+            .getStatus(),
+        equalTo(AnswerStatus.NOTFOUND));
+    assertThat(
+        _manager.getFilteredAnswer(
+            network, snapshot, questionName, null, null, AnswerRowsOptions.NO_FILTER),
+        nullValue());
+  }
 }
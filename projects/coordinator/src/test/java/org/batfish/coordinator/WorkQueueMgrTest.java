@@ -3,6 +3,7 @@ package org.batfish.coordinator;
 import static org.batfish.coordinator.matchers.WorkQueueMatchers.hasWorkItem;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.iterableWithSize;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.collection.IsEmptyCollection.empty;
 import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
 import static org.hamcrest.core.IsEqual.equalTo;
@@ -1499,4 +1500,123 @@ public final class WorkQueueMgrTest {
 
     assertThat(_idManager.getNetworkNodeRolesId(_networkId).get(), equalTo(oldNodeRolesId));
   }
+
+  private QueuedWork newWork(String network, String snapshot, WorkType wType) {
+    NetworkId networkId = _idManager.getNetworkId(network).get();
+    return new QueuedWork(
+        new WorkItem(network, snapshot),
+        WorkDetails.builder()
+            .setWorkType(wType)
+            .setNetworkId(networkId)
+            .setSnapshotId(_idManager.getSnapshotId(snapshot, networkId).get())
+            .build());
+  }
+
+  @Test
+  public void testGetWorkForAssignmentInteractiveFirst() throws Exception {
+    initSnapshotMetadata(SNAPSHOT, ProcessingStatus.UNINITIALIZED);
+    initSnapshotMetadata("snapshot2", ProcessingStatus.PARSED);
+    QueuedWork parsingWork = newWork(NETWORK, SNAPSHOT, WorkType.PARSING);
+    QueuedWork answeringWork = newWork(NETWORK, "snapshot2", WorkType.INDEPENDENT_ANSWERING);
+    _workQueueMgr.queueUnassignedWork(parsingWork);
+    _workQueueMgr.queueUnassignedWork(answeringWork);
+
+    assertSame(_workQueueMgr.getWorkForAssignment(), answeringWork);
+    assertThat(answeringWork.getStatus(), equalTo(WorkStatusCode.TRYINGTOASSIGN));
+    assertSame(_workQueueMgr.getWorkForAssignment(), parsingWork);
+    assertThat(_workQueueMgr.getWorkForAssignment(), nullValue());
+  }
+
+  @Test
+  public void testGetWorkForAssignmentFairAcrossNetworks() throws Exception {
+    String network2 = "network2";
+    Main.getWorkMgr().initNetwork(network2, null);
+    initSnapshotMetadata(SNAPSHOT, ProcessingStatus.PARSED);
+    WorkMgrTestUtils.initSnapshotWithTopology(network2, SNAPSHOT, ImmutableSet.of());
+    NetworkId networkId2 = _idManager.getNetworkId(network2).get();
+    _snapshotMetadataManager.writeMetadata(
+        new SnapshotMetadata(Instant.now(), null).updateStatus(ProcessingStatus.PARSED, null),
+        networkId2,
+        _idManager.getSnapshotId(SNAPSHOT, networkId2).get());
+
+    QueuedWork work1 = newWork(NETWORK, SNAPSHOT, WorkType.INDEPENDENT_ANSWERING);
+    QueuedWork work2 = newWork(NETWORK, SNAPSHOT, WorkType.INDEPENDENT_ANSWERING);
+    QueuedWork work3 = newWork(network2, SNAPSHOT, WorkType.INDEPENDENT_ANSWERING);
+    _workQueueMgr.queueUnassignedWork(work1);
+    _workQueueMgr.queueUnassignedWork(work2);
+    _workQueueMgr.queueUnassignedWork(work3);
+
+    // ties are broken in queue order
+    assertSame(_workQueueMgr.getWorkForAssignment(), work1);
+    _workQueueMgr.markAssignmentSuccess(work1, "worker");
+    // the first network already has work in progress, so the second network goes next
+    assertSame(_workQueueMgr.getWorkForAssignment(), work3);
+    assertSame(_workQueueMgr.getWorkForAssignment(), work2);
+  }
+
+  @Test
+  public void testGetWorkForAssignmentAfterAssignmentFailureKeepsQueueOrder() throws Exception {
+    initSnapshotMetadata(SNAPSHOT, ProcessingStatus.PARSED);
+    QueuedWork work1 = newWork(NETWORK, SNAPSHOT, WorkType.INDEPENDENT_ANSWERING);
+    QueuedWork work2 = newWork(NETWORK, SNAPSHOT, WorkType.INDEPENDENT_ANSWERING);
+    _workQueueMgr.queueUnassignedWork(work1);
+    _workQueueMgr.queueUnassignedWork(work2);
+
+    assertSame(_workQueueMgr.getWorkForAssignment(), work1);
+    _workQueueMgr.markAssignmentFailure(work1);
+    // work1 is available again, ahead of work2
+    assertSame(_workQueueMgr.getWorkForAssignment(), work1);
+    assertSame(_workQueueMgr.getWorkForAssignment(), work2);
+    assertThat(_workQueueMgr.getWorkForAssignment(), nullValue());
+  }
+
+  @Test
+  public void testGetWorkForAssignmentSkipsCompletedWork() throws Exception {
+    initSnapshotMetadata(SNAPSHOT, ProcessingStatus.PARSED);
+    QueuedWork work = newWork(NETWORK, SNAPSHOT, WorkType.INDEPENDENT_ANSWERING);
+    _workQueueMgr.queueUnassignedWork(work);
+    _workQueueMgr.processTaskCheckResult(work, new Task(TaskStatus.TerminatedByUser));
+
+    assertThat(_workQueueMgr.getWorkForAssignment(), nullValue());
+  }
+
+  @Test
+  public void testGetWorkForAssignmentCompletedWorkNotInProgress() throws Exception {
+    String network2 = "network2";
+    Main.getWorkMgr().initNetwork(network2, null);
+    initSnapshotMetadata(SNAPSHOT, ProcessingStatus.PARSED);
+    WorkMgrTestUtils.initSnapshotWithTopology(network2, SNAPSHOT, ImmutableSet.of());
+    NetworkId networkId2 = _idManager.getNetworkId(network2).get();
+    _snapshotMetadataManager.writeMetadata(
+        new SnapshotMetadata(Instant.now(), null).updateStatus(ProcessingStatus.PARSED, null),
+        networkId2,
+        _idManager.getSnapshotId(SNAPSHOT, networkId2).get());
+
+    QueuedWork work1 = newWork(NETWORK, SNAPSHOT, WorkType.INDEPENDENT_ANSWERING);
+    QueuedWork work2 = newWork(NETWORK, SNAPSHOT, WorkType.INDEPENDENT_ANSWERING);
+    QueuedWork work3 = newWork(network2, SNAPSHOT, WorkType.INDEPENDENT_ANSWERING);
+    _workQueueMgr.queueUnassignedWork(work1);
+    _workQueueMgr.queueUnassignedWork(work2);
+    _workQueueMgr.queueUnassignedWork(work3);
+
+    _workQueueMgr.markAssignmentSuccess(_workQueueMgr.getWorkForAssignment(), "worker");
+    _workQueueMgr.processTaskCheckResult(work1, new Task(TaskStatus.TerminatedNormally));
+    // work1 is done, so neither network has work in progress and ties are broken in queue order
+    assertSame(_workQueueMgr.getWorkForAssignment(), work2);
+    assertSame(_workQueueMgr.getWorkForAssignment(), work3);
+  }
+
+  @Test
+  public void testGetWorkForCheckingClaimsEachWorkOnce() throws Exception {
+    initSnapshotMetadata(SNAPSHOT, ProcessingStatus.PARSED);
+    QueuedWork work = newWork(NETWORK, SNAPSHOT, WorkType.INDEPENDENT_ANSWERING);
+    _workQueueMgr.queueUnassignedWork(work);
+    assertThat(_workQueueMgr.getWorkForChecking(), empty());
+
+    _workQueueMgr.markAssignmentSuccess(_workQueueMgr.getWorkForAssignment(), "worker");
+    assertThat(_workQueueMgr.getWorkForChecking(), contains(work));
+    assertThat(work.getStatus(), equalTo(WorkStatusCode.CHECKINGSTATUS));
+    // work being checked is not claimed again
+    assertThat(_workQueueMgr.getWorkForChecking(), empty());
+  }
 }
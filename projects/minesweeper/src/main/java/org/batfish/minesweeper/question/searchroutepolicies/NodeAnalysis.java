@@ -0,0 +1,145 @@
+package org.batfish.minesweeper.question.searchroutepolicies;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.routing_policy.RoutingPolicy;
+import org.batfish.datamodel.routing_policy.statement.Statement;
+import org.batfish.minesweeper.Graph;
+import org.batfish.minesweeper.bdd.TransferReturn;
+
+/**
+ * The reusable state of a symbolic route-policy analysis of a single node: the {@link Graph} that
+ * provides the community and AS-path atomic predicates, and the symbolic transfer function of each
+ * routing policy that has been analyzed so far.
+ *
+ * <p>The atomic predicates and transfer functions are determined by the tracked regexes in the
+ * {@link Key} and by the routing policies and named structures of the node, so an analysis may be
+ * reused for any configuration with the same such content, which callers must check via {@link
+ * #hasContentOf(Configuration)}. The analysis does not keep the configuration itself reachable. The
+ * transfer functions are BDDs in the shared {@link org.batfish.minesweeper.bdd.BDDRoute} factory,
+ * so all accesses must be synchronized by the caller.
+ */
+@ParametersAreNonnullByDefault
+final class NodeAnalysis {
+
+  /** Identifies the analysis of a node for a particular set of tracked regexes. */
+  static final class Key {
+    private final @Nonnull String _node;
+    private final @Nonnull Set<String> _communityRegexes;
+    private final @Nonnull Set<String> _asPathRegexes;
+
+    Key(String node, Set<String> communityRegexes, Set<String> asPathRegexes) {
+      _node = node;
+      _communityRegexes = communityRegexes;
+      _asPathRegexes = asPathRegexes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      } else if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      return _node.equals(key._node)
+          && _communityRegexes.equals(key._communityRegexes)
+          && _asPathRegexes.equals(key._asPathRegexes);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(_node, _communityRegexes, _asPathRegexes);
+    }
+  }
+
+  /**
+   * The parts of a configuration that the atomic predicates and transfer functions are computed
+   * from: the statements of each routing policy, and the named structures those statements can
+   * refer to. Routing policies are reduced to their statements, since they refer to their owner.
+   */
+  private static final class Content {
+    private final @Nonnull Map<String, List<Statement>> _routingPolicies;
+    private final @Nonnull List<Map<String, ?>> _namedStructures;
+    private final int _hashCode;
+
+    private Content(Configuration configuration) {
+      ImmutableMap.Builder<String, List<Statement>> routingPolicies = ImmutableMap.builder();
+      for (Entry<String, RoutingPolicy> entry : configuration.getRoutingPolicies().entrySet()) {
+        routingPolicies.put(entry.getKey(), entry.getValue().getStatements());
+      }
+      _routingPolicies = routingPolicies.build();
+      _namedStructures =
+          ImmutableList.of(
+              ImmutableMap.copyOf(configuration.getAsPathAccessLists()),
+              ImmutableMap.copyOf(configuration.getCommunityLists()),
+              ImmutableMap.copyOf(configuration.getCommunityMatchExprs()),
+              ImmutableMap.copyOf(configuration.getCommunitySetExprs()),
+              ImmutableMap.copyOf(configuration.getCommunitySetMatchExprs()),
+              ImmutableMap.copyOf(configuration.getRouteFilterLists()),
+              ImmutableMap.copyOf(configuration.getRoute6FilterLists()));
+      _hashCode = Objects.hash(_routingPolicies, _namedStructures);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      } else if (!(o instanceof Content)) {
+        return false;
+      }
+      Content content = (Content) o;
+      return _hashCode == content._hashCode
+          && _routingPolicies.equals(content._routingPolicies)
+          && _namedStructures.equals(content._namedStructures);
+    }
+
+    @Override
+    public int hashCode() {
+      return _hashCode;
+    }
+  }
+
+  private final @Nonnull Content _content;
+  private final @Nonnull Graph _graph;
+  private final @Nonnull Map<String, TransferReturn> _transferReturns;
+
+  NodeAnalysis(Configuration configuration, Graph graph) {
+    _content = new Content(configuration);
+    _graph = graph;
+    _transferReturns = new HashMap<>();
+  }
+
+  @Nonnull
+  Graph getGraph() {
+    return _graph;
+  }
+
+  /**
+   * Returns whether the given configuration has the same routing policies and named structures as
+   * the one this analysis was computed from.
+   */
+  boolean hasContentOf(Configuration configuration) {
+    return _content.equals(new Content(configuration));
+  }
+
+  /** Returns the cached symbolic transfer function of the named policy, if it has been computed. */
+  @Nullable
+  TransferReturn getTransferReturn(String policyName) {
+    return _transferReturns.get(policyName);
+  }
+
+  void putTransferReturn(String policyName, TransferReturn transferReturn) {
+    _transferReturns.put(policyName, transferReturn);
+  }
+}
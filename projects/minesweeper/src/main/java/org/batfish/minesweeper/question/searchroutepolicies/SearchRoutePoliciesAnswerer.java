@@ -11,18 +11,23 @@ import static org.batfish.minesweeper.question.searchroutepolicies.SearchRoutePo
 import static org.batfish.specifier.NameRegexRoutingPolicySpecifier.ALL_ROUTING_POLICIES;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.BoundType;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multiset;
 import com.google.common.collect.Range;
 import dk.brics.automaton.Automaton;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -32,6 +37,7 @@ import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import net.sf.javabdd.BDD;
 import net.sf.javabdd.BDDFactory;
+import org.apache.commons.lang3.SerializationUtils;
 import org.batfish.common.Answerer;
 import org.batfish.common.BatfishException;
 import org.batfish.common.NetworkSnapshot;
@@ -39,6 +45,7 @@ import org.batfish.common.bdd.BDDInteger;
 import org.batfish.common.plugin.IBatfish;
 import org.batfish.datamodel.AsPath;
 import org.batfish.datamodel.Bgpv4Route;
+import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.Ip;
 import org.batfish.datamodel.LongSpace;
 import org.batfish.datamodel.OriginType;
@@ -86,6 +93,22 @@ public final class SearchRoutePoliciesAnswerer extends Answerer {
   public static final String COL_OUTPUT_ROUTE = "Output_Route";
   public static final String COL_DIFF = "Difference";
 
+  /** Maximum number of snapshots whose node analyses are kept across runs of this question. */
+  private static final int MAX_CACHED_SNAPSHOTS = 4;
+
+  /**
+   * Node analyses of the most recently analyzed snapshots, shared across runs of this question. The
+   * analyses hold BDDs from the shared BDDRoute factory, which is never reset, so they are kept for
+   * the lifetime of their snapshot's entry rather than left to the garbage collector: evicting a
+   * snapshot drops all of its analyses at once.
+   */
+  @VisibleForTesting
+  static final Cache<NetworkSnapshot, Map<NodeAnalysis.Key, NodeAnalysis>> NODE_ANALYSES =
+      CacheBuilder.newBuilder().maximumSize(MAX_CACHED_SNAPSHOTS).build();
+
+  /** Guards the shared BDDRoute factory, and the cached BDDs in {@link #NODE_ANALYSES}. */
+  private static final Object BDD_LOCK = new Object();
+
   @Nonnull private final BgpRouteConstraints _inputConstraints;
   @Nonnull private final BgpRouteConstraints _outputConstraints;
   @Nonnull private final NodeSpecifier _nodeSpecifier;
@@ -429,21 +452,26 @@ public final class SearchRoutePoliciesAnswerer extends Answerer {
    * Search a particular route policy for behaviors of interest.
    *
    * @param policy the routing policy
-   * @param g a Graph object providing information about the policy's owner configuration
+   * @param analysis the analysis of the policy's owner node, which caches the symbolic transfer
+   *     function of the policy
    * @return an optional result, if a behavior of interest was found
    */
-  private Optional<Result> searchPolicy(RoutingPolicy policy, Graph g) {
-    TransferReturn result;
-    try {
-      TransferBDD tbdd = new TransferBDD(g, policy.getOwner(), policy.getStatements());
-      result = tbdd.compute(ImmutableSet.of()).getReturnValue();
-    } catch (Exception e) {
-      throw new BatfishException(
-          "Unsupported features in route policy "
-              + policy.getName()
-              + " in node "
-              + policy.getOwner().getHostname(),
-          e);
+  private Optional<Result> searchPolicy(RoutingPolicy policy, NodeAnalysis analysis) {
+    Graph g = analysis.getGraph();
+    TransferReturn result = analysis.getTransferReturn(policy.getName());
+    if (result == null) {
+      try {
+        TransferBDD tbdd = new TransferBDD(g, policy.getOwner(), policy.getStatements());
+        result = tbdd.compute(ImmutableSet.of()).getReturnValue();
+      } catch (Exception e) {
+        throw new BatfishException(
+            "Unsupported features in route policy "
+                + policy.getName()
+                + " in node "
+                + policy.getOwner().getHostname(),
+            e);
+      }
+      analysis.putTransferReturn(policy.getName(), result);
     }
     BDD acceptedAnnouncements = result.getSecond();
     BDDRoute outputRoute = result.getFirst();
@@ -461,26 +489,52 @@ public final class SearchRoutePoliciesAnswerer extends Answerer {
   }
 
   /**
-   * Search all of the route policies of a particular node for behaviors of interest.
+   * Get the analysis of a particular node, reusing a cached one if it was computed for the same
+   * tracked regexes from a configuration with the same routing policies and named structures.
    *
-   * @param node the node
-   * @param policies all route policies in that node
-   * @return all results from analyzing those route policies
+   * @param snapshot the snapshot being analyzed
+   * @param analyses the cached analyses of that snapshot
+   * @param config the configuration of the node
+   * @return the analysis of that node
    */
-  private Stream<Result> searchPoliciesForNode(String node, Set<RoutingPolicy> policies) {
+  private NodeAnalysis getNodeAnalysis(
+      NetworkSnapshot snapshot,
+      Map<NodeAnalysis.Key, NodeAnalysis> analyses,
+      Configuration config) {
+    String node = config.getHostname();
+    NodeAnalysis.Key key = new NodeAnalysis.Key(node, _communityRegexes, _asPathRegexes);
+    NodeAnalysis analysis = analyses.get(key);
+    if (analysis != null && analysis.hasContentOf(config)) {
+      return analysis;
+    }
+    // The graph mutates its configurations, so it gets a clone of only the node being analyzed.
+    Map<String, Configuration> configs = new HashMap<>();
+    configs.put(node, SerializationUtils.clone(config));
     Graph g =
         new Graph(
             _batfish,
-            _batfish.getSnapshot(),
-            null,
+            snapshot,
+            configs,
             ImmutableSet.of(node),
             _communityRegexes.stream()
                 .map(RegexCommunitySet::new)
                 .collect(ImmutableSet.toImmutableSet()),
             _asPathRegexes);
+    analysis = new NodeAnalysis(config, g);
+    analyses.put(key, analysis);
+    return analysis;
+  }
 
+  /**
+   * Search all of the route policies of a particular node for behaviors of interest.
+   *
+   * @param analysis the analysis of the node
+   * @param policies all route policies in that node
+   * @return all results from analyzing those route policies
+   */
+  private Stream<Result> searchPoliciesForNode(NodeAnalysis analysis, Set<RoutingPolicy> policies) {
     return policies.stream()
-        .map(policy -> searchPolicy(policy, g))
+        .map(policy -> searchPolicy(policy, analysis))
         .filter(Optional::isPresent)
         .map(Optional::get);
   }
@@ -488,11 +542,30 @@ public final class SearchRoutePoliciesAnswerer extends Answerer {
   @Override
   public AnswerElement answer(NetworkSnapshot snapshot) {
     SpecifierContext context = _batfish.specifierContext(snapshot);
-    Multiset<Row> rows =
-        _nodeSpecifier.resolve(context).stream()
-            .flatMap(node -> searchPoliciesForNode(node, _policySpecifier.resolve(node, context)))
-            .map(SearchRoutePoliciesAnswerer::toRow)
-            .collect(ImmutableMultiset.toImmutableMultiset());
+    Map<String, Configuration> configs = context.getConfigs();
+    Set<String> nodes = _nodeSpecifier.resolve(context);
+
+    // Building a node's graph only touches that node's configuration, so it is done in parallel.
+    // The symbolic analysis itself uses the shared BDDRoute factory, which is not thread-safe.
+    Map<NodeAnalysis.Key, NodeAnalysis> cached =
+        NODE_ANALYSES.asMap().computeIfAbsent(snapshot, s -> new ConcurrentHashMap<>());
+    Map<String, NodeAnalysis> analyses =
+        nodes.parallelStream()
+            .collect(
+                ImmutableMap.toImmutableMap(
+                    Function.identity(),
+                    node -> getNodeAnalysis(snapshot, cached, configs.get(node))));
+    Multiset<Row> rows;
+    synchronized (BDD_LOCK) {
+      rows =
+          nodes.stream()
+              .flatMap(
+                  node ->
+                      searchPoliciesForNode(
+                          analyses.get(node), _policySpecifier.resolve(node, context)))
+              .map(SearchRoutePoliciesAnswerer::toRow)
+              .collect(ImmutableMultiset.toImmutableMultiset());
+    }
 
     TableAnswerElement answerElement = new TableAnswerElement(metadata());
     answerElement.postProcessAnswer(_question, rows);
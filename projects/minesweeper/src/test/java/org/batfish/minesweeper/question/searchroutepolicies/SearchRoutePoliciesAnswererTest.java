@@ -16,8 +16,13 @@ import static org.batfish.specifier.NameRegexRoutingPolicySpecifier.ALL_ROUTING_
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.allOf;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import com.google.common.collect.BoundType;
 import com.google.common.collect.ImmutableList;
@@ -28,6 +33,7 @@ import com.google.common.collect.Range;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
+import org.apache.commons.lang3.SerializationUtils;
 import org.batfish.common.NetworkSnapshot;
 import org.batfish.common.plugin.IBatfish;
 import org.batfish.common.plugin.IBatfishTestAdapter;
@@ -74,6 +80,7 @@ import org.batfish.datamodel.routing_policy.statement.SetLocalPreference;
 import org.batfish.datamodel.routing_policy.statement.Statements;
 import org.batfish.datamodel.routing_policy.statement.Statements.StaticStatement;
 import org.batfish.datamodel.table.TableAnswerElement;
+import org.batfish.minesweeper.bdd.TransferReturn;
 import org.batfish.minesweeper.question.searchroutepolicies.SearchRoutePoliciesQuestion.Action;
 import org.batfish.specifier.AllNodesNodeSpecifier;
 import org.batfish.specifier.Location;
@@ -224,6 +231,64 @@ public class SearchRoutePoliciesAnswererTest {
                 hasColumn(COL_DIFF, equalTo(diff), Schema.BGP_ROUTE_DIFFS))));
   }
 
+  private static NodeAnalysis cachedNodeAnalysis(NetworkSnapshot snapshot, NodeAnalysis.Key key) {
+    Map<NodeAnalysis.Key, NodeAnalysis> analyses =
+        SearchRoutePoliciesAnswerer.NODE_ANALYSES.getIfPresent(snapshot);
+    return analyses == null ? null : analyses.get(key);
+  }
+
+  @Test
+  public void testReuseNodeAnalysis() {
+    RoutingPolicy policy =
+        _policyBuilder.addStatement(new StaticStatement(Statements.ExitAccept)).build();
+    SearchRoutePoliciesQuestion question =
+        new SearchRoutePoliciesQuestion(
+            EMPTY_CONSTRAINTS, EMPTY_CONSTRAINTS, HOSTNAME, policy.getName(), Action.PERMIT);
+    NetworkSnapshot snapshot = _batfish.getSnapshot();
+    NodeAnalysis.Key key = new NodeAnalysis.Key(HOSTNAME, ImmutableSet.of(), ImmutableSet.of());
+
+    TableAnswerElement answer =
+        (TableAnswerElement) new SearchRoutePoliciesAnswerer(question, _batfish).answer(snapshot);
+    NodeAnalysis analysis = cachedNodeAnalysis(snapshot, key);
+    assertThat(analysis, notNullValue());
+    TransferReturn transferReturn = analysis.getTransferReturn(policy.getName());
+    assertThat(transferReturn, notNullValue());
+
+    // a second run for the same configuration reuses the analysis and gets the same answer
+    TableAnswerElement answer2 =
+        (TableAnswerElement) new SearchRoutePoliciesAnswerer(question, _batfish).answer(snapshot);
+    assertThat(answer2.getRows().getData(), equalTo(answer.getRows().getData()));
+    assertThat(cachedNodeAnalysis(snapshot, key), sameInstance(analysis));
+    assertThat(analysis.getTransferReturn(policy.getName()), sameInstance(transferReturn));
+
+    // a different configuration object with the same content also reuses the analysis
+    Configuration config =
+        SerializationUtils.clone(_batfish.loadConfigurations(snapshot).get(HOSTNAME));
+    IBatfish batfish = new MockBatfish(ImmutableSortedMap.of(HOSTNAME, config));
+    TableAnswerElement answer3 =
+        (TableAnswerElement) new SearchRoutePoliciesAnswerer(question, batfish).answer(snapshot);
+    assertThat(answer3.getRows().getData(), equalTo(answer.getRows().getData()));
+    assertThat(cachedNodeAnalysis(snapshot, key), sameInstance(analysis));
+
+    // a configuration whose policy changed is analyzed from scratch
+    Configuration changed =
+        SerializationUtils.clone(_batfish.loadConfigurations(snapshot).get(HOSTNAME));
+    new NetworkFactory()
+        .routingPolicyBuilder()
+        .setOwner(changed)
+        .setName(policy.getName())
+        .addStatement(new StaticStatement(Statements.ExitReject))
+        .build();
+    IBatfish batfish4 = new MockBatfish(ImmutableSortedMap.of(HOSTNAME, changed));
+    TableAnswerElement answer4 =
+        (TableAnswerElement) new SearchRoutePoliciesAnswerer(question, batfish4).answer(snapshot);
+    assertEquals(0, answer4.getRows().size());
+    NodeAnalysis analysis4 = cachedNodeAnalysis(snapshot, key);
+    assertThat(analysis4, not(sameInstance(analysis)));
+    assertTrue(analysis4.hasContentOf(changed));
+    assertFalse(analysis4.hasContentOf(config));
+  }
+
   @Test
   public void testInputAPrefix() {
     RoutingPolicy policy =
@@ -3,13 +3,21 @@ package org.batfish.question;
 import static org.batfish.datamodel.acl.SourcesReferencedByIpAccessLists.SOURCE_ORIGINATING_FROM_DEVICE;
 import static org.batfish.datamodel.acl.SourcesReferencedByIpAccessLists.referencedSources;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 import net.sf.javabdd.BDD;
 import org.batfish.common.bdd.BDDFlowConstraintGenerator.FlowPreference;
 import org.batfish.common.bdd.BDDPacket;
@@ -126,4 +134,57 @@ public final class FilterQuestionUtils {
         .map(locationToSource::visit)
         .collect(ImmutableSet.toImmutableSet());
   }
+
+  /**
+   * Applies {@code function} to each of the {@code inputs} using up to {@code parallelism} tasks on
+   * the common {@link ForkJoinPool}, and returns the outputs in the order of the inputs (outputs
+   * may be null).
+   *
+   * <p>Each task creates its own state with {@code newWorkerState} and reuses it for every input it
+   * handles. Since BDD factories are single-threaded, this is how each task gets its own {@link
+   * BDDPacket}, which stays warm across inputs.
+   */
+  public static <S, I, O> List<O> parallelMap(
+      List<I> inputs,
+      int parallelism,
+      Supplier<S> newWorkerState,
+      BiFunction<S, ? super I, O> function) {
+    Object[] outputs = new Object[inputs.size()];
+    int numWorkers = Math.min(parallelism, inputs.size());
+    if (numWorkers <= 1) {
+      S state = newWorkerState.get();
+      for (int i = 0; i < outputs.length; i++) {
+        outputs[i] = function.apply(state, inputs.get(i));
+      }
+      return asList(outputs);
+    }
+
+    AtomicInteger nextInput = new AtomicInteger();
+    ImmutableList.Builder<ForkJoinTask<?>> workers = ImmutableList.builder();
+    for (int i = 0; i < numWorkers; i++) {
+      workers.add(
+          ForkJoinPool.commonPool()
+              .submit(
+                  () -> {
+                    S state = null;
+                    for (int j = nextInput.getAndIncrement();
+                        j < outputs.length;
+                        j = nextInput.getAndIncrement()) {
+                      if (state == null) {
+                        // only create state for tasks that get an input
+                        state = newWorkerState.get();
+                      }
+                      outputs[j] = function.apply(state, inputs.get(j));
+                    }
+                  }));
+    }
+    // join rethrows any exception thrown by the function
+    workers.build().forEach(ForkJoinTask::join);
+    return asList(outputs);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <O> List<O> asList(Object[] outputs) {
+    return (List<O>) Arrays.asList(outputs);
+  }
 }
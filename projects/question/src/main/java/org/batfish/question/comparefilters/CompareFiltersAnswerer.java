@@ -3,6 +3,7 @@ package org.batfish.question.comparefilters;
 import static com.google.common.base.Preconditions.checkArgument;
 import static org.batfish.common.bdd.PermitAndDenyBdds.takeDifferentActions;
 import static org.batfish.question.FilterQuestionUtils.getSpecifiedFilters;
+import static org.batfish.question.FilterQuestionUtils.parallelMap;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
@@ -87,17 +88,23 @@ public class CompareFiltersAnswerer extends Answerer {
             currentFilters,
             entry -> referenceFilters.containsEntry(entry.getKey(), entry.getValue()));
 
-    BDDPacket bddPacket = new BDDPacket();
-    Multiset<Row> rows =
-        commonFilters.entries().stream()
-            .flatMap(
-                entry ->
-                    compareFilter(
+    // Compare the filters in parallel, each worker thread with its own BDDPacket
+    List<List<FilterDifference>> differences =
+        parallelMap(
+            ImmutableList.copyOf(commonFilters.entries()),
+            _batfish.getAvailableThreads(),
+            BDDPacket::new,
+            (bddPacket, entry) ->
+                compareFilter(
                         entry.getKey(),
                         entry.getValue(),
                         bddPacket,
                         currentContext,
-                        referenceContext))
+                        referenceContext)
+                    .collect(ImmutableList.toImmutableList()));
+    Multiset<Row> rows =
+        differences.stream()
+            .flatMap(List::stream)
             .map(filterDifference -> toRow(filterDifference, currentContext, referenceContext))
             .collect(ImmutableMultiset.toImmutableMultiset());
 
@@ -2,6 +2,7 @@ package org.batfish.question.searchfilters;
 
 import static org.batfish.datamodel.acl.SourcesReferencedByIpAccessLists.referencedSources;
 import static org.batfish.question.FilterQuestionUtils.differentialBDDSourceManager;
+import static org.batfish.question.FilterQuestionUtils.parallelMap;
 import static org.batfish.question.FilterQuestionUtils.resolveSources;
 import static org.batfish.question.testfilters.TestFiltersAnswerer.COLUMN_METADATA;
 import static org.batfish.question.testfilters.TestFiltersAnswerer.COL_FILTER_NAME;
@@ -9,10 +10,14 @@ import static org.batfish.question.testfilters.TestFiltersAnswerer.COL_NODE;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multiset;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Sets.SetView;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
@@ -79,12 +84,52 @@ public final class SearchFiltersAnswerer extends Answerer {
 
     Map<String, Map<String, IpAccessList>> acls = getSpecifiedAcls(snapshot, question);
     Map<String, Map<String, IpAccessList>> refAcls = getSpecifiedAcls(reference, question);
-    Map<String, DiffConfigContext> configContexts =
-        getDiffConfigContexts(acls, refAcls, snapshot, reference, parameters);
+    Set<String> commonNodes = Sets.intersection(acls.keySet(), refAcls.keySet());
+
+    // Query the filters present and queryable in both snapshots, one node per task so that each
+    // node's config context is only built once
+    List<String> queriedNodes =
+        commonNodes.stream()
+            .filter(hostname -> !queryableCommonAcls(hostname, acls, refAcls, query).isEmpty())
+            .collect(ImmutableList.toImmutableList());
+    Map<String, Configuration> configs = _batfish.loadConfigurations(snapshot);
+    Map<String, Configuration> refConfigs = _batfish.loadConfigurations(reference);
+    // resolve specifier contexts here rather than on the worker threads
+    SpecifierContext specifierContext = _batfish.specifierContext(snapshot);
+    SpecifierContext refSpecifierContext = _batfish.specifierContext(reference);
+    List<Map<String, DifferentialSearchFiltersResult>> results =
+        parallelMap(
+            queriedNodes,
+            _batfish.getAvailableThreads(),
+            BDDPacket::new,
+            (pkt, hostname) -> {
+              DiffConfigContext configContext =
+                  new DiffConfigContext(
+                      configs.get(hostname),
+                      refConfigs.get(hostname),
+                      Sets.intersection(
+                          acls.get(hostname).keySet(), refAcls.get(hostname).keySet()),
+                      specifierContext,
+                      refSpecifierContext,
+                      parameters,
+                      pkt);
+              return queryableCommonAcls(hostname, acls, refAcls, query).stream()
+                  .collect(
+                      ImmutableMap.toImmutableMap(
+                          aclName -> aclName,
+                          aclName ->
+                              getDiffResult(
+                                  acls.get(hostname).get(aclName),
+                                  refAcls.get(hostname).get(aclName),
+                                  configContext,
+                                  query)));
+            });
+    Map<String, Map<String, DifferentialSearchFiltersResult>> resultsByNode = new HashMap<>();
+    for (int i = 0; i < queriedNodes.size(); i++) {
+      resultsByNode.put(queriedNodes.get(i), results.get(i));
+    }
 
-    for (Entry<String, DiffConfigContext> e : configContexts.entrySet()) {
-      String hostname = e.getKey();
-      DiffConfigContext configContext = e.getValue();
+    for (String hostname : commonNodes) {
       Map<String, IpAccessList> aclsForNode = acls.get(hostname);
       Map<String, IpAccessList> refAclsForNode = refAcls.get(hostname);
 
@@ -111,7 +156,7 @@ public final class SearchFiltersAnswerer extends Answerer {
         }
 
         // present in both snapshot
-        DifferentialSearchFiltersResult result = getDiffResult(acl, refAcl, configContext, query);
+        DifferentialSearchFiltersResult result = resultsByNode.get(hostname).get(aclName);
 
         Stream.of(result.getDecreasedFlow(), result.getIncreasedFlow())
             .filter(Optional::isPresent)
@@ -143,87 +188,73 @@ public final class SearchFiltersAnswerer extends Answerer {
       throw new BatfishException("No matching filters");
     }
 
-    Multiset<Row> rows = HashMultiset.create();
-
     /*
      * For each ACL, try to get a flow matching the query. If one exists, run traceFilter on that
      * flow. Concatenate the answers for all flows into one big table.
      */
     SearchFiltersParameters parameters = question.toSearchFiltersParameters();
     SearchFiltersQuery query = question.getQuery();
-    for (Entry<String, NonDiffConfigContext> e :
-        getConfigContexts(specifiedAcls, snapshot, parameters).entrySet()) {
-      String hostname = e.getKey();
-      NonDiffConfigContext configContext = e.getValue();
-      for (IpAccessList acl : specifiedAcls.get(hostname).values()) {
-        // Ensure that query is applicable to acl
-        if (!query.canQuery(acl)) {
-          continue;
-        }
-
-        // Generate representative flow for ACL, if one exists
-        Flow flow = configContext.getFlow(configContext.getReachBdd(acl, query));
-        if (flow == null) {
-          continue;
-        }
-
-        // Add result to table
-        rows.add(testFiltersRow(snapshot, hostname, acl.getName(), flow));
-      }
-
-      _tableAnswerElement = new TableAnswerElement(new TableMetadata(COLUMN_METADATA));
-      _tableAnswerElement.postProcessAnswer(question, rows);
-    }
-  }
-
-  /**
-   * Given all specified ACLs on all configs of the given snapshot, returns a {@link
-   * NonDiffConfigContext} for each config.
-   */
-  private Map<String, NonDiffConfigContext> getConfigContexts(
-      Map<String, Map<String, IpAccessList>> specifiedAcls,
-      NetworkSnapshot snapshot,
-      SearchFiltersParameters parameters) {
+    // Query each node's filters in one task, so that its config context is only built once
     Map<String, Configuration> configs = _batfish.loadConfigurations(snapshot);
-    BDDPacket pkt = new BDDPacket();
-    return specifiedAcls.entrySet().stream()
-        .collect(
-            ImmutableMap.toImmutableMap(
-                Entry::getKey,
-                e -> {
-                  Configuration c = configs.get(e.getKey());
-                  Set<String> aclNames = e.getValue().keySet();
-                  return new NonDiffConfigContext(c, aclNames, snapshot, _batfish, parameters, pkt);
-                }));
+    // resolve the specifier context here rather than on the worker threads
+    SpecifierContext specifierContext = _batfish.specifierContext(snapshot);
+    List<String> queriedNodes =
+        specifiedAcls.entrySet().stream()
+            .filter(e -> e.getValue().values().stream().anyMatch(query::canQuery))
+            .map(Entry::getKey)
+            .collect(ImmutableList.toImmutableList());
+    List<List<Row>> rowsByNode =
+        parallelMap(
+            queriedNodes,
+            _batfish.getAvailableThreads(),
+            BDDPacket::new,
+            (pkt, hostname) -> {
+              NonDiffConfigContext configContext =
+                  new NonDiffConfigContext(
+                      configs.get(hostname),
+                      specifiedAcls.get(hostname).keySet(),
+                      specifierContext,
+                      parameters,
+                      pkt);
+              ImmutableList.Builder<Row> nodeRows = ImmutableList.builder();
+              for (IpAccessList acl : specifiedAcls.get(hostname).values()) {
+                // Ensure that query is applicable to acl
+                if (!query.canQuery(acl)) {
+                  continue;
+                }
+
+                // Generate representative flow for ACL, if one exists
+                Flow flow = configContext.getFlow(configContext.getReachBdd(acl, query));
+                if (flow == null) {
+                  continue;
+                }
+
+                // Add result to table
+                nodeRows.add(testFiltersRow(snapshot, hostname, acl.getName(), flow));
+              }
+              return nodeRows.build();
+            });
+    Multiset<Row> rows = HashMultiset.create();
+    rowsByNode.forEach(rows::addAll);
+
+    _tableAnswerElement = new TableAnswerElement(new TableMetadata(COLUMN_METADATA));
+    _tableAnswerElement.postProcessAnswer(question, rows);
   }
 
-  /**
-   * Given all specified ACLs in two snapshots, returns a {@link DiffConfigContext} for each config
-   * in common between the two snapshots.
-   */
-  private Map<String, DiffConfigContext> getDiffConfigContexts(
-      Map<String, Map<String, IpAccessList>> baseAcls,
+  /** Returns the names of the filters on the given node that are queryable in both snapshots. */
+  private static Set<String> queryableCommonAcls(
+      String hostname,
+      Map<String, Map<String, IpAccessList>> acls,
       Map<String, Map<String, IpAccessList>> refAcls,
-      NetworkSnapshot snapshot,
-      NetworkSnapshot reference,
-      SearchFiltersParameters parameters) {
-    Map<String, Configuration> baseConfigs = _batfish.loadConfigurations(snapshot);
-    Map<String, Configuration> refConfigs = _batfish.loadConfigurations(reference);
-    BDDPacket pkt = new BDDPacket();
-
-    Set<String> commonNodes = Sets.intersection(baseAcls.keySet(), refAcls.keySet());
-    ImmutableMap.Builder<String, DiffConfigContext> configContexts = ImmutableMap.builder();
-    for (String hostname : commonNodes) {
-      Configuration c = baseConfigs.get(hostname);
-      Configuration refC = refConfigs.get(hostname);
-      Set<String> commonAcls =
-          Sets.intersection(baseAcls.get(hostname).keySet(), refAcls.get(hostname).keySet());
-      configContexts.put(
-          hostname,
-          new DiffConfigContext(
-              c, refC, commonAcls, snapshot, reference, _batfish, parameters, pkt));
-    }
-    return configContexts.build();
+      SearchFiltersQuery query) {
+    Map<String, IpAccessList> aclsForNode = acls.get(hostname);
+    Map<String, IpAccessList> refAclsForNode = refAcls.get(hostname);
+    return Sets.intersection(aclsForNode.keySet(), refAclsForNode.keySet()).stream()
+        .filter(
+            aclName ->
+                query.canQuery(aclsForNode.get(aclName))
+                    && query.canQuery(refAclsForNode.get(aclName)))
+        .collect(ImmutableSet.toImmutableSet());
   }
 
   /**
@@ -302,14 +333,12 @@ public final class SearchFiltersAnswerer extends Answerer {
     NonDiffConfigContext(
         Configuration config,
         Set<String> specifiedAcls,
-        NetworkSnapshot snapshot,
-        IBatfish batfish,
+        SpecifierContext specifierContext,
         SearchFiltersParameters parameters,
         BDDPacket pkt) {
       _hostname = config.getHostname();
       _pkt = pkt;
 
-      SpecifierContext specifierContext = batfish.specifierContext(snapshot);
       Set<String> activeSources = getActiveSources(config, specifierContext, parameters);
       Set<String> referencedSources = referencedSources(config.getIpAccessLists(), specifiedAcls);
       _mgr = BDDSourceManager.forSources(_pkt, activeSources, referencedSources);
@@ -357,17 +386,14 @@ public final class SearchFiltersAnswerer extends Answerer {
         Configuration config,
         Configuration refConfig,
         Set<String> specifiedAcls,
-        NetworkSnapshot snapshot,
-        NetworkSnapshot refSnapshot,
-        IBatfish batfish,
+        SpecifierContext specifierContext,
+        SpecifierContext refSpecifierContext,
         SearchFiltersParameters parameters,
         BDDPacket pkt) {
       // Both configs should share the same hostname
       _hostname = config.getHostname();
       _pkt = pkt;
 
-      SpecifierContext specifierContext = batfish.specifierContext(snapshot);
-      SpecifierContext refSpecifierContext = batfish.specifierContext(refSnapshot);
       _mgr =
           differentialBDDSourceManager(
               _pkt,
@@ -4,15 +4,19 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.LinkedHashMultiset;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multiset;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import org.batfish.common.Answerer;
 import org.batfish.common.NetworkSnapshot;
 import org.batfish.common.plugin.IBatfish;
+import org.batfish.common.traceroute.TraceDag;
 import org.batfish.common.util.TracePruner;
 import org.batfish.datamodel.Flow;
 import org.batfish.datamodel.answers.AnswerElement;
@@ -40,23 +44,35 @@ public final class TracerouteAnswerer extends Answerer {
     super(question, batfish);
   }
 
+  /**
+   * Traces the flows of the question, keeping only the pruned traces and the number of traces of
+   * each flow. The traces of each flow are pruned from its trace DAG as soon as that flow is
+   * traced, without enumerating all of its traces, so the unpruned traces are never in memory.
+   */
   @VisibleForTesting
-  SortedMap<Flow, List<Trace>> getTraces(NetworkSnapshot snapshot, TracerouteQuestion q) {
+  SortedMap<Flow, PrunedTraces> getPrunedTraces(NetworkSnapshot snapshot, TracerouteQuestion q) {
     TracerouteAnswererHelper helper =
         new TracerouteAnswererHelper(
             q.getHeaderConstraints(),
             q.getSourceLocationStr(),
             _batfish.specifierContext(snapshot));
     Set<Flow> flows = helper.getFlows();
-    return _batfish.getTracerouteEngine(snapshot).computeTraces(flows, q.getIgnoreFilters());
+    SortedMap<Flow, PrunedTraces> prunedTraces = new ConcurrentSkipListMap<>();
+    _batfish
+        .getTracerouteEngine(snapshot)
+        .forEachTraceDag(
+            flows,
+            ImmutableSet.of(),
+            q.getIgnoreFilters(),
+            (flow, traceDag) ->
+                prunedTraces.put(flow, PrunedTraces.of(traceDag, q.getMaxTraces())));
+    return prunedTraces;
   }
 
   @Override
   public AnswerElement answer(NetworkSnapshot snapshot) {
     TracerouteQuestion q = (TracerouteQuestion) _question;
-    SortedMap<Flow, List<Trace>> flowTraces = getTraces(snapshot, q);
-    Multiset<Row> rows = flowTracesToRows(flowTraces, q.getMaxTraces());
-
+    Multiset<Row> rows = prunedTracesToRows(getPrunedTraces(snapshot, q));
     TableAnswerElement table = new TableAnswerElement(metadata(false));
     table.postProcessAnswer(_question, rows);
     return table;
@@ -65,16 +81,33 @@ public final class TracerouteAnswerer extends Answerer {
   @Override
   public AnswerElement answerDiff(NetworkSnapshot snapshot, NetworkSnapshot reference) {
     TracerouteQuestion q = ((TracerouteQuestion) _question);
-    Map<Flow, List<Trace>> baseFlowTraces = getTraces(snapshot, q);
-
-    Map<Flow, List<Trace>> deltaFlowTraces = getTraces(reference, q);
-
-    Multiset<Row> rows = diffFlowTracesToRows(baseFlowTraces, deltaFlowTraces, q.getMaxTraces());
+    Multiset<Row> rows =
+        diffPrunedTracesToRows(getPrunedTraces(snapshot, q), getPrunedTraces(reference, q));
     TableAnswerElement table = new TableAnswerElement(metadata(true));
     table.postProcessAnswer(_question, rows);
     return table;
   }
 
+  /** The traces of a flow after pruning, and the number of traces before pruning. */
+  @VisibleForTesting
+  static final class PrunedTraces {
+    final List<Trace> _traces;
+    final int _traceCount;
+
+    private PrunedTraces(List<Trace> traces, int traceCount) {
+      _traces = traces;
+      _traceCount = traceCount;
+    }
+
+    static PrunedTraces of(List<Trace> traces, int maxTraces) {
+      return new PrunedTraces(TracePruner.prune(traces, maxTraces), traces.size());
+    }
+
+    static PrunedTraces of(TraceDag traceDag, int maxTraces) {
+      return new PrunedTraces(traceDag.getPrunedTraces(maxTraces), traceDag.size());
+    }
+  }
+
   /** Create metadata for the new traceroute v2 answer */
   public static TableMetadata metadata(boolean differential) {
     List<ColumnMetadata> columnMetadata;
@@ -124,43 +157,57 @@ public final class TracerouteAnswerer extends Answerer {
 
   public static Multiset<Row> flowTracesToRows(
       SortedMap<Flow, List<Trace>> flowTraces, int maxTraces) {
+    return prunedTracesToRows(
+        Maps.transformValues(flowTraces, traces -> PrunedTraces.of(traces, maxTraces)));
+  }
+
+  public static Multiset<Row> diffFlowTracesToRows(
+      Map<Flow, List<Trace>> baseFlowTraces,
+      Map<Flow, List<Trace>> deltaFlowTraces,
+      int maxTraces) {
+    return diffPrunedTracesToRows(
+        Maps.transformValues(baseFlowTraces, traces -> PrunedTraces.of(traces, maxTraces)),
+        Maps.transformValues(deltaFlowTraces, traces -> PrunedTraces.of(traces, maxTraces)));
+  }
+
+  private static Multiset<Row> prunedTracesToRows(SortedMap<Flow, PrunedTraces> flowTraces) {
     Multiset<Row> rows = LinkedHashMultiset.create();
-    for (Map.Entry<Flow, List<Trace>> flowTrace : flowTraces.entrySet()) {
-      List<Trace> traces = flowTrace.getValue();
-      List<Trace> prunedTraces = TracePruner.prune(traces, maxTraces);
+    for (Map.Entry<Flow, PrunedTraces> flowTrace : flowTraces.entrySet()) {
+      PrunedTraces traces = flowTrace.getValue();
       rows.add(
           Row.of(
               COL_FLOW,
               flowTrace.getKey(),
               COL_TRACES,
-              prunedTraces,
+              traces._traces,
               COL_TRACE_COUNT,
-              traces.size()));
+              traces._traceCount));
     }
     return rows;
   }
 
-  public static Multiset<Row> diffFlowTracesToRows(
-      Map<Flow, List<Trace>> baseFlowTraces,
-      Map<Flow, List<Trace>> deltaFlowTraces,
-      int maxTraces) {
+  private static Multiset<Row> diffPrunedTracesToRows(
+      Map<Flow, PrunedTraces> baseFlowTraces, Map<Flow, PrunedTraces> deltaFlowTraces) {
     Multiset<Row> rows = LinkedHashMultiset.create();
     checkArgument(
         baseFlowTraces.keySet().equals(deltaFlowTraces.keySet()),
         "Base and delta flow traces should have same flows");
-    for (Flow flow : baseFlowTraces.keySet()) {
+    for (Map.Entry<Flow, PrunedTraces> baseFlowTrace : baseFlowTraces.entrySet()) {
+      Flow flow = baseFlowTrace.getKey();
+      PrunedTraces baseTraces = baseFlowTrace.getValue();
+      PrunedTraces deltaTraces = deltaFlowTraces.get(flow);
       rows.add(
           Row.of(
               COL_FLOW,
               flow,
-              TableDiff.baseColumnName(COL_TRACES),
-              TracePruner.prune(baseFlowTraces.get(flow), maxTraces),
-              TableDiff.baseColumnName(COL_TRACE_COUNT),
-              baseFlowTraces.get(flow).size(),
-              TableDiff.deltaColumnName(COL_TRACES),
-              TracePruner.prune(deltaFlowTraces.get(flow), maxTraces),
-              TableDiff.deltaColumnName(COL_TRACE_COUNT),
-              deltaFlowTraces.get(flow).size()));
+              COL_BASE_TRACES,
+              baseTraces._traces,
+              COL_BASE_TRACE_COUNT,
+              baseTraces._traceCount,
+              COL_DELTA_TRACES,
+              deltaTraces._traces,
+              COL_DELTA_TRACE_COUNT,
+              deltaTraces._traceCount));
     }
     return rows;
   }
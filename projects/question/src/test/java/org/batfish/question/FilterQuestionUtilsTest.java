@@ -2,17 +2,27 @@ package org.batfish.question;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertTrue;
 
+import com.google.common.collect.ImmutableList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.batfish.common.bdd.BDDPacket;
 import org.batfish.common.bdd.BDDSourceManager;
 import org.batfish.datamodel.Flow;
 import org.batfish.datamodel.Ip;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 
 public class FilterQuestionUtilsTest {
+  @Rule public ExpectedException _thrown = ExpectedException.none();
+
   @Test
   public void testGetFlowWithPreference() {
     BDDPacket pkt = new BDDPacket();
@@ -25,4 +35,48 @@ public class FilterQuestionUtilsTest {
     assertThat(flow.getDstIp(), not(equalTo(Ip.ZERO)));
     assertThat(flow.getIpProtocol().number(), not(equalTo(0)));
   }
+
+  @Test
+  public void testParallelMap() {
+    List<Integer> inputs = IntStream.range(0, 100).boxed().collect(ImmutableList.toImmutableList());
+    AtomicInteger numWorkers = new AtomicInteger();
+    List<String> outputs =
+        FilterQuestionUtils.parallelMap(
+            inputs,
+            4,
+            numWorkers::incrementAndGet,
+            (worker, input) -> input % 3 == 0 ? null : Integer.toString(input));
+
+    // outputs are in input order, including nulls
+    assertThat(
+        outputs,
+        equalTo(
+            inputs.stream()
+                .map(input -> input % 3 == 0 ? null : Integer.toString(input))
+                .collect(Collectors.toList())));
+    // each worker's state is created once
+    assertThat(numWorkers.get(), lessThanOrEqualTo(4));
+  }
+
+  @Test
+  public void testParallelMapSequential() {
+    AtomicInteger numWorkers = new AtomicInteger();
+    List<Integer> outputs =
+        FilterQuestionUtils.parallelMap(
+            ImmutableList.of(1, 2, 3), 1, numWorkers::incrementAndGet, (worker, input) -> worker);
+    // a single worker handles all the inputs with the same state
+    assertThat(outputs, equalTo(ImmutableList.of(1, 1, 1)));
+  }
+
+  @Test
+  public void testParallelMapException() {
+    _thrown.expect(IllegalStateException.class);
+    FilterQuestionUtils.parallelMap(
+        ImmutableList.of(1, 2, 3, 4),
+        2,
+        Object::new,
+        (worker, input) -> {
+          throw new IllegalStateException();
+        });
+  }
 }
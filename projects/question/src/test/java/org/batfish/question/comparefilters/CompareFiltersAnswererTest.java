@@ -6,20 +6,41 @@ import static org.batfish.datamodel.LineAction.PERMIT;
 import static org.batfish.question.comparefilters.CompareFiltersAnswerer.compareFilters;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertThat;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import javax.annotation.Nullable;
 import net.sf.javabdd.BDD;
+import org.batfish.common.NetworkSnapshot;
 import org.batfish.common.bdd.BDDPacket;
 import org.batfish.common.bdd.PermitAndDenyBdds;
+import org.batfish.common.plugin.IBatfishTestAdapter;
+import org.batfish.datamodel.Configuration;
+import org.batfish.datamodel.ConfigurationFormat;
+import org.batfish.datamodel.ExprAclLine;
+import org.batfish.datamodel.HeaderSpace;
+import org.batfish.datamodel.Ip;
+import org.batfish.datamodel.IpAccessList;
 import org.batfish.datamodel.LineAction;
+import org.batfish.datamodel.NetworkFactory;
+import org.batfish.datamodel.table.TableAnswerElement;
+import org.batfish.specifier.Location;
+import org.batfish.specifier.LocationInfo;
 import org.junit.Test;
 
 public final class CompareFiltersAnswererTest {
+  private static final int NUM_ACLS = 6;
+  private static final int NUM_NODES = 4;
   private static final String HOSTNAME = "hostname";
   private static final String FILTER = "filter";
   private static final BDDPacket PKT = new BDDPacket();
@@ -115,6 +136,96 @@ public final class CompareFiltersAnswererTest {
     }
   }
 
+  /**
+   * Comparing filters with several workers, each with its own BDD factory, gives the sequential
+   * answer.
+   */
+  @Test
+  public void testParallelAnswerMatchesSequential() {
+    List<Configuration> configs = createConfigs(0);
+    List<Configuration> refConfigs = createConfigs(1);
+    CompareFiltersQuestion question = new CompareFiltersQuestion();
+    MockBatfish sequential = new MockBatfish(configs, refConfigs, 1);
+    MockBatfish parallel = new MockBatfish(configs, refConfigs, NUM_NODES);
+    TableAnswerElement expected =
+        (TableAnswerElement)
+            new CompareFiltersAnswerer(question, sequential)
+                .answerDiff(sequential.getSnapshot(), sequential.getReferenceSnapshot());
+    TableAnswerElement actual =
+        (TableAnswerElement)
+            new CompareFiltersAnswerer(question, parallel)
+                .answerDiff(parallel.getSnapshot(), parallel.getReferenceSnapshot());
+    // the changed permit line differs from the reference in each direction
+    assertThat(actual.getRows().size(), equalTo(2 * NUM_NODES * NUM_ACLS));
+    assertThat(actual.getRows(), equalTo(expected.getRows()));
+  }
+
+  /**
+   * Creates {@link #NUM_NODES} configs, so that filters are compared by several workers. Each
+   * config has {@link #NUM_ACLS} ACLs permitting a destination IP that depends on {@code offset}.
+   */
+  private static List<Configuration> createConfigs(int offset) {
+    NetworkFactory nf = new NetworkFactory();
+    ImmutableList.Builder<Configuration> configs = ImmutableList.builder();
+    for (int n = 0; n < NUM_NODES; n++) {
+      Configuration c =
+          nf.configurationBuilder()
+              .setHostname("c" + n)
+              .setConfigurationFormat(ConfigurationFormat.CISCO_IOS)
+              .build();
+      for (int i = 0; i < NUM_ACLS; i++) {
+        IpAccessList acl =
+            IpAccessList.builder()
+                .setName("acl" + i)
+                .setLines(
+                    ImmutableList.of(
+                        ExprAclLine.acceptingHeaderSpace(
+                            HeaderSpace.builder()
+                                .setDstIps(Ip.parse("1." + n + ".1." + (i + offset)).toIpSpace())
+                                .build())))
+                .build();
+        c.getIpAccessLists().put(acl.getName(), acl);
+      }
+      configs.add(c);
+    }
+    return configs.build();
+  }
+
+  /** A mock Batfish serving a current and a reference snapshot. */
+  private static final class MockBatfish extends IBatfishTestAdapter {
+    private final SortedMap<String, Configuration> _configs;
+    private final SortedMap<String, Configuration> _refConfigs;
+    private final int _availableThreads;
+
+    MockBatfish(List<Configuration> configs, List<Configuration> refConfigs, int availableThreads) {
+      _configs = byHostname(configs);
+      _refConfigs = byHostname(refConfigs);
+      _availableThreads = availableThreads;
+    }
+
+    private static SortedMap<String, Configuration> byHostname(List<Configuration> configs) {
+      return configs.stream()
+          .collect(
+              ImmutableSortedMap.toImmutableSortedMap(
+                  Comparator.naturalOrder(), Configuration::getHostname, Function.identity()));
+    }
+
+    @Override
+    public int getAvailableThreads() {
+      return _availableThreads;
+    }
+
+    @Override
+    public SortedMap<String, Configuration> loadConfigurations(NetworkSnapshot snapshot) {
+      return snapshot.equals(getSnapshot()) ? _configs : _refConfigs;
+    }
+
+    @Override
+    public Map<Location, LocationInfo> getLocationInfo(NetworkSnapshot snapshot) {
+      return ImmutableMap.of();
+    }
+  }
+
   private static List<PermitAndDenyBdds> toPermitAndDenyBdds(
       List<LineAction> actions, List<BDD> bdds) {
     // bdds should have one more element than actions, representing the default denied packets
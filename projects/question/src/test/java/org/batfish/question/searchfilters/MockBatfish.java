@@ -2,40 +2,87 @@ package org.batfish.question.searchfilters;
 
 import static org.junit.Assert.assertTrue;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import javax.annotation.Nullable;
 import org.batfish.common.NetworkSnapshot;
 import org.batfish.common.plugin.IBatfishTestAdapter;
 import org.batfish.datamodel.Configuration;
 import org.batfish.specifier.Location;
 import org.batfish.specifier.LocationInfo;
+import org.batfish.specifier.SpecifierContext;
 
 /** A mock Batfish for search filters tests. */
 final class MockBatfish extends IBatfishTestAdapter {
-  private final Configuration _baseConfig;
-  private final Configuration _deltaConfig;
+  private final SortedMap<String, Configuration> _baseConfigs;
+  private final SortedMap<String, Configuration> _deltaConfigs;
+  private final int _availableThreads;
+  private final Set<Thread> _specifierContextThreads = ConcurrentHashMap.newKeySet();
 
   MockBatfish(Configuration baseConfig) {
-    _baseConfig = baseConfig;
-    _deltaConfig = null;
+    this(baseConfig, null, 1);
   }
 
   MockBatfish(Configuration baseConfig, Configuration deltaConfig) {
-    _baseConfig = baseConfig;
-    _deltaConfig = deltaConfig;
+    this(baseConfig, deltaConfig, 1);
+  }
+
+  MockBatfish(Configuration baseConfig, @Nullable Configuration deltaConfig, int availableThreads) {
+    this(
+        ImmutableList.of(baseConfig),
+        deltaConfig == null ? ImmutableList.of() : ImmutableList.of(deltaConfig),
+        availableThreads);
+  }
+
+  MockBatfish(
+      Collection<Configuration> baseConfigs,
+      Collection<Configuration> deltaConfigs,
+      int availableThreads) {
+    _baseConfigs = byHostname(baseConfigs);
+    _deltaConfigs = byHostname(deltaConfigs);
+    _availableThreads = availableThreads;
+  }
+
+  private static SortedMap<String, Configuration> byHostname(Collection<Configuration> configs) {
+    return configs.stream()
+        .collect(
+            ImmutableSortedMap.toImmutableSortedMap(
+                Comparator.naturalOrder(), Configuration::getHostname, Function.identity()));
+  }
+
+  @Override
+  public int getAvailableThreads() {
+    return _availableThreads;
+  }
+
+  /** Returns the threads that created specifier contexts. */
+  Set<Thread> getSpecifierContextThreads() {
+    return ImmutableSet.copyOf(_specifierContextThreads);
   }
 
   @Override
   public SortedMap<String, Configuration> loadConfigurations(NetworkSnapshot snapshot) {
     assertTrue(snapshot.equals(getSnapshot()) || snapshot.equals(getReferenceSnapshot()));
-    Configuration config = snapshot.equals(getSnapshot()) ? _baseConfig : _deltaConfig;
-    return ImmutableSortedMap.of(config.getHostname(), config);
+    return snapshot.equals(getSnapshot()) ? _baseConfigs : _deltaConfigs;
   }
 
   @Override
   public Map<Location, LocationInfo> getLocationInfo(NetworkSnapshot networkSnapshot) {
     return ImmutableMap.of();
   }
+
+  @Override
+  public SpecifierContext specifierContext(NetworkSnapshot networkSnapshot) {
+    _specifierContextThreads.add(Thread.currentThread());
+    return super.specifierContext(networkSnapshot);
+  }
 }
@@ -87,9 +87,8 @@ public class SearchFiltersAnswererDifferentialTest {
             config,
             refConfig,
             ImmutableSet.of(aclName),
-            snapshot,
-            reference,
-            batfish,
+            batfish.specifierContext(snapshot),
+            batfish.specifierContext(reference),
             DEFAULT_PARAMS,
             PKT);
     DifferentialSearchFiltersResult result =
@@ -99,14 +98,14 @@ public class SearchFiltersAnswererDifferentialTest {
     assertThat(result.getIncreasedFlow().get(), allOf(hasIngressInterface(IFACE1), hasDstIp(IP)));
 
     // flip base and delta
+    IBatfish flipped = getBatfish(refConfig, config);
     configContext =
         new DiffConfigContext(
             refConfig,
             config,
             ImmutableSet.of(aclName),
-            reference,
-            snapshot,
-            getBatfish(refConfig, config),
+            flipped.specifierContext(reference),
+            flipped.specifierContext(snapshot),
             DEFAULT_PARAMS,
             PKT);
     result = getDiffResult(refAcl, acl, configContext, PERMIT_QUERY);
@@ -134,9 +133,8 @@ public class SearchFiltersAnswererDifferentialTest {
             config,
             refConfig,
             ImmutableSet.of(aclName),
-            snapshot,
-            reference,
-            batfish,
+            batfish.specifierContext(snapshot),
+            batfish.specifierContext(reference),
             DEFAULT_PARAMS,
             PKT);
     DifferentialSearchFiltersResult result =
@@ -146,14 +144,14 @@ public class SearchFiltersAnswererDifferentialTest {
     assertThat(result.getIncreasedFlow().get(), hasDstIp(IP));
 
     // flip base and delta ACL
+    IBatfish flipped = getBatfish(refConfig, config);
     configContext =
         new DiffConfigContext(
             refConfig,
             config,
             ImmutableSet.of(aclName),
-            reference,
-            snapshot,
-            getBatfish(refConfig, config),
+            flipped.specifierContext(reference),
+            flipped.specifierContext(snapshot),
             DEFAULT_PARAMS,
             PKT);
     result = getDiffResult(refAcl, acl, configContext, PERMIT_QUERY);
@@ -192,7 +190,13 @@ public class SearchFiltersAnswererDifferentialTest {
     // can match line 1 because IFACE1 is specified
     DiffConfigContext configContext =
         new DiffConfigContext(
-            config, refConfig, ImmutableSet.of(aclName), snapshot, reference, batfish, params, PKT);
+            config,
+            refConfig,
+            ImmutableSet.of(aclName),
+            batfish.specifierContext(snapshot),
+            batfish.specifierContext(reference),
+            params,
+            PKT);
     DifferentialSearchFiltersResult result =
         getDiffResult(acl, refAcl, configContext, PERMIT_QUERY);
     assertTrue("Expected no decreased result", !result.getDecreasedFlow().isPresent());
@@ -207,7 +211,13 @@ public class SearchFiltersAnswererDifferentialTest {
     // can't match line 1 because IFACE2 is specified
     configContext =
         new DiffConfigContext(
-            config, refConfig, ImmutableSet.of(aclName), snapshot, reference, batfish, params, PKT);
+            config,
+            refConfig,
+            ImmutableSet.of(aclName),
+            batfish.specifierContext(snapshot),
+            batfish.specifierContext(reference),
+            params,
+            PKT);
     result = getDiffResult(acl, refAcl, configContext, PERMIT_QUERY);
     assertTrue("Expected no decreased result", !result.getDecreasedFlow().isPresent());
     assertTrue("Expected no increased result", !result.getIncreasedFlow().isPresent());
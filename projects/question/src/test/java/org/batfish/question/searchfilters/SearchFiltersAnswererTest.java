@@ -1,22 +1,31 @@
 package org.batfish.question.searchfilters;
 
+import static org.batfish.datamodel.acl.AclLineMatchExprs.and;
 import static org.batfish.datamodel.acl.AclLineMatchExprs.matchDstIp;
+import static org.batfish.datamodel.acl.AclLineMatchExprs.matchSrcInterface;
 import static org.hamcrest.Matchers.anEmptyMap;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertThat;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import java.util.List;
 import org.batfish.common.plugin.IBatfish;
 import org.batfish.datamodel.Configuration;
 import org.batfish.datamodel.ConfigurationFormat;
 import org.batfish.datamodel.ExprAclLine;
 import org.batfish.datamodel.IpAccessList;
 import org.batfish.datamodel.NetworkFactory;
+import org.batfish.datamodel.Vrf;
+import org.batfish.datamodel.table.TableAnswerElement;
 import org.junit.Test;
 
 /** Tests of {@link SearchFiltersAnswerer}. */
 public class SearchFiltersAnswererTest {
+  private static final int NUM_ACLS = 6;
+  private static final int NUM_NODES = 4;
+
   private static final IpAccessList ACL1 =
       IpAccessList.builder()
           .setName("acl1")
@@ -80,6 +89,84 @@ public class SearchFiltersAnswererTest {
         equalTo(ImmutableMap.of(c.getHostname(), ImmutableMap.of())));
   }
 
+  /** Answering with several workers, each with its own BDD factory, gives the sequential answer. */
+  @Test
+  public void testParallelAnswerMatchesSequential() {
+    List<Configuration> configs = createConfigsWithManyAcls(0);
+    SearchFiltersQuestion question = SearchFiltersQuestion.builder().build();
+    MockBatfish sequential = new MockBatfish(configs, ImmutableList.of(), 1);
+    MockBatfish parallel = new MockBatfish(configs, ImmutableList.of(), NUM_NODES);
+    TableAnswerElement expected =
+        (TableAnswerElement)
+            new SearchFiltersAnswerer(question, sequential).answer(sequential.getSnapshot());
+    TableAnswerElement actual =
+        (TableAnswerElement)
+            new SearchFiltersAnswerer(question, parallel).answer(parallel.getSnapshot());
+    assertThat(actual.getRows().size(), equalTo(NUM_NODES * NUM_ACLS));
+    assertThat(actual.getRows(), equalTo(expected.getRows()));
+    // workers are handed the specifier context instead of creating their own
+    assertThat(parallel.getSpecifierContextThreads(), contains(Thread.currentThread()));
+  }
+
+  @Test
+  public void testParallelAnswerDiffMatchesSequential() {
+    List<Configuration> configs = createConfigsWithManyAcls(0);
+    List<Configuration> refConfigs = createConfigsWithManyAcls(1);
+    SearchFiltersQuestion question = SearchFiltersQuestion.builder().build();
+    MockBatfish sequential = new MockBatfish(configs, refConfigs, 1);
+    MockBatfish parallel = new MockBatfish(configs, refConfigs, NUM_NODES);
+    TableAnswerElement expected =
+        (TableAnswerElement)
+            new SearchFiltersAnswerer(question, sequential)
+                .answerDiff(sequential.getSnapshot(), sequential.getReferenceSnapshot());
+    TableAnswerElement actual =
+        (TableAnswerElement)
+            new SearchFiltersAnswerer(question, parallel)
+                .answerDiff(parallel.getSnapshot(), parallel.getReferenceSnapshot());
+    // an increased and a decreased flow for each ACL
+    assertThat(actual.getRows().size(), equalTo(2 * NUM_NODES * NUM_ACLS));
+    assertThat(actual.getRows(), equalTo(expected.getRows()));
+    assertThat(parallel.getSpecifierContextThreads(), contains(Thread.currentThread()));
+  }
+
+  /**
+   * Creates {@link #NUM_NODES} configs, so that answers are computed by several workers. Each
+   * config has interfaces and {@link #NUM_ACLS} ACLs, which permit traffic to a destination IP that
+   * depends on {@code offset} when it enters some interface.
+   */
+  private static List<Configuration> createConfigsWithManyAcls(int offset) {
+    NetworkFactory nf = new NetworkFactory();
+    ImmutableList.Builder<Configuration> configs = ImmutableList.builder();
+    for (int n = 0; n < NUM_NODES; n++) {
+      Configuration c =
+          nf.configurationBuilder()
+              .setHostname("c" + n)
+              .setConfigurationFormat(ConfigurationFormat.CISCO_IOS)
+              .build();
+      Vrf vrf = nf.vrfBuilder().setOwner(c).build();
+      for (int i = 0; i < 3; i++) {
+        nf.interfaceBuilder().setName("iface" + i).setOwner(c).setVrf(vrf).build();
+      }
+      for (int i = 0; i < NUM_ACLS; i++) {
+        IpAccessList acl =
+            IpAccessList.builder()
+                .setName("acl" + i)
+                .setLines(
+                    ImmutableList.of(
+                        ExprAclLine.accepting()
+                            .setMatchCondition(
+                                and(
+                                    matchSrcInterface("iface" + (i % 3)),
+                                    matchDstIp("1." + n + ".1." + (i + offset))))
+                            .build()))
+                .build();
+        c.getIpAccessLists().put(acl.getName(), acl);
+      }
+      configs.add(c);
+    }
+    return configs.build();
+  }
+
   private static Configuration createConfigWithAcls(IpAccessList... acls) {
     NetworkFactory nf = new NetworkFactory();
     Configuration c =
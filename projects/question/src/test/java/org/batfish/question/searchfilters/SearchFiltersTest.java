@@ -172,8 +172,7 @@ public final class SearchFiltersTest {
     return new NonDiffConfigContext(
         _config,
         _config.getIpAccessLists().keySet(),
-        _batfish.getSnapshot(),
-        _batfish,
+        _batfish.specifierContext(_batfish.getSnapshot()),
         params,
         PKT);
   }
@@ -401,8 +400,7 @@ public final class SearchFiltersTest {
         new NonDiffConfigContext(
             c,
             ImmutableSet.of(denyAllSourcesAcl.getName()),
-            bf.getSnapshot(),
-            bf,
+            bf.specifierContext(bf.getSnapshot()),
             DEFAULT_PARAMS,
             PKT);
     Flow flow = configContext.getFlow(configContext.getReachBdd(denyAllSourcesAcl, PERMIT_QUERY));
@@ -436,8 +434,7 @@ public final class SearchFiltersTest {
         new NonDiffConfigContext(
             c,
             ImmutableSet.of(denyAllButIface2.getName()),
-            bf.getSnapshot(),
-            bf,
+            bf.specifierContext(bf.getSnapshot()),
             DEFAULT_PARAMS,
             PKT);
     Flow flow = configContext.getFlow(configContext.getReachBdd(denyAllButIface2, PERMIT_QUERY));